@@ -62,6 +62,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             null);
     }
 
@@ -80,6 +81,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             paging.page(),
             paging.perPage(),
             paging.order(),
@@ -104,6 +106,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             null);
     }
 
@@ -123,6 +126,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             paging.page(),
             paging.perPage(),
             paging.order(),
@@ -148,6 +152,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             null);
     }
 
@@ -170,6 +175,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             null);
     }
 
@@ -192,6 +198,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             null);
     }
 
@@ -214,6 +221,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             null);
     }
 
@@ -237,6 +245,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             null);
     }
 
@@ -259,6 +268,7 @@ public class OwnerClient extends OwnerApi {
             null,
             null,
             null,
+            null,
             null);
     }
 
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.huffman;
+
+import org.candlepin.model.dto.Content;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Compares the content path encoder against the original Huffman encoder over content sets of
+ * increasing size.
+ * <p>
+ * The two encoders are not expected to produce identical bytes: the original orders nodes with
+ * equal parent counts by identity hash code, and only merges some equivalent subtrees. Instead,
+ * setup verifies that both payloads decode to the same set of paths, and that the new encoder is
+ * byte-for-byte stable across runs and input orderings.
+ * <p>
+ * The size of the payloads produced by each encoder is reported through the payloads and
+ * payloadBytes secondary results; the average payload size is payloadBytes divided by payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContentPathEncoderBenchmark {
+
+    private static final String[] ARCHES = { "x86_64", "aarch64", "ppc64le", "s390x" };
+    private static final String[] LEAVES = { "os", "debug", "source/SRPMS", "iso" };
+
+    @Param({ "100", "1000", "5000" })
+    public int pathCount;
+
+    private List<Content> contents;
+    private ContentPathEncoder encoder;
+    private ContentPathEncoder cachingEncoder;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // Generate paths shaped like real CDN content paths, with a fixed seed so each trial
+        // encodes the same content
+        Random random = new Random(this.pathCount);
+        List<String> paths = new ArrayList<>();
+
+        while (paths.size() < this.pathCount) {
+            String path = String.format("/content/%s/rhel%d/%d/%s/product-%d/%s",
+                random.nextBoolean() ? "dist" : "beta",
+                7 + random.nextInt(3),
+                random.nextInt(10),
+                ARCHES[random.nextInt(ARCHES.length)],
+                random.nextInt(Math.max(1, this.pathCount / 4)),
+                LEAVES[random.nextInt(LEAVES.length)]);
+
+            paths.add(path);
+        }
+
+        this.contents = new ArrayList<>();
+        for (String path : paths) {
+            Content content = new Content();
+            content.setPath(path);
+            this.contents.add(content);
+        }
+
+        this.encoder = new ContentPathEncoder(0);
+        this.cachingEncoder = new ContentPathEncoder(16);
+
+        byte[] encoded = this.encoder.encode(this.contents);
+        byte[] legacy = new Huffman().retrieveContentValue(this.contents);
+
+        if (!new HashSet<>(new Huffman().hydrateContentPackage(encoded)).equals(new HashSet<>(paths)) ||
+            !new HashSet<>(new Huffman().hydrateContentPackage(legacy)).equals(new HashSet<>(paths))) {
+            throw new IllegalStateException("Encoded payloads do not decode to the source paths");
+        }
+
+        List<Content> reversed = new ArrayList<>(this.contents);
+        Collections.reverse(reversed);
+
+        if (!Arrays.equals(encoded, this.encoder.encode(reversed))) {
+            throw new IllegalStateException("Encoded payload depends on the order of the paths");
+        }
+
+    }
+
+    @Benchmark
+    public byte[] legacyHuffman(PayloadCounters counters) throws IOException {
+        return counters.record(new Huffman().retrieveContentValue(this.contents));
+    }
+
+    @Benchmark
+    public byte[] contentPathEncoder(PayloadCounters counters) throws IOException {
+        return counters.record(this.encoder.encode(this.contents));
+    }
+
+    @Benchmark
+    public byte[] cachedContentPathEncoder(PayloadCounters counters) throws IOException {
+        return counters.record(this.cachingEncoder.encode(this.contents));
+    }
+
+    /**
+     * Counts the payloads produced by a benchmark, and their total size in bytes. JMH reports the
+     * public fields of this state as secondary results of each benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadCounters {
+        public long payloads;
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.payloads = 0;
+            this.payloadBytes = 0;
+        }
+
+        byte[] record(byte[] payload) {
+            ++this.payloads;
+            this.payloadBytes += payload.length;
+
+            return payload;
+        }
+    }
+
+}
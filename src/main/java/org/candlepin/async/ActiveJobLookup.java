@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import java.util.List;
+import java.util.Map;
+
+
+
+/**
+ * The ActiveJobLookup interface provides the job lookups needed to evaluate job constraints. It is
+ * implemented both by the job curator, which queries the database directly, and by the in-memory
+ * JobConstraintIndex used by the job manager when queueing jobs.
+ */
+public interface ActiveJobLookup {
+
+    /**
+     * Fetches a collection of job IDs for jobs in non-terminal states matching the given job key
+     * and having all of the provided job arguments with the specified values.
+     *
+     * @param jobKey
+     *  the job key to restrict
+     *
+     * @param arguments
+     *  a map containing the serialized arguments to use for filtering jobs; may be null
+     *
+     * @throws IllegalArgumentException
+     *  if jobKey is null or empty
+     *
+     * @return
+     *  A collection of IDs of non-terminal jobs matching the given job key and using the specified
+     *  arguments
+     */
+    List<String> fetchJobIdsByArguments(String jobKey, Map<String, String> arguments);
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+
+
+/**
+ * The JobCoalescer interface provides a standard API for merging a newly queued job into an
+ * equivalent job which is already pending, rather than running both.
+ */
+@FunctionalInterface
+public interface JobCoalescer {
+
+    /**
+     * Attempts to merge the arguments of an inbound job into those of an existing, pending job of
+     * the same type. If the existing job already covers the work of the inbound job, this method
+     * should return the existing arguments unchanged. If the jobs can be merged, but only by
+     * changing the arguments of the existing job, this method should return the merged arguments.
+     * If the jobs cannot be merged, this method should return null.
+     *
+     * @param existing
+     *  the arguments of the existing job
+     *
+     * @param inbound
+     *  the arguments of the inbound job
+     *
+     * @throws IllegalArgumentException
+     *  if either set of arguments is null
+     *
+     * @return
+     *  the arguments for the existing job which cover the work of both jobs, or null if the jobs
+     *  cannot be merged
+     */
+    JobArguments coalesce(JobArguments existing, JobArguments inbound);
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import org.candlepin.async.impl.UnionByArgCoalescer;
+
+
+
+/**
+ * The JobCoalescers class provides a collection of factory methods for quickly building job
+ * coalescers.
+ */
+public class JobCoalescers {
+
+    private JobCoalescers() {
+        throw new UnsupportedOperationException("This class should not be constructed");
+    }
+
+    /**
+     * Creates a new coalescer which merges jobs only if their arguments are identical.
+     *
+     * @return
+     *  a new identical-arguments coalescer
+     */
+    public static JobCoalescer identicalArguments() {
+        return (existing, inbound) -> {
+            if (existing == null || inbound == null) {
+                throw new IllegalArgumentException("job arguments are null");
+            }
+
+            return existing.equals(inbound) ? existing : null;
+        };
+    }
+
+    /**
+     * Creates a new coalescer which merges jobs having identical arguments other than the
+     * specified array parameter, the values of which are unioned.
+     *
+     * @param param
+     *  the array parameter to union
+     *
+     * @return
+     *  a new union-by-argument coalescer
+     */
+    public static JobCoalescer unionByArgument(String param) {
+        return new UnionByArgCoalescer(param, null);
+    }
+
+    /**
+     * Creates a new coalescer which merges jobs having identical arguments other than the
+     * specified array parameter, the values of which are unioned. Jobs which instead provide a
+     * single value using the given single-value parameter are merged as though the value were
+     * provided in the array parameter.
+     *
+     * @param param
+     *  the array parameter to union
+     *
+     * @param singleParam
+     *  a parameter providing a single value in place of the array parameter
+     *
+     * @return
+     *  a new union-by-argument coalescer
+     */
+    public static JobCoalescer unionByArgument(String param, String singleParam) {
+        return new UnionByArgCoalescer(param, singleParam);
+    }
+}
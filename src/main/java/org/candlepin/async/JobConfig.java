@@ -70,6 +70,7 @@ public class JobConfig<T extends JobConfig> {
     private Owner owner;
     private Map<String, String> arguments;
     private Set<JobConstraint> constraints;
+    private JobCoalescer coalescer;
     private int retries;
     private String logLevel;
     private boolean logExecutionDetails;
@@ -306,6 +307,33 @@ public class JobConfig<T extends JobConfig> {
         return Collections.unmodifiableSet(this.constraints);
     }
 
+    /**
+     * Sets the coalescer to use for merging this job into an equivalent job which is already
+     * pending, rather than queueing it to run separately. If the coalescer is null, any existing
+     * coalescer will be cleared and the job will always be queued on its own.
+     *
+     * @param coalescer
+     *  the coalescer to use for this job, or null to disable coalescing
+     *
+     * @return
+     *  this JobConfig instance
+     */
+    public T setCoalescer(JobCoalescer coalescer) {
+        this.coalescer = coalescer;
+        return (T) this;
+    }
+
+    /**
+     * Fetches the coalescer to use for merging this job into an equivalent pending job. If this
+     * job does not support coalescing, this method returns null.
+     *
+     * @return
+     *  the coalescer for this job, or null if this job is not to be coalesced
+     */
+    public JobCoalescer getCoalescer() {
+        return this.coalescer;
+    }
+
     /**
      * Sets the number of times this job will be retried if it fails to complete normally. Values
      * lower than 1 indicate the job will not be retried at all on failure.
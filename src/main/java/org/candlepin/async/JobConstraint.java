@@ -15,7 +15,6 @@
 package org.candlepin.async;
 
 import org.candlepin.model.AsyncJobStatus;
-import org.candlepin.model.AsyncJobStatusCurator;
 
 import java.util.Collection;
 
@@ -32,8 +31,9 @@ public interface JobConstraint {
      * method should return a collection containing the IDs of the constraining jobs. Otherwise,
      * this method should return null or an empty collection.
      *
-     * @param jobCurator
-     *  an instance of the current jobCurator to use for performing database operations
+     * @param jobLookup
+     *  the lookup to use for finding active jobs; either the job curator or an in-memory index of
+     *  the active jobs
      *
      * @param inbound
      *  the inbound job status to test
@@ -44,6 +44,6 @@ public interface JobConstraint {
      * @return
      *  a collection of constraining job IDs, or null to indicate no job collisions
      */
-    Collection<String> test(AsyncJobStatusCurator jobCurator, AsyncJobStatus inbound);
+    Collection<String> test(ActiveJobLookup jobLookup, AsyncJobStatus inbound);
 
 }
@@ -0,0 +1,508 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.model.AsyncJobStatus;
+import org.candlepin.model.AsyncJobStatus.JobState;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * An in-memory index of the active (non-terminal) jobs, used by the job manager to evaluate job
+ * constraints without querying the database for every job it queues. The index is updated by the
+ * job manager as it changes the state of jobs, and is periodically resynchronized with the job
+ * curator to pick up jobs created or updated by other nodes.
+ * <p></p>
+ * The index also retains the constraints of jobs which are waiting on other jobs, so that they can
+ * be reevaluated once the blocking jobs have finished. Jobs which have been coalesced into other
+ * jobs are never run themselves, and are not indexed.
+ */
+@Singleton
+public class JobConstraintIndex implements ActiveJobLookup {
+    private static final Logger log = LoggerFactory.getLogger(JobConstraintIndex.class);
+
+    /** An active job, as tracked by the index */
+    private static class IndexedJob {
+        private final String id;
+        private final String jobKey;
+        private final String ownerId;
+        private final long created;
+        private final long sequence;
+        private final Map<String, String> arguments;
+
+        private JobState state;
+        private long mark;
+
+        public IndexedJob(AsyncJobStatus status, long sequence) {
+            this.id = status.getId();
+            this.jobKey = status.getJobKey();
+            this.ownerId = status.getContextOwnerId();
+            this.created = status.getCreated() != null ? status.getCreated().getTime() : Long.MAX_VALUE;
+            this.sequence = sequence;
+            this.arguments = status.getJobArguments().toSerializedMap();
+            this.state = status.getState();
+        }
+
+        public boolean matches(String jobKey, Map<String, String> arguments) {
+            if (!jobKey.equals(this.jobKey)) {
+                return false;
+            }
+
+            if (arguments != null) {
+                for (Map.Entry<String, String> entry : arguments.entrySet()) {
+                    // As with the database lookup, null values never match
+                    String value = this.arguments.get(entry.getKey());
+                    if (value == null || !value.equals(entry.getValue())) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /** Orders jobs by their creation time, and then the order in which they were indexed */
+    private static final Comparator<IndexedJob> QUEUE_ORDER = Comparator
+        .comparingLong((IndexedJob job) -> job.created)
+        .thenComparingLong(job -> job.sequence);
+
+    private final long refreshInterval;
+
+    private final Map<String, IndexedJob> jobs;
+    private final Map<String, Long> removed;
+    private final Map<String, Collection<JobConstraint>> constraintsByJobId;
+    private final Map<String, Collection<JobConstraint>> constraintsByJobKey;
+
+    private long lastRefresh;
+    private long mark;
+    private long sequence;
+
+    @Inject
+    public JobConstraintIndex(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        this.refreshInterval = config.getLong(ConfigProperties.ASYNC_JOBS_CONSTRAINT_INDEX_REFRESH_INTERVAL);
+        if (this.refreshInterval < 1) {
+            throw new ConfigurationException(ConfigProperties.ASYNC_JOBS_CONSTRAINT_INDEX_REFRESH_INTERVAL +
+                " must be larger than 0");
+        }
+
+        this.jobs = new HashMap<>();
+        this.removed = new HashMap<>();
+        this.constraintsByJobId = new HashMap<>();
+        this.constraintsByJobKey = new HashMap<>();
+
+        this.lastRefresh = 0;
+    }
+
+    /**
+     * Fetches the interval, in milliseconds, at which this index should be resynchronized with the
+     * database.
+     *
+     * @return
+     *  the refresh interval of this index
+     */
+    public long getRefreshInterval() {
+        return this.refreshInterval;
+    }
+
+    /**
+     * Checks if this index is due to be resynchronized with the database, either because the
+     * refresh interval has elapsed since the last refresh, or because the index has been
+     * invalidated.
+     *
+     * @return
+     *  true if this index should be refreshed; false otherwise
+     */
+    public synchronized boolean isStale() {
+        return this.lastRefresh == 0 || System.currentTimeMillis() - this.lastRefresh >= this.refreshInterval;
+    }
+
+    /**
+     * Marks this index as stale, forcing it to be refreshed before it is next used. This should be
+     * called after jobs have been updated in bulk without going through the index.
+     */
+    public synchronized void invalidate() {
+        this.lastRefresh = 0;
+    }
+
+    /**
+     * Begins a refresh of this index. The value returned must be passed to the refresh method along
+     * with the jobs fetched from the database after this method is called, so that changes made to
+     * the index while the jobs were being fetched are not lost.
+     *
+     * @return
+     *  a mark identifying the point at which the refresh began
+     */
+    public synchronized long beginRefresh() {
+        return this.mark;
+    }
+
+    /**
+     * Replaces the contents of this index with the given active jobs. Jobs which were added,
+     * updated or removed since the given mark was obtained retain their indexed state.
+     *
+     * @param active
+     *  the jobs in non-terminal states, as fetched from the database
+     *
+     * @param mark
+     *  the mark returned by beginRefresh before the jobs were fetched
+     */
+    public synchronized void refresh(Collection<AsyncJobStatus> active, long mark) {
+        Map<String, IndexedJob> refreshed = new HashMap<>();
+
+        if (active != null) {
+            for (AsyncJobStatus status : active) {
+                if (status == null || status.getId() == null || status.getCoalescedInto() != null ||
+                    this.isChangedSince(status.getId(), mark)) {
+                    continue;
+                }
+
+                IndexedJob existing = this.jobs.get(status.getId());
+                long sequence = existing != null ? existing.sequence : ++this.sequence;
+
+                refreshed.put(status.getId(), new IndexedJob(status, sequence));
+            }
+        }
+
+        // Keep anything changed locally while the refresh was in progress
+        for (IndexedJob job : this.jobs.values()) {
+            if (job.mark > mark) {
+                refreshed.put(job.id, job);
+            }
+        }
+
+        this.jobs.clear();
+        this.jobs.putAll(refreshed);
+
+        this.removed.values().removeIf(removedMark -> removedMark <= mark);
+        this.constraintsByJobId.keySet().retainAll(this.jobs.keySet());
+
+        this.lastRefresh = System.currentTimeMillis();
+
+        log.debug("Refreshed job constraint index: {} active job(s)", this.jobs.size());
+    }
+
+    /**
+     * Merges the given active jobs into this index, without removing any indexed jobs. This is
+     * used to pick up jobs created or updated by other nodes since the last refresh, right before
+     * a job is admitted. Jobs which were updated or removed since the given mark was obtained
+     * retain their indexed state.
+     *
+     * @param active
+     *  the jobs in non-terminal states, as fetched from the database
+     *
+     * @param mark
+     *  the mark returned by beginRefresh before the jobs were fetched
+     */
+    public synchronized void merge(Collection<AsyncJobStatus> active, long mark) {
+        if (active == null) {
+            return;
+        }
+
+        for (AsyncJobStatus status : active) {
+            if (status == null || status.getId() == null || status.getCoalescedInto() != null ||
+                status.getState() == null || status.getState().isTerminal() ||
+                this.isChangedSince(status.getId(), mark)) {
+                continue;
+            }
+
+            IndexedJob existing = this.jobs.get(status.getId());
+            if (existing != null) {
+                existing.state = status.getState();
+            }
+            else {
+                this.jobs.put(status.getId(), new IndexedJob(status, ++this.sequence));
+            }
+        }
+    }
+
+    private boolean isChangedSince(String jobId, long mark) {
+        IndexedJob job = this.jobs.get(jobId);
+        Long removedMark = this.removed.get(jobId);
+
+        return (job != null && job.mark > mark) || (removedMark != null && removedMark > mark);
+    }
+
+    /**
+     * Updates the indexed state of the given job. Jobs in terminal states, and jobs which have been
+     * coalesced into other jobs, are removed from the index. Jobs which have not yet been persisted
+     * cannot be indexed, and are ignored.
+     *
+     * @param status
+     *  the job to update
+     */
+    public synchronized void update(AsyncJobStatus status) {
+        if (status == null || status.getId() == null) {
+            return;
+        }
+
+        JobState state = status.getState();
+        if (state == null || state.isTerminal() || status.getCoalescedInto() != null) {
+            this.remove(status.getId());
+            return;
+        }
+
+        ++this.mark;
+
+        IndexedJob job = this.jobs.get(status.getId());
+        if (job == null) {
+            try {
+                job = new IndexedJob(status, ++this.sequence);
+            }
+            catch (RuntimeException e) {
+                // Most likely the arguments could not be loaded; pick the job up on the next refresh
+                log.debug("Unable to index job: {}", status, e);
+                this.invalidate();
+                return;
+            }
+
+            this.jobs.put(job.id, job);
+        }
+
+        job.state = state;
+        job.mark = this.mark;
+        this.removed.remove(job.id);
+    }
+
+    /**
+     * Removes the job with the given ID from this index.
+     *
+     * @param jobId
+     *  the ID of the job to remove
+     */
+    public synchronized void remove(String jobId) {
+        if (jobId == null) {
+            return;
+        }
+
+        this.jobs.remove(jobId);
+        this.constraintsByJobId.remove(jobId);
+        this.removed.put(jobId, ++this.mark);
+    }
+
+    /**
+     * Retains the constraints of the given job, so that they are available when the job is
+     * reevaluated after waiting on other jobs. The constraints are also retained for the job's key,
+     * for use with waiting jobs of the same key that were queued by other nodes or before a
+     * restart.
+     *
+     * @param status
+     *  the job to which the constraints apply
+     *
+     * @param constraints
+     *  the constraints of the job
+     */
+    public synchronized void setConstraints(AsyncJobStatus status, Collection<JobConstraint> constraints) {
+        // Jobs without constraints may still wait on the per-owner limits of their lane, so an
+        // empty collection is retained as well
+        if (status == null || constraints == null) {
+            return;
+        }
+
+        List<JobConstraint> copy = List.copyOf(constraints);
+
+        if (status.getId() != null) {
+            this.constraintsByJobId.put(status.getId(), copy);
+        }
+
+        this.constraintsByJobKey.put(status.getJobKey(), copy);
+    }
+
+    /**
+     * Fetches the constraints retained for the given job, or, failing that, the constraints
+     * retained for its job key.
+     *
+     * @param status
+     *  the job for which to fetch constraints
+     *
+     * @return
+     *  the constraints of the given job, or null if its constraints are not known
+     */
+    public synchronized Collection<JobConstraint> getConstraints(AsyncJobStatus status) {
+        if (status == null) {
+            return null;
+        }
+
+        Collection<JobConstraint> constraints = this.constraintsByJobId.get(status.getId());
+        return constraints != null ? constraints : this.constraintsByJobKey.get(status.getJobKey());
+    }
+
+    /**
+     * Fetches the IDs of the indexed jobs in the WAITING state, in the order in which they were
+     * queued.
+     *
+     * @return
+     *  a list of waiting job IDs
+     */
+    public synchronized List<String> getWaitingJobIds() {
+        return this.jobs.values()
+            .stream()
+            .filter(job -> job.state == JobState.WAITING)
+            .sorted(QUEUE_ORDER)
+            .map(job -> job.id)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Fetches the IDs of the indexed jobs with the given key which have not yet started, in the
+     * order in which they were queued. These are the jobs into which a new job with the same key
+     * may be coalesced.
+     *
+     * @param jobKey
+     *  the job key for which to fetch pending jobs
+     *
+     * @return
+     *  a list of pending job IDs
+     */
+    public synchronized List<String> getPendingJobIds(String jobKey) {
+        return this.jobs.values()
+            .stream()
+            .filter(job -> job.jobKey.equals(jobKey))
+            .filter(job -> job.state == JobState.QUEUED || job.state == JobState.WAITING)
+            .sorted(QUEUE_ORDER)
+            .map(job -> job.id)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks if any indexed jobs are in the WAITING state.
+     *
+     * @return
+     *  true if this index contains waiting jobs; false otherwise
+     */
+    public synchronized boolean hasWaitingJobs() {
+        return this.jobs.values()
+            .stream()
+            .anyMatch(job -> job.state == JobState.WAITING);
+    }
+
+    /**
+     * Fetches the number of active jobs in this index.
+     *
+     * @return
+     *  the number of indexed jobs
+     */
+    public synchronized int size() {
+        return this.jobs.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> fetchJobIdsByArguments(String jobKey, Map<String, String> arguments) {
+        return this.fetchJobIds(jobKey, arguments, null);
+    }
+
+    /**
+     * Creates a lookup for evaluating the constraints of the given job. The lookup omits the job
+     * itself, as well as any waiting jobs queued after it, so that waiting jobs are released in
+     * the order in which they were queued.
+     *
+     * @param inbound
+     *  the job for which constraints are to be evaluated
+     *
+     * @return
+     *  a lookup of the active jobs ahead of the given job
+     */
+    public ActiveJobLookup forJob(AsyncJobStatus inbound) {
+        Objects.requireNonNull(inbound);
+        return (jobKey, arguments) -> this.fetchJobIds(jobKey, arguments, inbound);
+    }
+
+    private synchronized List<String> fetchJobIds(String jobKey, Map<String, String> arguments,
+        AsyncJobStatus inbound) {
+
+        if (jobKey == null || jobKey.isEmpty()) {
+            throw new IllegalArgumentException("jobKey is null or empty");
+        }
+
+        return this.fetchJobIds(job -> job.matches(jobKey, arguments), inbound);
+    }
+
+    /**
+     * Fetches the IDs of the active jobs belonging to the owner of the given job, with keys
+     * accepted by the given filter. As with the lookups used for evaluating constraints, the job
+     * itself and any waiting jobs queued after it are omitted.
+     *
+     * @param inbound
+     *  the job for which to fetch the jobs of its owner
+     *
+     * @param jobKeyFilter
+     *  a filter to apply to the keys of the owner's jobs
+     *
+     * @return
+     *  a list of the IDs of the owner's active jobs ahead of the given job, or an empty list if
+     *  the given job has no owner
+     */
+    public synchronized List<String> fetchJobIdsByOwner(AsyncJobStatus inbound,
+        Predicate<String> jobKeyFilter) {
+
+        Objects.requireNonNull(inbound);
+        Objects.requireNonNull(jobKeyFilter);
+
+        String ownerId = inbound.getContextOwnerId();
+        if (ownerId == null) {
+            return new ArrayList<>();
+        }
+
+        return this.fetchJobIds(job -> ownerId.equals(job.ownerId) && jobKeyFilter.test(job.jobKey), inbound);
+    }
+
+    private List<String> fetchJobIds(Predicate<IndexedJob> filter, AsyncJobStatus inbound) {
+        IndexedJob current = inbound != null && inbound.getId() != null ?
+            this.jobs.get(inbound.getId()) :
+            null;
+
+        List<String> output = new ArrayList<>();
+
+        for (IndexedJob job : this.jobs.values()) {
+            if (job == current || !filter.test(job)) {
+                continue;
+            }
+
+            // Jobs waiting behind the inbound job do not block it
+            if (current != null && job.state == JobState.WAITING && QUEUE_ORDER.compare(job, current) > 0) {
+                continue;
+            }
+
+            output.add(job.id);
+        }
+
+        return output;
+    }
+
+}
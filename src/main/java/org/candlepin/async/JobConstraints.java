@@ -14,9 +14,11 @@
  */
 package org.candlepin.async;
 
+import org.candlepin.async.impl.ThrottledByArgConstraint;
 import org.candlepin.async.impl.ThrottledByJobKeyConstraint;
 import org.candlepin.async.impl.UniqueByArgConstraint;
 
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -59,6 +61,29 @@ public class JobConstraints {
         return new UniqueByArgConstraint(params);
     }
 
+    /**
+     * Creates a new unique-by-argument constraint which targets jobs with the specified job key
+     * rather than the key of the job being queued, using the specified parameters as the target
+     * of the constraint. Jobs with this constraint are held until no active jobs with the given
+     * key have the same values of the parameters.
+     *
+     * @param jobKey
+     *  the key of the jobs to target with the constraint
+     *
+     * @param params
+     *  the parameters to target with the constraint
+     *
+     * @return
+     *  a new unique-by-argument constraint
+     */
+    public static JobConstraint uniqueByArgumentsOf(String jobKey, String... params) {
+        if (jobKey == null) {
+            throw new IllegalArgumentException("jobKey is null");
+        }
+
+        return new UniqueByArgConstraint(jobKey, params != null ? Arrays.asList(params) : null);
+    }
+
     /**
      * Creates a new throttling constraint, using the specified job key as the target of
      * the constraint and limit for the throttling.
@@ -74,4 +99,21 @@ public class JobConstraints {
     public static JobConstraint throttledByJobKey(String key, int limit) {
         return new ThrottledByJobKeyConstraint(key, limit);
     }
+
+    /**
+     * Creates a new throttled-by-argument constraint, limiting the number of active jobs with the
+     * same key and values of the specified parameters to the given limit.
+     *
+     * @param limit
+     *  The maximum number of matching jobs which may be active at once
+     *
+     * @param params
+     *  The parameter, or parameters, to use as the target of the new constraint
+     *
+     * @return
+     *  a new throttled-by-argument constraint
+     */
+    public static JobConstraint throttledByArguments(int limit, String... params) {
+        return new ThrottledByArgConstraint(limit, params);
+    }
 }
@@ -16,6 +16,8 @@ package org.candlepin.async;
 
 import org.candlepin.model.AsyncJobStatus;
 
+import java.util.function.Consumer;
+
 
 
 /**
@@ -24,6 +26,7 @@ import org.candlepin.model.AsyncJobStatus;
  */
 public class JobExecutionContext {
     private final AsyncJobStatus job;
+    private final Consumer<AsyncJobStatus> checkpointer;
 
     /**
      * Creates a new job execution context for the given job
@@ -35,11 +38,30 @@ public class JobExecutionContext {
      *  if job is null
      */
     public JobExecutionContext(AsyncJobStatus job) {
+        this(job, null);
+    }
+
+    /**
+     * Creates a new job execution context for the given job, using the given checkpointer to
+     * persist the progress of the job as it is checkpointed.
+     *
+     * @param job
+     *  the job for this execution context
+     *
+     * @param checkpointer
+     *  the function to use to persist the progress of the job; if null, checkpointed progress
+     *  will only be persisted with the final state of the job
+     *
+     * @throws IllegalArgumentException
+     *  if job is null
+     */
+    public JobExecutionContext(AsyncJobStatus job, Consumer<AsyncJobStatus> checkpointer) {
         if (job == null) {
             throw new IllegalArgumentException("job is null");
         }
 
         this.job = job;
+        this.checkpointer = checkpointer;
     }
 
     /**
@@ -63,6 +85,48 @@ public class JobExecutionContext {
         return this.job.getPrincipalName();
     }
 
+    /**
+     * Fetches the resume cursor last checkpointed by a previous attempt of this job. If the job
+     * has not yet checkpointed its progress, this method returns null.
+     *
+     * @return
+     *  the resume cursor of this job, or null if the job has not checkpointed its progress
+     */
+    public String getCursor() {
+        return this.job.getCursor();
+    }
+
+    /**
+     * Fetches the progress last checkpointed by this job, or zero if the job has not yet
+     * checkpointed its progress.
+     *
+     * @return
+     *  the number of units of work completed by this job
+     */
+    public int getProgress() {
+        return this.job.getProgress();
+    }
+
+    /**
+     * Checkpoints the progress of the job's execution. The cursor and progress are persisted
+     * immediately, so that if this attempt fails, a retry of the job may resume from the cursor
+     * rather than starting over.
+     *
+     * @param cursor
+     *  the resume cursor of the job; the format of the cursor is defined by the job
+     *
+     * @param progress
+     *  the number of units of work completed by the job
+     */
+    public void checkpoint(String cursor, int progress) {
+        this.job.setCursor(cursor)
+            .setProgress(progress);
+
+        if (this.checkpointer != null) {
+            this.checkpointer.accept(this.job);
+        }
+    }
+
     /**
      * Sets the result of the job's execution. If the result is not a string, it will be serialized
      * to JSON and stored without any class or other such deserialization information.
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * The JobLanes class represents the configured job lanes. Each lane is served by its own set of
+ * job consumers, so that jobs in one lane are never held up by a backlog of jobs in another, and
+ * may limit the number of active jobs a single owner can have in the lane at any given time.
+ * <p></p>
+ * Jobs which are not assigned to any configured lane run in the default lane, which is served by
+ * the general job threads.
+ */
+@Singleton
+public class JobLanes {
+
+    /** The name of the lane running jobs not assigned to any configured lane */
+    public static final String DEFAULT_LANE = "default";
+
+    /**
+     * A single job lane
+     */
+    public static class Lane {
+        private final String name;
+        private final Set<String> jobKeys;
+        private final int threads;
+        private final int ownerLimit;
+
+        private Lane(String name, Set<String> jobKeys, int threads, int ownerLimit) {
+            this.name = name;
+            this.jobKeys = Collections.unmodifiableSet(jobKeys);
+            this.threads = threads;
+            this.ownerLimit = ownerLimit;
+        }
+
+        /**
+         * Fetches the name of this lane
+         *
+         * @return
+         *  the name of this lane
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Fetches the keys of the jobs assigned to this lane. The default lane has no explicitly
+         * assigned jobs, and returns an empty set.
+         *
+         * @return
+         *  the keys of the jobs assigned to this lane
+         */
+        public Set<String> getJobKeys() {
+            return this.jobKeys;
+        }
+
+        /**
+         * Fetches the number of job consumer threads serving this lane on each node
+         *
+         * @return
+         *  the number of threads serving this lane
+         */
+        public int getThreads() {
+            return this.threads;
+        }
+
+        /**
+         * Fetches the maximum number of active jobs a single owner may have in this lane, or zero
+         * if the number of jobs per owner is not limited.
+         *
+         * @return
+         *  the maximum number of active jobs per owner in this lane
+         */
+        public int getOwnerLimit() {
+            return this.ownerLimit;
+        }
+
+        /**
+         * Checks if this is the default lane
+         *
+         * @return
+         *  true if this lane runs jobs not assigned to any configured lane; false otherwise
+         */
+        public boolean isDefault() {
+            return DEFAULT_LANE.equals(this.name);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Lane [name: %s, threads: %d, owner limit: %d, jobs: %s]",
+                this.name, this.threads, this.ownerLimit, this.jobKeys);
+        }
+    }
+
+    private final Lane defaultLane;
+    private final List<Lane> lanes;
+    private final Map<String, Lane> lanesByJobKey;
+
+    @Inject
+    public JobLanes(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        this.lanes = new ArrayList<>();
+        this.lanesByJobKey = new HashMap<>();
+
+        for (String name : new LinkedHashSet<>(config.getList(ConfigProperties.ASYNC_JOBS_LANES))) {
+            if (name.isEmpty() || DEFAULT_LANE.equals(name)) {
+                throw new ConfigurationException("Invalid job lane name: \"" + name + "\"");
+            }
+
+            Set<String> jobKeys = new LinkedHashSet<>(
+                config.getList(ConfigProperties.laneConfig(name, ConfigProperties.ASYNC_JOBS_LANE_JOBS)));
+
+            jobKeys.remove("");
+            if (jobKeys.isEmpty()) {
+                throw new ConfigurationException("No jobs assigned to job lane: " + name);
+            }
+
+            int threads = getInt(config,
+                ConfigProperties.laneConfig(name, ConfigProperties.ASYNC_JOBS_LANE_THREADS), 1);
+            if (threads < 1) {
+                throw new ConfigurationException("Job lane threads must be larger than 0: " + name);
+            }
+
+            int ownerLimit = getInt(config,
+                ConfigProperties.laneConfig(name, ConfigProperties.ASYNC_JOBS_LANE_OWNER_LIMIT), 0);
+
+            Lane lane = new Lane(name, jobKeys, threads, Math.max(0, ownerLimit));
+            for (String jobKey : jobKeys) {
+                Lane existing = this.lanesByJobKey.put(jobKey, lane);
+                if (existing != null) {
+                    throw new ConfigurationException(String.format(
+                        "Job %s assigned to multiple job lanes: %s, %s", jobKey, existing.getName(), name));
+                }
+            }
+
+            this.lanes.add(lane);
+        }
+
+        this.defaultLane = new Lane(DEFAULT_LANE, Collections.emptySet(),
+            config.getInt(ConfigProperties.ASYNC_JOBS_THREADS),
+            Math.max(0, getInt(config, ConfigProperties.ASYNC_JOBS_OWNER_LIMIT, 0)));
+    }
+
+    private static int getInt(Configuration config, String key, int defaultValue)
+        throws ConfigurationException {
+
+        String value = config.getString(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw new ConfigurationException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * Fetches the configured lanes, followed by the default lane.
+     *
+     * @return
+     *  a list of all job lanes
+     */
+    public List<Lane> getLanes() {
+        List<Lane> output = new ArrayList<>(this.lanes);
+        output.add(this.defaultLane);
+
+        return output;
+    }
+
+    /**
+     * Fetches the default lane, which runs jobs not assigned to any configured lane.
+     *
+     * @return
+     *  the default lane
+     */
+    public Lane getDefaultLane() {
+        return this.defaultLane;
+    }
+
+    /**
+     * Fetches the lane to which the given job is assigned, or the default lane if the job is not
+     * assigned to any configured lane.
+     *
+     * @param jobKey
+     *  the key of the job for which to fetch the lane
+     *
+     * @return
+     *  the lane running the given job
+     */
+    public Lane getLane(String jobKey) {
+        Lane lane = jobKey != null ? this.lanesByJobKey.get(jobKey) : null;
+        return lane != null ? lane : this.defaultLane;
+    }
+
+    /**
+     * Fetches the keys of all jobs assigned to configured lanes. These jobs are excluded from the
+     * default lane.
+     *
+     * @return
+     *  the keys of all jobs assigned to lanes
+     */
+    public Set<String> getAssignedJobKeys() {
+        return Collections.unmodifiableSet(this.lanesByJobKey.keySet());
+    }
+
+}
@@ -74,6 +74,13 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -107,6 +114,13 @@ public class JobManager implements ModeChangeListener {
     private static final Object SUSPEND_KEY_DEFAULT = "default_suspend_key";
     private static final Object SUSPEND_KEY_TRIGGERED = "triggered_suspend_key";
 
+    /**
+     * Constraint applied to waiting jobs whose own constraints are not known to this node; the job
+     * waits on every active job of the same key ahead of it
+     */
+    private static final JobConstraint SERIAL_BY_JOB_KEY_CONSTRAINT = (lookup, inbound) ->
+        lookup.fetchJobIdsByArguments(inbound.getJobKey(), null);
+
     /** Stores our mapping of job keys to job classes */
     private static final Map<String, Class<? extends AsyncJob>> JOB_KEY_MAP = new HashMap<>();
 
@@ -338,6 +352,8 @@ public class JobManager implements ModeChangeListener {
     private final PrincipalProvider principalProvider;
     private final Injector injector;
     private final Provider<EventSink> eventSinkProvider;
+    private final JobConstraintIndex constraintIndex;
+    private final JobLanes jobLanes;
 
     private ManagerState state;
     private JobMessageSynchronizer synchronizer;
@@ -346,6 +362,10 @@ public class JobManager implements ModeChangeListener {
     private ThreadLocal<Map<String, String>> mdcState;
     private Set<Object> suspendKeys;
 
+    private final Lock queueLock;
+    private final AtomicBoolean releaseRequested;
+    private volatile ScheduledExecutorService releaseExecutor;
+
     /**
      * Creates a new JobManager instance
      */
@@ -361,7 +381,9 @@ public class JobManager implements ModeChangeListener {
         PrincipalProvider principalProvider,
         CandlepinRequestScope scope,
         Provider<EventSink> eventSink,
-        Injector injector) {
+        Injector injector,
+        JobConstraintIndex constraintIndex,
+        JobLanes jobLanes) {
 
         this.configuration = Objects.requireNonNull(configuration);
         this.schedulerFactory = Objects.requireNonNull(schedulerFactory);
@@ -374,12 +396,17 @@ public class JobManager implements ModeChangeListener {
         this.principalProvider = Objects.requireNonNull(principalProvider);
         this.eventSinkProvider = Objects.requireNonNull(eventSink);
         this.injector = Objects.requireNonNull(injector);
+        this.constraintIndex = Objects.requireNonNull(constraintIndex);
+        this.jobLanes = Objects.requireNonNull(jobLanes);
 
         this.state = ManagerState.CREATED;
         this.qrtzExecutor = new QuartzJobExecutor(this);
         this.mdcState = new ThreadLocal<>();
         this.suspendKeys = new HashSet<>();
 
+        this.queueLock = new ReentrantLock();
+        this.releaseRequested = new AtomicBoolean();
+
         this.synchronizer = new JobMessageSynchronizer(this.dispatcher);
     }
 
@@ -496,7 +523,7 @@ public class JobManager implements ModeChangeListener {
             log.warn("Recovering abandoned job: {}", job);
 
             job.setState(JobState.QUEUED);
-            this.jobCurator.merge(job);
+            this.constraintIndex.update(this.jobCurator.merge(job));
         }
     }
 
@@ -552,6 +579,7 @@ public class JobManager implements ModeChangeListener {
                     }
 
                     this.receiver.start();
+                    this.startWaitingJobRelease();
 
                     this.state = ManagerState.RUNNING;
                 }
@@ -689,6 +717,8 @@ public class JobManager implements ModeChangeListener {
         try {
             log.info("Shutting down job manager");
 
+            this.stopWaitingJobRelease();
+
             if (this.state == ManagerState.RUNNING || this.state == ManagerState.SUSPENDED) {
                 this.dispatcher.shutdown();
                 this.receiver.shutdown();
@@ -709,6 +739,70 @@ public class JobManager implements ModeChangeListener {
         }
     }
 
+    /**
+     * Starts the background task which periodically refreshes the job constraint index and
+     * releases any waiting jobs no longer blocked by other jobs. If the task is already running,
+     * this method does nothing.
+     */
+    private void startWaitingJobRelease() {
+        if (this.releaseExecutor != null) {
+            return;
+        }
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "job-waiting-release");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        long interval = this.constraintIndex.getRefreshInterval();
+        executor.scheduleWithFixedDelay(this::runWaitingJobRelease, interval, interval,
+            TimeUnit.MILLISECONDS);
+
+        this.releaseExecutor = executor;
+    }
+
+    private void stopWaitingJobRelease() {
+        ScheduledExecutorService executor = this.releaseExecutor;
+        this.releaseExecutor = null;
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Requests that the waiting jobs be reevaluated on the release thread, following a change
+     * which may have unblocked them. Requests made while one is already pending are coalesced.
+     */
+    private void requestWaitingJobRelease() {
+        ScheduledExecutorService executor = this.releaseExecutor;
+
+        if (executor != null && this.constraintIndex.hasWaitingJobs() &&
+            this.releaseRequested.compareAndSet(false, true)) {
+
+            try {
+                executor.execute(this::runWaitingJobRelease);
+            }
+            catch (RejectedExecutionException e) {
+                // Shutting down
+                this.releaseRequested.set(false);
+            }
+        }
+    }
+
+    private void runWaitingJobRelease() {
+        this.releaseRequested.set(false);
+
+        try {
+            this.releaseWaitingJobs();
+        }
+        catch (Exception e) {
+            log.error("Unexpected exception occurred while releasing waiting jobs", e);
+        }
+    }
+
     /**
      * Fetches the current state of this job manager.
      *
@@ -1025,9 +1119,16 @@ public class JobManager implements ModeChangeListener {
      * able to process a given job, there is no mechanism to guarantee consistently repeatable
      * behavior as to which node will actually execute the job.
      * <p></p>
-     * If the specified job is one which is unique by some criteria, and a matching job is already
-     * in the queue or currently executing, a new job will not be queued and the existing job's
-     * job status will be returned instead.
+     * If the specified job is constrained by other jobs, such as a job which is unique by some
+     * criteria for which a matching job is already in the queue or currently executing, the job
+     * will be placed in the WAITING state rather than queued. Waiting jobs are queued automatically
+     * once the jobs blocking them have finished. Jobs are similarly placed in the WAITING state if
+     * their owner has reached the limit of active jobs in the job's lane.
+     * <p></p>
+     * If the job config provides a coalescer, and a job with the same key which covers the work of
+     * the specified job is already pending, the job will instead be coalesced into the pending job.
+     * Coalesced jobs are not run themselves, and are completed along with the job into which they
+     * were coalesced.
      *
      * @param config
      *  A JobConfig instance representing the configuration of the job to queue
@@ -1063,24 +1164,28 @@ public class JobManager implements ModeChangeListener {
         // runnable by this node?
 
         AsyncJobStatus status = this.buildJobStatus(config);
+        Collection<JobConstraint> constraints = config.getConstraints();
+        JobState targetState = JobState.QUEUED;
 
-        try {
-            // Check if the queueing is blocked by constraints
-            Collection<JobConstraint> constraints = config.getConstraints();
-            Set<String> blockingJobIds = new HashSet<>();
+        // Hold the queue lock from the constraint check until the job is indexed, so concurrent
+        // requests on this node see each other's jobs
+        this.queueLock.lock();
 
-            if (constraints != null && !constraints.isEmpty()) {
-                for (JobConstraint constraint : constraints) {
-                    Collection<String> blocking = constraint.test(this.jobCurator, status);
+        try {
+            this.refreshConstraintIndexIfStale();
 
-                    if (blocking != null) {
-                        blockingJobIds.addAll(blocking);
-                    }
-                }
+            // Merge the job into a pending job which covers its work, if it supports coalescing
+            AsyncJobStatus coalesced = this.coalesceJob(status, config.getCoalescer());
+            if (coalesced != null) {
+                return coalesced;
             }
 
+            // Check if the queueing is blocked by constraints
+            Set<String> blockingJobIds = this.testConstraints(status, constraints);
+
             // Persist the job status so that the ID will be generated.
             status = this.jobCurator.create(status);
+            this.constraintIndex.update(status);
 
             if (blockingJobIds.isEmpty()) {
                 // Build and send the job message and update the job state accordingly
@@ -1088,17 +1193,18 @@ public class JobManager implements ModeChangeListener {
                 log.info("Job queued: {}", status);
             }
             else {
-                // TODO: Add support for the WAITING option. For now, always default to ABORTED
+                // Park the job until the blocking jobs have finished
+                targetState = JobState.WAITING;
+                this.constraintIndex.setConstraints(status, constraints);
 
-                String jobIds = blockingJobIds.stream()
-                    .collect(Collectors.joining(", "));
+                String jobIds = String.join(", ", blockingJobIds);
 
                 StringBuilder errmsg = new StringBuilder("Job blocked by the following existing jobs: ")
                     .append(jobIds);
 
-                this.updateJobStatus(status, JobState.ABORTED, errmsg.toString());
+                status = this.updateJobStatus(status, JobState.WAITING, errmsg.toString());
 
-                log.info("Unable to queue job: {}; blocked by the following existing jobs: {}",
+                log.info("Job waiting: {}; blocked by the following existing jobs: {}",
                     status.getName(), jobIds);
             }
         }
@@ -1119,7 +1225,7 @@ public class JobManager implements ModeChangeListener {
 
             // Manually update the state just to be certain. This won't persist, but at least our
             // output will be consistent.
-            this.setJobState(status, JobState.QUEUED);
+            this.setJobState(status, targetState);
         }
         catch (JobMessageDispatchException e) { // Temporary exception branch
             log.error("Unable to dispatch job message for new job: {}; deleting job and returning",
@@ -1130,6 +1236,7 @@ public class JobManager implements ModeChangeListener {
             // for enabling retry or async messaging (comes with scheduling). As such, we'll
             // kill the job
 
+            this.constraintIndex.remove(status.getId());
             this.jobCurator.delete(status);
             throw e;
         }
@@ -1144,13 +1251,327 @@ public class JobManager implements ModeChangeListener {
             // If this occurs do to some other unexpected failure, we'll have some state cleanup
             // to deal with, probably.
 
+            this.constraintIndex.remove(status.getId());
             throw new JobException(e, true);
         }
+        finally {
+            this.queueLock.unlock();
+        }
 
         // Done!
         return status;
     }
 
+    /**
+     * Attempts to coalesce the given job into a pending job with the same key, using the given
+     * coalescer. A job may be coalesced into any job which has not yet started if the pending job
+     * already covers its work. If covering the work of both jobs requires changing the arguments
+     * of the pending job, the job is only coalesced into jobs in the WAITING state, as queued jobs
+     * may have been picked up for execution already.
+     * <p></p>
+     * If the job is coalesced, it is persisted in the WAITING state with a reference to the job
+     * into which it was coalesced.
+     *
+     * @param status
+     *  the inbound job to coalesce
+     *
+     * @param coalescer
+     *  the coalescer to use to merge the job; may be null
+     *
+     * @return
+     *  the persisted status of the coalesced job, or null if the job was not coalesced
+     */
+    private AsyncJobStatus coalesceJob(AsyncJobStatus status, JobCoalescer coalescer)
+        throws JobStateManagementException {
+
+        if (coalescer == null) {
+            return null;
+        }
+
+        for (String jobId : this.constraintIndex.getPendingJobIds(status.getJobKey())) {
+            // Lock the pending job so it can't be released or started while we merge into it
+            AsyncJobStatus existing = this.jobCurator.lockAndLoad(jobId);
+            if (existing == null) {
+                this.constraintIndex.remove(jobId);
+                continue;
+            }
+
+            JobState state = existing.getState();
+            boolean pending = state == JobState.QUEUED || state == JobState.WAITING;
+
+            if (!pending || existing.getCoalescedInto() != null) {
+                this.constraintIndex.update(existing);
+                continue;
+            }
+
+            JobArguments merged;
+
+            try {
+                merged = coalescer.coalesce(existing.getJobArguments(), status.getJobArguments());
+            }
+            catch (RuntimeException e) {
+                log.warn("Unable to coalesce job {} into existing job: {}", status.getName(), existing, e);
+                continue;
+            }
+
+            if (merged == null) {
+                continue;
+            }
+
+            if (!merged.equals(existing.getJobArguments())) {
+                if (state != JobState.WAITING) {
+                    continue;
+                }
+
+                existing.setJobArguments(merged);
+                existing = this.jobCurator.merge(existing);
+
+                // Reindex the job to pick up its new arguments
+                this.constraintIndex.remove(existing.getId());
+                this.constraintIndex.update(existing);
+            }
+
+            status.setCoalescedInto(existing.getId());
+            status = this.jobCurator.create(status);
+            status = this.updateJobStatus(status, JobState.WAITING,
+                "Job coalesced into existing job: " + existing.getId());
+
+            log.info("Job coalesced: {}; merged into existing job: {}", status.getName(), existing);
+            return status;
+        }
+
+        return null;
+    }
+
+    /**
+     * Tests the given job against the given constraints, using the constraint index to find the
+     * active jobs ahead of it. The job is also tested against the limit of active jobs per owner
+     * of its lane, if any.
+     * <p></p>
+     * The index only serves as a fast path for blocked jobs, as it may be missing jobs created by
+     * other nodes since it was last refreshed. Before a job is admitted, the active jobs with the
+     * keys looked up by its constraints, and those of its owner, are merged into the index from
+     * the database, and the job is tested again.
+     *
+     * @param status
+     *  the job to test
+     *
+     * @param constraints
+     *  the constraints to test; may be null
+     *
+     * @return
+     *  a set containing the IDs of the jobs blocking the given job, or an empty set if the job is
+     *  not blocked
+     */
+    private Set<String> testConstraints(AsyncJobStatus status, Collection<JobConstraint> constraints) {
+        Set<String> jobKeys = new HashSet<>();
+        Set<String> blockingJobIds = this.testIndexedConstraints(status, constraints, jobKeys);
+
+        String ownerId = this.isOwnerLimited(status) ? status.getContextOwnerId() : null;
+
+        if (blockingJobIds.isEmpty() && (!jobKeys.isEmpty() || ownerId != null)) {
+            this.mergeActiveJobs(jobKeys, ownerId);
+            blockingJobIds = this.testIndexedConstraints(status, constraints, jobKeys);
+        }
+
+        return blockingJobIds;
+    }
+
+    /**
+     * Tests the given job against the given constraints and the limit of active jobs per owner of
+     * its lane, using only the constraint index.
+     *
+     * @param status
+     *  the job to test
+     *
+     * @param constraints
+     *  the constraints to test; may be null
+     *
+     * @param jobKeys
+     *  a set to receive the job keys looked up by the constraints
+     *
+     * @return
+     *  a set containing the IDs of the jobs blocking the given job, or an empty set if the job is
+     *  not blocked
+     */
+    private Set<String> testIndexedConstraints(AsyncJobStatus status, Collection<JobConstraint> constraints,
+        Set<String> jobKeys) {
+
+        Set<String> blockingJobIds = new HashSet<>();
+
+        if (constraints != null && !constraints.isEmpty()) {
+            ActiveJobLookup index = this.constraintIndex.forJob(status);
+            ActiveJobLookup lookup = (jobKey, arguments) -> {
+                jobKeys.add(jobKey);
+                return index.fetchJobIdsByArguments(jobKey, arguments);
+            };
+
+            for (JobConstraint constraint : constraints) {
+                Collection<String> blocking = constraint.test(lookup, status);
+
+                if (blocking != null) {
+                    blockingJobIds.addAll(blocking);
+                }
+            }
+        }
+
+        blockingJobIds.addAll(this.testOwnerLimit(status));
+
+        return blockingJobIds;
+    }
+
+    /**
+     * Checks if the given job is subject to the limit of active jobs per owner of its lane.
+     */
+    private boolean isOwnerLimited(AsyncJobStatus status) {
+        return status.getContextOwnerId() != null &&
+            this.jobLanes.getLane(status.getJobKey()).getOwnerLimit() > 0;
+    }
+
+    /**
+     * Tests the given job against the limit of active jobs per owner of the lane running the job.
+     * Only the owner's jobs in the same lane, and ahead of the given job, count against the limit,
+     * so that an owner with a backlog of jobs in one lane does not hold up other owners, or its own
+     * jobs in other lanes.
+     *
+     * @param status
+     *  the job to test
+     *
+     * @return
+     *  a collection containing the IDs of the owner's jobs if the owner has reached the limit, or
+     *  an empty collection otherwise
+     */
+    private Collection<String> testOwnerLimit(AsyncJobStatus status) {
+        if (!this.isOwnerLimited(status)) {
+            return Collections.emptyList();
+        }
+
+        JobLanes.Lane lane = this.jobLanes.getLane(status.getJobKey());
+        List<String> ownerJobIds = this.constraintIndex.fetchJobIdsByOwner(status,
+            jobKey -> this.jobLanes.getLane(jobKey) == lane);
+
+        return ownerJobIds.size() >= lane.getOwnerLimit() ? ownerJobIds : Collections.emptyList();
+    }
+
+    /**
+     * Merges the active jobs with the given keys, or belonging to the given owner, from the
+     * database into the job constraint index. Jobs are never removed from the index by this
+     * method, so jobs created on this node but not yet committed are retained.
+     *
+     * @param jobKeys
+     *  the keys of the jobs to merge
+     *
+     * @param ownerId
+     *  the ID of the owner of the jobs to merge; may be null
+     */
+    @Transactional
+    protected void mergeActiveJobs(Collection<String> jobKeys, String ownerId) {
+        long mark = this.constraintIndex.beginRefresh();
+        this.constraintIndex.merge(this.jobCurator.getNonTerminalJobs(jobKeys, ownerId), mark);
+    }
+
+    /**
+     * Resynchronizes the job constraint index with the active jobs in the database.
+     */
+    @Transactional
+    protected void refreshConstraintIndex() {
+        long mark = this.constraintIndex.beginRefresh();
+        this.constraintIndex.refresh(this.jobCurator.getNonTerminalJobs(), mark);
+    }
+
+    /**
+     * Resynchronizes the job constraint index with the database if the index is due for a refresh.
+     */
+    private void refreshConstraintIndexIfStale() {
+        if (this.constraintIndex.isStale()) {
+            this.refreshConstraintIndex();
+        }
+    }
+
+    /**
+     * Reevaluates the constraints of all jobs in the WAITING state, in the order in which they
+     * were queued, and queues any which are no longer blocked. The constraint index is refreshed
+     * first if it is due.
+     * <p></p>
+     * Waiting jobs are normally released automatically when the jobs blocking them finish, and
+     * periodically to pick up jobs finished by other nodes. This method should not generally need
+     * to be called directly.
+     *
+     * @return
+     *  the number of jobs released
+     */
+    public int releaseWaitingJobs() {
+        this.refreshConstraintIndexIfStale();
+
+        int released = 0;
+
+        for (String jobId : this.constraintIndex.getWaitingJobIds()) {
+            try {
+                if (this.releaseWaitingJob(jobId)) {
+                    ++released;
+                }
+            }
+            catch (Exception e) {
+                log.error("Unable to release waiting job: {}", jobId, e);
+            }
+        }
+
+        return released;
+    }
+
+    /**
+     * Reevaluates the constraints of the given waiting job, queueing it if it is no longer
+     * blocked. If the constraints of the job are not known to this node, because the job was
+     * queued by another node or before a restart, the job is instead held until no other jobs with
+     * the same key are ahead of it.
+     *
+     * @param jobId
+     *  the ID of the waiting job to release
+     *
+     * @return
+     *  true if the job was queued; false otherwise
+     */
+    @Transactional
+    protected boolean releaseWaitingJob(String jobId) throws JobException {
+        this.queueLock.lock();
+
+        try {
+            AsyncJobStatus status = this.jobCurator.get(jobId);
+
+            if (status == null || status.getState() != JobState.WAITING ||
+                status.getCoalescedInto() != null) {
+
+                // Released, canceled, coalesced or removed by someone else
+                if (status != null) {
+                    this.constraintIndex.update(status);
+                }
+                else {
+                    this.constraintIndex.remove(jobId);
+                }
+
+                return false;
+            }
+
+            Collection<JobConstraint> constraints = this.constraintIndex.getConstraints(status);
+            if (constraints == null) {
+                constraints = List.of(SERIAL_BY_JOB_KEY_CONSTRAINT);
+            }
+
+            if (!this.testConstraints(status, constraints).isEmpty()) {
+                return false;
+            }
+
+            status.setJobResult(null);
+            status = this.postJobStatusMessage(status);
+            log.info("Waiting job released: {}", status);
+
+            return true;
+        }
+        finally {
+            this.queueLock.unlock();
+        }
+    }
+
     /**
      * Creates and dispatches a job message for the given job status, then updates the state of
      * the job to QUEUED.
@@ -1283,7 +1704,7 @@ public class JobManager implements ModeChangeListener {
 
             EventSink eventSink = this.eventSinkProvider.get();
             try {
-                job.execute(new JobExecutionContext(status));
+                job.execute(new JobExecutionContext(status, this::checkpointJob));
 
                 // If a transaction was left open, we should scream about it. Note that this will
                 // cause the job to fail if the session cannot be terminated cleanly.
@@ -1577,7 +1998,7 @@ public class JobManager implements ModeChangeListener {
 
         try {
             this.setJobState(status, state);
-            return this.jobCurator.merge(status);
+            status = this.jobCurator.merge(status);
         }
         catch (Exception e) {
             String errmsg = String.format("Unable to update job state for job \"%s\": %s -> %s",
@@ -1586,6 +2007,59 @@ public class JobManager implements ModeChangeListener {
             log.error(errmsg, e);
             throw new JobStateManagementException(status, initState, state, errmsg, e, state.isTerminal());
         }
+
+        this.constraintIndex.update(status);
+        if (state.isTerminal()) {
+            this.completeCoalescedJobs(status);
+            this.requestWaitingJobRelease();
+        }
+
+        return status;
+    }
+
+    /**
+     * Persists the checkpointed progress of the provided job while it is executing. Failures are
+     * logged and otherwise ignored; a retry of the job resumes from the previous checkpoint.
+     *
+     * @param status
+     *  the executing job for which to persist progress
+     */
+    @Transactional
+    protected void checkpointJob(AsyncJobStatus status) {
+        try {
+            this.jobCurator.merge(status);
+        }
+        catch (Exception e) {
+            log.warn("Unable to checkpoint progress of job \"{}\"", status.getName(), e);
+        }
+    }
+
+    /**
+     * Completes the jobs which were coalesced into the given job, moving them to the same terminal
+     * state as the given job. Failures are logged and otherwise ignored, as they must not affect
+     * the outcome of the given job; any coalesced jobs left behind are eventually aborted by the
+     * job cleaner.
+     *
+     * @param status
+     *  the job, in a terminal state, for which to complete coalesced jobs
+     */
+    private void completeCoalescedJobs(AsyncJobStatus status) {
+        if (status.getId() == null) {
+            return;
+        }
+
+        try {
+            for (AsyncJobStatus coalesced : this.jobCurator.getCoalescedJobs(status.getId())) {
+                String result = String.format("Job completed with coalesced job %s: %s",
+                    status.getId(), status.getState());
+
+                this.updateJobStatus(coalesced, status.getState(), result);
+                log.info("Coalesced job completed: {}", coalesced);
+            }
+        }
+        catch (Exception e) {
+            log.error("Unable to complete jobs coalesced into job: {}", status, e);
+        }
     }
 
     /**
@@ -1703,6 +2177,13 @@ public class JobManager implements ModeChangeListener {
             }
 
             status = this.jobCurator.merge(status);
+
+            this.constraintIndex.update(status);
+            if (status.getState().isTerminal()) {
+                this.completeCoalescedJobs(status);
+            }
+
+            this.requestWaitingJobRelease();
         }
 
         return status;
@@ -1780,7 +2261,15 @@ public class JobManager implements ModeChangeListener {
 
         // Add any other sanity restrictions deemed necessary here
 
-        return this.jobCurator.updateJobState(queryArgs, JobState.ABORTED);
+        int aborted = this.jobCurator.updateJobState(queryArgs, JobState.ABORTED);
+
+        // The update bypasses the constraint index; resync it before it is next used
+        if (aborted > 0) {
+            this.constraintIndex.invalidate();
+            this.requestWaitingJobRelease();
+        }
+
+        return aborted;
     }
 
     /**
@@ -24,6 +24,7 @@ import org.candlepin.messaging.CPMProducerConfig;
 import org.candlepin.messaging.CPMSession;
 import org.candlepin.messaging.CPMSessionConfig;
 import org.candlepin.messaging.CPMSessionFactory;
+import org.candlepin.messaging.SessionPool;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -44,6 +45,9 @@ import javax.inject.Inject;
 /**
  * The JobMessageDispatcher is responsible for managing sessions to the backing messaging system,
  * and serializing messages as they're sent.
+ * <p>
+ * Sessions are leased from a bounded pool when a thread posts its first message, and returned
+ * to the pool once the thread's messages are committed or rolled back.
  */
 public class JobMessageDispatcher {
     private static Logger log = LoggerFactory.getLogger(JobMessageDispatcher.class);
@@ -51,103 +55,78 @@ public class JobMessageDispatcher {
     private static final String JOB_KEY_MESSAGE_PROPERTY = "job_key";
 
     /**
-     * The ThreadSessionStore is used to store session information per thread.
+     * A pooled job message session, along with the producer created on it
      */
-    private static final class ThreadSessionStore {
-        private final CPMSessionFactory sessionFactory;
+    private static final class JobSession {
+        private final CPMSession session;
+        private final CPMProducer producer;
 
-        private CPMSession session;
-        private CPMProducer producer;
+        public JobSession(CPMSession session, CPMProducer producer) {
+            this.session = session;
+            this.producer = producer;
+        }
 
         /**
-         * Creates a new ThreadSessionStore which will use the given session factory to create new
-         * sessions as necessary.
-         *
-         * @param sessionFactory
-         *  the CPMSessionFactory instance to use to create new sessions
-         *
-         * @throws IllegalArgumentException
-         *  if sessionFactory is null
+         * {@inheritDoc}
          */
-        public ThreadSessionStore(CPMSessionFactory sessionFactory) {
-            if (sessionFactory == null) {
-                throw new IllegalArgumentException("sessionFactory is null");
-            }
-
-            this.sessionFactory = sessionFactory;
+        @Override
+        public String toString() {
+            return String.format("JobSession [session: %s, producer: %s]", this.session, this.producer);
         }
+    }
 
-        /**
-         * Fetches the current CPM session, creating a new one if necessary.
-         *
-         * @return
-         *  a CPMSession instance
-         */
-        public CPMSession getSession() throws CPMException {
-            if (this.session == null || this.session.isClosed()) {
-                log.debug("Creating new CPM session for job message dispatch for thread {}",
-                    Thread.currentThread());
+    /**
+     * Opens, checks and closes the sessions held by the job session pool
+     */
+    private static final class JobSessionHandler implements SessionPool.SessionHandler<JobSession> {
+        private final CPMSessionFactory sessionFactory;
 
-                CPMSessionConfig config = this.sessionFactory.createSessionConfig()
-                    .setTransactional(true);
+        public JobSessionHandler(CPMSessionFactory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+        }
 
-                // Add any other job-system-specific session configuration here
+        @Override
+        public JobSession open() throws CPMException {
+            log.debug("Creating new CPM session for job message dispatch");
 
-                this.session = this.sessionFactory.createSession(config);
-                this.session.start();
+            CPMSessionConfig config = this.sessionFactory.createSessionConfig()
+                .setTransactional(true);
 
-                log.debug("Created new CPM session: {}", this.session);
-            }
+            // Add any other job-system-specific session configuration here
 
-            return this.session;
-        }
+            CPMSession session = this.sessionFactory.createSession(config);
 
-        /**
-         * Fetches the current CPM producer, creating a new one if necessary.
-         *
-         * @return
-         *  a CPMProducer instance
-         */
-        public CPMProducer getProducer() throws CPMException {
-            if (this.producer == null || this.producer.isClosed()) {
-                log.debug("Creating new CPM producer for job message dispatch for thread {}",
-                    Thread.currentThread());
+            try {
+                session.start();
 
-                CPMSession session = this.getSession();
-                CPMProducerConfig config = session.createProducerConfig();
+                CPMProducerConfig producerConfig = session.createProducerConfig();
 
                 // Add any other job-system-specific producer configuration here
 
-                this.producer = session.createProducer(config);
+                JobSession jobSession = new JobSession(session, session.createProducer(producerConfig));
+                log.debug("Created new CPM session: {}", jobSession);
 
-                log.debug("Created new CPM producer: {}", this.producer);
+                return jobSession;
             }
-
-            return this.producer;
-        }
-
-        /**
-         * Closes any session resources this session store may have open
-         */
-        private void close() throws CPMException {
-            if (this.producer != null) {
-                this.producer.close();
-                this.producer = null;
+            catch (CPMException | RuntimeException e) {
+                session.close();
+                throw e;
             }
+        }
 
-            if (this.session != null) {
-                this.session.close();
-                this.session = null;
-            }
+        @Override
+        public boolean isUsable(JobSession jobSession) {
+            return !jobSession.session.isClosed() && !jobSession.producer.isClosed();
         }
 
-        /**
-         * {@inheritDoc}
-         */
         @Override
-        public String toString() {
-            return String.format("ThreadSessionStore [session: %s, producer: %s]",
-                this.session, this.producer);
+        public void close(JobSession jobSession) throws CPMException {
+            try {
+                jobSession.producer.close();
+            }
+            finally {
+                jobSession.session.close();
+            }
         }
     }
 
@@ -198,7 +177,9 @@ public class JobMessageDispatcher {
     private final ObjectMapper objMapper;
 
     private final ReferenceQueue<Thread> referenceQueue;
-    private final Map<ThreadReference, ThreadSessionStore> sessions;
+    private final Map<ThreadReference, JobSession> sessions;
+
+    private SessionPool<JobSession> sessionPool;
 
     private String dispatchAddress;
 
@@ -247,59 +228,105 @@ public class JobMessageDispatcher {
         if (this.dispatchAddress == null || this.dispatchAddress.isEmpty()) {
             throw new ConfigurationException("Invalid job dispatch address: address cannot be null or empty");
         }
+
+        int poolSize = config.getInt(ConfigProperties.MESSAGING_SESSION_POOL_SIZE);
+        if (poolSize < 1) {
+            throw new ConfigurationException(ConfigProperties.MESSAGING_SESSION_POOL_SIZE +
+                " must be larger than 0");
+        }
+
+        long maxWait = config.getLong(ConfigProperties.MESSAGING_SESSION_POOL_MAX_WAIT);
+        if (maxWait < 0) {
+            throw new ConfigurationException(ConfigProperties.MESSAGING_SESSION_POOL_MAX_WAIT +
+                " must be larger than or equal to 0");
+        }
+
+        this.sessionPool = new SessionPool<>("job dispatch", new JobSessionHandler(this.cpmSessionFactory),
+            poolSize, maxWait);
     }
 
     /**
      * Shuts down this job message dispatcher, closing any sessions it may have opened
      */
     public synchronized void shutdown() throws JobException {
-        try {
-            for (ThreadSessionStore store : this.sessions.values()) {
-                store.close();
-            }
-
-            this.sessions.clear();
-        }
-        catch (CPMException e) {
-            throw new JobException(e);
+        for (JobSession jobSession : this.sessions.values()) {
+            this.sessionPool.invalidate(jobSession);
         }
+
+        this.sessions.clear();
+        this.sessionPool.close();
     }
 
     /**
-     * Closes and removes any sessions which are associated with a thread that has been destroyed.
+     * Fetches the pool of sessions used to dispatch job messages, primarily for exposing its
+     * wait time and usage counts.
+     *
+     * @return
+     *  the job message session pool
      */
-    private void expungeAbandonedSessions() throws CPMException {
+    public SessionPool<?> getSessionPool() {
+        return this.sessionPool;
+    }
+
+    /**
+     * Closes any sessions leased to a thread that has been destroyed without committing or
+     * rolling back its messages, returning their leases to the pool.
+     */
+    private void expungeAbandonedSessions() {
         while (true) {
             Reference<? extends Thread> ref = this.referenceQueue.poll();
             if (ref == null) {
                 break;
             }
 
-            ThreadSessionStore store = this.sessions.remove(ref);
-            if (store != null) {
-                log.warn("Closing abandoned messaging session: {}", store);
-                store.close();
+            JobSession jobSession = this.sessions.remove(ref);
+            if (jobSession != null) {
+                log.warn("Closing abandoned messaging session: {}", jobSession);
+                this.sessionPool.invalidate(jobSession);
             }
         }
     }
 
     /**
-     * Fetches the session store for the current thread, creating one if necessary.
+     * Fetches the session leased to the current thread, leasing one from the pool if necessary.
+     * The session remains leased to the thread until its messages are committed or rolled back.
      *
      * @return
-     *  the ThreadSessionStore for the current thread
+     *  the JobSession leased to the current thread
      */
-    private synchronized ThreadSessionStore getSessionStore() throws CPMException {
-        this.expungeAbandonedSessions();
+    private JobSession leaseSession() throws CPMException {
+        ThreadReference ref;
+
+        synchronized (this) {
+            this.expungeAbandonedSessions();
 
-        ThreadReference ref = new ThreadReference(Thread.currentThread(), this.referenceQueue);
-        ThreadSessionStore store = this.sessions.get(ref);
-        if (store == null) {
-            store = new ThreadSessionStore(this.cpmSessionFactory);
-            this.sessions.put(ref, store);
+            ref = new ThreadReference(Thread.currentThread(), this.referenceQueue);
+            JobSession jobSession = this.sessions.get(ref);
+            if (jobSession != null) {
+                return jobSession;
+            }
         }
 
-        return store;
+        // Borrow outside of the lock, as it may block waiting for another thread to return one
+        JobSession jobSession = this.sessionPool.borrow();
+
+        synchronized (this) {
+            this.sessions.put(ref, jobSession);
+        }
+
+        return jobSession;
+    }
+
+    /**
+     * Removes the session leased to the current thread, if any.
+     *
+     * @return
+     *  the JobSession leased to the current thread, or null if the thread has no session
+     */
+    private synchronized JobSession removeSession() {
+        this.expungeAbandonedSessions();
+
+        return this.sessions.remove(new ThreadReference(Thread.currentThread(), null));
     }
 
     /**
@@ -314,10 +341,9 @@ public class JobMessageDispatcher {
      */
     public void postJobMessage(JobMessage jobMessage) throws JobMessageDispatchException {
         try {
-            ThreadSessionStore store = this.getSessionStore();
+            JobSession jobSession = this.leaseSession();
 
-            CPMSession cpmSession = store.getSession();
-            CPMMessage message = cpmSession.createMessage()
+            CPMMessage message = jobSession.session.createMessage()
                 .setDurable(true)
                 .setProperty(JOB_KEY_MESSAGE_PROPERTY, jobMessage.getJobKey());
 
@@ -325,7 +351,7 @@ public class JobMessageDispatcher {
             message.setBody(serializedJobMessage);
 
             log.debug("Sending job message to queue \"{}\": {}", this.dispatchAddress, serializedJobMessage);
-            store.getProducer().send(this.dispatchAddress, message);
+            jobSession.producer.send(this.dispatchAddress, message);
         }
         catch (Exception e) {
             throw new JobMessageDispatchException(e);
@@ -340,13 +366,17 @@ public class JobMessageDispatcher {
      *  if the messaging session cannot be committed for any reason
      */
     public void commit() throws JobMessageDispatchException {
-        try {
-            ThreadSessionStore store = this.getSessionStore();
+        JobSession jobSession = this.removeSession();
+        if (jobSession == null) {
+            return;
+        }
 
-            CPMSession session = store.getSession();
-            session.commit();
+        try {
+            jobSession.session.commit();
+            this.sessionPool.release(jobSession);
         }
         catch (Exception e) {
+            this.sessionPool.invalidate(jobSession);
             throw new JobMessageDispatchException(e);
         }
     }
@@ -360,13 +390,17 @@ public class JobMessageDispatcher {
      *  if the messaging session cannot be rolled back for any reason
      */
     public void rollback() throws JobMessageDispatchException {
-        try {
-            ThreadSessionStore store = this.getSessionStore();
+        JobSession jobSession = this.removeSession();
+        if (jobSession == null) {
+            return;
+        }
 
-            CPMSession session = store.getSession();
-            session.rollback();
+        try {
+            jobSession.session.rollback();
+            this.sessionPool.release(jobSession);
         }
         catch (Exception e) {
+            this.sessionPool.invalidate(jobSession);
             throw new JobMessageDispatchException(e);
         }
     }
@@ -34,10 +34,13 @@ import com.google.inject.persist.UnitOfWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -46,6 +49,9 @@ import javax.inject.Inject;
 /**
  * The JobMessageReceiver class manages the various receivers for handling messages received from
  * the backing message queues, and passes the messages back to the job manager
+ * <p></p>
+ * Each job lane is given its own receivers, which only receive messages for the jobs assigned to
+ * the lane. The receivers of the default lane receive messages for all other jobs.
  */
 public class JobMessageReceiver {
     private static Logger log = LoggerFactory.getLogger(JobMessageReceiver.class);
@@ -55,6 +61,7 @@ public class JobMessageReceiver {
     private final Configuration config;
     private final CPMSessionFactory cpmSessionFactory;
     private final ObjectMapper mapper;
+    private final JobLanes jobLanes;
 
     private boolean initialized;
     private boolean suspended;
@@ -62,7 +69,7 @@ public class JobMessageReceiver {
     private MessageListener listener;
     private String receiveAddress;
     private String receiveFilter;
-    private Set<CPMSession> sessions;
+    private Map<CPMSession, String> sessions;
     private UnitOfWork unitOfWork;
 
 
@@ -77,19 +84,23 @@ public class JobMessageReceiver {
      *
      * @param mapper
      *  the object mapper to use to deserialize job messages
+     *
+     * @param jobLanes
+     *  the job lanes for which to receive job messages
      */
     @Inject
     public JobMessageReceiver(Configuration config, CPMSessionFactory cpmSessionFactory,
-        ObjectMapper mapper, UnitOfWork unitOfWork) throws ConfigurationException {
+        ObjectMapper mapper, UnitOfWork unitOfWork, JobLanes jobLanes) throws ConfigurationException {
 
         this.config = Objects.requireNonNull(config);
         this.cpmSessionFactory = Objects.requireNonNull(cpmSessionFactory);
         this.mapper = Objects.requireNonNull(mapper);
         this.unitOfWork = Objects.requireNonNull(unitOfWork);
+        this.jobLanes = Objects.requireNonNull(jobLanes);
 
         this.initialized = false;
         this.suspended = false;
-        this.sessions = new HashSet<>();
+        this.sessions = new HashMap<>();
 
         this.configure(this.config);
     }
@@ -112,13 +123,52 @@ public class JobMessageReceiver {
         this.receiveFilter = config.getString(ConfigProperties.ASYNC_JOBS_RECEIVE_FILTER);
     }
 
+    /**
+     * Builds the message filter for the receivers of the given lane, combining the configured
+     * receive filter with a filter on the keys of the jobs in the lane.
+     *
+     * @param lane
+     *  the lane for which to build a message filter
+     *
+     * @return
+     *  the message filter for the given lane, or the configured receive filter if no lanes have
+     *  been configured
+     */
+    private String buildMessageFilter(JobLanes.Lane lane) {
+        String laneFilter = null;
+
+        if (!lane.isDefault()) {
+            laneFilter = this.buildJobKeyFilter(lane.getJobKeys());
+        }
+        else if (!this.jobLanes.getAssignedJobKeys().isEmpty()) {
+            laneFilter = "NOT (" + this.buildJobKeyFilter(this.jobLanes.getAssignedJobKeys()) + ")";
+        }
+
+        if (laneFilter == null) {
+            return this.receiveFilter;
+        }
+
+        return this.receiveFilter != null && !this.receiveFilter.isEmpty() ?
+            String.format("(%s) AND (%s)", this.receiveFilter, laneFilter) :
+            laneFilter;
+    }
+
+    private String buildJobKeyFilter(Collection<String> jobKeys) {
+        return new TreeSet<>(jobKeys).stream()
+            .map(key -> "'" + key.replace("'", "''") + "'")
+            .collect(Collectors.joining(", ", JOB_KEY_MESSAGE_PROPERTY + " IN (", ")"));
+    }
+
     /**
      * Creates and configures a new session and consumer
      *
+     * @param filter
+     *  the message filter to apply to the consumer
+     *
      * @return
      *  The newly created CPM session
      */
-    private CPMSession createSession() throws CPMException {
+    private CPMSession createSession(String filter) throws CPMException {
         CPMSessionConfig sconfig = this.cpmSessionFactory.createSessionConfig()
             .setTransactional(true);
 
@@ -128,7 +178,7 @@ public class JobMessageReceiver {
 
         CPMConsumerConfig cconfig = session.createConsumerConfig()
             .setQueue(this.receiveAddress)
-            .setMessageFilter(this.receiveFilter);
+            .setMessageFilter(filter);
 
         session.createConsumer(cconfig)
             .setMessageListener(this.listener);
@@ -144,28 +194,29 @@ public class JobMessageReceiver {
      * will recreate it.
      */
     private void startSessions() throws CPMException {
-        Set<CPMSession> created = null;
+        Map<CPMSession, String> created = null;
 
-        Iterator<CPMSession> iterator = this.sessions.iterator();
+        Iterator<Map.Entry<CPMSession, String>> iterator = this.sessions.entrySet().iterator();
         while (iterator.hasNext()) {
-            CPMSession session = iterator.next();
+            Map.Entry<CPMSession, String> entry = iterator.next();
+            CPMSession session = entry.getKey();
 
             if (session == null || session.isClosed()) {
                 if (created == null) {
-                    created = new HashSet<>();
+                    created = new HashMap<>();
                 }
 
                 iterator.remove();
-                session = this.createSession();
+                session = this.createSession(entry.getValue());
 
-                created.add(session);
+                created.put(session, entry.getValue());
             }
 
             session.start();
         }
 
         if (created != null) {
-            this.sessions.addAll(created);
+            this.sessions.putAll(created);
         }
     }
 
@@ -173,7 +224,7 @@ public class JobMessageReceiver {
      * Close all known sessions.
      */
     private void closeSessions() throws CPMException {
-        for (CPMSession session : this.sessions) {
+        for (CPMSession session : this.sessions.keySet()) {
             session.close();
         }
     }
@@ -202,16 +253,20 @@ public class JobMessageReceiver {
 
         try {
             this.listener = new MessageListener(manager, this.mapper, this.unitOfWork);
-            int listenerThreads = this.config.getInt(ConfigProperties.ASYNC_JOBS_THREADS);
 
-            log.info("Creating {} threads receiving job messages from address: \"{}\", with filter: \"{}\"",
-                listenerThreads, this.receiveAddress, this.receiveFilter);
+            for (JobLanes.Lane lane : this.jobLanes.getLanes()) {
+                String filter = this.buildMessageFilter(lane);
 
-            for (int i = 0; i < listenerThreads; ++i) {
-                // Each session+consumer gives us an implicit thread for async job processing, so
-                // we don't need to do any additional thread creation/management ourselves.
-                CPMSession session = this.createSession();
-                this.sessions.add(session);
+                log.info("Creating {} threads for job lane \"{}\" receiving job messages from address: " +
+                    "\"{}\", with filter: \"{}\"", lane.getThreads(), lane.getName(), this.receiveAddress,
+                    filter);
+
+                for (int i = 0; i < lane.getThreads(); ++i) {
+                    // Each session+consumer gives us an implicit thread for async job processing, so
+                    // we don't need to do any additional thread creation/management ourselves.
+                    CPMSession session = this.createSession(filter);
+                    this.sessions.put(session, filter);
+                }
             }
 
             this.initialized = true;
@@ -230,7 +285,7 @@ public class JobMessageReceiver {
      */
     public synchronized void shutdown() throws JobException {
         try {
-            for (CPMSession session : this.sessions) {
+            for (CPMSession session : this.sessions.keySet()) {
                 session.close();
             }
         }
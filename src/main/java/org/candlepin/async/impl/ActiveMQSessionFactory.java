@@ -16,9 +16,11 @@ package org.candlepin.async.impl;
 
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
+import org.candlepin.messaging.SessionPool;
 
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.client.ActiveMQClient;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
 import org.apache.activemq.artemis.api.core.client.ClientSession;
 import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
 import org.apache.activemq.artemis.api.core.client.ServerLocator;
@@ -39,16 +41,13 @@ import javax.inject.Singleton;
 public class ActiveMQSessionFactory {
     private static Logger log = LoggerFactory.getLogger(ActiveMQSessionFactory.class);
 
-    /**
-     * Manages a session factory and session generation, recreating and reopening the factory as
-     * necessary.
-     */
     /**
      * Manages a session factory and session generation, recreating and reopening the factory as
      * necessary.
      */
     private static class SessionManager implements CloseListener {
         private final ServerLocator locator;
+        private final Runnable closeCallback;
 
         private ClientSessionFactory sessionFactory;
 
@@ -58,13 +57,17 @@ public class ActiveMQSessionFactory {
          *
          * @param locator
          *  The locator to use for creating session factories
+         *
+         * @param closeCallback
+         *  An optional callback to invoke when the connection to the broker is closed
          */
-        public SessionManager(ServerLocator locator) {
+        public SessionManager(ServerLocator locator, Runnable closeCallback) {
             if (locator == null) {
                 throw new IllegalArgumentException("locator is null");
             }
 
             this.locator = locator;
+            this.closeCallback = closeCallback;
         }
 
         /**
@@ -112,6 +115,67 @@ public class ActiveMQSessionFactory {
             if (this.sessionFactory != null) {
                 this.sessionFactory.close();
             }
+
+            if (this.closeCallback != null) {
+                this.closeCallback.run();
+            }
+        }
+    }
+
+    /**
+     * A transacted egress session and an anonymous producer created on it, held by the egress
+     * producer pool. Messages sent with the producer are not dispatched until the session is
+     * committed.
+     */
+    public static final class EgressProducer {
+        private final ClientSession session;
+        private final ClientProducer producer;
+
+        private EgressProducer(ClientSession session, ClientProducer producer) {
+            this.session = session;
+            this.producer = producer;
+        }
+
+        public ClientSession getSession() {
+            return this.session;
+        }
+
+        public ClientProducer getProducer() {
+            return this.producer;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("EgressProducer [session: %s, producer: %s]", this.session, this.producer);
+        }
+    }
+
+    /**
+     * Opens, checks and closes egress producers for the egress producer pool
+     */
+    private class EgressProducerHandler implements SessionPool.SessionHandler<EgressProducer> {
+        @Override
+        public EgressProducer open() throws Exception {
+            ClientSession session = getEgressSession(true);
+
+            try {
+                return new EgressProducer(session, session.createProducer());
+            }
+            catch (Exception e) {
+                session.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean isUsable(EgressProducer egress) {
+            return !egress.getSession().isClosed() && !egress.getProducer().isClosed();
+        }
+
+        @Override
+        public void close(EgressProducer egress) throws Exception {
+            // Closing the session rolls back anything left uncommitted and closes its producers
+            egress.getSession().close();
         }
     }
 
@@ -120,6 +184,7 @@ public class ActiveMQSessionFactory {
 
     private SessionManager ingressSessionManager;
     private SessionManager egressSessionManager;
+    private volatile SessionPool<EgressProducer> egressProducerPool;
 
 
     /**
@@ -154,7 +219,7 @@ public class ActiveMQSessionFactory {
             // not present in the configuration rather than crashing out?
             locator.setMinLargeMessageSize(this.config.getInt(ConfigProperties.ACTIVEMQ_LARGE_MSG_SIZE));
 
-            this.ingressSessionManager = new SessionManager(locator);
+            this.ingressSessionManager = new SessionManager(locator, null);
         }
 
         return this.ingressSessionManager;
@@ -180,7 +245,8 @@ public class ActiveMQSessionFactory {
             // candlepin remains up.
             locator.setReconnectAttempts(-1);
 
-            this.egressSessionManager = new SessionManager(locator);
+            // Pooled producers belong to the lost connection; drop them so they're reopened
+            this.egressSessionManager = new SessionManager(locator, this::resetEgressProducerPool);
         }
 
         return this.egressSessionManager;
@@ -212,4 +278,42 @@ public class ActiveMQSessionFactory {
         return manager.getClientSession(transacted);
     }
 
+    /**
+     * Fetches the pool of transacted egress producers, creating it as necessary. Pooled producers
+     * are opened with {@link #getEgressSession(boolean)}, and are closed and reopened as needed
+     * when the connection to the broker is lost.
+     *
+     * @return
+     *  the egress producer pool
+     */
+    public synchronized SessionPool<EgressProducer> getEgressProducerPool() {
+        if (this.egressProducerPool == null) {
+            int maxSize = this.config.getInt(ConfigProperties.MESSAGING_SESSION_POOL_SIZE);
+            long maxWait = this.config.getLong(ConfigProperties.MESSAGING_SESSION_POOL_MAX_WAIT);
+
+            this.egressProducerPool = new SessionPool<>("event egress", new EgressProducerHandler(),
+                maxSize, maxWait);
+        }
+
+        return this.egressProducerPool;
+    }
+
+    private void resetEgressProducerPool() {
+        SessionPool<EgressProducer> pool = this.egressProducerPool;
+        if (pool != null) {
+            pool.reset();
+        }
+    }
+
+    /**
+     * Closes the egress producer pool, if it has been created, along with any idle producers
+     * it holds.
+     */
+    public synchronized void close() {
+        if (this.egressProducerPool != null) {
+            this.egressProducerPool.close();
+            this.egressProducerPool = null;
+        }
+    }
+
 }
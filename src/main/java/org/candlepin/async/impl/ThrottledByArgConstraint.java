@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.impl;
+
+import org.candlepin.async.ActiveJobLookup;
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobConstraint;
+import org.candlepin.model.AsyncJobStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+
+/**
+ * The ThrottledByArgConstraint constrains queuing of a job if the given number of other jobs with
+ * the same key and value of a given parameter, or set of parameters, already exist in a
+ * non-terminal state. That is, at most the given number of such jobs may be active at once.
+ */
+public class ThrottledByArgConstraint implements JobConstraint {
+
+    private final int limit;
+    private final List<String> params;
+
+    /**
+     * Creates a new ThrottledByArgConstraint using the specified limit and parameters as the
+     * target.
+     *
+     * @param limit
+     *  The maximum number of active jobs with matching parameters
+     *
+     * @param params
+     *  The parameter, or parameters, to target with this constraint
+     *
+     * @throws IllegalArgumentException
+     *  if limit is not a positive integer, or params is null or empty, or contains a parameter
+     *  which is null or empty
+     */
+    public ThrottledByArgConstraint(int limit, String... params) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be a positive integer!");
+        }
+
+        if (params == null || params.length == 0) {
+            throw new IllegalArgumentException("params is null or empty");
+        }
+
+        List<String> plist = new ArrayList<>(params.length);
+        for (String param : params) {
+            if (param == null || param.isEmpty()) {
+                throw new IllegalArgumentException("params contains a null or empty parameter");
+            }
+
+            plist.add(param);
+        }
+
+        this.limit = limit;
+        this.params = Collections.unmodifiableList(plist);
+    }
+
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public Collection<String> test(ActiveJobLookup jobLookup, AsyncJobStatus inbound) {
+        if (jobLookup == null) {
+            throw new IllegalArgumentException("jobLookup is null");
+        }
+
+        if (inbound == null) {
+            throw new IllegalArgumentException("inbound is null");
+        }
+
+        JobArguments jobArgs = inbound.getJobArguments();
+
+        Map<String, String> argMap = new HashMap<>();
+        for (String param : this.params) {
+            argMap.put(param, jobArgs.getSerializedValue(param));
+        }
+
+        List<String> matching = jobLookup.fetchJobIdsByArguments(inbound.getJobKey(), argMap);
+        return (matching != null && matching.size() >= this.limit) ? matching : Collections.emptyList();
+    }
+
+}
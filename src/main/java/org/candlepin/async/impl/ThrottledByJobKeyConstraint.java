@@ -14,9 +14,9 @@
  */
 package org.candlepin.async.impl;
 
+import org.candlepin.async.ActiveJobLookup;
 import org.candlepin.async.JobConstraint;
 import org.candlepin.model.AsyncJobStatus;
-import org.candlepin.model.AsyncJobStatusCurator;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -48,16 +48,16 @@ public class ThrottledByJobKeyConstraint implements JobConstraint {
      * @{inheritDoc}
      */
     @Override
-    public Collection<String> test(AsyncJobStatusCurator jobCurator, AsyncJobStatus inbound) {
-        if (jobCurator == null) {
-            throw new IllegalArgumentException("jobCurator is null");
+    public Collection<String> test(ActiveJobLookup jobLookup, AsyncJobStatus inbound) {
+        if (jobLookup == null) {
+            throw new IllegalArgumentException("jobLookup is null");
         }
 
         if (inbound == null) {
             throw new IllegalArgumentException("inbound is null");
         }
 
-        List<String> matching = jobCurator.fetchJobIdsByArguments(inbound.getJobKey(), null);
+        List<String> matching = jobLookup.fetchJobIdsByArguments(inbound.getJobKey(), null);
         return (matching != null && matching.size() > this.limit) ? matching : Collections.emptyList();
     }
 
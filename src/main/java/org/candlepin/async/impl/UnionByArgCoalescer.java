@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.impl;
+
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+
+/**
+ * The UnionByArgCoalescer merges jobs which have the same arguments, other than a given array
+ * parameter, by taking the union of the values of that parameter. A single-value parameter may
+ * also be specified, for jobs which accept either a single value or an array of values; when the
+ * jobs are merged, the single value is carried into the array parameter.
+ */
+public class UnionByArgCoalescer implements JobCoalescer {
+
+    private final String param;
+    private final String singleParam;
+
+    /**
+     * Creates a new UnionByArgCoalescer for the given parameters.
+     *
+     * @param param
+     *  the array parameter to union
+     *
+     * @param singleParam
+     *  a parameter providing a single value in place of the array parameter; may be null
+     *
+     * @throws IllegalArgumentException
+     *  if param is null or empty
+     */
+    public UnionByArgCoalescer(String param, String singleParam) {
+        if (param == null || param.isEmpty()) {
+            throw new IllegalArgumentException("param is null or empty");
+        }
+
+        this.param = param;
+        this.singleParam = singleParam != null && !singleParam.isEmpty() ? singleParam : null;
+    }
+
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public JobArguments coalesce(JobArguments existing, JobArguments inbound) {
+        if (existing == null) {
+            throw new IllegalArgumentException("existing is null");
+        }
+
+        if (inbound == null) {
+            throw new IllegalArgumentException("inbound is null");
+        }
+
+        Set<String> existingValues = this.getValues(existing);
+        Set<String> inboundValues = this.getValues(inbound);
+
+        if (existingValues == null || inboundValues == null) {
+            return null;
+        }
+
+        Map<String, String> merged = this.getRemainingArguments(existing);
+        if (!merged.equals(this.getRemainingArguments(inbound))) {
+            return null;
+        }
+
+        if (existingValues.containsAll(inboundValues)) {
+            return existing;
+        }
+
+        existingValues.addAll(inboundValues);
+        merged.put(this.param, JobArguments.serialize(existingValues.toArray(new String[0])));
+
+        return new JobArguments(merged);
+    }
+
+    /**
+     * Fetches the values of the union parameter from the given arguments, or null if the
+     * arguments do not provide any values.
+     */
+    private Set<String> getValues(JobArguments arguments) {
+        if (arguments.containsKey(this.param)) {
+            String[] values = arguments.getAs(this.param, String[].class);
+            return values != null ? new LinkedHashSet<>(Arrays.asList(values)) : null;
+        }
+
+        if (this.singleParam != null && arguments.containsKey(this.singleParam)) {
+            String value = arguments.getAsString(this.singleParam);
+            return value != null ? new LinkedHashSet<>(Arrays.asList(value)) : null;
+        }
+
+        return null;
+    }
+
+    private Map<String, String> getRemainingArguments(JobArguments arguments) {
+        Map<String, String> remaining = new HashMap<>(arguments.toSerializedMap());
+
+        remaining.remove(this.param);
+        if (this.singleParam != null) {
+            remaining.remove(this.singleParam);
+        }
+
+        return remaining;
+    }
+}
@@ -14,10 +14,10 @@
  */
 package org.candlepin.async.impl;
 
+import org.candlepin.async.ActiveJobLookup;
 import org.candlepin.async.JobArguments;
 import org.candlepin.async.JobConstraint;
 import org.candlepin.model.AsyncJobStatus;
-import org.candlepin.model.AsyncJobStatusCurator;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,10 +30,13 @@ import java.util.Map;
 
 /**
  * The UniqueByArgConstraint constrains queuing of a job if another job with same same key and
- * value of a given parameter, or set of parameters, already exists in a non-terminal state.
+ * value of a given parameter, or set of parameters, already exists in a non-terminal state. The
+ * constraint may instead target jobs with a different key, constraining queuing of a job while
+ * jobs of that key with the same parameter values exist in a non-terminal state.
  */
 public class UniqueByArgConstraint implements JobConstraint {
 
+    private final String jobKey;
     private final List<String> params;
 
     /**
@@ -61,6 +64,30 @@ public class UniqueByArgConstraint implements JobConstraint {
      *  if params is null or empty, or contains a parameter which is null or empty
      */
     public UniqueByArgConstraint(List<String> params) {
+        this(null, params);
+    }
+
+    /**
+     * Creates a new UniqueByArgConstraint which targets jobs with the specified key, using the
+     * specified parameters as the target. If multiple parameters are provided, they are checked in
+     * the order provided.
+     *
+     * @param jobKey
+     *  The key of the jobs to target with this constraint, or null to target jobs with the same key
+     *  as the inbound job
+     *
+     * @param params
+     *  A list of parameters to target with this constraint
+     *
+     * @throws IllegalArgumentException
+     *  if jobKey is empty, if params is null or empty, or contains a parameter which is null or
+     *  empty
+     */
+    public UniqueByArgConstraint(String jobKey, List<String> params) {
+        if (jobKey != null && jobKey.isEmpty()) {
+            throw new IllegalArgumentException("jobKey is empty");
+        }
+
         if (params == null || params.isEmpty()) {
             throw new IllegalArgumentException("params is null or empty");
         }
@@ -74,6 +101,7 @@ public class UniqueByArgConstraint implements JobConstraint {
             plist.add(param);
         }
 
+        this.jobKey = jobKey;
         this.params = Collections.<String>unmodifiableList(plist);
     }
 
@@ -81,16 +109,16 @@ public class UniqueByArgConstraint implements JobConstraint {
      * @{inheritDoc}
      */
     @Override
-    public Collection<String> test(AsyncJobStatusCurator jobCurator, AsyncJobStatus inbound) {
-        if (jobCurator == null) {
-            throw new IllegalArgumentException("jobCurator is null");
+    public Collection<String> test(ActiveJobLookup jobLookup, AsyncJobStatus inbound) {
+        if (jobLookup == null) {
+            throw new IllegalArgumentException("jobLookup is null");
         }
 
         if (inbound == null) {
             throw new IllegalArgumentException("inbound is null");
         }
 
-        String jobKey = inbound.getJobKey();
+        String jobKey = this.jobKey != null ? this.jobKey : inbound.getJobKey();
         JobArguments jobArgs = inbound.getJobArguments();
 
         Map<String, String> argMap = new HashMap<>();
@@ -99,6 +127,6 @@ public class UniqueByArgConstraint implements JobConstraint {
             argMap.put(param, jobArgs.getSerializedValue(param));
         }
 
-        return jobCurator.fetchJobIdsByArguments(jobKey, argMap);
+        return jobLookup.fetchJobIdsByArguments(jobKey, argMap);
     }
 }
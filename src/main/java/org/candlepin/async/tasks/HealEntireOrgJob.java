@@ -20,9 +20,13 @@ import org.candlepin.async.JobArguments;
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobConfigValidationException;
 import org.candlepin.async.JobConstraints;
+import org.candlepin.async.JobException;
 import org.candlepin.async.JobExecutionContext;
 import org.candlepin.async.JobExecutionException;
+import org.candlepin.async.JobManager;
 import org.candlepin.audit.EventSink;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.controller.AutobindDisabledForOwnerException;
 import org.candlepin.controller.AutobindHypervisorDisabledException;
 import org.candlepin.controller.Entitler;
@@ -48,6 +52,14 @@ import javax.inject.Inject;
 
 /**
  * HealEntireOrgJob
+ * <p>
+ * Orgs with more consumers than the configured chunk size are healed in chunks: rather than
+ * healing every consumer itself, the job splits the consumers of the org into ranges of consumer
+ * UUIDs and queues a chunk job for each range. Chunk jobs may run in parallel on any node, up to
+ * the configured number of chunk jobs per org at a time. A heal of an org waits for the chunk jobs
+ * of any earlier heal of the org to finish, so heals of an org never overlap. Both the job and its
+ * chunk jobs checkpoint their progress as they go, so a retried job resumes from its last
+ * checkpoint rather than starting over.
  */
 public class HealEntireOrgJob implements AsyncJob {
     private static final Logger log = LoggerFactory.getLogger(HealEntireOrgJob.class);
@@ -55,23 +67,43 @@ public class HealEntireOrgJob implements AsyncJob {
     public static final String JOB_KEY = "HealEntireOrgJob";
     public static final String JOB_NAME = "Heal Organization";
 
+    public static final String CHUNK_JOB_KEY = "HealEntireOrgChunkJob";
+    public static final String CHUNK_JOB_NAME = "Heal Organization Chunk";
+
     public static final String OWNER_KEY = "org";
     public static final String ENTITLE_DATE_KEY = "entitle_date";
+    public static final String CHUNK_AFTER_KEY = "after_uuid";
+    public static final String CHUNK_THROUGH_KEY = "through_uuid";
+
+    public static final String CFG_CHUNK_SIZE = "chunk_size";
+    public static final String DEFAULT_CHUNK_SIZE = "500";
+    public static final String CFG_CHUNK_CONCURRENCY = "chunk_concurrency";
+    public static final String DEFAULT_CHUNK_CONCURRENCY = "2";
+
+    // The number of consumers to heal between checkpoints
+    private static final int CHECKPOINT_INTERVAL = 25;
+
+    // The number of times a failed heal job is retried, resuming from its last checkpoint
+    private static final int RETRY_COUNT = 2;
 
+    private final Configuration config;
     private final Entitler entitler;
     private final EventSink eventSink;
     private final ConsumerCurator consumerCurator;
     private final OwnerCurator ownerCurator;
+    private final JobManager jobManager;
     private final I18n i18n;
 
     @Inject
-    public HealEntireOrgJob(Entitler entitler, EventSink eventSink, ConsumerCurator consumerCurator,
-        OwnerCurator ownerCurator, I18n i18n) {
+    public HealEntireOrgJob(Configuration config, Entitler entitler, EventSink eventSink,
+        ConsumerCurator consumerCurator, OwnerCurator ownerCurator, JobManager jobManager, I18n i18n) {
 
+        this.config = Objects.requireNonNull(config);
         this.entitler = Objects.requireNonNull(entitler);
         this.eventSink = Objects.requireNonNull(eventSink);
         this.consumerCurator = Objects.requireNonNull(consumerCurator);
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
+        this.jobManager = Objects.requireNonNull(jobManager);
         this.i18n = Objects.requireNonNull(i18n);
     }
 
@@ -100,13 +132,88 @@ public class HealEntireOrgJob implements AsyncJob {
             }
 
             Date entitleDate = arguments.getAs(ENTITLE_DATE_KEY, Date.class);
-            StringBuilder result = new StringBuilder();
 
-            Transactional<String> transaction = this.consumerCurator.transactional(this::healSingleConsumer)
-                .onCommit(status -> eventSink.sendEvents())
-                .onRollback(status -> eventSink.rollback());
+            String result = arguments.containsKey(CHUNK_THROUGH_KEY) ?
+                this.healConsumers(context, owner, entitleDate, arguments.getAsString(CHUNK_AFTER_KEY),
+                    arguments.getAsString(CHUNK_THROUGH_KEY)) :
+                this.healOrg(context, owner, entitleDate);
+
+            context.setJobResult(result);
+        }
+        catch (Exception e) {
+            log.error("HealEntireOrgJob encountered a problem.", e);
+            throw new JobExecutionException(e.getMessage(), e, false);
+        }
+    }
+
+    /**
+     * Heals the consumers of the given org. If the org has no more consumers than fit in a single
+     * chunk, the consumers are healed directly; otherwise a chunk job is queued for each chunk of
+     * consumers, with the last queued chunk checkpointed so a retry only queues the remainder.
+     */
+    private String healOrg(JobExecutionContext context, Owner owner, Date entitleDate)
+        throws JobException {
+
+        int chunkSize = this.getConfigValue(CFG_CHUNK_SIZE);
+        int concurrency = this.getConfigValue(CFG_CHUNK_CONCURRENCY);
+
+        String cursor = context.getCursor();
+        int queued = context.getProgress();
+
+        List<String> uuids = this.ownerCurator.getConsumerUuids(owner.getId(), cursor, null, chunkSize);
+
+        // Orgs which fit in a single chunk don't need the overhead of additional jobs
+        if (cursor == null && uuids.size() < chunkSize) {
+            return this.healConsumers(context, owner, entitleDate, null, null);
+        }
+
+        int chunks = 0;
+        while (!uuids.isEmpty()) {
+            String through = uuids.get(uuids.size() - 1);
+
+            JobConfig chunkConfig = createChunkJobConfig(concurrency)
+                .setOwner(owner)
+                .setEntitleDate(entitleDate)
+                .setConsumerRange(cursor, through);
+
+            this.jobManager.queueJob(chunkConfig);
+
+            cursor = through;
+            queued += uuids.size();
+            ++chunks;
+
+            context.checkpoint(cursor, queued);
+            uuids = this.ownerCurator.getConsumerUuids(owner.getId(), cursor, null, chunkSize);
+        }
+
+        log.info("Queued {} job(s) to heal {} consumer(s) of org {}", chunks, queued, owner.getKey());
+        return String.format("Queued %d job(s) to heal %d consumer(s) of org %s", chunks, queued,
+            owner.getKey());
+    }
+
+    /**
+     * Heals the consumers of the given org with UUIDs in the given range, checkpointing the last
+     * healed consumer periodically. Healing is resumed after the checkpointed consumer if one is
+     * present; as healing a consumer is idempotent, consumers healed since the last checkpoint
+     * are simply healed again.
+     */
+    private String healConsumers(JobExecutionContext context, Owner owner, Date entitleDate,
+        String after, String through) {
+
+        StringBuilder result = new StringBuilder();
+
+        Transactional<String> transaction = this.consumerCurator.transactional(this::healSingleConsumer)
+            .onCommit(status -> eventSink.sendEvents())
+            .onRollback(status -> eventSink.rollback());
+
+        String cursor = context.getCursor() != null ? context.getCursor() : after;
+        int healed = context.getProgress();
 
-            for (String uuid : ownerCurator.getConsumerUuids(owner)) {
+        List<String> uuids = this.ownerCurator.getConsumerUuids(owner.getId(), cursor, through,
+            CHECKPOINT_INTERVAL);
+
+        while (!uuids.isEmpty()) {
+            for (String uuid : uuids) {
                 // Do not send in product IDs.  CandlepinPoolManager will take care
                 // of looking up the non or partially compliant products to bind.
                 try {
@@ -125,12 +232,28 @@ public class HealEntireOrgJob implements AsyncJob {
                 }
             }
 
-            context.setJobResult(result.toString());
+            cursor = uuids.get(uuids.size() - 1);
+            healed += uuids.size();
+
+            context.checkpoint(cursor, healed);
+            uuids = this.ownerCurator.getConsumerUuids(owner.getId(), cursor, through, CHECKPOINT_INTERVAL);
         }
-        catch (Exception e) {
-            log.error("HealEntireOrgJob encountered a problem.", e);
-            throw new JobExecutionException(e.getMessage(), e, false);
+
+        return result.toString();
+    }
+
+    private int getConfigValue(String cfgName) throws JobExecutionException {
+        String configKey = ConfigProperties.jobConfig(JOB_KEY, cfgName);
+        int value = this.config.getInt(configKey);
+        if (value <= 0) {
+            String errorMessage = String.format(
+                "Invalid value for configuration \"%s\", must be a positive integer: %s", configKey, value);
+
+            log.error(errorMessage);
+            throw new JobExecutionException(errorMessage, true);
         }
+
+        return value;
     }
 
     /**
@@ -143,6 +266,19 @@ public class HealEntireOrgJob implements AsyncJob {
         return new HealEntireOrgJobConfig();
     }
 
+    /**
+     * Creates a JobConfig configured to execute a chunk of the heal entire org job, limiting the
+     * number of chunk jobs active at once for an org to the given limit.
+     *
+     * @param limit
+     *  the maximum number of chunk jobs which may be active for an org at once
+     *
+     * @return a JobConfig instance configured to execute a chunk of the heal entire org job
+     */
+    public static HealEntireOrgChunkJobConfig createChunkJobConfig(int limit) {
+        return new HealEntireOrgChunkJobConfig(limit);
+    }
+
     /*
      * Each consumer heal should be a separate transaction
      */
@@ -168,9 +304,13 @@ public class HealEntireOrgJob implements AsyncJob {
     public static class HealEntireOrgJobConfig extends JobConfig<HealEntireOrgJobConfig> {
 
         public HealEntireOrgJobConfig() {
+            // The job finishes once its chunk jobs are queued, so a later heal of the same org
+            // must also wait for those to finish before healing the org again
             this.setJobKey(JOB_KEY)
                 .setJobName(JOB_NAME)
-                .addConstraint(JobConstraints.uniqueByArguments(OWNER_KEY));
+                .addConstraint(JobConstraints.uniqueByArguments(OWNER_KEY))
+                .addConstraint(JobConstraints.uniqueByArgumentsOf(CHUNK_JOB_KEY, OWNER_KEY))
+                .setRetryCount(RETRY_COUNT);
         }
 
         public HealEntireOrgJobConfig setOwner(final Owner owner) {
@@ -214,4 +354,90 @@ public class HealEntireOrgJob implements AsyncJob {
             }
         }
     }
+
+    /**
+     * Job configuration object for a chunk of the heal entire org job
+     */
+    public static class HealEntireOrgChunkJobConfig extends JobConfig<HealEntireOrgChunkJobConfig> {
+
+        public HealEntireOrgChunkJobConfig(int limit) {
+            this.setJobKey(CHUNK_JOB_KEY)
+                .setJobName(CHUNK_JOB_NAME)
+                .addConstraint(JobConstraints.throttledByArguments(limit, OWNER_KEY))
+                .setRetryCount(RETRY_COUNT);
+        }
+
+        public HealEntireOrgChunkJobConfig setOwner(final Owner owner) {
+            if (owner == null) {
+                throw new IllegalArgumentException("Owner is null");
+            }
+
+            this.setContextOwner(owner)
+                .setJobArgument(OWNER_KEY, owner.getKey());
+
+            return this;
+        }
+
+        public HealEntireOrgChunkJobConfig setEntitleDate(final Date entitleDate) {
+            this.setJobArgument(ENTITLE_DATE_KEY, entitleDate);
+            return this;
+        }
+
+        /**
+         * Sets the range of consumers to heal, by UUID
+         *
+         * @param after
+         *  the UUID after which to start healing consumers, exclusive; or null to start with the
+         *  first consumer of the org
+         *
+         * @param through
+         *  the UUID of the last consumer to heal, inclusive
+         *
+         * @return
+         *  a reference to this job config
+         */
+        public HealEntireOrgChunkJobConfig setConsumerRange(final String after, final String through) {
+            if (through == null || through.isEmpty()) {
+                throw new IllegalArgumentException("through is null or empty");
+            }
+
+            if (after != null) {
+                this.setJobArgument(CHUNK_AFTER_KEY, after);
+            }
+
+            this.setJobArgument(CHUNK_THROUGH_KEY, through);
+            return this;
+        }
+
+        @Override
+        public void validate() throws JobConfigValidationException {
+            super.validate();
+
+            try {
+                JobArguments arguments = this.getJobArguments();
+
+                String ownerKey = arguments.getAsString(OWNER_KEY);
+                if (ownerKey == null || ownerKey.isEmpty()) {
+                    String errmsg = "owner has not been set, or the provided owner lacks a key";
+                    throw new JobConfigValidationException(errmsg);
+                }
+
+                Date entitleDate = arguments.getAs(ENTITLE_DATE_KEY, Date.class);
+                if (entitleDate == null) {
+                    String errmsg = "entitle date has not been set";
+                    throw new JobConfigValidationException(errmsg);
+                }
+
+                String through = arguments.getAsString(CHUNK_THROUGH_KEY);
+                if (through == null || through.isEmpty()) {
+                    String errmsg = "consumer range has not been set";
+                    throw new JobConfigValidationException(errmsg);
+                }
+            }
+            catch (ArgumentConversionException e) {
+                String errmsg = "One or more required arguments are of the wrong type";
+                throw new JobConfigValidationException(errmsg, e);
+            }
+        }
+    }
 }
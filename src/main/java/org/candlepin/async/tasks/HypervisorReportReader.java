@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.tasks;
+
+import org.candlepin.dto.api.server.v1.ConsumerDTO;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+
+
+/**
+ * Reads the hypervisors of a hypervisor report incrementally, one at a time, rather than parsing
+ * the report in its entirety. The report is expected to be a JSON object containing the reported
+ * hypervisors in a "hypervisors" (or legacy "consumers") array; any other fields of the report are
+ * skipped.
+ * <p>
+ * The report is checked for a hypervisor array when the reader is created, but the hypervisors
+ * themselves are only parsed as they are iterated. Errors encountered while iterating are thrown
+ * as UncheckedIOExceptions wrapping the underlying parsing exception. Null entries in the array
+ * are skipped.
+ */
+public class HypervisorReportReader implements Iterator<ConsumerDTO>, Closeable {
+
+    private static final Set<String> HYPERVISOR_FIELDS = Set.of("hypervisors", "consumers");
+
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+
+    private ConsumerDTO next;
+    private boolean done;
+
+    /**
+     * Creates a new reader over the given UTF-8 encoded report stream. The stream is closed when
+     * the reader is closed.
+     *
+     * @param mapper
+     *  the object mapper to use to deserialize the reported hypervisors
+     *
+     * @param report
+     *  a stream providing the report to read
+     *
+     * @throws IOException
+     *  if the report cannot be read, or does not contain an array of hypervisors
+     */
+    public HypervisorReportReader(ObjectMapper mapper, InputStream report) throws IOException {
+        this(mapper, mapper.getFactory().createParser(Objects.requireNonNull(report)));
+    }
+
+    /**
+     * Creates a new reader over the given report. The report reader is closed when this reader is
+     * closed.
+     *
+     * @param mapper
+     *  the object mapper to use to deserialize the reported hypervisors
+     *
+     * @param report
+     *  a reader providing the report to read
+     *
+     * @throws IOException
+     *  if the report cannot be read, or does not contain an array of hypervisors
+     */
+    public HypervisorReportReader(ObjectMapper mapper, Reader report) throws IOException {
+        this(mapper, mapper.getFactory().createParser(Objects.requireNonNull(report)));
+    }
+
+    private HypervisorReportReader(ObjectMapper mapper, JsonParser parser) throws IOException {
+        this.mapper = Objects.requireNonNull(mapper);
+        this.parser = parser;
+
+        try {
+            this.seekHypervisors();
+        }
+        catch (IOException | RuntimeException e) {
+            this.parser.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Advances the parser to the start of the hypervisor array, skipping any fields preceding it.
+     */
+    private void seekHypervisors() throws IOException {
+        if (this.parser.nextToken() != JsonToken.START_OBJECT) {
+            throw JsonMappingException.from(this.parser, "Hypervisor report is not a JSON object");
+        }
+
+        while (this.parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = this.parser.getCurrentName();
+            JsonToken token = this.parser.nextToken();
+
+            if (HYPERVISOR_FIELDS.contains(field) && token == JsonToken.START_ARRAY) {
+                return;
+            }
+
+            this.parser.skipChildren();
+        }
+
+        throw JsonMappingException.from(this.parser, "Hypervisor report does not contain any hypervisors");
+    }
+
+    /**
+     * Skips the remainder of the report following the hypervisor array, ensuring it is well-formed.
+     */
+    private void skipRemainder() throws IOException {
+        while (this.parser.nextToken() == JsonToken.FIELD_NAME) {
+            this.parser.nextToken();
+            this.parser.skipChildren();
+        }
+
+        if (this.parser.currentToken() != JsonToken.END_OBJECT) {
+            throw JsonMappingException.from(this.parser, "Unexpected end of hypervisor report");
+        }
+    }
+
+    private void readNext() throws IOException {
+        while (this.next == null && !this.done) {
+            JsonToken token = this.parser.nextToken();
+
+            if (token == JsonToken.END_ARRAY) {
+                this.done = true;
+                this.skipRemainder();
+            }
+            else if (token == null) {
+                throw JsonMappingException.from(this.parser, "Unexpected end of hypervisor report");
+            }
+            else if (token != JsonToken.VALUE_NULL) {
+                this.next = this.mapper.readValue(this.parser, ConsumerDTO.class);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException
+     *  if the next hypervisor cannot be read from the report
+     */
+    @Override
+    public boolean hasNext() {
+        try {
+            this.readNext();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this.next != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException
+     *  if the next hypervisor cannot be read from the report
+     */
+    @Override
+    public ConsumerDTO next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        ConsumerDTO hypervisor = this.next;
+        this.next = null;
+
+        return hypervisor;
+    }
+
+    /**
+     * Reads the remainder of the report, ensuring every hypervisor it contains can be parsed, and
+     * returns the number of hypervisors read. Hypervisors read by this method are not retained.
+     *
+     * @throws IOException
+     *  if the report cannot be read, or any of its hypervisors cannot be parsed
+     *
+     * @return
+     *  the number of hypervisors read
+     */
+    public int validate() throws IOException {
+        int count = 0;
+
+        try {
+            while (this.hasNext()) {
+                this.next();
+                ++count;
+            }
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.parser.close();
+    }
+
+}
@@ -23,8 +23,9 @@ import org.candlepin.async.JobConstraints;
 import org.candlepin.async.JobExecutionContext;
 import org.candlepin.async.JobExecutionException;
 import org.candlepin.auth.Principal;
-import org.candlepin.dto.api.server.v1.ConsumerDTO;
 import org.candlepin.dto.api.server.v1.HypervisorUpdateResultDTO;
+import org.candlepin.model.HypervisorReport;
+import org.candlepin.model.HypervisorReportCurator;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.service.impl.HypervisorUpdateAction;
@@ -37,10 +38,8 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 import java.util.Objects;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
@@ -64,18 +63,22 @@ public class HypervisorUpdateJob implements AsyncJob {
     private static final String REPORTER_ID_KEY = "reporter_id";
     private static final String DATA_KEY = "data";
     private static final String PRINCIPAL_KEY = "principal";
+    private static final String REPORT_KEY = "report_id";
 
     private final ObjectMapper mapper;
     private final OwnerCurator ownerCurator;
+    private final HypervisorReportCurator reportCurator;
     private final HypervisorUpdateAction hypervisorUpdateAction;
 
     @Inject
     public HypervisorUpdateJob(
         final OwnerCurator ownerCurator,
+        final HypervisorReportCurator reportCurator,
         final HypervisorUpdateAction hypervisorUpdateAction,
         @Named("HypervisorUpdateJobObjectMapper") final ObjectMapper objectMapper) {
 
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
+        this.reportCurator = Objects.requireNonNull(reportCurator);
         this.hypervisorUpdateAction = Objects.requireNonNull(hypervisorUpdateAction);
         this.mapper = Objects.requireNonNull(objectMapper);
     }
@@ -88,7 +91,8 @@ public class HypervisorUpdateJob implements AsyncJob {
      * {@inheritDoc}
      *
      * Updates or creates missing hypervisors for specific {@link Owner} as an
-     * async job.
+     * async job. The hypervisor report is parsed incrementally as the hypervisors
+     * are reconciled, and the stored report is deleted once the update completes.
      *
      * @param context the job's execution context
      * @return
@@ -102,6 +106,7 @@ public class HypervisorUpdateJob implements AsyncJob {
             Boolean create = arguments.getAsBoolean(CREATE_KEY);
             String principal = arguments.getAsString(PRINCIPAL_KEY);
             String jobReporterId = arguments.getAsString(REPORTER_ID_KEY);
+            String reportId = arguments.getAsString(REPORT_KEY);
 
             final Owner owner = ownerCurator.getByKey(ownerKey);
             if (owner == null) {
@@ -114,9 +119,43 @@ public class HypervisorUpdateJob implements AsyncJob {
                 return;
             }
 
-            final HypervisorList hypervisors = parsedHypervisors(arguments);
-            final HypervisorUpdateAction.Result updateResult = hypervisorUpdateAction.update(
-                owner, hypervisors.getHypervisors(), create, principal, jobReporterId);
+            final HypervisorUpdateAction.Result updateResult;
+
+            if (reportId != null) {
+                final HypervisorReport report = this.reportCurator.get(reportId);
+                if (report == null) {
+                    String result = String.format("Hypervisor report does not exist: \"%s\"", reportId);
+
+                    log.warn(result);
+                    context.setJobResult(result);
+
+                    return;
+                }
+
+                // The report data is only needed until it has been parsed; keep it out of the session
+                this.reportCurator.evict(report);
+
+                try (HypervisorReportReader reader = new HypervisorReportReader(this.mapper,
+                    report.openReport())) {
+
+                    updateResult = hypervisorUpdateAction.update(owner, reader, create, principal,
+                        jobReporterId);
+                }
+
+                this.reportCurator.deleteById(reportId);
+            }
+            else {
+                // Legacy jobs carry the report in their arguments
+                final byte[] data = arguments.getAs(DATA_KEY, byte[].class);
+
+                try (HypervisorReportReader reader = new HypervisorReportReader(this.mapper,
+                    new InflaterInputStream(new ByteArrayInputStream(data)))) {
+
+                    updateResult = hypervisorUpdateAction.update(owner, reader, create, principal,
+                        jobReporterId);
+                }
+            }
+
             final HypervisorUpdateResultDTO result = updateResult.getResult();
 
             log.info("Summary for report from {} by principal {}\n {}", jobReporterId, principal, result);
@@ -128,12 +167,6 @@ public class HypervisorUpdateJob implements AsyncJob {
         }
     }
 
-    private HypervisorList parsedHypervisors(final JobArguments arguments) throws IOException {
-        final byte[] data = arguments.getAs(DATA_KEY, byte[].class);
-        final String json = decompress(data);
-        return mapper.readValue(json, HypervisorList.class);
-    }
-
     private static byte[] compress(String text) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
@@ -147,22 +180,6 @@ public class HypervisorUpdateJob implements AsyncJob {
         return baos.toByteArray();
     }
 
-    private static String decompress(byte[] bytes) {
-        InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes));
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            byte[] buffer = new byte[8192];
-            int len;
-            while ((len = in.read(buffer)) > 0) {
-                baos.write(buffer, 0, len);
-            }
-            return new String(baos.toByteArray(), StandardCharsets.UTF_8);
-        }
-        catch (IOException e) {
-            throw new AssertionError(e);
-        }
-    }
-
     /**
      * Job configuration object for the hypervisor update job
      */
@@ -216,6 +233,26 @@ public class HypervisorUpdateJob implements AsyncJob {
             return this;
         }
 
+        /**
+         * Sets the stored report to be processed by this hypervisor update job. The
+         * report is deleted by the job once it has been processed.
+         *
+         * @param report
+         *  the stored hypervisor report to process
+         *
+         * @return
+         *  a reference to this job config
+         */
+        public HypervisorUpdateJobConfig setReport(final HypervisorReport report) {
+            if (report == null || report.getId() == null) {
+                throw new IllegalArgumentException("report is null or has not been persisted");
+            }
+
+            this.setJobArgument(REPORT_KEY, report.getId());
+
+            return this;
+        }
+
         public HypervisorUpdateJobConfig setPrincipal(final Principal principal) {
             if (principal == null) {
                 throw new IllegalArgumentException("principal is null");
@@ -236,6 +273,7 @@ public class HypervisorUpdateJob implements AsyncJob {
                 final String ownerKey = arguments.getAsString(OWNER_KEY);
                 final Boolean create = arguments.getAsBoolean(CREATE_KEY);
                 final String data = arguments.getAsString(DATA_KEY);
+                final String reportId = arguments.getAsString(REPORT_KEY);
 
                 if (ownerKey == null || ownerKey.isEmpty()) {
                     final String errmsg = "owner has not been set!";
@@ -245,7 +283,7 @@ public class HypervisorUpdateJob implements AsyncJob {
                     final String errmsg = "create flag has not been set!";
                     throw new JobConfigValidationException(errmsg);
                 }
-                if (data == null || data.isEmpty()) {
+                if ((data == null || data.isEmpty()) && (reportId == null || reportId.isEmpty())) {
                     final String errmsg = "hypervisor data has not been set!";
                     throw new JobConfigValidationException(errmsg);
                 }
@@ -258,21 +296,4 @@ public class HypervisorUpdateJob implements AsyncJob {
         }
     }
 
-    /**
-     * Class for holding the list of consumers in the stored json text
-     *
-     * @author wpoteat
-     */
-    public static class HypervisorList {
-        private List<ConsumerDTO> hypervisors;
-
-        public List<ConsumerDTO> getHypervisors() {
-            return this.hypervisors;
-        }
-
-        public void setConsumers(List<ConsumerDTO> hypervisors) {
-            this.hypervisors = hypervisors;
-        }
-    }
-
 }
@@ -22,6 +22,7 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.model.AsyncJobStatus.JobState;
 import org.candlepin.model.AsyncJobStatusCurator.AsyncJobStatusQueryArguments;
+import org.candlepin.model.HypervisorReportCurator;
 import org.candlepin.util.Util;
 
 import org.slf4j.Logger;
@@ -38,7 +39,8 @@ import javax.inject.Inject;
 
 
 /**
- * The JobCleaner job deletes terminal jobs older than the max job age (default: 7 days)
+ * The JobCleaner job deletes terminal jobs older than the max job age (default: 7 days), along with
+ * any stored hypervisor reports of the same age left behind by jobs which never processed them
  */
 public class JobCleaner implements AsyncJob {
     private static final Logger log = LoggerFactory.getLogger(JobCleaner.class);
@@ -61,11 +63,13 @@ public class JobCleaner implements AsyncJob {
 
     private final Configuration config;
     private final JobManager jobManager;
+    private final HypervisorReportCurator reportCurator;
 
     @Inject
-    public JobCleaner(Configuration config, JobManager jobManager) {
+    public JobCleaner(Configuration config, JobManager jobManager, HypervisorReportCurator reportCurator) {
         this.config = Objects.requireNonNull(config);
         this.jobManager = Objects.requireNonNull(jobManager);
+        this.reportCurator = Objects.requireNonNull(reportCurator);
     }
 
     @Override
@@ -80,6 +84,10 @@ public class JobCleaner implements AsyncJob {
         result.append(String.format("Removed %1$d terminal jobs older than %2$tF %2$tT%2$tz%n",
             removed, terminalCutoff));
 
+        int reports = this.cleanupHypervisorReports(terminalCutoff);
+        result.append(String.format("Removed %1$d hypervisor reports older than %2$tF %2$tT%2$tz%n",
+            reports, terminalCutoff));
+
         if (nonterminalCutoff != null) {
             int aborted = this.abortNonTerminalJobs(nonterminalCutoff);
             result.append(
@@ -135,6 +143,13 @@ public class JobCleaner implements AsyncJob {
         return removed;
     }
 
+    private int cleanupHypervisorReports(Date cutoff) {
+        int removed = this.reportCurator.deleteExpired(cutoff);
+        log.info("Removed {} hypervisor reports older than {}", removed, cutoff);
+
+        return removed;
+    }
+
     private int abortNonTerminalJobs(Date cutoff) {
         // We're targeting every non-terminal, non-running job
         Set<JobState> jobStates = Arrays.stream(JobState.values())
@@ -17,15 +17,22 @@ package org.candlepin.async.tasks;
 import org.candlepin.async.ArgumentConversionException;
 import org.candlepin.async.AsyncJob;
 import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescers;
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobConfigValidationException;
 import org.candlepin.async.JobExecutionContext;
+import org.candlepin.controller.Refresher;
 import org.candlepin.controller.RefresherFactory;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductCurator;
 import org.candlepin.service.ProductServiceAdapter;
 import org.candlepin.service.SubscriptionServiceAdapter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 
 import javax.inject.Inject;
@@ -38,6 +45,7 @@ public class RefreshPoolsForProductJob implements AsyncJob {
 
     private static final String LAZY_KEY = "lazy_regen";
     private static final String PRODUCT_KEY = "product_key";
+    private static final String PRODUCT_KEYS = "product_keys";
 
     private final ProductCurator productCurator;
     private final SubscriptionServiceAdapter subAdapter;
@@ -62,31 +70,54 @@ public class RefreshPoolsForProductJob implements AsyncJob {
     public void execute(final JobExecutionContext context) {
         final JobArguments args = context.getJobArguments();
 
-        final String productUuid = args.getAsString(PRODUCT_KEY);
         final Boolean lazy = args.getAsBoolean(LAZY_KEY);
         final StringBuilder result = new StringBuilder();
 
-        final Product product = this.productCurator.get(productUuid);
+        // Jobs coalesced from several jobs refresh the pools for all of their products in one pass
+        final List<Product> products = new ArrayList<>();
 
-        if (product != null) {
-            this.refresherFactory.getRefresher(this.subAdapter, this.prodAdapter)
-                .setLazyCertificateRegeneration(true)
-                .add(product)
-                .run();
+        for (String productUuid : getProductUuids(args)) {
+            final Product product = this.productCurator.get(productUuid);
 
-            result.append("Pools refreshed for product: ")
-                .append(productUuid)
-                .append("\n");
+            if (product != null) {
+                products.add(product);
+
+                result.append("Pools refreshed for product: ")
+                    .append(productUuid)
+                    .append("\n");
+            }
+            else {
+                result.append("Unable to refresh pools for product \"")
+                    .append(productUuid)
+                    .append("\": Could not find a product with the specified UUID");
+            }
         }
-        else {
-            result.append("Unable to refresh pools for product \"")
-                .append(productUuid)
-                .append("\": Could not find a product with the specified UUID");
+
+        if (!products.isEmpty()) {
+            final Refresher refresher = this.refresherFactory.getRefresher(this.subAdapter, this.prodAdapter)
+                .setLazyCertificateRegeneration(true);
+
+            products.forEach(refresher::add);
+            refresher.run();
         }
 
         context.setJobResult(result.toString());
     }
 
+    /**
+     * Fetches the UUIDs of the products for which to refresh pools. Jobs queued for a single
+     * product provide the product UUID on its own, while coalesced jobs provide the UUIDs of all
+     * of the products of the jobs coalesced into them.
+     */
+    private static Collection<String> getProductUuids(final JobArguments args) {
+        if (args.containsKey(PRODUCT_KEYS)) {
+            final String[] productUuids = args.getAs(PRODUCT_KEYS, String[].class);
+            return productUuids != null ? new LinkedHashSet<>(Arrays.asList(productUuids)) : List.of();
+        }
+
+        return Arrays.asList(args.getAsString(PRODUCT_KEY));
+    }
+
     /**
      * Creates a JobConfig configured to execute the refresh pools for product
      * job. Callers may further manipulate the JobConfig as necessary before
@@ -106,7 +137,8 @@ public class RefreshPoolsForProductJob implements AsyncJob {
 
         RefreshPoolsForProductJobConfig() {
             this.setJobKey(JOB_KEY)
-                .setJobName(JOB_NAME);
+                .setJobName(JOB_NAME)
+                .setCoalescer(JobCoalescers.unionByArgument(PRODUCT_KEYS, PRODUCT_KEY));
         }
 
         public RefreshPoolsForProductJobConfig setProduct(final Product product) {
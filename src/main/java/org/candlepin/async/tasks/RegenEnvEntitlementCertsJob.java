@@ -17,6 +17,7 @@ package org.candlepin.async.tasks;
 import org.candlepin.async.ArgumentConversionException;
 import org.candlepin.async.AsyncJob;
 import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescers;
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobConfigValidationException;
 import org.candlepin.async.JobExecutionContext;
@@ -37,7 +38,8 @@ import javax.inject.Inject;
  * RegenEnvEntitlementCertsJob
  *
  * Regenerates entitlements within an environment which are affected by the
- * promotion/demotion of the given content sets.
+ * promotion/demotion of the given content sets. Jobs queued for an environment while an
+ * equivalent job for it is pending are coalesced into the pending job, merging their content sets.
  */
 public class RegenEnvEntitlementCertsJob implements AsyncJob {
 
@@ -76,7 +78,8 @@ public class RegenEnvEntitlementCertsJob implements AsyncJob {
 
         private RegenEnvEntitlementCertsJobConfig() {
             this.setJobKey(JOB_KEY)
-                .setJobName(JOB_NAME);
+                .setJobName(JOB_NAME)
+                .setCoalescer(JobCoalescers.unionByArgument(CONTENT_KEY));
         }
 
         /**
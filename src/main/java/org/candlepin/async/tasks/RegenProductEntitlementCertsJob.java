@@ -17,6 +17,7 @@ package org.candlepin.async.tasks;
 import org.candlepin.async.ArgumentConversionException;
 import org.candlepin.async.AsyncJob;
 import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobCoalescers;
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobConfigValidationException;
 import org.candlepin.async.JobConstraints;
@@ -29,7 +30,9 @@ import org.candlepin.model.OwnerCurator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
 
@@ -39,6 +42,9 @@ import javax.inject.Inject;
 /**
  * The RegenProductEntitlementCertsJob regenerates entitlement certificates for a given product
  * across all orgs using it, as applicable.
+ * <p></p>
+ * Jobs queued while an equivalent job is pending are coalesced into the pending job, which then
+ * regenerates the certificates for the products of each of the coalesced jobs.
  */
 public class RegenProductEntitlementCertsJob implements AsyncJob {
     private static final Logger log = LoggerFactory.getLogger(RegenProductEntitlementCertsJob.class);
@@ -47,6 +53,7 @@ public class RegenProductEntitlementCertsJob implements AsyncJob {
     public static final String JOB_NAME = "Regen Product Entitlement Certificates";
 
     private static final String ARG_PRODUCT_ID = "product_id";
+    private static final String ARG_PRODUCT_IDS = "product_ids";
     private static final String ARG_LAZY_REGEN = "lazy_regen";
 
     private final EntitlementCertificateService entitlementCertificateService;
@@ -76,27 +83,50 @@ public class RegenProductEntitlementCertsJob implements AsyncJob {
     public void execute(JobExecutionContext context) throws JobExecutionException {
         JobArguments args = context.getJobArguments();
 
-        String productId = args.getAsString(ARG_PRODUCT_ID);
         boolean lazyRegen = args.getAsBoolean(ARG_LAZY_REGEN, true);
+        StringBuilder result = new StringBuilder();
+
+        for (String productId : getProductIds(args)) {
+            // Find a set of owners that actually have the product...
+            Set<Owner> owners = this.ownerCurator.getOwnersWithProducts(Collections.singleton(productId));
 
-        // Find a set of owners that actually have the product...
-        Set<Owner> owners = this.ownerCurator.getOwnersWithProducts(Collections.singleton(productId));
+            // Regenerate if we found any...
+            if (!owners.isEmpty()) {
+                log.info("Regenerating entitlement certificates for {} owners with product: {}",
+                    owners.size(), productId);
 
-        // Regenerate if we found any...
-        if (!owners.isEmpty()) {
-            log.info("Regenerating entitlement certificates for {} owners with product: {}",
-                owners.size(), productId);
+                for (Owner owner : owners) {
+                    this.entitlementCertificateService.regenerateCertificatesOf(owner, productId, lazyRegen);
+                }
+            }
+            else {
+                log.debug("Nothing to regenerate; no owners currently using product: {}", productId);
+            }
 
-            for (Owner owner : owners) {
-                this.entitlementCertificateService.regenerateCertificatesOf(owner, productId, lazyRegen);
+            if (result.length() > 0) {
+                result.append("\n");
             }
+
+            result.append(String.format("Entitlements regenerated for %d owners using product: %s",
+                owners.size(), productId));
         }
-        else {
-            log.debug("Nothing to regenerate; no owners currently using product: {}", productId);
+
+        context.setJobResult(result.toString());
+    }
+
+    /**
+     * Fetches the IDs of the products for which to regenerate certificates. Jobs queued for a
+     * single product provide the product ID on its own, while coalesced jobs provide the IDs of
+     * all of the products of the jobs coalesced into them.
+     */
+    private static Set<String> getProductIds(JobArguments args) {
+        if (args.containsKey(ARG_PRODUCT_IDS)) {
+            String[] productIds = args.getAs(ARG_PRODUCT_IDS, String[].class);
+            return productIds != null ? new LinkedHashSet<>(Arrays.asList(productIds)) : Set.of();
         }
 
-        context.setJobResult("Entitlements regenerated for %d owners using product: %s",
-            owners.size(), productId);
+        String productId = args.getAsString(ARG_PRODUCT_ID);
+        return productId != null ? Set.of(productId) : Set.of();
     }
 
     /**
@@ -119,7 +149,8 @@ public class RegenProductEntitlementCertsJob implements AsyncJob {
         public RegenProductEntitlementCertsConfig() {
             this.setJobKey(JOB_KEY)
                 .setJobName(JOB_NAME)
-                .addConstraint(JobConstraints.uniqueByArguments(ARG_PRODUCT_ID));
+                .addConstraint(JobConstraints.uniqueByArguments(ARG_PRODUCT_ID))
+                .setCoalescer(JobCoalescers.unionByArgument(ARG_PRODUCT_IDS, ARG_PRODUCT_ID));
         }
 
         /**
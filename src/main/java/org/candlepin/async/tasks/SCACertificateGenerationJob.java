@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.tasks;
+
+import org.candlepin.async.ArgumentConversionException;
+import org.candlepin.async.AsyncJob;
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobConfig;
+import org.candlepin.async.JobConfigValidationException;
+import org.candlepin.async.JobConstraints;
+import org.candlepin.async.JobExecutionContext;
+import org.candlepin.async.JobExecutionException;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.model.CertificateSerial;
+import org.candlepin.model.CertificateSerialCurator;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.ContentAccessCertificateCurator;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.SCACertificate;
+import org.candlepin.pki.certs.SCACertificateGenerator;
+
+import com.google.common.collect.Iterables;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.inject.Inject;
+
+
+
+/**
+ * The SCACertificateGenerationJob generates or refreshes the Simple Content Access certificates of
+ * every consumer in an organization. Consumers otherwise regenerate their certificates lazily on
+ * their next check-in after the organization's content changes; running this job ahead of time,
+ * such as during off-peak hours, avoids regenerating them all at once as the consumers check in.
+ * <p>
+ * Consumers are processed in batches, each in its own transaction, with the certificates of each
+ * batch built and signed in parallel. Once a batch is committed, its consumers, certificates and
+ * serials are detached so the persistence context does not grow with the size of the organization.
+ * Consumers with up-to-date certificates are skipped, so the job may safely be retried after a
+ * failure.
+ */
+public class SCACertificateGenerationJob implements AsyncJob {
+    private static final Logger log = LoggerFactory.getLogger(SCACertificateGenerationJob.class);
+
+    public static final String JOB_KEY = "SCACertificateGenerationJob";
+    public static final String JOB_NAME = "SCA Certificate Generation";
+
+    public static final String OWNER_KEY = "org";
+
+    public static final String CFG_BATCH_SIZE = "batch_size";
+    public static final String DEFAULT_BATCH_SIZE = "500";
+
+    // The number of threads to use to build and sign certificates; zero uses one per processor
+    public static final String CFG_THREADS = "threads";
+    public static final String DEFAULT_THREADS = "0";
+
+    private final Configuration config;
+    private final OwnerCurator ownerCurator;
+    private final ConsumerCurator consumerCurator;
+    private final ContentAccessCertificateCurator contentAccessCertificateCurator;
+    private final CertificateSerialCurator serialCurator;
+    private final SCACertificateGenerator scaCertificateGenerator;
+
+    @Inject
+    public SCACertificateGenerationJob(Configuration config, OwnerCurator ownerCurator,
+        ConsumerCurator consumerCurator, ContentAccessCertificateCurator contentAccessCertificateCurator,
+        CertificateSerialCurator serialCurator, SCACertificateGenerator scaCertificateGenerator) {
+
+        this.config = Objects.requireNonNull(config);
+        this.ownerCurator = Objects.requireNonNull(ownerCurator);
+        this.consumerCurator = Objects.requireNonNull(consumerCurator);
+        this.contentAccessCertificateCurator = Objects.requireNonNull(contentAccessCertificateCurator);
+        this.serialCurator = Objects.requireNonNull(serialCurator);
+        this.scaCertificateGenerator = Objects.requireNonNull(scaCertificateGenerator);
+    }
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        JobArguments arguments = context.getJobArguments();
+        String ownerKey = arguments.getAsString(OWNER_KEY);
+
+        Owner owner = this.ownerCurator.getByKey(ownerKey);
+        if (owner == null) {
+            throw new JobExecutionException("Nonexistent owner specified: " + ownerKey, true);
+        }
+
+        if (!owner.isUsingSimpleContentAccess()) {
+            context.setJobResult("Organization %s is not using simple content access; " +
+                "no certificates generated", ownerKey);
+            return;
+        }
+
+        int batchSize = this.getConfigValue(CFG_BATCH_SIZE, 1);
+        int threads = this.getConfigValue(CFG_THREADS, 0);
+        if (threads == 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        List<String> consumerUuids = this.consumerCurator.getSystemConsumerUuidsByOwner(ownerKey);
+        int generated = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (List<String> batch : Iterables.partition(consumerUuids, batchSize)) {
+                log.debug("Generating SCA certificates for a batch of {} consumer(s) of owner: {}",
+                    batch.size(), ownerKey);
+
+                List<Consumer> consumers = new ArrayList<>();
+                List<SCACertificate> certs = this.consumerCurator
+                    .<List<SCACertificate>>transactional(args -> {
+                        consumers.addAll(this.consumerCurator.findByUuids(batch));
+                        return this.scaCertificateGenerator.generate(owner, consumers, executor);
+                    })
+                    .execute();
+
+                generated += certs.size();
+                this.detachBatch(consumers, certs);
+            }
+        }
+        catch (Exception e) {
+            log.error("Unable to generate SCA certificates for owner: {}", ownerKey, e);
+            throw new JobExecutionException(e.getMessage(), e, false);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Generated {} SCA certificate(s) for {} consumer(s) of owner: {}", generated,
+            consumerUuids.size(), ownerKey);
+
+        context.setJobResult("Generated %d SCA certificate(s) for %d consumer(s) of organization: %s",
+            generated, consumerUuids.size(), ownerKey);
+    }
+
+    /**
+     * Detaches the entities of a committed batch from the persistence context. The job runs in a
+     * single unit of work, so anything left attached would be retained until the job completes.
+     *
+     * @param consumers
+     *  the consumers processed in the batch
+     *
+     * @param certs
+     *  the certificates generated or updated for the batch
+     */
+    private void detachBatch(Collection<Consumer> consumers, Collection<SCACertificate> certs) {
+        for (SCACertificate cert : certs) {
+            CertificateSerial serial = cert.getSerial();
+            if (serial != null) {
+                this.serialCurator.detach(serial);
+            }
+
+            this.contentAccessCertificateCurator.detach(cert);
+        }
+
+        this.consumerCurator.batchDetach(consumers);
+    }
+
+    private int getConfigValue(String cfgName, int minimum) throws JobExecutionException {
+        String configKey = ConfigProperties.jobConfig(JOB_KEY, cfgName);
+        int value = this.config.getInt(configKey);
+        if (value < minimum) {
+            String errorMessage = String.format(
+                "Invalid value for configuration \"%s\", must be an integer no less than %d: %s",
+                configKey, minimum, value);
+
+            log.error(errorMessage);
+            throw new JobExecutionException(errorMessage, true);
+        }
+
+        return value;
+    }
+
+    /**
+     * Creates a JobConfig configured to execute the SCA certificate generation job. Callers may
+     * further manipulate the JobConfig as necessary before queuing it.
+     *
+     * @return
+     *  a JobConfig instance configured to execute the SCA certificate generation job
+     */
+    public static SCACertificateGenerationJobConfig createJobConfig() {
+        return new SCACertificateGenerationJobConfig();
+    }
+
+    /**
+     * Job configuration object for the SCA certificate generation job
+     */
+    public static class SCACertificateGenerationJobConfig extends
+        JobConfig<SCACertificateGenerationJobConfig> {
+
+        public SCACertificateGenerationJobConfig() {
+            this.setJobKey(JOB_KEY)
+                .setJobName(JOB_NAME)
+                .addConstraint(JobConstraints.uniqueByArguments(OWNER_KEY));
+        }
+
+        /**
+         * Sets the owner for which to generate SCA certificates. The owner is required by this job.
+         *
+         * @param owner
+         *  the owner for which to generate certificates
+         *
+         * @return
+         *  a reference to this job config
+         */
+        public SCACertificateGenerationJobConfig setOwner(Owner owner) {
+            if (owner == null) {
+                throw new IllegalArgumentException("owner is null");
+            }
+
+            this.setContextOwner(owner)
+                .setJobArgument(OWNER_KEY, owner.getKey());
+
+            return this;
+        }
+
+        @Override
+        public void validate() throws JobConfigValidationException {
+            super.validate();
+
+            try {
+                JobArguments arguments = this.getJobArguments();
+
+                String ownerKey = arguments.getAsString(OWNER_KEY);
+                if (ownerKey == null || ownerKey.isEmpty()) {
+                    String errmsg = "owner has not been set, or the provided owner lacks a key";
+                    throw new JobConfigValidationException(errmsg);
+                }
+            }
+            catch (ArgumentConversionException e) {
+                String errmsg = "One or more required arguments are of the wrong type";
+                throw new JobConfigValidationException(errmsg, e);
+            }
+        }
+    }
+}
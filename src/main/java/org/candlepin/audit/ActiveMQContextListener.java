@@ -14,6 +14,7 @@
  */
 package org.candlepin.audit;
 
+import org.candlepin.async.impl.ActiveMQSessionFactory;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.ActiveMQStatusMonitor;
@@ -43,6 +44,13 @@ public class ActiveMQContextListener {
         if (this.messageSource != null) {
             this.messageSource.shutDown();
         }
+
+        // Publish or spool any events still queued, before closing the producers they need
+        injector.getInstance(EventPublisher.class).shutdown();
+
+        // Close any pooled event producers
+        injector.getInstance(ActiveMQSessionFactory.class).close();
+
         try {
             injector.getInstance(ActiveMQStatusMonitor.class).close();
         }
@@ -68,6 +76,9 @@ public class ActiveMQContextListener {
         // Initialize the ActiveMQ status monitor so that client sessions can be established
         // if the broker is active.
         activeMQStatusMonitor.initialize();
+
+        // Start publishing committed events, replaying any spooled by a previous run
+        injector.getInstance(EventPublisher.class).start();
     }
 
     /**
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.audit;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+
+import java.util.Objects;
+
+
+
+/**
+ * A serialized event, along with the type and target properties set on the message carrying it
+ * to the broker.
+ */
+class EventMessage {
+
+    private final String body;
+    private final Event.Type type;
+    private final Event.Target target;
+
+    /**
+     * Creates a new event message.
+     *
+     * @param body
+     *  the serialized event
+     *
+     * @param type
+     *  the type of the event, or null if the type should not be set on the message
+     *
+     * @param target
+     *  the target of the event, or null if the target should not be set on the message
+     */
+    EventMessage(String body, Event.Type type, Event.Target target) {
+        this.body = Objects.requireNonNull(body);
+        this.type = type;
+        this.target = target;
+    }
+
+    String getBody() {
+        return this.body;
+    }
+
+    Event.Type getType() {
+        return this.type;
+    }
+
+    Event.Target getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Creates a durable broker message for this event on the given session.
+     *
+     * @param session
+     *  the session on which to create the message
+     *
+     * @return
+     *  a message carrying this event
+     */
+    ClientMessage toClientMessage(ClientSession session) {
+        ClientMessage message = session.createMessage(ClientMessage.TEXT_TYPE, true);
+        message.getBodyBuffer().writeNullableSimpleString(SimpleString.toSimpleString(this.body));
+
+        // Set the event type and target if provided
+        if (this.type != null) {
+            message.putStringProperty(EventSinkImpl.EVENT_TYPE_KEY, this.type.name());
+        }
+
+        if (this.target != null) {
+            message.putStringProperty(EventSinkImpl.EVENT_TARGET_KEY, this.target.name());
+        }
+
+        return message;
+    }
+
+}
@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.audit;
+
+import org.candlepin.async.impl.ActiveMQSessionFactory;
+import org.candlepin.async.impl.ActiveMQSessionFactory.EgressProducer;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.messaging.SessionPool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Publishes committed events to the broker from background threads, so requests and jobs only
+ * pay the cost of handing their events over rather than that of serializing and sending them.
+ * <p>
+ * Committed events are placed on a bounded queue, which is drained by the configured number of
+ * publisher threads. Each thread serializes and sends up to a batch of events in a single broker
+ * transaction. Batches which cannot be sent, such as while the broker is unavailable, are written
+ * to a local spool file. While the spool holds events, newer events are appended to it as well,
+ * and the spool is periodically replayed in order until the broker accepts its events again.
+ * <p>
+ * The publisher is disabled when the configured number of threads is zero, or before it has been
+ * started, in which case callers are expected to send their events themselves.
+ */
+@Singleton
+public class EventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(EventPublisher.class);
+
+    private static final long POLL_TIMEOUT = 500;
+    private static final long SHUTDOWN_TIMEOUT = 30000;
+
+    private final ActiveMQSessionFactory sessionFactory;
+    private final ObjectMapper mapper;
+
+    private final int threads;
+    private final int batchSize;
+    private final long retryInterval;
+
+    private final BlockingQueue<Event> queue;
+    private final EventSpool spool;
+
+    private volatile boolean running;
+    private List<Thread> publishers;
+    private ScheduledExecutorService replayExecutor;
+
+    private final AtomicLong queued;
+    private final AtomicLong published;
+    private final AtomicLong batches;
+    private final AtomicLong spooled;
+    private final AtomicLong replayed;
+    private final AtomicLong dropped;
+
+    @Inject
+    public EventPublisher(Configuration config, ActiveMQSessionFactory sessionFactory, ObjectMapper mapper)
+        throws ConfigurationException {
+
+        Objects.requireNonNull(config);
+        this.sessionFactory = Objects.requireNonNull(sessionFactory);
+        this.mapper = Objects.requireNonNull(mapper);
+
+        this.threads = config.getInt(ConfigProperties.AUDIT_PUBLISHER_THREADS);
+        if (this.threads < 0) {
+            throw new ConfigurationException(ConfigProperties.AUDIT_PUBLISHER_THREADS +
+                " must be larger than or equal to 0");
+        }
+
+        int queueSize = config.getInt(ConfigProperties.AUDIT_PUBLISHER_QUEUE_SIZE);
+        if (queueSize < 1) {
+            throw new ConfigurationException(ConfigProperties.AUDIT_PUBLISHER_QUEUE_SIZE +
+                " must be larger than 0");
+        }
+
+        this.batchSize = config.getInt(ConfigProperties.AUDIT_PUBLISHER_BATCH_SIZE);
+        if (this.batchSize < 1) {
+            throw new ConfigurationException(ConfigProperties.AUDIT_PUBLISHER_BATCH_SIZE +
+                " must be larger than 0");
+        }
+
+        this.retryInterval = config.getLong(ConfigProperties.AUDIT_PUBLISHER_RETRY_INTERVAL);
+        if (this.retryInterval < 1) {
+            throw new ConfigurationException(ConfigProperties.AUDIT_PUBLISHER_RETRY_INTERVAL +
+                " must be larger than 0");
+        }
+
+        String spoolFile = config.getString(ConfigProperties.AUDIT_PUBLISHER_SPOOL_FILE);
+        if (spoolFile == null || spoolFile.isBlank()) {
+            throw new ConfigurationException(ConfigProperties.AUDIT_PUBLISHER_SPOOL_FILE +
+                " cannot be null or empty");
+        }
+
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.spool = new EventSpool(Paths.get(spoolFile), mapper);
+
+        this.queued = new AtomicLong();
+        this.published = new AtomicLong();
+        this.batches = new AtomicLong();
+        this.spooled = new AtomicLong();
+        this.replayed = new AtomicLong();
+        this.dropped = new AtomicLong();
+    }
+
+    /**
+     * Starts the publisher threads, and the periodic replay of any spooled events. If the
+     * publisher is disabled or has already been started, this method does nothing.
+     */
+    public synchronized void start() {
+        if (this.threads == 0 || this.running) {
+            return;
+        }
+
+        log.info("Starting event publisher with {} thread(s)", this.threads);
+        this.running = true;
+
+        this.publishers = new ArrayList<>(this.threads);
+        for (int i = 0; i < this.threads; ++i) {
+            Thread thread = new Thread(this::runPublisher, "event-publisher-" + i);
+            thread.setDaemon(true);
+            thread.start();
+
+            this.publishers.add(thread);
+        }
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "event-spool-replay");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        // Replay immediately, in case events were spooled by a previous run
+        executor.scheduleWithFixedDelay(this::replaySpool, 0, this.retryInterval, TimeUnit.MILLISECONDS);
+        this.replayExecutor = executor;
+    }
+
+    /**
+     * Stops the publisher, publishing any queued events before returning. Events which cannot be
+     * published in time are spooled, to be replayed once the publisher is started again.
+     */
+    public synchronized void shutdown() {
+        if (!this.running) {
+            return;
+        }
+
+        log.info("Shutting down event publisher; {} queued event(s)", this.queue.size());
+        this.running = false;
+
+        this.replayExecutor.shutdownNow();
+
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+
+        try {
+            for (Thread thread : this.publishers) {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Spool anything left behind by publishers which didn't finish in time
+        List<Event> remaining = new ArrayList<>();
+        this.queue.drainTo(remaining);
+
+        if (!remaining.isEmpty()) {
+            log.warn("Spooling {} unpublished event(s)", remaining.size());
+            this.spool(this.serialize(remaining));
+        }
+
+        this.publishers = null;
+        this.replayExecutor = null;
+    }
+
+    /**
+     * Checks if the publisher is currently accepting events.
+     *
+     * @return
+     *  true if the publisher has been started and is enabled; false otherwise
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Hands the given committed events to the publisher threads. If the queue is full, the events
+     * are spooled instead, to be published once the publisher threads have caught up.
+     *
+     * @param events
+     *  the events to publish
+     *
+     * @return
+     *  true if the events were accepted; false if the publisher is not running, in which case the
+     *  caller must send the events itself
+     */
+    public boolean publish(Collection<Event> events) {
+        Objects.requireNonNull(events);
+
+        if (!this.running) {
+            return false;
+        }
+
+        List<Event> overflow = null;
+        for (Event event : events) {
+            if (overflow == null && this.queue.offer(event)) {
+                this.queued.incrementAndGet();
+                continue;
+            }
+
+            // Keep the rest of the events in order behind the first one that didn't fit
+            if (overflow == null) {
+                overflow = new ArrayList<>();
+            }
+
+            overflow.add(event);
+        }
+
+        if (overflow != null) {
+            log.warn("Event publisher queue is full; spooling {} event(s)", overflow.size());
+            this.spool(this.serialize(overflow));
+        }
+
+        return true;
+    }
+
+    private void runPublisher() {
+        List<Event> batch = new ArrayList<>(this.batchSize);
+
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                Event event = this.queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    continue;
+                }
+
+                batch.add(event);
+                this.queue.drainTo(batch, this.batchSize - 1);
+
+                this.publishBatch(this.serialize(batch));
+            }
+            catch (InterruptedException e) {
+                log.debug("Event publisher thread interrupted");
+            }
+            catch (RuntimeException e) {
+                log.error("Unexpected error publishing events", e);
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private List<EventMessage> serialize(List<Event> events) {
+        List<EventMessage> messages = new ArrayList<>(events.size());
+
+        for (Event event : events) {
+            try {
+                messages.add(new EventMessage(this.mapper.writeValueAsString(event), event.getType(),
+                    event.getTarget()));
+            }
+            catch (IOException e) {
+                log.error("Error while trying to serialize event: {}", event, e);
+                this.dropped.incrementAndGet();
+            }
+        }
+
+        return messages;
+    }
+
+    private void publishBatch(List<EventMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        // Newer events must wait behind those already spooled. Only the replay thread sends
+        // events to the broker while the spool holds events.
+        try {
+            if (this.spool.appendIfPending(messages)) {
+                this.spooled.addAndGet(messages.size());
+                return;
+            }
+        }
+        catch (IOException e) {
+            log.error("Unable to spool {} event(s); events lost", messages.size(), e);
+            this.dropped.addAndGet(messages.size());
+            return;
+        }
+
+        try {
+            this.send(messages);
+            this.published.addAndGet(messages.size());
+
+            return;
+        }
+        catch (Exception e) {
+            log.warn("Unable to publish {} event(s); spooling until the broker is available",
+                messages.size(), e);
+        }
+
+        this.spool(messages);
+    }
+
+    /**
+     * Sends the given events to the broker in a single transaction.
+     */
+    void send(List<EventMessage> messages) throws Exception {
+        SessionPool<EgressProducer> pool = this.sessionFactory.getEgressProducerPool();
+        EgressProducer egress = pool.borrow();
+
+        try {
+            for (EventMessage message : messages) {
+                egress.getProducer().send(MessageAddress.DEFAULT_EVENT_MESSAGE_ADDRESS,
+                    message.toClientMessage(egress.getSession()));
+            }
+
+            egress.getSession().commit();
+        }
+        catch (Exception e) {
+            // Closing the session discards the uncommitted messages
+            pool.invalidate(egress);
+            throw e;
+        }
+
+        pool.release(egress);
+        this.batches.incrementAndGet();
+    }
+
+    private void spool(List<EventMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.spool.append(messages);
+            this.spooled.addAndGet(messages.size());
+        }
+        catch (IOException e) {
+            log.error("Unable to spool {} event(s); events lost", messages.size(), e);
+            this.dropped.addAndGet(messages.size());
+        }
+    }
+
+    /**
+     * Replays any spooled events, in order, to the broker. This is only invoked by the replay
+     * thread, so the spool has a single replay owner.
+     */
+    void replaySpool() {
+        try {
+            int count = this.spool.replay(this.batchSize, this::send);
+            if (count > 0) {
+                log.info("Replayed {} spooled event(s)", count);
+                this.replayed.addAndGet(count);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            log.error("Unable to replay spooled events", e);
+        }
+    }
+
+    /**
+     * Fetches the number of events waiting to be published.
+     *
+     * @return
+     *  the number of queued events
+     */
+    public int getQueueSize() {
+        return this.queue.size();
+    }
+
+    /**
+     * Fetches the number of events handed to the publisher threads.
+     *
+     * @return
+     *  the number of queued events
+     */
+    public long getQueuedCount() {
+        return this.queued.get();
+    }
+
+    /**
+     * Fetches the number of events published directly by the publisher threads.
+     *
+     * @return
+     *  the number of published events
+     */
+    public long getPublishedCount() {
+        return this.published.get();
+    }
+
+    /**
+     * Fetches the number of broker transactions committed by the publisher, including those
+     * replaying spooled events.
+     *
+     * @return
+     *  the number of committed batches
+     */
+    public long getBatchCount() {
+        return this.batches.get();
+    }
+
+    /**
+     * Fetches the number of events written to the spool.
+     *
+     * @return
+     *  the number of spooled events
+     */
+    public long getSpooledCount() {
+        return this.spooled.get();
+    }
+
+    /**
+     * Fetches the number of spooled events replayed to the broker.
+     *
+     * @return
+     *  the number of replayed events
+     */
+    public long getReplayedCount() {
+        return this.replayed.get();
+    }
+
+    /**
+     * Fetches the number of events which could neither be published nor spooled.
+     *
+     * @return
+     *  the number of dropped events
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+}
@@ -15,12 +15,14 @@
 package org.candlepin.audit;
 
 import org.candlepin.async.impl.ActiveMQSessionFactory;
+import org.candlepin.async.impl.ActiveMQSessionFactory.EgressProducer;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.mode.CandlepinModeManager;
 import org.candlepin.controller.mode.CandlepinModeManager.Mode;
 import org.candlepin.dto.api.server.v1.QueueStatus;
 import org.candlepin.dto.manifest.v1.SubscriptionDTO;
 import org.candlepin.guice.CandlepinRequestScoped;
+import org.candlepin.messaging.SessionPool;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.Owner;
 import org.candlepin.model.Pool;
@@ -31,14 +33,12 @@ import org.candlepin.policy.js.compliance.ComplianceStatus;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.SimpleString;
-import org.apache.activemq.artemis.api.core.client.ClientMessage;
-import org.apache.activemq.artemis.api.core.client.ClientProducer;
 import org.apache.activemq.artemis.api.core.client.ClientSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -64,12 +64,14 @@ public class EventSinkImpl implements EventSink {
     private Configuration config;
 
     private ActiveMQSessionFactory sessionFactory;
+    private EventPublisher publisher;
     private EventMessageSender messageSender;
+    private List<Event> pendingEvents;
 
     @Inject
     public EventSinkImpl(EventFilter eventFilter, EventFactory eventFactory,
         ObjectMapper mapper, Configuration config, ActiveMQSessionFactory sessionFactory,
-        CandlepinModeManager modeManager) {
+        CandlepinModeManager modeManager, EventPublisher publisher) {
 
         this.eventFactory = eventFactory;
         this.mapper = mapper;
@@ -77,6 +79,8 @@ public class EventSinkImpl implements EventSink {
         this.modeManager = modeManager;
         this.config = config;
         this.sessionFactory = sessionFactory;
+        this.publisher = publisher;
+        this.pendingEvents = new ArrayList<>();
     }
 
     // FIXME This method really does not belong here. It should probably be moved
@@ -112,7 +116,9 @@ public class EventSinkImpl implements EventSink {
      * Events are filtered, meaning that some of them might not even get into ActiveMQ.
      * Details about the filtering are documented in EventFilter class
      *
-     * ActiveMQ transaction actually manages the queue of events to be sent.
+     * When the event publisher is running, events are held here until they're committed and
+     * then handed to the publisher, which serializes and sends them in the background.
+     * Otherwise, an ActiveMQ transaction manages the queue of events to be sent.
      */
     @Override
     public void queueEvent(Event event) {
@@ -127,6 +133,15 @@ public class EventSinkImpl implements EventSink {
 
         log.debug("Queuing event: {}", event);
 
+        if (this.publisher.isRunning()) {
+            this.pendingEvents.add(event);
+            return;
+        }
+
+        this.queueMessage(event);
+    }
+
+    private void queueMessage(Event event) {
         try {
             // Lazily initialize the message sender when the first
             // message gets queued.
@@ -134,7 +149,8 @@ public class EventSinkImpl implements EventSink {
                 messageSender = new EventMessageSender(this.sessionFactory);
             }
 
-            messageSender.queueMessage(mapper.writeValueAsString(event), event.getType(), event.getTarget());
+            messageSender.queueMessage(
+                new EventMessage(mapper.writeValueAsString(event), event.getType(), event.getTarget()));
         }
         catch (Exception e) {
             log.error("Error while trying to send event", e);
@@ -148,6 +164,16 @@ public class EventSinkImpl implements EventSink {
      */
     @Override
     public void sendEvents() {
+        if (!this.pendingEvents.isEmpty()) {
+            List<Event> events = new ArrayList<>(this.pendingEvents);
+            this.pendingEvents.clear();
+
+            // The publisher may have been stopped since the events were queued
+            if (!this.publisher.publish(events)) {
+                events.forEach(this::queueMessage);
+            }
+        }
+
         if (!hasQueuedMessages()) {
             log.debug("No events to send.");
             return;
@@ -157,6 +183,8 @@ public class EventSinkImpl implements EventSink {
 
     @Override
     public void rollback() {
+        this.pendingEvents.clear();
+
         if (!hasQueuedMessages()) {
             log.debug("No events to roll back.");
             return;
@@ -165,7 +193,7 @@ public class EventSinkImpl implements EventSink {
     }
 
     private boolean hasQueuedMessages() {
-        return messageSender != null;
+        return messageSender != null && messageSender.hasQueuedMessages();
     }
 
     public void emitConsumerCreated(Consumer newConsumer) {
@@ -234,86 +262,74 @@ public class EventSinkImpl implements EventSink {
     }
 
     /**
-     * An internal class responsible for encapsulating a single session to the
-     * event message broker.
+     * An internal class responsible for encapsulating a single transaction on the event message
+     * broker. Messages are buffered until the transaction is committed, and a producer is only
+     * leased from the egress producer pool for the duration of the commit, so a request or job
+     * which never completes cannot hold on to a pooled producer.
      */
     private class EventMessageSender {
 
-        private ActiveMQSessionFactory sessionFactory;
-        private ClientSession session;
-        private ClientProducer producer;
+        private final SessionPool<EgressProducer> pool;
+        private final List<EventMessage> messages;
 
         public EventMessageSender(ActiveMQSessionFactory sessionFactory) {
+            /*
+             * Uses a transacted ActiveMQ session, events will not be dispatched until
+             * commit() is called on it. Either way, the session is then returned to the pool
+             * to be reused by the next request or job emitting events.
+             */
+            this.pool = sessionFactory.getEgressProducerPool();
+            this.messages = new ArrayList<>();
+        }
+
+        public void queueMessage(EventMessage eventMessage) {
+            // NOTE: not actually sent until we commit.
+            this.messages.add(eventMessage);
+        }
+
+        public boolean hasQueuedMessages() {
+            return !this.messages.isEmpty();
+        }
+
+        public void sendMessages() {
+            log.debug("Committing ActiveMQ transaction.");
+            List<EventMessage> messages = new ArrayList<>(this.messages);
+            this.messages.clear();
+
+            EgressProducer egress;
             try {
-                /*
-                 * Uses a transacted ActiveMQ session, events will not be dispatched until
-                 * commit() is called on it, and a call to rollback() will revert any queued
-                 * messages safely and the session is then ready to start over the next time
-                 * the thread is used.
-                 */
-                this.sessionFactory = sessionFactory;
-                session = sessionFactory.getEgressSession(true);
-                producer = session.createProducer(MessageAddress.DEFAULT_EVENT_MESSAGE_ADDRESS);
+                egress = this.pool.borrow();
+                log.debug("Leased message producer: {}", egress);
             }
             catch (Exception e) {
-                throw new RuntimeException(e);
+                log.error("Unable to open session while sending messages", e);
+                return;
             }
-            log.debug("Created new message sender.");
-        }
 
-        public void queueMessage(String eventString, Event.Type type, Event.Target target)
-            throws ActiveMQException {
-            if (session.isClosed()) {
-                try {
-                    session = sessionFactory.getEgressSession(true);
-                    producer = session.createProducer(MessageAddress.DEFAULT_EVENT_MESSAGE_ADDRESS);
-                }
-                catch (Exception e) {
-                    log.error("Unable to open session while queuing messages", e);
-                    throw new RuntimeException(e);
+            try {
+                for (EventMessage message : messages) {
+                    egress.getProducer().send(MessageAddress.DEFAULT_EVENT_MESSAGE_ADDRESS,
+                        message.toClientMessage(egress.getSession()));
                 }
-            }
 
-            ClientMessage message = session.createMessage(ClientMessage.TEXT_TYPE, true);
-            message.getBodyBuffer().writeNullableSimpleString(SimpleString.toSimpleString(eventString));
-
-            // Set the event type and target if provided
-            if (type != null) {
-                message.putStringProperty(EVENT_TYPE_KEY, type.name());
+                egress.getSession().commit();
             }
+            catch (Exception e) {
+                // This would be pretty bad, but we always try not to let event errors
+                // interfere with the operation of the overall application.
+                log.error("Error committing ActiveMQ transaction", e);
 
-            if (target != null) {
-                message.putStringProperty(EVENT_TARGET_KEY, target.name());
+                // Closing the session discards the uncommitted messages
+                this.pool.invalidate(egress);
+                return;
             }
 
-            // NOTE: not actually sent until we commit the session.
-            producer.send(message);
-        }
-
-        public void sendMessages() {
-            log.debug("Committing ActiveMQ transaction.");
-            if (!session.isClosed()) {
-                try (ClientSession toClose = session) {
-                    toClose.commit();
-                }
-                catch (Exception e) {
-                    // This would be pretty bad, but we always try not to let event errors
-                    // interfere with the operation of the overall application.
-                    log.error("Error committing ActiveMQ transaction", e);
-                }
-            }
+            this.pool.release(egress);
         }
 
         public void cancelMessages() {
             log.warn("Rolling back ActiveMQ transaction.");
-            if (!session.isClosed()) {
-                try (ClientSession toClose = session) {
-                    toClose.rollback();
-                }
-                catch (ActiveMQException e) {
-                    log.error("Error rolling back ActiveMQ transaction", e);
-                }
-            }
+            this.messages.clear();
         }
 
     }
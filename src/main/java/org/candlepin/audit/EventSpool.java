@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+
+/**
+ * An append-only file of serialized events which could not be published to the broker. Each
+ * line of the file holds a single event, so the events are replayed in the order in which they
+ * were spooled.
+ * <p>
+ * To replay the spool, the spool file is first moved aside to a replay file, under the same lock
+ * that guards appending to it. The replay file is then streamed to the broker without holding
+ * that lock, so threads spooling new events are never blocked behind the broker; their events
+ * are appended to a new spool file, which is replayed once the replay file has been exhausted.
+ * Only one thread replays the spool at a time.
+ * <p>
+ * Replay is at-least-once: a batch which reached the broker may be replayed again if the node
+ * stops before the spool has been updated.
+ */
+class EventSpool {
+    private static final Logger log = LoggerFactory.getLogger(EventSpool.class);
+
+    private static final String TYPE_FIELD = "type";
+    private static final String TARGET_FIELD = "target";
+    private static final String BODY_FIELD = "body";
+    private static final String REPLAY_SUFFIX = ".replay";
+
+    /**
+     * Sends a batch of replayed events to the broker
+     */
+    @FunctionalInterface
+    interface BatchSender {
+        void send(List<EventMessage> batch) throws Exception;
+    }
+
+    private final Path file;
+    private final Path replayFile;
+    private final ObjectMapper mapper;
+    private final ReentrantLock replayLock;
+
+    private boolean pending;
+
+    /**
+     * Creates a new spool backed by the given file. If the file, or the replay file of an
+     * interrupted replay, already exists, any events it holds from a previous run are pending
+     * replay.
+     *
+     * @param file
+     *  the file in which to spool events
+     *
+     * @param mapper
+     *  the object mapper to use to write and read spooled events
+     */
+    EventSpool(Path file, ObjectMapper mapper) {
+        this.file = Objects.requireNonNull(file);
+        this.replayFile = getReplayFile(file);
+        this.mapper = Objects.requireNonNull(mapper);
+        this.replayLock = new ReentrantLock();
+
+        this.pending = Files.isRegularFile(this.file) || Files.isRegularFile(this.replayFile);
+    }
+
+    /**
+     * Fetches the file to which the given spool file is moved while it is being replayed.
+     *
+     * @param file
+     *  the spool file
+     *
+     * @return
+     *  the replay file of the given spool file
+     */
+    static Path getReplayFile(Path file) {
+        return file.resolveSibling(file.getFileName() + REPLAY_SUFFIX);
+    }
+
+    /**
+     * Checks if the spool holds events which have not yet been replayed.
+     *
+     * @return
+     *  true if events are pending replay; false otherwise
+     */
+    synchronized boolean hasPending() {
+        return this.pending;
+    }
+
+    /**
+     * Appends the given events to the spool.
+     *
+     * @param messages
+     *  the events to spool
+     *
+     * @throws IOException
+     *  if the events cannot be written to the spool file
+     */
+    synchronized void append(Collection<EventMessage> messages) throws IOException {
+        Path parent = this.file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        boolean terminate = this.hasPartialLine();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+
+            // Don't let new events run on from a line cut short by a crash
+            if (terminate) {
+                writer.newLine();
+            }
+
+            for (EventMessage message : messages) {
+                ObjectNode node = this.mapper.createObjectNode()
+                    .put(TYPE_FIELD, message.getType() != null ? message.getType().name() : null)
+                    .put(TARGET_FIELD, message.getTarget() != null ? message.getTarget().name() : null)
+                    .put(BODY_FIELD, message.getBody());
+
+                // The serialized form escapes any line breaks, so each event fits on one line
+                writer.write(this.mapper.writeValueAsString(node));
+                writer.newLine();
+            }
+        }
+
+        this.pending = true;
+    }
+
+    /**
+     * Appends the given events to the spool if, and only if, the spool already holds events
+     * pending replay. The check and the append are performed atomically, so events cannot be
+     * sent ahead of events spooled before them.
+     *
+     * @param messages
+     *  the events to spool
+     *
+     * @throws IOException
+     *  if the events cannot be written to the spool file
+     *
+     * @return
+     *  true if the events were spooled; false if the spool holds no pending events
+     */
+    synchronized boolean appendIfPending(Collection<EventMessage> messages) throws IOException {
+        if (!this.pending) {
+            return false;
+        }
+
+        this.append(messages);
+        return true;
+    }
+
+    /**
+     * Replays the spooled events in order, in batches of the given size. Once every event has
+     * been sent the spool files are removed. If a batch cannot be sent, the events from that batch
+     * onward are kept for the next attempt. If another thread is already replaying the spool, this
+     * method returns immediately.
+     *
+     * @param batchSize
+     *  the maximum number of events to send in each batch
+     *
+     * @param sender
+     *  the sender to use to send each batch
+     *
+     * @throws IOException
+     *  if the spool file cannot be read or updated
+     *
+     * @return
+     *  the number of events replayed
+     */
+    int replay(int batchSize, BatchSender sender) throws IOException {
+        if (!this.replayLock.tryLock()) {
+            return 0;
+        }
+
+        try {
+            int sent = 0;
+
+            // Events spooled while replaying are moved aside and replayed in turn
+            while (this.rotate() && !Thread.currentThread().isInterrupted()) {
+                sent += this.replayFile(batchSize, sender);
+
+                // The replay file is only kept if some of its events could not be sent
+                if (Files.isRegularFile(this.replayFile)) {
+                    break;
+                }
+            }
+
+            return sent;
+        }
+        finally {
+            this.replayLock.unlock();
+        }
+    }
+
+    /**
+     * Ensures that the replay file holds the oldest spooled events, moving the spool file aside if
+     * there is no replay file left over from a previous attempt.
+     *
+     * @return
+     *  true if there are events to replay; false otherwise
+     */
+    private synchronized boolean rotate() throws IOException {
+        if (Files.isRegularFile(this.replayFile)) {
+            return true;
+        }
+
+        if (!Files.isRegularFile(this.file)) {
+            this.pending = false;
+            return false;
+        }
+
+        Files.move(this.file, this.replayFile, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    /**
+     * Streams the replay file to the broker. The replay file is removed once all of its events
+     * have been sent, or trimmed down to the events which could not be sent.
+     *
+     * @return
+     *  the number of events replayed
+     */
+    private int replayFile(int batchSize, BatchSender sender) throws IOException {
+        List<EventMessage> batch = new ArrayList<>(batchSize);
+        int batchLines = 0;
+        long consumed = 0;
+        int sent = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(this.replayFile, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                EventMessage message = this.parse(line);
+                if (message != null) {
+                    batch.add(message);
+                }
+
+                if (++batchLines == batchSize) {
+                    sent += this.sendBatch(batch, sender);
+                    consumed += batchLines;
+                    batchLines = 0;
+                }
+            }
+
+            sent += this.sendBatch(batch, sender);
+        }
+        catch (Exception e) {
+            log.warn("Unable to replay spooled events; {} event(s) replayed before the failure", sent, e);
+
+            this.trim(consumed);
+            return sent;
+        }
+
+        Files.deleteIfExists(this.replayFile);
+        return sent;
+    }
+
+    private int sendBatch(List<EventMessage> batch, BatchSender sender) throws Exception {
+        int size = batch.size();
+        if (size > 0) {
+            sender.send(new ArrayList<>(batch));
+            batch.clear();
+        }
+
+        return size;
+    }
+
+    /**
+     * Checks if the spool file ends with an unterminated line
+     */
+    private boolean hasPartialLine() throws IOException {
+        if (!Files.isRegularFile(this.file)) {
+            return false;
+        }
+
+        try (SeekableByteChannel channel = Files.newByteChannel(this.file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return false;
+            }
+
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(size - 1).read(last);
+
+            return last.get(0) != '\n';
+        }
+    }
+
+    private EventMessage parse(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+
+        try {
+            JsonNode node = this.mapper.readTree(line);
+
+            JsonNode type = node.get(TYPE_FIELD);
+            JsonNode target = node.get(TARGET_FIELD);
+
+            return new EventMessage(node.get(BODY_FIELD).asText(),
+                type != null && !type.isNull() ? Event.Type.valueOf(type.asText()) : null,
+                target != null && !target.isNull() ? Event.Target.valueOf(target.asText()) : null);
+        }
+        catch (IOException | RuntimeException e) {
+            // A partially written line from a crash; nothing can be recovered from it
+            log.error("Discarding unreadable spooled event: {}", line, e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes the given number of lines, which have already been replayed, from the start of the
+     * replay file.
+     */
+    private void trim(long lines) throws IOException {
+        if (lines == 0) {
+            return;
+        }
+
+        Path temp = Files.createTempFile(this.replayFile.toAbsolutePath().getParent(), "event-spool", ".tmp");
+
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(this.replayFile, StandardCharsets.UTF_8);
+                BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+
+                long skipped = 0;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (skipped++ < lines) {
+                        continue;
+                    }
+
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+
+            Files.move(temp, this.replayFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+}
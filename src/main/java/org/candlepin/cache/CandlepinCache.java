@@ -14,9 +14,22 @@
  */
 package org.candlepin.cache;
 
+import org.candlepin.dto.api.server.v1.CacheRegionStatisticsDTO;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.cache.CacheManager;
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
+import javax.persistence.EntityManagerFactory;
 
 /**
  * Wrapper that makes it easier to retrieve various caches in Candlepin
@@ -25,6 +38,8 @@ import javax.inject.Singleton;
  */
 @Singleton
 public class CandlepinCache {
+    private static final Logger log = LoggerFactory.getLogger(CandlepinCache.class);
+
     /**
      * Cache manager for Ehcache configured caches.
      */
@@ -36,9 +51,12 @@ public class CandlepinCache {
      */
     private StatusCache statusCache;
 
+    private Provider<EntityManagerFactory> emfProvider;
+
     @Inject
-    public CandlepinCache(CacheManager cacheManager) {
+    public CandlepinCache(CacheManager cacheManager, Provider<EntityManagerFactory> emfProvider) {
         this.cacheManager = cacheManager;
+        this.emfProvider = emfProvider;
         // Safe to create this as many times as you'd like
         // since the same static Status instance will be
         // reused across all instances.
@@ -55,4 +73,51 @@ public class CandlepinCache {
         return this.statusCache;
     }
 
+    /**
+     * Retrieves usage statistics for the second-level cache regions of the product and content
+     * entities. Statistics are only available when Hibernate statistics are enabled with
+     * jpa.config.hibernate.generate_statistics; if they are not, or cannot be retrieved, this
+     * method returns an empty list.
+     *
+     * @return
+     *  a list of statistics for each entity cache region
+     */
+    public List<CacheRegionStatisticsDTO> getEntityCacheStatistics() {
+        List<CacheRegionStatisticsDTO> output = new ArrayList<>();
+
+        Statistics statistics;
+        try {
+            statistics = this.emfProvider.get()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        }
+        catch (RuntimeException e) {
+            log.debug("Unable to retrieve Hibernate statistics", e);
+            return output;
+        }
+
+        if (statistics == null || !statistics.isStatisticsEnabled()) {
+            return output;
+        }
+
+        for (String region : CandlepinCacheRegions.ENTITY_REGIONS) {
+            try {
+                CacheRegionStatistics regionStats = statistics.getDomainDataRegionStatistics(region);
+
+                output.add(new CacheRegionStatisticsDTO()
+                    .region(region)
+                    .hitCount(regionStats.getHitCount())
+                    .missCount(regionStats.getMissCount())
+                    .putCount(regionStats.getPutCount())
+                    .elementCount(regionStats.getElementCountInMemory()));
+            }
+            catch (IllegalArgumentException e) {
+                // The region has not been built by the region factory; nothing to report
+                log.debug("No second-level cache region found: {}", region);
+            }
+        }
+
+        return output;
+    }
+
 }
@@ -14,6 +14,8 @@
  */
 package org.candlepin.cache;
 
+import java.util.List;
+
 /**
  * Make sure that constants in this file are in sync with what is
  * in ehcache*xml
@@ -21,6 +23,22 @@ package org.candlepin.cache;
 public class CandlepinCacheRegions {
     public static final String FIVE_SECONDS_QUERY_CACHE = "query-5-seconds";
 
+    // Second-level cache regions for the product and content entities and their collections
+    public static final String PRODUCT = "org.candlepin.model.Product";
+    public static final String PRODUCT_ATTRIBUTES = PRODUCT + ".attributes";
+    public static final String PRODUCT_CONTENT = PRODUCT + ".productContent";
+    public static final String PRODUCT_DEPENDENT_PRODUCT_IDS = PRODUCT + ".dependentProductIds";
+    public static final String PRODUCT_BRANDING = PRODUCT + ".branding";
+    public static final String PRODUCT_PROVIDED_PRODUCTS = PRODUCT + ".providedProducts";
+    public static final String CONTENT = "org.candlepin.model.Content";
+    public static final String CONTENT_MODIFIED_PRODUCT_IDS = CONTENT + ".modifiedProductIds";
+    public static final String PRODUCT_CONTENT_ENTITY = "org.candlepin.model.ProductContent";
+    public static final String BRANDING = "org.candlepin.model.Branding";
+
+    public static final List<String> ENTITY_REGIONS = List.of(PRODUCT, PRODUCT_ATTRIBUTES, PRODUCT_CONTENT,
+        PRODUCT_DEPENDENT_PRODUCT_IDS, PRODUCT_BRANDING, PRODUCT_PROVIDED_PRODUCTS, CONTENT,
+        CONTENT_MODIFIED_PRODUCT_IDS, PRODUCT_CONTENT_ENTITY, BRANDING);
+
     private CandlepinCacheRegions() {
 
     }
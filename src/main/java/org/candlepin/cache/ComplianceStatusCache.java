@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A thread safe cache of calculated consumer compliance statuses.
+ * <p>
+ * Entries are keyed on the consumer's UUID and a hash of every input of the compliance calculation,
+ * so any change to the consumer's facts, installed products, entitlements or guests will naturally
+ * result in a cache miss. Entries are also evicted based on a time-to-live eviction policy, and may
+ * be explicitly evicted for a given consumer.
+ * <p>
+ * The cache is disabled when its maximum number of entries is configured as zero.
+ */
+@Singleton
+public class ComplianceStatusCache {
+
+    /**
+     * The key used to look up a cached compliance status.
+     */
+    public record Key(String consumerUuid, String inputHash) {
+
+        public Key {
+            Objects.requireNonNull(consumerUuid);
+            Objects.requireNonNull(inputHash);
+        }
+    }
+
+    private final Cache<Key, ComplianceStatusDTO> cache;
+    private final boolean enabled;
+
+    @Inject
+    public ComplianceStatusCache(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        long expirationDuration = config.getLong(ConfigProperties.CACHE_COMPLIANCE_STATUS_TTL);
+        if (expirationDuration <= 0) {
+            String msg = ConfigProperties.CACHE_COMPLIANCE_STATUS_TTL + " value must be larger than 0";
+            throw new ConfigurationException(msg);
+        }
+
+        long maxEntries = config.getLong(ConfigProperties.CACHE_COMPLIANCE_STATUS_MAX_ENTRIES);
+        if (maxEntries < 0) {
+            String msg = ConfigProperties.CACHE_COMPLIANCE_STATUS_MAX_ENTRIES +
+                " must be larger than or equal to 0";
+            throw new ConfigurationException(msg);
+        }
+
+        this.enabled = maxEntries > 0;
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(expirationDuration))
+            .maximumSize(maxEntries)
+            .build();
+    }
+
+    /**
+     * Checks if this cache is enabled.
+     *
+     * @return
+     *  true if this cache has a non-zero maximum size; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Retrieves the cached compliance status for the provided key.
+     *
+     * @param key
+     *  the key of the cached status to retrieve
+     *
+     * @throws IllegalArgumentException
+     *  if the provided key is null
+     *
+     * @return
+     *  the cached compliance status, or null if the status is not present in the cache
+     */
+    public ComplianceStatusDTO get(Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+
+        return this.cache.getIfPresent(key);
+    }
+
+    /**
+     * Inserts the compliance status into the cache for the provided key. An existing entry in the
+     * cache for the same key will be replaced. Cached statuses are shared between callers, and
+     * must not be modified once inserted.
+     *
+     * @param key
+     *  the key to associate the status with in the cache
+     *
+     * @param status
+     *  the compliance status to insert into the cache
+     *
+     * @throws IllegalArgumentException
+     *  if the provided key or status is null
+     */
+    public void put(Key key, ComplianceStatusDTO status) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+
+        if (status == null) {
+            throw new IllegalArgumentException("status is null");
+        }
+
+        if (this.enabled) {
+            this.cache.put(key, status);
+        }
+    }
+
+    /**
+     * Removes all cached compliance statuses for the consumer with the provided UUID.
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer for which to remove cached statuses
+     *
+     * @throws IllegalArgumentException
+     *  if the provided consumer UUID is null
+     */
+    public void removeConsumer(String consumerUuid) {
+        if (consumerUuid == null) {
+            throw new IllegalArgumentException("consumer UUID is null");
+        }
+
+        this.cache.asMap().keySet().removeIf(key -> consumerUuid.equals(key.consumerUuid()));
+    }
+
+    /**
+     * Clears all entries in the cache
+     */
+    public void removeAll() {
+        this.cache.invalidateAll();
+    }
+
+}
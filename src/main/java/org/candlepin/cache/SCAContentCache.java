@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.model.Environment;
+import org.candlepin.model.Owner;
+import org.candlepin.model.dto.Product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A thread safe, owner-scoped cache for the content portion of simple content access certificates.
+ * <p>
+ * The content product model built for an SCA certificate payload only depends on the owner's active
+ * content, the consumer's environments and the consumer's architectures. Entries are keyed on those
+ * inputs along with the owner's last content update time, so any change to the owner's content view
+ * will naturally result in a cache miss. Entries are also evicted based on a time-to-live eviction
+ * policy, and may be explicitly evicted for a given owner.
+ */
+@Singleton
+public class SCAContentCache {
+
+    /**
+     * The key used to look up cached SCA content. Environments are order-sensitive, as their
+     * priority affects the content paths generated for the consumer.
+     */
+    public record Key(String ownerId, long lastContentUpdate, String ownerContentPrefix,
+        List<String> environments, Set<String> arches) {
+
+        public Key {
+            Objects.requireNonNull(ownerId);
+            Objects.requireNonNull(environments);
+            Objects.requireNonNull(arches);
+        }
+
+        /**
+         * Builds a key for the given owner, consumer environments and consumer architectures.
+         *
+         * @param owner
+         *  the owner of the consumer for which content is being generated
+         *
+         * @param environments
+         *  the consumer's environments, in priority order
+         *
+         * @param arches
+         *  the consumer's architectures
+         *
+         * @throws IllegalArgumentException
+         *  if owner is null, or owner does not have an ID
+         *
+         * @return
+         *  a key for the provided content inputs
+         */
+        public static Key of(Owner owner, List<Environment> environments, Collection<String> arches) {
+            if (owner == null || owner.getId() == null) {
+                throw new IllegalArgumentException("owner is null or lacks an ID");
+            }
+
+            List<String> envKeys = new ArrayList<>();
+            if (environments != null) {
+                for (Environment environment : environments) {
+                    // Include the name and prefix, as both are used when building content paths
+                    envKeys.add(String.join(":", environment.getId(), environment.getName(),
+                        String.valueOf(environment.getContentPrefix())));
+                }
+            }
+
+            Set<String> archKeys = new TreeSet<>();
+            if (arches != null) {
+                archKeys.addAll(arches);
+            }
+
+            return new Key(owner.getId(), owner.getLastContentUpdate().getTime(), owner.getContentPrefix(),
+                List.copyOf(envKeys), archKeys);
+        }
+    }
+
+    private final Cache<Key, Product> cache;
+
+    @Inject
+    public SCAContentCache(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        long expirationDuration = config.getLong(ConfigProperties.CACHE_SCA_CONTENT_TTL);
+        if (expirationDuration <= 0) {
+            String msg = ConfigProperties.CACHE_SCA_CONTENT_TTL + " value must be larger than 0";
+            throw new ConfigurationException(msg);
+        }
+
+        long maxEntries = config.getLong(ConfigProperties.CACHE_SCA_CONTENT_MAX_ENTRIES);
+        if (maxEntries < 0) {
+            String msg = ConfigProperties.CACHE_SCA_CONTENT_MAX_ENTRIES +
+                " must be larger than or equal to 0";
+            throw new ConfigurationException(msg);
+        }
+
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(expirationDuration))
+            .maximumSize(maxEntries)
+            .build();
+    }
+
+    /**
+     * Retrieves the cached SCA content product for the provided key.
+     *
+     * @param key
+     *  the key of the cached content to retrieve
+     *
+     * @throws IllegalArgumentException
+     *  if the provided key is null
+     *
+     * @return
+     *  the cached SCA content product, or null if the content is not present in the cache
+     */
+    public Product get(Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+
+        return this.cache.getIfPresent(key);
+    }
+
+    /**
+     * Retrieves the cached SCA content product for the provided key, building and caching it with
+     * the given supplier if it is not present. Concurrent lookups for the same key will wait for a
+     * single build rather than building the content multiple times.
+     *
+     * @param key
+     *  the key of the cached content to retrieve
+     *
+     * @param supplier
+     *  the supplier to use to build the content if it is not present in the cache
+     *
+     * @throws IllegalArgumentException
+     *  if the provided key or supplier is null
+     *
+     * @return
+     *  the cached or newly built SCA content product
+     */
+    public Product get(Key key, Supplier<Product> supplier) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+
+        if (supplier == null) {
+            throw new IllegalArgumentException("supplier is null");
+        }
+
+        return this.cache.get(key, k -> supplier.get());
+    }
+
+    /**
+     * Inserts the SCA content product into the cache for the provided key. An existing entry in the
+     * cache for the same key will be replaced.
+     *
+     * @param key
+     *  the key to associate the content with in the cache
+     *
+     * @param content
+     *  the SCA content product to insert into the cache
+     *
+     * @throws IllegalArgumentException
+     *  if the provided key or content is null
+     */
+    public void put(Key key, Product content) {
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+
+        if (content == null) {
+            throw new IllegalArgumentException("content is null");
+        }
+
+        this.cache.put(key, content);
+    }
+
+    /**
+     * Removes all cached SCA content for the owner with the provided ID.
+     *
+     * @param ownerId
+     *  the ID of the owner for which to remove cached content
+     *
+     * @throws IllegalArgumentException
+     *  if the provided owner ID is null
+     */
+    public void removeOwner(String ownerId) {
+        if (ownerId == null) {
+            throw new IllegalArgumentException("owner ID is null");
+        }
+
+        this.cache.asMap().keySet().removeIf(key -> ownerId.equals(key.ownerId()));
+    }
+
+    /**
+     * Clears all entries in the cache
+     */
+    public void removeAll() {
+        this.cache.invalidateAll();
+    }
+
+}
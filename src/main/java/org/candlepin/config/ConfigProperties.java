@@ -20,11 +20,13 @@ import org.candlepin.async.tasks.ActiveEntitlementJob;
 import org.candlepin.async.tasks.CertificateCleanupJob;
 import org.candlepin.async.tasks.EntitlerJob;
 import org.candlepin.async.tasks.ExpiredPoolsCleanupJob;
+import org.candlepin.async.tasks.HealEntireOrgJob;
 import org.candlepin.async.tasks.ImportRecordCleanerJob;
 import org.candlepin.async.tasks.InactiveConsumerCleanerJob;
 import org.candlepin.async.tasks.JobCleaner;
 import org.candlepin.async.tasks.ManifestCleanerJob;
 import org.candlepin.async.tasks.RevokeEntitlementsJob;
+import org.candlepin.async.tasks.SCACertificateGenerationJob;
 import org.candlepin.async.tasks.UnmappedGuestEntitlementCleanerJob;
 import org.candlepin.config.validation.ConfigurationValidator;
 import org.candlepin.config.validation.IntegerConfigurationValidator;
@@ -59,9 +61,45 @@ public class ConfigProperties {
     public static final String CA_KEY = "candlepin.ca_key";
     public static final String CA_CERT = "candlepin.ca_cert";
     public static final String FAIL_ON_UNKNOWN_IMPORT_PROPERTIES = "candlepin.importer.fail_on_unknown";
+
+    /**
+     * The number of threads used to decode the sections of a manifest while it is being read
+     * during an import. A thread count of zero decodes every section on the thread reading the
+     * manifest.
+     */
+    public static final String IMPORT_DECODE_THREADS = "candlepin.importer.decode_threads";
+
     public static final String CA_CERT_UPSTREAM = "candlepin.upstream_ca_cert";
     public static final String CA_KEY_PASSWORD = "candlepin.ca_key_password";
 
+    /**
+     * Pre-generated key pair pool. The pool holds up to the configured size of key pairs, generated
+     * in the background by the configured number of refill threads. A size of zero disables the
+     * pool, in which case key pairs are always generated inline.
+     */
+    public static final String KEYPAIR_POOL_SIZE = "candlepin.pki.keypair_pool.size";
+    public static final String KEYPAIR_POOL_REFILL_THREADS = "candlepin.pki.keypair_pool.refill_threads";
+    public static final String KEYPAIR_POOL_LOW_WATER_MARK = "candlepin.pki.keypair_pool.low_water_mark";
+
+    /**
+     * Certificate signing pool. Certificates are built and signed by the configured number of worker
+     * threads, with up to the configured queue size of certificates waiting for a worker before the
+     * requesting thread builds them itself. A thread count of zero disables the pool, in which case
+     * certificates are always built on the requesting thread.
+     */
+    public static final String CERT_SIGNING_THREADS = "candlepin.pki.signing_pool.threads";
+    public static final String CERT_SIGNING_QUEUE_SIZE = "candlepin.pki.signing_pool.queue_size";
+
+    /**
+     * Write-behind consumer check-in recording. Check-ins are coalesced per consumer in memory and
+     * written in batches of up to the configured batch size at the configured flush interval, in
+     * milliseconds, or as soon as the configured number of consumers have pending check-ins. A flush
+     * interval of zero disables write-behind, in which case check-ins are written immediately.
+     */
+    public static final String CHECKIN_FLUSH_INTERVAL = "candlepin.consumer.checkin.flush_interval";
+    public static final String CHECKIN_MAX_PENDING = "candlepin.consumer.checkin.max_pending";
+    public static final String CHECKIN_BATCH_SIZE = "candlepin.consumer.checkin.batch_size";
+
     /*
      * XXX The actual property key refers to HornetQ which was ActiveMQ's ancestor. We have to keep the
      * key unchanged for compatibility reasons. These are deprecated, however, and should be replaced by
@@ -122,6 +160,30 @@ public class ConfigProperties {
      */
     public static final String AUDIT_FILTER_DEFAULT_POLICY = "candlepin.audit.filter.policy";
 
+    /**
+     * The number of background threads publishing committed events to the broker. When set to 0,
+     * events are published on the request or job thread at commit time. Events are only
+     * guaranteed to reach the broker in the order in which they were committed with a single
+     * thread.
+     */
+    public static final String AUDIT_PUBLISHER_THREADS = "candlepin.audit.publisher.threads";
+    /**
+     * The maximum number of committed events waiting to be published
+     */
+    public static final String AUDIT_PUBLISHER_QUEUE_SIZE = "candlepin.audit.publisher.queue_size";
+    /**
+     * The maximum number of events published in a single broker transaction
+     */
+    public static final String AUDIT_PUBLISHER_BATCH_SIZE = "candlepin.audit.publisher.batch_size";
+    /**
+     * The file to which events are spooled while the broker is unavailable
+     */
+    public static final String AUDIT_PUBLISHER_SPOOL_FILE = "candlepin.audit.publisher.spool_file";
+    /**
+     * The interval, in milliseconds, at which replaying spooled events is attempted
+     */
+    public static final String AUDIT_PUBLISHER_RETRY_INTERVAL = "candlepin.audit.publisher.retry_interval";
+
     public static final String PRETTY_PRINT = "candlepin.pretty_print";
     public static final String ACTIVATION_DEBUG_PREFIX = "candlepin.subscription.activation.debug_prefix";
 
@@ -155,6 +217,15 @@ public class ConfigProperties {
     // Messaging
     public static final String CPM_PROVIDER = "candlepin.messaging.provider";
 
+    /**
+     * The maximum number of transacted messaging sessions held by each of the event and job
+     * message session pools, and the time, in milliseconds, to wait for a session to become
+     * available once that many are in use.
+     */
+    public static final String MESSAGING_SESSION_POOL_SIZE = "candlepin.messaging.session_pool.max_size";
+    public static final String MESSAGING_SESSION_POOL_MAX_WAIT =
+        "candlepin.messaging.session_pool.max_wait";
+
     // OCSP stapling
     public static final String SSL_VERIFY = "candlepin.sslverifystatus";
 
@@ -178,10 +249,21 @@ public class ConfigProperties {
     public static final String DB_URL = JPA_CONFIG_PREFIX + "hibernate.connection.url";
     public static final String DB_USERNAME = JPA_CONFIG_PREFIX + "hibernate.connection.username";
     public static final String DB_PASSWORD = JPA_CONFIG_PREFIX + "hibernate.connection.password";
+    /**
+     * Whether Hibernate collects statistics, such as the second-level cache region statistics
+     * reported by the admin resource. Collecting statistics adds overhead to every session.
+     */
+    public static final String DB_GENERATE_STATISTICS = JPA_CONFIG_PREFIX + "hibernate.generate_statistics";
 
     // Database
     public static final String DB_MAX_CONNECTION_ATTEMPTS = "candlepin.db.max_connection_attempts";
     public static final String DB_CONNECTION_RETRY_INTERVAL = "candlepin.db.retry_interval";
+    /**
+     * Whether Hibernate batches the JDBC statements it issues when flushing. When enabled, the
+     * batch size defaults to db.config.batch.block.size, and inserts and updates are ordered by
+     * entity; any of these settings may still be overridden through jpa.config.* properties.
+     */
+    public static final String DB_JDBC_BATCHING = "candlepin.db.jdbc_batching";
 
     // Cache
     public static final String CACHE_JMX_STATS = "cache.jmx.statistics";
@@ -189,6 +271,15 @@ public class ConfigProperties {
     public static final String CACHE_ANON_CERT_CONTENT_TTL = "candlepin.cache.anonymous.cert.content.ttl";
     public static final String CACHE_ANON_CERT_CONTENT_MAX_ENTRIES =
         "candlepin.cache.anonymous.cert.content.max_entries";
+    public static final String CACHE_SCA_CONTENT_TTL = "candlepin.cache.sca.content.ttl";
+    public static final String CACHE_SCA_CONTENT_MAX_ENTRIES = "candlepin.cache.sca.content.max_entries";
+    public static final String CACHE_COMPLIANCE_STATUS_TTL = "candlepin.cache.compliance_status.ttl";
+    public static final String CACHE_COMPLIANCE_STATUS_MAX_ENTRIES =
+        "candlepin.cache.compliance_status.max_entries";
+    public static final String CACHE_CONTENT_PAYLOAD_MAX_ENTRIES =
+        "candlepin.cache.content_payload.max_entries";
+    public static final String CACHE_POOL_JSON_TTL = "candlepin.cache.pool_json.ttl";
+    public static final String CACHE_POOL_JSON_MAX_ENTRIES = "candlepin.cache.pool_json.max_entries";
 
     // Paging
     public static final String PAGING_DEFAULT_PAGE_SIZE = "candlepin.paging.default_page_size";
@@ -210,6 +301,18 @@ public class ConfigProperties {
     public static final String ENV_CONTENT_FILTERING = "candlepin.environment_content_filtering";
     public static final String USE_SYSTEM_UUID_FOR_MATCHING = "candlepin.use_system_uuid_for_matching";
 
+    /**
+     * The number of hypervisors of a hypervisor report reconciled in each transaction
+     */
+    public static final String HYPERVISOR_UPDATE_CHUNK_SIZE = "candlepin.hypervisor.update.chunk_size";
+
+    /**
+     * Whether or not hypervisors whose reported name, facts and guests are unchanged since the
+     * previous report are only checked in, rather than fully reconciled
+     */
+    public static final String HYPERVISOR_UPDATE_SKIP_UNCHANGED =
+        "candlepin.hypervisor.update.skip_unchanged";
+
     public static final String CONSUMER_SYSTEM_NAME_PATTERN = "candlepin.consumer_system_name_pattern";
     public static final String CONSUMER_PERSON_NAME_PATTERN = "candlepin.consumer_person_name_pattern";
 
@@ -219,6 +322,48 @@ public class ConfigProperties {
 
     public static final String PRODUCT_CACHE_MAX = "candlepin.cache.product_cache_max";
 
+    /**
+     * The number of pools fetched and filtered by rules at a time when listing a page of the pools
+     * available to a consumer or activation key. Listing stops as soon as the requested page is full.
+     */
+    public static final String POOL_LISTING_CHUNK_SIZE = "candlepin.pool.listing.chunk_size";
+
+    /**
+     * The rules namespaces, such as "compliance_name_space", for which rules functions are passed
+     * their arguments as native javascript objects rather than as JSON. Has no effect when the
+     * loaded rules do not support native contexts.
+     */
+    public static final String RULES_NATIVE_CONTEXT_NAMESPACES = "candlepin.rules.native_context.namespaces";
+
+    /**
+     * The number of pre-built javascript execution scopes retained for reuse by rules invocations.
+     * Scopes are rebuilt whenever the rules are recompiled. A value of zero disables pooling.
+     */
+    public static final String RULES_SCOPE_POOL_SIZE = "candlepin.rules.scope_pool.size";
+
+    /**
+     * The directory in which compiled javascript rules are cached, so nodes restarting with the
+     * same rules can skip compiling them. The directory must be owned by, and only writable by, the
+     * user running Candlepin. Empty by default, which disables the cache.
+     */
+    public static final String RULES_BYTECODE_CACHE_DIR = "candlepin.rules.bytecode_cache.dir";
+
+    /**
+     * The engine used to calculate consumer compliance status: "RULES" to use the javascript rules,
+     * "JAVA" to use the native implementation, or "DIFFERENTIAL" to run both, reporting any
+     * difference between them while continuing to use the result of the rules.
+     */
+    public static final String COMPLIANCE_ENGINE = "candlepin.compliance.engine";
+
+    /**
+     * The number of worker threads shared by bulk compliance evaluations, such as fetching the
+     * compliance status of many consumers at once, and the maximum number of consumers a single
+     * bulk evaluation evaluates concurrently. A thread count of zero disables the pool, in which
+     * case consumers are evaluated one at a time on the requesting thread.
+     */
+    public static final String COMPLIANCE_BULK_THREADS = "candlepin.compliance.bulk.threads";
+    public static final String COMPLIANCE_BULK_MAX_CONCURRENCY = "candlepin.compliance.bulk.max_concurrency";
+
     public static final String CONSUMER_MIGRATION_BATCH_SIZE = "candlepin.consumer.migration.batch.size";
     public static final String INTEGER_FACTS = "candlepin.integer_facts";
     private static final String INTEGER_FACT_LIST = "";
@@ -305,6 +450,28 @@ public class ConfigProperties {
     // How long (in seconds) to wait for job threads to finish during a graceful Tomcat shutdown
     public static final String ASYNC_JOBS_THREAD_SHUTDOWN_TIMEOUT = "candlepin.async.thread.shutdown.timeout";
 
+    // How often (in milliseconds) the in-memory index of active jobs used for evaluating job
+    // constraints is resynchronized with the database, and waiting jobs are rechecked
+    public static final String ASYNC_JOBS_CONSTRAINT_INDEX_REFRESH_INTERVAL =
+        "candlepin.async.constraint_index.refresh_interval";
+
+    // Job lanes, each of which receives its own job consumers and may limit the number of active
+    // jobs per owner. Jobs not assigned to a lane run in the default lane, which uses the thread
+    // count above. The full syntax for lane configuration is "PREFIX.{lane}.SUFFIX". For instance,
+    // to give the import and export jobs two dedicated threads, with one active job per owner:
+    // candlepin.async.lanes=bulk
+    // candlepin.async.lanes.bulk.jobs=ImportJob,ExportJob
+    // candlepin.async.lanes.bulk.threads=2
+    // candlepin.async.lanes.bulk.owner_limit=1
+    public static final String ASYNC_JOBS_LANES = "candlepin.async.lanes";
+    public static final String ASYNC_JOBS_LANE_PREFIX = "candlepin.async.lanes.";
+    public static final String ASYNC_JOBS_LANE_JOBS = "jobs";
+    public static final String ASYNC_JOBS_LANE_THREADS = "threads";
+    public static final String ASYNC_JOBS_LANE_OWNER_LIMIT = "owner_limit";
+
+    // The maximum number of active jobs per owner in the default lane; zero for no limit
+    public static final String ASYNC_JOBS_OWNER_LIMIT = "candlepin.async.owner_limit";
+
     /** The list of content fields which cannot be overridden, comma delimited; defaults to "baseurl" */
     public static final String CONTENT_OVERRIDE_BLOCKLIST = "candlepin.content.overrides.blocklist";
 
@@ -345,6 +512,24 @@ public class ConfigProperties {
         return builder.toString();
     }
 
+    /**
+     * Fetches a configuration string for the given configuration for the specified job lane.
+     *
+     * @param lane
+     *  the name of the lane for which to build the configuration string
+     *
+     * @return
+     *  the configuration string for the given configuration for the specified lane
+     */
+    public static String laneConfig(String lane, String cfgName) {
+        StringBuilder builder = new StringBuilder(ASYNC_JOBS_LANE_PREFIX)
+            .append(lane)
+            .append('.')
+            .append(cfgName);
+
+        return builder.toString();
+    }
+
     public static final String ENTITLER_BULK_SIZE = "entitler.bulk.size";
 
     public static final Map<String, String> DEFAULT_PROPERTIES = new HashMap<>() {
@@ -356,6 +541,7 @@ public class ConfigProperties {
             // Database connection
             this.put(DB_CONNECTION_RETRY_INTERVAL, "5"); // seconds
             this.put(DB_MAX_CONNECTION_ATTEMPTS, "3");
+            this.put(DB_JDBC_BATCHING, "false");
 
             this.put(JWT_ISSUER, "Candlepin");
             this.put(JWT_TOKEN_TTL, "600"); // seconds
@@ -365,9 +551,22 @@ public class ConfigProperties {
             this.put(CA_CERT, "/etc/candlepin/certs/candlepin-ca.crt");
             this.put(CA_CERT_UPSTREAM, "/etc/candlepin/certs/upstream");
 
+            this.put(KEYPAIR_POOL_SIZE, "20");
+            this.put(KEYPAIR_POOL_REFILL_THREADS, "1");
+            this.put(KEYPAIR_POOL_LOW_WATER_MARK, "5");
+
+            this.put(CERT_SIGNING_THREADS, "4");
+            this.put(CERT_SIGNING_QUEUE_SIZE, "64");
+
+            this.put(CHECKIN_FLUSH_INTERVAL, "5000");
+            this.put(CHECKIN_MAX_PENDING, "50000");
+            this.put(CHECKIN_BATCH_SIZE, "1000");
+
             this.put(ACTIVATION_DEBUG_PREFIX, "");
 
             this.put(CPM_PROVIDER, "artemis");
+            this.put(MESSAGING_SESSION_POOL_SIZE, "32");
+            this.put(MESSAGING_SESSION_POOL_MAX_WAIT, "5000");
 
             this.put(ACTIVEMQ_ENABLED, "true");
             this.put(ACTIVEMQ_EMBEDDED, "true");
@@ -405,6 +604,12 @@ public class ConfigProperties {
             this.put(AUDIT_FILTER_DO_FILTER, "");
             this.put(AUDIT_FILTER_DEFAULT_POLICY, "DO_FILTER");
 
+            this.put(AUDIT_PUBLISHER_THREADS, "1");
+            this.put(AUDIT_PUBLISHER_QUEUE_SIZE, "10000");
+            this.put(AUDIT_PUBLISHER_BATCH_SIZE, "100");
+            this.put(AUDIT_PUBLISHER_SPOOL_FILE, "/var/lib/candlepin/event-spool.log");
+            this.put(AUDIT_PUBLISHER_RETRY_INTERVAL, "10000");
+
             this.put(PRETTY_PRINT, "false");
 
             this.put(SYNC_WORK_DIR, "/var/cache/candlepin/sync");
@@ -426,11 +631,20 @@ public class ConfigProperties {
             this.put(SSL_VERIFY, "false");
 
             this.put(FAIL_ON_UNKNOWN_IMPORT_PROPERTIES, "false");
+            this.put(IMPORT_DECODE_THREADS, "4");
 
             this.put(CACHE_JMX_STATS, "false");
             this.put(CACHE_CONFIG_FILE_URI, "ehcache.xml");
+            this.put(DB_GENERATE_STATISTICS, "false");
             this.put(CACHE_ANON_CERT_CONTENT_TTL, "120000"); // milliseconds
             this.put(CACHE_ANON_CERT_CONTENT_MAX_ENTRIES, "10000");
+            this.put(CACHE_SCA_CONTENT_TTL, "3600000"); // milliseconds
+            this.put(CACHE_SCA_CONTENT_MAX_ENTRIES, "1000");
+            this.put(CACHE_COMPLIANCE_STATUS_TTL, "600000"); // milliseconds
+            this.put(CACHE_COMPLIANCE_STATUS_MAX_ENTRIES, "10000");
+            this.put(CACHE_CONTENT_PAYLOAD_MAX_ENTRIES, "256");
+            this.put(CACHE_POOL_JSON_TTL, "600000"); // milliseconds
+            this.put(CACHE_POOL_JSON_MAX_ENTRIES, "20000");
 
             this.put(PAGING_DEFAULT_PAGE_SIZE, "10");
             this.put(PAGING_MAX_PAGE_SIZE, "3000");
@@ -448,6 +662,8 @@ public class ConfigProperties {
 
             this.put(ENV_CONTENT_FILTERING, "true");
             this.put(USE_SYSTEM_UUID_FOR_MATCHING, "true");
+            this.put(HYPERVISOR_UPDATE_CHUNK_SIZE, "100");
+            this.put(HYPERVISOR_UPDATE_SKIP_UNCHANGED, "true");
 
             // what constitutes a valid consumer name
             this.put(CONSUMER_SYSTEM_NAME_PATTERN, "[\\#\\?\\'\\`\\!@{}()\\[\\]\\?&\\w-\\.]+");
@@ -465,6 +681,14 @@ public class ConfigProperties {
              *  a larger memory footprint as the cache fills up.
              */
             this.put(PRODUCT_CACHE_MAX, "100");
+            this.put(POOL_LISTING_CHUNK_SIZE, "100");
+
+            this.put(RULES_NATIVE_CONTEXT_NAMESPACES, "");
+            this.put(RULES_SCOPE_POOL_SIZE, "16");
+            this.put(RULES_BYTECODE_CACHE_DIR, "");
+            this.put(COMPLIANCE_ENGINE, "RULES");
+            this.put(COMPLIANCE_BULK_THREADS, "4");
+            this.put(COMPLIANCE_BULK_MAX_CONCURRENCY, "4");
 
             /** As we do math on some facts and attributes, we need to constrain some values */
             this.put(INTEGER_FACTS, INTEGER_FACT_LIST);
@@ -489,6 +713,9 @@ public class ConfigProperties {
             this.put(ASYNC_JOBS_QUEUE_WHILE_SUSPENDED, "true");
             this.put(ASYNC_JOBS_SCHEDULER_ENABLED, "true");
             this.put(ASYNC_JOBS_THREAD_SHUTDOWN_TIMEOUT, "600"); // 10 minutes
+            this.put(ASYNC_JOBS_CONSTRAINT_INDEX_REFRESH_INTERVAL, "5000");
+            this.put(ASYNC_JOBS_LANES, "");
+            this.put(ASYNC_JOBS_OWNER_LIMIT, "0");
 
             this.put(ASYNC_JOBS_DISPATCH_ADDRESS, "job");
             this.put(ASYNC_JOBS_RECEIVE_ADDRESS, "jobs");
@@ -510,6 +737,12 @@ public class ConfigProperties {
             this.put(jobConfig(ExpiredPoolsCleanupJob.JOB_KEY, ASYNC_JOBS_JOB_SCHEDULE),
                 ExpiredPoolsCleanupJob.DEFAULT_SCHEDULE);
 
+            // HealEntireOrgJob
+            this.put(jobConfig(HealEntireOrgJob.JOB_KEY, HealEntireOrgJob.CFG_CHUNK_SIZE),
+                HealEntireOrgJob.DEFAULT_CHUNK_SIZE);
+            this.put(jobConfig(HealEntireOrgJob.JOB_KEY, HealEntireOrgJob.CFG_CHUNK_CONCURRENCY),
+                HealEntireOrgJob.DEFAULT_CHUNK_CONCURRENCY);
+
             // ImportRecordCleanerJob
             this.put(jobConfig(ImportRecordCleanerJob.JOB_KEY, ASYNC_JOBS_JOB_SCHEDULE),
                 ImportRecordCleanerJob.DEFAULT_SCHEDULE);
@@ -551,6 +784,12 @@ public class ConfigProperties {
             // RevokeEntitlementsJob
             this.put(jobConfig(RevokeEntitlementsJob.JOB_KEY, RevokeEntitlementsJob.CFG_BATCH_SIZE), "500");
 
+            // SCACertificateGenerationJob
+            this.put(jobConfig(SCACertificateGenerationJob.JOB_KEY,
+                SCACertificateGenerationJob.CFG_BATCH_SIZE), SCACertificateGenerationJob.DEFAULT_BATCH_SIZE);
+            this.put(jobConfig(SCACertificateGenerationJob.JOB_KEY,
+                SCACertificateGenerationJob.CFG_THREADS), SCACertificateGenerationJob.DEFAULT_THREADS);
+
             // Set the triggerable jobs list
             this.put(ASYNC_JOBS_TRIGGERABLE_JOBS, String.join(", ", ASYNC_JOBS_TRIGGERABLE_JOBS_LIST));
             this.put(CONSUMER_MIGRATION_BATCH_SIZE, "200");
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Records consumer check-ins using a write-behind buffer. Rather than updating a consumer's
+ * check-in time on the request path, check-ins are held in memory, coalesced per consumer so only
+ * the latest check-in of each consumer is kept, and periodically written in batches by a
+ * background thread. This replaces a steady stream of single-row updates, each contending for the
+ * consumer's row lock, with a small number of batched updates.
+ * <p>
+ * Pending check-ins are written at least once per configured flush interval, and immediately once
+ * the configured number of consumers have pending check-ins. Any pending check-ins are written
+ * when the recorder is shut down.
+ * <p>
+ * Write-behind is disabled when the configured flush interval is zero, or before the recorder has
+ * been started, in which case check-ins are written immediately on the calling thread.
+ */
+@Singleton
+public class ConsumerCheckInRecorder {
+    private static final Logger log = LoggerFactory.getLogger(ConsumerCheckInRecorder.class);
+
+    private final ConsumerCurator consumerCurator;
+    private final UnitOfWork unitOfWork;
+
+    private final long flushInterval;
+    private final int maxPending;
+    private final int batchSize;
+
+    private final ConcurrentMap<String, Date> pending;
+    private final AtomicBoolean flushRequested;
+    private final Lock flushLock;
+    private volatile ScheduledExecutorService executor;
+
+    private final AtomicLong recorded;
+    private final AtomicLong coalesced;
+    private final AtomicLong written;
+    private final AtomicLong flushes;
+    private final AtomicLong failures;
+
+    @Inject
+    public ConsumerCheckInRecorder(Configuration config, ConsumerCurator consumerCurator,
+        UnitOfWork unitOfWork) throws ConfigurationException {
+
+        Objects.requireNonNull(config);
+        this.consumerCurator = Objects.requireNonNull(consumerCurator);
+        this.unitOfWork = Objects.requireNonNull(unitOfWork);
+
+        this.flushInterval = config.getLong(ConfigProperties.CHECKIN_FLUSH_INTERVAL);
+        if (this.flushInterval < 0) {
+            throw new ConfigurationException(ConfigProperties.CHECKIN_FLUSH_INTERVAL +
+                " must be larger than or equal to 0");
+        }
+
+        this.maxPending = config.getInt(ConfigProperties.CHECKIN_MAX_PENDING);
+        if (this.maxPending < 1) {
+            throw new ConfigurationException(ConfigProperties.CHECKIN_MAX_PENDING +
+                " must be larger than 0");
+        }
+
+        this.batchSize = config.getInt(ConfigProperties.CHECKIN_BATCH_SIZE);
+        if (this.batchSize < 1) {
+            throw new ConfigurationException(ConfigProperties.CHECKIN_BATCH_SIZE +
+                " must be larger than 0");
+        }
+
+        this.pending = new ConcurrentHashMap<>();
+        this.flushRequested = new AtomicBoolean();
+        this.flushLock = new ReentrantLock();
+
+        this.recorded = new AtomicLong();
+        this.coalesced = new AtomicLong();
+        this.written = new AtomicLong();
+        this.flushes = new AtomicLong();
+        this.failures = new AtomicLong();
+    }
+
+    /**
+     * Starts the background flush thread. If write-behind is disabled or the recorder has already
+     * been started, this method does nothing.
+     */
+    public synchronized void start() {
+        if (this.flushInterval == 0 || this.executor != null) {
+            return;
+        }
+
+        log.info("Starting consumer check-in recorder with a flush interval of {}ms", this.flushInterval);
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "consumer-checkin-flush");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::flush, this.flushInterval, this.flushInterval,
+            TimeUnit.MILLISECONDS);
+
+        this.executor = executor;
+    }
+
+    /**
+     * Stops the background flush thread, writing any pending check-ins before returning. If the
+     * recorder has not been started, this method does nothing.
+     */
+    public synchronized void shutdown() {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+
+        log.info("Shutting down consumer check-in recorder; {} pending check-in(s)", this.pending.size());
+
+        // Check-ins recorded from here on are written immediately
+        this.executor = null;
+
+        // Drain on the flush thread, which already has the unit of work handling for writes
+        executor.execute(this::flush);
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for consumer check-in recorder to flush");
+                executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        if (!this.pending.isEmpty()) {
+            log.warn("Discarding {} unwritten consumer check-in(s)", this.pending.size());
+            this.pending.clear();
+        }
+    }
+
+    /**
+     * Checks if the recorder is currently buffering check-ins.
+     *
+     * @return
+     *  true if the recorder has been started and write-behind is enabled; false otherwise
+     */
+    public boolean isRunning() {
+        return this.executor != null;
+    }
+
+    /**
+     * Records a check-in for the given consumer at the current time.
+     *
+     * @param consumer
+     *  the consumer checking in
+     */
+    public void record(Consumer consumer) {
+        this.record(consumer, new Date());
+    }
+
+    /**
+     * Records a check-in for the given consumer at the given time. If the consumer already has a
+     * pending check-in, the later of the two is kept.
+     *
+     * @param consumer
+     *  the consumer checking in
+     *
+     * @param checkin
+     *  the time of the check-in
+     */
+    public void record(Consumer consumer, Date checkin) {
+        Objects.requireNonNull(consumer);
+        Objects.requireNonNull(checkin);
+
+        this.recorded.incrementAndGet();
+
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null || consumer.getId() == null) {
+            this.consumerCurator.updateLastCheckin(consumer, checkin);
+            this.written.incrementAndGet();
+            return;
+        }
+
+        this.pending.compute(consumer.getId(), (id, existing) -> {
+            if (existing == null) {
+                return checkin;
+            }
+
+            this.coalesced.incrementAndGet();
+            return latest(existing, checkin);
+        });
+
+        if (this.pending.size() >= this.maxPending && this.flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            }
+            catch (RejectedExecutionException e) {
+                // Shutting down; the final drain will pick these up
+                this.flushRequested.set(false);
+            }
+        }
+    }
+
+    private static Date latest(Date first, Date second) {
+        return first.after(second) ? first : second;
+    }
+
+    /**
+     * Writes all pending check-ins in batches of the configured size. Batches which cannot be
+     * written are returned to the pending check-ins to be retried on the next flush.
+     */
+    void flush() {
+        this.flushLock.lock();
+        try {
+            this.flushRequested.set(false);
+
+            if (!this.pending.isEmpty()) {
+                this.flushPending();
+            }
+        }
+        finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        long start = System.currentTimeMillis();
+        int count = 0;
+
+        Map<String, Date> batch = new HashMap<>();
+        for (String consumerId : this.pending.keySet()) {
+            Date checkin = this.pending.remove(consumerId);
+            if (checkin == null) {
+                continue;
+            }
+
+            batch.put(consumerId, checkin);
+            if (batch.size() >= this.batchSize) {
+                count += this.write(batch);
+                batch = new HashMap<>();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            count += this.write(batch);
+        }
+
+        this.flushes.incrementAndGet();
+        log.debug("Wrote {} consumer check-in(s) in {}ms; {} pending", count,
+            System.currentTimeMillis() - start, this.pending.size());
+    }
+
+    private int write(Map<String, Date> batch) {
+        this.unitOfWork.begin();
+
+        try {
+            // Check-ins older than a consumer's current check-in don't change its row
+            int updated = this.consumerCurator.updateLastCheckins(batch);
+            this.written.addAndGet(updated);
+
+            return updated;
+        }
+        catch (RuntimeException e) {
+            log.error("Unable to write {} consumer check-in(s); will retry", batch.size(), e);
+            this.failures.incrementAndGet();
+
+            batch.forEach((consumerId, checkin) ->
+                this.pending.merge(consumerId, checkin, ConsumerCheckInRecorder::latest));
+
+            return 0;
+        }
+        finally {
+            this.unitOfWork.end();
+        }
+    }
+
+    /**
+     * Fetches the number of consumers with check-ins waiting to be written.
+     *
+     * @return
+     *  the number of pending check-ins
+     */
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * Fetches the number of check-ins recorded.
+     *
+     * @return
+     *  the number of recorded check-ins
+     */
+    public long getRecordedCount() {
+        return this.recorded.get();
+    }
+
+    /**
+     * Fetches the number of check-ins which were merged into an already pending check-in for the
+     * same consumer, and so never required a write of their own.
+     *
+     * @return
+     *  the number of coalesced check-ins
+     */
+    public long getCoalescedCount() {
+        return this.coalesced.get();
+    }
+
+    /**
+     * Fetches the number of consumer rows updated with a check-in, whether immediately or by a
+     * flush. Flushed check-ins which are older than the consumer's current check-in, or which
+     * belong to consumers that no longer exist, update no rows and are not counted.
+     *
+     * @return
+     *  the number of written check-ins
+     */
+    public long getWrittenCount() {
+        return this.written.get();
+    }
+
+    /**
+     * Fetches the number of flushes performed.
+     *
+     * @return
+     *  the number of flushes
+     */
+    public long getFlushCount() {
+        return this.flushes.get();
+    }
+
+    /**
+     * Fetches the number of batches which could not be written.
+     *
+     * @return
+     *  the number of failed batch writes
+     */
+    public long getFailureCount() {
+        return this.failures.get();
+    }
+
+}
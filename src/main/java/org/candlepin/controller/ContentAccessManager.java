@@ -18,6 +18,7 @@ import org.candlepin.async.JobException;
 import org.candlepin.async.JobManager;
 import org.candlepin.async.tasks.RevokeEntitlementsJob.RevokeEntitlementsJobConfig;
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.SCAContentCache;
 import org.candlepin.exceptions.IseException;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
@@ -54,6 +55,7 @@ public class ContentAccessManager {
     private final EventSink eventSink;
     private final JobManager jobManager;
     private final I18n i18n;
+    private final SCAContentCache scaContentCache;
 
     @Inject
     public ContentAccessManager(
@@ -62,7 +64,8 @@ public class ContentAccessManager {
         ConsumerCurator consumerCurator,
         EventSink eventSink,
         JobManager jobManager,
-        I18n i18n) {
+        I18n i18n,
+        SCAContentCache scaContentCache) {
 
         this.contentAccessCertificateCurator = Objects.requireNonNull(contentAccessCertificateCurator);
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
@@ -70,6 +73,7 @@ public class ContentAccessManager {
         this.eventSink = Objects.requireNonNull(eventSink);
         this.jobManager = Objects.requireNonNull(jobManager);
         this.i18n = Objects.requireNonNull(i18n);
+        this.scaContentCache = Objects.requireNonNull(scaContentCache);
     }
 
     /**
@@ -353,7 +357,8 @@ public class ContentAccessManager {
     }
 
     /**
-     * Synchronizes the last content update time for the given owner and persists the update.
+     * Synchronizes the last content update time for the given owner and persists the update. Any
+     * SCA content cached for the owner is evicted, as it no longer reflects the owner's content view.
      *
      * @param owner
      *  the owner for which to synchronize the last content update time
@@ -371,7 +376,13 @@ public class ContentAccessManager {
         }
 
         owner.syncLastContentUpdate();
-        return this.ownerCurator.merge(owner);
+        Owner merged = this.ownerCurator.merge(owner);
+
+        if (owner.getId() != null) {
+            this.scaContentCache.removeOwner(owner.getId());
+        }
+
+        return merged;
     }
 
 }
@@ -117,6 +117,7 @@ public class PoolManager {
     private final PoolConverter poolConverter;
     private final PoolService poolService;
     private final boolean isStandalone;
+    private final int listingChunkSize;
 
     @Inject
     public PoolManager(
@@ -161,6 +162,7 @@ public class PoolManager {
         this.poolConverter = Objects.requireNonNull(poolConverter);
         this.poolService = Objects.requireNonNull(poolService);
         this.isStandalone = config.getBoolean(ConfigProperties.STANDALONE);
+        this.listingChunkSize = config.getInt(ConfigProperties.POOL_LISTING_CHUNK_SIZE);
     }
 
     /*
@@ -1545,7 +1547,10 @@ public class PoolManager {
     }
 
     /**
-     * Lists available entitlement pools that match the provided criteria.
+     * Lists available entitlement pools that match the provided criteria. If a consumer or activation
+     * key is specified, pools are also filtered by the rules for the consumer or key. When a page of
+     * such pools is requested, pools are fetched and filtered in chunks, stopping as soon as the page
+     * is full; see {@link PoolQualifier#setExactCount(boolean)} for how the total is reported.
      *
      * @param qualifier
      *  a {@link PoolQualifier} with defined criteria for determining which pools should be returned
@@ -1566,14 +1571,13 @@ public class PoolManager {
             qualifier.addAttribute(Pool.Attributes.DEVELOPMENT_POOL, "!true");
         }
 
-        Page<List<Pool>> page = this.poolCurator.listAvailableEntitlementPools(qualifier);
-        if (page.getPageData() == null || page.getPageData().isEmpty()) {
-            return page;
-        }
-
         ActivationKey key = qualifier.getActivationKey();
         if (consumer == null && key == null) {
-            return page;
+            return this.poolCurator.listAvailableEntitlementPools(qualifier);
+        }
+
+        if (qualifier.getOffset() != null && qualifier.getLimit() != null) {
+            return this.listFilteredPoolPage(qualifier);
         }
 
         // If the consumer was specified, we need to filter out any
@@ -1583,28 +1587,87 @@ public class PoolManager {
         // Note that something could change between the time we list a pool as
         // available, and the consumer requests the actual entitlement, and the
         // request still could fail.
-        List<Pool> resultingPools = page.getPageData();
-
-        boolean includeWarnings = qualifier.includeWarnings();
-        if (consumer != null) {
-            resultingPools = enforcer.filterPools(consumer, resultingPools, includeWarnings);
+        Page<List<Pool>> page = this.poolCurator.listAvailableEntitlementPools(qualifier);
+        if (page.getPageData() == null || page.getPageData().isEmpty()) {
+            return page;
         }
 
-        if (key != null) {
-            resultingPools = this.filterPoolsForActKey(key, resultingPools, includeWarnings);
-        }
+        List<Pool> resultingPools = this.filterPools(qualifier, page.getPageData());
 
-        // Set maxRecords once we are done filtering
+        page.setPageData(resultingPools);
         page.setMaxRecords(resultingPools.size());
+        return page;
+    }
 
-        if (qualifier.getOffset() != null && qualifier.getLimit() != null) {
-            resultingPools = poolCurator.takeSubList(qualifier, resultingPools);
+    /**
+     * Lists the requested page of the pools available to the consumer or activation key of the given
+     * qualifier. Matching pools are fetched in chunks, in a stable order, and filtered by the rules
+     * one chunk at a time, so only a single chunk of pools is loaded at once.
+     * <p>
+     * By default, filtering continues past the page to count the total exactly. If the qualifier
+     * does not require an exact count, filtering stops once the page is full, and the total is the
+     * number of pools matching the criteria of the qualifier, less those already rejected by the
+     * rules; this is an upper bound of the exact total.
+     */
+    private Page<List<Pool>> listFilteredPoolPage(PoolQualifier qualifier) {
+        int limit = Math.max(0, qualifier.getLimit());
+        int fromIndex = Math.max(0, (qualifier.getOffset() - 1) * limit);
+        int toIndex = fromIndex + limit;
+        int chunkSize = Math.max(Math.max(1, this.listingChunkSize), limit);
+
+        List<Pool> pageData = new ArrayList<>();
+        int fetched = 0;
+        int accepted = 0;
+        boolean exhausted = false;
+
+        while (!exhausted && (accepted < toIndex || qualifier.isExactCount())) {
+            List<Pool> chunk = this.poolCurator.listAvailableEntitlementPools(qualifier, fetched, chunkSize);
+            fetched += chunk.size();
+            exhausted = chunk.size() < chunkSize;
+
+            for (Pool pool : this.filterPools(qualifier, chunk)) {
+                if (accepted >= fromIndex && accepted < toIndex) {
+                    pageData.add(pool);
+                }
+
+                ++accepted;
+            }
         }
 
-        page.setPageData(resultingPools);
+        int maxRecords = exhausted ?
+            accepted :
+            this.poolCurator.countAvailableEntitlementPools(qualifier) - (fetched - accepted);
+
+        log.debug("Listed {} of {} available pool(s) after checking {} pool(s)", pageData.size(),
+            maxRecords, fetched);
+
+        Page<List<Pool>> page = new Page<>();
+        page.setPageData(pageData);
+        page.setMaxRecords(maxRecords);
+
         return page;
     }
 
+    private List<Pool> filterPools(PoolQualifier qualifier, List<Pool> pools) {
+        if (pools.isEmpty()) {
+            return pools;
+        }
+
+        List<Pool> resultingPools = pools;
+        boolean includeWarnings = qualifier.includeWarnings();
+
+        if (qualifier.getConsumer() != null) {
+            resultingPools = enforcer.filterPools(qualifier.getConsumer(), resultingPools, includeWarnings);
+        }
+
+        if (qualifier.getActivationKey() != null) {
+            resultingPools = this.filterPoolsForActKey(qualifier.getActivationKey(), resultingPools,
+                includeWarnings);
+        }
+
+        return resultingPools;
+    }
+
     /**
      * Retrieves a list of pools associated with the specified subscription ID. If there are no
      * pools associated with the given subscription, this method should return an empty list.
@@ -22,11 +22,15 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.RyeConfig;
 import org.candlepin.config.validation.ConfigurationValidatorUtil;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.database.DatabaseConnectionManager;
 import org.candlepin.database.MigrationManager;
 import org.candlepin.logging.LoggerContextListener;
 import org.candlepin.logging.LoggingConfigurator;
 import org.candlepin.messaging.CPMContextListener;
+import org.candlepin.pki.certs.CertificateSigningPool;
+import org.candlepin.pki.impl.KeyPairPool;
+import org.candlepin.policy.js.compliance.ComplianceWorkerPool;
 import org.candlepin.resteasy.MethodLocator;
 import org.candlepin.resteasy.ResourceLocatorMap;
 
@@ -108,6 +112,10 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
 
     private ActiveMQContextListener activeMQContextListener;
     private JobManager jobManager;
+    private KeyPairPool keypairPool;
+    private CertificateSigningPool signingPool;
+    private ComplianceWorkerPool compliancePool;
+    private ConsumerCheckInRecorder checkInRecorder;
     private LoggerContextListener loggerListener;
 
     // a bit of application-initialization code. Not sure if this is the
@@ -199,6 +207,22 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
             });
         }
 
+        // Start pre-generating key pairs for consumer registration
+        this.keypairPool = injector.getInstance(KeyPairPool.class);
+        this.keypairPool.start();
+
+        // Start the worker threads used to build and sign certificates
+        this.signingPool = injector.getInstance(CertificateSigningPool.class);
+        this.signingPool.start();
+
+        // Start the worker threads used by bulk compliance evaluations
+        this.compliancePool = injector.getInstance(ComplianceWorkerPool.class);
+        this.compliancePool.start();
+
+        // Start writing consumer check-ins in the background
+        this.checkInRecorder = injector.getInstance(ConsumerCheckInRecorder.class);
+        this.checkInRecorder.start();
+
         // Setup the job manager
         this.jobManager = injector.getInstance(JobManager.class);
         this.jobManager.initialize();
@@ -237,6 +261,13 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
         // Tear down the job system
         this.jobManager.shutdown();
 
+        this.keypairPool.shutdown();
+        this.signingPool.shutdown();
+        this.compliancePool.shutdown();
+
+        // Write any pending check-ins while the persistence service is still available
+        this.checkInRecorder.shutdown();
+
         injector.getInstance(PersistService.class).stop();
         // deregister jdbc driver to avoid warning in tomcat shutdown log
         Enumeration<Driver> drivers = DriverManager.getDrivers();
@@ -38,6 +38,7 @@ import org.candlepin.async.tasks.RefreshPoolsJob;
 import org.candlepin.async.tasks.RegenEnvEntitlementCertsJob;
 import org.candlepin.async.tasks.RegenProductEntitlementCertsJob;
 import org.candlepin.async.tasks.RevokeEntitlementsJob;
+import org.candlepin.async.tasks.SCACertificateGenerationJob;
 import org.candlepin.async.tasks.UndoImportsJob;
 import org.candlepin.async.tasks.UnmappedGuestEntitlementCleanerJob;
 import org.candlepin.audit.ArtemisMessageSource;
@@ -56,6 +57,7 @@ import org.candlepin.cache.JCacheManagerProvider;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.ConfigurationPrefixes;
+import org.candlepin.config.DatabaseConfigFactory;
 import org.candlepin.controller.ConsumerMigration;
 import org.candlepin.controller.Entitler;
 import org.candlepin.controller.OwnerManager;
@@ -389,6 +391,8 @@ public class CandlepinModule extends AbstractModule {
             jpaProperties.put(key, entry.getValue());
         }
 
+        this.configureJdbcBatching(jpaProperties);
+
         // As of Guice 6.0, UnitOfWork is no longer automatically started upon fetching the
         // EntityManager. This option restores that behavior.
         JpaPersistOptions jpaOptions = JpaPersistOptions.builder()
@@ -402,6 +406,37 @@ public class CandlepinModule extends AbstractModule {
         bind(JPAInitializer.class).asEagerSingleton();
     }
 
+    /**
+     * Enables JDBC batching of the statements Hibernate issues when flushing, if enabled by the
+     * configuration and not explicitly configured otherwise. Batches are sized to match the block
+     * size at which the curators flush bulk operations, and inserts and updates are ordered by
+     * entity so consecutive statements can share a batch. Where the driver supports it, batched
+     * inserts are further rewritten into multi-row inserts.
+     *
+     * @param jpaProperties
+     *  the JPA properties to update
+     */
+    private void configureJdbcBatching(Properties jpaProperties) {
+        if (!config.getBoolean(ConfigProperties.DB_JDBC_BATCHING)) {
+            return;
+        }
+
+        jpaProperties.putIfAbsent("hibernate.jdbc.batch_size",
+            String.valueOf(config.getInt(DatabaseConfigFactory.BATCH_BLOCK_SIZE)));
+        jpaProperties.putIfAbsent("hibernate.jdbc.batch_versioned_data", "true");
+        jpaProperties.putIfAbsent("hibernate.order_inserts", "true");
+        jpaProperties.putIfAbsent("hibernate.order_updates", "true");
+
+        // The default persistence unit connects to PostgreSQL if no URL is configured
+        String url = jpaProperties.getProperty("hibernate.connection.url", "jdbc:postgresql:");
+        if (url.startsWith("jdbc:postgresql:")) {
+            jpaProperties.putIfAbsent("hibernate.connection.reWriteBatchedInserts", "true");
+        }
+        else if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+            jpaProperties.putIfAbsent("hibernate.connection.rewriteBatchedStatements", "true");
+        }
+    }
+
     private void configureBindFactories() {
         bind(BindChainFactory.class);
         bind(BindContextFactory.class);
@@ -453,6 +488,7 @@ public class CandlepinModule extends AbstractModule {
         JobManager.registerJob(ExpiredPoolsCleanupJob.JOB_KEY, ExpiredPoolsCleanupJob.class);
         JobManager.registerJob(ExportJob.JOB_KEY, ExportJob.class);
         JobManager.registerJob(HealEntireOrgJob.JOB_KEY, HealEntireOrgJob.class);
+        JobManager.registerJob(HealEntireOrgJob.CHUNK_JOB_KEY, HealEntireOrgJob.class);
         JobManager.registerJob(HypervisorHeartbeatUpdateJob.JOB_KEY, HypervisorHeartbeatUpdateJob.class);
         JobManager.registerJob(HypervisorUpdateJob.JOB_KEY, HypervisorUpdateJob.class);
         JobManager.registerJob(ImportJob.JOB_KEY, ImportJob.class);
@@ -471,6 +507,7 @@ public class CandlepinModule extends AbstractModule {
         JobManager.registerJob(CloudAccountOrgSetupJob.JOB_KEY, CloudAccountOrgSetupJob.class);
         JobManager.registerJob(ConsumerMigrationJob.JOB_KEY, ConsumerMigrationJob.class);
         JobManager.registerJob(RevokeEntitlementsJob.JOB_KEY, RevokeEntitlementsJob.class);
+        JobManager.registerJob(SCACertificateGenerationJob.JOB_KEY, SCACertificateGenerationJob.class);
     }
 
     private void configureExporter() {
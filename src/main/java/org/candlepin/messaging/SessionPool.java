@@ -0,0 +1,483 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+
+/**
+ * A bounded pool of long-lived messaging sessions. Opening a transacted session and its producer
+ * requires several round trips to the broker, which can easily cost more than sending the
+ * messages themselves; the pool allows sessions to be reused across requests and jobs instead.
+ * <p>
+ * At most the configured number of sessions may be leased at once. Borrowers wait up to the
+ * configured time for a session to be returned before failing. Idle sessions are checked before
+ * being handed out, and sessions which are no longer usable are closed and replaced. When the
+ * connection to the broker is lost, the pool should be reset, closing idle sessions immediately
+ * and leased sessions as they are returned.
+ * <p>
+ * Borrowed sessions must be returned with either {@link #release(Object)}, once any transaction
+ * has been committed or rolled back, or {@link #invalidate(Object)} if the session is in an
+ * unknown state.
+ *
+ * @param <T>
+ *  the type of session held by this pool
+ */
+public class SessionPool<T> {
+    private static final Logger log = LoggerFactory.getLogger(SessionPool.class);
+
+    /**
+     * Opens, checks and closes the sessions held by a pool.
+     *
+     * @param <T>
+     *  the type of session managed by this handler
+     */
+    public interface SessionHandler<T> {
+
+        /**
+         * Opens a new session.
+         *
+         * @throws Exception
+         *  if the session cannot be opened
+         *
+         * @return
+         *  the new session
+         */
+        T open() throws Exception;
+
+        /**
+         * Checks if the given session can still be used to send messages.
+         *
+         * @param session
+         *  the session to check
+         *
+         * @return
+         *  true if the session is usable; false otherwise
+         */
+        boolean isUsable(T session);
+
+        /**
+         * Closes the given session, discarding any uncommitted messages.
+         *
+         * @param session
+         *  the session to close
+         *
+         * @throws Exception
+         *  if the session cannot be closed
+         */
+        void close(T session) throws Exception;
+    }
+
+    /** An idle session, along with the pool generation in which it was opened */
+    private static final class IdleSession<T> {
+        private final T session;
+        private final long generation;
+
+        IdleSession(T session, long generation) {
+            this.session = session;
+            this.generation = generation;
+        }
+    }
+
+    private final String name;
+    private final SessionHandler<T> handler;
+    private final int maxSize;
+    private final long maxWait;
+
+    private final Semaphore permits;
+    private final Deque<IdleSession<T>> idle;
+    private final Map<T, Long> leased;
+
+    private long generation;
+    private boolean closed;
+
+    private final AtomicLong borrowed;
+    private final AtomicLong waited;
+    private final AtomicLong waitTime;
+    private final AtomicLong maxWaitTime;
+    private final AtomicLong timeouts;
+    private final AtomicLong opened;
+    private final AtomicLong discarded;
+
+    /**
+     * Creates a new session pool.
+     *
+     * @param name
+     *  a name for the pool, used in log messages
+     *
+     * @param handler
+     *  the handler to use to open, check and close sessions
+     *
+     * @param maxSize
+     *  the maximum number of sessions which may be leased at once
+     *
+     * @param maxWait
+     *  the maximum time, in milliseconds, to wait for a session when all sessions are leased
+     *
+     * @throws IllegalArgumentException
+     *  if maxSize is less than one, or maxWait is negative
+     */
+    public SessionPool(String name, SessionHandler<T> handler, int maxSize, long maxWait) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize is less than 1: " + maxSize);
+        }
+
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("maxWait is negative: " + maxWait);
+        }
+
+        this.name = Objects.requireNonNull(name);
+        this.handler = Objects.requireNonNull(handler);
+        this.maxSize = maxSize;
+        this.maxWait = maxWait;
+
+        this.permits = new Semaphore(maxSize, true);
+        this.idle = new ArrayDeque<>();
+        this.leased = new IdentityHashMap<>();
+
+        this.borrowed = new AtomicLong();
+        this.waited = new AtomicLong();
+        this.waitTime = new AtomicLong();
+        this.maxWaitTime = new AtomicLong();
+        this.timeouts = new AtomicLong();
+        this.opened = new AtomicLong();
+        this.discarded = new AtomicLong();
+    }
+
+    /**
+     * Borrows a session from the pool, opening a new session if no usable idle session is
+     * available. If the maximum number of sessions are already leased, this method waits for one
+     * to be returned.
+     *
+     * @throws IllegalStateException
+     *  if the pool has been closed
+     *
+     * @throws CPMException
+     *  if no session is returned within the configured wait time, or a new session cannot be
+     *  opened
+     *
+     * @return
+     *  a session leased to the caller
+     */
+    public T borrow() throws CPMException {
+        this.acquirePermit();
+
+        try {
+            T session = this.pollIdle();
+            if (session == null) {
+                session = this.handler.open();
+                this.opened.incrementAndGet();
+
+                log.debug("Opened new session for {} pool: {}", this.name, session);
+            }
+
+            synchronized (this) {
+                if (this.closed) {
+                    this.closeSession(session);
+                    throw new IllegalStateException("Session pool is closed: " + this.name);
+                }
+
+                this.leased.put(session, this.generation);
+            }
+
+            this.borrowed.incrementAndGet();
+            return session;
+        }
+        catch (RuntimeException | CPMException e) {
+            this.permits.release();
+            throw e;
+        }
+        catch (Exception e) {
+            this.permits.release();
+            throw new CPMException("Unable to open session for " + this.name + " pool", e);
+        }
+    }
+
+    private void acquirePermit() throws CPMException {
+        synchronized (this) {
+            if (this.closed) {
+                throw new IllegalStateException("Session pool is closed: " + this.name);
+            }
+        }
+
+        if (this.permits.tryAcquire()) {
+            return;
+        }
+
+        this.waited.incrementAndGet();
+        long start = System.nanoTime();
+
+        try {
+            boolean acquired = this.permits.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS);
+
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            this.waitTime.addAndGet(elapsed);
+            this.maxWaitTime.accumulateAndGet(elapsed, Math::max);
+
+            if (!acquired) {
+                this.timeouts.incrementAndGet();
+                throw new CPMException(String.format(
+                    "Timed out after %dms waiting for a session from %s pool; %d session(s) in use",
+                    elapsed, this.name, this.maxSize));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CPMException("Interrupted while waiting for a session from " + this.name + " pool", e);
+        }
+    }
+
+    /**
+     * Fetches the most recently returned usable idle session, closing any unusable sessions found
+     * along the way.
+     */
+    private T pollIdle() {
+        while (true) {
+            IdleSession<T> entry;
+            boolean current;
+
+            synchronized (this) {
+                entry = this.idle.pollFirst();
+                if (entry == null) {
+                    return null;
+                }
+
+                current = entry.generation == this.generation;
+            }
+
+            if (current && this.handler.isUsable(entry.session)) {
+                return entry.session;
+            }
+
+            log.debug("Discarding unusable idle session from {} pool: {}", this.name, entry.session);
+            this.closeSession(entry.session);
+        }
+    }
+
+    /**
+     * Returns a borrowed session to the pool. The session should not have any uncommitted
+     * messages. Sessions which are no longer usable, or were opened before the pool was last
+     * reset, are closed rather than returned to the idle sessions.
+     *
+     * @param session
+     *  the session to return
+     */
+    public void release(T session) {
+        if (session == null) {
+            return;
+        }
+
+        boolean keep;
+
+        synchronized (this) {
+            Long leaseGeneration = this.leased.remove(session);
+            if (leaseGeneration == null) {
+                log.warn("Attempted to release a session not leased from {} pool: {}", this.name, session);
+                return;
+            }
+
+            keep = !this.closed && leaseGeneration == this.generation && this.handler.isUsable(session);
+            if (keep) {
+                this.idle.addFirst(new IdleSession<>(session, leaseGeneration));
+            }
+        }
+
+        if (!keep) {
+            this.closeSession(session);
+        }
+
+        this.permits.release();
+    }
+
+    /**
+     * Closes a borrowed session and releases its lease, allowing a new session to be opened in
+     * its place. This should be used rather than {@link #release(Object)} for sessions in an
+     * unknown state, such as after a failed commit.
+     *
+     * @param session
+     *  the session to invalidate
+     */
+    public void invalidate(T session) {
+        if (session == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (this.leased.remove(session) == null) {
+                log.warn("Attempted to invalidate a session not leased from {} pool: {}", this.name, session);
+                return;
+            }
+        }
+
+        this.closeSession(session);
+        this.permits.release();
+    }
+
+    /**
+     * Resets the pool, typically after the connection to the broker has been lost. Idle sessions
+     * are closed immediately, and sessions currently leased are closed when they are returned.
+     */
+    public void reset() {
+        List<IdleSession<T>> stale;
+
+        synchronized (this) {
+            ++this.generation;
+
+            stale = new ArrayList<>(this.idle);
+            this.idle.clear();
+        }
+
+        log.info("Resetting {} session pool; closing {} idle session(s)", this.name, stale.size());
+        stale.forEach(entry -> this.closeSession(entry.session));
+    }
+
+    /**
+     * Closes the pool and any idle sessions. Sessions currently leased are closed when they are
+     * returned, and any further attempts to borrow sessions will fail.
+     */
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+        }
+
+        this.reset();
+    }
+
+    private void closeSession(T session) {
+        this.discarded.incrementAndGet();
+
+        try {
+            this.handler.close(session);
+        }
+        catch (Exception e) {
+            log.debug("Unable to cleanly close session from {} pool: {}", this.name, session, e);
+        }
+    }
+
+    /**
+     * Fetches the number of idle sessions held by the pool.
+     *
+     * @return
+     *  the number of idle sessions
+     */
+    public synchronized int getIdleCount() {
+        return this.idle.size();
+    }
+
+    /**
+     * Fetches the number of sessions currently leased from the pool.
+     *
+     * @return
+     *  the number of leased sessions
+     */
+    public synchronized int getLeasedCount() {
+        return this.leased.size();
+    }
+
+    /**
+     * Fetches the number of sessions borrowed from the pool.
+     *
+     * @return
+     *  the number of borrowed sessions
+     */
+    public long getBorrowCount() {
+        return this.borrowed.get();
+    }
+
+    /**
+     * Fetches the number of attempts to borrow a session which had to wait for a session to be
+     * returned, including those which timed out.
+     *
+     * @return
+     *  the number of borrows which waited
+     */
+    public long getWaitCount() {
+        return this.waited.get();
+    }
+
+    /**
+     * Fetches the total time, in milliseconds, spent waiting for sessions to be returned.
+     *
+     * @return
+     *  the total wait time in milliseconds
+     */
+    public long getTotalWaitTime() {
+        return this.waitTime.get();
+    }
+
+    /**
+     * Fetches the longest time, in milliseconds, spent waiting for a session to be returned.
+     *
+     * @return
+     *  the longest wait time in milliseconds
+     */
+    public long getMaxWaitTime() {
+        return this.maxWaitTime.get();
+    }
+
+    /**
+     * Fetches the number of attempts to borrow a session which timed out.
+     *
+     * @return
+     *  the number of timed out borrows
+     */
+    public long getTimeoutCount() {
+        return this.timeouts.get();
+    }
+
+    /**
+     * Fetches the number of sessions opened by the pool.
+     *
+     * @return
+     *  the number of opened sessions
+     */
+    public long getOpenedCount() {
+        return this.opened.get();
+    }
+
+    /**
+     * Fetches the number of sessions closed by the pool, because they were unusable, stale or
+     * invalidated, or the pool was closed.
+     *
+     * @return
+     *  the number of discarded sessions
+     */
+    public long getDiscardedCount() {
+        return this.discarded.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("SessionPool [name: %s, idle: %d, leased: %d, max: %d]",
+            this.name, this.getIdleCount(), this.getLeasedCount(), this.maxSize);
+    }
+
+}
@@ -63,8 +63,11 @@ public class AsyncJobStatus extends AbstractHibernateObject {
     public enum JobState {
         /** The job has been created, but not yet queued or executed */
         CREATED("WAITING", "SCHEDULED", "QUEUED", "RUNNING", "CANCELED", "ABORTED"),
-        /** The job is blocked by a collision or inability to queue the job message */
-        WAITING("SCHEDULED", "QUEUED", "RUNNING", "CANCELED", "ABORTED"),
+        /**
+         * The job is blocked by a collision or inability to queue the job message, or has been
+         * coalesced into another job and completes along with it
+         */
+        WAITING("SCHEDULED", "QUEUED", "RUNNING", "FINISHED", "FAILED", "CANCELED", "ABORTED"),
         /** The job has been scheduled to run at some time in the future */
         SCHEDULED("QUEUED", "RUNNING", "CANCELED", "ABORTED"),
         /** The job has been sent to the backing job messaging/queueing system to be picked up */
@@ -165,6 +168,15 @@ public class AsyncJobStatus extends AbstractHibernateObject {
     @Column(name = "job_result")
     private String result;
 
+    @Column(name = "coalesced_into")
+    private String coalescedInto;
+
+    @Column(name = "job_cursor")
+    private String cursor;
+
+    @Column(name = "job_progress")
+    private int progress;
+
 
 
     /**
@@ -772,6 +784,86 @@ public class AsyncJobStatus extends AbstractHibernateObject {
         return this;
     }
 
+    /**
+     * Fetches the ID of the job into which this job was coalesced. If this job has not been
+     * coalesced into another job, this method returns null.
+     *
+     * @return
+     *  the ID of the job performing the work of this job, or null if this job has not been
+     *  coalesced
+     */
+    public String getCoalescedInto() {
+        return this.coalescedInto;
+    }
+
+    /**
+     * Sets the ID of the job into which this job was coalesced. A coalesced job is not executed
+     * itself, and instead completes along with the job into which it was coalesced.
+     *
+     * @param jobId
+     *  the ID of the job performing the work of this job, or null to clear any existing value
+     *
+     * @return
+     *  this job status instance
+     */
+    public AsyncJobStatus setCoalescedInto(String jobId) {
+        this.coalescedInto = jobId;
+        return this;
+    }
+
+    /**
+     * Fetches the resume cursor last checkpointed by this job. Jobs which process their work in
+     * an ordered series of steps may use the cursor to record the last completed step, allowing a
+     * later attempt to resume after it rather than starting over. If the job has not checkpointed
+     * its progress, this method returns null.
+     *
+     * @return
+     *  the resume cursor of this job, or null if the job has not checkpointed its progress
+     */
+    public String getCursor() {
+        return this.cursor;
+    }
+
+    /**
+     * Sets the resume cursor of this job. The format of the cursor is defined by the job.
+     *
+     * @param cursor
+     *  the resume cursor to set, or null to clear any existing cursor
+     *
+     * @return
+     *  this job status instance
+     */
+    public AsyncJobStatus setCursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    /**
+     * Fetches the number of units of work this job has reported as complete. The unit of work is
+     * defined by the job. If the job has not checkpointed its progress, this method returns zero.
+     *
+     * @return
+     *  the number of units of work completed by this job
+     */
+    public int getProgress() {
+        return this.progress;
+    }
+
+    /**
+     * Sets the number of units of work this job has completed. Negative values will be treated as
+     * zero.
+     *
+     * @param progress
+     *  the number of units of work completed by this job
+     *
+     * @return
+     *  this job status instance
+     */
+    public AsyncJobStatus setProgress(int progress) {
+        this.progress = Math.max(0, progress);
+        return this;
+    }
+
     /**
      * @{inheritDoc}
      */
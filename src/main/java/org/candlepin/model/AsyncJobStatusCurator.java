@@ -14,6 +14,7 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.async.ActiveJobLookup;
 import org.candlepin.model.AsyncJobStatus.JobState;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -45,7 +46,8 @@ import javax.persistence.criteria.Root;
  * AsyncJobStatusCurator
  */
 @Singleton
-public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStatus> {
+public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStatus>
+    implements ActiveJobLookup {
 
     /** Defines the maximum number of job arguments that can be provided for a single query */
     public static final int MAX_JOB_ARGUMENTS_PER_QUERY = 10;
@@ -262,7 +264,8 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
     }
 
     /**
-     * Fetches a collection of jobs currently in non-terminal states
+     * Fetches a collection of jobs currently in non-terminal states. The arguments of the returned
+     * jobs are fetched along with the jobs.
      *
      * @return
      *  a collection of jobs in non-terminal states
@@ -272,7 +275,93 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
             .filter(s -> !s.isTerminal())
             .collect(Collectors.toSet());
 
-        return this.getJobsInState(states);
+        String jpql = "SELECT DISTINCT aj FROM AsyncJobStatus aj LEFT JOIN FETCH aj.arguments " +
+            "WHERE aj.state IN (:states)";
+
+        return this.getEntityManager()
+            .createQuery(jpql, AsyncJobStatus.class)
+            .setParameter("states", states)
+            .getResultList();
+    }
+
+    /**
+     * Fetches the jobs currently in non-terminal states which have any of the given job keys, or
+     * belong to the given owner. The arguments of the returned jobs are fetched along with the
+     * jobs.
+     *
+     * @param jobKeys
+     *  a collection of job keys of the jobs to fetch; may be null
+     *
+     * @param ownerId
+     *  the ID of the owner of the jobs to fetch; may be null
+     *
+     * @return
+     *  a collection of matching jobs in non-terminal states
+     */
+    public List<AsyncJobStatus> getNonTerminalJobs(Collection<String> jobKeys, String ownerId) {
+        boolean hasKeys = jobKeys != null && !jobKeys.isEmpty();
+        if (!hasKeys && ownerId == null) {
+            return new ArrayList<>();
+        }
+
+        Collection<JobState> states = Arrays.stream(JobState.values())
+            .filter(s -> !s.isTerminal())
+            .collect(Collectors.toSet());
+
+        List<String> criteria = new ArrayList<>();
+        if (hasKeys) {
+            criteria.add("aj.jobKey IN (:job_keys)");
+        }
+
+        if (ownerId != null) {
+            criteria.add("aj.ownerId = :owner_id");
+        }
+
+        String jpql = "SELECT DISTINCT aj FROM AsyncJobStatus aj LEFT JOIN FETCH aj.arguments " +
+            "WHERE aj.state IN (:states) AND (" + String.join(" OR ", criteria) + ")";
+
+        TypedQuery<AsyncJobStatus> query = this.getEntityManager()
+            .createQuery(jpql, AsyncJobStatus.class)
+            .setParameter("states", states);
+
+        if (hasKeys) {
+            query.setParameter("job_keys", jobKeys);
+        }
+
+        if (ownerId != null) {
+            query.setParameter("owner_id", ownerId);
+        }
+
+        return query.getResultList();
+    }
+
+    /**
+     * Fetches the jobs in non-terminal states which have been coalesced into the specified job.
+     * If no such jobs exist, this method returns an empty collection.
+     *
+     * @param jobId
+     *  the ID of the job for which to fetch coalesced jobs
+     *
+     * @return
+     *  a collection of non-terminal jobs coalesced into the given job
+     */
+    public List<AsyncJobStatus> getCoalescedJobs(String jobId) {
+        if (jobId == null || jobId.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Collection<JobState> states = Arrays.stream(JobState.values())
+            .filter(s -> !s.isTerminal())
+            .collect(Collectors.toSet());
+
+        String jpql = "SELECT aj FROM AsyncJobStatus aj " +
+            "WHERE aj.coalescedInto = :job_id AND aj.state IN (:states)";
+
+        return this.getEntityManager()
+            .createQuery(jpql, AsyncJobStatus.class)
+            .setParameter("job_id", jobId)
+            .setParameter("states", states)
+            .getResultList();
     }
 
     /**
@@ -521,6 +610,7 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
      *  A collection of IDs of non-terminal jobs matching the given job key and using the specified
      *  arguments
      */
+    @Override
     public List<String> fetchJobIdsByArguments(String jobKey, Map<String, String> arguments) {
         if (jobKey == null || jobKey.isEmpty()) {
             throw new IllegalArgumentException("jobKey is null or empty");
@@ -1081,6 +1081,23 @@ public class Consumer extends AbstractHibernateObject<Consumer> implements Linka
         return this;
     }
 
+    /**
+     * Clears the hash of the last hypervisor report reconciled against this consumer, if any, so
+     * the next report for the consumer is fully reconciled. This must be called whenever the
+     * name, facts or guests of the consumer are changed by anything other than a hypervisor
+     * report.
+     *
+     * @return
+     *  a reference to this consumer instance
+     */
+    public Consumer clearHypervisorReportHash() {
+        if (this.hypervisorId != null) {
+            this.hypervisorId.setReportHash(null);
+        }
+
+        return this;
+    }
+
     public String getComplianceStatusHash() {
         return complianceStatusHash;
     }
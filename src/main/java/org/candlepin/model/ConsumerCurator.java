@@ -33,6 +33,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -441,6 +444,53 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         return consumers;
     }
 
+    /**
+     * Fetches the consumers with the given UUIDs, along with the data needed to calculate their
+     * compliance status: their entitlements and the pools and products of those entitlements, their
+     * guest IDs, installed products and facts. The data is loaded with a fixed number of queries
+     * per block of consumers, rather than several lazy loads per consumer.
+     *
+     * @param uuids
+     *  the UUIDs of the consumers to fetch
+     *
+     * @return
+     *  the consumers with the given UUIDs, with their compliance data loaded
+     */
+    @Transactional
+    public Collection<Consumer> findByUuidsWithComplianceData(Collection<String> uuids) {
+        Collection<Consumer> consumers = this.findByUuids(uuids);
+        if (consumers.isEmpty()) {
+            return consumers;
+        }
+
+        List<String> consumerIds = consumers.stream()
+            .map(Consumer::getId)
+            .collect(Collectors.toList());
+
+        // Each query initializes the given collection of the consumers already in the session
+        List<String> fetches = List.of(
+            "c.entitlements ent LEFT JOIN FETCH ent.pool pool LEFT JOIN FETCH pool.product",
+            "c.guestIds",
+            "c.installedProducts",
+            "c.facts");
+
+        EntityManager em = this.getEntityManager();
+
+        for (String fetch : fetches) {
+            String jpql = "SELECT DISTINCT c FROM Consumer c LEFT JOIN FETCH " + fetch +
+                " WHERE c.id IN (:cids)";
+
+            TypedQuery<Consumer> query = em.createQuery(jpql, Consumer.class);
+
+            for (List<String> block : this.partition(consumerIds)) {
+                query.setParameter("cids", block)
+                    .getResultList();
+            }
+        }
+
+        return consumers;
+    }
+
     @Transactional
     public Collection<Consumer> findByUuidsAndOwner(Collection<String> uuids, String ownerId) {
         Set<Consumer> consumers = new HashSet<>();
@@ -652,6 +702,60 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             .executeUpdate();
     }
 
+    /**
+     * Updates the last check-in time of the given consumers using batched statements, rather than
+     * one statement per consumer. A consumer's check-in time is only updated if the given time is
+     * later than its current check-in time, so check-ins recorded out of order, or flushed late,
+     * never move a consumer's check-in time backward. Likewise, a consumer's updated time is never
+     * moved backward by a late check-in. Consumers are updated in order of their IDs to keep the
+     * row lock order consistent between concurrent callers.
+     *
+     * @param checkins
+     *  a mapping of consumer IDs to the time of their latest check-in
+     *
+     * @return
+     *  the number of consumers updated
+     */
+    @Transactional
+    public int updateLastCheckins(Map<String, Date> checkins) {
+        if (checkins == null || checkins.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "UPDATE " + Consumer.DB_TABLE + " SET lastcheckin = ?, updated = GREATEST(updated, ?) " +
+            "WHERE id = ? AND (lastcheckin IS NULL OR lastcheckin < ?)";
+
+        List<String> consumerIds = new ArrayList<>(checkins.keySet());
+        Collections.sort(consumerIds);
+
+        int blockSize = Math.max(1, this.getBatchBlockSize());
+
+        return this.currentSession().doReturningWork(connection -> {
+            int updated = 0;
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (List<String> block : Iterables.partition(consumerIds, blockSize)) {
+                    for (String consumerId : block) {
+                        Timestamp checkin = new Timestamp(checkins.get(consumerId).getTime());
+
+                        statement.setTimestamp(1, checkin);
+                        statement.setTimestamp(2, checkin);
+                        statement.setString(3, consumerId);
+                        statement.setTimestamp(4, checkin);
+                        statement.addBatch();
+                    }
+
+                    for (int count : statement.executeBatch()) {
+                        // Some drivers can't report per-statement counts for batches
+                        updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                    }
+                }
+            }
+
+            return updated;
+        });
+    }
+
     @Transactional
     public void heartbeatUpdate(final String reporterId, final Date checkIn, final String ownerKey)
         throws PersistenceException {
@@ -715,6 +819,10 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
     }
 
     /**
+     * Updates the given consumers. Pending changes are flushed once, after all of the consumers
+     * have been updated, so the resulting statements can be batched rather than being issued for
+     * each consumer in turn.
+     *
      * @param consumers
      *     consumers to update
      * @param flush
@@ -725,7 +833,11 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
     public Set<Consumer> bulkUpdate(Set<Consumer> consumers, boolean flush) {
         Set<Consumer> toReturn = new HashSet<>();
         for (Consumer toUpdate : consumers) {
-            toReturn.add(update(toUpdate, flush));
+            toReturn.add(update(toUpdate, false));
+        }
+
+        if (flush) {
+            this.flush();
         }
 
         return toReturn;
@@ -877,6 +989,61 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         }
     }
 
+    /**
+     * Lookup the consumers of the given owner matching the given system UUIDs. If multiple consumers
+     * report the same system UUID, only the most recently updated is returned.
+     *
+     * @param ownerId
+     *  the ID of the owner of the consumers to fetch
+     *
+     * @param systemUuids
+     *  the system UUIDs of the consumers to fetch
+     *
+     * @return
+     *  a mapping of lower-cased system UUIDs to the consumers reporting them; system UUIDs which
+     *  are not reported by any consumer are not included
+     */
+    @Transactional
+    public Map<String, Consumer> getConsumersBySystemUuids(String ownerId, Collection<String> systemUuids) {
+        Map<String, Consumer> consumers = new HashMap<>();
+
+        if (systemUuids == null || systemUuids.isEmpty()) {
+            return consumers;
+        }
+
+        String jpql = """
+            SELECT c FROM Consumer c
+            JOIN c.facts f
+            WHERE KEY(f) = :factKey
+                AND LOWER(f) IN (:uuids)
+                AND c.ownerId = :ownerId
+            ORDER BY c.updated DESC
+            """;
+
+        TypedQuery<Consumer> query = this.getEntityManager()
+            .createQuery(jpql, Consumer.class)
+            .setParameter("factKey", Consumer.Facts.DMI_SYSTEM_UUID)
+            .setParameter("ownerId", ownerId);
+
+        List<String> uuids = systemUuids.stream()
+            .filter(Objects::nonNull)
+            .map(String::toLowerCase)
+            .distinct()
+            .collect(Collectors.toList());
+
+        for (List<String> block : this.partition(uuids)) {
+            query.setParameter("uuids", block);
+
+            // Results are ordered by last update, so the first consumer for a given UUID wins
+            for (Consumer consumer : query.getResultList()) {
+                consumers.putIfAbsent(consumer.getFact(Consumer.Facts.DMI_SYSTEM_UUID).toLowerCase(),
+                    consumer);
+            }
+        }
+
+        return consumers;
+    }
+
     /**
      * Retrieves the identity Certificate ids for the provided consumer ids.
      *
@@ -1079,6 +1246,42 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         return query.getResultList();
     }
 
+    /**
+     * Loads the guest IDs and facts of the given consumers with a fixed number of queries per block
+     * of consumers, rather than lazily loading them one consumer at a time. The given consumers
+     * must already be managed by the current session.
+     *
+     * @param consumers
+     *  the consumers for which to load guest IDs and facts
+     */
+    @Transactional
+    public void fetchGuestIdsAndFacts(Collection<Consumer> consumers) {
+        if (consumers == null || consumers.isEmpty()) {
+            return;
+        }
+
+        List<String> consumerIds = consumers.stream()
+            .map(Consumer::getId)
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+
+        EntityManager em = this.getEntityManager();
+
+        // Each query initializes the given collection of the consumers already in the session
+        for (String fetch : List.of("c.guestIds", "c.facts")) {
+            String jpql = "SELECT DISTINCT c FROM Consumer c LEFT JOIN FETCH " + fetch +
+                " WHERE c.id IN (:cids)";
+
+            TypedQuery<Consumer> query = em.createQuery(jpql, Consumer.class);
+
+            for (List<String> block : this.partition(consumerIds)) {
+                query.setParameter("cids", block)
+                    .getResultList();
+            }
+        }
+    }
+
     @Transactional
     public Integer countHypervisorsBulk(String ownerId, Collection<String> hypervisorIds) {
         if (hypervisorIds == null || hypervisorIds.isEmpty()) {
@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -78,20 +79,49 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
     // TODO: handles addition of new entitlements only atm!
 
     /**
+     * Existing entitlements are looked up together, and new entitlements are flushed together
+     * once all of them have been created, rather than one at a time.
+     *
      * @param entitlements entitlements to update
      * @return updated entitlements.
      */
     @Transactional
     public Set<Entitlement> bulkUpdate(Set<Entitlement> entitlements) {
+        Set<String> ids = entitlements.stream()
+            .map(Entitlement::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+
+        Map<String, Entitlement> existing = new HashMap<>();
+        if (!ids.isEmpty()) {
+            TypedQuery<Entitlement> query = this.getEntityManager()
+                .createQuery("SELECT e FROM Entitlement e WHERE e.id IN (:ids)", Entitlement.class);
+
+            for (List<String> block : this.partition(ids)) {
+                query.setParameter("ids", block)
+                    .getResultList()
+                    .forEach(entitlement -> existing.put(entitlement.getId(), entitlement));
+            }
+        }
+
         Set<Entitlement> toReturn = new HashSet<>();
+        boolean created = false;
+
         for (Entitlement toUpdate : entitlements) {
-            Entitlement found = this.get(toUpdate.getId());
+            Entitlement found = existing.get(toUpdate.getId());
             if (found != null) {
                 toReturn.add(found);
                 continue;
             }
-            toReturn.add(create(toUpdate));
+
+            toReturn.add(this.create(toUpdate, false));
+            created = true;
+        }
+
+        if (created && this.inTransaction()) {
+            this.flush();
         }
+
         return toReturn;
     }
 
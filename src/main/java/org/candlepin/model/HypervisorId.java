@@ -68,6 +68,10 @@ public class HypervisorId extends AbstractHibernateObject {
     @Size(max = 255)
     private String reporterId;
 
+    @Column(name = "report_hash")
+    @Size(max = 64)
+    private String reportHash;
+
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(nullable = false, unique = true)
     @NotNull
@@ -139,6 +143,30 @@ public class HypervisorId extends AbstractHibernateObject {
         return this;
     }
 
+    /**
+     * Fetches the hash of the hypervisor as last reconciled from a hypervisor report. The hash
+     * covers the reported name, facts and guests of the hypervisor, and is cleared whenever the
+     * consumer is changed by other means.
+     *
+     * @return
+     *  the hash of the last reconciled report, or null if the hypervisor has not been reconciled
+     *  since it was last changed
+     */
+    public String getReportHash() {
+        return reportHash;
+    }
+
+    /**
+     * @param reportHash the hash of the last reconciled report to set
+     *
+     * @return
+     *  a reference to this HypervisorId
+     */
+    public HypervisorId setReportHash(String reportHash) {
+        this.reportHash = reportHash;
+        return this;
+    }
+
     /**
      * @return the consumer
      */
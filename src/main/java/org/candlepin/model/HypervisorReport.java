@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+
+
+/**
+ * A hypervisor report received from a reporter, awaiting processing by a hypervisor update job.
+ * Reports are stored deflated, and are read back as a stream so they never need to be held in
+ * memory in their entirety after they have been received.
+ */
+@Entity
+@Table(name = HypervisorReport.DB_TABLE)
+public class HypervisorReport extends AbstractHibernateObject<HypervisorReport> {
+
+    /** Name of the table backing this object in the database */
+    public static final String DB_TABLE = "cp_hypervisor_report";
+
+    @Id
+    @GeneratedValue(generator = "system-uuid")
+    @GenericGenerator(name = "system-uuid", strategy = "uuid")
+    @Column(length = 32)
+    @NotNull
+    private String id;
+
+    @Column(name = "owner_id", nullable = false)
+    @NotNull
+    private String ownerId;
+
+    @Column(name = "report_data", nullable = false)
+    @NotNull
+    private byte[] data;
+
+    public HypervisorReport() {
+        // Intentionally left empty
+    }
+
+    @Override
+    public String getId() {
+        return this.id;
+    }
+
+    public HypervisorReport setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * Fetches the ID of the owner for which this report was submitted.
+     *
+     * @return
+     *  the ID of the owner of this report
+     */
+    public String getOwnerId() {
+        return this.ownerId;
+    }
+
+    /**
+     * Sets the ID of the owner for which this report was submitted.
+     *
+     * @param ownerId
+     *  the ID of the owner of this report
+     *
+     * @return
+     *  a reference to this HypervisorReport instance
+     */
+    public HypervisorReport setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+        return this;
+    }
+
+    /**
+     * Fetches the deflated data of this report.
+     *
+     * @return
+     *  the deflated report data
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Sets the deflated data of this report.
+     *
+     * @param data
+     *  the deflated report data
+     *
+     * @return
+     *  a reference to this HypervisorReport instance
+     */
+    public HypervisorReport setData(byte[] data) {
+        this.data = data;
+        return this;
+    }
+
+    /**
+     * Sets the data of this report to the given report text, deflating it as it is written.
+     *
+     * @param report
+     *  the report text to store
+     *
+     * @throws IllegalArgumentException
+     *  if the report is null
+     *
+     * @return
+     *  a reference to this HypervisorReport instance
+     */
+    public HypervisorReport setReport(String report) {
+        if (report == null) {
+            throw new IllegalArgumentException("report is null");
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (Writer writer = new OutputStreamWriter(new DeflaterOutputStream(output),
+            StandardCharsets.UTF_8)) {
+
+            writer.write(report);
+        }
+        catch (IOException e) {
+            // This shouldn't happen while writing to memory
+            throw new UncheckedIOException(e);
+        }
+
+        return this.setData(output.toByteArray());
+    }
+
+    /**
+     * Opens a stream over the report text of this report, inflating the stored data as it is read.
+     * The returned stream provides UTF-8 encoded text.
+     *
+     * @throws IllegalStateException
+     *  if this report does not have any data
+     *
+     * @return
+     *  a stream over the report text
+     */
+    public InputStream openReport() {
+        if (this.data == null) {
+            throw new IllegalStateException("report does not have any data");
+        }
+
+        return new InflaterInputStream(new ByteArrayInputStream(this.data));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HypervisorReport [id: %s, owner: %s, size: %d]", this.id, this.ownerId,
+            this.data != null ? this.data.length : 0);
+    }
+
+}
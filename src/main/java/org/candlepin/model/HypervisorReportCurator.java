@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import com.google.inject.persist.Transactional;
+
+import java.util.Date;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Provides DB management for stored hypervisor reports.
+ */
+@Singleton
+public class HypervisorReportCurator extends AbstractHibernateCurator<HypervisorReport> {
+
+    @Inject
+    public HypervisorReportCurator() {
+        super(HypervisorReport.class);
+    }
+
+    /**
+     * Deletes the report with the given ID, if it exists.
+     *
+     * @param id
+     *  the ID of the report to delete
+     *
+     * @return
+     *  true if a report was deleted; false otherwise
+     */
+    @Transactional
+    public boolean deleteById(String id) {
+        if (id == null) {
+            return false;
+        }
+
+        return this.getEntityManager()
+            .createQuery("DELETE FROM HypervisorReport r WHERE r.id = :id")
+            .setParameter("id", id)
+            .executeUpdate() > 0;
+    }
+
+    /**
+     * Deletes all reports created before the given date. Reports are normally deleted by the job
+     * processing them, so this only removes reports left behind by jobs which never ran to
+     * completion.
+     *
+     * @param expiryDate
+     *  the date before which reports are considered expired
+     *
+     * @return
+     *  the number of reports deleted
+     */
+    @Transactional
+    public int deleteExpired(Date expiryDate) {
+        if (expiryDate == null) {
+            throw new IllegalArgumentException("expiryDate is null");
+        }
+
+        return this.getEntityManager()
+            .createQuery("DELETE FROM HypervisorReport r WHERE r.created < :expiry")
+            .setParameter("expiry", expiryDate)
+            .executeUpdate();
+    }
+
+}
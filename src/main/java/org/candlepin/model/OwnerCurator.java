@@ -404,6 +404,54 @@ public class OwnerCurator extends AbstractHibernateCurator<Owner> {
             .getResultList();
     }
 
+    /**
+     * Fetches a page of the UUIDs of the consumers of the given owner, in UUID order. Paging is
+     * done by UUID rather than by offset, so pages remain stable as consumers are registered and
+     * deleted while the owner's consumers are processed.
+     *
+     * @param ownerId
+     *  the ID of the owner for which to fetch consumer UUIDs
+     *
+     * @param after
+     *  the UUID after which to start the page, exclusive; if null, the page starts with the first
+     *  consumer of the owner
+     *
+     * @param through
+     *  the UUID at which to end the page, inclusive; if null, the page is only bound by the limit
+     *
+     * @param limit
+     *  the maximum number of UUIDs to fetch
+     *
+     * @return
+     *  a list of consumer UUIDs in UUID order
+     */
+    public List<String> getConsumerUuids(String ownerId, String after, String through, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT c.uuid FROM Consumer c WHERE c.ownerId = :ownerId");
+
+        if (after != null) {
+            jpql.append(" AND c.uuid > :after");
+        }
+
+        if (through != null) {
+            jpql.append(" AND c.uuid <= :through");
+        }
+
+        TypedQuery<String> query = this.entityManager.get()
+            .createQuery(jpql.append(" ORDER BY c.uuid ASC").toString(), String.class)
+            .setParameter("ownerId", ownerId)
+            .setMaxResults(limit);
+
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+
+        if (through != null) {
+            query.setParameter("through", through);
+        }
+
+        return query.getResultList();
+    }
+
     @SuppressWarnings("checkstyle:indentation")
     public OwnerContentAccess getOwnerContentAccess(String ownerKey) {
         TypedQuery<OwnerContentAccess> query = entityManager.get().createQuery(
@@ -340,7 +340,8 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
 
     /**
      * Retrieves a paged list of {@Pool}s that fulffill the restrictions dictated by the provided
-     * {@link PoolQualifier}.
+     * {@link PoolQualifier}. If the qualifier specifies an offset and limit, only the requested page
+     * of pools is fetched, and the total number of matching pools is counted separately.
      *
      * @param qualifier
      *  an object that dictates criteria that a pool must meet
@@ -350,35 +351,143 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
      */
     @Transactional
     public Page<List<Pool>> listAvailableEntitlementPools(PoolQualifier qualifier) {
-        if (qualifier == null) {
+        if (!this.isSatisfiable(qualifier)) {
             return emptyPage();
         }
 
+        TypedQuery<Pool> query = this.buildAvailableEntitlementPoolsQuery(qualifier);
+
+        Integer offset = qualifier.getOffset();
+        Integer limit = qualifier.getLimit();
+
+        Page<List<Pool>> output = new Page<>();
+
+        if (offset != null && limit != null) {
+            List<Pool> pools = query
+                .setFirstResult(Math.max(0, (offset - 1) * limit))
+                .setMaxResults(Math.max(0, limit))
+                .getResultList();
+
+            output.setPageData(pools);
+            output.setMaxRecords(this.countAvailableEntitlementPools(qualifier));
+        }
+        else {
+            List<Pool> pools = query.getResultList();
+
+            output.setPageData(pools);
+            output.setMaxRecords(pools.size());
+        }
+
+        return output;
+    }
+
+    /**
+     * Retrieves a chunk of the {@link Pool}s that fulfill the restrictions dictated by the provided
+     * {@link PoolQualifier}. Pools are returned in the order specified by the qualifier, followed by
+     * their IDs, so consecutive chunks neither overlap nor skip pools. The offset and limit of the
+     * qualifier are ignored.
+     *
+     * @param qualifier
+     *  an object that dictates criteria that a pool must meet
+     *
+     * @param first
+     *  the index of the first matching pool to return
+     *
+     * @param count
+     *  the maximum number of pools to return
+     *
+     * @return
+     *  a list of up to the given number of pools which fulfill the requirements provided by the
+     *  qualifier, starting at the given index
+     */
+    @Transactional
+    public List<Pool> listAvailableEntitlementPools(PoolQualifier qualifier, int first, int count) {
+        if (!this.isSatisfiable(qualifier) || count < 1) {
+            return new ArrayList<>();
+        }
+
+        return this.buildAvailableEntitlementPoolsQuery(qualifier)
+            .setFirstResult(Math.max(0, first))
+            .setMaxResults(count)
+            .getResultList();
+    }
+
+    /**
+     * Counts the {@link Pool}s that fulfill the restrictions dictated by the provided
+     * {@link PoolQualifier}. The offset and limit of the qualifier are ignored.
+     *
+     * @param qualifier
+     *  an object that dictates criteria that a pool must meet
+     *
+     * @return
+     *  the number of pools which fulfill the requirements provided by the qualifier
+     */
+    @Transactional
+    public int countAvailableEntitlementPools(PoolQualifier qualifier) {
+        if (!this.isSatisfiable(qualifier)) {
+            return 0;
+        }
+
+        CriteriaBuilder builder = this.getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<Pool> root = query.from(Pool.class);
+
+        query.select(builder.countDistinct(root))
+            .where(this.buildAvailableEntitlementPoolsPredicates(query, root, builder, qualifier));
+
+        return this.getEntityManager()
+            .createQuery(query)
+            .getSingleResult()
+            .intValue();
+    }
+
+    private boolean isSatisfiable(PoolQualifier qualifier) {
+        if (qualifier == null) {
+            return false;
+        }
+
         Consumer consumer = qualifier.getConsumer();
         String ownerId = qualifier.getOwnerId();
         if (consumer != null && ownerId != null && !ownerId.equals(consumer.getOwnerId())) {
             // Both a consumer and an owner were specified, but the consumer belongs to a different owner.
-            // We can't possibly match a pool on two owners, so we can just abort immediately with an
-            // empty page
+            // We can't possibly match a pool on two owners, so we can just abort immediately
             log.warn("Attempting to filter entitlement pools by owner and a consumer belonging to a " +
                 "different owner: {}, {}", ownerId, consumer);
 
-            return emptyPage();
+            return false;
         }
 
+        return true;
+    }
+
+    private TypedQuery<Pool> buildAvailableEntitlementPoolsQuery(PoolQualifier qualifier) {
         CriteriaBuilder builder = this.getEntityManager().getCriteriaBuilder();
         CriteriaQuery<Pool> query = builder.createQuery(Pool.class);
         Root<Pool> root = query.from(Pool.class);
 
+        // The pool ID breaks any ties, so pages and chunks of the results are stable
+        List<Order> order = this.buildJPAQueryOrder(builder, root, qualifier);
+        order.add(builder.asc(root.get(Pool_.id)));
+
+        query.select(root)
+            .distinct(true)
+            .where(this.buildAvailableEntitlementPoolsPredicates(query, root, builder, qualifier))
+            .orderBy(order);
+
+        return this.getEntityManager().createQuery(query);
+    }
+
+    private Predicate[] buildAvailableEntitlementPoolsPredicates(CriteriaQuery<?> query, Root<Pool> root,
+        CriteriaBuilder builder, PoolQualifier qualifier) {
+
         List<Predicate> predicates = new ArrayList<>();
         Predicate securityPredicate = this.getSecurityPredicate(Pool.class, builder, root);
         if (securityPredicate != null) {
             predicates.add(securityPredicate);
         }
 
-        if (consumer != null) {
-            ownerId = consumer.getOwnerId();
-        }
+        Consumer consumer = qualifier.getConsumer();
+        String ownerId = consumer != null ? consumer.getOwnerId() : qualifier.getOwnerId();
 
         getConsumerPredicate(query, root, builder, consumer, ownerId)
             .ifPresent(predicates::add);
@@ -390,31 +499,7 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         getQualifierPredicates(query, root, builder, qualifier)
             .ifPresent(predicates::addAll);
 
-        query.select(root)
-            .distinct(true)
-            .where(predicates.toArray(new Predicate[0]));
-
-        if (qualifier.getOrder() != null) {
-            List<Order> order = this.buildJPAQueryOrder(builder, root, qualifier);
-            query.orderBy(order);
-        }
-
-        List<Pool> pools = this.getEntityManager()
-            .createQuery(query)
-            .getResultList();
-
-        int maxSize = pools.size();
-
-        // Filter the Pools if paging is needed
-        if (qualifier.getOffset() != null && qualifier.getLimit() != null) {
-            pools = this.takeSubList(qualifier, pools);
-        }
-
-        Page<List<Pool>> output = new Page<>();
-        output.setPageData(pools);
-        output.setMaxRecords(maxSize);
-
-        return output;
+        return predicates.toArray(new Predicate[0]);
     }
 
     private Optional<List<Predicate>> getQualifierPredicates(CriteriaQuery<?> query, Root<Pool> root,
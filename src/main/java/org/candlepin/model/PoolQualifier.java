@@ -44,6 +44,7 @@ public class PoolQualifier extends QueryArguments<PoolQualifier> {
     private boolean addFuture = false;
     private boolean isOnlyFuture = false;
     private boolean includeWarnings = false;
+    private boolean exactCount = true;
     private Date after;
 
     private Consumer consumer;
@@ -379,6 +380,30 @@ public class PoolQualifier extends QueryArguments<PoolQualifier> {
         return this;
     }
 
+    /**
+     * @return if the total number of qualified pools must be counted exactly when pools are filtered
+     *  by rules
+     */
+    public boolean isExactCount() {
+        return exactCount;
+    }
+
+    /**
+     * Defines if the total number of qualified pools must be counted exactly when a page of pools is
+     * filtered by rules for a Consumer or activation key. By default, the rules are run against every
+     * matching pool so the total is exact. Otherwise, filtering stops once the requested page is full,
+     * and the total is estimated from the number of pools matching the remaining criteria.
+     *
+     * @param exactCount
+     *  true if the total number of qualified pools must be exact; false if it may be estimated
+     *
+     * @return this instance
+     */
+    public PoolQualifier setExactCount(boolean exactCount) {
+        this.exactCount = exactCount;
+        return this;
+    }
+
     /**
      * @return the date that a {@Pool}'s start date must be greater than or equal to to be considered
      *  qualified
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.certs;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * A bounded pool of worker threads used to build and sign certificates off of the calling thread.
+ * Certificate generators prepare the inputs of each certificate, which typically requires database
+ * access, on the calling thread and submit the CPU-bound building and signing to this pool, so
+ * the work for one certificate overlaps with the preparation of the next.
+ * <p>
+ * The pool applies back-pressure through a bounded work queue: once the queue is full, submitted
+ * tasks are run on the submitting thread, throttling it to the rate at which the workers drain the
+ * queue. The pool also tracks the cumulative time spent in each stage of certificate generation.
+ * <p>
+ * The pool is disabled when its configured thread count is zero, or before it has been started,
+ * in which case all tasks are run on the submitting thread.
+ */
+@Singleton
+public class CertificateSigningPool {
+    private static final Logger log = LoggerFactory.getLogger(CertificateSigningPool.class);
+
+    /**
+     * The stages of certificate generation tracked by the pool
+     */
+    public enum Stage {
+        /** Preparation of the certificate extensions and payload on the calling thread */
+        PREPARE,
+
+        /** Building and encoding of the X509 certificate */
+        BUILD,
+
+        /** Signing of the certificate payload */
+        SIGN
+    }
+
+    private final int threads;
+    private final int queueSize;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLongArray stageTimes;
+    private final AtomicLongArray stageCounts;
+    private final AtomicLong callerRuns;
+
+    @Inject
+    public CertificateSigningPool(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        this.threads = config.getInt(ConfigProperties.CERT_SIGNING_THREADS);
+        if (this.threads < 0) {
+            throw new ConfigurationException(ConfigProperties.CERT_SIGNING_THREADS +
+                " must be larger than or equal to 0");
+        }
+
+        this.queueSize = config.getInt(ConfigProperties.CERT_SIGNING_QUEUE_SIZE);
+        if (this.queueSize < 1) {
+            throw new ConfigurationException(ConfigProperties.CERT_SIGNING_QUEUE_SIZE +
+                " must be larger than 0");
+        }
+
+        this.stageTimes = new AtomicLongArray(Stage.values().length);
+        this.stageCounts = new AtomicLongArray(Stage.values().length);
+        this.callerRuns = new AtomicLong();
+    }
+
+    /**
+     * Starts the worker threads. If the pool is disabled or has already been started, this method
+     * does nothing.
+     */
+    public synchronized void start() {
+        if (this.threads == 0 || this.executor != null) {
+            return;
+        }
+
+        log.info("Starting certificate signing pool with {} thread(s) and a queue size of {}",
+            this.threads, this.queueSize);
+
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.queueSize), new WorkerThreadFactory(), (task, executor) -> {
+                // Queue is full, or the pool is shutting down; run the task on the submitting thread
+                this.callerRuns.incrementAndGet();
+                task.run();
+            });
+    }
+
+    /**
+     * Stops the worker threads after any queued tasks have completed. If the pool has not been
+     * started, this method does nothing.
+     */
+    public synchronized void shutdown() {
+        if (this.executor == null) {
+            return;
+        }
+
+        log.info("Shutting down certificate signing pool");
+
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for certificate signing pool threads to terminate");
+                this.executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.executor = null;
+    }
+
+    /**
+     * Checks if this pool is enabled and running.
+     *
+     * @return
+     *  true if tasks submitted to this pool are run by its worker threads; false otherwise
+     */
+    public synchronized boolean isRunning() {
+        return this.executor != null;
+    }
+
+    /**
+     * Submits the given task to be run by the pool. If the pool is not running, or its queue is
+     * full, the task is run on the calling thread before this method returns.
+     *
+     * @param task
+     *  the task to run
+     *
+     * @throws IllegalArgumentException
+     *  if task is null
+     *
+     * @return
+     *  a future which completes with the result of the task
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (task == null) {
+            throw new IllegalArgumentException("task is null");
+        }
+
+        Executor target;
+        synchronized (this) {
+            target = this.executor != null ? this.executor : Runnable::run;
+        }
+
+        return CompletableFuture.supplyAsync(task, target);
+    }
+
+    /**
+     * Waits for the given future to complete, and returns its result. Unchecked exceptions thrown
+     * by the task are rethrown as-is.
+     *
+     * @param future
+     *  the future to wait for
+     *
+     * @throws CertificateCreationException
+     *  if the task failed with a checked exception, or the wait was interrupted
+     *
+     * @return
+     *  the result of the future
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new CertificateCreationException("Certificate generation failed", cause);
+        }
+    }
+
+    /**
+     * Runs the given task on the calling thread, recording its execution time against the
+     * specified stage.
+     *
+     * @param stage
+     *  the stage to record the execution time against
+     *
+     * @param task
+     *  the task to run
+     *
+     * @return
+     *  the result of the task
+     */
+    public <T> T time(Stage stage, Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        }
+        finally {
+            this.record(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the given execution time against the specified stage.
+     *
+     * @param stage
+     *  the stage to record the execution time against
+     *
+     * @param nanos
+     *  the execution time, in nanoseconds
+     */
+    public void record(Stage stage, long nanos) {
+        this.stageTimes.addAndGet(stage.ordinal(), nanos);
+        this.stageCounts.incrementAndGet(stage.ordinal());
+    }
+
+    /**
+     * Fetches the cumulative time spent in the given stage.
+     *
+     * @param stage
+     *  the stage for which to fetch the time
+     *
+     * @return
+     *  the time spent in the given stage, in nanoseconds
+     */
+    public long getStageTime(Stage stage) {
+        return this.stageTimes.get(stage.ordinal());
+    }
+
+    /**
+     * Fetches the number of times the given stage has been run.
+     *
+     * @param stage
+     *  the stage for which to fetch the count
+     *
+     * @return
+     *  the number of times the given stage has been run
+     */
+    public long getStageCount(Stage stage) {
+        return this.stageCounts.get(stage.ordinal());
+    }
+
+    /**
+     * Fetches the number of tasks which were run on the submitting thread because the queue was
+     * full.
+     *
+     * @return
+     *  the number of back-pressure events
+     */
+    public long getCallerRunsCount() {
+        return this.callerRuns.get();
+    }
+
+    /**
+     * Thread factory for the worker threads. The threads are daemon threads, so a stalled signing
+     * task never holds up shutdown.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cert-signing-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+
+}
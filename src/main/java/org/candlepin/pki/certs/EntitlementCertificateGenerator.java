@@ -42,6 +42,7 @@ import org.candlepin.pki.KeyPairGenerator;
 import org.candlepin.pki.OID;
 import org.candlepin.pki.PemEncoder;
 import org.candlepin.pki.X509Extension;
+import org.candlepin.pki.certs.CertificateSigningPool.Stage;
 import org.candlepin.pki.impl.Signer;
 import org.candlepin.util.CertificateSizeException;
 import org.candlepin.util.Util;
@@ -60,7 +61,6 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.KeyPair;
-import java.security.cert.X509Certificate;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
@@ -71,6 +71,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -98,6 +99,7 @@ public class EntitlementCertificateGenerator {
     private final PemEncoder pemEncoder;
     private final Signer signer;
     private final Provider<X509CertificateBuilder> certificateBuilder;
+    private final CertificateSigningPool signingPool;
 
     @Inject
     public EntitlementCertificateGenerator(
@@ -114,7 +116,8 @@ public class EntitlementCertificateGenerator {
         KeyPairGenerator keyPairGenerator,
         PemEncoder pemEncoder,
         Signer signer,
-        Provider<X509CertificateBuilder> certificateBuilder) {
+        Provider<X509CertificateBuilder> certificateBuilder,
+        CertificateSigningPool signingPool) {
 
         this.extensionUtil = Objects.requireNonNull(extensionUtil);
         this.v3extensionUtil = Objects.requireNonNull(v3extensionUtil);
@@ -131,6 +134,7 @@ public class EntitlementCertificateGenerator {
         this.pemEncoder = Objects.requireNonNull(pemEncoder);
         this.signer = Objects.requireNonNull(signer);
         this.certificateBuilder = Objects.requireNonNull(certificateBuilder);
+        this.signingPool = Objects.requireNonNull(signingPool);
     }
 
     /**
@@ -171,9 +175,13 @@ public class EntitlementCertificateGenerator {
         PromotedContent promotedContent = new PromotedContent(contentPathBuilder)
             .withAll(environments);
 
-        Map<String, EntitlementCertificate> entitlementCerts = new HashMap<>();
+        // Certificate inputs are prepared here, as doing so may require database access, while the
+        // certificates themselves are built and signed by the signing pool in the meantime
+        Map<String, CompletableFuture<String>> pendingCerts = new HashMap<>();
         boolean shouldCreateV3Certificate = shouldGenerateV3(consumer);
         for (Entry<String, PoolQuantity> entry : poolQuantities.entrySet()) {
+            long prepareStart = System.nanoTime();
+
             Pool pool = entry.getValue().getPool();
             Entitlement ent = entitlements.get(entry.getKey());
             CertificateSerial serial = serialMap.get(entry.getKey());
@@ -200,26 +208,30 @@ public class EntitlementCertificateGenerator {
             providedProducts.add(product);
             Set<X509Extension> extensions = prepareExtensions(consumer, pool, productModels,
                 providedProducts, ent, promotedContent, entitledPools);
-            X509Certificate x509Cert = createX509Certificate(consumer, owner, pool, ent,
+            X509CertificateBuilder builder = prepareX509Certificate(consumer, owner, pool, ent,
                 BigInteger.valueOf(serial.getId()), keyPair, extensions);
 
-            log.debug("Getting PEM encoded cert.");
-            String pem = this.pemEncoder.encodeAsString(x509Cert);
+            byte[] payloadBytes = shouldCreateV3Certificate ?
+                createPayload(consumer, productModels, pool, ent) :
+                null;
 
-            if (shouldCreateV3Certificate) {
-                pem = createPayloadAndSignature(consumer, productModels, pool, ent, pem);
-            }
+            this.signingPool.record(Stage.PREPARE, System.nanoTime() - prepareStart);
+            pendingCerts.put(entry.getKey(),
+                this.signingPool.submit(() -> this.buildCertificate(builder, payloadBytes)));
+        }
 
+        Map<String, EntitlementCertificate> entitlementCerts = new HashMap<>();
+        for (Entry<String, CompletableFuture<String>> entry : pendingCerts.entrySet()) {
             // Build a skeleton cert as part of the entitlement processing.
             EntitlementCertificate cert = new EntitlementCertificate();
             cert.setKeyAsBytes(pemEncodedKeyPair);
-            cert.setCert(pem);
+            cert.setCert(CertificateSigningPool.await(entry.getValue()));
             if (save) {
-                cert.setEntitlement(ent);
+                cert.setEntitlement(entitlements.get(entry.getKey()));
             }
 
             if (log.isDebugEnabled()) {
-                log.debug("Generated cert serial number: {}", serial.getId());
+                log.debug("Generated cert serial number: {}", serialMap.get(entry.getKey()).getId());
                 log.debug("Key: {}", cert.getKey());
                 log.debug("Cert: {}", cert.getCert());
             }
@@ -274,8 +286,12 @@ public class EntitlementCertificateGenerator {
         return derivedProducts;
     }
 
-    private X509Certificate createX509Certificate(Consumer consumer, Owner owner, Pool pool, Entitlement ent,
-        BigInteger serialNumber, KeyPair keyPair, Set<X509Extension> extensions) {
+    /**
+     * Prepares a certificate builder for an entitlement certificate. The builder is fully
+     * configured, such that building the certificate does not require access to any entities.
+     */
+    private X509CertificateBuilder prepareX509Certificate(Consumer consumer, Owner owner, Pool pool,
+        Entitlement ent, BigInteger serialNumber, KeyPair keyPair, Set<X509Extension> extensions) {
 
         Date endDate = setupEntitlementEndDate(pool, consumer);
         ent.setEndDateOverride(endDate);
@@ -294,8 +310,23 @@ public class EntitlementCertificateGenerator {
             .withSerial(serialNumber)
             .withValidity(startDate.toInstant(), endDate.toInstant())
             .withKeyPair(keyPair)
-            .withExtensions(extensions)
-            .build();
+            .withExtensions(extensions);
+    }
+
+    /**
+     * Builds and PEM-encodes a certificate, appending the signed payload for v3 certificates. This
+     * method does not access any entities, and may be run by the signing pool.
+     */
+    private String buildCertificate(X509CertificateBuilder builder, byte[] payloadBytes) {
+        log.debug("Getting PEM encoded cert.");
+        String pem = this.signingPool.time(Stage.BUILD,
+            () -> this.pemEncoder.encodeAsString(builder.build()));
+
+        if (payloadBytes != null) {
+            pem += this.signingPool.time(Stage.SIGN, () -> this.createPayloadAndSignature(payloadBytes));
+        }
+
+        return pem;
     }
 
     private Set<X509Extension> prepareV3ByteExtensions(List<org.candlepin.model.dto.Product> productModels) {
@@ -461,12 +492,14 @@ public class EntitlementCertificateGenerator {
         return result;
     }
 
-    private String createPayloadAndSignature(Consumer consumer,
-        List<org.candlepin.model.dto.Product> productModels, Pool pool, Entitlement ent, String pem) {
+    private byte[] createPayload(Consumer consumer, List<org.candlepin.model.dto.Product> productModels,
+        Pool pool, Entitlement ent) {
+
         log.debug("Generating v3 entitlement data");
-        byte[] payloadBytes = this.payloadGenerator.generate(
-            productModels, consumer.getUuid(), pool, ent.getQuantity());
+        return this.payloadGenerator.generate(productModels, consumer.getUuid(), pool, ent.getQuantity());
+    }
 
+    private String createPayloadAndSignature(byte[] payloadBytes) {
         String payload = "-----BEGIN ENTITLEMENT DATA-----\n";
         payload += Util.toBase64(payloadBytes);
         payload += "-----END ENTITLEMENT DATA-----\n";
@@ -476,8 +509,7 @@ public class EntitlementCertificateGenerator {
         signature += Util.toBase64(bytes);
         signature += "-----END RSA SIGNATURE-----\n";
 
-        pem += payload + signature;
-        return pem;
+        return payload + signature;
     }
 
     private Map<String, CertificateSerial> createSerials(Map<String, PoolQuantity> poolQuantities) {
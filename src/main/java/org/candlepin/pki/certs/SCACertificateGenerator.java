@@ -14,6 +14,7 @@
  */
 package org.candlepin.pki.certs;
 
+import org.candlepin.cache.SCAContentCache;
 import org.candlepin.controller.util.ContentPathBuilder;
 import org.candlepin.controller.util.PromotedContent;
 import org.candlepin.model.CertificateSerial;
@@ -22,7 +23,6 @@ import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ContentAccessCertificateCurator;
 import org.candlepin.model.ContentCurator;
-import org.candlepin.model.Entitlement;
 import org.candlepin.model.Environment;
 import org.candlepin.model.EnvironmentCurator;
 import org.candlepin.model.Owner;
@@ -50,12 +50,17 @@ import java.security.cert.X509Certificate;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -82,6 +87,7 @@ public class SCACertificateGenerator {
     private final KeyPairGenerator keyPairGenerator;
     private final Signer signer;
     private final Provider<X509CertificateBuilder> certificateBuilder;
+    private final SCAContentCache contentCache;
 
     @Inject
     public SCACertificateGenerator(
@@ -96,7 +102,8 @@ public class SCACertificateGenerator {
         PemEncoder pemEncoder,
         KeyPairGenerator keyPairGenerator,
         Signer signer,
-        Provider<X509CertificateBuilder> certificateBuilder) {
+        Provider<X509CertificateBuilder> certificateBuilder,
+        SCAContentCache contentCache) {
 
         this.v3CapabilityCheck = Objects.requireNonNull(v3CapabilityCheck);
         this.contentAccessCertificateCurator = Objects.requireNonNull(contentAccessCertificateCurator);
@@ -110,6 +117,7 @@ public class SCACertificateGenerator {
         this.keyPairGenerator = Objects.requireNonNull(keyPairGenerator);
         this.signer = Objects.requireNonNull(signer);
         this.certificateBuilder = Objects.requireNonNull(certificateBuilder);
+        this.contentCache = Objects.requireNonNull(contentCache);
     }
 
     /**
@@ -144,6 +152,242 @@ public class SCACertificateGenerator {
         return null;
     }
 
+    /**
+     * Generates or refreshes the Simple Content Access certificates of the given consumers of a
+     * single organization in bulk. Certificates are regenerated under the same conditions as they
+     * are by {@link #generate(Consumer)}: when missing, expired, or older than the organization's
+     * last content update. Consumers with up-to-date certificates, and consumers which are not
+     * capable of using v3 certificates, are skipped.
+     * <p>
+     * Environment lookups and the organization's content are resolved once for the entire set of
+     * consumers. The certificates and their payloads are then built and signed in parallel using
+     * the given executor, and persisted in batches. This method must be called from within a
+     * transaction.
+     *
+     * @param owner
+     *  the organization owning the consumers
+     *
+     * @param consumers
+     *  the consumers for which to generate certificates
+     *
+     * @param executor
+     *  the executor to use to build and sign the certificates
+     *
+     * @throws IllegalArgumentException
+     *  if any of the arguments are null, or any consumer does not belong to the given organization
+     *
+     * @throws CertificateCreationException
+     *  if any of the certificates could not be built
+     *
+     * @return
+     *  a list of the certificates which were created or updated
+     */
+    public List<SCACertificate> generate(Owner owner, Collection<Consumer> consumers, Executor executor) {
+        if (owner == null) {
+            throw new IllegalArgumentException("owner is null");
+        }
+
+        if (consumers == null) {
+            throw new IllegalArgumentException("consumers is null");
+        }
+
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+
+        if (!owner.isUsingSimpleContentAccess()) {
+            return new ArrayList<>();
+        }
+
+        List<Consumer> eligible = new ArrayList<>();
+        for (Consumer consumer : consumers) {
+            if (consumer == null) {
+                continue;
+            }
+
+            if (!owner.getId().equals(consumer.getOwnerId())) {
+                throw new IllegalArgumentException("consumer does not belong to the given owner: " +
+                    consumer.getUuid());
+            }
+
+            if (this.v3CapabilityCheck.isCertV3Capable(consumer)) {
+                eligible.add(consumer);
+            }
+        }
+
+        if (eligible.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        OffsetDateTime start = OffsetDateTime.now().minusHours(1L);
+        OffsetDateTime end = start.plusYears(1L);
+
+        List<PendingCertificate> pending = this.prepareCertificates(owner, eligible, end);
+        if (pending.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        log.info("Generating {} SCA certificate(s) for owner \"{}\"...", pending.size(), owner.getKey());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(pending.size());
+        for (PendingCertificate cert : pending) {
+            futures.add(CompletableFuture.runAsync(() -> this.buildCertificate(cert, owner, start, end),
+                executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+        catch (CompletionException e) {
+            throw new CertificateCreationException("Failed to generate SCA certificates for owner: " +
+                owner.getKey(), e.getCause());
+        }
+
+        return this.persistCertificates(pending);
+    }
+
+    /**
+     * Determines which of the given consumers need their certificates (re)generated, and resolves
+     * everything needed to do so which requires database access. Serials for any certificates to
+     * be issued are created and flushed, so their IDs are available to the certificate builder.
+     */
+    private List<PendingCertificate> prepareCertificates(Owner owner, List<Consumer> consumers,
+        OffsetDateTime end) {
+
+        Map<String, List<Environment>> environments = this.getConsumerEnvironments(consumers);
+        Date contentUpdate = owner.getLastContentUpdate();
+        Date now = new Date();
+
+        List<PendingCertificate> pending = new ArrayList<>();
+        List<CertificateSerial> serials = new ArrayList<>();
+        List<Long> revokedSerialIds = new ArrayList<>();
+
+        for (Consumer consumer : consumers) {
+            SCACertificate existing = consumer.getContentAccessCert();
+            boolean reissue = existing == null || existing.getSerial().getExpiration().before(now);
+
+            if (!reissue && contentUpdate.before(existing.getUpdated())) {
+                continue;
+            }
+
+            PendingCertificate cert = new PendingCertificate(consumer, existing,
+                environments.getOrDefault(consumer.getId(), List.of()));
+
+            if (reissue) {
+                if (existing != null) {
+                    revokedSerialIds.add(existing.getSerial().getId());
+                }
+
+                cert.serial = new CertificateSerial(Date.from(end.toInstant()));
+                cert.keyPair = this.keyPairGenerator.getKeyPair(consumer);
+                serials.add(cert.serial);
+            }
+
+            cert.product = this.getContentAccessProduct(consumer, owner, cert.environments);
+            pending.add(cert);
+        }
+
+        if (!serials.isEmpty()) {
+            this.serialCurator.saveAll(serials, true, false);
+        }
+
+        if (!revokedSerialIds.isEmpty()) {
+            this.serialCurator.revokeByIds(revokedSerialIds);
+        }
+
+        return pending;
+    }
+
+    private Map<String, List<Environment>> getConsumerEnvironments(List<Consumer> consumers) {
+        List<String> consumerIds = consumers.stream()
+            .map(Consumer::getId)
+            .collect(Collectors.toList());
+
+        Map<String, List<String>> consumerEnvironmentIds = this.environmentCurator
+            .findEnvironmentsOf(consumerIds);
+
+        Set<String> environmentIds = consumerEnvironmentIds.values()
+            .stream()
+            .flatMap(List::stream)
+            .collect(Collectors.toSet());
+
+        Map<String, Environment> environmentMap = environmentIds.isEmpty() ?
+            Map.of() :
+            this.environmentCurator.listAllByIds(environmentIds)
+                .stream()
+                .collect(Collectors.toMap(Environment::getId, Function.identity()));
+
+        Map<String, List<Environment>> result = new HashMap<>();
+        consumerEnvironmentIds.forEach((consumerId, envIds) -> result.put(consumerId, envIds.stream()
+            .map(environmentMap::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList())));
+
+        return result;
+    }
+
+    /**
+     * Builds and signs the certificate and payload of a pending certificate. This method does not
+     * access the database, and may be called concurrently for different certificates.
+     */
+    private void buildCertificate(PendingCertificate cert, Owner owner, OffsetDateTime start,
+        OffsetDateTime end) {
+
+        String consumerUuid = cert.consumer.getUuid();
+
+        if (cert.serial != null) {
+            org.candlepin.model.dto.Product container = this.createSCAProdContainer(owner,
+                cert.environments);
+            X509Certificate x509Cert = this.createX509Cert(consumerUuid, owner, cert.serial,
+                cert.keyPair, container, start, end);
+
+            cert.cert = this.pemEncoder.encodeAsString(x509Cert);
+            cert.key = this.pemEncoder.encodeAsBytes(cert.keyPair.getPrivate());
+        }
+
+        byte[] payloadBytes = this.createContentAccessDataPayload(consumerUuid, cert.product);
+        cert.content = this.createPayloadAndSignature(payloadBytes);
+    }
+
+    private List<SCACertificate> persistCertificates(List<PendingCertificate> pending) {
+        List<SCACertificate> created = new ArrayList<>();
+        List<SCACertificate> updated = new ArrayList<>();
+        List<Consumer> linked = new ArrayList<>();
+
+        for (PendingCertificate cert : pending) {
+            SCACertificate entity = cert.existing;
+
+            if (entity == null) {
+                entity = new SCACertificate();
+                entity.setConsumer(cert.consumer);
+                entity.setKeyAsBytes(cert.key);
+
+                cert.consumer.setContentAccessCert(entity);
+                created.add(entity);
+                linked.add(cert.consumer);
+            }
+            else {
+                updated.add(entity);
+            }
+
+            if (cert.serial != null) {
+                entity.setSerial(cert.serial);
+                entity.setCert(cert.cert);
+            }
+
+            entity.setContent(cert.content);
+        }
+
+        this.contentAccessCertificateCurator.saveAll(created, true, false);
+        this.contentAccessCertificateCurator.updateAll(updated, true, false);
+        this.consumerCurator.updateAll(linked, true, false);
+
+        List<SCACertificate> result = new ArrayList<>(created);
+        result.addAll(updated);
+
+        return result;
+    }
+
     private SCACertificate wrap(SCACertificate cert) {
         SCACertificate result = new SCACertificate();
         result.setCert(cert.getCert() + cert.getContent());
@@ -185,19 +429,7 @@ public class SCACertificateGenerator {
         org.candlepin.model.dto.Product container = createSCAProdContainer(owner, consumer);
 
         List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
-        ContentPathBuilder contentPathBuilder = ContentPathBuilder.from(owner, environments);
-        PromotedContent promotedContent = new PromotedContent(contentPathBuilder).withAll(environments);
-
-        Function<ProductContent, String> cidFetcher = pcinfo -> pcinfo.getContent().getId();
-
-        Map<String, ProductContent> ownerContent = this.contentCurator
-            .getActiveContentByOwner(owner.getId())
-            .stream()
-            .collect(Collectors.toMap(cidFetcher, Function.identity(),
-                (v1, v2) -> new ProductContent(v2.getContent(), v1.isEnabled() || v2.isEnabled())));
-
-
-        byte[] payloadBytes = createContentAccessDataPayload(consumer, ownerContent, promotedContent);
+        byte[] payloadBytes = createContentAccessDataPayload(consumer, owner, environments);
 
         X509Certificate x509Cert = createX509Cert(consumer.getUuid(), owner, serial,
             keyPair, container, start, end);
@@ -241,18 +473,7 @@ public class SCACertificateGenerator {
         boolean shouldUpdateContent = !contentUpdate.before(existing.getUpdated());
         if (shouldUpdateContent || isX509CertExpired) {
             List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
-            ContentPathBuilder contentPathBuilder = ContentPathBuilder.from(owner, environments);
-            PromotedContent promotedContent = new PromotedContent(contentPathBuilder).withAll(environments);
-
-            Function<ProductContent, String> cidFetcher = pcinfo -> pcinfo.getContent().getId();
-
-            Map<String, ProductContent> ownerContent = this.contentCurator
-                .getActiveContentByOwner(owner.getId())
-                .stream()
-                .collect(Collectors.toMap(cidFetcher, Function.identity(),
-                    (v1, v2) -> new ProductContent(v2.getContent(), v1.isEnabled() || v2.isEnabled())));
-
-            byte[] payloadBytes = createContentAccessDataPayload(consumer, ownerContent, promotedContent);
+            byte[] payloadBytes = createContentAccessDataPayload(consumer, owner, environments);
             existing.setContent(this.createPayloadAndSignature(payloadBytes));
             this.contentAccessCertificateCurator.saveOrUpdate(existing);
         }
@@ -261,9 +482,14 @@ public class SCACertificateGenerator {
     }
 
     private org.candlepin.model.dto.Product createSCAProdContainer(Owner owner, Consumer consumer) {
+        return this.createSCAProdContainer(owner, this.environmentCurator.getConsumerEnvironments(consumer));
+    }
+
+    private org.candlepin.model.dto.Product createSCAProdContainer(Owner owner,
+        List<Environment> environments) {
+
         org.candlepin.model.dto.Product container = new org.candlepin.model.dto.Product();
         List<Content> dtoContents = new ArrayList<>();
-        List<Environment> environments = this.environmentCurator.getConsumerEnvironments(consumer);
 
         for (Environment environment : environments) {
             dtoContents.add(createContent(owner, environment));
@@ -357,40 +583,109 @@ public class SCACertificateGenerator {
         }
     }
 
-    private byte[] createContentAccessDataPayload(Consumer consumer,
-        Map<String, ProductContent> activateContent, PromotedContent promotedContent) {
+    private byte[] createContentAccessDataPayload(Consumer consumer, Owner owner,
+        List<Environment> environments) {
+
+        org.candlepin.model.dto.Product productModel = this.getContentAccessProduct(consumer, owner,
+            environments);
+
+        return this.createContentAccessDataPayload(consumer != null ? consumer.getUuid() : null,
+            productModel);
+    }
+
+    private org.candlepin.model.dto.Product getContentAccessProduct(Consumer consumer, Owner owner,
+        List<Environment> environments) {
+
+        // The content product only depends on the owner's content view and the consumer's
+        // environments and arches, so it can be shared with other consumers in the same org
+        Set<String> arches = consumer != null ? this.v3extensionUtil.archesOf(consumer) : Set.of();
+        SCAContentCache.Key key = SCAContentCache.Key.of(owner, environments, arches);
+
+        return this.contentCache.get(key,
+            () -> this.createContentAccessProduct(consumer, owner, environments));
+    }
+
+    private byte[] createContentAccessDataPayload(String consumerUuid,
+        org.candlepin.model.dto.Product productModel) {
 
-        String consumerUuid = consumer != null ? consumer.getUuid() : null;
         log.info("Generating SCA payload for consumer \"{}\"...", consumerUuid);
 
+        Product skuProduct = createSkuProduct();
+        Pool emptyPool = createEmptyPool(skuProduct);
+
+        List<org.candlepin.model.dto.Product> productModels = new ArrayList<>();
+        productModels.add(productModel);
+
+        return this.payloadGenerator.generate(productModels, consumerUuid, emptyPool, null);
+    }
+
+    private org.candlepin.model.dto.Product createContentAccessProduct(Consumer consumer, Owner owner,
+        List<Environment> environments) {
+
+        log.debug("Building SCA content for owner \"{}\"...", owner.getKey());
+
+        ContentPathBuilder contentPathBuilder = ContentPathBuilder.from(owner, environments);
+        PromotedContent promotedContent = new PromotedContent(contentPathBuilder).withAll(environments);
+
+        Function<ProductContent, String> cidFetcher = pcinfo -> pcinfo.getContent().getId();
+
+        Map<String, ProductContent> ownerContent = this.contentCurator
+            .getActiveContentByOwner(owner.getId())
+            .stream()
+            .collect(Collectors.toMap(cidFetcher, Function.identity(),
+                (v1, v2) -> new ProductContent(v2.getContent(), v1.isEnabled() || v2.isEnabled())));
+
         Product engProduct = new Product()
             .setId("content_access")
             .setName(" Content Access")
-            .setProductContent(activateContent.values());
+            .setProductContent(ownerContent.values());
 
-        Product skuProduct = new Product()
+        Product skuProduct = createSkuProduct();
+        Pool emptyPool = createEmptyPool(skuProduct);
+
+        Set<String> entitledProductIds = new HashSet<>();
+        entitledProductIds.add("content-access");
+
+        return v3extensionUtil.mapProduct(engProduct, skuProduct, promotedContent, consumer, emptyPool,
+            entitledProductIds);
+    }
+
+    private Product createSkuProduct() {
+        return new Product()
             .setId("content_access")
             .setName("Content Access");
+    }
 
-        Pool emptyPool = new Pool()
+    private Pool createEmptyPool(Product skuProduct) {
+        return new Pool()
             .setProduct(skuProduct)
             .setStartDate(new Date())
             .setEndDate(new Date());
+    }
 
-        Entitlement emptyEnt = new Entitlement();
-        emptyEnt.setPool(emptyPool);
-        emptyEnt.setConsumer(consumer);
-
-        Set<String> entitledProductIds = new HashSet<>();
-        entitledProductIds.add("content-access");
-
-        org.candlepin.model.dto.Product productModel = v3extensionUtil.mapProduct(engProduct, skuProduct,
-            promotedContent, consumer, emptyPool, entitledProductIds);
-
-        List<org.candlepin.model.dto.Product> productModels = new ArrayList<>();
-        productModels.add(productModel);
-
-        return this.payloadGenerator.generate(productModels, consumerUuid, emptyPool, null);
+    /**
+     * The state of a certificate being generated as part of a batch. The serial and key pair are
+     * only set for certificates which are being (re)issued, rather than having only their content
+     * refreshed.
+     */
+    private static class PendingCertificate {
+        private final Consumer consumer;
+        private final SCACertificate existing;
+        private final List<Environment> environments;
+
+        private CertificateSerial serial;
+        private KeyPair keyPair;
+        private org.candlepin.model.dto.Product product;
+
+        private String cert;
+        private byte[] key;
+        private String content;
+
+        PendingCertificate(Consumer consumer, SCACertificate existing, List<Environment> environments) {
+            this.consumer = consumer;
+            this.existing = existing;
+            this.environments = environments;
+        }
     }
 
 }
@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.huffman;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.model.dto.Content;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * Encodes content path sets into the Huffman-compressed payload used by v3 entitlement
+ * certificates, in the same format produced by {@link Huffman#retrieveContentValue(List)} and read
+ * by {@link Huffman#hydrateContentPackage(byte[])}.
+ * <p>
+ * Rather than building a tree of path node objects and condensing equivalent subtrees by pairwise
+ * comparison, the paths are sorted and folded into a directed acyclic graph bottom-up, with every
+ * subtree memoized by its signature as it is built, so equivalent subtrees are only ever stored
+ * once. The Huffman codes for the segment and node dictionaries depend only on the size of each
+ * dictionary, and are computed into plain arrays without building any trie objects.
+ * <p>
+ * Encoded payloads are deterministic for a given set of paths, regardless of their order, and are
+ * additionally cached by path set; orgs with large content sets tend to issue many certificates
+ * with identical content.
+ */
+@Singleton
+public class ContentPathEncoder {
+
+    // The canonical ID of the terminal node, in which every path ends
+    private static final int END_NODE = 0;
+
+    private final Cache<String, byte[]> payloadCache;
+
+    @Inject
+    public ContentPathEncoder(Configuration config) throws ConfigurationException {
+        this(getMaxCachedPayloads(config));
+    }
+
+    /**
+     * Creates a new encoder which caches up to the given number of encoded payloads.
+     *
+     * @param maxEntries
+     *  the maximum number of payloads to cache; zero disables caching
+     */
+    ContentPathEncoder(long maxEntries) {
+        this.payloadCache = maxEntries > 0 ?
+            Caffeine.newBuilder().maximumSize(maxEntries).build() :
+            null;
+    }
+
+    private static long getMaxCachedPayloads(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        long maxEntries = config.getLong(ConfigProperties.CACHE_CONTENT_PAYLOAD_MAX_ENTRIES);
+        if (maxEntries < 0) {
+            throw new ConfigurationException(ConfigProperties.CACHE_CONTENT_PAYLOAD_MAX_ENTRIES +
+                " must be larger than or equal to 0");
+        }
+
+        return maxEntries;
+    }
+
+    /**
+     * Encodes the paths of the given content into a v3 certificate content payload.
+     *
+     * @param contents
+     *  the content to encode
+     *
+     * @throws IOException
+     *  if the segment dictionary cannot be compressed
+     *
+     * @return
+     *  the encoded payload, or an empty array if the given content has no usable paths
+     */
+    public byte[] encode(Collection<Content> contents) throws IOException {
+        List<String> paths = new ArrayList<>();
+        if (contents != null) {
+            for (Content content : contents) {
+                if (content != null && content.getPath() != null) {
+                    paths.add(content.getPath());
+                }
+            }
+        }
+
+        return this.encodePaths(paths);
+    }
+
+    /**
+     * Encodes the given content paths into a v3 certificate content payload.
+     *
+     * @param paths
+     *  the content paths to encode
+     *
+     * @throws IOException
+     *  if the segment dictionary cannot be compressed
+     *
+     * @return
+     *  the encoded payload, or an empty array if none of the given paths have any segments
+     */
+    public byte[] encodePaths(Collection<String> paths) throws IOException {
+        // Normalize and deduplicate the paths; the encoding does not depend on their order
+        TreeSet<String> normalized = new TreeSet<>();
+        if (paths != null) {
+            for (String path : paths) {
+                StringTokenizer tokenizer = new StringTokenizer(path, "/");
+                StringBuilder builder = new StringBuilder();
+
+                while (tokenizer.hasMoreTokens()) {
+                    builder.append('/').append(tokenizer.nextToken());
+                }
+
+                if (builder.length() > 0) {
+                    normalized.add(builder.toString());
+                }
+            }
+        }
+
+        if (normalized.isEmpty()) {
+            return new byte[0];
+        }
+
+        if (this.payloadCache == null) {
+            return new Encoding(normalized).encode();
+        }
+
+        String key = DigestUtils.sha256Hex(String.join("\n", normalized));
+        byte[] payload = this.payloadCache.getIfPresent(key);
+        if (payload == null) {
+            payload = new Encoding(normalized).encode();
+            this.payloadCache.put(key, payload);
+        }
+
+        // Cached payloads are shared, and must not be exposed to modification
+        return payload.clone();
+    }
+
+    /**
+     * Computes the Huffman code for each of a number of dictionary entries, where entry i has
+     * weight i + 1. This is the trie built by {@link Huffman#makeTrie(List)}: the two lightest
+     * nodes are merged repeatedly, with ties broken in favor of the node created earliest, and the
+     * lighter node becoming the left (zero) branch.
+     * <p>
+     * Since the entry weights are already sorted, and merged weights never decrease, two queues
+     * suffice to find the lightest nodes in order, without any sorting or searching.
+     *
+     * @param count
+     *  the number of dictionary entries, which must be at least 2
+     *
+     * @param codes
+     *  an array to receive the code for each entry, packed into the low bits
+     *
+     * @param lengths
+     *  an array to receive the length, in bits, of the code for each entry
+     */
+    static void computeCodes(int count, long[] codes, int[] lengths) {
+        int total = 2 * count - 1;
+        long[] weights = new long[total];
+        int[] left = new int[total];
+        int[] right = new int[total];
+
+        for (int i = 0; i < count; ++i) {
+            weights[i] = i + 1;
+        }
+
+        // Entries are consumed from the front of [0, count), and merged nodes from [count, next)
+        int entry = 0;
+        int merged = count;
+        int next = count;
+
+        while (next < total) {
+            int lightest = merged < next && (entry >= count || weights[merged] < weights[entry]) ?
+                merged++ :
+                entry++;
+
+            int second = merged < next && (entry >= count || weights[merged] < weights[entry]) ?
+                merged++ :
+                entry++;
+
+            weights[next] = weights[lightest] + weights[second];
+            left[next] = lightest;
+            right[next] = second;
+            ++next;
+        }
+
+        // Walk down from the root, which is the last node merged. Merged nodes always have larger
+        // indexes than their children, so codes can be assigned in a single descending pass.
+        long[] nodeCodes = new long[total];
+        int[] nodeLengths = new int[total];
+
+        for (int node = total - 1; node >= count; --node) {
+            nodeCodes[left[node]] = nodeCodes[node] << 1;
+            nodeLengths[left[node]] = nodeLengths[node] + 1;
+            nodeCodes[right[node]] = (nodeCodes[node] << 1) | 1L;
+            nodeLengths[right[node]] = nodeLengths[node] + 1;
+        }
+
+        System.arraycopy(nodeCodes, 0, codes, 0, count);
+        System.arraycopy(nodeLengths, 0, lengths, 0, count);
+    }
+
+    /**
+     * The signature of a node in the path graph: the segment and canonical child ID of each of
+     * its edges. Nodes with equal signatures root identical subtrees.
+     */
+    private static class Signature {
+        private final int[] edges;
+        private final int hash;
+
+        Signature(int[] edges) {
+            this.edges = edges;
+            this.hash = Arrays.hashCode(edges);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Signature && Arrays.equals(this.edges, ((Signature) obj).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * The state of a single encoding. Nodes of the path graph are identified by their canonical
+     * ID, an index into the list of node edges; segments are identified by their index in the
+     * list of segments.
+     */
+    private static class Encoding {
+        private final String[][] paths;
+
+        private final Map<String, Integer> segmentIds = new HashMap<>();
+        private final List<String> segments = new ArrayList<>();
+
+        private final Map<Signature, Integer> nodeIds = new HashMap<>();
+        private final List<int[]> nodeEdges = new ArrayList<>();
+
+        Encoding(TreeSet<String> normalized) {
+            this.paths = new String[normalized.size()][];
+
+            int index = 0;
+            for (String path : normalized) {
+                // Normalized paths always begin with a separator
+                this.paths[index++] = path.substring(1).split("/");
+            }
+
+            // Order the paths segment-by-segment, so paths sharing a prefix are adjacent
+            Arrays.sort(this.paths, Arrays::compare);
+
+            this.nodeIds.put(new Signature(new int[0]), END_NODE);
+            this.nodeEdges.add(new int[0]);
+        }
+
+        private int getSegmentId(String segment) {
+            Integer id = this.segmentIds.get(segment);
+            if (id == null) {
+                id = this.segments.size();
+                this.segmentIds.put(segment, id);
+                this.segments.add(segment);
+            }
+
+            return id;
+        }
+
+        /**
+         * Builds the subgraph for the paths in [from, to), all of which share their first depth
+         * segments, returning the canonical ID of its root.
+         */
+        private int build(int from, int to, int depth) {
+            List<Integer> edges = new ArrayList<>();
+
+            int offset = from;
+            while (offset < to) {
+                String segment = this.paths[offset][depth];
+                int segmentId = this.getSegmentId(segment);
+
+                int end = offset + 1;
+                while (end < to && segment.equals(this.paths[end][depth])) {
+                    ++end;
+                }
+
+                // Sorting places the path ending at this segment, if any, first in the group. It is
+                // encoded as a separate edge to the terminal node, so it is not lost when other
+                // paths continue beyond it. This is the same shape the Huffman encoder builds when
+                // the shorter path is listed first.
+                if (this.paths[offset].length == depth + 1) {
+                    edges.add(segmentId);
+                    edges.add(END_NODE);
+                    ++offset;
+                }
+
+                if (offset < end) {
+                    edges.add(segmentId);
+                    edges.add(this.build(offset, end, depth + 1));
+                }
+
+                offset = end;
+            }
+
+            int[] signature = new int[edges.size()];
+            for (int i = 0; i < signature.length; ++i) {
+                signature[i] = edges.get(i);
+            }
+
+            // Equivalent subtrees share a single node
+            return this.nodeIds.computeIfAbsent(new Signature(signature), key -> {
+                this.nodeEdges.add(key.edges);
+                return this.nodeEdges.size() - 1;
+            });
+        }
+
+        public byte[] encode() throws IOException {
+            int root = this.build(0, this.paths.length, 0);
+            int nodeCount = this.nodeEdges.size();
+
+            // Count the uses of each segment and the distinct parents of each node
+            int[] segmentUses = new int[this.segments.size()];
+            int[] parentCounts = new int[nodeCount];
+            int[] lastParent = new int[nodeCount];
+            Arrays.fill(lastParent, -1);
+
+            for (int node = 0; node < nodeCount; ++node) {
+                int[] edges = this.nodeEdges.get(node);
+                for (int i = 0; i < edges.length; i += 2) {
+                    ++segmentUses[edges[i]];
+
+                    int child = edges[i + 1];
+                    if (lastParent[child] != node) {
+                        lastParent[child] = node;
+                        ++parentCounts[child];
+                    }
+                }
+            }
+
+            // Segments are ordered by ascending use, so the most common receive the shortest codes
+            Integer[] segmentOrder = new Integer[this.segments.size()];
+            for (int i = 0; i < segmentOrder.length; ++i) {
+                segmentOrder[i] = i;
+            }
+
+            Arrays.sort(segmentOrder, (lhs, rhs) -> segmentUses[lhs] != segmentUses[rhs] ?
+                Integer.compare(segmentUses[lhs], segmentUses[rhs]) :
+                this.segments.get(lhs).compareTo(this.segments.get(rhs)));
+
+            // Nodes are ordered by ascending parent count, which always places the root first
+            Integer[] nodeOrder = new Integer[nodeCount];
+            for (int i = 0; i < nodeCount; ++i) {
+                nodeOrder[i] = i;
+            }
+
+            Arrays.sort(nodeOrder, (lhs, rhs) -> parentCounts[lhs] != parentCounts[rhs] ?
+                Integer.compare(parentCounts[lhs], parentCounts[rhs]) :
+                Integer.compare(lhs, rhs));
+
+            if (nodeOrder[0] != root) {
+                throw new IllegalStateException("Root node not ordered first");
+            }
+
+            // A single node plus the terminal node is padded with an empty node, as the node trie
+            // needs at least two entries once the root is dropped
+            int encodedNodeCount = nodeCount == 2 ? 3 : nodeCount;
+
+            int[] segmentPositions = new int[segmentOrder.length];
+            for (int i = 0; i < segmentOrder.length; ++i) {
+                segmentPositions[segmentOrder[i]] = i;
+            }
+
+            int[] nodePositions = new int[nodeCount];
+            for (int i = 0; i < nodeCount; ++i) {
+                nodePositions[nodeOrder[i]] = i;
+            }
+
+            // The segment trie includes an extra entry marking the end of each node's edges
+            int segmentCodeCount = segmentOrder.length + 1;
+            long[] segmentCodes = new long[segmentCodeCount];
+            int[] segmentLengths = new int[segmentCodeCount];
+            computeCodes(segmentCodeCount, segmentCodes, segmentLengths);
+
+            // The root is never referenced, and is left out of the node trie
+            int nodeCodeCount = encodedNodeCount - 1;
+            long[] nodeCodes = new long[nodeCodeCount];
+            int[] nodeLengths = new int[nodeCodeCount];
+            computeCodes(nodeCodeCount, nodeCodes, nodeLengths);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            this.writeSegments(output, segmentOrder);
+            this.writeNodeCount(output, encodedNodeCount);
+
+            BitWriter writer = new BitWriter(output);
+            int endPosition = segmentCodeCount - 1;
+
+            for (int node : nodeOrder) {
+                int[] edges = this.nodeEdges.get(node);
+                for (int i = 0; i < edges.length; i += 2) {
+                    int segment = segmentPositions[edges[i]];
+                    int child = nodePositions[edges[i + 1]] - 1;
+
+                    writer.write(segmentCodes[segment], segmentLengths[segment]);
+                    writer.write(nodeCodes[child], nodeLengths[child]);
+                }
+
+                writer.write(segmentCodes[endPosition], segmentLengths[endPosition]);
+            }
+
+            // The padding node has no edges
+            if (encodedNodeCount > nodeCount) {
+                writer.write(segmentCodes[endPosition], segmentLengths[endPosition]);
+            }
+
+            writer.flush();
+            return output.toByteArray();
+        }
+
+        private void writeSegments(ByteArrayOutputStream output, Integer[] segmentOrder) throws IOException {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (DeflaterOutputStream dos = new DeflaterOutputStream(output, deflater)) {
+                for (int segment : segmentOrder) {
+                    dos.write(this.segments.get(segment).getBytes(StandardCharsets.UTF_8));
+                    dos.write(0);
+                }
+
+                dos.finish();
+            }
+            finally {
+                deflater.end();
+            }
+        }
+
+        private void writeNodeCount(ByteArrayOutputStream output, int count) {
+            if (count > 127) {
+                // Large counts are written as a byte count, followed by the significant bytes
+                int bytes = (Integer.SIZE - Integer.numberOfLeadingZeros(count) + 7) / 8;
+                output.write(128 + bytes);
+
+                for (int i = bytes - 1; i >= 0; --i) {
+                    output.write(count >>> (8 * i));
+                }
+            }
+            else {
+                output.write(count);
+            }
+        }
+    }
+
+    /**
+     * Writes variable-length codes into a byte stream, most significant bit first. The final byte
+     * is padded with zeros.
+     */
+    private static class BitWriter {
+        private final ByteArrayOutputStream output;
+        private int current;
+        private int count;
+
+        BitWriter(ByteArrayOutputStream output) {
+            this.output = output;
+        }
+
+        public void write(long code, int length) {
+            for (int i = length - 1; i >= 0; --i) {
+                this.current = (this.current << 1) | (int) ((code >>> i) & 1L);
+
+                if (++this.count == 8) {
+                    this.output.write(this.current);
+                    this.current = 0;
+                    this.count = 0;
+                }
+            }
+        }
+
+        public void flush() {
+            if (this.count > 0) {
+                this.output.write(this.current << (8 - this.count));
+                this.current = 0;
+                this.count = 0;
+            }
+        }
+    }
+
+}
@@ -53,12 +53,14 @@ public class BouncyCastleKeyPairGenerator implements KeyPairGenerator {
 
     private final Provider<BouncyCastleProvider> securityProvider;
     private final KeyPairDataCurator keypairDataCurator;
+    private final KeyPairPool keypairPool;
 
     @Inject
     public BouncyCastleKeyPairGenerator(Provider<BouncyCastleProvider> securityProvider,
-        KeyPairDataCurator keypairDataCurator) {
+        KeyPairDataCurator keypairDataCurator, KeyPairPool keypairPool) {
         this.keypairDataCurator = Objects.requireNonNull(keypairDataCurator);
         this.securityProvider = Objects.requireNonNull(securityProvider);
+        this.keypairPool = Objects.requireNonNull(keypairPool);
     }
 
     @Override
@@ -111,8 +113,28 @@ public class BouncyCastleKeyPairGenerator implements KeyPairGenerator {
         return keypair;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Key pairs are drawn from the pre-generated key pair pool when one is available, falling back
+     * to inline generation if the pool is disabled or empty.
+     */
     @Override
     public KeyPair generateKeyPair() {
+        KeyPair keypair = this.keypairPool.poll();
+        return keypair != null ? keypair : createKeyPair();
+    }
+
+    /**
+     * Generates a new RSA key pair on the calling thread.
+     *
+     * @throws KeyPairCreationException
+     *  When there was a problem during key pair creation.
+     *
+     * @return
+     *  a KeyPair instance containing a new public and private key
+     */
+    static KeyPair createKeyPair() {
         try {
             java.security.KeyPairGenerator keyGen = java.security.KeyPairGenerator.getInstance(KEY_ALGORITHM);
             keyGen.initialize(KEY_SIZE);
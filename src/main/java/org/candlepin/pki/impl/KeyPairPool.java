@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.impl;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyPair;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * A bounded pool of pre-generated key pairs, filled in the background by a configurable number of
+ * refill threads. Key pair generation is expensive enough that doing it inline during consumer
+ * registration causes significant latency when many consumers register at once; drawing from this
+ * pool reduces that to a queue poll.
+ * <p>
+ * The pool is disabled when its configured size is zero, in which case {@link #poll()} always
+ * returns null and callers are expected to generate key pairs inline.
+ */
+@Singleton
+public class KeyPairPool {
+    private static final Logger log = LoggerFactory.getLogger(KeyPairPool.class);
+
+    /** The initial delay, in milliseconds, before a refill thread retries a failed generation */
+    private static final long DEFAULT_RETRY_DELAY = 1000;
+
+    /** The maximum delay, in milliseconds, between retries of failed generations */
+    private static final long MAX_RETRY_DELAY = 60000;
+
+    private final Supplier<KeyPair> factory;
+    private final long retryDelay;
+    private final int capacity;
+    private final int refillThreads;
+    private final int lowWaterMark;
+
+    private final BlockingQueue<KeyPair> pool;
+    private ExecutorService executor;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong lowWaterEvents;
+    private final AtomicLong failures;
+
+    @Inject
+    public KeyPairPool(Configuration config) throws ConfigurationException {
+        this(config, BouncyCastleKeyPairGenerator::createKeyPair);
+    }
+
+    /**
+     * Creates a new key pair pool which uses the given factory to generate key pairs.
+     *
+     * @param config
+     *  the configuration to use to size the pool
+     *
+     * @param factory
+     *  the factory to use to generate new key pairs
+     *
+     * @throws ConfigurationException
+     *  if the pool configuration is invalid
+     */
+    KeyPairPool(Configuration config, Supplier<KeyPair> factory) throws ConfigurationException {
+        this(config, factory, DEFAULT_RETRY_DELAY);
+    }
+
+    /**
+     * Creates a new key pair pool which uses the given factory to generate key pairs, and waits
+     * the given delay before retrying a failed generation. The delay doubles with each consecutive
+     * failure of a refill thread, up to one minute.
+     *
+     * @param config
+     *  the configuration to use to size the pool
+     *
+     * @param factory
+     *  the factory to use to generate new key pairs
+     *
+     * @param retryDelay
+     *  the initial delay, in milliseconds, before retrying a failed generation
+     *
+     * @throws ConfigurationException
+     *  if the pool configuration is invalid
+     */
+    KeyPairPool(Configuration config, Supplier<KeyPair> factory, long retryDelay)
+        throws ConfigurationException {
+
+        Objects.requireNonNull(config);
+        this.factory = Objects.requireNonNull(factory);
+
+        if (retryDelay < 1) {
+            throw new IllegalArgumentException("retryDelay must be larger than 0");
+        }
+
+        this.retryDelay = retryDelay;
+
+        this.capacity = config.getInt(ConfigProperties.KEYPAIR_POOL_SIZE);
+        if (this.capacity < 0) {
+            throw new ConfigurationException(ConfigProperties.KEYPAIR_POOL_SIZE +
+                " must be larger than or equal to 0");
+        }
+
+        this.refillThreads = config.getInt(ConfigProperties.KEYPAIR_POOL_REFILL_THREADS);
+        if (this.refillThreads < 1) {
+            throw new ConfigurationException(ConfigProperties.KEYPAIR_POOL_REFILL_THREADS +
+                " must be larger than 0");
+        }
+
+        this.lowWaterMark = config.getInt(ConfigProperties.KEYPAIR_POOL_LOW_WATER_MARK);
+        if (this.lowWaterMark < 0) {
+            throw new ConfigurationException(ConfigProperties.KEYPAIR_POOL_LOW_WATER_MARK +
+                " must be larger than or equal to 0");
+        }
+
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, this.capacity));
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.lowWaterEvents = new AtomicLong();
+        this.failures = new AtomicLong();
+    }
+
+    /**
+     * Starts the background refill threads. If the pool is disabled or has already been started,
+     * this method does nothing.
+     */
+    public synchronized void start() {
+        if (!this.isEnabled() || this.executor != null) {
+            return;
+        }
+
+        log.info("Starting key pair pool with capacity {} and {} refill thread(s)",
+            this.capacity, this.refillThreads);
+
+        this.executor = Executors.newFixedThreadPool(this.refillThreads, new RefillThreadFactory());
+        for (int i = 0; i < this.refillThreads; ++i) {
+            this.executor.execute(this::refill);
+        }
+    }
+
+    /**
+     * Stops the background refill threads and discards any pre-generated key pairs. If the pool
+     * has not been started, this method does nothing.
+     */
+    public synchronized void shutdown() {
+        if (this.executor == null) {
+            return;
+        }
+
+        log.info("Shutting down key pair pool");
+
+        this.executor.shutdownNow();
+        try {
+            if (!this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for key pair pool refill threads to terminate");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.executor = null;
+        this.pool.clear();
+    }
+
+    private void refill() {
+        long delay = this.retryDelay;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                KeyPair keypair;
+
+                try {
+                    keypair = this.factory.get();
+                }
+                catch (RuntimeException e) {
+                    // Keep refilling; callers fall back to inline generation while the pool is empty
+                    this.failures.incrementAndGet();
+                    log.error("Unable to generate pooled key pair; retrying in {}ms", delay, e);
+
+                    Thread.sleep(delay);
+                    delay = Math.min(delay * 2, MAX_RETRY_DELAY);
+                    continue;
+                }
+
+                delay = this.retryDelay;
+
+                // Blocks once the pool is full, resuming as soon as a key pair is drawn
+                this.pool.put(keypair);
+            }
+        }
+        catch (InterruptedException e) {
+            // Shutting down; nothing to do
+            log.debug("Key pair pool refill thread interrupted");
+        }
+    }
+
+    /**
+     * Checks if this pool is enabled.
+     *
+     * @return
+     *  true if this pool has a non-zero capacity; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.capacity > 0;
+    }
+
+    /**
+     * Draws a pre-generated key pair from the pool without blocking.
+     *
+     * @return
+     *  a pre-generated key pair, or null if the pool is disabled or currently empty
+     */
+    public KeyPair poll() {
+        if (!this.isEnabled()) {
+            return null;
+        }
+
+        KeyPair keypair = this.pool.poll();
+        if (keypair != null) {
+            this.hits.incrementAndGet();
+        }
+        else {
+            this.misses.incrementAndGet();
+        }
+
+        int available = this.pool.size();
+        if (available < this.lowWaterMark) {
+            this.lowWaterEvents.incrementAndGet();
+            log.debug("Key pair pool below low-water mark: {} of {} available", available, this.capacity);
+        }
+
+        return keypair;
+    }
+
+    /**
+     * Fetches the number of pre-generated key pairs currently available in the pool.
+     *
+     * @return
+     *  the number of available key pairs
+     */
+    public int getAvailable() {
+        return this.pool.size();
+    }
+
+    /**
+     * Fetches the maximum number of pre-generated key pairs held by the pool.
+     *
+     * @return
+     *  the capacity of the pool
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Fetches the number of key pair requests served from the pool.
+     *
+     * @return
+     *  the number of pool hits
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Fetches the number of key pair requests which found the pool empty, and had to fall back to
+     * inline generation.
+     *
+     * @return
+     *  the number of pool misses
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * Fetches the number of key pair requests which left the pool below its low-water mark.
+     *
+     * @return
+     *  the number of low-water mark events
+     */
+    public long getLowWaterCount() {
+        return this.lowWaterEvents.get();
+    }
+
+    /**
+     * Fetches the number of failed attempts to generate a key pair for the pool.
+     *
+     * @return
+     *  the number of failed generations
+     */
+    public long getFailureCount() {
+        return this.failures.get();
+    }
+
+    /**
+     * Thread factory for the refill threads. The threads are daemon threads at minimum priority,
+     * so key pair generation never holds up shutdown or competes with request threads.
+     */
+    private static class RefillThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "keypair-pool-refill-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+
+            return thread;
+        }
+    }
+
+}
@@ -24,10 +24,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.GeneralSecurityException;
 import java.security.Signature;
 import java.security.SignatureException;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import javax.inject.Inject;
@@ -67,49 +70,52 @@ public class Signer {
     }
 
     public boolean verifySignature(File input, byte[] signedHash) throws IOException {
-        log.debug("Verify against: {}", certificateAuthority.getCACert().getSerialNumber());
+        Verifier verifier = this.createVerifier();
 
         try (InputStream inputStream = new FileInputStream(input)) {
-            if (verifySHA256WithRSAHash(inputStream, signedHash, certificateAuthority.getCACert())) {
-                return true;
-            }
-        }
-        for (X509Certificate cert : certificateAuthority.getUpstreamCACerts()) {
-            log.debug("Verify against: {}", cert.getSerialNumber());
+            byte[] buffer = new byte[4096];
+            int nread;
 
-            try (InputStream inputStream = new FileInputStream(input)) {
-                if (verifySHA256WithRSAHash(inputStream, signedHash, cert)) {
-                    return true;
-                }
+            while ((nread = inputStream.read(buffer)) != -1) {
+                verifier.update(buffer, 0, nread);
             }
         }
 
-        return false;
+        return verifier.verify(signedHash);
     }
 
     /**
-     * Verify a digital signature.  The method calculates a digital signature using the SHA256withRSA
-     * algorithm (and the public key from the certificate parameter) and then compares it with the signature
-     * passed in through the signedHas parameter.
-     * @param input input to verify
-     * @param signedHash an existing signature to verify
-     * @param certificate a certificate with the public key to use for verification
-     * @return if the calculated signature matches the provided signature
+     * Creates a verifier for checking a SHA256withRSA signature against data provided
+     * incrementally. The data is checked against the CA certificate and every upstream CA
+     * certificate at once, so it only needs to be read a single time, and can be verified as it is
+     * read rather than requiring it to be stored first.
+     *
+     * @return a new verifier
      */
-    private boolean verifySHA256WithRSAHash(InputStream input, byte[] signedHash, Certificate certificate) {
+    public Verifier createVerifier() {
+        List<Signature> signatures = new ArrayList<>();
+
         try {
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initVerify(certificate);
+            log.debug("Verify against: {}", certificateAuthority.getCACert().getSerialNumber());
+            signatures.add(initVerify(certificateAuthority.getCACert()));
 
-            updateSignature(input, signature);
-            return signature.verify(signedHash);
-        }
-        catch (SignatureException se) {
-            return false;
+            for (X509Certificate cert : certificateAuthority.getUpstreamCACerts()) {
+                log.debug("Verify against: {}", cert.getSerialNumber());
+                signatures.add(initVerify(cert));
+            }
         }
-        catch (Exception e) {
+        catch (GeneralSecurityException e) {
             throw new SignatureFailedException("Failed to verify signature!", e);
         }
+
+        return new Verifier(signatures);
+    }
+
+    private static Signature initVerify(Certificate certificate) throws GeneralSecurityException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initVerify(certificate);
+
+        return signature;
     }
 
     private void updateSignature(InputStream input, Signature signature)
@@ -123,4 +129,56 @@ public class Signer {
         }
     }
 
+    /**
+     * Verifies a signature against data provided incrementally, accepting the signature if it was
+     * made by any of the certificates trusted by the signer which created this verifier.
+     */
+    public static class Verifier {
+        private final List<Signature> signatures;
+
+        private Verifier(List<Signature> signatures) {
+            this.signatures = signatures;
+        }
+
+        /**
+         * Adds the given bytes to the data being verified.
+         *
+         * @param data the buffer containing the data to add
+         * @param offset the offset of the data in the buffer
+         * @param length the number of bytes to add
+         */
+        public void update(byte[] data, int offset, int length) {
+            try {
+                for (Signature signature : this.signatures) {
+                    signature.update(data, offset, length);
+                }
+            }
+            catch (SignatureException e) {
+                throw new SignatureFailedException("Failed to verify signature!", e);
+            }
+        }
+
+        /**
+         * Checks the given signature against the data provided to this verifier. A verifier can
+         * only be used to check a single signature.
+         *
+         * @param signedHash the signature to verify
+         * @return true if the signature matches the data for any trusted certificate
+         */
+        public boolean verify(byte[] signedHash) {
+            for (Signature signature : this.signatures) {
+                try {
+                    if (signature.verify(signedHash)) {
+                        return true;
+                    }
+                }
+                catch (SignatureException se) {
+                    // Not a valid signature for this certificate; try the next one
+                }
+            }
+
+            return false;
+        }
+    }
+
 }
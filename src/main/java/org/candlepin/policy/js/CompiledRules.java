@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.candlepin.model.Rules;
+import org.candlepin.model.Rules.RulesSourceEnum;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
+import org.mozilla.javascript.Wrapper;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+
+/**
+ * A single compilation of the javascript rules. Along with the sealed global scope holding the
+ * compiled rules, this holds a pool of pre-built execution scopes, and caches of the namespace
+ * objects and functions looked up in the rules, so none of these need to be rebuilt or looked up
+ * by name for every rules invocation.
+ * <p>
+ * Instances are immutable once built; recompiling the rules produces a new instance, so runners
+ * created from an older compilation continue to function consistently until they are discarded.
+ */
+class CompiledRules {
+
+    private final Scriptable globalScope;
+    private final Date updated;
+    private final String version;
+    private final RulesSourceEnum source;
+    private final boolean nativeContextSupported;
+
+    private final int scopePoolSize;
+    private final BlockingQueue<Scriptable> scopes;
+
+    private final ConcurrentMap<String, Scriptable> namespaces;
+    private final ConcurrentMap<String, ConcurrentMap<String, Function>> functions;
+
+    /**
+     * Compiles the given rules, and pre-builds the given number of execution scopes for them. The
+     * caller is expected to have entered the given context.
+     *
+     * @param context
+     *  the context with which to compile the rules
+     *
+     * @param rules
+     *  the rules to compile
+     *
+     * @param updated
+     *  the last updated time of the rules being compiled
+     *
+     * @param scopePoolSize
+     *  the maximum number of idle execution scopes to retain for reuse
+     */
+    CompiledRules(Context context, Rules rules, Date updated, int scopePoolSize) {
+        this(context, rules, context.compileString(rules.getRules(), "rules", 1, null), updated,
+            scopePoolSize);
+    }
+
+    /**
+     * Initializes the given pre-compiled script of the given rules, and pre-builds the given number
+     * of execution scopes for them. The caller is expected to have entered the given context.
+     *
+     * @param context
+     *  the context with which to initialize the rules
+     *
+     * @param rules
+     *  the rules from which the script was compiled
+     *
+     * @param script
+     *  the compiled rules script
+     *
+     * @param updated
+     *  the last updated time of the rules being compiled
+     *
+     * @param scopePoolSize
+     *  the maximum number of idle execution scopes to retain for reuse
+     */
+    CompiledRules(Context context, Rules rules, Script script, Date updated, int scopePoolSize) {
+        Objects.requireNonNull(context);
+        Objects.requireNonNull(rules);
+        Objects.requireNonNull(script);
+
+        this.updated = Objects.requireNonNull(updated);
+        this.version = rules.getVersion();
+        this.source = rules.getRulesSource();
+
+        this.globalScope = context.initStandardObjects(null, true);
+        script.exec(context, this.globalScope);
+        ((ScriptableObject) this.globalScope).sealObject();
+
+        Object supported = ScriptableObject.getProperty(this.globalScope, "NATIVE_CONTEXT_SUPPORTED");
+        this.nativeContextSupported = Boolean.TRUE.equals(supported);
+
+        this.namespaces = new ConcurrentHashMap<>();
+        this.functions = new ConcurrentHashMap<>();
+
+        this.scopePoolSize = Math.max(0, scopePoolSize);
+        this.scopes = new ArrayBlockingQueue<>(Math.max(1, this.scopePoolSize));
+        for (int i = 0; i < this.scopePoolSize; ++i) {
+            this.scopes.offer(this.createScope(context));
+        }
+    }
+
+    public Date getUpdated() {
+        return this.updated;
+    }
+
+    public String getVersion() {
+        return this.version;
+    }
+
+    public RulesSourceEnum getSource() {
+        return this.source;
+    }
+
+    /**
+     * Checks whether the compiled rules accept native objects as their context, rather than
+     * only JSON strings.
+     *
+     * @return
+     *  true if the rules support native contexts; false otherwise
+     */
+    public boolean isNativeContextSupported() {
+        return this.nativeContextSupported;
+    }
+
+    /**
+     * Creates a new thread/request local execution scope, based on the global scope containing
+     * the compiled rules. Variables defined in the execution scope are visible to the rules, but
+     * never modify the global scope.
+     */
+    private Scriptable createScope(Context context) {
+        Scriptable scope = context.newObject(this.globalScope);
+        scope.setPrototype(this.globalScope);
+        scope.setParentScope(null);
+
+        return scope;
+    }
+
+    /**
+     * Takes an execution scope from the pool, building a new one if the pool is empty. The scope
+     * must be returned with {@link #releaseScope(Scriptable)} once the invocation using it is
+     * complete.
+     *
+     * @return
+     *  an empty execution scope for the compiled rules
+     */
+    public Scriptable acquireScope() {
+        Scriptable scope = this.scopes.poll();
+        if (scope != null) {
+            return scope;
+        }
+
+        Context context = Context.enter();
+        try {
+            return this.createScope(context);
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
+    /**
+     * Returns an execution scope to the pool. Any variables defined in the scope during its use are
+     * removed, so no state leaks between invocations. If the pool is already full, the scope is
+     * discarded.
+     *
+     * @param scope
+     *  the scope to release
+     */
+    public void releaseScope(Scriptable scope) {
+        if (scope == null || this.scopePoolSize == 0) {
+            return;
+        }
+
+        for (Object id : scope.getIds()) {
+            if (id instanceof Integer) {
+                scope.delete((Integer) id);
+            }
+            else {
+                scope.delete(id.toString());
+            }
+        }
+
+        this.scopes.offer(scope);
+    }
+
+    /**
+     * Fetches the number of idle execution scopes currently held by the pool.
+     *
+     * @return
+     *  the number of pooled scopes
+     */
+    public int getPooledScopeCount() {
+        return this.scopes.size();
+    }
+
+    /**
+     * Fetches the object for the given rules namespace, invoking the namespace function of the
+     * rules on first use. The caller is expected to have entered the given context.
+     *
+     * @param context
+     *  the current context
+     *
+     * @param namespace
+     *  the name of the rules namespace to fetch
+     *
+     * @return
+     *  the namespace object
+     */
+    public Scriptable getNamespace(Context context, String namespace) {
+        Scriptable cached = this.namespaces.get(namespace);
+        if (cached != null) {
+            return cached;
+        }
+
+        Scriptable scope = this.acquireScope();
+        try {
+            Object func = ScriptableObject.getProperty(this.globalScope, namespace);
+            Object result = ((Function) func).call(context, scope, scope, Context.emptyArgs);
+
+            if (result instanceof Wrapper) {
+                result = ((Wrapper) result).unwrap();
+            }
+
+            Scriptable object = Context.toObject(result instanceof Undefined ? null : result,
+                this.globalScope);
+
+            cached = this.namespaces.putIfAbsent(namespace, object);
+            return cached != null ? cached : object;
+        }
+        finally {
+            this.releaseScope(scope);
+        }
+    }
+
+    /**
+     * Fetches the given function from a rules namespace object, caching the handle for subsequent
+     * invocations.
+     *
+     * @param namespace
+     *  the name of the namespace containing the function
+     *
+     * @param namespaceObject
+     *  the namespace object, as returned by {@link #getNamespace(Context, String)}
+     *
+     * @param method
+     *  the name of the function to fetch
+     *
+     * @return
+     *  the function, or null if the namespace does not define a function with the given name
+     */
+    public Function getFunction(String namespace, Scriptable namespaceObject, String method) {
+        ConcurrentMap<String, Function> nsFunctions = this.functions
+            .computeIfAbsent(namespace, key -> new ConcurrentHashMap<>());
+
+        Function function = nsFunctions.get(method);
+        if (function == null) {
+            Object property = ScriptableObject.getProperty(namespaceObject, method);
+            if (!(property instanceof Function)) {
+                return null;
+            }
+
+            function = (Function) property;
+            nsFunctions.putIfAbsent(method, function);
+        }
+
+        return function;
+    }
+
+}
@@ -18,12 +18,14 @@ import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Function;
 import org.mozilla.javascript.RhinoException;
 import org.mozilla.javascript.Scriptable;
-import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.Undefined;
 import org.mozilla.javascript.Wrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Objects;
+import java.util.Set;
+
 /**
  * JsRunner - Responsible for running the javascript rules methods in all
  * namespaces.
@@ -33,14 +35,26 @@ public class JsRunner {
 
     private static Logger log = LoggerFactory.getLogger(JsRunner.class);
 
-    private Object rulesNameSpace;
+    private Scriptable rulesNameSpace;
     private String namespace;
-    private Scriptable scope;
+    private CompiledRules rules;
+    private Set<String> nativeContextNamespaces;
 
     private boolean initialized = false;
 
-    public JsRunner(Scriptable scope) {
-        this.scope = scope;
+    /**
+     * Creates a new runner for the given compiled rules, which will use native contexts when
+     * running functions in any of the given namespaces.
+     *
+     * @param rules
+     *  the compiled rules to run
+     *
+     * @param nativeContextNamespaces
+     *  the namespaces for which functions should be passed native contexts
+     */
+    JsRunner(CompiledRules rules, Set<String> nativeContextNamespaces) {
+        this.rules = Objects.requireNonNull(rules);
+        this.nativeContextNamespaces = nativeContextNamespaces != null ? nativeContextNamespaces : Set.of();
     }
 
     /**
@@ -58,10 +72,7 @@ public class JsRunner {
 
             Context context = Context.enter();
             try {
-                Object func = ScriptableObject.getProperty(scope, namespace);
-                this.rulesNameSpace = unwrapReturnValue(((Function) func)
-                    .call(context, scope, scope, Context.emptyArgs));
-
+                this.rulesNameSpace = this.rules.getNamespace(context, namespace);
                 this.initialized = true;
             }
             catch (RhinoException ex) {
@@ -79,6 +90,23 @@ public class JsRunner {
         init(namespace);
     }
 
+    /**
+     * Checks whether functions in this runner's namespace should be passed their arguments as
+     * native objects rather than JSON. Native contexts are only used when enabled for the namespace
+     * and supported by the loaded rules, as rules loaded from the database may predate support for
+     * them.
+     *
+     * @return
+     *  true if native contexts should be used for this runner's namespace; false otherwise
+     */
+    public boolean isNativeContextEnabled() {
+        if (this.namespace == null || !this.nativeContextNamespaces.contains(this.namespace)) {
+            return false;
+        }
+
+        return this.rules.isNativeContextSupported();
+    }
+
     Object unwrapReturnValue(Object result) {
         if (result instanceof Wrapper) {
             result = ((Wrapper) result).unwrap();
@@ -87,37 +115,66 @@ public class JsRunner {
         return result instanceof Undefined ? null : result;
     }
 
-    @SuppressWarnings("unchecked")
     public <T> T invokeMethod(String method)
         throws NoSuchMethodException, RhinoException {
-        Scriptable localScope = Context.toObject(this.rulesNameSpace, scope);
-        Object func = ScriptableObject.getProperty(localScope, method);
-        if (!(func instanceof Function)) {
+        return this.invokeMethod(method, null);
+    }
+
+    /**
+     * Invokes the given function of this runner's namespace. The function runs in an execution
+     * scope drawn from the pool of the compiled rules, into which the given context is applied;
+     * the scope is cleared and returned to the pool once the function completes.
+     *
+     * @param method
+     *  the name of the function to invoke
+     *
+     * @param context
+     *  the context to apply to the execution scope, or null to invoke the function without one
+     *
+     * @throws NoSuchMethodException
+     *  if this runner's namespace does not define the given function
+     *
+     * @return
+     *  the value returned by the function
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T invokeMethod(String method, JsContext context)
+        throws NoSuchMethodException, RhinoException {
+        Function func = this.rules.getFunction(this.namespace, this.rulesNameSpace, method);
+        if (func == null) {
             throw new NoSuchMethodException("no such javascript method: " + method);
         }
-        Context context = Context.enter();
+
+        Scriptable scope = this.rules.acquireScope();
         try {
-            return (T) unwrapReturnValue(((Function) func).call(context, scope,
-                localScope, Context.emptyArgs));
+            if (context != null) {
+                context.applyTo(scope);
+            }
+
+            Context jsContext = Context.enter();
+            try {
+                return (T) unwrapReturnValue(func.call(jsContext, scope, this.rulesNameSpace,
+                    Context.emptyArgs));
+            }
+            finally {
+                Context.exit();
+            }
         }
         finally {
-            Context.exit();
+            this.rules.releaseScope(scope);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public <T> T invokeMethod(String method, JsContext context)
-        throws NoSuchMethodException, RhinoException {
-        context.applyTo(scope);
-        return (T) invokeMethod(method);
+    public <T> T invokeRule(String ruleName) {
+        return this.invokeRule(ruleName, null);
     }
 
-    public <T> T invokeRule(String ruleName) {
+    public <T> T invokeRule(String ruleName, JsContext context) {
         log.debug("Running rule: {} in namespace: {}", ruleName, namespace);
 
         T returner = null;
         try {
-            returner = this.invokeMethod(ruleName);
+            returner = this.invokeMethod(ruleName, context);
         }
         catch (NoSuchMethodException ex) {
             log.info("No rule found: {} in namespace: {}", ruleName, namespace);
@@ -128,11 +185,6 @@ public class JsRunner {
         return returner;
     }
 
-    public <T> T invokeRule(String ruleName, JsContext context) {
-        context.applyTo(scope);
-        return invokeRule(ruleName);
-    }
-
     public <T extends Object> T runJsFunction(Class<T> clazz, String function,
         JsContext context) {
         T returner = null;
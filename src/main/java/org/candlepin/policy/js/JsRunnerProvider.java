@@ -14,6 +14,8 @@
  */
 package org.candlepin.policy.js;
 
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.model.Rules;
 import org.candlepin.model.Rules.RulesSourceEnum;
 import org.candlepin.model.RulesCurator;
@@ -23,44 +25,49 @@ import com.google.inject.Provider;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Script;
-import org.mozilla.javascript.Scriptable;
-import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.Date;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.inject.Inject;
 
 /**
  * Reads/compiles our javascript rules and the standard js objects only
  * once across the JVM lifetime (and whenever the rules require a recompile), and creates
- * lightweight execution scopes per thread/request.
+ * lightweight runners per thread/request. Runners draw their execution scopes from a pool of
+ * pre-built scopes held by the compiled rules, and share its cached function handles.
  */
 public class JsRunnerProvider implements Provider<JsRunner> {
     private static Logger log = LoggerFactory.getLogger(JsRunnerProvider.class);
 
+    /** The number of execution scopes pooled when no configuration is provided */
+    public static final int DEFAULT_SCOPE_POOL_SIZE = 16;
+
     private RulesCurator rulesCurator;
     private Provider<JsRunnerRequestCache> cacheProvider;
-    private Script script;
-    private Scriptable scope;
+    private Set<String> nativeContextNamespaces;
+    private int scopePoolSize;
+    private RulesBytecodeCache bytecodeCache;
+
     /**
-     * This date is basically a version of the rules that this
-     * JSRunnerProvider compiled. Note that in clustered environment,
+     * The current compilation of the rules. Its updated date is basically a version of the rules
+     * that this JSRunnerProvider compiled. Note that in clustered environment,
      * multiple nodes must compile same version of rules. Thats why
      * this JsRunnerProvider uses database to make sure it compiles and
      * uses the database dictated version.
+     * <p>
+     * Recompiling the rules replaces this reference atomically, so runners never observe a
+     * partially compiled set of rules, and no lock is needed to read it.
      */
-    private volatile Date currentRulesUpdated;
-
-    // Store the version and source of the compiled rules:
-    private String rulesVersion;
-    private RulesSourceEnum rulesSource;
+    private volatile CompiledRules compiledRules;
 
-    // Use this lock to access script, scope and updated
-    private ReadWriteLock scriptLock = new ReentrantReadWriteLock();
+    // Use this lock to serialize compilation of the rules
+    private final Lock compileLock = new ReentrantLock();
 
     /**
      * DynamicScopeContextFactory - replace the standard rhino context factory with one that
@@ -82,10 +89,74 @@ public class JsRunnerProvider implements Provider<JsRunner> {
         ContextFactory.initGlobal(new DynamicScopeContextFactory());
     }
 
-    @Inject
     public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider) {
+        this(rulesCurator, cacheProvider, Set.of());
+    }
+
+    @Inject
+    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider,
+        Configuration config) {
+        this(rulesCurator, cacheProvider, config.getSet(ConfigProperties.RULES_NATIVE_CONTEXT_NAMESPACES),
+            config.getInt(ConfigProperties.RULES_SCOPE_POOL_SIZE),
+            config.getString(ConfigProperties.RULES_BYTECODE_CACHE_DIR));
+    }
+
+    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider,
+        Set<String> nativeContextNamespaces) {
+        this(rulesCurator, cacheProvider, nativeContextNamespaces, DEFAULT_SCOPE_POOL_SIZE);
+    }
+
+    /**
+     * Creates a new provider which will configure its runners to use native contexts for the
+     * given rules namespaces.
+     *
+     * @param rulesCurator
+     *  the curator to use to fetch the rules
+     *
+     * @param cacheProvider
+     *  provider of the per-request rules cache
+     *
+     * @param nativeContextNamespaces
+     *  the rules namespaces for which functions should be passed native contexts
+     *
+     * @param scopePoolSize
+     *  the number of execution scopes to pre-build and retain for reuse; zero disables pooling
+     */
+    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider,
+        Set<String> nativeContextNamespaces, int scopePoolSize) {
+        this(rulesCurator, cacheProvider, nativeContextNamespaces, scopePoolSize, null);
+    }
+
+    /**
+     * Creates a new provider which will configure its runners to use native contexts for the
+     * given rules namespaces, and cache the compiled rules in the given directory.
+     *
+     * @param rulesCurator
+     *  the curator to use to fetch the rules
+     *
+     * @param cacheProvider
+     *  provider of the per-request rules cache
+     *
+     * @param nativeContextNamespaces
+     *  the rules namespaces for which functions should be passed native contexts
+     *
+     * @param scopePoolSize
+     *  the number of execution scopes to pre-build and retain for reuse; zero disables pooling
+     *
+     * @param bytecodeCacheDir
+     *  the directory in which to cache compiled rules; null or empty disables the cache
+     */
+    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider,
+        Set<String> nativeContextNamespaces, int scopePoolSize, String bytecodeCacheDir) {
         this.rulesCurator = rulesCurator;
         this.cacheProvider = cacheProvider;
+        this.nativeContextNamespaces = nativeContextNamespaces != null ?
+            Set.copyOf(nativeContextNamespaces) :
+            Set.of();
+        this.scopePoolSize = Math.max(0, scopePoolSize);
+        this.bytecodeCache = bytecodeCacheDir != null && !bytecodeCacheDir.isBlank() ?
+            new RulesBytecodeCache(Path.of(bytecodeCacheDir.trim())) :
+            null;
 
         log.debug("Compiling rules for initial load");
         this.rulesCurator.updateDbRules();
@@ -103,12 +174,13 @@ public class JsRunnerProvider implements Provider<JsRunner> {
     }
 
     public void compileRules(boolean forceRefresh) {
-        scriptLock.writeLock().lock();
+        compileLock.lock();
         try {
-            // Check to see if we need to recompile. we do this inside the write lock
+            // Check to see if we need to recompile. we do this inside the lock
             // just to avoid race conditions where we might double compile
             Date newUpdated = rulesCurator.getUpdated();
-            if (!forceRefresh && newUpdated.equals(this.currentRulesUpdated)) {
+            CompiledRules current = this.compiledRules;
+            if (!forceRefresh && current != null && newUpdated.equals(current.getUpdated())) {
                 return;
             }
 
@@ -116,23 +188,24 @@ public class JsRunnerProvider implements Provider<JsRunner> {
 
             Context context = Context.enter();
             context.setOptimizationLevel(9);
-            scope = context.initStandardObjects(null, true);
             try {
                 Rules rules = rulesCurator.getRules();
-                rulesVersion = rules.getVersion();
-                rulesSource = rules.getRulesSource();
-                script = context.compileString(
-                    rules.getRules(), "rules", 1, null);
-                script.exec(context, scope);
-                ((ScriptableObject) scope).sealObject();
-                this.currentRulesUpdated = newUpdated;
+
+                if (this.bytecodeCache != null) {
+                    Script script = this.bytecodeCache.getScript(context, rules);
+                    this.compiledRules = new CompiledRules(context, rules, script, newUpdated,
+                        this.scopePoolSize);
+                }
+                else {
+                    this.compiledRules = new CompiledRules(context, rules, newUpdated, this.scopePoolSize);
+                }
             }
             finally {
                 Context.exit();
             }
         }
         finally {
-            scriptLock.writeLock().unlock();
+            compileLock.unlock();
         }
     }
 
@@ -148,42 +221,29 @@ public class JsRunnerProvider implements Provider<JsRunner> {
             updated = rulesCurator.getUpdated();
             cache.setUpdated(updated);
         }
-        /*
-         * Create a new thread/request local javascript scope for the JsRules,
-         * based on the preinitialized global one (which contains our js rules).
-         */
-        // Avoid a write lock if we can
-        if (!updated.equals(this.currentRulesUpdated)) {
+
+        // Avoid taking the compile lock if we can
+        CompiledRules rules = this.compiledRules;
+        if (rules == null || !updated.equals(rules.getUpdated())) {
             compileRules();
-        }
-        Scriptable rulesScope;
-        scriptLock.readLock().lock();
-        try {
-            Context context = Context.enter();
-            rulesScope = context.newObject(scope);
-            rulesScope.setPrototype(scope);
-            rulesScope.setParentScope(null);
-            Context.exit();
-        }
-        finally {
-            scriptLock.readLock().unlock();
+            rules = this.compiledRules;
         }
 
-        return new JsRunner(rulesScope);
+        return new JsRunner(rules, this.nativeContextNamespaces);
     }
 
     public String getRulesVersion() {
-        if (rulesVersion == null) {
+        if (this.compiledRules == null) {
             compileRules();
         }
-        return rulesVersion;
+        return this.compiledRules.getVersion();
     }
 
     public RulesSourceEnum getRulesSource() {
-        if (rulesSource == null) {
+        if (this.compiledRules == null) {
             compileRules();
         }
-        return rulesSource;
+        return this.compiledRules.getSource();
     }
 
 }
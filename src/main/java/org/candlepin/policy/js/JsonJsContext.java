@@ -30,7 +30,7 @@ import javax.inject.Inject;
  */
 public class JsonJsContext extends JsContext {
 
-    private final RulesObjectMapper rulesObjectMapper;
+    protected final RulesObjectMapper rulesObjectMapper;
     private ArgumentJsContext nonSerializableContext;
 
     @Inject
@@ -39,12 +39,64 @@ public class JsonJsContext extends JsContext {
         this.nonSerializableContext = new ArgumentJsContext();
     }
 
+    /**
+     * Creates a new context for invoking functions with the given runner. If the runner's namespace
+     * has been configured to use native contexts, and the loaded rules support them, the returned
+     * context will expose its arguments to the rules as native objects rather than JSON.
+     *
+     * @param runner
+     *  the runner which will be used to invoke rules functions with the context
+     *
+     * @param objectMapper
+     *  the mapper to use to convert context arguments and results
+     *
+     * @return
+     *  a new context appropriate for the given runner
+     */
+    public static JsonJsContext forRunner(JsRunner runner, RulesObjectMapper objectMapper) {
+        return runner != null && runner.isNativeContextEnabled() ?
+            new NativeJsContext(objectMapper) :
+            new JsonJsContext(objectMapper);
+    }
+
     @Override
     public void applyTo(Scriptable scope) {
         scope.put("json_context", scope, this.rulesObjectMapper.toJsonString(contextArgs));
         nonSerializableContext.applyTo(scope);
     }
 
+    /**
+     * Applies the non-serializable arguments of this context to the given scope.
+     *
+     * @param scope
+     *  the scope into which the arguments should be injected
+     */
+    protected void applyNonSerializableTo(Scriptable scope) {
+        nonSerializableContext.applyTo(scope);
+    }
+
+    /**
+     * Converts the result of a rules function invoked with this context to the given type. Results
+     * returned as JSON strings are parsed; contexts which exchange native objects with the rules
+     * may also convert native results directly.
+     *
+     * @param result
+     *  the value returned by the rules function
+     *
+     * @param clazz
+     *  the class of the object to build from the result
+     *
+     * @return
+     *  the converted result, or null if the rules function did not return a value
+     */
+    public <T> T readResult(Object result, Class<T> clazz) {
+        if (result == null) {
+            return null;
+        }
+
+        return this.rulesObjectMapper.toObject(result.toString(), clazz);
+    }
+
     public void put(String contextKey, Object contextVal, boolean serializable) {
         if (!serializable) {
             nonSerializableContext.put(contextKey, contextVal);
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.TopLevel;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+
+
+/**
+ * A JavaScript object backed by a Jackson object node. Fields of the node are only converted to
+ * JavaScript values when they are first accessed, so rules which only inspect a small portion of
+ * a large context do not pay for converting the rest of it.
+ * <p>
+ * The backing node is never modified. Properties set or deleted by the rules are applied to this
+ * object only, as they would be on an object created by JSON.parse.
+ */
+class JsonNodeObject extends NativeObject {
+    private static final long serialVersionUID = 1L;
+
+    private final transient ObjectNode node;
+
+    // Names of the fields of the backing node which have not yet been converted
+    private final Set<String> pending;
+
+    JsonNodeObject(Scriptable scope, ObjectNode node) {
+        this.node = node;
+        this.pending = new LinkedHashSet<>();
+
+        Iterator<String> names = node.fieldNames();
+        while (names.hasNext()) {
+            this.pending.add(names.next());
+        }
+
+        ScriptRuntime.setBuiltinProtoAndParent(this, scope, TopLevel.Builtins.Object);
+    }
+
+    /**
+     * Converts the given JSON node to the value JSON.parse would produce for it. Objects are
+     * converted lazily; arrays are converted to native arrays of lazily converted elements.
+     *
+     * @param scope
+     *  the scope in which to create any JavaScript objects
+     *
+     * @param value
+     *  the JSON node to convert
+     *
+     * @return
+     *  the JavaScript value for the given node
+     */
+    static Object wrap(Scriptable scope, JsonNode value) {
+        if (value == null || value.isNull() || value.isMissingNode()) {
+            return null;
+        }
+
+        if (value.isObject()) {
+            return new JsonNodeObject(scope, (ObjectNode) value);
+        }
+
+        if (value.isArray()) {
+            Object[] elements = new Object[value.size()];
+            for (int i = 0; i < elements.length; ++i) {
+                elements[i] = wrap(scope, value.get(i));
+            }
+
+            NativeArray array = new NativeArray(elements);
+            ScriptRuntime.setBuiltinProtoAndParent(array, scope, TopLevel.Builtins.Array);
+            return array;
+        }
+
+        if (value.isBoolean()) {
+            return value.booleanValue();
+        }
+
+        if (value.isNumber()) {
+            // Mirror the JSON parser, which produces integers where it can
+            double dval = value.doubleValue();
+            int ival = (int) dval;
+
+            return ival == dval ? (Object) Integer.valueOf(ival) : (Object) Double.valueOf(dval);
+        }
+
+        return value.asText();
+    }
+
+    /**
+     * Converts this object back to a JSON node. Fields which were never accessed are copied from
+     * the backing node as-is; all other properties are converted with the given converter.
+     *
+     * @param factory
+     *  the node factory to use to create the resulting node
+     *
+     * @param converter
+     *  the converter to use for properties of this object, which returns null for values which
+     *  should be omitted
+     *
+     * @return
+     *  an object node representing the current state of this object
+     */
+    ObjectNode toJsonNode(JsonNodeFactory factory, Function<Object, JsonNode> converter) {
+        ObjectNode result = factory.objectNode();
+
+        for (String name : this.pending) {
+            result.set(name, this.node.get(name));
+        }
+
+        for (Object id : super.getIds()) {
+            Object value = id instanceof Integer ?
+                super.get((Integer) id, this) :
+                super.get(id.toString(), this);
+
+            JsonNode converted = converter.apply(value);
+            if (converted != null) {
+                result.set(id.toString(), converted);
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean isIndex(String name) {
+        int length = name.length();
+        if (length == 0 || length > 9 || (length > 1 && name.charAt(0) == '0')) {
+            return false;
+        }
+
+        for (int i = 0; i < length; ++i) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void materialize(String name) {
+        if (this.pending.remove(name)) {
+            Object value = wrap(this.getParentScope(), this.node.get(name));
+
+            // Numeric names are stored as indexes, the same way the JSON parser stores them
+            if (isIndex(name)) {
+                super.put(Integer.parseInt(name), this, value);
+            }
+            else {
+                super.put(name, this, value);
+            }
+        }
+    }
+
+    private void materializeAll() {
+        for (String name : this.pending.toArray(new String[0])) {
+            this.materialize(name);
+        }
+    }
+
+    @Override
+    public Object get(String name, Scriptable start) {
+        this.materialize(name);
+        return super.get(name, start);
+    }
+
+    @Override
+    public Object get(int index, Scriptable start) {
+        this.materialize(Integer.toString(index));
+        return super.get(index, start);
+    }
+
+    @Override
+    public boolean has(String name, Scriptable start) {
+        return this.pending.contains(name) || super.has(name, start);
+    }
+
+    @Override
+    public boolean has(int index, Scriptable start) {
+        return this.pending.contains(Integer.toString(index)) || super.has(index, start);
+    }
+
+    @Override
+    public void put(String name, Scriptable start, Object value) {
+        this.pending.remove(name);
+        super.put(name, start, value);
+    }
+
+    @Override
+    public void put(int index, Scriptable start, Object value) {
+        this.pending.remove(Integer.toString(index));
+        super.put(index, start, value);
+    }
+
+    @Override
+    public void delete(String name) {
+        this.pending.remove(name);
+        super.delete(name);
+    }
+
+    @Override
+    public void delete(int index) {
+        this.pending.remove(Integer.toString(index));
+        super.delete(index);
+    }
+
+    @Override
+    public Object[] getIds() {
+        this.materializeAll();
+        return super.getIds();
+    }
+
+    @Override
+    public Object[] getAllIds() {
+        this.materializeAll();
+        return super.getAllIds();
+    }
+
+}
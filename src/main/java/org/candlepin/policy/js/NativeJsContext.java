@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
+import org.mozilla.javascript.Wrapper;
+
+
+
+/**
+ * NativeJsContext
+ *
+ * A javascript context which provides its context args to the rules as native javascript objects
+ * rather than as a JSON string. The arguments are converted to a JSON tree, which is then exposed
+ * to the rules through lazily converted objects, avoiding the cost of producing and parsing the
+ * JSON text. Rules functions may likewise return native objects, which are converted directly to
+ * the expected result type.
+ * <p>
+ * The "json_context" variable made available to the rules holds an object rather than a string
+ * when this context is used; rules must support this by checking the type of the variable before
+ * attempting to parse it.
+ */
+public class NativeJsContext extends JsonJsContext {
+
+    // Largest integer value which can be represented exactly by a javascript number
+    private static final double MAX_SAFE_INTEGER = 9007199254740991.0;
+
+    public NativeJsContext(RulesObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public void applyTo(Scriptable scope) {
+        ObjectNode root = this.rulesObjectMapper.toJsonNode(this.contextArgs);
+
+        scope.put("json_context", scope, new JsonNodeObject(scope, root));
+        this.applyNonSerializableTo(scope);
+    }
+
+    @Override
+    public <T> T readResult(Object result, Class<T> clazz) {
+        if (result == null || result instanceof CharSequence) {
+            return super.readResult(result, clazz);
+        }
+
+        JsonNode json;
+
+        Context context = Context.enter();
+        try {
+            json = this.convert(context, this.rulesObjectMapper.getNodeFactory(), result);
+        }
+        finally {
+            Context.exit();
+        }
+
+        return json != null ? this.rulesObjectMapper.toObject(json, clazz) : null;
+    }
+
+    /**
+     * Converts a javascript value to a JSON node, following the same rules as JSON.stringify.
+     *
+     * @return
+     *  the converted value, or null if the value cannot be represented in JSON and should be
+     *  omitted
+     */
+    private JsonNode convert(Context context, JsonNodeFactory factory, Object value) {
+        if (value == null) {
+            return factory.nullNode();
+        }
+
+        if (value instanceof Undefined || value instanceof Function || value == Scriptable.NOT_FOUND) {
+            return null;
+        }
+
+        if (value instanceof CharSequence) {
+            return factory.textNode(value.toString());
+        }
+
+        if (value instanceof Boolean) {
+            return factory.booleanNode((Boolean) value);
+        }
+
+        if (value instanceof Integer) {
+            return factory.numberNode((Integer) value);
+        }
+
+        if (value instanceof Number) {
+            double dval = ((Number) value).doubleValue();
+
+            if (Double.isNaN(dval) || Double.isInfinite(dval)) {
+                return factory.nullNode();
+            }
+
+            // Integral values are written as integers, as they would be parsed from JSON
+            if (dval == Math.rint(dval) && Math.abs(dval) <= MAX_SAFE_INTEGER) {
+                long lval = (long) dval;
+                return lval == (int) lval ? factory.numberNode((int) lval) : factory.numberNode(lval);
+            }
+
+            return factory.numberNode(dval);
+        }
+
+        if (value instanceof JsonNodeObject) {
+            return ((JsonNodeObject) value).toJsonNode(factory, elem -> this.convert(context, factory, elem));
+        }
+
+        if (value instanceof Wrapper) {
+            return this.rulesObjectMapper.valueToTree(((Wrapper) value).unwrap());
+        }
+
+        if (value instanceof Scriptable) {
+            Scriptable object = (Scriptable) value;
+
+            // Objects which define their own JSON form, such as dates, are converted with it
+            Object toJson = ScriptableObject.getProperty(object, "toJSON");
+            if (toJson instanceof Function) {
+                Object json = ((Function) toJson).call(context, object, object, new Object[] { "" });
+                return this.convert(context, factory, json);
+            }
+
+            if (value instanceof NativeArray) {
+                return this.convertArray(context, factory, (NativeArray) value);
+            }
+
+            return this.convertObject(context, factory, object);
+        }
+
+        return this.rulesObjectMapper.valueToTree(value);
+    }
+
+    private ArrayNode convertArray(Context context, JsonNodeFactory factory, NativeArray array) {
+        ArrayNode node = factory.arrayNode();
+
+        long length = array.getLength();
+        for (int i = 0; i < length; ++i) {
+            JsonNode elem = this.convert(context, factory, ScriptableObject.getProperty(array, i));
+
+            // Elements which cannot be represented are written as null rather than omitted
+            node.add(elem != null ? elem : factory.nullNode());
+        }
+
+        return node;
+    }
+
+    private ObjectNode convertObject(Context context, JsonNodeFactory factory, Scriptable object) {
+        ObjectNode node = factory.objectNode();
+
+        for (Object id : object.getIds()) {
+            Object value = id instanceof Integer ?
+                ScriptableObject.getProperty(object, (Integer) id) :
+                ScriptableObject.getProperty(object, id.toString());
+
+            JsonNode converted = this.convert(context, factory, value);
+            if (converted != null) {
+                node.set(id.toString(), converted);
+            }
+        }
+
+        return node;
+    }
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolQuantity;
+import org.candlepin.model.Product;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * A thread safe cache of the JSON representation of pools passed to the rules. Translating a pool
+ * to its rules DTO and serializing it is a notable portion of the cost of filtering and selecting
+ * pools, and the same pools of an organization are passed to the rules over and over as its
+ * consumers list pools and autobind; with this cache, each version of a pool is only serialized
+ * once, and only the consumer-specific arguments are built on every invocation.
+ * <p>
+ * Entries are keyed on the pool's ID, and hold the version of the pool from which they were built.
+ * The version covers the pool's last update time and every field passed to the rules which may
+ * change without the pool itself being updated, such as its consumed quantity, attributes and the
+ * versions and attributes of its products, so any change to the pool naturally results in a cache
+ * miss. Entries are also evicted based on a time-to-live eviction policy.
+ * <p>
+ * The JSON returned by this cache is shared between callers, and must not be modified. The cache
+ * is disabled when its maximum number of entries is configured as zero.
+ */
+@Singleton
+public class PoolJsonCache {
+
+    /**
+     * The version of a pool from which a cached entry was built.
+     */
+    private record Version(long updated, Long quantity, Long consumed, long startDate, long endDate,
+        String restrictedToUsername, Map<String, String> attributes, Map<String, String> productAttributes,
+        List<String> products) {
+    }
+
+    private record Entry(Version version, JsonNode json) {
+    }
+
+    private final RulesObjectMapper mapper;
+    private final ModelTranslator translator;
+
+    private final Cache<String, Entry> cache;
+    private final boolean enabled;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    @Inject
+    public PoolJsonCache(Configuration config, RulesObjectMapper mapper, ModelTranslator translator)
+        throws ConfigurationException {
+
+        Objects.requireNonNull(config);
+        this.mapper = Objects.requireNonNull(mapper);
+        this.translator = Objects.requireNonNull(translator);
+
+        long expirationDuration = config.getLong(ConfigProperties.CACHE_POOL_JSON_TTL);
+        if (expirationDuration <= 0) {
+            throw new ConfigurationException(ConfigProperties.CACHE_POOL_JSON_TTL +
+                " value must be larger than 0");
+        }
+
+        long maxEntries = config.getLong(ConfigProperties.CACHE_POOL_JSON_MAX_ENTRIES);
+        if (maxEntries < 0) {
+            throw new ConfigurationException(ConfigProperties.CACHE_POOL_JSON_MAX_ENTRIES +
+                " must be larger than or equal to 0");
+        }
+
+        this.enabled = maxEntries > 0;
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(expirationDuration))
+            .maximumSize(maxEntries)
+            .build();
+
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Checks if this cache is enabled.
+     *
+     * @return
+     *  true if this cache has a non-zero maximum size; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Fetches the rules JSON representation of the given pool, serializing the pool if the cache
+     * does not hold an entry for its current version. Pools which have not yet been persisted are
+     * never cached.
+     *
+     * @param pool
+     *  the pool for which to fetch the JSON representation
+     *
+     * @throws IllegalArgumentException
+     *  if the provided pool is null
+     *
+     * @return
+     *  the JSON representation of the pool, as passed to the rules
+     */
+    public JsonNode get(Pool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool is null");
+        }
+
+        if (!this.enabled || pool.getId() == null) {
+            return this.serialize(pool);
+        }
+
+        Version version = version(pool);
+
+        Entry entry = this.cache.getIfPresent(pool.getId());
+        if (entry != null && entry.version().equals(version)) {
+            this.hits.incrementAndGet();
+            return entry.json();
+        }
+
+        this.misses.incrementAndGet();
+
+        JsonNode json = this.serialize(pool);
+        this.cache.put(pool.getId(), new Entry(version, json));
+
+        return json;
+    }
+
+    /**
+     * Builds a JSON array of the rules JSON representations of the given pools, in the order
+     * they are provided.
+     *
+     * @param pools
+     *  the pools to include in the array; may be null
+     *
+     * @return
+     *  a JSON array of the given pools
+     */
+    public ArrayNode getPools(Collection<Pool> pools) {
+        ArrayNode array = this.mapper.getNodeFactory().arrayNode();
+
+        if (pools != null) {
+            pools.forEach(pool -> array.add(this.get(pool)));
+        }
+
+        return array;
+    }
+
+    /**
+     * Builds a JSON array of the rules JSON representations of the given pool quantities. The
+     * pool of each quantity is fetched from this cache.
+     *
+     * @param quantities
+     *  the pool quantities to include in the array; may be null
+     *
+     * @return
+     *  a JSON array of the given pool quantities
+     */
+    public ArrayNode getPoolQuantities(Collection<PoolQuantity> quantities) {
+        ArrayNode array = this.mapper.getNodeFactory().arrayNode();
+
+        if (quantities != null) {
+            for (PoolQuantity quantity : quantities) {
+                ObjectNode node = array.addObject();
+                node.put("quantity", quantity.getQuantity());
+                node.set("pool", quantity.getPool() != null ? this.get(quantity.getPool()) : null);
+            }
+        }
+
+        return array;
+    }
+
+    private JsonNode serialize(Pool pool) {
+        return this.mapper.valueToTree(this.translator.translate(pool, PoolDTO.class));
+    }
+
+    /**
+     * Builds the version of the given pool, covering every field used to build its rules DTO.
+     */
+    private static Version version(Pool pool) {
+        List<String> products = new ArrayList<>();
+        Map<String, String> productAttributes = Collections.emptyMap();
+
+        Product product = pool.getProduct();
+        if (product != null) {
+            productAttributes = copy(product.getAttributes());
+            addProductVersion(products, product);
+
+            Product derived = product.getDerivedProduct();
+            if (derived != null) {
+                products.add("derived");
+                addProductVersion(products, derived);
+            }
+        }
+
+        return new Version(time(pool.getUpdated()), pool.getQuantity(), pool.getConsumed(),
+            time(pool.getStartDate()), time(pool.getEndDate()), pool.getRestrictedToUsername(),
+            copy(pool.getAttributes()), productAttributes, products);
+    }
+
+    private static void addProductVersion(List<String> products, Product product) {
+        products.add(product.getUuid() + "@" + time(product.getUpdated()) + ":" + product.getId());
+
+        Collection<Product> provided = product.getProvidedProducts();
+        if (provided != null) {
+            for (Product pp : provided) {
+                products.add(pp.getUuid() + "@" + time(pp.getUpdated()) + ":" + pp.getId() + ":" +
+                    pp.getName());
+            }
+        }
+    }
+
+    private static Map<String, String> copy(Map<String, String> attributes) {
+        return attributes != null ? new HashMap<>(attributes) : Collections.emptyMap();
+    }
+
+    private static long time(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+
+    /**
+     * Fetches the number of times a pool's JSON was found in the cache.
+     *
+     * @return
+     *  the number of cache hits
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Fetches the number of times a pool's JSON had to be built, because the cache held no entry
+     * for its current version.
+     *
+     * @return
+     *  the number of cache misses
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * Clears all entries in the cache
+     */
+    public void removeAll() {
+        this.cache.invalidateAll();
+    }
+
+}
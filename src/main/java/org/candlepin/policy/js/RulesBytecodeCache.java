@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.candlepin.model.Rules;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.GeneratedClassLoader;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.optimizer.ClassCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+
+
+/**
+ * A file-backed cache of the Java classes generated by compiling the javascript rules. Compiling
+ * the full rules at the optimization level used by the {@link JsRunnerProvider} takes a notable
+ * portion of node startup; with this cache, a node starting with the same rules as a previous run
+ * defines the stored classes directly instead.
+ * <p>
+ * Cache entries are keyed by the rules version, a checksum of the rules source, the Rhino version
+ * and the optimization level, all of which must match for an entry to be used. Entries which do
+ * not match, or which cannot be read or defined for any reason, are discarded and the rules are
+ * recompiled, so the cache can never change the behavior of the rules.
+ * <p>
+ * Since cache entries are loaded as classes, the cache directory, the entries and the key file
+ * must be owned by the user running Candlepin and must not be writable by any other user, or the
+ * cache is not used. Each entry is also authenticated with an HMAC, keyed by a random key generated
+ * in the cache directory on first use and readable only by its owner; entries which fail
+ * authentication are discarded.
+ * <p>
+ * Only a single entry, for the most recently compiled rules, is retained in the cache directory.
+ */
+class RulesBytecodeCache {
+    private static final Logger log = LoggerFactory.getLogger(RulesBytecodeCache.class);
+
+    // Identifies cache files, and the layout of their contents; bump when the layout changes
+    private static final int MAGIC = 0x43505232;
+
+    private static final String FILE_PREFIX = "rules-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String KEY_FILE = "rules.key";
+    private static final String CLASS_PREFIX = "org.candlepin.policy.js.gen.Rules_";
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_LENGTH = 32;
+
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS =
+        PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> KEY_PERMISSIONS =
+        PosixFilePermissions.fromString("rw-------");
+
+    private final Path directory;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * Creates a new cache which stores compiled rules in the given directory. The directory is
+     * created as needed, accessible only by the user running Candlepin.
+     *
+     * @param directory
+     *  the directory in which to store compiled rules
+     */
+    RulesBytecodeCache(Path directory) {
+        this.directory = Objects.requireNonNull(directory);
+
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Fetches a compiled script for the given rules, loading it from the cache if a matching entry
+     * exists, or compiling the rules and storing the result otherwise. The caller is expected to
+     * have entered the given context, and set its optimization level.
+     *
+     * @param context
+     *  the context with which to compile or load the rules
+     *
+     * @param rules
+     *  the rules to compile
+     *
+     * @return
+     *  a compiled script for the given rules
+     */
+    Script getScript(Context context, Rules rules) {
+        Objects.requireNonNull(context);
+        Objects.requireNonNull(rules);
+
+        String source = rules.getRules();
+
+        // The interpreter does not generate classes, so there is nothing to cache
+        if (context.getOptimizationLevel() < 0) {
+            return context.compileString(source, "rules", 1, null);
+        }
+
+        String checksum = DigestUtils.sha256Hex(source);
+        String key = String.join("|", String.valueOf(rules.getVersion()), checksum,
+            context.getImplementationVersion(), String.valueOf(context.getOptimizationLevel()));
+
+        Mac mac = this.initMac();
+        if (mac == null) {
+            this.misses.incrementAndGet();
+            return context.compileString(source, "rules", 1, null);
+        }
+
+        Path file = this.directory.resolve(FILE_PREFIX + checksum + FILE_SUFFIX);
+
+        if (Files.exists(file, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                Script script = this.load(context, mac, file, key);
+                if (script != null) {
+                    log.info("Loaded compiled rules from cache: {}", file);
+                    this.hits.incrementAndGet();
+
+                    return script;
+                }
+
+                log.info("Compiled rules cache entry does not match current rules; recompiling");
+            }
+            catch (IOException | RuntimeException | LinkageError | ReflectiveOperationException e) {
+                log.warn("Unable to load compiled rules from cache; recompiling", e);
+            }
+        }
+
+        this.misses.incrementAndGet();
+
+        String mainClassName = CLASS_PREFIX + checksum.substring(0, 16);
+
+        CompilerEnvirons env = new CompilerEnvirons();
+        env.initFromContext(context);
+        Object[] classes = new ClassCompiler(env).compileToClassFiles(source, "rules", 1, mainClassName);
+
+        this.store(mac, file, key, mainClassName, classes);
+
+        try {
+            return this.define(context, mainClassName, classes);
+        }
+        catch (ReflectiveOperationException e) {
+            // This shouldn't happen for classes we just generated, but fall back to the default path
+            log.warn("Unable to define compiled rules classes; compiling rules directly", e);
+            return context.compileString(source, "rules", 1, null);
+        }
+    }
+
+    /**
+     * Prepares the cache directory and initializes a MAC with the cache key, generating the key if
+     * it does not yet exist.
+     *
+     * @return
+     *  an initialized MAC, or null if the cache directory or key cannot be used
+     */
+    private Mac initMac() {
+        try {
+            Files.createDirectories(this.directory,
+                PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+            this.verifyOwnership(this.directory);
+
+            Path keyFile = this.directory.resolve(KEY_FILE);
+            if (!Files.exists(keyFile, LinkOption.NOFOLLOW_LINKS)) {
+                this.createKey(keyFile);
+            }
+
+            PosixFileAttributes attributes = this.verifyOwnership(keyFile);
+            if (!KEY_PERMISSIONS.containsAll(attributes.permissions())) {
+                throw new IOException("Compiled rules cache key is accessible by other users: " + keyFile);
+            }
+
+            byte[] key = Files.readAllBytes(keyFile);
+            if (key.length != KEY_LENGTH) {
+                throw new IOException("Invalid compiled rules cache key: " + keyFile);
+            }
+
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+
+            return mac;
+        }
+        catch (IOException | GeneralSecurityException | RuntimeException e) {
+            log.warn("Unable to use compiled rules cache directory: {}; compiling rules directly",
+                this.directory, e);
+
+            return null;
+        }
+    }
+
+    private void createKey(Path keyFile) throws IOException {
+        byte[] key = new byte[KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+
+        Path temp = Files.createTempFile(this.directory, KEY_FILE, ".tmp",
+            PosixFilePermissions.asFileAttribute(KEY_PERMISSIONS));
+
+        try {
+            Files.write(temp, key);
+
+            // Nodes sharing the directory may be generating a key concurrently; the losers' entries
+            // will fail authentication and be recompiled
+            Files.move(temp, keyFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            this.delete(temp);
+        }
+    }
+
+    /**
+     * Verifies the given path is not a symbolic link, is owned by the user running Candlepin, and
+     * is not writable by any other user.
+     *
+     * @throws IOException
+     *  if the path does not exist or fails verification
+     *
+     * @return
+     *  the attributes of the given path
+     */
+    private PosixFileAttributes verifyOwnership(Path path) throws IOException {
+        PosixFileAttributes attributes = Files.readAttributes(path, PosixFileAttributes.class,
+            LinkOption.NOFOLLOW_LINKS);
+
+        if (attributes.isSymbolicLink()) {
+            throw new IOException("Compiled rules cache path is a symbolic link: " + path);
+        }
+
+        UserPrincipal user = path.getFileSystem()
+            .getUserPrincipalLookupService()
+            .lookupPrincipalByName(System.getProperty("user.name"));
+
+        if (!user.equals(attributes.owner())) {
+            throw new IOException("Compiled rules cache path is not owned by " + user.getName() + ": " +
+                path);
+        }
+
+        Set<PosixFilePermission> permissions = attributes.permissions();
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE) ||
+            permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+
+            throw new IOException("Compiled rules cache path is writable by other users: " + path);
+        }
+
+        return attributes;
+    }
+
+    /**
+     * Loads the script stored in the given cache file.
+     *
+     * @throws IOException
+     *  if the file cannot be read, fails verification or authentication, or is malformed
+     *
+     * @return
+     *  the loaded script, or null if the file is not an entry for the given key
+     */
+    private Script load(Context context, Mac mac, Path file, String key)
+        throws IOException, ReflectiveOperationException {
+
+        this.verifyOwnership(file);
+
+        byte[] data = Files.readAllBytes(file);
+        int length = data.length - mac.getMacLength();
+        if (length < 0) {
+            throw new IOException("Truncated compiled rules cache entry: " + file);
+        }
+
+        mac.update(data, 0, length);
+        if (!MessageDigest.isEqual(mac.doFinal(), Arrays.copyOfRange(data, length, data.length))) {
+            throw new IOException("Compiled rules cache entry failed authentication: " + file);
+        }
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data, 0, length))) {
+            if (input.readInt() != MAGIC || !key.equals(input.readUTF())) {
+                return null;
+            }
+
+            String mainClassName = input.readUTF();
+            int count = input.readInt();
+            if (count < 1) {
+                throw new IOException("Invalid compiled rules class count: " + count);
+            }
+
+            Object[] classes = new Object[count * 2];
+            for (int i = 0; i < count; ++i) {
+                classes[i * 2] = input.readUTF();
+
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                classes[i * 2 + 1] = bytes;
+            }
+
+            return this.define(context, mainClassName, classes);
+        }
+    }
+
+    /**
+     * Writes the given compiled classes, followed by their MAC, to the given cache file, and
+     * removes any other entries from the cache directory. Failures are logged and otherwise
+     * ignored, as the cache is only an optimization.
+     */
+    private void store(Mac mac, Path file, String key, String mainClassName, Object[] classes) {
+        Path temp = null;
+
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+            try (DataOutputStream output = new DataOutputStream(buffer)) {
+                output.writeInt(MAGIC);
+                output.writeUTF(key);
+                output.writeUTF(mainClassName);
+                output.writeInt(classes.length / 2);
+
+                for (int i = 0; i < classes.length; i += 2) {
+                    byte[] bytes = (byte[]) classes[i + 1];
+
+                    output.writeUTF((String) classes[i]);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+
+                output.write(mac.doFinal(buffer.toByteArray()));
+            }
+
+            // Temporary files are created readable and writable only by their owner
+            temp = Files.createTempFile(this.directory, FILE_PREFIX, ".tmp");
+            Files.write(temp, buffer.toByteArray());
+
+            // Nodes sharing the directory may be writing concurrently; readers only ever see
+            // complete entries
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+
+            log.debug("Stored compiled rules in cache: {}", file);
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn("Unable to store compiled rules in cache directory: {}", this.directory, e);
+        }
+        finally {
+            if (temp != null) {
+                this.delete(temp);
+            }
+        }
+
+        this.removeStaleEntries(file);
+    }
+
+    private void removeStaleEntries(Path current) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory,
+            FILE_PREFIX + "*" + FILE_SUFFIX)) {
+
+            for (Path entry : entries) {
+                if (!entry.equals(current)) {
+                    this.delete(entry);
+                }
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            log.debug("Unable to remove stale compiled rules from cache directory: {}", this.directory, e);
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e) {
+            log.debug("Unable to delete compiled rules cache file: {}", path, e);
+        }
+    }
+
+    /**
+     * Defines the given compiled classes in a new class loader, and instantiates the main class
+     * as a script.
+     */
+    private Script define(Context context, String mainClassName, Object[] classes)
+        throws ReflectiveOperationException {
+
+        GeneratedClassLoader loader = context.createClassLoader(context.getApplicationClassLoader());
+
+        Class<?> mainClass = null;
+        for (int i = 0; i < classes.length; i += 2) {
+            String name = (String) classes[i];
+            Class<?> cls = loader.defineClass(name, (byte[]) classes[i + 1]);
+
+            if (name.equals(mainClassName)) {
+                mainClass = cls;
+            }
+        }
+
+        if (mainClass == null || !Script.class.isAssignableFrom(mainClass)) {
+            throw new ClassNotFoundException("Compiled rules do not define a script: " + mainClassName);
+        }
+
+        loader.linkClass(mainClass);
+        return (Script) mainClass.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Fetches the number of times the compiled rules were loaded from the cache.
+     *
+     * @return
+     *  the number of cache hits
+     */
+    long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Fetches the number of times the rules had to be compiled, because no matching entry was
+     * present in the cache.
+     *
+     * @return
+     *  the number of cache misses
+     */
+    long getMissCount() {
+        return this.misses.get();
+    }
+
+}
@@ -18,7 +18,9 @@ import org.candlepin.exceptions.IseException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import org.slf4j.Logger;
@@ -61,7 +63,12 @@ public class RulesObjectMapper {
     public String toJsonString(Map<String, Object> toSerialize) {
         ObjectNode mainNode = this.mapper.createObjectNode();
         for (Entry<String, Object> entry : toSerialize.entrySet()) {
-            mainNode.putPOJO(entry.getKey(), entry.getValue());
+            if (entry.getValue() instanceof JsonNode) {
+                mainNode.set(entry.getKey(), (JsonNode) entry.getValue());
+            }
+            else {
+                mainNode.putPOJO(entry.getKey(), entry.getValue());
+            }
         }
 
         try {
@@ -73,6 +80,36 @@ public class RulesObjectMapper {
         }
     }
 
+    /**
+     * Converts the given objects to a JSON tree, using the same serialization as
+     * {@link #toJsonString(Map)} without producing the intermediate JSON string. Objects which are
+     * already JSON nodes are added to the tree as-is.
+     *
+     * @param toSerialize
+     *  a map of the objects to convert, keyed by the name of the field to store them under
+     *
+     * @return
+     *  an object node containing the converted objects
+     */
+    public ObjectNode toJsonNode(Map<String, Object> toSerialize) {
+        ObjectNode mainNode = this.mapper.createObjectNode();
+
+        try {
+            for (Entry<String, Object> entry : toSerialize.entrySet()) {
+                Object value = entry.getValue();
+                mainNode.set(entry.getKey(), value instanceof JsonNode ?
+                    (JsonNode) value :
+                    this.mapper.valueToTree(value));
+            }
+        }
+        catch (Exception e) {
+            log.error("Unable to serialize objects to JSON.", e);
+            throw new IseException("Unable to serialize objects to JSON.", e);
+        }
+
+        return mainNode;
+    }
+
     public <T extends Object> T toObject(String json, Class<T> clazz) {
         try {
             return mapper.readValue(json, clazz);
@@ -84,6 +121,46 @@ public class RulesObjectMapper {
         }
     }
 
+    public <T extends Object> T toObject(JsonNode json, Class<T> clazz) {
+        try {
+            return mapper.treeToValue(json, clazz);
+        }
+        catch (Exception e) {
+            log.error("Error converting JSON from rules into: " + clazz.getName(), e);
+            log.error(String.valueOf(json));
+            throw new IseException("Unable to build object from JSON.", e);
+        }
+    }
+
+    /**
+     * Provides the node factory used by this mapper to build JSON trees.
+     *
+     * @return
+     *  the node factory of the underlying object mapper
+     */
+    public JsonNodeFactory getNodeFactory() {
+        return this.mapper.getNodeFactory();
+    }
+
+    /**
+     * Converts an arbitrary Java object to a JSON tree.
+     *
+     * @param value
+     *  the object to convert
+     *
+     * @return
+     *  the JSON tree representing the given object
+     */
+    public JsonNode valueToTree(Object value) {
+        try {
+            return this.mapper.valueToTree(value);
+        }
+        catch (Exception e) {
+            log.error("Unable to serialize object to JSON.", e);
+            throw new IseException("Unable to serialize object to JSON.", e);
+        }
+    }
+
     public <T extends Object> T toObject(String json, TypeReference<T> typeref) {
         try {
             return mapper.readValue(json, typeref);
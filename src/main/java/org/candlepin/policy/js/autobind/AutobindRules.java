@@ -19,7 +19,6 @@ import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
 import org.candlepin.dto.rules.v1.ConsumerDTO;
 import org.candlepin.dto.rules.v1.GuestIdDTO;
 import org.candlepin.dto.rules.v1.OwnerDTO;
-import org.candlepin.dto.rules.v1.PoolDTO;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerInstalledProduct;
 import org.candlepin.model.GuestId;
@@ -31,6 +30,7 @@ import org.candlepin.model.Product;
 import org.candlepin.pki.certs.V3CapabilityCheck;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsonJsContext;
+import org.candlepin.policy.js.PoolJsonCache;
 import org.candlepin.policy.js.RuleExecutionException;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.compliance.ComplianceStatus;
@@ -69,16 +69,18 @@ public class AutobindRules {
     private final OwnerCurator ownerCurator;
     private final ModelTranslator translator;
     private final V3CapabilityCheck v3CapabilityCheck;
+    private final PoolJsonCache poolJsonCache;
 
     @Inject
     public AutobindRules(JsRunner jsRules, OwnerCurator ownerCurator, RulesObjectMapper mapper,
-        ModelTranslator translator, V3CapabilityCheck v3CapabilityCheck) {
+        ModelTranslator translator, V3CapabilityCheck v3CapabilityCheck, PoolJsonCache poolJsonCache) {
 
         this.jsRules = Objects.requireNonNull(jsRules);
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
         this.mapper = Objects.requireNonNull(mapper);
         this.translator = Objects.requireNonNull(translator);
         this.v3CapabilityCheck = Objects.requireNonNull(v3CapabilityCheck);
+        this.poolJsonCache = Objects.requireNonNull(poolJsonCache);
 
         jsRules.init("autobind_name_space");
     }
@@ -114,17 +116,12 @@ public class AutobindRules {
             }
         }
 
-        List<PoolDTO> poolDTOs = new ArrayList<>();
-        for (Pool pool : pools) {
-            poolDTOs.add(this.translator.translate(pool, PoolDTO.class));
-        }
-
         Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
             consumer.getGuestIds().stream()
                 .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
 
         // Provide objects for the script:
-        JsonJsContext args = new JsonJsContext(mapper);
+        JsonJsContext args = JsonJsContext.forRunner(jsRules, mapper);
 
         ConsumerDTO consumerDTO = this.translator.translate(consumer, ConsumerDTO.class);
 
@@ -141,7 +138,7 @@ public class AutobindRules {
         Owner owner = ownerCurator.findOwnerById(consumer.getOwnerId());
         args.put("owner", this.translator.translate(owner, OwnerDTO.class));
         args.put("serviceLevelOverride", serviceLevelOverride);
-        args.put("pools", poolDTOs.toArray());
+        args.put("pools", this.poolJsonCache.getPools(pools));
         args.put("products", productIds.toArray());
         args.put("log", log, false);
         args.put("compliance", this.translator.translate(compliance, ComplianceStatusDTO.class));
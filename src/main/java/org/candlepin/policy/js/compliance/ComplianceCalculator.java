@@ -0,0 +1,1141 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import org.candlepin.dto.api.server.v1.DateRange;
+import org.candlepin.dto.rules.v1.ComplianceReasonDTO;
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.EntitlementDTO;
+import org.candlepin.dto.rules.v1.GuestIdDTO;
+import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.util.Util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * ComplianceCalculator
+ *
+ * A native implementation of the compliance checks performed by the "Compliance" namespace of the
+ * rules. The calculations mirror those of the rules exactly, including their handling of loosely
+ * typed attribute and fact values, so that either implementation may be used to determine the
+ * status of a consumer.
+ * <p>
+ * Any change to the compliance portion of the rules must be reflected here; the differential
+ * compliance engine mode can be used to verify that both implementations agree.
+ */
+@Singleton
+public class ComplianceCalculator {
+    private static final String STORAGE_BAND_ATTRIBUTE = "storage_band";
+    private static final String STORAGE_BAND_FACT = "band.storage.usage";
+
+    private static final String TYPE_ENTITLEMENT = "ENTITLEMENT";
+    private static final String TYPE_STACK = "STACK";
+
+    private static final List<String> PHYSICAL_ATTRIBUTES = List.of(
+        Product.Attributes.SOCKETS,
+        Product.Attributes.CORES,
+        Product.Attributes.RAM,
+        Product.Attributes.ARCHITECTURE,
+        Product.Attributes.GUEST_LIMIT,
+        STORAGE_BAND_ATTRIBUTE);
+
+    private static final List<String> VIRT_ATTRIBUTES = List.of(
+        Product.Attributes.VCPU,
+        Product.Attributes.RAM,
+        Product.Attributes.ARCHITECTURE,
+        Product.Attributes.GUEST_LIMIT,
+        STORAGE_BAND_ATTRIBUTE);
+
+    private static final Set<String> UNCHECKED_WHEN_HOST_RESTRICTED = Set.of(
+        Product.Attributes.RAM,
+        Product.Attributes.VCPU);
+
+    private static final Map<String, String> ATTRIBUTES_TO_CONSUMER_FACTS = Map.of(
+        Product.Attributes.SOCKETS, Consumer.Facts.CPU_SOCKETS,
+        Product.Attributes.CORES, Consumer.Facts.CPU_CORES_PER_SOCKET,
+        Product.Attributes.ARCHITECTURE, Consumer.Facts.UNAME_MACHINE,
+        Product.Attributes.RAM, Consumer.Facts.MEMORY_MEMTOTAL,
+        Product.Attributes.VCPU, Consumer.Facts.CPU_CORES_PER_SOCKET,
+        STORAGE_BAND_ATTRIBUTE, STORAGE_BAND_FACT);
+
+    private static final Pattern DECIMAL_LITERAL =
+        Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+    private static final Pattern HEX_LITERAL = Pattern.compile("0[xX][0-9a-fA-F]+");
+
+    /**
+     * Determines the compliance status of the given consumer on the given date, in the same
+     * manner as the "get_status" rules function.
+     *
+     * @param consumer
+     *  the consumer for which to determine compliance status
+     *
+     * @param entitlements
+     *  the entitlements consumed by the consumer
+     *
+     * @param guestIds
+     *  the guests reported for the consumer; may be null
+     *
+     * @param ondate
+     *  the date on which to determine compliance status
+     *
+     * @param calculateCompliantUntil
+     *  whether or not to calculate the date until which the consumer remains compliant
+     *
+     * @param calculateProductComplianceDateRanges
+     *  whether or not to calculate the compliance date ranges of the consumer's installed products
+     *
+     * @return
+     *  the compliance status of the consumer
+     */
+    public ComplianceStatusDTO getStatus(ConsumerDTO consumer, Collection<EntitlementDTO> entitlements,
+        Collection<GuestIdDTO> guestIds, Date ondate, boolean calculateCompliantUntil,
+        boolean calculateProductComplianceDateRanges) {
+
+        Objects.requireNonNull(consumer);
+        Objects.requireNonNull(ondate);
+
+        Evaluation evaluation = new Evaluation(consumer, guestIds);
+        List<Ent> ents = evaluation.wrap(entitlements);
+
+        Status status = evaluation.getComplianceStatusOnDate(ents, ondate.getTime());
+
+        Date compliantUntil = null;
+        Map<String, DateRange> dateRanges = null;
+
+        if (status.isCompliant() && calculateCompliantUntil && !ents.isEmpty()) {
+            compliantUntil = evaluation.determineCompliantUntilDate(ents, ondate.getTime());
+        }
+
+        if (status.isPartiallyCompliant() && calculateProductComplianceDateRanges && !ents.isEmpty()) {
+            dateRanges = evaluation.getProductComplianceDateRanges(ents, ondate.getTime(), status);
+        }
+
+        return new ComplianceStatusDTO()
+            .setDate(ondate)
+            .setCompliantUntil(compliantUntil)
+            .setCompliantProducts(toEntitlementMap(status.compliantProducts))
+            .setPartiallyCompliantProducts(toEntitlementMap(status.partiallyCompliantProducts))
+            .setPartialStacks(toEntitlementMap(status.partialStacks))
+            .setNonCompliantProducts(status.nonCompliantProducts)
+            .setProductComplianceDateRanges(dateRanges)
+            .setReasons(status.reasons);
+    }
+
+    /**
+     * Checks if the stack with the given ID fully covers the consumer, in the same manner as the
+     * "is_stack_compliant" rules function.
+     *
+     * @param consumer
+     *  the consumer to check
+     *
+     * @param stackId
+     *  the ID of the stack to check
+     *
+     * @param entitlements
+     *  the entitlements to consider
+     *
+     * @param guestIds
+     *  the guests reported for the consumer; may be null
+     *
+     * @return
+     *  true if the stack covers the consumer; false otherwise
+     */
+    public boolean isStackCompliant(ConsumerDTO consumer, String stackId,
+        Collection<EntitlementDTO> entitlements, Collection<GuestIdDTO> guestIds) {
+
+        Objects.requireNonNull(consumer);
+
+        Evaluation evaluation = new Evaluation(consumer, guestIds);
+        return evaluation.getStackCoverage(stackId, evaluation.wrap(entitlements)).covered;
+    }
+
+    /**
+     * Checks if the given entitlement fully covers the consumer, in the same manner as the
+     * "is_ent_compliant" rules function.
+     *
+     * @param consumer
+     *  the consumer to check
+     *
+     * @param entitlement
+     *  the entitlement to check
+     *
+     * @param entitlements
+     *  the entitlements to consider for global attributes
+     *
+     * @param guestIds
+     *  the guests reported for the consumer; may be null
+     *
+     * @return
+     *  true if the entitlement covers the consumer; false otherwise
+     */
+    public boolean isEntitlementCompliant(ConsumerDTO consumer, EntitlementDTO entitlement,
+        Collection<EntitlementDTO> entitlements, Collection<GuestIdDTO> guestIds) {
+
+        Objects.requireNonNull(consumer);
+        Objects.requireNonNull(entitlement);
+
+        Evaluation evaluation = new Evaluation(consumer, guestIds);
+        Ent ent = evaluation.wrap(entitlement);
+
+        return evaluation.getEntitlementCoverage(ent, evaluation.wrap(entitlements)).covered;
+    }
+
+    private static Map<String, Set<EntitlementDTO>> toEntitlementMap(Map<String, List<Ent>> source) {
+        Map<String, Set<EntitlementDTO>> output = new HashMap<>();
+
+        source.forEach((key, ents) -> {
+            Set<EntitlementDTO> dtos = new LinkedHashSet<>();
+            ents.forEach(ent -> dtos.add(ent.dto));
+
+            output.put(key, dtos);
+        });
+
+        return output;
+    }
+
+    /**
+     * The state of a single compliance calculation for a given consumer.
+     */
+    private static class Evaluation {
+        private final ConsumerDTO consumer;
+        private final Map<String, String> facts;
+        private final boolean guest;
+        private final List<String> complianceAttributes;
+        private final List<String> installedProducts;
+        private final int activeGuestCount;
+
+        Evaluation(ConsumerDTO consumer, Collection<GuestIdDTO> guestIds) {
+            this.consumer = consumer;
+            this.facts = consumer.getFacts() != null ? consumer.getFacts() : Map.of();
+            this.guest = isTruthy(this.facts.get(Consumer.Facts.VIRT_IS_GUEST)) &&
+                "true".equalsIgnoreCase(this.facts.get(Consumer.Facts.VIRT_IS_GUEST));
+
+            this.complianceAttributes = this.guest ? VIRT_ATTRIBUTES : PHYSICAL_ATTRIBUTES;
+            this.installedProducts = consumer.getInstalledProducts() != null ?
+                new ArrayList<>(consumer.getInstalledProducts()) :
+                null;
+
+            int count = 0;
+            if (guestIds != null) {
+                for (GuestIdDTO guestId : guestIds) {
+                    Map<String, String> attributes = guestId.getAttributes();
+
+                    if (attributes != null && "libvirt".equals(attributes.get("virtWhoType")) &&
+                        "1".equals(attributes.get("active"))) {
+                        ++count;
+                    }
+                }
+            }
+
+            this.activeGuestCount = count;
+        }
+
+        List<Ent> wrap(Collection<EntitlementDTO> entitlements) {
+            List<Ent> ents = new ArrayList<>();
+
+            if (entitlements != null) {
+                for (EntitlementDTO entitlement : entitlements) {
+                    ents.add(this.wrap(entitlement));
+                }
+            }
+
+            return ents;
+        }
+
+        Ent wrap(EntitlementDTO entitlement) {
+            PoolDTO pool = entitlement.getPool();
+            Ent ent = new Ent(entitlement, pool);
+
+            // When the pool is missing vcpu and the consumer is virtual, the pool uses its cores
+            // value instead. As in the rules, the value is added to the pool itself, so a copy
+            // is made to avoid changing the caller's entitlement.
+            if (this.guest && ent.getAttribute(Product.Attributes.VCPU) == null &&
+                ent.getAttribute(Product.Attributes.CORES) != null) {
+
+                Map<String, String> attributes = new HashMap<>();
+                if (pool.getAttributes() != null) {
+                    attributes.putAll(pool.getAttributes());
+                }
+
+                double vcpu = parseInt(ent.getAttribute(Product.Attributes.CORES));
+                attributes.put(Product.Attributes.VCPU, toJsString(vcpu));
+
+                PoolDTO poolCopy = new PoolDTO(pool)
+                    .setAttributes(attributes);
+
+                EntitlementDTO entCopy = new EntitlementDTO(entitlement)
+                    .setPool(poolCopy);
+
+                ent = new Ent(entCopy, poolCopy);
+            }
+
+            return ent;
+        }
+
+        /**
+         * Checks compliance status for the consumer on a given date.
+         */
+        Status getComplianceStatusOnDate(List<Ent> entitlements, long ondate) {
+            Status status = new Status();
+
+            // Track the stack IDs we've already checked to save some time
+            List<String> compliantStackIds = new ArrayList<>();
+            List<String> nonCompliantStackIds = new ArrayList<>();
+
+            List<Ent> entitlementsOnDate = new ArrayList<>();
+            for (Ent ent : entitlements) {
+                if (ent.startDate <= ondate && ent.endDate >= ondate) {
+                    entitlementsOnDate.add(ent);
+                }
+            }
+
+            for (Ent ent : entitlementsOnDate) {
+                List<String> relevantPids = this.findRelevantPids(ent);
+                boolean partiallyStacked = false;
+                boolean stacked = ent.isStacked();
+
+                if (stacked) {
+                    String stackId = ent.getProductAttribute(Product.Attributes.STACKING_ID);
+
+                    if (nonCompliantStackIds.contains(stackId)) {
+                        partiallyStacked = true;
+                        status.add(status.partialStacks, String.valueOf(stackId), ent);
+                    }
+                    else if (!compliantStackIds.contains(stackId)) {
+                        Coverage stackCoverage = this.getStackCoverage(stackId, entitlementsOnDate);
+
+                        if (!stackCoverage.covered) {
+                            partiallyStacked = true;
+                            status.add(status.partialStacks, String.valueOf(stackId), ent);
+                            nonCompliantStackIds.add(stackId);
+                            status.reasons.addAll(stackCoverage.reasons);
+                        }
+                        else {
+                            compliantStackIds.add(stackId);
+                        }
+                    }
+                }
+
+                // If we have no installed products and the entitlement is partially covered, we
+                // want the system to be partial
+                if (relevantPids.isEmpty() && !stacked) {
+                    Coverage entCoverage = this.getEntitlementCoverage(ent, entitlementsOnDate);
+                    if (!entCoverage.covered) {
+                        status.reasons.addAll(entCoverage.reasons);
+                    }
+                }
+
+                // If the consumer has an entitlement from a pool marked unmapped_guests_only it
+                // can only hope to be yellow
+                if ("true".equalsIgnoreCase(ent.getAttribute(Pool.Attributes.UNMAPPED_GUESTS_ONLY))) {
+                    status.reasons.add(buildReason(ComplianceReason.ReasonKeys.UNMAPPED_GUEST,
+                        Collections.singletonMap("entitlement_id", ent.dto.getId())));
+                }
+
+                Coverage entCoverage = null;
+                for (String pid : relevantPids) {
+                    if (partiallyStacked) {
+                        status.add(status.partiallyCompliantProducts, pid, ent);
+                        continue;
+                    }
+
+                    if (entCoverage == null) {
+                        entCoverage = this.getEntitlementCoverage(ent, entitlementsOnDate);
+                    }
+
+                    if (!entCoverage.covered && !stacked) {
+                        status.add(status.partiallyCompliantProducts, pid, ent);
+                        status.reasons.addAll(entCoverage.reasons);
+                    }
+                    else {
+                        status.add(status.compliantProducts, pid, ent);
+                    }
+                }
+            }
+
+            // Products which are also provided by a regular entitlement are not considered
+            // partially compliant. The stack remains in the partial stacks, as it should still
+            // be repaired.
+            status.partiallyCompliantProducts.keySet().removeIf(status.compliantProducts::containsKey);
+
+            // Any installed products we didn't find an entitlement for are not compliant
+            if (this.installedProducts != null) {
+                for (String pid : this.installedProducts) {
+                    if (!status.compliantProducts.containsKey(pid) &&
+                        !status.partiallyCompliantProducts.containsKey(pid)) {
+
+                        status.nonCompliantProducts.add(pid);
+                        status.reasons.add(buildReason(ComplianceReason.ReasonKeys.NOT_COVERED,
+                            Collections.singletonMap("product_id", pid)));
+                    }
+                }
+            }
+
+            return status;
+        }
+
+        /**
+         * Determines the date until which the consumer remains compliant, starting from the given
+         * date.
+         */
+        Date determineCompliantUntilDate(List<Ent> entitlements, long startDate) {
+            if (this.installedProducts == null || this.installedProducts.isEmpty()) {
+                return null;
+            }
+
+            List<Long> dates = new ArrayList<>();
+            for (Ent ent : entitlements) {
+                for (String pid : this.installedProducts) {
+                    if (ent.provides(pid)) {
+                        dates.add(ent.endDate);
+                        break;
+                    }
+                }
+            }
+
+            Collections.sort(dates);
+
+            long lastDate = startDate;
+            for (long date : dates) {
+                // Ignore past dates and duplicates
+                if (date <= lastDate) {
+                    continue;
+                }
+
+                // Check if we are still compliant a second after the end date. Note that the
+                // rules shift the date in place, so the shifted date becomes the last date.
+                long dateToCheck = date + 1000;
+                lastDate = dateToCheck;
+
+                Status status = this.getComplianceStatusOnDate(entitlements, dateToCheck);
+                if (!status.isCompliant()) {
+                    return new Date(dateToCheck);
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Determines the ranges of dates for which the consumer's compliant and partially
+         * compliant products remain in their current state.
+         */
+        @SuppressWarnings("checkstyle:methodlength")
+        Map<String, DateRange> getProductComplianceDateRanges(List<Ent> entitlements, long ondate,
+            Status current) {
+
+            Map<String, DateRange> output = new HashMap<>();
+
+            if (this.installedProducts == null || this.installedProducts.isEmpty()) {
+                return output;
+            }
+
+            List<Long> dates = new ArrayList<>();
+            for (Ent ent : entitlements) {
+                dates.add(ent.startDate);
+                dates.add(ent.endDate);
+            }
+
+            Collections.sort(dates);
+            int dateCount = dates.size();
+
+            // Find our next date in the future; this may end up out of range
+            int nextDate = -1;
+            for (int i = dateCount - 1; i >= 0; --i) {
+                if (dates.get(i) <= ondate) {
+                    nextDate = i + 1;
+                    break;
+                }
+            }
+
+            Map<String, Long> startDates = new LinkedHashMap<>();
+            Map<String, Long> endDates = new HashMap<>();
+
+            for (String pid : this.installedProducts) {
+                if (!current.nonCompliantProducts.contains(pid)) {
+                    startDates.put(pid, null);
+                }
+            }
+
+            Set<String> pids = startDates.keySet();
+            if (pids.isEmpty()) {
+                return output;
+            }
+
+            // Find start dates. A millisecond is added to each date to move us just outside the
+            // range of the entitlement from which an end date came, as the rules do.
+            int complete = 0;
+            long lastValidDate = ondate;
+
+            for (int i = nextDate - 1; i >= 0; --i) {
+                Status status = this.getComplianceStatusOnDate(entitlements, dates.get(i) + 1);
+
+                for (String pid : pids) {
+                    if (startDates.get(pid) == null) {
+                        if (status.nonCompliantProducts.contains(pid) ||
+                            (current.compliantProducts.containsKey(pid) &&
+                            !status.compliantProducts.containsKey(pid)) ||
+                            (current.partiallyCompliantProducts.containsKey(pid) &&
+                            !status.partiallyCompliantProducts.containsKey(pid))) {
+
+                            startDates.put(pid, lastValidDate);
+                            ++complete;
+                        }
+                    }
+                }
+
+                if (complete >= pids.size()) {
+                    break;
+                }
+
+                lastValidDate = dates.get(i);
+            }
+
+            // Find end dates
+            complete = 0;
+            for (int i = nextDate; i < dateCount; ++i) {
+                Status status = this.getComplianceStatusOnDate(entitlements, dates.get(i) + 1);
+
+                for (String pid : pids) {
+                    if (endDates.get(pid) == null) {
+                        if (status.nonCompliantProducts.contains(pid) ||
+                            (current.compliantProducts.containsKey(pid) &&
+                            !status.compliantProducts.containsKey(pid)) ||
+                            (current.partiallyCompliantProducts.containsKey(pid) &&
+                            !status.partiallyCompliantProducts.containsKey(pid) &&
+                            !status.compliantProducts.containsKey(pid))) {
+
+                            endDates.put(pid, dates.get(i));
+                            ++complete;
+                        }
+                    }
+                }
+
+                if (complete >= pids.size()) {
+                    break;
+                }
+            }
+
+            // Products which were valid all the way to the ends of our date ranges use the
+            // extremes of the ranges
+            for (String pid : pids) {
+                Long start = startDates.get(pid);
+                Long end = endDates.get(pid);
+
+                DateRange range = new DateRange();
+                range.setStartDate(Util.toDateTime(new Date(start != null ? start : dates.get(0))));
+                range.setEndDate(Util.toDateTime(new Date(end != null ? end : dates.get(dateCount - 1))));
+
+                output.put(pid, range);
+            }
+
+            return output;
+        }
+
+        List<String> findRelevantPids(Ent ent) {
+            List<String> pids = new ArrayList<>();
+
+            if (this.installedProducts != null) {
+                for (String pid : this.installedProducts) {
+                    if (ent.provides(pid)) {
+                        pids.add(pid);
+                    }
+                }
+            }
+
+            return pids;
+        }
+
+        Coverage getStackCoverage(String stackId, List<Ent> entitlements) {
+            Tracker tracker = new Tracker(stackId);
+
+            for (Ent ent : entitlements) {
+                if (ent.isStacked() &&
+                    Objects.equals(ent.getProductAttribute(Product.Attributes.STACKING_ID), stackId)) {
+
+                    tracker.updateFromEnt(ent);
+                }
+            }
+
+            return this.getCoverage(tracker, entitlements);
+        }
+
+        Coverage getEntitlementCoverage(Ent ent, List<Ent> entitlements) {
+            Tracker tracker = new Tracker(null);
+            tracker.updateFromEnt(ent);
+
+            return this.getCoverage(tracker, entitlements);
+        }
+
+        private Coverage getCoverage(Tracker tracker, List<Ent> entitlements) {
+            // Global attributes are checked against every entitlement rather than the tracked ones
+            if (tracker.enforces(Product.Attributes.GUEST_LIMIT)) {
+                tracker.values.put(Product.Attributes.GUEST_LIMIT, getGlobalGuestLimit(entitlements));
+            }
+
+            Coverage coverage = new Coverage();
+            int coverageCount = 0;
+
+            for (String attribute : this.complianceAttributes) {
+                // If the value doesn't exist we do not enforce it
+                if (!tracker.enforces(attribute)) {
+                    ++coverageCount;
+                    continue;
+                }
+
+                ComplianceReasonDTO reason;
+                switch (attribute) {
+                    case Product.Attributes.ARCHITECTURE:
+                        reason = this.checkArchitecture(tracker, attribute);
+                        break;
+
+                    case Product.Attributes.GUEST_LIMIT:
+                        reason = this.checkGuestLimit(tracker, attribute);
+                        break;
+
+                    default:
+                        reason = this.checkQuantity(tracker, attribute);
+                }
+
+                if (reason == null) {
+                    ++coverageCount;
+                }
+                else {
+                    coverage.reasons.add(reason);
+                }
+            }
+
+            coverage.covered = coverageCount == this.complianceAttributes.size();
+            return coverage;
+        }
+
+        @SuppressWarnings("unchecked")
+        private ComplianceReasonDTO checkArchitecture(Tracker tracker, String attribute) {
+            Object value = tracker.values.get(attribute);
+            List<String> supportedArchs = value instanceof List ? (List<String>) value : List.of();
+
+            String consumerArch = this.facts.get(Consumer.Facts.UNAME_MACHINE);
+            String consumerType = this.consumer.getType() != null ? this.consumer.getType().getLabel() : null;
+
+            for (String archString : supportedArchs) {
+                if (!architectureMatches(archString, consumerArch, consumerType)) {
+                    return tracker.buildReason(attribute, consumerArch, archString);
+                }
+            }
+
+            return null;
+        }
+
+        private ComplianceReasonDTO checkGuestLimit(Tracker tracker, String attribute) {
+            Object sourceValue = tracker.values.get(attribute);
+            double consumerQuantity = this.activeGuestCount;
+
+            boolean covered = (sourceValue instanceof Double && (Double) sourceValue == -1) ||
+                parseInt(sourceValue) >= consumerQuantity;
+
+            return covered ? null : tracker.buildReason(attribute, consumerQuantity, sourceValue);
+        }
+
+        private ComplianceReasonDTO checkQuantity(Tracker tracker, String attribute) {
+            Object consumerQuantity = this.getFact(attribute);
+            Object sourceValue = tracker.values.get(attribute);
+
+            // We assume that the value coming back is an int
+            boolean covered = parseInt(sourceValue) >= toNumber(consumerQuantity);
+
+            return covered ? null : tracker.buildReason(attribute, consumerQuantity, sourceValue);
+        }
+
+        /**
+         * Calculates the consumer value to compare against the given attribute. The raw fact
+         * value is used unless the attribute requires special handling.
+         */
+        private Object getFact(String attribute) {
+            switch (attribute) {
+                case Product.Attributes.RAM:
+                    // RAM must be converted to GB so it can be compared to the product value
+                    Object ram = this.getRawFact(attribute);
+                    double ramGb = parseInt(ram) / 1024 / 1024;
+                    return Double.isNaN(ramGb) ? Double.NaN : (double) Math.round(ramGb);
+
+                case Product.Attributes.CORES:
+                    // The consumer reports cores per socket
+                    Object sockets = this.getFact(Product.Attributes.SOCKETS);
+                    return toNumber(this.getRawFact(attribute)) * toNumber(sockets);
+
+                case Product.Attributes.VCPU:
+                    return this.getFact(Product.Attributes.CORES);
+
+                case Product.Attributes.GUEST_LIMIT:
+                    return (double) this.activeGuestCount;
+
+                default:
+                    return this.getRawFact(attribute);
+            }
+        }
+
+        private Object getRawFact(String attribute) {
+            String value = this.facts.get(ATTRIBUTES_TO_CONSUMER_FACTS.get(attribute));
+            return isTruthy(value) ? value : (Object) 1.0;
+        }
+
+        /**
+         * Tracks the accumulated attribute values of a single entitlement or a stack of
+         * entitlements.
+         */
+        private class Tracker {
+            private String id;
+            private final String type;
+            private final List<String> entitlementIds;
+            private final Map<String, Object> values;
+            private boolean hostRestricted;
+
+            Tracker(String id) {
+                this.id = id;
+                this.type = id == null ? TYPE_ENTITLEMENT : TYPE_STACK;
+                this.entitlementIds = new ArrayList<>();
+                this.values = new HashMap<>();
+                this.hostRestricted = false;
+            }
+
+            boolean enforces(String attribute) {
+                // Guests are not subjected to RAM/vCPU limitations when using a host-restricted
+                // sub-pool
+                if (this.hostRestricted && Evaluation.this.guest &&
+                    UNCHECKED_WHEN_HOST_RESTRICTED.contains(attribute)) {
+                    return false;
+                }
+
+                return this.values.containsKey(attribute);
+            }
+
+            void updateFromEnt(Ent ent) {
+                String entId = ent.dto.getId();
+
+                if (TYPE_ENTITLEMENT.equals(this.type) && this.entitlementIds.isEmpty()) {
+                    this.id = entId;
+                }
+
+                if (this.isAdded(entId)) {
+                    return;
+                }
+
+                this.entitlementIds.add(entId);
+
+                // If quantity is > 1 but the entitlement is not stacked, only calculate
+                // compliance for quantity 1
+                Integer entQuantity = ent.dto.getQuantity();
+                double quantity = entQuantity != null ? entQuantity : 0;
+                if (!ent.isStacked() && quantity > 1) {
+                    quantity = 1;
+                }
+
+                this.updateFromPool(ent, quantity);
+            }
+
+            /**
+             * Checks if the given entitlement has already been added. The rules perform this
+             * check with the "in" operator on the array of added IDs, which tests the array's
+             * indexes rather than its elements; the same test is performed here so the results
+             * of both implementations remain identical.
+             */
+            private boolean isAdded(String entId) {
+                if (entId == null || entId.isEmpty() || entId.length() > 10) {
+                    return "length".equals(entId);
+                }
+
+                if (entId.length() > 1 && entId.charAt(0) == '0') {
+                    return false;
+                }
+
+                for (int i = 0; i < entId.length(); ++i) {
+                    if (entId.charAt(i) < '0' || entId.charAt(i) > '9') {
+                        return false;
+                    }
+                }
+
+                return Long.parseLong(entId) < this.entitlementIds.size();
+            }
+
+            @SuppressWarnings("unchecked")
+            private void updateFromPool(Ent ent, double quantity) {
+                if (isTruthy(ent.getAttribute(Pool.Attributes.REQUIRES_HOST))) {
+                    this.hostRestricted = true;
+                }
+
+                for (String attribute : Evaluation.this.complianceAttributes) {
+                    String poolValue = ent.getProductAttribute(attribute);
+                    if (poolValue == null) {
+                        continue;
+                    }
+
+                    Object stackValue = this.enforces(attribute) ? this.values.get(attribute) : null;
+                    Object value;
+
+                    switch (attribute) {
+                        case Product.Attributes.ARCHITECTURE:
+                            List<String> archs = stackValue instanceof List ?
+                                (List<String>) stackValue :
+                                new ArrayList<>();
+
+                            archs.add(poolValue);
+                            value = archs;
+                            break;
+
+                        case Product.Attributes.SOCKETS:
+                            double increment =
+                                parseInt(ent.getProductAttribute(Product.Attributes.INSTANCE_MULTIPLIER));
+
+                            if (Double.isNaN(increment) || increment == 0) {
+                                increment = 1;
+                            }
+
+                            // Use the lowest quantity evenly divisible by the instance multiplier
+                            double adjustedQuantity = quantity - (quantity % increment);
+                            value = toInt32(stackValue) +
+                                (parseInt(poolValue) * adjustedQuantity) / increment;
+                            break;
+
+                        case Product.Attributes.GUEST_LIMIT:
+                            // The value doesn't matter, it only needs to be enforced
+                            value = -1.0;
+                            break;
+
+                        default:
+                            value = toInt32(stackValue) + (parseInt(poolValue) * quantity);
+                    }
+
+                    this.values.put(attribute, value);
+                }
+            }
+
+            ComplianceReasonDTO buildReason(String attribute, Object has, Object covered) {
+                Map<String, String> attributes = new HashMap<>();
+                attributes.put("has", toJsonString(has));
+                attributes.put("covered", toJsonString(covered));
+                attributes.put(TYPE_STACK.equals(this.type) ? "stack_id" : "entitlement_id", this.id);
+
+                return ComplianceCalculator.buildReason(attribute.toUpperCase(Locale.ROOT), attributes);
+            }
+        }
+    }
+
+    /**
+     * A view of an entitlement providing the attribute lookups used by the compliance checks.
+     */
+    private static class Ent {
+        private final EntitlementDTO dto;
+        private final Map<String, String> attributes;
+        private final Map<String, String> productAttributes;
+        private final String productId;
+        private final Set<String> providedProductIds;
+        private final long startDate;
+        private final long endDate;
+
+        Ent(EntitlementDTO dto, PoolDTO pool) {
+            this.dto = dto;
+
+            this.attributes = pool != null && pool.getAttributes() != null ?
+                pool.getAttributes() :
+                Map.of();
+
+            this.productAttributes = pool != null && pool.getProductAttributes() != null ?
+                pool.getProductAttributes() :
+                Map.of();
+
+            this.productId = pool != null ? pool.getProductId() : null;
+
+            this.providedProductIds = new HashSet<>();
+            if (pool != null && pool.getProvidedProducts() != null) {
+                pool.getProvidedProducts()
+                    .forEach(provided -> this.providedProductIds.add(provided.getProductId()));
+            }
+
+            // Missing dates are treated as the epoch, as they are by the rules
+            this.startDate = dto.getStartDate() != null ? dto.getStartDate().getTime() : 0;
+            this.endDate = dto.getEndDate() != null ? dto.getEndDate().getTime() : 0;
+        }
+
+        private static String findAttributeIn(String name, Map<String, String> attributes) {
+            String value = attributes.get(name);
+
+            // An attribute is considered not set if it has a value of 0
+            return "0".equals(value) ? null : value;
+        }
+
+        String getAttribute(String name) {
+            String value = findAttributeIn(name, this.attributes);
+            return value != null ? value : findAttributeIn(name, this.productAttributes);
+        }
+
+        String getProductAttribute(String name) {
+            String value = findAttributeIn(name, this.productAttributes);
+            return value != null ? value : findAttributeIn(name, this.attributes);
+        }
+
+        boolean isStacked() {
+            return this.productAttributes.containsKey(Product.Attributes.STACKING_ID);
+        }
+
+        boolean provides(String productId) {
+            return Objects.equals(this.productId, productId) || this.providedProductIds.contains(productId);
+        }
+    }
+
+    /**
+     * The compliance status of a consumer on a specific date.
+     */
+    private static class Status {
+        private final Map<String, List<Ent>> partialStacks = new LinkedHashMap<>();
+        private final Map<String, List<Ent>> partiallyCompliantProducts = new LinkedHashMap<>();
+        private final Map<String, List<Ent>> compliantProducts = new LinkedHashMap<>();
+        private final List<String> nonCompliantProducts = new ArrayList<>();
+        private final List<ComplianceReasonDTO> reasons = new ArrayList<>();
+
+        void add(Map<String, List<Ent>> map, String key, Ent ent) {
+            map.computeIfAbsent(key, k -> new ArrayList<>()).add(ent);
+        }
+
+        boolean isCompliant() {
+            return this.nonCompliantProducts.isEmpty() && this.partiallyCompliantProducts.isEmpty();
+        }
+
+        boolean isPartiallyCompliant() {
+            return !this.compliantProducts.isEmpty() || !this.partiallyCompliantProducts.isEmpty();
+        }
+    }
+
+    /**
+     * The coverage of a consumer provided by a single entitlement or stack.
+     */
+    private static class Coverage {
+        private boolean covered;
+        private final List<ComplianceReasonDTO> reasons = new ArrayList<>();
+    }
+
+    private static ComplianceReasonDTO buildReason(String key, Map<String, String> attributes) {
+        return new ComplianceReasonDTO()
+            .setKey(key)
+            .setMessage(key)
+            .setAttributes(attributes);
+    }
+
+    private static Double getGlobalGuestLimit(List<Ent> entitlements) {
+        Double total = null;
+
+        for (Ent ent : entitlements) {
+            String value = ent.getProductAttribute(Product.Attributes.GUEST_LIMIT);
+            if (value == null) {
+                continue;
+            }
+
+            if (total == null) {
+                total = 0.0;
+            }
+
+            double poolValue = parseInt(value);
+            if (poolValue == -1) {
+                return poolValue;
+            }
+
+            if (poolValue > total) {
+                total = poolValue;
+            }
+        }
+
+        return total;
+    }
+
+    private static boolean architectureMatches(String productArchStr, String consumerArch,
+        String consumerType) {
+
+        // Non-system consumers without an architecture fact can pass this rule regardless of
+        // what arch the product requires
+        if (!isTruthy(consumerArch) && !"system".equals(consumerType)) {
+            return true;
+        }
+
+        if (productArchStr != null) {
+            List<String> supportedArchs =
+                new ArrayList<>(Arrays.asList(productArchStr.toUpperCase(Locale.ROOT).split(",", -1)));
+
+            // If X86 is supported, add all variants to the list
+            if (supportedArchs.contains("X86")) {
+                supportedArchs.addAll(List.of("I386", "I586", "I686"));
+            }
+
+            return supportedArchs.contains("ALL") ||
+                (isTruthy(consumerArch) && supportedArchs.contains(consumerArch.toUpperCase(Locale.ROOT)));
+        }
+
+        return true;
+    }
+
+    private static boolean isTruthy(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    /**
+     * Converts a value to a number in the same manner as the javascript parseInt function.
+     */
+    private static double parseInt(Object value) {
+        if (value instanceof Double) {
+            double dval = (Double) value;
+            return Double.isNaN(dval) || Double.isInfinite(dval) ? Double.NaN : (double) (long) dval;
+        }
+
+        String str = String.valueOf(value).strip();
+        int offset = 0;
+        boolean negative = false;
+
+        if (!str.isEmpty() && (str.charAt(0) == '+' || str.charAt(0) == '-')) {
+            negative = str.charAt(0) == '-';
+            offset = 1;
+        }
+
+        int radix = 10;
+        if (str.startsWith("0x", offset) || str.startsWith("0X", offset)) {
+            radix = 16;
+            offset += 2;
+        }
+
+        double result = 0;
+        int digits = 0;
+
+        for (int i = offset; i < str.length(); ++i, ++digits) {
+            // Only ASCII digits are accepted, unlike Character.digit
+            int digit = str.charAt(i) < 0x80 ? Character.digit(str.charAt(i), radix) : -1;
+            if (digit < 0) {
+                break;
+            }
+
+            result = result * radix + digit;
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        return negative ? -result : result;
+    }
+
+    /**
+     * Converts a value to a number in the same manner as the javascript Number function.
+     */
+    private static double toNumber(Object value) {
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+
+        String str = value.toString().strip();
+        if (str.isEmpty()) {
+            return 0;
+        }
+
+        if (DECIMAL_LITERAL.matcher(str).matches()) {
+            return Double.parseDouble(str);
+        }
+
+        if (HEX_LITERAL.matcher(str).matches()) {
+            return new BigInteger(str.substring(2), 16).doubleValue();
+        }
+
+        switch (str) {
+            case "Infinity":
+            case "+Infinity":
+                return Double.POSITIVE_INFINITY;
+
+            case "-Infinity":
+                return Double.NEGATIVE_INFINITY;
+
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Converts a value to a 32-bit integer in the same manner as the javascript bitwise operators.
+     */
+    private static int toInt32(Object value) {
+        double dval = value instanceof Double ? (Double) value : 0;
+        if (Double.isNaN(dval) || Double.isInfinite(dval)) {
+            return 0;
+        }
+
+        return (int) (long) dval;
+    }
+
+    /**
+     * Converts a number to a string in the same manner as javascript.
+     */
+    private static String toJsString(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "Infinity" : "-Infinity";
+        }
+
+        if (value == Math.rint(value) && Math.abs(value) < 1e21) {
+            return new BigDecimal(value).toPlainString();
+        }
+
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Converts a value to the string it would be deserialized as after a round trip through the
+     * JSON form of the rules result.
+     */
+    private static String toJsonString(Object value) {
+        if (value instanceof Double) {
+            double dval = (Double) value;
+            return Double.isNaN(dval) || Double.isInfinite(dval) ? null : toJsString(dval);
+        }
+
+        return value != null ? value.toString() : null;
+    }
+
+}
@@ -15,7 +15,11 @@
 package org.candlepin.policy.js.compliance;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.api.server.v1.DateRange;
 import org.candlepin.dto.rules.v1.ComplianceReasonDTO;
 import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
 import org.candlepin.dto.rules.v1.ConsumerDTO;
@@ -35,11 +39,14 @@ import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsonJsContext;
 import org.candlepin.policy.js.RuleExecutionException;
 import org.candlepin.policy.js.RulesObjectMapper;
+import org.candlepin.policy.js.compliance.hash.ComplianceInputHasher;
 import org.candlepin.policy.js.compliance.hash.ComplianceStatusHasher;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -64,6 +71,23 @@ import javax.inject.Inject;
 public class ComplianceRules {
     private static final Logger log = LoggerFactory.getLogger(ComplianceRules.class);
 
+    /**
+     * The engines available for calculating compliance status
+     */
+    public enum Engine {
+        /** Compliance is calculated by the javascript rules */
+        RULES,
+
+        /** Compliance is calculated by the native implementation */
+        JAVA,
+
+        /**
+         * Compliance is calculated by both engines, and any differences between them are
+         * reported; the result of the rules is used
+         */
+        DIFFERENTIAL
+    }
+
     private final JsRunner jsRules;
     private final EntitlementCurator entCurator;
     private final StatusReasonMessageGenerator generator;
@@ -72,12 +96,17 @@ public class ComplianceRules {
     private final ConsumerTypeCurator consumerTypeCurator;
     private final RulesObjectMapper mapper;
     private final ModelTranslator translator;
+    private final ComplianceCalculator calculator;
+    private final ComplianceStatusCache statusCache;
+    private final ComplianceWorkerPool workerPool;
+    private final Engine engine;
 
     @Inject
     public ComplianceRules(JsRunner jsRules, EntitlementCurator entCurator,
         StatusReasonMessageGenerator generator, EventSink eventSink, ConsumerCurator consumerCurator,
         ConsumerTypeCurator consumerTypeCurator, RulesObjectMapper mapper,
-        ModelTranslator translator) {
+        ModelTranslator translator, ComplianceCalculator calculator, ComplianceStatusCache statusCache,
+        ComplianceWorkerPool workerPool, Configuration config) {
 
         this.jsRules = Objects.requireNonNull(jsRules);
         this.entCurator = Objects.requireNonNull(entCurator);
@@ -87,10 +116,31 @@ public class ComplianceRules {
         this.consumerTypeCurator = Objects.requireNonNull(consumerTypeCurator);
         this.mapper = Objects.requireNonNull(mapper);
         this.translator = Objects.requireNonNull(translator);
+        this.calculator = Objects.requireNonNull(calculator);
+        this.statusCache = Objects.requireNonNull(statusCache);
+        this.workerPool = Objects.requireNonNull(workerPool);
+
+        String engineString = config.getString(ConfigProperties.COMPLIANCE_ENGINE);
+        try {
+            this.engine = Enum.valueOf(Engine.class, engineString.trim());
+        }
+        catch (Exception e) {
+            throw new IllegalArgumentException("Unknown compliance engine: " + engineString, e);
+        }
 
         jsRules.init("compliance_name_space");
     }
 
+    /**
+     * Fetches the engine used by this instance to calculate compliance status.
+     *
+     * @return
+     *  the compliance engine in use
+     */
+    public Engine getEngine() {
+        return this.engine;
+    }
+
     /**
      * Check compliance status for a consumer on a specific date.
      * This should NOT calculate compliantUntil.
@@ -155,62 +205,215 @@ public class ComplianceRules {
      *        (also expensive)
      * @return Compliance status.
      */
-    @SuppressWarnings("checkstyle:indentation")
     public ComplianceStatus getStatus(Consumer consumer, Collection<Entitlement> newEntitlements, Date date,
         boolean calculateCompliantUntil, boolean updateConsumer, boolean calculateProductComplianceDateRanges,
         boolean currentCompliance) {
 
-        if (date == null) {
-            date = new Date();
+        Evaluation evaluation = this.prepareEvaluation(consumer, newEntitlements, date,
+            calculateCompliantUntil, updateConsumer, calculateProductComplianceDateRanges, currentCompliance);
+
+        if (evaluation.status == null) {
+            this.evaluate(evaluation);
+            this.completeEvaluation(evaluation, updateConsumer, currentCompliance);
         }
 
-        if (currentCompliance) {
-            updateEntsOnStart(consumer);
+        return evaluation.status;
+    }
+
+    /**
+     * Check compliance status for many consumers on a specific date, evaluating up to the
+     * configured maximum number of consumers concurrently.
+     *
+     * @param consumers
+     *  the consumers to check
+     *
+     * @param date
+     *  the date to check compliance status for, or null to check current compliance
+     *
+     * @param calculateCompliantUntil
+     *  whether or not to calculate how long each consumer will remain compliant (expensive)
+     *
+     * @return
+     *  a map of the compliance statuses of the given consumers, keyed by consumer UUID
+     */
+    public Map<String, ComplianceStatus> getStatuses(Collection<Consumer> consumers, Date date,
+        boolean calculateCompliantUntil) {
+
+        return this.getStatuses(consumers, date, calculateCompliantUntil,
+            this.workerPool.getMaxConcurrency());
+    }
+
+    /**
+     * Check compliance status for many consumers on a specific date. The statuses are calculated
+     * as {@link #getStatus(Consumer, Date, boolean)} would for each consumer, but the consumers
+     * are evaluated concurrently on the shared compliance worker pool. The data used by the
+     * evaluations is gathered from the consumers on the calling thread, so the consumers should
+     * be fetched with their compliance data already loaded, as done by
+     * {@link ConsumerCurator#findByUuidsWithComplianceData(Collection)}.
+     *
+     * @param consumers
+     *  the consumers to check
+     *
+     * @param date
+     *  the date to check compliance status for, or null to check current compliance
+     *
+     * @param calculateCompliantUntil
+     *  whether or not to calculate how long each consumer will remain compliant (expensive)
+     *
+     * @param concurrency
+     *  the maximum number of consumers to evaluate concurrently; further limited by the configured
+     *  maximum concurrency of the worker pool
+     *
+     * @return
+     *  a map of the compliance statuses of the given consumers, keyed by consumer UUID
+     */
+    public Map<String, ComplianceStatus> getStatuses(Collection<Consumer> consumers, Date date,
+        boolean calculateCompliantUntil, int concurrency) {
+
+        Map<String, ComplianceStatus> statuses = new HashMap<>();
+        if (consumers == null || consumers.isEmpty()) {
+            return statuses;
         }
 
-        Stream<EntitlementDTO> entStream = Stream.concat(
-            newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
-            consumer.getEntitlements() != null ? consumer.getEntitlements().stream() : Stream.empty())
-            .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
+        boolean currentCompliance = date == null;
+
+        List<Evaluation> evaluations = new ArrayList<>();
+        for (Consumer consumer : consumers) {
+            evaluations.add(this.prepareEvaluation(consumer, null, date, calculateCompliantUntil, true,
+                false, currentCompliance));
+        }
+
+        List<Evaluation> pending = evaluations.stream()
+            .filter(evaluation -> evaluation.status == null && evaluation.statusDTO == null)
+            .collect(Collectors.toList());
+
+        log.debug("Evaluating compliance of {} of {} consumer(s) with a concurrency of {}",
+            pending.size(), evaluations.size(), concurrency);
+
+        this.workerPool.forEach(pending, concurrency, this::evaluate);
+
+        for (Evaluation evaluation : evaluations) {
+            if (evaluation.status == null) {
+                this.completeEvaluation(evaluation, true, currentCompliance);
+            }
+
+            statuses.put(evaluation.consumer.getUuid(), evaluation.status);
+        }
 
-        Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
-            consumer.getGuestIds().stream()
-                .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
+        return statuses;
+    }
+
+    /**
+     * The inputs and results of the compliance evaluation of a single consumer
+     */
+    private static class Evaluation {
+        private Consumer consumer;
+        private Collection<Entitlement> newEntitlements;
+        private Date date;
+        private boolean calculateCompliantUntil;
+        private boolean calculateProductComplianceDateRanges;
+
+        private ConsumerDTO consumerDTO;
+        private List<EntitlementDTO> entDTOs;
+        private List<GuestIdDTO> guestIdDTOs;
+
+        private ComplianceStatusCache.Key cacheKey;
+        private ComplianceStatusDTO statusDTO;
+        private ComplianceStatus status;
+    }
+
+    /**
+     * Gathers the inputs of the compliance evaluation of the given consumer, and fetches any
+     * cached status for them. If the status of the consumer does not need to be evaluated at all,
+     * the status of the returned evaluation is set.
+     */
+    private Evaluation prepareEvaluation(Consumer consumer, Collection<Entitlement> newEntitlements,
+        Date date, boolean calculateCompliantUntil, boolean updateConsumer,
+        boolean calculateProductComplianceDateRanges, boolean currentCompliance) {
+
+        Evaluation evaluation = new Evaluation();
+        evaluation.consumer = consumer;
+        evaluation.newEntitlements = newEntitlements;
+        evaluation.date = date != null ? date : new Date();
+        evaluation.calculateCompliantUntil = calculateCompliantUntil;
+        evaluation.calculateProductComplianceDateRanges = calculateProductComplianceDateRanges;
+
+        if (currentCompliance) {
+            updateEntsOnStart(consumer);
+        }
 
         // Status can only be 'disabled' when in golden ticket mode
         if (consumer.getOwner() != null && consumer.getOwner().isUsingSimpleContentAccess()) {
             ComplianceStatus cs = new ComplianceStatus(new Date());
             cs.setDisabled(true);
             applyStatus(consumer, cs, updateConsumer);
-            return cs;
+
+            evaluation.status = cs;
+            return evaluation;
         }
 
         // Do not calculate compliance status for distributors. It is prohibitively
         // expensive and meaningless
         ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
         if (ctype != null && (ctype.isManifest())) {
-            return new ComplianceStatus(new Date());
+            evaluation.status = new ComplianceStatus(new Date());
+            return evaluation;
+        }
+
+        evaluation.consumerDTO = this.translator.translate(consumer, ConsumerDTO.class);
+        evaluation.entDTOs = this.translateEntitlements(this.getAllEntitlements(evaluation));
+        evaluation.guestIdDTOs = this.translateGuestIds(consumer);
+
+        // Statuses are cached by a hash of their inputs. Product compliance date ranges depend on
+        // the exact date of the calculation, so statuses including them are not cached.
+        if (this.statusCache.isEnabled() && consumer.getUuid() != null &&
+            !calculateProductComplianceDateRanges) {
+
+            String inputHash = new ComplianceInputHasher(evaluation.consumerDTO, evaluation.entDTOs,
+                evaluation.guestIdDTOs, evaluation.date, calculateCompliantUntil).hash();
+
+            evaluation.cacheKey = new ComplianceStatusCache.Key(consumer.getUuid(), inputHash);
+            evaluation.statusDTO = this.statusCache.get(evaluation.cacheKey);
         }
 
-        JsonJsContext args = new JsonJsContext(mapper);
-        args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
-        args.put("entitlements", entStream);
-        args.put("ondate", date);
-        args.put("calculateCompliantUntil", calculateCompliantUntil);
-        args.put("calculateProductComplianceDateRanges", calculateProductComplianceDateRanges);
-        args.put("log", log, false);
-        args.put("guestIds", guestIdStream);
+        return evaluation;
+    }
 
-        // Convert the JSON returned into a ComplianceStatus object:
-        String json = jsRules.runJsFunction(String.class, "get_status", args);
+    /**
+     * Calculates the status of the given evaluation, unless a cached status was found for it. This
+     * only operates on the translated inputs of the evaluation, and may be run on any thread.
+     */
+    private void evaluate(Evaluation evaluation) {
+        if (evaluation.statusDTO != null) {
+            log.debug("Using cached compliance status for consumer {}", evaluation.consumer.getUuid());
+            return;
+        }
+
+        evaluation.statusDTO = this.calculateStatus(evaluation.consumer, evaluation.consumerDTO,
+            evaluation.entDTOs, evaluation.guestIdDTOs, evaluation.date, evaluation.calculateCompliantUntil,
+            evaluation.calculateProductComplianceDateRanges);
+
+        if (evaluation.cacheKey != null) {
+            this.statusCache.put(evaluation.cacheKey, evaluation.statusDTO);
+        }
+    }
+
+    /**
+     * Converts the calculated status of the given evaluation into a ComplianceStatus, and applies
+     * it to the consumer if it is the current status of the consumer.
+     */
+    private void completeEvaluation(Evaluation evaluation, boolean updateConsumer,
+        boolean currentCompliance) {
+
+        Consumer consumer = evaluation.consumer;
+
+        // Convert the result returned into a ComplianceStatus object:
         try {
-            ComplianceStatusDTO statusDTO = mapper.toObject(json, ComplianceStatusDTO.class);
             ComplianceStatus status = new ComplianceStatus();
-            Set<Entitlement> allEntitlements = Stream.concat(
-                newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
-                consumer.getEntitlements() != null ? consumer.getEntitlements().stream() : Stream.empty())
-                .collect(Collectors.toSet());
-            populateEntity(status, statusDTO, allEntitlements);
+            populateEntity(status, evaluation.statusDTO, new HashSet<>(this.getAllEntitlements(evaluation)));
+
+            // Cached statuses may have been calculated earlier in the day
+            status.setDate(evaluation.date);
 
             for (ComplianceReason reason : status.getReasons()) {
                 generator.setMessage(consumer, reason, status.getDate());
@@ -220,13 +423,69 @@ public class ComplianceRules {
                 applyStatus(consumer, status, updateConsumer);
             }
 
-            return status;
+            evaluation.status = status;
         }
         catch (Exception e) {
             throw new RuleExecutionException(e);
         }
     }
 
+    private List<Entitlement> getAllEntitlements(Evaluation evaluation) {
+        Collection<Entitlement> newEntitlements = evaluation.newEntitlements;
+        Collection<Entitlement> existing = evaluation.consumer.getEntitlements();
+
+        return Stream.concat(
+            newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
+            existing != null ? existing.stream() : Stream.empty())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Calculates the compliance status of a consumer with the configured compliance engine.
+     */
+    private ComplianceStatusDTO calculateStatus(Consumer consumer, ConsumerDTO consumerDTO,
+        List<EntitlementDTO> entDTOs, List<GuestIdDTO> guestIdDTOs, Date date,
+        boolean calculateCompliantUntil, boolean calculateProductComplianceDateRanges) {
+
+        ComplianceStatusDTO statusDTO = null;
+        if (this.engine != Engine.JAVA) {
+            JsonJsContext args = JsonJsContext.forRunner(jsRules, mapper);
+            args.put("consumer", consumerDTO);
+            args.put("entitlements", entDTOs);
+            args.put("ondate", date);
+            args.put("calculateCompliantUntil", calculateCompliantUntil);
+            args.put("calculateProductComplianceDateRanges", calculateProductComplianceDateRanges);
+            args.put("log", log, false);
+            args.put("guestIds", guestIdDTOs);
+
+            Object result = jsRules.runJsFunction(Object.class, "get_status", args);
+            try {
+                statusDTO = args.readResult(result, ComplianceStatusDTO.class);
+            }
+            catch (Exception e) {
+                throw new RuleExecutionException(e);
+            }
+        }
+
+        if (this.engine != Engine.RULES) {
+            ComplianceStatusDTO calculated = this.calculator.getStatus(consumerDTO, entDTOs, guestIdDTOs,
+                date, calculateCompliantUntil, calculateProductComplianceDateRanges);
+
+            if (statusDTO != null) {
+                List<String> differences = findDifferences(statusDTO, calculated);
+                if (!differences.isEmpty()) {
+                    log.warn("Compliance engines disagree on the status of consumer {} on {}: {}",
+                        consumer.getUuid(), date, differences);
+                }
+            }
+            else {
+                statusDTO = calculated;
+            }
+        }
+
+        return statusDTO;
+    }
+
     public void updateEntsOnStart(Consumer c) {
         for (Entitlement ent : c.getEntitlements()) {
             if (!ent.isUpdatedOnStart() && ent.isValid()) {
@@ -256,45 +515,173 @@ public class ComplianceRules {
         }
     }
 
-    @SuppressWarnings("checkstyle:indentation")
     public boolean isStackCompliant(Consumer consumer, String stackId, List<Entitlement> entsToConsider) {
-        Stream<EntitlementDTO> entStream = entsToConsider == null ? Stream.empty() :
-            entsToConsider.stream()
-                .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
-
-        Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
-            consumer.getGuestIds().stream()
-                .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
-
-        JsonJsContext args = new JsonJsContext(mapper);
-        args.put("stack_id", stackId);
-        args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
-        args.put("entitlements", entStream);
-        args.put("log", log, false);
-        args.put("guestIds", guestIdStream);
-
-        return jsRules.runJsFunction(Boolean.class, "is_stack_compliant", args);
+        ConsumerDTO consumerDTO = this.translator.translate(consumer, ConsumerDTO.class);
+        List<EntitlementDTO> entDTOs = this.translateEntitlements(entsToConsider);
+        List<GuestIdDTO> guestIdDTOs = this.translateGuestIds(consumer);
+
+        Boolean result = null;
+        if (this.engine != Engine.JAVA) {
+            JsonJsContext args = JsonJsContext.forRunner(jsRules, mapper);
+            args.put("stack_id", stackId);
+            args.put("consumer", consumerDTO);
+            args.put("entitlements", entDTOs);
+            args.put("log", log, false);
+            args.put("guestIds", guestIdDTOs);
+
+            result = jsRules.runJsFunction(Boolean.class, "is_stack_compliant", args);
+        }
+
+        if (this.engine != Engine.RULES) {
+            boolean calculated = this.calculator.isStackCompliant(consumerDTO, stackId, entDTOs, guestIdDTOs);
+
+            if (result == null) {
+                result = calculated;
+            }
+            else if (result != calculated) {
+                log.warn("Compliance engines disagree on the compliance of stack {} for consumer {}: " +
+                    "rules: {}, java: {}", stackId, consumer.getUuid(), result, calculated);
+            }
+        }
+
+        return result;
     }
 
-    @SuppressWarnings("checkstyle:indentation")
     public boolean isEntitlementCompliant(Consumer consumer, Entitlement ent, Date onDate) {
         List<Entitlement> ents = entCurator.listByConsumerAndDate(consumer, onDate);
 
-        Stream<EntitlementDTO> entStream = ents == null ? Stream.empty() :
-            ents.stream().map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
+        ConsumerDTO consumerDTO = this.translator.translate(consumer, ConsumerDTO.class);
+        EntitlementDTO entDTO = this.translator.translate(ent, EntitlementDTO.class);
+        List<EntitlementDTO> entDTOs = this.translateEntitlements(ents);
+        List<GuestIdDTO> guestIdDTOs = this.translateGuestIds(consumer);
+
+        Boolean result = null;
+        if (this.engine != Engine.JAVA) {
+            JsonJsContext args = JsonJsContext.forRunner(jsRules, mapper);
+            args.put("consumer", consumerDTO);
+            args.put("entitlement", entDTO);
+            args.put("entitlements", entDTOs);
+            args.put("log", log, false);
+            args.put("guestIds", guestIdDTOs);
+
+            result = jsRules.runJsFunction(Boolean.class, "is_ent_compliant", args);
+        }
+
+        if (this.engine != Engine.RULES) {
+            boolean calculated = this.calculator.isEntitlementCompliant(consumerDTO, entDTO, entDTOs,
+                guestIdDTOs);
+
+            if (result == null) {
+                result = calculated;
+            }
+            else if (result != calculated) {
+                log.warn("Compliance engines disagree on the compliance of entitlement {} for consumer {}: " +
+                    "rules: {}, java: {}", ent.getId(), consumer.getUuid(), result, calculated);
+            }
+        }
+
+        return result;
+    }
+
+    private List<EntitlementDTO> translateEntitlements(Collection<Entitlement> entitlements) {
+        return entitlements == null ? new ArrayList<>() : entitlements.stream()
+            .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class))
+            .collect(Collectors.toList());
+    }
+
+    private List<GuestIdDTO> translateGuestIds(Consumer consumer) {
+        return consumer.getGuestIds() == null ? new ArrayList<>() : consumer.getGuestIds().stream()
+            .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Compares two compliance statuses, describing any differences between them which would
+     * affect the resulting status. Entitlements are compared by ID only.
+     *
+     * @param expected
+     *  the status expected
+     *
+     * @param actual
+     *  the status to compare with the expected status
+     *
+     * @return
+     *  a list of descriptions of the differences found; empty if the statuses are equivalent
+     */
+    static List<String> findDifferences(ComplianceStatusDTO expected, ComplianceStatusDTO actual) {
+        List<String> differences = new ArrayList<>();
+
+        if (!Objects.equals(expected.getCompliantUntil(), actual.getCompliantUntil())) {
+            differences.add(String.format("compliantUntil: %s != %s",
+                expected.getCompliantUntil(), actual.getCompliantUntil()));
+        }
+
+        if (!Objects.equals(toSet(expected.getNonCompliantProducts()),
+            toSet(actual.getNonCompliantProducts()))) {
+
+            differences.add(String.format("nonCompliantProducts: %s != %s",
+                expected.getNonCompliantProducts(), actual.getNonCompliantProducts()));
+        }
+
+        compareEntitlementMaps("compliantProducts", expected.getCompliantProducts(),
+            actual.getCompliantProducts(), differences);
+        compareEntitlementMaps("partiallyCompliantProducts", expected.getPartiallyCompliantProducts(),
+            actual.getPartiallyCompliantProducts(), differences);
+        compareEntitlementMaps("partialStacks", expected.getPartialStacks(), actual.getPartialStacks(),
+            differences);
 
-        Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
-            consumer.getGuestIds().stream()
-                .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
+        if (!Objects.equals(toSet(expected.getReasons()), toSet(actual.getReasons()))) {
+            differences.add(String.format("reasons: %s != %s", expected.getReasons(), actual.getReasons()));
+        }
 
-        JsonJsContext args = new JsonJsContext(mapper);
-        args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
-        args.put("entitlement", this.translator.translate(ent, EntitlementDTO.class));
-        args.put("entitlements", entStream);
-        args.put("log", log, false);
-        args.put("guestIds", guestIdStream);
+        Map<String, DateRange> expectedRanges = expected.getProductComplianceDateRanges();
+        Map<String, DateRange> actualRanges = actual.getProductComplianceDateRanges();
+
+        if (!Objects.equals(toRangeMap(expectedRanges), toRangeMap(actualRanges))) {
+            differences.add(String.format("productComplianceDateRanges: %s != %s",
+                expectedRanges, actualRanges));
+        }
 
-        return jsRules.runJsFunction(Boolean.class, "is_ent_compliant", args);
+        return differences;
+    }
+
+    private static <T> Set<T> toSet(Collection<T> collection) {
+        return collection != null ? new HashSet<>(collection) : Set.of();
+    }
+
+    private static Map<String, List<Long>> toRangeMap(Map<String, DateRange> ranges) {
+        Map<String, List<Long>> output = new HashMap<>();
+
+        if (ranges != null) {
+            ranges.forEach((pid, range) -> output.put(pid, Arrays.asList(
+                range.getStartDate() != null ? range.getStartDate().toInstant().toEpochMilli() : null,
+                range.getEndDate() != null ? range.getEndDate().toInstant().toEpochMilli() : null)));
+        }
+
+        return output;
+    }
+
+    private static void compareEntitlementMaps(String name, Map<String, Set<EntitlementDTO>> expected,
+        Map<String, Set<EntitlementDTO>> actual, List<String> differences) {
+
+        Map<String, Set<String>> expectedIds = toEntitlementIdMap(expected);
+        Map<String, Set<String>> actualIds = toEntitlementIdMap(actual);
+
+        if (!expectedIds.equals(actualIds)) {
+            differences.add(String.format("%s: %s != %s", name, expectedIds, actualIds));
+        }
+    }
+
+    private static Map<String, Set<String>> toEntitlementIdMap(Map<String, Set<EntitlementDTO>> source) {
+        Map<String, Set<String>> output = new HashMap<>();
+
+        if (source != null) {
+            source.forEach((key, ents) -> output.put(key, ents == null ? Set.of() : ents.stream()
+                .map(EntitlementDTO::getId)
+                .collect(Collectors.toSet())));
+        }
+
+        return output;
     }
 
     private String getComplianceStatusHash(ComplianceStatus status, Consumer consumer) {
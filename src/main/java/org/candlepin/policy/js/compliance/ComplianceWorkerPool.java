@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * A bounded pool of worker threads shared by bulk compliance evaluations. Callers prepare the
+ * inputs of each evaluation, which requires database access, on the calling thread, and use this
+ * pool to run the CPU-bound evaluations of many consumers concurrently.
+ * <p>
+ * Each bulk evaluation is limited to a maximum number of concurrent evaluations, so a single
+ * large request cannot occupy every worker. The calling thread always takes part in its own
+ * evaluation, and only workers which are idle at the time are recruited to help it; when every
+ * worker is busy, the evaluation simply runs on the calling thread, so requests never wait on
+ * each other for a worker.
+ * <p>
+ * The pool is disabled when its configured thread count is zero, or before it has been started,
+ * in which case all evaluations are run on the calling thread.
+ */
+@Singleton
+public class ComplianceWorkerPool {
+    private static final Logger log = LoggerFactory.getLogger(ComplianceWorkerPool.class);
+
+    private final int threads;
+    private final int maxConcurrency;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong evaluated;
+    private final AtomicLong recruited;
+
+    @Inject
+    public ComplianceWorkerPool(Configuration config) throws ConfigurationException {
+        Objects.requireNonNull(config);
+
+        this.threads = config.getInt(ConfigProperties.COMPLIANCE_BULK_THREADS);
+        if (this.threads < 0) {
+            throw new ConfigurationException(ConfigProperties.COMPLIANCE_BULK_THREADS +
+                " must be larger than or equal to 0");
+        }
+
+        this.maxConcurrency = config.getInt(ConfigProperties.COMPLIANCE_BULK_MAX_CONCURRENCY);
+        if (this.maxConcurrency < 1) {
+            throw new ConfigurationException(ConfigProperties.COMPLIANCE_BULK_MAX_CONCURRENCY +
+                " must be larger than 0");
+        }
+
+        this.evaluated = new AtomicLong();
+        this.recruited = new AtomicLong();
+    }
+
+    /**
+     * Starts the worker threads. If the pool is disabled or has already been started, this method
+     * does nothing.
+     */
+    public synchronized void start() {
+        if (this.threads == 0 || this.executor != null) {
+            return;
+        }
+
+        log.info("Starting compliance worker pool with {} thread(s) and a maximum concurrency of {}",
+            this.threads, this.maxConcurrency);
+
+        // Tasks are only ever handed to idle workers; anything else is rejected and left to the caller
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(), new WorkerThreadFactory());
+    }
+
+    /**
+     * Stops the worker threads after any running evaluations have completed. If the pool has not
+     * been started, this method does nothing.
+     */
+    public synchronized void shutdown() {
+        if (this.executor == null) {
+            return;
+        }
+
+        log.info("Shutting down compliance worker pool");
+
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for compliance worker pool threads to terminate");
+                this.executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.executor = null;
+    }
+
+    /**
+     * Checks if this pool is enabled and running.
+     *
+     * @return
+     *  true if evaluations may be run by the worker threads of this pool; false otherwise
+     */
+    public synchronized boolean isRunning() {
+        return this.executor != null;
+    }
+
+    /**
+     * Fetches the maximum number of items a single call to {@link #forEach} processes
+     * concurrently.
+     *
+     * @return
+     *  the maximum concurrency of a bulk evaluation
+     */
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * Runs the given task for each of the given items, processing up to the given number of items
+     * concurrently, and returns once every item has been processed. The calling thread processes
+     * items alongside any idle workers recruited from the pool; the concurrency is further limited
+     * to the configured maximum concurrency.
+     * <p>
+     * The task must not access the database or any other resource bound to the calling thread. If
+     * the task fails for any item, no further items are started, and the first failure is rethrown
+     * once the items already started have been processed.
+     *
+     * @param items
+     *  the items to process
+     *
+     * @param concurrency
+     *  the maximum number of items to process concurrently
+     *
+     * @param task
+     *  the task to run for each item
+     *
+     * @throws IllegalArgumentException
+     *  if task is null, or concurrency is less than 1
+     */
+    public <T> void forEach(List<T> items, int concurrency, Consumer<T> task) {
+        if (task == null) {
+            throw new IllegalArgumentException("task is null");
+        }
+
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be larger than 0");
+        }
+
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Runnable worker = () -> {
+            for (int index = next.getAndIncrement(); index < items.size() && failure.get() == null;
+                index = next.getAndIncrement()) {
+
+                try {
+                    task.accept(items.get(index));
+                    this.evaluated.incrementAndGet();
+                }
+                catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        };
+
+        List<CompletableFuture<Void>> helpers = this.recruit(worker,
+            Math.min(Math.min(concurrency, this.maxConcurrency), items.size()) - 1);
+
+        worker.run();
+        helpers.forEach(CompletableFuture::join);
+
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+    }
+
+    /**
+     * Hands the given worker to up to the given number of idle worker threads.
+     */
+    private List<CompletableFuture<Void>> recruit(Runnable worker, int count) {
+        List<CompletableFuture<Void>> helpers = new ArrayList<>();
+
+        synchronized (this) {
+            for (int i = 0; i < count && this.executor != null; ++i) {
+                try {
+                    helpers.add(CompletableFuture.runAsync(worker, this.executor));
+                    this.recruited.incrementAndGet();
+                }
+                catch (RejectedExecutionException e) {
+                    // No idle workers; the caller and any recruited workers handle the rest
+                    break;
+                }
+            }
+        }
+
+        return helpers;
+    }
+
+    /**
+     * Fetches the number of items processed by bulk evaluations.
+     *
+     * @return
+     *  the number of processed items
+     */
+    public long getEvaluatedCount() {
+        return this.evaluated.get();
+    }
+
+    /**
+     * Fetches the number of times a worker thread was recruited to help a bulk evaluation.
+     *
+     * @return
+     *  the number of recruited workers
+     */
+    public long getRecruitedCount() {
+        return this.recruited.get();
+    }
+
+    /**
+     * Thread factory for the worker threads. The threads are daemon threads, so a stalled
+     * evaluation never holds up shutdown.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "compliance-worker-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+
+}
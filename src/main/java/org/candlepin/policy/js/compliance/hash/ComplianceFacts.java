@@ -83,7 +83,7 @@ public enum ComplianceFacts {
      * @param facts facts from which to filter compliance relevant ones
      * @return facts relevant for compliance
      */
-    private static Collection<Map.Entry<String, String>> filter(Map<String, String> facts) {
+    public static Collection<Map.Entry<String, String>> filter(Map<String, String> facts) {
         if (facts == null || facts.isEmpty()) {
             return Collections.emptySet();
         }
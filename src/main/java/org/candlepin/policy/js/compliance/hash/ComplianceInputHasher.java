@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance.hash;
+
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.EntitlementDTO;
+import org.candlepin.dto.rules.v1.GuestIdDTO;
+import org.candlepin.dto.rules.v1.PoolDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates a hash of the inputs of a compliance status calculation: the compliance-related facts
+ * and installed products of the consumer, its entitlements and guests, and the day of the
+ * calculation. Two calculations with the same input hash produce the same status, aside from the
+ * date of the status itself.
+ *
+ * Entitlements are hashed by their content rather than their IDs alone, as pool and product
+ * attributes may change without a change to the entitlement. The set of entitlements active on
+ * the evaluation date is included as well, so a hash never spans an entitlement starting or
+ * ending within the day.
+ */
+public class ComplianceInputHasher extends Hasher {
+
+    // Values are delimited, so adjacent values cannot run together into the same string
+    private static final HashableStringGenerator<String> VALUE = value -> value + '|';
+    private static final HashableStringGenerator<Map.Entry<String, String>> ENTRY =
+        entry -> entry.getKey() + '=' + entry.getValue() + '|';
+
+    private static final EntitlementGenerator ENTITLEMENT = new EntitlementGenerator();
+    private static final GuestIdGenerator GUEST_ID = new GuestIdGenerator();
+
+    public ComplianceInputHasher(ConsumerDTO consumer, Collection<EntitlementDTO> entitlements,
+        Collection<GuestIdDTO> guestIds, Date date, boolean calculateCompliantUntil) {
+
+        putObject(consumer.getUuid(), VALUE);
+        putObject(consumer.getType() != null ? consumer.getType().getLabel() : null, VALUE);
+        putCollection(ComplianceFacts.filter(consumer.getFacts()), ENTRY);
+        putCollection(consumer.getInstalledProducts(), VALUE);
+        putCollection(entitlements, ENTITLEMENT);
+        putCollection(guestIds, GUEST_ID);
+
+        List<String> active = new ArrayList<>();
+        if (entitlements != null) {
+            for (EntitlementDTO entitlement : entitlements) {
+                if (getTime(entitlement.getStartDate()) <= date.getTime() &&
+                    getTime(entitlement.getEndDate()) >= date.getTime()) {
+
+                    active.add(entitlement.getId());
+                }
+            }
+        }
+
+        putCollection(active, VALUE);
+        putObject(String.valueOf(TimeUnit.MILLISECONDS.toDays(date.getTime())), VALUE);
+        putObject(String.valueOf(calculateCompliantUntil), VALUE);
+    }
+
+    /**
+     * Safely get time from a date. Missing dates are treated as the epoch, as they are by the
+     * compliance calculation.
+     */
+    private static long getTime(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+
+    /**
+     * Generates a string from an {@link EntitlementDTO}, including the compliance-related content
+     * of its pool, intended for use in a hash.
+     */
+    private static class EntitlementGenerator implements HashableStringGenerator<EntitlementDTO> {
+
+        @Override
+        public String generate(EntitlementDTO target) {
+            if (target == null) {
+                return null;
+            }
+
+            StringBuilder builder = new StringBuilder()
+                .append(target.getId()).append(':')
+                .append(target.getQuantity()).append(':')
+                .append(getTime(target.getStartDate())).append(':')
+                .append(getTime(target.getEndDate())).append(':');
+
+            PoolDTO pool = target.getPool();
+            if (pool != null) {
+                List<String> providedIds = new ArrayList<>();
+                if (pool.getProvidedProducts() != null) {
+                    pool.getProvidedProducts().forEach(provided -> providedIds.add(provided.getProductId()));
+                }
+
+                builder.append(pool.getId()).append(':')
+                    .append(pool.getProductId()).append(':')
+                    .append(generateFromMap(pool.getAttributes())).append(':')
+                    .append(generateFromMap(pool.getProductAttributes())).append(':')
+                    .append(HashableStringGenerators.generateFromCollection(providedIds, VALUE));
+            }
+
+            return builder.append('|').toString();
+        }
+
+    }
+
+    /**
+     * Generates a string from a {@link GuestIdDTO} intended for use in a hash.
+     */
+    private static class GuestIdGenerator implements HashableStringGenerator<GuestIdDTO> {
+
+        @Override
+        public String generate(GuestIdDTO target) {
+            if (target == null) {
+                return null;
+            }
+
+            return target.getGuestId() + ':' + generateFromMap(target.getAttributes()) + '|';
+        }
+
+    }
+
+    private static String generateFromMap(Map<String, String> map) {
+        return map != null ? HashableStringGenerators.generateFromCollection(map.entrySet(), ENTRY) : null;
+    }
+
+}
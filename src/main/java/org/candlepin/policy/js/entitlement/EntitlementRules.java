@@ -21,8 +21,6 @@ import org.candlepin.controller.PoolService;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.rules.v1.ConsumerDTO;
 import org.candlepin.dto.rules.v1.EntitlementDTO;
-import org.candlepin.dto.rules.v1.PoolDTO;
-import org.candlepin.dto.rules.v1.PoolQuantityDTO;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ConsumerType;
@@ -35,6 +33,7 @@ import org.candlepin.policy.ValidationError;
 import org.candlepin.policy.ValidationResult;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsonJsContext;
+import org.candlepin.policy.js.PoolJsonCache;
 import org.candlepin.policy.js.RuleExecutionException;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.pool.PoolHelper;
@@ -83,12 +82,13 @@ public class EntitlementRules implements Enforcer {
     private final RulesObjectMapper objectMapper;
     private final ModelTranslator translator;
     private final PoolService poolService;
+    private final PoolJsonCache poolJsonCache;
 
     @Inject
     public EntitlementRules(DateSource dateSource,
         JsRunner jsRules, I18n i18n, Configuration config, ConsumerCurator consumerCurator,
         ConsumerTypeCurator consumerTypeCurator, RulesObjectMapper mapper, ModelTranslator translator,
-        PoolService poolService) {
+        PoolService poolService, PoolJsonCache poolJsonCache) {
 
         this.jsRules = Objects.requireNonNull(jsRules);
         this.dateSource = Objects.requireNonNull(dateSource);
@@ -99,6 +99,7 @@ public class EntitlementRules implements Enforcer {
         this.objectMapper = Objects.requireNonNull(mapper);
         this.translator = Objects.requireNonNull(translator);
         this.poolService = Objects.requireNonNull(poolService);
+        this.poolJsonCache = Objects.requireNonNull(poolJsonCache);
 
         jsRules.init("entitlement_name_space");
     }
@@ -144,16 +145,12 @@ public class EntitlementRules implements Enforcer {
             consumer.getEntitlements().stream()
                 .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
 
-        Stream<PoolQuantityDTO> quantityStream = entitlementPoolQuantities == null ? Stream.empty() :
-            entitlementPoolQuantities.stream()
-                .map(this.translator.getStreamMapper(PoolQuantity.class, PoolQuantityDTO.class));
-
-        JsonJsContext args = new JsonJsContext(objectMapper);
+        JsonJsContext args = JsonJsContext.forRunner(jsRules, objectMapper);
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
         args.put("hostConsumer", this.translator.translate(host, ConsumerDTO.class));
         args.put("consumerEntitlements", entStream.collect(Collectors.toSet()));
         args.put("standalone", config.getBoolean(ConfigProperties.STANDALONE));
-        args.put("poolQuantities", quantityStream);
+        args.put("poolQuantities", this.poolJsonCache.getPoolQuantities(entitlementPoolQuantities));
         args.put("caller", caller.getLabel());
         args.put("log", log, false);
 
@@ -185,13 +182,10 @@ public class EntitlementRules implements Enforcer {
     @Override
     @SuppressWarnings("checkstyle:indentation")
     public List<Pool> filterPools(Consumer consumer, List<Pool> pools, boolean showAll) {
-        JsonJsContext args = new JsonJsContext(objectMapper);
+        JsonJsContext args = JsonJsContext.forRunner(jsRules, objectMapper);
 
         ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
 
-        Stream<PoolDTO> poolStream = pools == null ? Stream.empty() :
-            pools.stream().map(this.translator.getStreamMapper(Pool.class, PoolDTO.class));
-
         Stream<EntitlementDTO> entStream = consumer.getEntitlements() == null ? Stream.empty() :
             consumer.getEntitlements().stream()
                 .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
@@ -200,7 +194,7 @@ public class EntitlementRules implements Enforcer {
         args.put("hostConsumer", this.translator.translate(getHost(consumer), ConsumerDTO.class));
         args.put("consumerEntitlements", entStream.collect(Collectors.toSet()));
         args.put("standalone", config.getBoolean(ConfigProperties.STANDALONE));
-        args.put("pools", poolStream.collect(Collectors.toSet()));
+        args.put("pools", this.poolJsonCache.getPools(pools));
         args.put("caller", CallerType.LIST_POOLS.getLabel());
         args.put("log", log, false);
 
@@ -66,7 +66,7 @@ public class QuantityRules {
 
     @SuppressWarnings("checkstyle:indentation")
     public SuggestedQuantityDTO getSuggestedQuantity(Pool p, Consumer c, Date date) {
-        JsonJsContext args = new JsonJsContext(mapper);
+        JsonJsContext args = JsonJsContext.forRunner(jsRules, mapper);
 
         Stream<EntitlementDTO> entStream = c.getEntitlements() == null ? Stream.empty() :
             c.getEntitlements().stream()
@@ -102,7 +102,7 @@ public class QuantityRules {
      */
     @SuppressWarnings("checkstyle:indentation")
     public Map<String, SuggestedQuantityDTO> getSuggestedQuantities(List<Pool> pools, Consumer c, Date date) {
-        JsonJsContext args = new JsonJsContext(mapper);
+        JsonJsContext args = JsonJsContext.forRunner(jsRules, mapper);
 
         Stream<PoolDTO> poolStream = pools == null ? Stream.empty() :
             pools.stream().map(this.translator.getStreamMapper(Pool.class, PoolDTO.class));
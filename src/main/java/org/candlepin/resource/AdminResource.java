@@ -16,7 +16,13 @@ package org.candlepin.resource;
 
 import org.candlepin.audit.EventSink;
 import org.candlepin.auth.SecurityHole;
+import org.candlepin.cache.CandlepinCache;
+import org.candlepin.controller.ConsumerCheckInRecorder;
+import org.candlepin.dto.api.server.v1.CacheRegionStatisticsDTO;
+import org.candlepin.dto.api.server.v1.CheckInStatisticsDTO;
+import org.candlepin.dto.api.server.v1.KeyPairPoolStatisticsDTO;
 import org.candlepin.dto.api.server.v1.QueueStatus;
+import org.candlepin.pki.impl.KeyPairPool;
 import org.candlepin.resource.server.v1.AdminApi;
 
 import org.slf4j.Logger;
@@ -36,10 +42,18 @@ public class AdminResource implements AdminApi {
     private static final Logger log = LoggerFactory.getLogger(AdminResource.class);
 
     private final EventSink sink;
+    private final CandlepinCache candlepinCache;
+    private final ConsumerCheckInRecorder checkInRecorder;
+    private final KeyPairPool keyPairPool;
 
     @Inject
-    public AdminResource(EventSink dispatcher) {
+    public AdminResource(EventSink dispatcher, CandlepinCache candlepinCache,
+        ConsumerCheckInRecorder checkInRecorder, KeyPairPool keyPairPool) {
+
         this.sink = Objects.requireNonNull(dispatcher);
+        this.candlepinCache = Objects.requireNonNull(candlepinCache);
+        this.checkInRecorder = Objects.requireNonNull(checkInRecorder);
+        this.keyPairPool = Objects.requireNonNull(keyPairPool);
     }
 
     /**
@@ -63,4 +77,31 @@ public class AdminResource implements AdminApi {
     public List<QueueStatus> getQueueStats() {
         return sink.getQueueInfo();
     }
+
+    @Override
+    public List<CacheRegionStatisticsDTO> getCacheStatistics() {
+        return this.candlepinCache.getEntityCacheStatistics();
+    }
+
+    @Override
+    public CheckInStatisticsDTO getCheckInStatistics() {
+        return new CheckInStatisticsDTO()
+            .pendingCount((long) this.checkInRecorder.getPendingCount())
+            .recordedCount(this.checkInRecorder.getRecordedCount())
+            .coalescedCount(this.checkInRecorder.getCoalescedCount())
+            .writtenCount(this.checkInRecorder.getWrittenCount())
+            .flushCount(this.checkInRecorder.getFlushCount())
+            .failureCount(this.checkInRecorder.getFailureCount());
+    }
+
+    @Override
+    public KeyPairPoolStatisticsDTO getKeyPairPoolStatistics() {
+        return new KeyPairPoolStatisticsDTO()
+            .capacity(this.keyPairPool.getCapacity())
+            .available(this.keyPairPool.getAvailable())
+            .hitCount(this.keyPairPool.getHitCount())
+            .missCount(this.keyPairPool.getMissCount())
+            .lowWaterCount(this.keyPairPool.getLowWaterCount())
+            .failureCount(this.keyPairPool.getFailureCount());
+    }
 }
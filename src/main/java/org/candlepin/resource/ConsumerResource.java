@@ -41,6 +41,7 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.AutobindDisabledForOwnerException;
 import org.candlepin.controller.AutobindHypervisorDisabledException;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.ContentAccessMode;
 import org.candlepin.controller.EntitlementCertificateService;
@@ -211,6 +212,7 @@ public class ConsumerResource implements ConsumerApi {
     private final IdentityCertificateGenerator identityCertificateGenerator;
     private final SCACertificateGenerator scaCertificateGenerator;
     private final AnonymousCertificateGenerator anonymousCertGenerator;
+    private final ConsumerCheckInRecorder checkInRecorder;
     private final EntitlementCertServiceAdapter entCertAdapter;
     private final ContentAccessManager contentAccessManager;
     private final UserServiceAdapter userService;
@@ -298,7 +300,8 @@ public class ConsumerResource implements ConsumerApi {
         AnonymousContentAccessCertificateCurator anonymousCertCurator,
         OwnerServiceAdapter ownerService,
         SCACertificateGenerator scaCertificateGenerator,
-        AnonymousCertificateGenerator anonymousCertGenerator) {
+        AnonymousCertificateGenerator anonymousCertGenerator,
+        ConsumerCheckInRecorder checkInRecorder) {
 
         this.consumerCurator = Objects.requireNonNull(consumerCurator);
         this.consumerTypeCurator = Objects.requireNonNull(consumerTypeCurator);
@@ -344,6 +347,7 @@ public class ConsumerResource implements ConsumerApi {
         this.ownerService = Objects.requireNonNull(ownerService);
         this.scaCertificateGenerator = Objects.requireNonNull(scaCertificateGenerator);
         this.anonymousCertGenerator = Objects.requireNonNull(anonymousCertGenerator);
+        this.checkInRecorder = Objects.requireNonNull(checkInRecorder);
 
         this.entitlementEnvironmentFilter = new EntitlementEnvironmentFilter(
             entitlementCurator, environmentContentCurator);
@@ -1722,6 +1726,9 @@ public class ConsumerResource implements ConsumerApi {
             // since only the facts table will receive the update.
             toUpdate.setUpdated(new Date());
 
+            // The consumer no longer matches what was last reported for it by virt-who
+            toUpdate.clearHypervisorReportHash();
+
             Event event = eventBuilder.setEventData(toUpdate).buildEvent();
             sink.queueEvent(event);
         }
@@ -2191,7 +2198,7 @@ public class ConsumerResource implements ConsumerApi {
         log.debug("Getting client certificates for consumer: {}", consumerUuid);
         if (principal instanceof ConsumerPrincipal) {
             ConsumerPrincipal p = (ConsumerPrincipal) principal;
-            consumerCurator.updateLastCheckin(p.getConsumer());
+            this.checkInRecorder.record(p.getConsumer());
         }
 
         return getEntitlementCertificatesForConsumer(consumerUuid, serials);
@@ -3097,14 +3104,10 @@ public class ConsumerResource implements ConsumerApi {
         Map<String, ComplianceStatusDTO> results = new HashMap<>();
 
         if (uuids != null && !uuids.isEmpty()) {
-            for (Consumer consumer : consumerCurator.findByUuids(uuids)) {
-                ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
-                ComplianceStatus status;
-
-                status = complianceRules.getStatus(consumer, null);
+            Collection<Consumer> consumers = this.consumerCurator.findByUuidsWithComplianceData(uuids);
 
-                results.put(consumer.getUuid(), this.translator.translate(status, ComplianceStatusDTO.class));
-            }
+            this.complianceRules.getStatuses(consumers, null, true).forEach((uuid, status) ->
+                results.put(uuid, this.translator.translate(status, ComplianceStatusDTO.class)));
         }
 
         return results;
@@ -125,7 +125,13 @@ public class GuestIdResource implements GuestIdsApi {
         GuestId toUpdate = guestIdCurator.findByGuestIdAndOrg(guestId, consumer.getOwnerId());
         if (toUpdate != null) {
             guestIdEntity.setId(toUpdate.getId());
+
+            if (toUpdate.getConsumer() != null) {
+                toUpdate.getConsumer().clearHypervisorReportHash();
+            }
         }
+
+        consumer.clearHypervisorReportHash();
         guestIdCurator.merge(guestIdEntity);
     }
 
@@ -139,6 +145,8 @@ public class GuestIdResource implements GuestIdsApi {
             unregisterConsumer(toDelete, principal);
         }
 
+        consumer.clearHypervisorReportHash();
+
         sink.queueEvent(eventFactory.guestIdDeleted(toDelete));
         guestIdCurator.delete(toDelete);
     }
@@ -18,8 +18,8 @@ import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobException;
 import org.candlepin.async.JobManager;
 import org.candlepin.async.tasks.HypervisorHeartbeatUpdateJob;
+import org.candlepin.async.tasks.HypervisorReportReader;
 import org.candlepin.async.tasks.HypervisorUpdateJob;
-import org.candlepin.async.tasks.HypervisorUpdateJob.HypervisorList;
 import org.candlepin.auth.Access;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.SubResource;
@@ -39,12 +39,13 @@ import org.candlepin.model.ConsumerType;
 import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
 import org.candlepin.model.ConsumerTypeCurator;
 import org.candlepin.model.GuestId;
+import org.candlepin.model.HypervisorReport;
+import org.candlepin.model.HypervisorReportCurator;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.resource.server.v1.HypervisorsApi;
 import org.candlepin.resource.util.GuestMigration;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.persist.Transactional;
 
@@ -52,6 +53,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -74,6 +77,7 @@ public class HypervisorResource implements HypervisorsApi {
     private final ModelTranslator translator;
     private final ConsumerType hypervisorType;
     private final JobManager jobManager;
+    private final HypervisorReportCurator reportCurator;
     private final ObjectMapper mapper;
     private final PrincipalProvider principalProvider;
 
@@ -81,7 +85,7 @@ public class HypervisorResource implements HypervisorsApi {
     public HypervisorResource(ConsumerResource consumerResource, ConsumerCurator consumerCurator,
         ConsumerTypeCurator consumerTypeCurator, I18n i18n, OwnerCurator ownerCurator,
         Provider<GuestMigration> migrationProvider, ModelTranslator translator, JobManager jobManager,
-        PrincipalProvider principalProvider,
+        HypervisorReportCurator reportCurator, PrincipalProvider principalProvider,
         @Named("HypervisorUpdateJobObjectMapper") final ObjectMapper mapper) {
         this.consumerResource = Objects.requireNonNull(consumerResource);
         this.consumerCurator = Objects.requireNonNull(consumerCurator);
@@ -90,6 +94,7 @@ public class HypervisorResource implements HypervisorsApi {
         this.migrationProvider = Objects.requireNonNull(migrationProvider);
         this.translator = Objects.requireNonNull(translator);
         this.jobManager = Objects.requireNonNull(jobManager);
+        this.reportCurator = Objects.requireNonNull(reportCurator);
         this.mapper = Objects.requireNonNull(mapper);
         this.principalProvider = Objects.requireNonNull(principalProvider);
 
@@ -111,9 +116,14 @@ public class HypervisorResource implements HypervisorsApi {
         log.info("Hypervisor update by principal: {}", principal);
         Owner owner = this.getOwner(ownerKey);
 
+        // Store the report outside of the job arguments, so the job can stream it back
+        HypervisorReport report = this.reportCurator.create(new HypervisorReport()
+            .setOwnerId(owner.getId())
+            .setReport(hypervisorJson));
+
         JobConfig config = HypervisorUpdateJob.createJobConfig()
             .setOwner(owner)
-            .setData(hypervisorJson)
+            .setReport(report)
             .setCreateMissing(createMissing.booleanValue())
             .setPrincipal(principal)
             .setReporter(reporterId);
@@ -123,6 +133,8 @@ public class HypervisorResource implements HypervisorsApi {
             return translator.translate(status, AsyncJobStatusDTO.class);
         }
         catch (JobException e) {
+            this.reportCurator.deleteById(report.getId());
+
             String errmsg = this.i18n.tr("An unexpected exception occurred while scheduling job \"{0}\"",
                 config.getJobKey());
             log.error(errmsg, e);
@@ -201,15 +213,14 @@ public class HypervisorResource implements HypervisorsApi {
                 i18n.tr("Host to guest mapping was not provided for hypervisor update."));
         }
 
-        try {
-            HypervisorList hypervisors = mapper.readValue(hypervisorJson, HypervisorList.class);
-            if (hypervisors == null || hypervisors.getHypervisors() == null) {
-                log.debug("Invalid Host/Guest mapping provided during hypervisor update.");
-                throw new BadRequestException(
-                    i18n.tr("Invalid host to guest mapping was provided for hypervisor update."));
-            }
+        // Read through the report without retaining the hypervisors; they are only needed by the job
+        try (HypervisorReportReader reader = new HypervisorReportReader(mapper,
+            new StringReader(hypervisorJson))) {
+
+            int count = reader.validate();
+            log.debug("Hypervisor update provided {} hypervisor(s)", count);
         }
-        catch (JsonProcessingException e) {
+        catch (IOException e) {
             log.error("Failed to parse Host/Guest mapping provided during hypervisor update.", e);
             throw new BadRequestException(
                 i18n.tr("Invalid host to guest mapping was provided for hypervisor update."));
@@ -22,6 +22,7 @@ import org.candlepin.async.JobManager;
 import org.candlepin.async.tasks.ConsumerMigrationJob;
 import org.candlepin.async.tasks.HealEntireOrgJob;
 import org.candlepin.async.tasks.RefreshPoolsJob;
+import org.candlepin.async.tasks.SCACertificateGenerationJob;
 import org.candlepin.async.tasks.UndoImportsJob;
 import org.candlepin.audit.Event;
 import org.candlepin.audit.Event.Target;
@@ -1031,6 +1032,19 @@ public class OwnerResource implements OwnerApi {
         return queueJob(config);
     }
 
+    @Override
+    public AsyncJobStatusDTO generateSCACertificates(@Verify(Owner.class) String ownerKey) {
+        Owner owner = findOwnerByKey(ownerKey);
+        if (!owner.isUsingSimpleContentAccess()) {
+            throw new BadRequestException(i18n.tr(
+                "Organization \"{0}\" is not using simple content access", owner.getKey()));
+        }
+
+        JobConfig config = SCACertificateGenerationJob.createJobConfig().setOwner(owner);
+
+        return queueJob(config);
+    }
+
     @Override
     public Set<String> ownerServiceLevels(
         @Verify(value = Owner.class, subResource = SubResource.SERVICE_LEVELS) String ownerKey,
@@ -1251,7 +1265,7 @@ public class OwnerResource implements OwnerApi {
         String consumerUuid, String activationKeyName,
         String productId, String subscriptionId, Boolean listAll, OffsetDateTime activeOn,
         List<String> matches, List<String> attrFilters, Boolean addFuture, Boolean onlyFuture,
-        OffsetDateTime after, List<String> poolIds, Integer page, Integer perPage,
+        OffsetDateTime after, List<String> poolIds, Boolean exactCount, Integer page, Integer perPage,
         String sortBy, String order) {
 
         Principal principal = this.principalProvider.get();
@@ -1325,7 +1339,8 @@ public class OwnerResource implements OwnerApi {
             .setActiveOn(afterDate == null ? activeOnDate : null)
             .setAddFuture(addFuture)
             .setOnlyFuture(onlyFuture)
-            .setAfter(afterDate);
+            .setAfter(afterDate)
+            .setExactCount(!Boolean.FALSE.equals(exactCount));
 
         if (pageRequest != null) {
             qualifier.setOffset(pageRequest.getPage())
@@ -225,7 +225,11 @@ public class GuestMigration {
             return modifiedConsumers;
         }
 
-        /** Perform all necessary object updates necessary to resolve this manifest */
+        /**
+         * Perform all necessary object updates necessary to resolve this manifest. The guests of
+         * every consumer in the manifest change, so their hypervisor report hashes are cleared to
+         * ensure their next hypervisor reports are fully reconciled.
+         */
         public void writeMigrationChanges() {
             for (GuestId id : newGuests) {
                 newHost.addGuestId(id);
@@ -235,6 +239,8 @@ public class GuestMigration {
                 Consumer oldHost = entry.getKey();
                 entry.getValue().forEach(oldHost::removeGuestId);
             }
+
+            this.asSet().forEach(Consumer::clearHypervisorReportHash);
         }
     }
 }
@@ -19,6 +19,7 @@ import org.candlepin.audit.EventFactory;
 import org.candlepin.audit.EventSink;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.api.server.v1.ConsumerDTO;
 import org.candlepin.dto.api.server.v1.GuestIdDTO;
@@ -38,11 +39,15 @@ import org.candlepin.resource.util.GuestMigration;
 import org.candlepin.service.SubscriptionServiceAdapter;
 import org.candlepin.util.Transactional;
 
+import com.google.common.collect.Iterables;
+
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,7 +55,10 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -73,6 +81,8 @@ public class HypervisorUpdateAction {
     private EventSink sink;
     private EventFactory evtFactory;
     private final boolean systemUuidForMatching;
+    private final int chunkSize;
+    private final boolean skipUnchanged;
 
     public static final String CREATE = "create";
     protected static String prefix = "hypervisor_update_";
@@ -81,7 +91,8 @@ public class HypervisorUpdateAction {
     public HypervisorUpdateAction(ConsumerCurator consumerCurator,
         ConsumerTypeCurator consumerTypeCurator, ConsumerResource consumerResource,
         SubscriptionServiceAdapter subAdapter, ModelTranslator translator,
-        Configuration config, EventSink sink, EventFactory evtFactory) {
+        Configuration config, EventSink sink, EventFactory evtFactory) throws ConfigurationException {
+
         this.consumerCurator = consumerCurator;
         this.consumerResource = consumerResource;
         this.subAdapter = subAdapter;
@@ -91,6 +102,13 @@ public class HypervisorUpdateAction {
         this.sink = sink;
         this.evtFactory = evtFactory;
         this.systemUuidForMatching = config.getBoolean(ConfigProperties.USE_SYSTEM_UUID_FOR_MATCHING);
+        this.skipUnchanged = config.getBoolean(ConfigProperties.HYPERVISOR_UPDATE_SKIP_UNCHANGED);
+
+        this.chunkSize = config.getInt(ConfigProperties.HYPERVISOR_UPDATE_CHUNK_SIZE);
+        if (this.chunkSize < 1) {
+            throw new ConfigurationException(ConfigProperties.HYPERVISOR_UPDATE_CHUNK_SIZE +
+                " must be larger than 0");
+        }
     }
 
     public Result update(
@@ -105,12 +123,177 @@ public class HypervisorUpdateAction {
         log.debug("Hypervisor consumers for create/update: {}", hypervisors.size());
         log.debug("Updating hypervisor consumers for org {}", ownerKey);
 
+        HypervisorUpdateResultDTO result = initResultDTO();
+        VirtConsumerMap hypervisorConsumersMap = new VirtConsumerMap();
+
+        this.reconcileHosts(owner, hypervisors, result, hypervisorConsumersMap, create, principal,
+            jobReporterId);
+
+        return new Result(result, hypervisorConsumersMap);
+    }
+
+    /**
+     * Updates or creates the hypervisors provided by the given iterator, consuming it a chunk at a
+     * time. Only the current chunk of reported hosts is held in memory, and the consumers of each
+     * chunk are evicted from the session once it has been reconciled. As such, the known consumers
+     * of the returned result are not retained, and will always be empty.
+     * <p>
+     * Reported hosts are ordered within each chunk rather than across the whole report, and a host
+     * reported more than once is reconciled once per chunk in which it appears.
+     *
+     * @param owner
+     *  the owner of the reported hypervisors
+     *
+     * @param hypervisors
+     *  an iterator providing the reported hypervisors
+     *
+     * @param create
+     *  whether or not to create hypervisors which do not yet exist
+     *
+     * @param principal
+     *  the name of the principal which submitted the report
+     *
+     * @param jobReporterId
+     *  the ID of the reporter which submitted the report
+     *
+     * @return
+     *  the result of the update
+     */
+    public Result update(
+        final Owner owner,
+        final Iterator<ConsumerDTO> hypervisors,
+        final Boolean create,
+        final String principal,
+        final String jobReporterId) {
+
+        log.debug("Updating hypervisor consumers for org {} in chunks of {}", owner.getKey(),
+            this.chunkSize);
+
+        HypervisorUpdateResultDTO result = initResultDTO();
+        int count = 0;
+
+        while (hypervisors.hasNext()) {
+            List<ConsumerDTO> batch = new ArrayList<>(this.chunkSize);
+            while (hypervisors.hasNext() && batch.size() < this.chunkSize) {
+                batch.add(hypervisors.next());
+            }
+
+            VirtConsumerMap batchConsumersMap = new VirtConsumerMap();
+            this.reconcileHosts(owner, batch, result, batchConsumersMap, create, principal, jobReporterId);
+            this.consumerCurator.batchDetach(batchConsumersMap.getConsumers());
+
+            count += batch.size();
+        }
+
+        log.debug("Hypervisor consumers processed for create/update: {}", count);
+        return new Result(result, new VirtConsumerMap());
+    }
+
+    private void reconcileHosts(Owner owner, List<ConsumerDTO> hypervisors, HypervisorUpdateResultDTO result,
+        VirtConsumerMap hypervisorConsumersMap, Boolean create, String principal, String jobReporterId) {
+
         Set<String> hosts = new HashSet<>();
         Set<String> guests = new HashSet<>();
         Map<String, ConsumerDTO> incomingHosts = new HashMap<>();
-        HypervisorUpdateResultDTO result = initResultDTO();
         parseHypervisorList(hypervisors, hosts, guests, incomingHosts);
-        VirtConsumerMap hypervisorConsumersMap = new VirtConsumerMap();
+
+        // Process hosts in a consistent order, so concurrent reports lock their hosts in the same order
+        List<String> sortedHosts = new ArrayList<>(hosts);
+        Collections.sort(sortedHosts);
+
+        for (List<String> chunk : Iterables.partition(sortedHosts, this.chunkSize)) {
+            this.reconcileChunk(owner, chunk, incomingHosts, result, hypervisorConsumersMap, create,
+                principal, jobReporterId);
+        }
+    }
+
+    /**
+     * Reconciles a chunk of the reported hosts in a single transaction. The known hosts of the
+     * chunk are fetched up front, and hosts reported unchanged since their previous report are
+     * only checked in. If the chunk cannot be reconciled as a whole, it is rolled back and each
+     * of its hosts is reconciled in a transaction of its own, so that one bad host cannot fail
+     * the rest of the chunk.
+     */
+    private void reconcileChunk(Owner owner, List<String> chunk, Map<String, ConsumerDTO> incomingHosts,
+        HypervisorUpdateResultDTO result, VirtConsumerMap hypervisorConsumersMap, boolean create,
+        String principal, String jobReporterId) {
+
+        Map<String, Consumer> knownHosts = this.fetchKnownHosts(owner, chunk, incomingHosts);
+        HypervisorUpdateResultDTO chunkResult = initResultDTO();
+        List<Consumer> reconciledHosts = new ArrayList<>();
+
+        Transactional<Integer> transaction = this.consumerCurator.<Integer>transactional(args -> {
+            Date checkin = new Date();
+            Map<String, Date> checkins = new HashMap<>();
+            List<String> changed = new ArrayList<>();
+
+            for (String hypervisorId : chunk) {
+                Consumer knownHost = knownHosts.get(hypervisorId);
+
+                if (this.isUnchanged(knownHost, incomingHosts.get(hypervisorId), jobReporterId)) {
+                    checkins.put(knownHost.getId(), checkin);
+                    chunkResult.setUnchanged(addHypervisorConsumerDTO(chunkResult.getUnchanged(), knownHost));
+                    reconciledHosts.add(knownHost);
+                }
+                else {
+                    changed.add(hypervisorId);
+                }
+            }
+
+            List<Consumer> changedKnownHosts = changed.stream()
+                .map(knownHosts::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+            this.consumerCurator.fetchGuestIdsAndFacts(changedKnownHosts);
+
+            for (String hypervisorId : changed) {
+                Consumer host = this.reconcileHost(owner, incomingHosts.get(hypervisorId),
+                    knownHosts.get(hypervisorId), chunkResult, create, principal, jobReporterId);
+
+                if (host != null) {
+                    reconciledHosts.add(host);
+                }
+            }
+
+            return this.consumerCurator.updateLastCheckins(checkins);
+        })
+            .onCommit(status -> sink.sendEvents())
+            .onRollback(status -> sink.rollback());
+
+        try {
+            transaction.execute();
+        }
+        catch (Exception e) {
+            log.debug("Unable to reconcile chunk of {} hypervisor(s); reconciling them individually",
+                chunk.size(), e);
+
+            // Discard anything the failed chunk left in the session, so the hosts are looked up
+            // again as they are in the database
+            this.consumerCurator.batchDetach(knownHosts.values());
+            this.consumerCurator.batchDetach(reconciledHosts);
+
+            for (String hypervisorId : chunk) {
+                this.reconcileHostInTransaction(owner, incomingHosts.get(hypervisorId), result,
+                    hypervisorConsumersMap, create, principal, jobReporterId);
+            }
+
+            return;
+        }
+
+        mergeResults(result, chunkResult);
+        for (Consumer host : reconciledHosts) {
+            hypervisorConsumersMap.add(host.getHypervisorId().getHypervisorId(), host);
+        }
+    }
+
+    /**
+     * Reconciles a single host in a transaction of its own. Failures are logged and otherwise
+     * ignored, as they are already recorded in the update result.
+     */
+    private void reconcileHostInTransaction(Owner owner, ConsumerDTO incomingHost,
+        HypervisorUpdateResultDTO result, VirtConsumerMap hypervisorConsumersMap, boolean create,
+        String principal, String jobReporterId) {
 
         HypervisorUpdateAction act = this;
         Transactional<Consumer> transaction = this.consumerCurator.transactional(args ->
@@ -119,24 +302,162 @@ public class HypervisorUpdateAction {
             .onCommit(status -> sink.sendEvents())
             .onRollback(status -> sink.rollback());
 
-        for (String hypervisorId : hosts) {
-            try {
-                Consumer knownHost = transaction.execute(owner, incomingHosts.get(hypervisorId), result,
-                    create, principal, jobReporterId);
+        try {
+            Consumer knownHost = transaction.execute(owner, incomingHost, result, create, principal,
+                jobReporterId);
 
-                if (knownHost != null) {
-                    hypervisorConsumersMap.add(knownHost.getHypervisorId().getHypervisorId(), knownHost);
-                }
+            if (knownHost != null) {
+                hypervisorConsumersMap.add(knownHost.getHypervisorId().getHypervisorId(), knownHost);
             }
-            catch (Exception e) {
-                // Nothing needs to be done here, probably. The failure should have already
-                // been logged in the transactional block
-                log.debug("Unexpected exception occurred while processing hypervisor {}:",
-                    hypervisorId, e);
+        }
+        catch (Exception e) {
+            // Nothing needs to be done here, probably. The failure should have already
+            // been logged in the transactional block
+            log.debug("Unexpected exception occurred while processing hypervisor {}:",
+                incomingHost.getHypervisorId().getHypervisorId(), e);
+        }
+    }
+
+    /**
+     * Fetches the existing consumers for the given reported hosts with a fixed number of queries,
+     * matching hosts by hypervisor ID, or by system UUID where enabled.
+     *
+     * @return
+     *  a mapping of reported hypervisor IDs to their existing consumers; hosts which do not yet
+     *  have a consumer are not included
+     */
+    private Map<String, Consumer> fetchKnownHosts(Owner owner, List<String> hypervisorIds,
+        Map<String, ConsumerDTO> incomingHosts) {
+
+        Map<String, Consumer> consumersByHypervisorId = new HashMap<>();
+        for (Consumer consumer : this.consumerCurator.getHypervisorsBulk(owner.getId(), hypervisorIds)) {
+            consumersByHypervisorId.put(consumer.getHypervisorId().getHypervisorId(), consumer);
+        }
+
+        Map<String, Consumer> knownHosts = new HashMap<>();
+        Map<String, String> unknownHosts = new HashMap<>();
+
+        for (String hypervisorId : hypervisorIds) {
+            // Hypervisor IDs are stored in lower case
+            Consumer consumer = consumersByHypervisorId.get(hypervisorId.toLowerCase());
+
+            if (consumer != null) {
+                knownHosts.put(hypervisorId, consumer);
+            }
+            else {
+                String systemUuid = getSystemUuid(incomingHosts.get(hypervisorId));
+                if (systemUuid != null) {
+                    unknownHosts.put(hypervisorId, systemUuid.toLowerCase());
+                }
             }
         }
 
-        return new Result(result, hypervisorConsumersMap);
+        if (this.systemUuidForMatching && !unknownHosts.isEmpty()) {
+            Map<String, Consumer> consumersBySystemUuid = this.consumerCurator
+                .getConsumersBySystemUuids(owner.getId(), unknownHosts.values());
+
+            unknownHosts.forEach((hypervisorId, systemUuid) -> {
+                Consumer consumer = consumersBySystemUuid.get(systemUuid);
+                if (consumer != null) {
+                    knownHosts.put(hypervisorId, consumer);
+                }
+            });
+        }
+
+        return knownHosts;
+    }
+
+    /**
+     * Checks whether the given host was reported unchanged since the report last reconciled against
+     * its existing consumer, in which case the consumer only needs to be checked in.
+     */
+    private boolean isUnchanged(Consumer existing, ConsumerDTO incomingHost, String jobReporterId) {
+        if (!this.skipUnchanged || existing == null || existing.getHypervisorId() == null) {
+            return false;
+        }
+
+        HypervisorId existingId = existing.getHypervisorId();
+        String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
+
+        return existingId.getReportHash() != null &&
+            existingId.getReportHash().equals(hashReport(incomingHost)) &&
+            hypervisorId.equalsIgnoreCase(existingId.getHypervisorId()) &&
+            hypervisorType.getId().equals(existing.getTypeId()) &&
+            (jobReporterId == null || jobReporterId.equals(existingId.getReporterId()));
+    }
+
+    /**
+     * Builds a hash of the name, facts and guests reported for the given host. Facts and guests are
+     * hashed in a canonical order, so the hash does not depend on the order in which they were
+     * reported.
+     *
+     * @param incomingHost
+     *  the reported host to hash
+     *
+     * @return
+     *  a hash of the reported host
+     */
+    static String hashReport(ConsumerDTO incomingHost) {
+        StringBuilder builder = new StringBuilder();
+        appendHashValue(builder, incomingHost.getName());
+
+        Map<String, String> facts = incomingHost.getFacts();
+        builder.append(facts != null ? facts.size() : -1).append(';');
+        if (facts != null) {
+            new TreeMap<>(facts).forEach((key, value) -> {
+                appendHashValue(builder, key);
+                appendHashValue(builder, value);
+            });
+        }
+
+        List<GuestIdDTO> guestIds = incomingHost.getGuestIds();
+        builder.append(guestIds != null ? guestIds.size() : -1).append(';');
+        if (guestIds != null) {
+            guestIds.stream()
+                .filter(Objects::nonNull)
+                .map(guestId -> {
+                    StringBuilder guest = new StringBuilder();
+                    appendHashValue(guest, guestId.getGuestId());
+
+                    if (guestId.getAttributes() != null) {
+                        new TreeMap<>(guestId.getAttributes()).forEach((key, value) -> {
+                            appendHashValue(guest, key);
+                            appendHashValue(guest, value);
+                        });
+                    }
+
+                    return guest.toString();
+                })
+                .sorted()
+                .forEach(guest -> appendHashValue(builder, guest));
+        }
+
+        return DigestUtils.sha256Hex(builder.toString());
+    }
+
+    private static void appendHashValue(StringBuilder builder, String value) {
+        // Length-prefixed, so no two distinct sequences of values produce the same string
+        if (value == null) {
+            builder.append("-1:");
+        }
+        else {
+            builder.append(value.length()).append(':').append(value);
+        }
+    }
+
+    private static void mergeResults(HypervisorUpdateResultDTO result,
+        HypervisorUpdateResultDTO chunkResult) {
+
+        result.getCreated().addAll(chunkResult.getCreated());
+        result.getUpdated().addAll(chunkResult.getUpdated());
+        result.getUnchanged().addAll(chunkResult.getUnchanged());
+        result.getFailedUpdate().addAll(chunkResult.getFailedUpdate());
+    }
+
+    private static String getSystemUuid(ConsumerDTO incomingHost) {
+        return incomingHost.getFacts() != null ?
+            incomingHost.getFacts().get(Consumer.Facts.DMI_SYSTEM_UUID) :
+            null;
     }
 
     private HypervisorUpdateResultDTO initResultDTO() {
@@ -151,13 +472,20 @@ public class HypervisorUpdateAction {
     public Consumer reconcileHost(Owner owner, ConsumerDTO incomingHost, HypervisorUpdateResultDTO result,
         boolean create, String principal, String jobReporterId) {
 
-        String systemUuid = incomingHost.getFacts() != null ?
-            incomingHost.getFacts().get(Consumer.Facts.DMI_SYSTEM_UUID) :
-            null;
+        String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
+        Consumer existingHost = getExistingConsumerByHypervisorIdOrUuid(
+            owner.getId(), hypervisorId, getSystemUuid(incomingHost));
+
+        return this.reconcileHost(owner, incomingHost, existingHost, result, create, principal,
+            jobReporterId);
+    }
+
+    private Consumer reconcileHost(Owner owner, ConsumerDTO incomingHost, Consumer existingHost,
+        HypervisorUpdateResultDTO result, boolean create, String principal, String jobReporterId) {
 
         String hypervisorId = incomingHost.getHypervisorId().getHypervisorId();
-        Consumer resultHost = getExistingConsumerByHypervisorIdOrUuid(
-            owner.getId(), hypervisorId, systemUuid);
+        String reportHash = this.skipUnchanged ? hashReport(incomingHost) : null;
+        Consumer resultHost = existingHost;
 
         if (jobReporterId == null) {
             log.debug("hypervisor checkin reported asynchronously without reporter id " +
@@ -184,6 +512,8 @@ public class HypervisorUpdateAction {
                     guestMigration.migrate(false);
                 }
 
+                resultHost.getHypervisorId().setReportHash(reportHash);
+
                 try {
                     consumerCurator.create(resultHost);
                     result.setCreated(addHypervisorConsumerDTO(result.getCreated(), resultHost));
@@ -249,6 +579,8 @@ public class HypervisorUpdateAction {
                 resultHost.getHypervisorId().setReporterId(jobReporterId);
             }
 
+            resultHost.getHypervisorId().setReportHash(reportHash);
+
             try {
                 consumerCurator.update(resultHost);
             }
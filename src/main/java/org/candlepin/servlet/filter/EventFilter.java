@@ -62,14 +62,21 @@ public class EventFilter implements Filter {
         // CandlepinRequestScope as the filter must be a singleton.
         EventSink eventSink = this.eventSinkProvider.get();
         TeeHttpServletResponse resp = new TeeHttpServletResponse((HttpServletResponse) response);
-        chain.doFilter(request, resp);
-        Status status = Status.fromStatusCode(resp.getStatus());
-        if (status.getFamily() == Status.Family.SUCCESSFUL) {
-            eventSink.sendEvents();
+        boolean completed = false;
+
+        try {
+            chain.doFilter(request, resp);
+            completed = true;
         }
-        else {
-            eventSink.rollback();
-            log.debug("Request failed, skipping event sending, status={}", status);
+        finally {
+            Status status = Status.fromStatusCode(resp.getStatus());
+            if (completed && status != null && status.getFamily() == Status.Family.SUCCESSFUL) {
+                eventSink.sendEvents();
+            }
+            else {
+                eventSink.rollback();
+                log.debug("Request failed, skipping event sending, status={}", status);
+            }
         }
     }
 
@@ -43,8 +43,10 @@ public class DistributorVersionImporter {
     }
 
     public DistributorVersionDTO createObject(ObjectMapper mapper, Reader reader) throws IOException {
-        DistributorVersionDTO distributorVersion = mapper.readValue(reader, DistributorVersionDTO.class);
+        return this.createObject(mapper.readValue(reader, DistributorVersionDTO.class));
+    }
 
+    public DistributorVersionDTO createObject(DistributorVersionDTO distributorVersion) {
         if (distributorVersion != null) {
             distributorVersion.setId(null);
 
@@ -245,7 +245,11 @@ public class EntitlementImporter {
         Meta meta)
         throws IOException, SyncDataFormatException {
 
-        EntitlementDTO entitlement = mapper.readValue(reader, EntitlementDTO.class);
+        return this.importObject(mapper.readValue(reader, EntitlementDTO.class), owner, consumerUuid, meta);
+    }
+
+    public SubscriptionDTO importObject(EntitlementDTO entitlement, Owner owner, String consumerUuid,
+        Meta meta) throws SyncDataFormatException {
 
         SubscriptionDTO subscription = new SubscriptionDTO();
 
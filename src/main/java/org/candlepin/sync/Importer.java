@@ -15,6 +15,9 @@
 package org.candlepin.sync;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
 import org.candlepin.controller.RefresherFactory;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.manifest.v1.CdnDTO;
@@ -22,6 +25,7 @@ import org.candlepin.dto.manifest.v1.CertificateDTO;
 import org.candlepin.dto.manifest.v1.ConsumerDTO;
 import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
 import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
 import org.candlepin.dto.manifest.v1.ProductDTO;
 import org.candlepin.dto.manifest.v1.SubscriptionDTO;
 import org.candlepin.model.CdnCurator;
@@ -51,7 +55,6 @@ import org.candlepin.sync.file.ManifestFileServiceException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.persist.Transactional;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
@@ -61,11 +64,9 @@ import org.xnap.commons.i18n.I18n;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -75,8 +76,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -134,26 +136,33 @@ public class Importer {
     private final EventSink sink;
     private final I18n i18n;
     private final DistributorVersionCurator distVerCurator;
-    private final SyncUtils syncUtils;
     private final ImportRecordCurator importRecordCurator;
     private final SubscriptionReconciler subscriptionReconciler;
     private final ModelTranslator translator;
+    private final int decodeThreads;
+
+    /**
+     * Reads the contents of a manifest using the given reader.
+     */
+    @FunctionalInterface
+    private interface ManifestSource {
+        ManifestContents read(ManifestReader reader) throws IOException, ImporterException;
+    }
 
     @Inject
     public Importer(ConsumerTypeCurator consumerTypeCurator,
         RulesImporter rulesImporter, OwnerCurator ownerCurator, IdentityCertificateCurator idCertCurator,
         RefresherFactory refresherFactory, Signer signer, ExporterMetadataCurator emc,
         CertificateSerialCurator csc, EventSink sink, I18n i18n, DistributorVersionCurator distVerCurator,
-        CdnCurator cdnCurator, SyncUtils syncUtils, @Named("ImportObjectMapper") ObjectMapper mapper,
+        CdnCurator cdnCurator, @Named("ImportObjectMapper") ObjectMapper mapper,
         ImportRecordCurator importRecordCurator, SubscriptionReconciler subscriptionReconciler,
-        ModelTranslator translator) {
+        ModelTranslator translator, Configuration config) throws ConfigurationException {
 
         this.consumerTypeCurator = Objects.requireNonNull(consumerTypeCurator);
         this.rulesImporter = Objects.requireNonNull(rulesImporter);
         this.ownerCurator = Objects.requireNonNull(ownerCurator);
         this.idCertCurator = Objects.requireNonNull(idCertCurator);
         this.refresherFactory = Objects.requireNonNull(refresherFactory);
-        this.syncUtils = Objects.requireNonNull(syncUtils);
         this.mapper = Objects.requireNonNull(mapper);
         this.signer = Objects.requireNonNull(signer);
         this.expMetaCurator = Objects.requireNonNull(emc);
@@ -165,18 +174,28 @@ public class Importer {
         this.importRecordCurator = Objects.requireNonNull(importRecordCurator);
         this.subscriptionReconciler = Objects.requireNonNull(subscriptionReconciler);
         this.translator = Objects.requireNonNull(translator);
+
+        this.decodeThreads = config.getInt(ConfigProperties.IMPORT_DECODE_THREADS);
+        if (this.decodeThreads < 0) {
+            throw new ConfigurationException(ConfigProperties.IMPORT_DECODE_THREADS +
+                " must be larger than or equal to 0");
+        }
     }
 
     public ImportRecord loadExport(Owner owner, File archive, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
+
+        InputStream input;
         try {
-            return doExport(owner, unpackExportFile(archive.getName(), new FileInputStream(archive)),
-                overrides, uploadedFileName);
+            input = new FileInputStream(archive);
         }
         catch (FileNotFoundException e) {
             log.error(String.format("Could not find import archive: %s", archive.getAbsolutePath()));
             throw new ImporterException(i18n.tr("Uploaded manifest file does not exist."), e);
         }
+
+        return doExport(owner, reader -> reader.read(archive.getName(), input, overrides), overrides,
+            uploadedFileName);
     }
 
     /**
@@ -192,7 +211,8 @@ public class Importer {
     public ImportRecord loadStoredExport(ManifestFile export, Owner owner, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
         try {
-            return doExport(owner, extractFromService(export), overrides, uploadedFileName);
+            return doExport(owner, reader -> this.readFromService(reader, export, overrides), overrides,
+                uploadedFileName);
         }
         catch (ManifestFileServiceException e) {
             throw new ImporterException("Could not load stored manifest file for async import", e);
@@ -280,33 +300,32 @@ public class Importer {
     //       Because of this, we make this method transactional.
 
     /**
-     * Pulls the manifest from the {@link ManifestFileService} and unpacks it. The manifest file
-     * is deleted as soon as it is extracted.
+     * Reads the manifest from the {@link ManifestFileService} stream, verifying its signature.
      *
+     * @param reader the reader to read the manifest with.
      * @param export the manifest's file.
-     * @return a {@link File} pointing to the unpacked manifest directory.
-     * @throws ManifestFileServiceException
+     * @param overrides the conflicts that are to be overridden.
+     * @return the contents of the manifest.
+     * @throws IOException
      * @throws ImporterException
      */
     @Transactional
-    protected File extractFromService(ManifestFile export)
-        throws ManifestFileServiceException, ImporterException {
-        return unpackExportFile(export.getId(), export.getInputStream());
+    protected ManifestContents readFromService(ManifestReader reader, ManifestFile export,
+        ConflictOverrides overrides) throws IOException, ImporterException {
+        return reader.read(export.getId(), export.getInputStream(), overrides);
     }
 
     /**
      * Check to make sure the meta data is newer than the imported data.
      * @param type ExporterMetadata.TYPE_PER_USER or TYPE_SYSTEM
      * @param owner Owner in the case of PER_USER
-     * @param meta meta.json file
+     * @param m the manifest metadata
      * @param forcedConflicts Conflicts we will override if encountered
-     * @throws IOException thrown if there's a problem reading the file
      * @throws ImporterException thrown if the metadata is invalid.
      */
-    protected ExporterMetadata validateMetadata(String type, Owner owner, File meta,
-        ConflictOverrides forcedConflicts) throws IOException, ImporterException {
+    protected ExporterMetadata validateMetadata(String type, Owner owner, Meta m,
+        ConflictOverrides forcedConflicts) throws ImporterException {
 
-        Meta m = mapper.readValue(meta, Meta.class);
         if (type == null) {
             throw new ImporterException(i18n.tr("Wrong metadata type"));
         }
@@ -364,73 +383,24 @@ public class Importer {
         return lastrun;
     }
 
-    private ImportRecord doExport(Owner owner, File exportDir, ConflictOverrides overrides,
+    private ImportRecord doExport(Owner owner, ManifestSource source, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
 
         Map<String, Object> result = new HashMap<>();
-        try {
-            File signature = new File(exportDir, "signature");
-            if (signature.length() == 0) {
-                throw new ImportExtractionException(
-                    i18n.tr("The archive does not contain the required signature file"));
-            }
+        ExecutorService executor = this.createDecodeExecutor();
 
-            boolean verifiedSignature = this.signer.verifySignature(
-                new File(exportDir, "consumer_export.zip"),
-                loadSignature(new File(exportDir, "signature"))
-            );
-
-            if (!verifiedSignature) {
-                log.warn("Archive signature check failed.");
-
-                if (!overrides.isForced(Conflict.SIGNATURE_CONFLICT)) {
-                    /*
-                     * Normally for import conflicts that can be overridden, we try to
-                     * report them all the first time so if the user intends to override,
-                     * they can do so with just one more request. However in the case of
-                     * a bad signature, we're going to report immediately due to the nature
-                     * of what this might mean.
-                     */
-                    throw new ImportConflictException(i18n.tr("Archive failed signature check"),
-                        Conflict.SIGNATURE_CONFLICT);
-                }
-                else {
-                    log.warn("Ignoring signature check failure.");
-                }
-            }
-
-            File consumerExport = new File(exportDir, "consumer_export.zip");
-            File consumerExportDir = extractArchive(exportDir, consumerExport.getName(),
-                new FileInputStream(consumerExport));
-
-            Map<String, File> importFiles = new HashMap<>();
-            File[] listFiles = consumerExportDir.listFiles();
-            if (listFiles == null || listFiles.length == 0) {
-                throw new ImportExtractionException(
-                    i18n.tr("The provided manifest has no content in the exported consumer archive"));
-            }
-            for (File file : listFiles) {
-                importFiles.put(file.getName(), file);
-            }
-
-            // Need the rules file as well which is in a nested dir:
-            File rulesFile = new File(consumerExportDir, ImportFile.RULES_FILE.fileName());
-            importFiles.put(ImportFile.RULES_FILE.fileName(), rulesFile);
+        try {
+            ManifestContents contents = source.read(new ManifestReader(this.signer, this.mapper, this.i18n,
+                executor));
 
-            List<SubscriptionDTO> importSubs = importObjects(owner, importFiles, overrides);
-            Meta m = mapper.readValue(importFiles.get(ImportFile.META.fileName()), Meta.class);
+            List<SubscriptionDTO> importSubs = importObjects(owner, contents, overrides);
 
             result.put("subscriptions", importSubs);
-            result.put("meta", m);
+            result.put("meta", contents.getMeta());
 
             sink.emitImportCreated(owner);
             return recordImportSuccess(owner, result, overrides, uploadedFileName);
         }
-        catch (FileNotFoundException fnfe) {
-            log.error("Archive file does not contain consumer_export.zip", fnfe);
-            throw new ImportExtractionException(i18n.tr("The archive does not contain " +
-                "the required consumer_export.zip file"));
-        }
         catch (ConstraintViolationException cve) {
             log.error("Failed to import archive", cve);
             throw new ImporterException(i18n.tr("Failed to import archive"), cve, result);
@@ -444,45 +414,72 @@ public class Importer {
             throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e, result);
         }
         finally {
-            if (exportDir != null) {
-                try {
-                    FileUtils.deleteDirectory(exportDir);
-                }
-                catch (IOException e) {
-                    log.error("Failed to delete extracted export", e);
-                }
+            if (executor != null) {
+                executor.shutdownNow();
             }
         }
     }
 
+    /**
+     * Creates the executor used to decode the sections of a single manifest while it is being read.
+     *
+     * @return the executor, or null if sections are to be decoded when they are first fetched
+     */
+    private ExecutorService createDecodeExecutor() {
+        if (this.decodeThreads == 0) {
+            return null;
+        }
+
+        AtomicInteger count = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(this.decodeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "manifest-decode-" + count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Imports the contents of an extracted manifest, given as the files of the manifest mapped by
+     * the file name of each section.
+     *
+     * @param owner the owner to import the manifest into.
+     * @param importFiles the files of the extracted manifest.
+     * @param overrides the conflicts that are to be overridden.
+     * @return the subscriptions imported from the manifest.
+     * @throws IOException if a file of the manifest cannot be read.
+     * @throws ImporterException if the manifest cannot be imported.
+     */
+    public List<SubscriptionDTO> importObjects(Owner owner, Map<String, File> importFiles,
+        ConflictOverrides overrides) throws IOException, ImporterException {
+
+        return this.importObjects(owner, ManifestContents.fromFiles(importFiles, this.mapper), overrides);
+    }
+
     @SuppressWarnings("checkstyle:methodlength")
     @Transactional(rollbackOn = { IOException.class, ImporterException.class,
         RuntimeException.class, ImportConflictException.class })
     // WARNING: Keep this method public, otherwise @Transactional is ignored:
-    public List<SubscriptionDTO> importObjects(Owner owner, Map<String, File> importFiles,
+    public List<SubscriptionDTO> importObjects(Owner owner, ManifestContents contents,
         ConflictOverrides overrides) throws IOException, ImporterException {
 
         ownerCurator.lock(owner);
 
         log.debug("Importing objects for owner: {}", owner);
 
-        File metadata = importFiles.get(ImportFile.META.fileName());
-        if (metadata == null) {
+        if (!contents.contains(ImportFile.META)) {
             throw new ImporterException(i18n.tr("The archive does not contain the required meta.json file"));
         }
-        File consumerTypes = importFiles.get(ImportFile.CONSUMER_TYPE.fileName());
-        if (consumerTypes == null) {
+        if (!contents.contains(ImportFile.CONSUMER_TYPE)) {
             throw new ImporterException(
                 i18n.tr("The archive does not contain the required consumer_types directory"));
         }
-        File consumerFile = importFiles.get(ImportFile.CONSUMER.fileName());
-        if (consumerFile == null) {
+        if (!contents.contains(ImportFile.CONSUMER)) {
             throw new ImporterException(
                 i18n.tr("The archive does not contain the required consumer.json file"));
         }
-        File products = importFiles.get(ImportFile.PRODUCTS.fileName());
-        File entitlements = importFiles.get(ImportFile.ENTITLEMENTS.fileName());
-        if (products != null && entitlements == null) {
+        if (contents.contains(ImportFile.PRODUCTS) && !contents.contains(ImportFile.ENTITLEMENTS)) {
             throw new ImporterException(
                 i18n.tr("The archive does not contain the required entitlements directory"));
         }
@@ -503,25 +500,25 @@ public class Importer {
         // if desired:
         List<ImportConflictException> conflictExceptions = new LinkedList<>();
 
-        File rules = importFiles.get(ImportFile.RULES_FILE.fileName());
-        importRules(rules, metadata);
+        importRules(contents.getRules());
 
-        importConsumerTypes(consumerTypes.listFiles());
+        importConsumerTypes(contents.getConsumerTypes());
 
-        File distributorVersions = importFiles.get(ImportFile.DISTRIBUTOR_VERSIONS.fileName());
+        List<DistributorVersionDTO> distributorVersions = contents.getDistributorVersions();
         if (distributorVersions != null) {
-            importDistributorVersions(distributorVersions.listFiles());
+            importDistributorVersions(distributorVersions);
         }
 
-        File cdns = importFiles.get(ImportFile.CONTENT_DELIVERY_NETWORKS.fileName());
+        List<CdnDTO> cdns = contents.getContentDeliveryNetworks();
         if (cdns != null) {
-            importContentDeliveryNetworks(cdns.listFiles());
+            importContentDeliveryNetworks(cdns);
         }
 
         // per user elements
+        Meta meta = contents.getMeta();
         try {
             exporterMetadata.add(
-                this.validateMetadata(ExporterMetadata.TYPE_PER_USER, owner, metadata, overrides));
+                this.validateMetadata(ExporterMetadata.TYPE_PER_USER, owner, meta, overrides));
         }
         catch (ImportConflictException e) {
             conflictExceptions.add(e);
@@ -529,15 +526,12 @@ public class Importer {
 
         ConsumerDTO consumer = null;
         try {
-            Meta m = mapper.readValue(metadata, Meta.class);
-            File upstreamFile = importFiles.get(ImportFile.UPSTREAM_CONSUMER.fileName());
-            File[] dafiles = new File[0];
-
-            if (upstreamFile != null) {
-                dafiles = upstreamFile.listFiles();
+            List<CertificateDTO> upstreamCertificates = contents.getUpstreamConsumerCertificates();
+            if (upstreamCertificates == null) {
+                upstreamCertificates = List.of();
             }
 
-            consumer = importConsumer(owner, consumerFile, dafiles, overrides, m);
+            consumer = importConsumer(owner, contents.getConsumer(), upstreamCertificates, overrides, meta);
         }
         catch (ImportConflictException e) {
             conflictExceptions.add(e);
@@ -563,18 +557,17 @@ public class Importer {
 
         // If the consumer has no entitlements, this products directory will end up empty.
         // This also implies there will be no entitlements to import.
-        Meta meta = mapper.readValue(metadata, Meta.class);
         Map<String, ProductDTO> importedProductsMap;
         List<SubscriptionDTO> importedSubs;
 
         // TODO: If EntitlementImporter is ever updated to be more on-demand like the ProductImporter
         // refactor, update this block/class to not be doing half of the entitlement importing bits.
-        File productsDir = importFiles.get(ImportFile.PRODUCTS.fileName());
-        if (productsDir != null) {
-            ProductImporter productImporter = new ProductImporter(productsDir, this.mapper, this.i18n);
+        Map<String, ProductDTO> products = contents.getProducts();
+        if (products != null) {
+            ProductImporter productImporter = new ProductImporter(products, this.i18n);
 
             importedProductsMap = productImporter.importProductMap();
-            importedSubs = this.importEntitlements(owner, importedProductsMap, entitlements.listFiles(),
+            importedSubs = this.importEntitlements(owner, importedProductsMap, contents.getEntitlements(),
                 consumer.getUuid(), meta);
         }
         else {
@@ -598,92 +591,76 @@ public class Importer {
         return importedSubs;
     }
 
-    protected void importRules(File rulesFile, File metadata) throws IOException {
-        try (Reader reader = new FileReader(rulesFile)) {
-            rulesImporter.importObject(reader);
-        }
-        catch (FileNotFoundException e) {
+    protected void importRules(String rules) throws IOException {
+        if (rules == null) {
             log.warn("Skipping rules import, manifest does not contain rules file: {}",
-                ImportFile.RULES_FILE.fileName(), e);
+                ImportFile.RULES_FILE.fileName());
+            return;
         }
+
+        rulesImporter.importObject(new StringReader(rules));
     }
 
-    protected void importConsumerTypes(File[] consumerTypes) throws IOException {
+    protected void importConsumerTypes(List<ConsumerTypeDTO> consumerTypes) {
         ConsumerTypeImporter importer = new ConsumerTypeImporter(consumerTypeCurator);
         Set<ConsumerType> consumerTypeObjs = new HashSet<>();
 
-        for (File consumerType : consumerTypes) {
-            try (Reader reader = new FileReader(consumerType)) {
-                consumerTypeObjs.add(importer.createObject(mapper, reader));
-            }
+        for (ConsumerTypeDTO consumerType : consumerTypes) {
+            consumerTypeObjs.add(importer.createObject(consumerType));
         }
 
         importer.store(consumerTypeObjs);
     }
 
-    protected ConsumerDTO importConsumer(Owner owner, File consumerFile, File[] upstreamConsumer,
-        ConflictOverrides forcedConflicts, Meta meta) throws IOException, SyncDataFormatException {
+    protected ConsumerDTO importConsumer(Owner owner, ConsumerDTO consumer,
+        List<CertificateDTO> upstreamConsumer, ConflictOverrides forcedConflicts, Meta meta)
+        throws SyncDataFormatException {
 
         IdentityCertificate idcert = null;
-        for (File uc : upstreamConsumer) {
-            if (uc.getName().endsWith(".json")) {
-                log.debug("Import upstream consumeridentity certificate: {}", uc.getName());
-
-                try (Reader reader = new FileReader(uc)) {
-                    CertificateDTO dtoCert = mapper.readValue(reader, CertificateDTO.class);
-                    idcert = new IdentityCertificate();
-                    ImporterUtils.populateEntity(idcert, dtoCert);
-                    idcert.setId(dtoCert.getId());
-                }
-            }
-            else {
-                log.warn("Extra file found in upstream_consumer directory: {}", uc.getName());
-            }
+        for (CertificateDTO dtoCert : upstreamConsumer) {
+            log.debug("Import upstream consumeridentity certificate: {}", dtoCert.getId());
+
+            idcert = new IdentityCertificate();
+            ImporterUtils.populateEntity(idcert, dtoCert);
+            idcert.setId(dtoCert.getId());
         }
 
         ConsumerImporter importer = new ConsumerImporter(ownerCurator, idCertCurator, i18n, csCurator);
-        ConsumerDTO consumer = null;
 
-        try (Reader reader = new FileReader(consumerFile)) {
-            consumer = importer.createObject(mapper, reader);
-            // we can not rely on the actual ConsumerType in the ConsumerDto
-            // because it could have an id not in our database. We need to
-            // stick with the label. Hence we need to lookup the ACTUAL type
-            // by label here before attempting to store the UpstreamConsumer
-            ConsumerType type = consumerTypeCurator.getByLabel(consumer.getType().getLabel());
-            consumer.setType(this.translator.translate(type, ConsumerTypeDTO.class));
-
-            // in older manifests the web app prefix will not
-            // be on the consumer, we can use the one stored in
-            // the metadata
-            if (StringUtils.isEmpty(consumer.getUrlWeb())) {
-                consumer.setUrlWeb(meta.getWebAppPrefix());
-            }
+        // we can not rely on the actual ConsumerType in the ConsumerDto
+        // because it could have an id not in our database. We need to
+        // stick with the label. Hence we need to lookup the ACTUAL type
+        // by label here before attempting to store the UpstreamConsumer
+        ConsumerType type = consumerTypeCurator.getByLabel(consumer.getType().getLabel());
+        consumer.setType(this.translator.translate(type, ConsumerTypeDTO.class));
 
-            importer.store(owner, consumer, forcedConflicts, idcert);
+        // in older manifests the web app prefix will not
+        // be on the consumer, we can use the one stored in
+        // the metadata
+        if (StringUtils.isEmpty(consumer.getUrlWeb())) {
+            consumer.setUrlWeb(meta.getWebAppPrefix());
         }
 
+        importer.store(owner, consumer, forcedConflicts, idcert);
+
         return consumer;
     }
 
     protected List<SubscriptionDTO> importEntitlements(Owner owner,
-        Map<String, ProductDTO> importedProductsMap, File[] entitlementFiles, String consumerUuid, Meta meta)
-        throws IOException, SyncDataFormatException {
+        Map<String, ProductDTO> importedProductsMap, List<EntitlementDTO> entitlements, String consumerUuid,
+        Meta meta) throws SyncDataFormatException {
 
         log.debug("Importing entitlements for owner: {}", owner);
 
         List<SubscriptionDTO> subscriptionsToImport = new ArrayList<>();
 
-        if (importedProductsMap != null && entitlementFiles != null) {
+        if (importedProductsMap != null && entitlements != null) {
             EntitlementImporter importer = new EntitlementImporter(cdnCurator, i18n, translator,
                 importedProductsMap);
 
-            for (File entitlement : entitlementFiles) {
-                try (Reader reader = new FileReader(entitlement)) {
-                    log.debug("Importing entitlement from file: {}", entitlement.getName());
-                    subscriptionsToImport.add(
-                        importer.importObject(mapper, reader, owner, consumerUuid, meta));
-                }
+            for (EntitlementDTO entitlement : entitlements) {
+                log.debug("Importing entitlement: {}", entitlement.getId());
+                subscriptionsToImport.add(importer.importObject(entitlement, owner, consumerUuid, meta));
             }
         }
 
@@ -693,95 +670,22 @@ public class Importer {
         return subscriptionsToImport;
     }
 
-    /**
-     * Create a tar.gz archive of the exported directory.
-     *
-     * @param tempDir Directory where Candlepin data was exported.
-     * @return File reference to the new archive tar.gz.
-     */
-    private File extractArchive(File tempDir, String exportFileName, InputStream exportFileStream)
-        throws IOException, ImportExtractionException {
-
-        log.debug("Extracting archive to: {}", tempDir.getAbsolutePath());
-
-        byte[] buf = new byte[1024];
-
-        try (ZipInputStream zipinputstream = new ZipInputStream(exportFileStream)) {
-            ZipEntry zipentry = zipinputstream.getNextEntry();
-
-            if (zipentry == null) {
-                throw new ImportExtractionException(i18n.tr(
-                    "The archive {0} is not a properly compressed file or is empty", exportFileName));
-            }
-
-            while (zipentry != null) {
-                //for each entry to be extracted
-                String entryName = zipentry.getName();
-                log.debug("entryname {}", entryName);
-
-                File newFile = new File(tempDir, entryName).getCanonicalFile();
-
-                // Check if the file is outside of the target directory
-                if (!newFile.getPath().startsWith(tempDir.getCanonicalPath())) {
-                    throw new ImportExtractionException(i18n.tr(
-                        "Entry is outside of the target directory: {0}", entryName));
-                }
-
-                String directory = newFile.getParent();
-                if (directory != null) {
-                    new File(directory).mkdirs();
-                }
-
-                try (FileOutputStream fileoutputstream = new FileOutputStream(newFile)) {
-                    int n;
-                    while ((n = zipinputstream.read(buf, 0, 1024)) > -1) {
-                        fileoutputstream.write(buf, 0, n);
-                    }
-                }
-
-                zipinputstream.closeEntry();
-                zipentry = zipinputstream.getNextEntry();
-            }
-        }
-
-        return new File(tempDir.getAbsolutePath(), "export");
-    }
-
-    private byte[] loadSignature(File signatureFile) throws IOException {
-        // signature is never going to be a huge file, therefore cast is a-okay
-        byte[] signatureBytes = new byte[(int) signatureFile.length()];
-        try (FileInputStream signature = new FileInputStream(signatureFile)) {
-            int offset = 0;
-            int numRead = 0;
-            while (offset < signatureBytes.length && numRead >= 0) {
-                numRead = signature.read(signatureBytes, offset, signatureBytes.length - offset);
-                offset += numRead;
-            }
-
-            return signatureBytes;
-        }
-    }
-
-    protected void importDistributorVersions(File[] versionFiles) throws IOException {
+    protected void importDistributorVersions(List<DistributorVersionDTO> distributorVersions) {
         DistributorVersionImporter importer = new DistributorVersionImporter(distVerCurator);
         Set<DistributorVersionDTO> distVers = new HashSet<>();
 
-        for (File verFile : versionFiles) {
-            try (Reader reader = new FileReader(verFile)) {
-                distVers.add(importer.createObject(mapper, reader));
-            }
+        for (DistributorVersionDTO distributorVersion : distributorVersions) {
+            distVers.add(importer.createObject(distributorVersion));
         }
         importer.store(distVers);
     }
 
-    protected void importContentDeliveryNetworks(File[] cdnFiles) throws IOException {
+    protected void importContentDeliveryNetworks(List<CdnDTO> cdnList) {
         CdnImporter importer = new CdnImporter(cdnCurator);
         Set<CdnDTO> cdns = new HashSet<>();
 
-        for (File cdnFile : cdnFiles) {
-            try (Reader reader = new FileReader(cdnFile)) {
-                cdns.add(importer.createObject(mapper, reader));
-            }
+        for (CdnDTO cdn : cdnList) {
+            cdns.add(importer.createObject(cdn));
         }
 
         importer.store(cdns);
@@ -802,17 +706,4 @@ public class Importer {
         return iup;
     }
 
-    private File unpackExportFile(String fileName, InputStream exportInputStream)
-        throws ImportExtractionException {
-        try {
-            File tmpDir = syncUtils.makeTempDir("import");
-            extractArchive(tmpDir, fileName, exportInputStream);
-            return tmpDir;
-        }
-        catch (IOException e) {
-            log.error("Unable to extract export archive", e);
-            throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e);
-        }
-    }
-
 }
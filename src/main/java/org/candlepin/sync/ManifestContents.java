@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import org.candlepin.dto.manifest.v1.CdnDTO;
+import org.candlepin.dto.manifest.v1.CertificateDTO;
+import org.candlepin.dto.manifest.v1.ConsumerDTO;
+import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
+import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
+import org.candlepin.sync.Importer.ImportFile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+
+
+/**
+ * The decoded contents of a manifest. Each section of the manifest is decoded on demand, or by the
+ * {@link ManifestReader} while the rest of the manifest is still being read, and is only decoded
+ * once regardless of how many times it is fetched. Errors which occur while decoding a section
+ * are thrown when the section is fetched.
+ */
+public class ManifestContents {
+    private static final Logger log = LoggerFactory.getLogger(ManifestContents.class);
+
+    /**
+     * A single decoded section of a manifest.
+     *
+     * @param <T>
+     *  the type of data decoded from the section
+     */
+    @FunctionalInterface
+    interface Section<T> {
+
+        /**
+         * Fetches the decoded data of this section, decoding it if necessary.
+         *
+         * @throws IOException
+         *  if the section cannot be decoded
+         *
+         * @return
+         *  the decoded data of this section
+         */
+        T get() throws IOException;
+    }
+
+    private final Map<ImportFile, Section<?>> sections;
+
+    /**
+     * Creates a new manifest contents instance from the given sections. Sections which are not
+     * present in the manifest should be omitted from the map.
+     *
+     * @param sections
+     *  the sections present in the manifest
+     */
+    ManifestContents(Map<ImportFile, Section<?>> sections) {
+        this.sections = new EnumMap<>(ImportFile.class);
+        this.sections.putAll(Objects.requireNonNull(sections));
+    }
+
+    /**
+     * Checks whether the given section is present in the manifest.
+     *
+     * @param file
+     *  the section to check
+     *
+     * @return
+     *  true if the section is present in the manifest; false otherwise
+     */
+    boolean contains(ImportFile file) {
+        return this.sections.containsKey(file);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(ImportFile file) throws IOException {
+        Section<T> section = (Section<T>) this.sections.get(file);
+        return section != null ? section.get() : null;
+    }
+
+    public Meta getMeta() throws IOException {
+        return this.get(ImportFile.META);
+    }
+
+    public String getRules() throws IOException {
+        return this.get(ImportFile.RULES_FILE);
+    }
+
+    public List<ConsumerTypeDTO> getConsumerTypes() throws IOException {
+        return this.get(ImportFile.CONSUMER_TYPE);
+    }
+
+    public ConsumerDTO getConsumer() throws IOException {
+        return this.get(ImportFile.CONSUMER);
+    }
+
+    public List<CertificateDTO> getUpstreamConsumerCertificates() throws IOException {
+        return this.get(ImportFile.UPSTREAM_CONSUMER);
+    }
+
+    public List<DistributorVersionDTO> getDistributorVersions() throws IOException {
+        return this.get(ImportFile.DISTRIBUTOR_VERSIONS);
+    }
+
+    public List<CdnDTO> getContentDeliveryNetworks() throws IOException {
+        return this.get(ImportFile.CONTENT_DELIVERY_NETWORKS);
+    }
+
+    /**
+     * Fetches the products defined in the manifest, mapped by the product ID used to name their
+     * product file in the manifest.
+     *
+     * @throws IOException
+     *  if the products cannot be decoded
+     *
+     * @return
+     *  the products defined in the manifest, or null if the manifest has no products section
+     */
+    public Map<String, ProductDTO> getProducts() throws IOException {
+        return this.get(ImportFile.PRODUCTS);
+    }
+
+    public List<EntitlementDTO> getEntitlements() throws IOException {
+        return this.get(ImportFile.ENTITLEMENTS);
+    }
+
+    /**
+     * Creates a section which decodes its data the first time it is fetched, and returns the same
+     * data thereafter.
+     *
+     * @param decoder
+     *  the section which decodes the data
+     *
+     * @return
+     *  a section decoding its data at most once
+     */
+    static <T> Section<T> memoize(Section<T> decoder) {
+        Objects.requireNonNull(decoder);
+
+        return new Section<T>() {
+            private boolean decoded;
+            private T value;
+
+            @Override
+            public synchronized T get() throws IOException {
+                if (!this.decoded) {
+                    this.value = decoder.get();
+                    this.decoded = true;
+                }
+
+                return this.value;
+            }
+        };
+    }
+
+    /**
+     * Creates a section which returns the result of the given future, waiting for it to complete
+     * if necessary.
+     *
+     * @param future
+     *  the future providing the decoded data
+     *
+     * @return
+     *  a section backed by the given future
+     */
+    static <T> Section<T> fromFuture(Future<T> future) {
+        Objects.requireNonNull(future);
+
+        return () -> {
+            try {
+                return future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while decoding manifest");
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+
+                throw new IOException("Unable to decode manifest", cause);
+            }
+        };
+    }
+
+    /**
+     * Creates a manifest contents instance from the files of an extracted manifest, mapped by the
+     * file name of each section. Sections are read and decoded from their files the first time they
+     * are fetched.
+     *
+     * @param importFiles
+     *  the files of the extracted manifest, mapped by the file name of each section
+     *
+     * @param mapper
+     *  the object mapper to use for decoding the files
+     *
+     * @return
+     *  the contents of the extracted manifest
+     */
+    public static ManifestContents fromFiles(Map<String, File> importFiles, ObjectMapper mapper) {
+        Objects.requireNonNull(importFiles);
+        Objects.requireNonNull(mapper);
+
+        Map<ImportFile, Section<?>> sections = new EnumMap<>(ImportFile.class);
+
+        for (ImportFile section : ImportFile.values()) {
+            File file = importFiles.get(section.fileName());
+            if (file == null) {
+                continue;
+            }
+
+            switch (section) {
+                case META:
+                    sections.put(section, memoize(() -> mapper.readValue(file, Meta.class)));
+                    break;
+
+                case RULES_FILE:
+                    sections.put(section, memoize(() -> readRules(file)));
+                    break;
+
+                case CONSUMER:
+                    sections.put(section, memoize(() -> mapper.readValue(file, ConsumerDTO.class)));
+                    break;
+
+                case CONSUMER_TYPE:
+                    sections.put(section, memoize(() -> readDirectory(file, mapper, ConsumerTypeDTO.class)));
+                    break;
+
+                case UPSTREAM_CONSUMER:
+                    sections.put(section, memoize(() -> readUpstreamConsumer(file, mapper)));
+                    break;
+
+                case DISTRIBUTOR_VERSIONS:
+                    sections.put(section,
+                        memoize(() -> readDirectory(file, mapper, DistributorVersionDTO.class)));
+                    break;
+
+                case CONTENT_DELIVERY_NETWORKS:
+                    sections.put(section, memoize(() -> readDirectory(file, mapper, CdnDTO.class)));
+                    break;
+
+                case PRODUCTS:
+                    sections.put(section, memoize(() -> ProductImporter.readProductDirectory(file, mapper)));
+                    break;
+
+                case ENTITLEMENTS:
+                    sections.put(section, memoize(() -> readDirectory(file, mapper, EntitlementDTO.class)));
+                    break;
+
+                default:
+                    // Not decoded as part of an import
+                    sections.put(section, () -> null);
+            }
+        }
+
+        return new ManifestContents(sections);
+    }
+
+    private static String readRules(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return IOUtils.toString(reader);
+        }
+        catch (FileNotFoundException e) {
+            log.debug("Manifest does not contain rules file: {}", file, e);
+            return null;
+        }
+    }
+
+    private static File[] listFiles(File directory) {
+        File[] files = directory.listFiles();
+        return files != null ? files : new File[0];
+    }
+
+    private static <T> List<T> readDirectory(File directory, ObjectMapper mapper, Class<T> type)
+        throws IOException {
+
+        List<T> output = new ArrayList<>();
+
+        for (File file : listFiles(directory)) {
+            try (Reader reader = new FileReader(file)) {
+                output.add(mapper.readValue(reader, type));
+            }
+        }
+
+        return output;
+    }
+
+    private static List<CertificateDTO> readUpstreamConsumer(File directory, ObjectMapper mapper)
+        throws IOException {
+
+        List<CertificateDTO> output = new ArrayList<>();
+
+        for (File file : listFiles(directory)) {
+            if (!file.getName().endsWith(".json")) {
+                log.warn("Extra file found in upstream_consumer directory: {}", file.getName());
+                continue;
+            }
+
+            try (Reader reader = new FileReader(file)) {
+                output.add(mapper.readValue(reader, CertificateDTO.class));
+            }
+        }
+
+        return output;
+    }
+
+}
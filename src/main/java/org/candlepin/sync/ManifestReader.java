@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import org.candlepin.dto.manifest.v1.CdnDTO;
+import org.candlepin.dto.manifest.v1.CertificateDTO;
+import org.candlepin.dto.manifest.v1.ConsumerDTO;
+import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
+import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
+import org.candlepin.pki.impl.Signer;
+import org.candlepin.sync.Importer.ImportFile;
+import org.candlepin.sync.ManifestContents.Section;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnap.commons.i18n.I18n;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+
+
+/**
+ * Reads a manifest archive directly from its stream, without extracting it to disk. The signature
+ * of the nested consumer export archive is verified as the archive is read, and the sections of the
+ * manifest are decoded as their entries are read, either by the given executor or on demand when
+ * no executor is provided.
+ * <p>
+ * The entries of the manifest are not trusted until the signature has been verified, so no section
+ * is made available, and no error about the contents of the consumer export is reported, until the
+ * entire manifest has been read and its signature checked.
+ */
+class ManifestReader {
+    private static final Logger log = LoggerFactory.getLogger(ManifestReader.class);
+
+    static final String SIGNATURE_FILE = "signature";
+    static final String CONSUMER_EXPORT_FILE = "consumer_export.zip";
+
+    private static final String EXPORT_DIR = "export/";
+
+    private final Signer signer;
+    private final ObjectMapper mapper;
+    private final I18n i18n;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a new manifest reader.
+     *
+     * @param signer
+     *  the signer to use for verifying the signature of the manifest
+     *
+     * @param mapper
+     *  the object mapper to use for decoding the sections of the manifest
+     *
+     * @param i18n
+     *  the I18n instance to use for translating error messages
+     *
+     * @param executor
+     *  the executor to use for decoding the sections of the manifest, or null to decode each section
+     *  when it is first fetched
+     */
+    ManifestReader(Signer signer, ObjectMapper mapper, I18n i18n, ExecutorService executor) {
+        this.signer = Objects.requireNonNull(signer);
+        this.mapper = Objects.requireNonNull(mapper);
+        this.i18n = Objects.requireNonNull(i18n);
+        this.executor = executor;
+    }
+
+    /**
+     * Reads the manifest archive from the given stream, verifying its signature. The stream is
+     * closed once the manifest has been read.
+     *
+     * @param archiveName
+     *  the name of the manifest archive, used in error messages
+     *
+     * @param input
+     *  the stream from which to read the manifest archive
+     *
+     * @param overrides
+     *  the conflicts to override; used to determine whether a failed signature check is fatal
+     *
+     * @throws IOException
+     *  if the manifest archive cannot be read
+     *
+     * @throws ImporterException
+     *  if the manifest archive is malformed or fails its signature check
+     *
+     * @return
+     *  the contents of the manifest
+     */
+    ManifestContents read(String archiveName, InputStream input, ConflictOverrides overrides)
+        throws IOException, ImporterException {
+
+        byte[] signature = null;
+        ConsumerExport export = null;
+        boolean empty = true;
+
+        try (ZipInputStream zip = new ZipInputStream(input)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                empty = false;
+                log.debug("entryname {}", entry.getName());
+
+                if (SIGNATURE_FILE.equals(entry.getName())) {
+                    signature = IOUtils.toByteArray(zip);
+                }
+                else if (CONSUMER_EXPORT_FILE.equals(entry.getName())) {
+                    export = this.readConsumerExport(zip);
+                }
+
+                zip.closeEntry();
+            }
+        }
+
+        if (empty) {
+            throw new ImportExtractionException(i18n.tr(
+                "The archive {0} is not a properly compressed file or is empty", archiveName));
+        }
+
+        if (signature == null || signature.length == 0) {
+            throw new ImportExtractionException(
+                i18n.tr("The archive does not contain the required signature file"));
+        }
+
+        if (export == null) {
+            log.error("Archive file does not contain {}", CONSUMER_EXPORT_FILE);
+            throw new ImportExtractionException(i18n.tr("The archive does not contain " +
+                "the required consumer_export.zip file"));
+        }
+
+        if (!export.verifier.verify(signature)) {
+            log.warn("Archive signature check failed.");
+
+            if (!overrides.isForced(Importer.Conflict.SIGNATURE_CONFLICT)) {
+                /*
+                 * Normally for import conflicts that can be overridden, we try to
+                 * report them all the first time so if the user intends to override,
+                 * they can do so with just one more request. However in the case of
+                 * a bad signature, we're going to report immediately due to the nature
+                 * of what this might mean.
+                 */
+                throw new ImportConflictException(i18n.tr("Archive failed signature check"),
+                    Importer.Conflict.SIGNATURE_CONFLICT);
+            }
+            else {
+                log.warn("Ignoring signature check failure.");
+            }
+        }
+
+        if (export.error != null) {
+            throw new ImportExtractionException(export.error);
+        }
+
+        return export.build();
+    }
+
+    /**
+     * Reads the nested consumer export archive from the current entry of the given stream. Every
+     * byte of the entry is passed to the signature verifier, including any trailing data which is
+     * not part of an archive entry.
+     */
+    private ConsumerExport readConsumerExport(InputStream input) throws IOException {
+        ConsumerExport export = new ConsumerExport(this.signer.createVerifier());
+        InputStream verified = new VerifyingInputStream(input, export.verifier);
+
+        // Closing the nested archive does not close the underlying stream
+        try (ZipInputStream zip = new ZipInputStream(verified)) {
+            ZipEntry entry = zip.getNextEntry();
+
+            if (entry == null) {
+                export.error = i18n.tr("The archive {0} is not a properly compressed file or is empty",
+                    CONSUMER_EXPORT_FILE);
+            }
+
+            boolean content = false;
+            for (; entry != null; entry = zip.getNextEntry()) {
+                log.debug("entryname {}", entry.getName());
+
+                if (!entry.isDirectory() && entry.getName().startsWith(EXPORT_DIR)) {
+                    export.add(entry.getName().substring(EXPORT_DIR.length()), zip);
+                    content = true;
+                }
+
+                zip.closeEntry();
+            }
+
+            if (export.error == null && !content) {
+                export.error = i18n.tr(
+                    "The provided manifest has no content in the exported consumer archive");
+            }
+        }
+        catch (ZipException e) {
+            log.error("Unable to read {}", CONSUMER_EXPORT_FILE, e);
+            export.error = i18n.tr("The archive {0} is not a properly compressed file or is empty",
+                CONSUMER_EXPORT_FILE);
+        }
+
+        // The nested archive may not be read to its end; the signature covers all of it
+        IOUtils.consume(verified);
+
+        return export;
+    }
+
+    /**
+     * Creates a section decoding the given data, either on the executor or when first fetched.
+     */
+    private <T> Section<T> decode(byte[] data, Class<T> type) {
+        if (this.executor == null) {
+            return ManifestContents.memoize(() -> this.mapper.readValue(data, type));
+        }
+
+        return ManifestContents.fromFuture(this.executor.submit(() -> this.mapper.readValue(data, type)));
+    }
+
+    /**
+     * The sections read from the consumer export archive, along with the verifier of its signature
+     * and any error found in its contents.
+     */
+    private class ConsumerExport {
+        private final Signer.Verifier verifier;
+        private String error;
+
+        private final Map<ImportFile, Section<?>> sections;
+        private final Map<ImportFile, List<Section<?>>> directories;
+        private final Map<String, Section<ProductDTO>> products;
+
+        ConsumerExport(Signer.Verifier verifier) {
+            this.verifier = Objects.requireNonNull(verifier);
+
+            this.sections = new EnumMap<>(ImportFile.class);
+            this.directories = new EnumMap<>(ImportFile.class);
+            this.products = new HashMap<>();
+        }
+
+        /**
+         * Adds the entry with the given path, relative to the export directory, reading its data
+         * from the given stream if it is part of a section decoded for import.
+         */
+        void add(String path, InputStream input) throws IOException {
+            if (ImportFile.META.fileName().equals(path)) {
+                this.sections.put(ImportFile.META, decode(IOUtils.toByteArray(input), Meta.class));
+                return;
+            }
+
+            if (ImportFile.CONSUMER.fileName().equals(path)) {
+                this.sections.put(ImportFile.CONSUMER, decode(IOUtils.toByteArray(input), ConsumerDTO.class));
+                return;
+            }
+
+            if (ImportFile.RULES_FILE.fileName().equals(path)) {
+                String rules = new String(IOUtils.toByteArray(input), StandardCharsets.UTF_8);
+                this.sections.put(ImportFile.RULES_FILE, () -> rules);
+                return;
+            }
+
+            int separator = path.indexOf('/');
+            if (separator < 0 || path.indexOf('/', separator + 1) >= 0) {
+                log.debug("Ignoring unexpected manifest entry: {}", path);
+                return;
+            }
+
+            String directory = path.substring(0, separator);
+            String filename = path.substring(separator + 1);
+
+            if (ImportFile.CONSUMER_TYPE.fileName().equals(directory)) {
+                this.addToDirectory(ImportFile.CONSUMER_TYPE, input, ConsumerTypeDTO.class);
+            }
+            else if (ImportFile.UPSTREAM_CONSUMER.fileName().equals(directory)) {
+                if (filename.endsWith(".json")) {
+                    this.addToDirectory(ImportFile.UPSTREAM_CONSUMER, input, CertificateDTO.class);
+                }
+                else {
+                    log.warn("Extra file found in upstream_consumer directory: {}", filename);
+                    this.directory(ImportFile.UPSTREAM_CONSUMER);
+                }
+            }
+            else if (ImportFile.DISTRIBUTOR_VERSIONS.fileName().equals(directory)) {
+                this.addToDirectory(ImportFile.DISTRIBUTOR_VERSIONS, input, DistributorVersionDTO.class);
+            }
+            else if (ImportFile.CONTENT_DELIVERY_NETWORKS.fileName().equals(directory)) {
+                this.addToDirectory(ImportFile.CONTENT_DELIVERY_NETWORKS, input, CdnDTO.class);
+            }
+            else if (ImportFile.ENTITLEMENTS.fileName().equals(directory)) {
+                this.addToDirectory(ImportFile.ENTITLEMENTS, input, EntitlementDTO.class);
+            }
+            else if (ImportFile.PRODUCTS.fileName().equals(directory)) {
+                this.directory(ImportFile.PRODUCTS);
+
+                String productId = ProductImporter.getProductId(filename);
+                if (productId != null) {
+                    this.products.put(productId, decode(IOUtils.toByteArray(input), ProductDTO.class));
+                }
+            }
+            else if (ImportFile.ENTITLEMENT_CERTIFICATES.fileName().equals(directory)) {
+                // Entitlement certificates are not read during import
+                this.directory(ImportFile.ENTITLEMENT_CERTIFICATES);
+            }
+            else {
+                log.debug("Ignoring unexpected manifest entry: {}", path);
+            }
+        }
+
+        private List<Section<?>> directory(ImportFile file) {
+            return this.directories.computeIfAbsent(file, key -> new ArrayList<>());
+        }
+
+        private void addToDirectory(ImportFile file, InputStream input, Class<?> type) throws IOException {
+            this.directory(file).add(decode(IOUtils.toByteArray(input), type));
+        }
+
+        /**
+         * Builds the contents of the manifest from the sections read.
+         */
+        ManifestContents build() {
+            Map<ImportFile, Section<?>> output = new EnumMap<>(ImportFile.class);
+            output.putAll(this.sections);
+
+            this.directories.forEach((file, entries) -> output.put(file, ManifestContents.memoize(() -> {
+                List<Object> decoded = new ArrayList<>();
+                for (Section<?> entry : entries) {
+                    decoded.add(entry.get());
+                }
+
+                return decoded;
+            })));
+
+            if (this.directories.containsKey(ImportFile.PRODUCTS)) {
+                Map<String, Section<ProductDTO>> products = this.products;
+
+                output.put(ImportFile.PRODUCTS, ManifestContents.memoize(() -> {
+                    Map<String, ProductDTO> decoded = new HashMap<>();
+                    for (Map.Entry<String, Section<ProductDTO>> entry : products.entrySet()) {
+                        decoded.put(entry.getKey(), entry.getValue().get());
+                    }
+
+                    return decoded;
+                }));
+            }
+
+            return new ManifestContents(output);
+        }
+    }
+
+    /**
+     * A stream which passes the data read from the underlying stream to a signature verifier. The
+     * underlying stream is not closed when this stream is closed.
+     */
+    private static class VerifyingInputStream extends FilterInputStream {
+        private final Signer.Verifier verifier;
+
+        VerifyingInputStream(InputStream input, Signer.Verifier verifier) {
+            super(input);
+            this.verifier = verifier;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                this.verifier.update(new byte[] { (byte) value }, 0, 1);
+            }
+
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                this.verifier.update(buffer, offset, count);
+            }
+
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            // Skipped data must still be verified, so read it instead
+            byte[] buffer = new byte[(int) Math.min(count, 4096)];
+            return Math.max(this.read(buffer, 0, buffer.length), 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // The underlying stream is owned by the caller
+        }
+    }
+
+}
@@ -46,15 +46,79 @@ public class ProductImporter {
 
     public static final String PRODUCT_FILE_SUFFIX = ".json";
 
+    private static final Pattern PRODUCT_FILE_PATTERN = Pattern.compile(
+        "^(.*)" + Pattern.quote(PRODUCT_FILE_SUFFIX));
+
     private Map<String, ProductDTO> cache;
 
-    private File productDir;
-    private ObjectMapper mapper;
+    private Map<String, ProductDTO> manifestProducts;
     private I18n i18n;
 
-    // TODO: We really should be providing something more generic like a DataSource or some such,
-    // but this will work for a quick retrofit.
-    public ProductImporter(File productDir, ObjectMapper mapper, I18n i18n) {
+    /**
+     * Creates a new product importer for the products decoded from a manifest.
+     *
+     * @param manifestProducts
+     *  the products defined in the manifest, mapped by the product ID used to name their product
+     *  file in the manifest
+     *
+     * @param i18n
+     *  the I18n instance to use for translating error messages
+     */
+    public ProductImporter(Map<String, ProductDTO> manifestProducts, I18n i18n) {
+        if (manifestProducts == null) {
+            throw new IllegalArgumentException("manifestProducts is null");
+        }
+
+        if (i18n == null) {
+            throw new IllegalArgumentException("i18n is null");
+        }
+
+        this.cache = new HashMap<>();
+
+        this.manifestProducts = manifestProducts;
+        this.i18n = i18n;
+    }
+
+    /**
+     * Creates a new product importer for the product files in the given directory of an extracted
+     * manifest.
+     *
+     * @param productDir
+     *  the products directory of the extracted manifest
+     *
+     * @param mapper
+     *  the object mapper to use for reading the product files
+     *
+     * @param i18n
+     *  the I18n instance to use for translating error messages
+     *
+     * @throws IOException
+     *  if a product file cannot be read
+     */
+    public ProductImporter(File productDir, ObjectMapper mapper, I18n i18n) throws IOException {
+        this(readProductDirectory(productDir, mapper), i18n);
+    }
+
+    /**
+     * Reads the product files in the given directory of an extracted manifest, mapping each
+     * product by the product ID used to name its file. Files which are not product files are
+     * ignored.
+     *
+     * @param productDir
+     *  the products directory of the extracted manifest
+     *
+     * @param mapper
+     *  the object mapper to use for reading the product files
+     *
+     * @throws IOException
+     *  if a product file cannot be read
+     *
+     * @return
+     *  a mapping of the products defined in the directory
+     */
+    static Map<String, ProductDTO> readProductDirectory(File productDir, ObjectMapper mapper)
+        throws IOException {
+
         if (productDir == null) {
             throw new IllegalArgumentException("productDir is null");
         }
@@ -63,15 +127,36 @@ public class ProductImporter {
             throw new IllegalArgumentException("mapper is null");
         }
 
-        if (i18n == null) {
-            throw new IllegalArgumentException("i18n is null");
+        Map<String, ProductDTO> products = new HashMap<>();
+
+        File[] files = productDir.listFiles();
+        if (files != null) {
+            for (File candidate : files) {
+                String productId = getProductId(candidate.getName());
+
+                if (productId != null) {
+                    try (Reader reader = new FileReader(candidate)) {
+                        products.put(productId, mapper.readValue(reader, ProductDTO.class));
+                    }
+                }
+            }
         }
 
-        this.cache = new HashMap<>();
+        return products;
+    }
 
-        this.productDir = productDir;
-        this.mapper = mapper;
-        this.i18n = i18n;
+    /**
+     * Fetches the ID of the product defined by the product file with the given name.
+     *
+     * @param filename
+     *  the name of the file, without any directory
+     *
+     * @return
+     *  the product ID of the product file, or null if the file is not a product file
+     */
+    static String getProductId(String filename) {
+        Matcher matcher = PRODUCT_FILE_PATTERN.matcher(filename);
+        return matcher.matches() ? matcher.group(1) : null;
     }
 
     /**
@@ -148,19 +233,16 @@ public class ProductImporter {
     private ProductDTO readFromManifest(String productId) throws IOException {
         log.debug("loading product from manifest: {}", productId);
 
-        File pfile = new File(this.productDir, productId + PRODUCT_FILE_SUFFIX);
-        if (!pfile.exists()) {
+        ProductDTO product = this.manifestProducts.get(productId);
+        if (product == null) {
             return null;
         }
 
-        try (Reader reader = new FileReader(pfile)) {
-            ProductDTO product = this.mapper.readValue(reader, ProductDTO.class);
-            this.normalizeProduct(product);
-            this.resolveChildren(product);
+        this.normalizeProduct(product);
+        this.resolveChildren(product);
 
-            this.cache.put(product.getId(), product);
-            return product;
-        }
+        this.cache.put(product.getId(), product);
+        return product;
     }
 
     /**
@@ -322,22 +404,16 @@ public class ProductImporter {
      *  a mapping of products defined in the manifest
      */
     public Map<String, ProductDTO> importProductMap() throws IOException {
-        File[] files = this.productDir.listFiles();
-
         Map<String, ProductDTO> output = new HashMap<>();
-        Pattern fnPattern = Pattern.compile("^(.*)" + Pattern.quote(PRODUCT_FILE_SUFFIX));
 
         try {
-            for (File candidate : files) {
-                Matcher matcher = fnPattern.matcher(candidate.getName());
-                if (matcher.matches()) {
-                    ProductDTO product = this.importProduct(matcher.group(1));
-                    output.put(product.getId(), product);
-                }
+            for (String productId : this.manifestProducts.keySet()) {
+                ProductDTO product = this.importProduct(productId);
+                output.put(product.getId(), product);
             }
         }
         catch (SyncDataFormatException e) {
-            // Given that we're feeding it the product IDs from filenames, this shouldn't ever happen
+            // Given that we're feeding it the product IDs from the manifest, this shouldn't ever happen
             throw new RuntimeException(e);
         }
 
@@ -166,7 +166,18 @@ public abstract class X509Util {
         return filtered;
     }
 
-    private Set<String> archesOf(Consumer consumer) {
+    /**
+     * Fetches the architectures of the given consumer, as reported by its architecture and
+     * supported architecture facts.
+     *
+     * @param consumer
+     *  the consumer for which to fetch architectures
+     *
+     * @return
+     *  the set of architectures of the consumer; an empty set if the consumer is null or does not
+     *  report any architectures
+     */
+    public Set<String> archesOf(Consumer consumer) {
         Set<String> consumerArches = new HashSet<>();
         if (consumer == null) {
             return consumerArches;
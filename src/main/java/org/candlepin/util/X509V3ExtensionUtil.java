@@ -29,7 +29,7 @@ import org.candlepin.pki.OID;
 import org.candlepin.pki.X509Extension;
 import org.candlepin.pki.certs.X509ByteExtension;
 import org.candlepin.pki.certs.X509StringExtension;
-import org.candlepin.pki.huffman.Huffman;
+import org.candlepin.pki.huffman.ContentPathEncoder;
 
 import com.google.common.collect.Collections2;
 
@@ -53,13 +53,14 @@ public class X509V3ExtensionUtil extends X509Util {
 
     private final Configuration config;
     private final EntitlementCurator entCurator;
-    private final Huffman huffman;
+    private final ContentPathEncoder contentPathEncoder;
 
     @Inject
-    public X509V3ExtensionUtil(Configuration config, EntitlementCurator entCurator, Huffman huffman) {
+    public X509V3ExtensionUtil(Configuration config, EntitlementCurator entCurator,
+        ContentPathEncoder contentPathEncoder) {
         this.config = Objects.requireNonNull(config);
         this.entCurator = Objects.requireNonNull(entCurator);
-        this.huffman = Objects.requireNonNull(huffman);
+        this.contentPathEncoder = Objects.requireNonNull(contentPathEncoder);
     }
 
     public Set<X509Extension> getExtensions() {
@@ -82,7 +83,7 @@ public class X509V3ExtensionUtil extends X509Util {
 
     private byte[] retrieveContentValue(EntitlementBody eb) throws IOException {
         List<Content> contentList = getContentList(eb);
-        return this.huffman.retrieveContentValue(contentList);
+        return this.contentPathEncoder.encode(contentList);
     }
 
     public EntitlementBody createEntitlementBodyContent(
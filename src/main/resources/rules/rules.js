@@ -1,4 +1,4 @@
-// Version: 5.44
+// Version: 5.45
 
 /*
  * Default Candlepin rule set.
@@ -42,6 +42,11 @@ function test_name_space() {
     return TestNamespace;
 }
 
+// Indicates that these rules accept json_context as either a JSON string or a
+// native object, and that functions returning Utils.format_result may return
+// native objects when given a native context.
+var NATIVE_CONTEXT_SUPPORTED = true;
+
 // consumer types
 var SYSTEM_TYPE = "system";
 var HYPERVISOR_TYPE = "hypervisor";
@@ -813,7 +818,7 @@ var FactValueCalculator = {
         },
 
         guest_limit: function (prodAttr, consumer) {
-            var context = JSON.parse(json_context);
+            var context = Utils.get_context();
             if (!context.hasOwnProperty('guestIds') || context.guestIds === null) {
                 return 0;
             }
@@ -1466,7 +1471,7 @@ function comparePools(pool1, pool2) {
 var ActivationKey = {
 
     get_attribute_context: function() {
-        context = JSON.parse(json_context);
+        context = Utils.get_context();
 
         // Pool to validate
         context.pool = createPool(context.pool);
@@ -1569,7 +1574,7 @@ var Entitlement = {
     },
 
     get_attribute_context: function() {
-        context = JSON.parse(json_context);
+        context = Utils.get_context();
 
         if ("pool" in context) {
             context.pool = createPool(context.pool, context.consumer);
@@ -2610,7 +2615,7 @@ var Autobind = {
     },
 
     create_autobind_context: function() {
-        var context = JSON.parse(json_context);
+        var context = Utils.get_context();
 
         // The considerDerived property indicates if we should look to derived
         // provided products rather than the usual set. Used in situations where
@@ -3160,7 +3165,7 @@ function get_role_pools(in_pools) {
  */
 var Compliance = {
     get_status_context: function() {
-        context = JSON.parse(json_context);
+        context = Utils.get_context();
         context.ondate = new Date(context.ondate);
 
         // Add some methods to the various Pool objects:
@@ -3198,7 +3203,7 @@ var Compliance = {
         compStatus.compliantUntil = compliantUntil;
         compStatus.productComplianceDateRanges = productComplianceDateRanges;
 
-        return JSON.stringify(compStatus);
+        return Utils.format_result(compStatus);
     },
 
     is_stack_compliant: function() {
@@ -3664,7 +3669,7 @@ var Compliance = {
 
 var Quantity = {
     get_quantity_context: function() {
-        context = JSON.parse(json_context);
+        context = Utils.get_context();
 
         if ("pool" in context) {
             context.pool = createPool(context.pool, context.consumer);
@@ -3763,7 +3768,7 @@ var Quantity = {
 var PoolType = {
 
     get_pool_type_context: function() {
-        context = JSON.parse(json_context);
+        context = Utils.get_context();
         context.pool = createPool(context.pool);
         return context;
     },
@@ -3820,7 +3825,7 @@ var PoolType = {
  */
 var Override = {
     get_override_context: function() {
-        context = JSON.parse(json_context);
+        context = Utils.get_context();
         return context;
     },
 
@@ -3839,6 +3844,30 @@ var Override = {
 
 var Utils = {
 
+    /*
+     * Returns the context of the current call. The engine provides the context
+     * either as a JSON string, or as a native object which can be used as-is.
+     */
+    get_context: function() {
+        if (typeof json_context === "string") {
+            return JSON.parse(json_context);
+        }
+
+        return json_context;
+    },
+
+    /*
+     * Formats the result of a call in the same form as its context was given:
+     * as a JSON string for string contexts, or as the native result otherwise.
+     */
+    format_result: function(result) {
+        if (typeof json_context === "string") {
+            return JSON.stringify(result);
+        }
+
+        return result;
+    },
+
     isNewborn: function(consumer) {
         if (consumer.created == null) {
             return false;
@@ -4018,7 +4047,7 @@ var TestNamespace = {
     },
 
     create_get_pool_priority_context: function() {
-        var context = JSON.parse(json_context);
+        var context = Utils.get_context();
 
         // Also need to convert all pools reported in compliance.
         var compliance = context.compliance;
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.model.AsyncJobStatus;
+import org.candlepin.model.AsyncJobStatus.JobState;
+import org.candlepin.model.Owner;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+
+
+public class JobConstraintIndexTest {
+
+    private static final String JOB_KEY = "test_job";
+
+    private JobConstraintIndex index;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        this.index = new JobConstraintIndex(TestConfig.defaults());
+    }
+
+    private AsyncJobStatus buildJob(String id, JobState state, long created, Map<String, String> args) {
+        AsyncJobStatus status = spy(new AsyncJobStatus()
+            .setJobKey(JOB_KEY)
+            .setState(state)
+            .setJobArguments(new JobArguments(args)));
+
+        doReturn(id).when(status).getId();
+        doReturn(new Date(created)).when(status).getCreated();
+
+        return status;
+    }
+
+    @Test
+    public void testRefreshIntervalMustBePositive() {
+        DevConfig config = TestConfig.defaults();
+        config.setProperty(ConfigProperties.ASYNC_JOBS_CONSTRAINT_INDEX_REFRESH_INTERVAL, "0");
+
+        assertThrows(ConfigurationException.class, () -> new JobConstraintIndex(config));
+    }
+
+    @Test
+    public void testFetchJobIdsByArguments() {
+        this.index.update(this.buildJob("job-1", JobState.QUEUED, 1000, Map.of("owner", "a", "x", "1")));
+        this.index.update(this.buildJob("job-2", JobState.RUNNING, 2000, Map.of("owner", "a", "x", "2")));
+        this.index.update(this.buildJob("job-3", JobState.QUEUED, 3000, Map.of("owner", "b")));
+
+        assertThat(this.index.fetchJobIdsByArguments(JOB_KEY, Map.of("owner", "a")))
+            .containsExactlyInAnyOrder("job-1", "job-2");
+        assertThat(this.index.fetchJobIdsByArguments(JOB_KEY, Map.of("owner", "a", "x", "2")))
+            .containsExactly("job-2");
+        assertThat(this.index.fetchJobIdsByArguments(JOB_KEY, null))
+            .containsExactlyInAnyOrder("job-1", "job-2", "job-3");
+        assertThat(this.index.fetchJobIdsByArguments("other_job", null)).isEmpty();
+    }
+
+    @Test
+    public void testTerminalJobsAreRemoved() {
+        AsyncJobStatus job = this.buildJob("job-1", JobState.RUNNING, 1000, Map.of("owner", "a"));
+        this.index.update(job);
+
+        job.setState(JobState.FINISHED);
+        this.index.update(job);
+
+        assertThat(this.index.size()).isZero();
+        assertThat(this.index.fetchJobIdsByArguments(JOB_KEY, Map.of("owner", "a"))).isEmpty();
+    }
+
+    @Test
+    public void testWaitingJobsQueuedLaterDoNotBlock() {
+        AsyncJobStatus running = this.buildJob("job-1", JobState.RUNNING, 1000, Map.of("owner", "a"));
+        AsyncJobStatus first = this.buildJob("job-2", JobState.WAITING, 2000, Map.of("owner", "a"));
+        AsyncJobStatus second = this.buildJob("job-3", JobState.WAITING, 3000, Map.of("owner", "a"));
+
+        this.index.update(second);
+        this.index.update(first);
+        this.index.update(running);
+
+        assertThat(this.index.getWaitingJobIds()).containsExactly("job-2", "job-3");
+
+        assertThat(this.index.forJob(first).fetchJobIdsByArguments(JOB_KEY, Map.of("owner", "a")))
+            .containsExactly("job-1");
+        assertThat(this.index.forJob(second).fetchJobIdsByArguments(JOB_KEY, Map.of("owner", "a")))
+            .containsExactlyInAnyOrder("job-1", "job-2");
+    }
+
+    @Test
+    public void testRefreshReplacesIndexedJobs() {
+        this.index.update(this.buildJob("job-1", JobState.QUEUED, 1000, Map.of("owner", "a")));
+        assertThat(this.index.isStale()).isTrue();
+
+        AsyncJobStatus active = this.buildJob("job-2", JobState.QUEUED, 2000, Map.of("owner", "a"));
+
+        long mark = this.index.beginRefresh();
+        this.index.refresh(List.of(active), mark);
+
+        assertThat(this.index.isStale()).isFalse();
+        assertThat(this.index.fetchJobIdsByArguments(JOB_KEY, null)).containsExactly("job-2");
+    }
+
+    @Test
+    public void testMergeAddsJobsWithoutRemovingIndexedJobs() {
+        this.index.update(this.buildJob("job-1", JobState.QUEUED, 1000, Map.of("owner", "a")));
+
+        AsyncJobStatus remote = this.buildJob("job-2", JobState.RUNNING, 2000, Map.of("owner", "a"));
+        AsyncJobStatus finished = this.buildJob("job-3", JobState.FINISHED, 3000, Map.of("owner", "a"));
+
+        long mark = this.index.beginRefresh();
+        this.index.merge(List.of(remote, finished), mark);
+
+        assertThat(this.index.fetchJobIdsByArguments(JOB_KEY, Map.of("owner", "a")))
+            .containsExactlyInAnyOrder("job-1", "job-2");
+    }
+
+    @Test
+    public void testMergeRetainsChangesMadeDuringMerge() {
+        AsyncJobStatus job = this.buildJob("job-1", JobState.RUNNING, 1000, Map.of("owner", "a"));
+        this.index.update(job);
+
+        long mark = this.index.beginRefresh();
+        AsyncJobStatus stale = this.buildJob("job-1", JobState.RUNNING, 1000, Map.of("owner", "a"));
+
+        job.setState(JobState.FINISHED);
+        this.index.update(job);
+
+        this.index.merge(List.of(stale), mark);
+
+        assertThat(this.index.size()).isZero();
+    }
+
+    @Test
+    public void testRefreshRetainsChangesMadeDuringRefresh() {
+        AsyncJobStatus finished = this.buildJob("job-1", JobState.RUNNING, 1000, Map.of("owner", "a"));
+        this.index.update(finished);
+
+        long mark = this.index.beginRefresh();
+
+        // Changes made locally after the jobs were fetched
+        this.index.update(this.buildJob("job-2", JobState.CREATED, 2000, Map.of("owner", "a")));
+        finished.setState(JobState.FINISHED);
+        this.index.update(finished);
+
+        // Stale view of the database, from before the changes
+        AsyncJobStatus stale = this.buildJob("job-1", JobState.RUNNING, 1000, Map.of("owner", "a"));
+        this.index.refresh(List.of(stale), mark);
+
+        assertThat(this.index.fetchJobIdsByArguments(JOB_KEY, null)).containsExactly("job-2");
+    }
+
+    @Test
+    public void testPendingJobIds() {
+        this.index.update(this.buildJob("job-1", JobState.RUNNING, 1000, Map.of("owner", "a")));
+        this.index.update(this.buildJob("job-3", JobState.QUEUED, 3000, Map.of("owner", "a")));
+        this.index.update(this.buildJob("job-2", JobState.WAITING, 2000, Map.of("owner", "b")));
+
+        assertThat(this.index.getPendingJobIds(JOB_KEY)).containsExactly("job-2", "job-3");
+        assertThat(this.index.getPendingJobIds("other_job")).isEmpty();
+    }
+
+    @Test
+    public void testCoalescedJobsAreNotIndexed() {
+        AsyncJobStatus coalesced = this.buildJob("job-2", JobState.WAITING, 2000, Map.of("owner", "a"))
+            .setCoalescedInto("job-1");
+
+        this.index.update(coalesced);
+        assertThat(this.index.size()).isZero();
+
+        long mark = this.index.beginRefresh();
+        this.index.refresh(List.of(coalesced), mark);
+
+        assertThat(this.index.hasWaitingJobs()).isFalse();
+        assertThat(this.index.fetchJobIdsByArguments(JOB_KEY, null)).isEmpty();
+    }
+
+    @Test
+    public void testFetchJobIdsByOwner() {
+        Owner owner1 = new Owner().setId("owner-1");
+        Owner owner2 = new Owner().setId("owner-2");
+
+        this.index.update(this.buildJob("job-1", JobState.RUNNING, 1000, Map.of()).setContextOwner(owner1));
+        this.index.update(this.buildJob("job-2", JobState.QUEUED, 2000, Map.of()).setContextOwner(owner2));
+
+        AsyncJobStatus waiting = this.buildJob("job-3", JobState.WAITING, 3000, Map.of())
+            .setContextOwner(owner1);
+        this.index.update(waiting);
+        this.index.update(this.buildJob("job-4", JobState.WAITING, 4000, Map.of()).setContextOwner(owner1));
+
+        assertThat(this.index.fetchJobIdsByOwner(waiting, jobKey -> true)).containsExactly("job-1");
+        assertThat(this.index.fetchJobIdsByOwner(waiting, jobKey -> false)).isEmpty();
+        assertThat(this.index.fetchJobIdsByOwner(this.buildJob("job-5", JobState.CREATED, 5000, Map.of()),
+            jobKey -> true)).isEmpty();
+    }
+
+    @Test
+    public void testConstraintsRetainedByJobKey() {
+        AsyncJobStatus queued = this.buildJob("job-1", JobState.WAITING, 1000, Map.of("owner", "a"));
+        AsyncJobStatus restored = this.buildJob("job-2", JobState.WAITING, 2000, Map.of("owner", "a"));
+        JobConstraint constraint = JobConstraints.uniqueByArguments("owner");
+
+        assertThat(this.index.getConstraints(restored)).isNull();
+
+        this.index.setConstraints(queued, List.of(constraint));
+
+        assertThat(this.index.getConstraints(queued)).containsExactly(constraint);
+        assertThat(this.index.getConstraints(restored)).containsExactly(constraint);
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+
+public class JobLanesTest {
+
+    private DevConfig config;
+
+    @BeforeEach
+    public void setUp() {
+        this.config = TestConfig.defaults();
+    }
+
+    @Test
+    public void testDefaultLaneOnly() throws Exception {
+        JobLanes lanes = new JobLanes(this.config);
+
+        assertThat(lanes.getLanes()).containsExactly(lanes.getDefaultLane());
+        assertThat(lanes.getLane("ExportJob")).isSameAs(lanes.getDefaultLane());
+        assertThat(lanes.getAssignedJobKeys()).isEmpty();
+        assertThat(lanes.getDefaultLane().isDefault()).isTrue();
+    }
+
+    @Test
+    public void testConfiguredLanes() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "bulk");
+        this.config.setProperty(ConfigProperties.laneConfig("bulk", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ExportJob, ImportJob");
+        this.config.setProperty(
+            ConfigProperties.laneConfig("bulk", ConfigProperties.ASYNC_JOBS_LANE_THREADS), "2");
+        this.config.setProperty(
+            ConfigProperties.laneConfig("bulk", ConfigProperties.ASYNC_JOBS_LANE_OWNER_LIMIT), "1");
+
+        JobLanes lanes = new JobLanes(this.config);
+        JobLanes.Lane lane = lanes.getLane("ExportJob");
+
+        assertThat(lanes.getLanes()).hasSize(2);
+        assertThat(lane.getName()).isEqualTo("bulk");
+        assertThat(lane.getJobKeys()).containsExactlyInAnyOrder("ExportJob", "ImportJob");
+        assertThat(lane.getThreads()).isEqualTo(2);
+        assertThat(lane.getOwnerLimit()).isEqualTo(1);
+        assertThat(lanes.getLane("ImportJob")).isSameAs(lane);
+        assertThat(lanes.getLane("RefreshPoolsJob")).isSameAs(lanes.getDefaultLane());
+    }
+
+    @Test
+    public void testLaneRequiresJobs() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "bulk");
+
+        assertThrows(ConfigurationException.class, () -> new JobLanes(this.config));
+    }
+
+    @Test
+    public void testLaneCannotUseDefaultName() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, JobLanes.DEFAULT_LANE);
+        this.config.setProperty(
+            ConfigProperties.laneConfig(JobLanes.DEFAULT_LANE, ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ExportJob");
+
+        assertThrows(ConfigurationException.class, () -> new JobLanes(this.config));
+    }
+
+    @Test
+    public void testJobCannotBeAssignedToMultipleLanes() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "bulk, export");
+        this.config.setProperty(ConfigProperties.laneConfig("bulk", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ExportJob");
+        this.config.setProperty(ConfigProperties.laneConfig("export", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ExportJob");
+
+        assertThrows(ConfigurationException.class, () -> new JobLanes(this.config));
+    }
+
+    @Test
+    public void testInvalidThreadCount() {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "bulk");
+        this.config.setProperty(ConfigProperties.laneConfig("bulk", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ExportJob");
+        this.config.setProperty(
+            ConfigProperties.laneConfig("bulk", ConfigProperties.ASYNC_JOBS_LANE_THREADS), "0");
+
+        assertThrows(ConfigurationException.class, () -> new JobLanes(this.config));
+    }
+
+}
@@ -24,6 +24,7 @@ import static org.hamcrest.Matchers.isEmptyOrNullString;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -181,6 +182,8 @@ public class JobManagerTest {
     private CandlepinRequestScope requestScope;
     private Injector injector;
     private EventSink eventSink;
+    private JobConstraintIndex constraintIndex;
+    private JobLanes jobLanes;
 
     private Scheduler scheduler;
     private List<ImmutablePair<String, String>> scheduledJobs;
@@ -204,6 +207,8 @@ public class JobManagerTest {
         this.requestScope = mock(CandlepinRequestScope.class);
         this.injector = mock(Injector.class);
         this.eventSink = mock(EventSink.class);
+        this.constraintIndex = new JobConstraintIndex(this.config);
+        this.jobLanes = new JobLanes(this.config);
 
         this.scheduler = mock(Scheduler.class);
         this.scheduledJobs = new LinkedList<>();
@@ -282,7 +287,7 @@ public class JobManagerTest {
     private JobManager createJobManager(JobMessageDispatcher dispatcher, Configuration config) {
         return new JobManager(config, this.schedulerFactory, this.modeManager, this.jobCurator,
             this.ownerCurator, dispatcher, this.receiver, this.principalProvider, this.requestScope,
-            () -> this.eventSink, this.injector);
+            () -> this.eventSink, this.injector, this.constraintIndex, this.jobLanes);
     }
 
     private JobArguments buildJobArguments(Map<String, Object> args) {
@@ -1358,9 +1363,40 @@ public class JobManagerTest {
     }
 
     @Test
-    public void testJobDoesNotQueueIfConstraintFails() throws Exception {
+    public void testJobWaitsOnJobsCreatedByOtherNodes() throws Exception {
+        Map<String, Object> ejobData = new HashMap<>();
+        ejobData.put("arg1", "val1");
+
+        // Created by another node after the constraint index was refreshed
+        AsyncJobStatus ejob = spy(new AsyncJobStatus()
+            .setJobKey(TestJob.JOB_KEY)
+            .setState(JobState.QUEUED)
+            .setJobArguments(this.buildJobArguments(ejobData)));
+
+        doReturn("remote-1").when(ejob).getId();
+        doReturn(List.of(ejob)).when(this.jobCurator)
+            .getNonTerminalJobs(eq(Set.of(TestJob.JOB_KEY)), any());
+
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1");
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.WAITING, result.getState());
+        assertThat(result.getJobResult(), containsString("remote-1"));
+        verify(this.dispatcher, never()).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobWaitsIfConstraintFails() throws Exception {
         JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
-            .addConstraint((curator, job) -> Arrays.asList("job-1", "job-2", "job-3"));
+            .addConstraint((lookup, job) -> Arrays.asList("job-1", "job-2", "job-3"));
 
         JobManager manager = this.createJobManager();
         manager.initialize();
@@ -1369,13 +1405,265 @@ public class JobManagerTest {
         AsyncJobStatus result = manager.queueJob(builder);
 
         assertNotNull(result);
-        assertEquals(JobState.ABORTED, result.getState());
+        assertEquals(JobState.WAITING, result.getState());
+        verify(this.dispatcher, never()).postJobMessage(any(JobMessage.class));
 
         // The job result should contain details about the jobs that blocked it
         assertNotNull(result.getJobResult());
         assertThat(result.getJobResult(), containsString("Job blocked by the following existing jobs:"));
     }
 
+    /**
+     * Configures the job curator to assign sequential IDs to created jobs, and to return them by
+     * ID afterward
+     */
+    private void mockJobCreation() {
+        Map<String, AsyncJobStatus> created = new HashMap<>();
+
+        doAnswer(invocation -> {
+            AsyncJobStatus status = spy((AsyncJobStatus) invocation.getArgument(0));
+            String jobId = "job-" + (created.size() + 1);
+
+            doReturn(jobId).when(status).getId();
+            created.put(jobId, status);
+
+            return status;
+        }).when(this.jobCurator).create(any(AsyncJobStatus.class));
+
+        doAnswer(invocation -> created.get((String) invocation.getArgument(0)))
+            .when(this.jobCurator).get(anyString());
+
+        doAnswer(invocation -> created.get((String) invocation.getArgument(0)))
+            .when(this.jobCurator).lockAndLoad(anyString());
+
+        doAnswer(invocation -> created.values()
+            .stream()
+            .filter(status -> invocation.getArgument(0).equals(status.getCoalescedInto()))
+            .filter(status -> !status.getState().isTerminal())
+            .collect(Collectors.toList()))
+            .when(this.jobCurator).getCoalescedJobs(anyString());
+    }
+
+    @Test
+    public void testJobWaitsOnIndexedJobs() throws Exception {
+        this.mockJobCreation();
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus first = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1"));
+
+        AsyncJobStatus second = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1"));
+
+        AsyncJobStatus other = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val2"));
+
+        assertEquals(JobState.QUEUED, first.getState());
+        assertEquals(JobState.WAITING, second.getState());
+        assertThat(second.getJobResult(), containsString(first.getId()));
+        assertEquals(JobState.QUEUED, other.getState());
+
+        // The database should not be queried for each job
+        verify(this.jobCurator, never()).fetchJobIdsByArguments(anyString(), any());
+    }
+
+    @Test
+    public void testWaitingJobReleasedWhenBlockingJobFinishes() throws Exception {
+        this.mockJobCreation();
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+
+        // Leave the manager suspended, so waiting jobs are only released when requested here
+        manager.suspend();
+
+        AsyncJobStatus first = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1"));
+
+        AsyncJobStatus second = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1"));
+
+        AsyncJobStatus third = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1"));
+
+        assertEquals(JobState.WAITING, second.getState());
+        assertEquals(JobState.WAITING, third.getState());
+
+        // Still blocked by the first job
+        assertEquals(0, manager.releaseWaitingJobs());
+
+        manager.cancelJob(first.getId());
+
+        // Waiting jobs are released in the order they were queued; the third job now waits on
+        // the second
+        assertEquals(1, manager.releaseWaitingJobs());
+        assertEquals(JobState.QUEUED, second.getState());
+        assertEquals(JobState.WAITING, third.getState());
+
+        verify(this.dispatcher, times(2)).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobWaitsOnOwnerLimit() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_OWNER_LIMIT, "1");
+        this.jobLanes = new JobLanes(this.config);
+        this.mockJobCreation();
+
+        Owner owner1 = new Owner().setId("owner-1").setKey("owner-1");
+        Owner owner2 = new Owner().setId("owner-2").setKey("owner-2");
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+
+        // Leave the manager suspended, so waiting jobs are only released when requested here
+        manager.suspend();
+
+        AsyncJobStatus first = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .setContextOwner(owner1));
+
+        AsyncJobStatus second = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .setContextOwner(owner1));
+
+        AsyncJobStatus other = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .setContextOwner(owner2));
+
+        assertEquals(JobState.QUEUED, first.getState());
+        assertEquals(JobState.WAITING, second.getState());
+        assertThat(second.getJobResult(), containsString(first.getId()));
+        assertEquals(JobState.QUEUED, other.getState());
+
+        assertEquals(0, manager.releaseWaitingJobs());
+
+        manager.cancelJob(first.getId());
+
+        assertEquals(1, manager.releaseWaitingJobs());
+        assertEquals(JobState.QUEUED, second.getState());
+    }
+
+    @Test
+    public void testCanceledWaitingJobIsNotReleased() throws Exception {
+        this.mockJobCreation();
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+
+        // Leave the manager suspended, so waiting jobs are only released when requested here
+        manager.suspend();
+
+        AsyncJobStatus first = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1"));
+
+        AsyncJobStatus second = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1"));
+
+        manager.cancelJob(second.getId());
+        manager.cancelJob(first.getId());
+
+        assertEquals(0, manager.releaseWaitingJobs());
+        assertEquals(JobState.CANCELED, second.getState());
+        verify(this.dispatcher, times(1)).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobCoalescedIntoPendingJob() throws Exception {
+        this.mockJobCreation();
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.suspend();
+
+        AsyncJobStatus first = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .setCoalescer(JobCoalescers.identicalArguments())
+            .setJobArgument("arg1", "val1"));
+
+        AsyncJobStatus second = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .setCoalescer(JobCoalescers.identicalArguments())
+            .setJobArgument("arg1", "val1"));
+
+        AsyncJobStatus other = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .setCoalescer(JobCoalescers.identicalArguments())
+            .setJobArgument("arg1", "val2"));
+
+        assertEquals(JobState.QUEUED, first.getState());
+        assertEquals(JobState.WAITING, second.getState());
+        assertEquals(first.getId(), second.getCoalescedInto());
+        assertThat(second.getJobResult(), containsString(first.getId()));
+        assertEquals(JobState.QUEUED, other.getState());
+        assertNull(other.getCoalescedInto());
+
+        // Coalesced jobs are never released on their own
+        assertEquals(0, manager.releaseWaitingJobs());
+        verify(this.dispatcher, times(2)).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobArgumentsUnionedIntoWaitingJob() throws Exception {
+        this.mockJobCreation();
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.suspend();
+
+        List<AsyncJobStatus> jobs = new ArrayList<>();
+        for (String id : List.of("a", "b", "a", "c")) {
+            jobs.add(manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+                .addConstraint(JobConstraints.uniqueByArguments("owner"))
+                .setCoalescer(JobCoalescers.unionByArgument("ids"))
+                .setJobArgument("owner", "owner-1")
+                .setJobArgument("ids", new String[] { id })));
+        }
+
+        AsyncJobStatus queued = jobs.get(0);
+        AsyncJobStatus waiting = jobs.get(1);
+
+        assertEquals(JobState.QUEUED, queued.getState());
+        assertEquals(JobState.WAITING, waiting.getState());
+        assertNull(waiting.getCoalescedInto());
+
+        // Subsumed by the queued job
+        assertEquals(queued.getId(), jobs.get(2).getCoalescedInto());
+
+        // The queued job may already be running, so new values are only merged into waiting jobs
+        assertEquals(waiting.getId(), jobs.get(3).getCoalescedInto());
+        assertArrayEquals(new String[] { "b", "c" }, waiting.getJobArguments().getAs("ids", String[].class));
+        assertArrayEquals(new String[] { "a" }, queued.getJobArguments().getAs("ids", String[].class));
+    }
+
+    @Test
+    public void testCoalescedJobsCompleteWithTargetJob() throws Exception {
+        this.mockJobCreation();
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.suspend();
+
+        AsyncJobStatus first = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .setCoalescer(JobCoalescers.identicalArguments())
+            .setJobArgument("arg1", "val1"));
+
+        AsyncJobStatus second = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY)
+            .setCoalescer(JobCoalescers.identicalArguments())
+            .setJobArgument("arg1", "val1"));
+
+        assertEquals(JobState.WAITING, second.getState());
+
+        manager.cancelJob(first.getId());
+
+        assertEquals(JobState.CANCELED, second.getState());
+        assertThat(second.getJobResult(), containsString(first.getId()));
+    }
+
     @Test
     public void jobStatusFound() {
         String jobId = "jobId";
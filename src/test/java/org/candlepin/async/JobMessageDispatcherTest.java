@@ -14,6 +14,8 @@
  */
 package org.candlepin.async;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
@@ -49,6 +51,7 @@ import org.mockito.quality.Strictness;
 
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 
@@ -298,4 +301,52 @@ public class JobMessageDispatcherTest {
         verify(session, times(1)).close();
     }
 
+    @Test
+    public void testPoolSizeCannotBeZero() {
+        this.config.setProperty(ConfigProperties.MESSAGING_SESSION_POOL_SIZE, "0");
+
+        assertThrows(ConfigurationException.class, this::buildJobMessageDispatcher);
+    }
+
+    @Test
+    public void testThreadsWaitForPooledSessions() throws Exception {
+        this.config.setProperty(ConfigProperties.MESSAGING_SESSION_POOL_SIZE, "1");
+        this.config.setProperty(ConfigProperties.MESSAGING_SESSION_POOL_MAX_WAIT, "10");
+
+        JobMessageDispatcher dispatcher = this.buildJobMessageDispatcher();
+
+        CPMSession session = this.mockCPMSession();
+        CPMProducer producer = mock(CPMProducer.class);
+
+        doReturn(session).when(this.sessionFactory).createSession(any(CPMSessionConfig.class));
+        doReturn(producer).when(session).createProducer(any(CPMProducerConfig.class));
+
+        dispatcher.postJobMessage(new JobMessage("job_id-1", "job_key-1"));
+
+        // The only session is leased to this thread until it commits
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        TaskExecutor executor = new TaskExecutor();
+        executor.execute(() -> {
+            try {
+                dispatcher.postJobMessage(new JobMessage("job_id-2", "job_key-2"));
+            }
+            catch (JobMessageDispatchException e) {
+                failure.set(e);
+            }
+        });
+
+        assertNotNull(failure.get());
+
+        dispatcher.commit();
+
+        executor.execute(() -> dispatcher.postJobMessage(new JobMessage("job_id-3", "job_key-3")))
+            .execute(dispatcher::commit)
+            .shutdown();
+
+        verify(this.sessionFactory, times(1)).createSession(any(CPMSessionConfig.class));
+        verify(producer, times(2)).send(anyString(), any(CPMMessage.class));
+        verify(session, times(2)).commit();
+        assertEquals(1, dispatcher.getSessionPool().getTimeoutCount());
+    }
+
 }
@@ -14,6 +14,7 @@
  */
 package org.candlepin.async;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -143,7 +144,7 @@ public class JobMessageReceiverTest {
 
     private JobMessageReceiver buildJobMessageReceiver() throws Exception {
         JobMessageReceiver receiver = new JobMessageReceiver(this.config, this.cpmSessionFactory,
-            this.mapper, this.unitOfWork);
+            this.mapper, this.unitOfWork, new JobLanes(this.config));
 
         receiver.initialize(this.jobManager);
 
@@ -155,7 +156,7 @@ public class JobMessageReceiverTest {
         this.config.clearProperty(ConfigProperties.ASYNC_JOBS_RECEIVE_ADDRESS);
 
         assertThrows(ConfigurationException.class, () -> new JobMessageReceiver(
-            this.config, this.cpmSessionFactory, this.mapper, this.unitOfWork));
+            this.config, this.cpmSessionFactory, this.mapper, this.unitOfWork, new JobLanes(this.config)));
     }
 
     @Test
@@ -197,6 +198,30 @@ public class JobMessageReceiverTest {
         assertEquals(filter, config.getMessageFilter());
     }
 
+    @Test
+    public void testCreatesConsumersForEachJobLane() throws Exception {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_RECEIVE_FILTER, "node = 'a'");
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_LANES, "bulk");
+        this.config.setProperty(ConfigProperties.laneConfig("bulk", ConfigProperties.ASYNC_JOBS_LANE_JOBS),
+            "ImportJob, ExportJob");
+        this.config.setProperty(ConfigProperties.laneConfig("bulk", ConfigProperties.ASYNC_JOBS_LANE_THREADS),
+            "2");
+
+        ArgumentCaptor<CPMConsumerConfig> captor = ArgumentCaptor.forClass(CPMConsumerConfig.class);
+
+        this.buildJobMessageReceiver();
+
+        // Two threads for the bulk lane, and one for the default lane
+        verify(this.session, times(3)).createConsumer(captor.capture());
+
+        assertThat(captor.getAllValues())
+            .extracting(CPMConsumerConfig::getMessageFilter)
+            .containsExactlyInAnyOrder(
+                "(node = 'a') AND (job_key IN ('ExportJob', 'ImportJob'))",
+                "(node = 'a') AND (job_key IN ('ExportJob', 'ImportJob'))",
+                "(node = 'a') AND (NOT (job_key IN ('ExportJob', 'ImportJob')))");
+    }
+
     @Test
     public void testMessageAckAndSessionCommitOnSuccess() throws Exception {
         CPMMessage message = this.createCPMMessage("test_id", "test_key");
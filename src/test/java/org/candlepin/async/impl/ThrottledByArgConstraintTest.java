@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.async.ActiveJobLookup;
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobConstraint;
+import org.candlepin.model.AsyncJobStatus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+
+
+public class ThrottledByArgConstraintTest {
+
+    private static final String TEST_KEY = "test_job";
+
+    private AsyncJobStatus buildInboundJob(String owner) {
+        return new AsyncJobStatus()
+            .setJobKey(TEST_KEY)
+            .setJobArguments(new JobArguments(Map.of("owner", JobArguments.serialize(owner))));
+    }
+
+    @Test
+    public void testLimitMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ThrottledByArgConstraint(0, "owner"));
+    }
+
+    @Test
+    public void testParamsMustBeProvided() {
+        assertThrows(IllegalArgumentException.class, () -> new ThrottledByArgConstraint(1));
+        assertThrows(IllegalArgumentException.class, () -> new ThrottledByArgConstraint(1, "owner", ""));
+    }
+
+    @Test
+    public void testThrottlesAtLimit() {
+        AsyncJobStatus inbound = this.buildInboundJob("owner-1");
+        Map<String, String> args = Map.of("owner", JobArguments.serialize("owner-1"));
+
+        ActiveJobLookup lookup = mock(ActiveJobLookup.class);
+        doReturn(List.of("job-1", "job-2")).when(lookup).fetchJobIdsByArguments(TEST_KEY, args);
+
+        JobConstraint constraint = new ThrottledByArgConstraint(2, "owner");
+        Collection<String> blocking = constraint.test(lookup, inbound);
+
+        assertThat(blocking).containsExactlyInAnyOrder("job-1", "job-2");
+    }
+
+    @Test
+    public void testDoesNotThrottleBelowLimit() {
+        AsyncJobStatus inbound = this.buildInboundJob("owner-1");
+        Map<String, String> args = Map.of("owner", JobArguments.serialize("owner-1"));
+
+        ActiveJobLookup lookup = mock(ActiveJobLookup.class);
+        doReturn(List.of("job-1")).when(lookup).fetchJobIdsByArguments(TEST_KEY, args);
+
+        JobConstraint constraint = new ThrottledByArgConstraint(2, "owner");
+
+        assertThat(constraint.test(lookup, inbound)).isEmpty();
+    }
+
+}
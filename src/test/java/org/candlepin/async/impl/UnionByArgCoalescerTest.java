@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobConfig;
+
+import org.junit.jupiter.api.Test;
+
+
+
+/**
+ * Test suite for the UnionByArgCoalescer class
+ */
+public class UnionByArgCoalescerTest {
+
+    private JobArguments args(Object... pairs) {
+        JobConfig config = JobConfig.forJob("dummy_job");
+
+        for (int i = 0; i < pairs.length; i += 2) {
+            config.setJobArgument((String) pairs[i], pairs[i + 1]);
+        }
+
+        return config.getJobArguments();
+    }
+
+    @Test
+    public void testParamIsRequired() {
+        assertThrows(IllegalArgumentException.class, () -> new UnionByArgCoalescer(null, "single"));
+        assertThrows(IllegalArgumentException.class, () -> new UnionByArgCoalescer("", "single"));
+    }
+
+    @Test
+    public void testValuesAreUnioned() {
+        UnionByArgCoalescer coalescer = new UnionByArgCoalescer("ids", null);
+
+        JobArguments existing = this.args("owner", "o1", "ids", new String[] { "a", "b" });
+        JobArguments inbound = this.args("owner", "o1", "ids", new String[] { "b", "c" });
+
+        JobArguments merged = coalescer.coalesce(existing, inbound);
+
+        assertArrayEquals(new String[] { "a", "b", "c" }, merged.getAs("ids", String[].class));
+        assertArrayEquals(new String[] { "a", "b" }, existing.getAs("ids", String[].class));
+    }
+
+    @Test
+    public void testSubsumedJobReturnsExistingArguments() {
+        UnionByArgCoalescer coalescer = new UnionByArgCoalescer("ids", null);
+
+        JobArguments existing = this.args("owner", "o1", "ids", new String[] { "a", "b" });
+        JobArguments inbound = this.args("owner", "o1", "ids", new String[] { "b" });
+
+        assertSame(existing, coalescer.coalesce(existing, inbound));
+    }
+
+    @Test
+    public void testJobsWithDifferentArgumentsAreNotMerged() {
+        UnionByArgCoalescer coalescer = new UnionByArgCoalescer("ids", null);
+
+        JobArguments existing = this.args("owner", "o1", "ids", new String[] { "a" });
+
+        assertNull(coalescer.coalesce(existing, this.args("owner", "o2", "ids", new String[] { "a" })));
+        assertNull(coalescer.coalesce(existing, this.args("ids", new String[] { "a" })));
+        assertNull(coalescer.coalesce(existing, this.args("owner", "o1")));
+    }
+
+    @Test
+    public void testSingleValuesAreMergedIntoArray() {
+        UnionByArgCoalescer coalescer = new UnionByArgCoalescer("ids", "id");
+
+        JobArguments existing = this.args("id", "a", "lazy", true);
+
+        assertSame(existing, coalescer.coalesce(existing, this.args("id", "a", "lazy", true)));
+        assertNull(coalescer.coalesce(existing, this.args("id", "b", "lazy", false)));
+
+        JobArguments merged = coalescer.coalesce(existing, this.args("id", "b", "lazy", true));
+
+        assertArrayEquals(new String[] { "a", "b" }, merged.getAs("ids", String[].class));
+        assertFalse(merged.containsKey("id"));
+    }
+}
@@ -260,6 +260,20 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
         assertTrue(result == null || result.isEmpty());
     }
 
+    @Test
+    public void testMatchingOnTargetJobKey() {
+        AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
+        AsyncJobStatus existing = this.persistJobStatus("existing", "alt_key", this.map("param1", "val1"));
+        this.persistJobStatus("same_key", "test_key", this.map("param1", "val1"));
+
+        JobConstraint constraint = new UniqueByArgConstraint("alt_key", Arrays.asList("param1"));
+        Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
+
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        assertThat(result, hasItem(existing.getId()));
+    }
+
     @Test
     public void testNoMatchOnKeyMismatchWithMultiParam() {
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
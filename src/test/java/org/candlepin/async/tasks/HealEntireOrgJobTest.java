@@ -16,22 +16,35 @@ package org.candlepin.async.tasks;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.candlepin.async.ActiveJobLookup;
 import org.candlepin.async.JobArguments;
 import org.candlepin.async.JobConfig;
+import org.candlepin.async.JobConfigValidationException;
+import org.candlepin.async.JobConstraint;
 import org.candlepin.async.JobExecutionContext;
 import org.candlepin.async.JobExecutionException;
+import org.candlepin.async.JobManager;
 import org.candlepin.audit.EventSink;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
 import org.candlepin.controller.Entitler;
+import org.candlepin.model.AsyncJobStatus;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.Owner;
@@ -46,38 +59,76 @@ import org.mockito.stubbing.Answer;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 
 
 public class HealEntireOrgJobTest {
 
+    private DevConfig config;
     private Entitler entitler;
     private EventSink eventSink;
     private ConsumerCurator consumerCurator;
     private OwnerCurator ownerCurator;
+    private JobManager jobManager;
     private I18n i18n;
 
     @BeforeEach
     public void init() {
         i18n = I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.READ_PROPERTIES | I18nFactory.FALLBACK);
 
+        this.config = TestConfig.defaults();
         this.entitler = mock(Entitler.class);
         this.eventSink = mock(EventSink.class);
         this.consumerCurator = mock(ConsumerCurator.class);
         this.ownerCurator = mock(OwnerCurator.class);
+        this.jobManager = mock(JobManager.class);
 
         EntityManager entityManager = mock(EntityManager.class);
         TestUtil.mockTransactionalFunctionality(entityManager, this.consumerCurator);
     }
 
     private HealEntireOrgJob createJob() {
-        return new HealEntireOrgJob(entitler, eventSink, consumerCurator, ownerCurator, i18n);
+        return new HealEntireOrgJob(config, entitler, eventSink, consumerCurator, ownerCurator, jobManager,
+            i18n);
+    }
+
+    /**
+     * Configures the owner curator to page through the UUIDs of the given consumers
+     */
+    private void mockConsumerUuids(Owner owner, List<Consumer> consumers) {
+        List<String> uuids = consumers.stream()
+            .map(Consumer::getUuid)
+            .sorted()
+            .collect(Collectors.toList());
+
+        doAnswer(invocation -> {
+            String after = invocation.getArgument(1);
+            String through = invocation.getArgument(2);
+            int limit = invocation.getArgument(3);
+
+            return uuids.stream()
+                .filter(uuid -> after == null || uuid.compareTo(after) > 0)
+                .filter(uuid -> through == null || uuid.compareTo(through) <= 0)
+                .limit(limit)
+                .collect(Collectors.toList());
+        }).when(this.ownerCurator).getConsumerUuids(eq(owner.getId()), any(), any(), anyInt());
+    }
+
+    private String sortedOutput(Map<String, String> outputByUuid) {
+        return outputByUuid.keySet()
+            .stream()
+            .sorted()
+            .map(outputByUuid::get)
+            .collect(Collectors.joining());
     }
 
     @Test
@@ -95,8 +146,7 @@ public class HealEntireOrgJobTest {
             }
         };
 
-        doReturn(List.of(consumer1.getUuid(), consumer2.getUuid()))
-            .when(ownerCurator).getConsumerUuids(owner);
+        this.mockConsumerUuids(owner, List.of(consumer1, consumer2));
 
         doAnswer(new Answer<Consumer>() {
             @Override
@@ -119,13 +169,12 @@ public class HealEntireOrgJobTest {
         verify(context, times(1)).setJobResult(captor.capture());
         Object result = captor.getValue();
 
-        StringBuilder expectedResult = new StringBuilder();
-        expectedResult.append("Successfully healed consumer with UUID: ").append(consumer1.getUuid())
-            .append("\n");
-        expectedResult.append("Successfully healed consumer with UUID: ").append(consumer2.getUuid())
-            .append("\n");
+        String expectedResult = this.sortedOutput(Map.of(
+            consumer1.getUuid(), "Successfully healed consumer with UUID: " + consumer1.getUuid() + "\n",
+            consumer2.getUuid(), "Successfully healed consumer with UUID: " + consumer2.getUuid() + "\n"));
 
-        assertEquals(expectedResult.toString(), result.toString());
+        assertEquals(expectedResult, result.toString());
+        verify(this.jobManager, never()).queueJob(any());
     }
 
     @Test
@@ -138,8 +187,7 @@ public class HealEntireOrgJobTest {
         Consumer consumer1 = TestUtil.createConsumer(owner);
         Consumer consumer2 = TestUtil.createConsumer(owner);
 
-        doReturn(List.of(consumer1.getUuid(), consumer2.getUuid()))
-            .when(ownerCurator).getConsumerUuids(owner);
+        this.mockConsumerUuids(owner, List.of(consumer1, consumer2));
 
         doAnswer(new Answer<Consumer>() {
 
@@ -170,13 +218,108 @@ public class HealEntireOrgJobTest {
         verify(context, times(1)).setJobResult(captor.capture());
         Object result = captor.getValue();
 
-        final StringBuilder expectedResult = new StringBuilder();
-        expectedResult.append("Healing failed for consumer with UUID: ").append(consumer1.getUuid())
-            .append("\n");
-        expectedResult.append("Successfully healed consumer with UUID: ").append(consumer2.getUuid())
-            .append("\n");
+        String expectedResult = this.sortedOutput(Map.of(
+            consumer1.getUuid(), "Healing failed for consumer with UUID: " + consumer1.getUuid() + "\n",
+            consumer2.getUuid(), "Successfully healed consumer with UUID: " + consumer2.getUuid() + "\n"));
+
+        assertEquals(expectedResult, result.toString());
+    }
+
+    @Test
+    public void testLargeOrgQueuesChunkJobs() throws Exception {
+        this.config.setProperty(ConfigProperties.jobConfig(HealEntireOrgJob.JOB_KEY,
+            HealEntireOrgJob.CFG_CHUNK_SIZE), "2");
+
+        Owner owner = this.createTestOwner(HealEntireOrgJob.OWNER_KEY, "log_level");
+        owner.setContentAccessMode("entitlement");
+        doReturn(owner).when(ownerCurator).getByKey(owner.getKey());
+
+        List<Consumer> consumers = List.of(TestUtil.createConsumer(owner), TestUtil.createConsumer(owner),
+            TestUtil.createConsumer(owner));
+        this.mockConsumerUuids(owner, consumers);
+
+        List<String> uuids = consumers.stream()
+            .map(Consumer::getUuid)
+            .sorted()
+            .collect(Collectors.toList());
+
+        JobConfig config = HealEntireOrgJob.createJobConfig().setOwner(owner).setEntitleDate(new Date());
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        when(context.getJobArguments()).thenReturn(config.getJobArguments());
+
+        this.createJob().execute(context);
+
+        ArgumentCaptor<JobConfig> captor = ArgumentCaptor.forClass(JobConfig.class);
+        verify(this.jobManager, times(2)).queueJob(captor.capture());
+
+        List<JobConfig> chunks = captor.getAllValues();
+        assertEquals(HealEntireOrgJob.CHUNK_JOB_KEY, chunks.get(0).getJobKey());
+        assertFalse(chunks.get(0).getJobArguments().containsKey(HealEntireOrgJob.CHUNK_AFTER_KEY));
+        assertEquals(uuids.get(1),
+            chunks.get(0).getJobArguments().getAsString(HealEntireOrgJob.CHUNK_THROUGH_KEY));
+        assertEquals(uuids.get(1),
+            chunks.get(1).getJobArguments().getAsString(HealEntireOrgJob.CHUNK_AFTER_KEY));
+        assertEquals(uuids.get(2),
+            chunks.get(1).getJobArguments().getAsString(HealEntireOrgJob.CHUNK_THROUGH_KEY));
+
+        verify(context).checkpoint(uuids.get(1), 2);
+        verify(context).checkpoint(uuids.get(2), 3);
+        verify(consumerCurator, never()).getConsumer(anyString());
+    }
+
+    @Test
+    public void testChunkJobResumesFromCheckpoint() throws Exception {
+        Owner owner = this.createTestOwner(HealEntireOrgJob.OWNER_KEY, "log_level");
+        owner.setContentAccessMode("entitlement");
+        doReturn(owner).when(ownerCurator).getByKey(owner.getKey());
+
+        List<Consumer> consumers = List.of(TestUtil.createConsumer(owner), TestUtil.createConsumer(owner),
+            TestUtil.createConsumer(owner), TestUtil.createConsumer(owner));
+        this.mockConsumerUuids(owner, consumers);
+
+        Map<String, Consumer> consumerMap = consumers.stream()
+            .collect(Collectors.toMap(Consumer::getUuid, consumer -> consumer));
+        doAnswer(invocation -> consumerMap.get((String) invocation.getArgument(0)))
+            .when(consumerCurator).getConsumer(anyString());
+
+        List<String> uuids = consumers.stream()
+            .map(Consumer::getUuid)
+            .sorted()
+            .collect(Collectors.toList());
+
+        // Chunk covering the second through fourth consumers, having already healed the second
+        JobConfig config = HealEntireOrgJob.createChunkJobConfig(1)
+            .setOwner(owner)
+            .setEntitleDate(new Date())
+            .setConsumerRange(uuids.get(0), uuids.get(3));
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        when(context.getJobArguments()).thenReturn(config.getJobArguments());
+        when(context.getCursor()).thenReturn(uuids.get(1));
+        when(context.getProgress()).thenReturn(1);
 
-        assertEquals(expectedResult.toString(), result.toString());
+        this.createJob().execute(context);
+
+        verify(consumerCurator, never()).getConsumer(uuids.get(0));
+        verify(consumerCurator, never()).getConsumer(uuids.get(1));
+        verify(consumerCurator).getConsumer(uuids.get(2));
+        verify(consumerCurator).getConsumer(uuids.get(3));
+        verify(context).checkpoint(uuids.get(3), 3);
+        verify(this.jobManager, never()).queueJob(any());
+    }
+
+    @Test
+    public void testChunkJobConfigRequiresRange() {
+        Owner owner = this.createTestOwner(HealEntireOrgJob.OWNER_KEY, "log_level");
+
+        JobConfig config = HealEntireOrgJob.createChunkJobConfig(1)
+            .setOwner(owner)
+            .setEntitleDate(new Date());
+
+        assertThrows(JobConfigValidationException.class, config::validate);
+        assertThrows(IllegalArgumentException.class,
+            () -> HealEntireOrgJob.createChunkJobConfig(1).setConsumerRange(null, null));
     }
 
     @Test
@@ -211,6 +354,35 @@ public class HealEntireOrgJobTest {
         assertThrows(JobExecutionException.class, () -> healEntireOrgJob.execute(context));
     }
 
+    @Test
+    public void testHealWaitsForChunkJobsOfEarlierHeal() {
+        Owner owner = this.createTestOwner(HealEntireOrgJob.OWNER_KEY, "log_level");
+        HealEntireOrgJob.HealEntireOrgJobConfig config = HealEntireOrgJob.createJobConfig()
+            .setOwner(owner)
+            .setEntitleDate(new Date());
+
+        AsyncJobStatus inbound = new AsyncJobStatus()
+            .setJobKey(HealEntireOrgJob.JOB_KEY)
+            .setJobArguments(config.getJobArguments());
+
+        // The earlier heal has finished, but one of its chunk jobs is still active
+        Map<String, String> ownerArgs = Map.of(HealEntireOrgJob.OWNER_KEY,
+            config.getJobArguments().getSerializedValue(HealEntireOrgJob.OWNER_KEY));
+
+        ActiveJobLookup lookup = mock(ActiveJobLookup.class);
+        doReturn(List.of("chunk_job")).when(lookup)
+            .fetchJobIdsByArguments(HealEntireOrgJob.CHUNK_JOB_KEY, ownerArgs);
+
+        Collection<JobConstraint> constraints = config.getConstraints();
+        List<String> blocking = constraints.stream()
+            .map(constraint -> constraint.test(lookup, inbound))
+            .filter(Objects::nonNull)
+            .flatMap(Collection::stream)
+            .collect(Collectors.toList());
+
+        assertEquals(List.of("chunk_job"), blocking);
+    }
+
     @Test
     public void testJobConfigSetOwnerAndEntitleDate() {
         Owner owner = this.createTestOwner(HealEntireOrgJob.OWNER_KEY, "log_level");
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.dto.api.server.v1.ConsumerDTO;
+import org.candlepin.model.HypervisorReport;
+import org.candlepin.util.ObjectMapperFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+
+
+public class HypervisorReportReaderTest {
+
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void init() {
+        this.mapper = ObjectMapperFactory.getObjectMapper();
+    }
+
+    private HypervisorReportReader createReader(String report) throws IOException {
+        return new HypervisorReportReader(this.mapper, new StringReader(report));
+    }
+
+    private static String hypervisor(String hypervisorId) {
+        return String.format("{\"name\": \"%1$s\", \"hypervisorId\": {\"hypervisorId\": \"%1$s\"}, " +
+            "\"guestIds\": [{\"guestId\": \"%1$s_guest\"}]}", hypervisorId);
+    }
+
+    private static List<String> readHypervisorIds(HypervisorReportReader reader) {
+        List<String> hypervisorIds = new ArrayList<>();
+        reader.forEachRemaining(dto -> hypervisorIds.add(dto.getHypervisorId().getHypervisorId()));
+
+        return hypervisorIds;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "hypervisors", "consumers" })
+    public void testReadsHypervisors(String field) throws Exception {
+        String report = String.format("{\"%s\": [%s, %s]}", field, hypervisor("host_a"),
+            hypervisor("host_b"));
+
+        try (HypervisorReportReader reader = this.createReader(report)) {
+            assertThat(readHypervisorIds(reader)).containsExactly("host_a", "host_b");
+        }
+    }
+
+    @Test
+    public void testReadsGuestIds() throws Exception {
+        String report = String.format("{\"hypervisors\": [%s]}", hypervisor("host_a"));
+
+        try (HypervisorReportReader reader = this.createReader(report)) {
+            ConsumerDTO dto = reader.next();
+
+            assertEquals("host_a", dto.getName());
+            assertEquals(1, dto.getGuestIds().size());
+            assertEquals("host_a_guest", dto.getGuestIds().get(0).getGuestId());
+            assertFalse(reader.hasNext());
+            assertThrows(NoSuchElementException.class, reader::next);
+        }
+    }
+
+    @Test
+    public void testSkipsOtherFields() throws Exception {
+        String report = String.format("{\"reporter\": {\"id\": \"virt-who\", \"tags\": [1, 2]}, " +
+            "\"hypervisors\": [%s, null, %s], \"trailer\": [{\"a\": 1}]}", hypervisor("host_a"),
+            hypervisor("host_b"));
+
+        try (HypervisorReportReader reader = this.createReader(report)) {
+            assertThat(readHypervisorIds(reader)).containsExactly("host_a", "host_b");
+        }
+    }
+
+    @Test
+    public void testEmptyHypervisorList() throws Exception {
+        try (HypervisorReportReader reader = this.createReader("{\"hypervisors\": []}")) {
+            assertEquals(0, reader.validate());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "[]", "\"report\"", "{}", "{\"hypervisors\": null}", "{\"other\": []}" })
+    public void testRejectsReportsWithoutHypervisors(String report) {
+        assertThrows(IOException.class, () -> this.createReader(report));
+    }
+
+    @Test
+    public void testValidateRejectsMalformedHypervisors() throws Exception {
+        String report = String.format("{\"hypervisors\": [%s, {\"name\": ]}", hypervisor("host_a"));
+
+        try (HypervisorReportReader reader = this.createReader(report)) {
+            assertThrows(IOException.class, reader::validate);
+        }
+    }
+
+    @Test
+    public void testIterationFailsOnTruncatedReport() throws Exception {
+        String report = String.format("{\"hypervisors\": [%s, ", hypervisor("host_a"));
+
+        try (HypervisorReportReader reader = this.createReader(report)) {
+            assertEquals("host_a", reader.next().getName());
+            assertThrows(UncheckedIOException.class, reader::hasNext);
+        }
+    }
+
+    @Test
+    public void testReadsStoredReport() throws Exception {
+        String json = String.format("{\"hypervisors\": [%s, %s]}", hypervisor("host_a"),
+            hypervisor("host_b"));
+        HypervisorReport report = new HypervisorReport().setReport(json);
+
+        try (HypervisorReportReader reader = new HypervisorReportReader(this.mapper, report.openReport())) {
+            assertThat(readHypervisorIds(reader)).containsExactly("host_a", "host_b");
+        }
+    }
+
+}
@@ -21,10 +21,13 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -41,9 +44,11 @@ import org.candlepin.audit.EventSink;
 import org.candlepin.auth.Principal;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.dto.api.server.v1.ConsumerDTO;
+import org.candlepin.dto.api.server.v1.HypervisorUpdateResultDTO;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ConsumerType;
@@ -51,6 +56,8 @@ import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
 import org.candlepin.model.ConsumerTypeCurator;
 import org.candlepin.model.EnvironmentCurator;
 import org.candlepin.model.HypervisorId;
+import org.candlepin.model.HypervisorReport;
+import org.candlepin.model.HypervisorReportCurator;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.resource.ConsumerResource;
@@ -66,6 +73,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 
@@ -78,6 +87,7 @@ public class HypervisorUpdateJobTest {
 
     private ObjectMapper objectMapper;
     private OwnerCurator ownerCurator;
+    private HypervisorReportCurator reportCurator;
     private ConsumerCurator consumerCurator;
     private ConsumerResource consumerResource;
     private ConsumerTypeCurator consumerTypeCurator;
@@ -91,10 +101,11 @@ public class HypervisorUpdateJobTest {
     private ModelTranslator translator;
 
     @BeforeEach
-    public void init() {
+    public void init() throws Exception {
         owner = mock(Owner.class);
         principal = mock(Principal.class);
         ownerCurator = mock(OwnerCurator.class);
+        reportCurator = mock(HypervisorReportCurator.class);
         consumerCurator = mock(ConsumerCurator.class);
         consumerResource = mock(ConsumerResource.class);
         consumerTypeCurator = mock(ConsumerTypeCurator.class);
@@ -114,6 +125,8 @@ public class HypervisorUpdateJobTest {
         when(consumerTypeCurator.getByLabel(eq(ConsumerTypeEnum.HYPERVISOR.getLabel()), anyBoolean()))
             .thenReturn(ctype);
         when(config.getBoolean(ConfigProperties.USE_SYSTEM_UUID_FOR_MATCHING)).thenReturn(true);
+        when(config.getBoolean(ConfigProperties.HYPERVISOR_UPDATE_SKIP_UNCHANGED)).thenReturn(true);
+        when(config.getInt(ConfigProperties.HYPERVISOR_UPDATE_CHUNK_SIZE)).thenReturn(100);
 
         when(owner.getKey()).thenReturn("joe");
         when(principal.getUsername()).thenReturn("joe user");
@@ -185,7 +198,7 @@ public class HypervisorUpdateJobTest {
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
         verify(consumerCurator).create(any(Consumer.class));
@@ -200,7 +213,7 @@ public class HypervisorUpdateJobTest {
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
         ArgumentCaptor<Consumer> argument = ArgumentCaptor.forClass(Consumer.class);
@@ -220,13 +233,14 @@ public class HypervisorUpdateJobTest {
         String hypervisorId = "uuid_999";
         hypervisor.setHypervisorId(new HypervisorId().setHypervisorId(hypervisorId));
 
-        when(consumerCurator.getHypervisor(anyString(), anyString())).thenReturn(hypervisor);
+        when(consumerCurator.getHypervisorsBulk(anyString(), anyCollection()))
+            .thenReturn(List.of(hypervisor));
 
         JobConfig config = createJobConfig(null);
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
         verify(consumerResource).checkForFactsUpdate(any(Consumer.class), any(ConsumerDTO.class));
@@ -244,13 +258,14 @@ public class HypervisorUpdateJobTest {
         String hypervisorId = "uuid_999";
         hypervisor.setHypervisorId(new HypervisorId().setHypervisorId(hypervisorId));
 
-        when(consumerCurator.getHypervisor(anyString(), anyString())).thenReturn(hypervisor);
+        when(consumerCurator.getHypervisorsBulk(anyString(), anyCollection()))
+            .thenReturn(List.of(hypervisor));
 
         JobConfig config = createJobConfig("updateReporterId");
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
         assertEquals("updateReporterId", hypervisor.getHypervisorId().getReporterId());
@@ -269,7 +284,8 @@ public class HypervisorUpdateJobTest {
         String hypervisorId = "existing_hypervisor_id";
         hypervisor.setHypervisorId(new HypervisorId().setHypervisorId(hypervisorId));
 
-        when(consumerCurator.getHypervisor(anyString(), anyString())).thenReturn(hypervisor);
+        when(consumerCurator.getConsumersBySystemUuids(anyString(), anyCollection()))
+            .thenReturn(Map.of("myuuid", hypervisor));
         when(config.getBoolean(ConfigProperties.USE_SYSTEM_UUID_FOR_MATCHING)).thenReturn(true);
 
         hypervisorJson =
@@ -285,7 +301,7 @@ public class HypervisorUpdateJobTest {
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
 
@@ -324,7 +340,7 @@ public class HypervisorUpdateJobTest {
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
 
@@ -350,7 +366,7 @@ public class HypervisorUpdateJobTest {
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
         verify(consumerResource, never()).createConsumerFromDTO(any(ConsumerDTO.class),
@@ -375,7 +391,7 @@ public class HypervisorUpdateJobTest {
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
     }
@@ -402,7 +418,8 @@ public class HypervisorUpdateJobTest {
         String hypervisorId = "existing_hypervisor_id";
         hypervisor.setHypervisorId(new HypervisorId().setHypervisorId(hypervisorId));
 
-        when(consumerCurator.getHypervisor(anyString(), anyString())).thenReturn(hypervisor);
+        when(consumerCurator.getConsumersBySystemUuids(anyString(), anyCollection()))
+            .thenReturn(Map.of("myuuid", hypervisor));
         when(config.getBoolean(ConfigProperties.USE_SYSTEM_UUID_FOR_MATCHING)).thenReturn(true);
 
         hypervisorJson =
@@ -417,7 +434,7 @@ public class HypervisorUpdateJobTest {
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
 
@@ -448,7 +465,7 @@ public class HypervisorUpdateJobTest {
         when(consumerCurator.getConsumerBySystemUuid(any(String.class), any(String.class)))
             .thenReturn(new Consumer());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
 
@@ -480,7 +497,8 @@ public class HypervisorUpdateJobTest {
 
         hypervisor = spy(hypervisor);
 
-        when(consumerCurator.getHypervisor(anyString(), anyString())).thenReturn(hypervisor);
+        when(consumerCurator.getHypervisorsBulk(anyString(), anyCollection()))
+            .thenReturn(List.of(hypervisor));
 
         hypervisorJson =
             "{\"hypervisors\":" +
@@ -494,7 +512,7 @@ public class HypervisorUpdateJobTest {
         JobExecutionContext ctx = mock(JobExecutionContext.class);
         when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
 
-        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator,
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
             hypervisorUpdateAction, objectMapper);
         job.execute(ctx);
 
@@ -509,6 +527,223 @@ public class HypervisorUpdateJobTest {
         assertEquals(currentDate, updated.getRHCloudProfileModified());
     }
 
+    @Test
+    public void testChunkSizeMustBePositive() {
+        when(config.getInt(ConfigProperties.HYPERVISOR_UPDATE_CHUNK_SIZE)).thenReturn(0);
+
+        assertThrows(ConfigurationException.class, () -> new HypervisorUpdateAction(consumerCurator,
+            consumerTypeCurator, consumerResource, subAdapter, translator, config, sink, evtFactory));
+    }
+
+    private Consumer createKnownHypervisor(String hypervisorId) {
+        Consumer hypervisor = new Consumer();
+        hypervisor.ensureUUID();
+        hypervisor.setId(hypervisorId + "-consumer");
+        hypervisor.setName("hypervisor_999");
+        hypervisor.setOwner(owner);
+        hypervisor.setType(consumerTypeCurator.getByLabel(ConsumerTypeEnum.HYPERVISOR.getLabel(), true));
+        hypervisor.setHypervisorId(new HypervisorId().setHypervisorId(hypervisorId));
+
+        return hypervisor;
+    }
+
+    private HypervisorUpdateResultDTO executeJob(HypervisorUpdateJob job) throws JobExecutionException {
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(createJobConfig(null).getJobArguments());
+
+        job.execute(ctx);
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(ctx).setJobResult(captor.capture());
+
+        return (HypervisorUpdateResultDTO) captor.getValue();
+    }
+
+    @Test
+    public void testUnchangedHypervisorIsOnlyCheckedIn() throws JobExecutionException {
+        when(ownerCurator.getByKey("joe")).thenReturn(owner);
+        Consumer hypervisor = this.createKnownHypervisor("uuid_999");
+
+        when(consumerCurator.getHypervisorsBulk(anyString(), anyCollection()))
+            .thenReturn(List.of(hypervisor));
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
+            hypervisorUpdateAction, objectMapper);
+
+        HypervisorUpdateResultDTO first = this.executeJob(job);
+        assertEquals(1, first.getUpdated().size());
+        assertNotNull(hypervisor.getHypervisorId().getReportHash());
+
+        // The same report again should only check the hypervisor in
+        HypervisorUpdateResultDTO second = this.executeJob(job);
+        assertEquals(0, second.getUpdated().size());
+        assertEquals(1, second.getUnchanged().size());
+
+        verify(consumerCurator, times(1)).update(any(Consumer.class));
+
+        ArgumentCaptor<Map<String, Date>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(consumerCurator, times(2)).updateLastCheckins(captor.capture());
+        assertTrue(captor.getValue().containsKey(hypervisor.getId()));
+    }
+
+    @Test
+    public void testChangedHypervisorIsReconciled() throws JobExecutionException {
+        when(ownerCurator.getByKey("joe")).thenReturn(owner);
+        Consumer hypervisor = this.createKnownHypervisor("uuid_999");
+
+        when(consumerCurator.getHypervisorsBulk(anyString(), anyCollection()))
+            .thenReturn(List.of(hypervisor));
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
+            hypervisorUpdateAction, objectMapper);
+
+        this.executeJob(job);
+        String reportHash = hypervisor.getHypervisorId().getReportHash();
+
+        hypervisorJson = "{\"hypervisors\":" +
+            "[{" +
+            "\"name\" : \"hypervisor_999\"," +
+            "\"hypervisorId\" : {\"hypervisorId\":\"uuid_999\"}," +
+            "\"guestIds\" : [{\"guestId\" : \"guestId_1_999\"}, {\"guestId\" : \"guestId_2_999\"}]" +
+            "}]}";
+
+        HypervisorUpdateResultDTO result = this.executeJob(job);
+        assertEquals(1, result.getUpdated().size());
+        assertEquals(2, hypervisor.getGuestIds().size());
+        assertNotEquals(reportHash, hypervisor.getHypervisorId().getReportHash());
+
+        // Changes made by anything other than a report must be reconciled on the next report
+        hypervisor.clearHypervisorReportHash();
+
+        result = this.executeJob(job);
+        assertEquals(1, result.getUnchanged().size());
+        verify(consumerCurator, times(3)).update(any(Consumer.class));
+    }
+
+    @Test
+    public void testFailedChunkIsReconciledPerHypervisor() throws JobExecutionException {
+        when(ownerCurator.getByKey("joe")).thenReturn(owner);
+        Consumer hypervisorA = this.createKnownHypervisor("host_a");
+        Consumer hypervisorB = this.createKnownHypervisor("host_b");
+
+        when(consumerCurator.getHypervisorsBulk(anyString(), anyCollection()))
+            .thenReturn(List.of(hypervisorA, hypervisorB));
+        when(consumerCurator.getHypervisor(eq("host_a"), anyString())).thenReturn(hypervisorA);
+        when(consumerCurator.getHypervisor(eq("host_b"), anyString())).thenReturn(hypervisorB);
+        doThrow(new RuntimeException("update failed")).when(consumerCurator).update(hypervisorA);
+
+        hypervisorJson = "{\"hypervisors\":" +
+            "[{\"name\" : \"host_a\", \"hypervisorId\" : {\"hypervisorId\":\"host_a\"}}," +
+            "{\"name\" : \"host_b\", \"hypervisorId\" : {\"hypervisorId\":\"host_b\"}}]}";
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
+            hypervisorUpdateAction, objectMapper);
+
+        HypervisorUpdateResultDTO result = this.executeJob(job);
+
+        // The chunk is rolled back as a whole, then each hypervisor is retried on its own
+        assertEquals(1, result.getFailedUpdate().size());
+        assertTrue(result.getFailedUpdate().iterator().next().startsWith("host_a"));
+        assertEquals(1, result.getUpdated().size());
+        assertEquals(hypervisorB.getUuid(), result.getUpdated().iterator().next().getUuid());
+        verify(consumerCurator).getHypervisor(eq("host_b"), anyString());
+    }
+
+    private HypervisorReport createReport(String reportId, String report) {
+        HypervisorReport hypervisorReport = new HypervisorReport()
+            .setId(reportId)
+            .setOwnerId(owner.getId())
+            .setReport(report);
+
+        when(reportCurator.get(reportId)).thenReturn(hypervisorReport);
+
+        return hypervisorReport;
+    }
+
+    private JobExecutionContext createReportJobContext(HypervisorReport report) {
+        JobConfig config = HypervisorUpdateJob.createJobConfig()
+            .setOwner(owner)
+            .setReport(report)
+            .setCreateMissing(true)
+            .setPrincipal(principal)
+            .setReporter(null);
+
+        JobExecutionContext ctx = mock(JobExecutionContext.class);
+        when(ctx.getJobArguments()).thenReturn(config.getJobArguments());
+
+        return ctx;
+    }
+
+    @Test
+    public void testReportConfigIsValid() {
+        HypervisorReport report = this.createReport("report-1", hypervisorJson);
+
+        JobConfig config = HypervisorUpdateJob.createJobConfig()
+            .setOwner(owner)
+            .setReport(report)
+            .setCreateMissing(true)
+            .setPrincipal(principal)
+            .setReporter(null);
+
+        assertDoesNotThrow(config::validate);
+    }
+
+    @Test
+    public void testStoredReportIsProcessedAndDeleted() throws JobExecutionException {
+        when(ownerCurator.getByKey("joe")).thenReturn(owner);
+        when(ownerCurator.findOwnerById("joe")).thenReturn(owner);
+
+        hypervisorJson = "{\"reporter\" : {\"name\" : \"virt-who\"}, \"hypervisors\":" +
+            "[{\"name\" : \"host_a\", \"hypervisorId\" : {\"hypervisorId\":\"host_a\"}}," +
+            "{\"name\" : \"host_b\", \"hypervisorId\" : {\"hypervisorId\":\"host_b\"}}]}";
+
+        HypervisorReport report = this.createReport("report-1", hypervisorJson);
+        JobExecutionContext ctx = this.createReportJobContext(report);
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
+            hypervisorUpdateAction, objectMapper);
+        job.execute(ctx);
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(ctx).setJobResult(captor.capture());
+
+        HypervisorUpdateResultDTO result = (HypervisorUpdateResultDTO) captor.getValue();
+        assertEquals(2, result.getCreated().size());
+
+        verify(consumerCurator, times(2)).create(any(Consumer.class));
+        verify(reportCurator).evict(report);
+        verify(reportCurator).deleteById("report-1");
+    }
+
+    @Test
+    public void testMissingReportIsNotProcessed() throws JobExecutionException {
+        when(ownerCurator.getByKey("joe")).thenReturn(owner);
+
+        HypervisorReport report = new HypervisorReport().setId("report-1");
+        JobExecutionContext ctx = this.createReportJobContext(report);
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
+            hypervisorUpdateAction, objectMapper);
+        job.execute(ctx);
+
+        verify(ctx).setJobResult(any(String.class));
+        verify(consumerCurator, never()).create(any(Consumer.class));
+    }
+
+    @Test
+    public void testFailedReportIsRetained() {
+        when(ownerCurator.getByKey("joe")).thenReturn(owner);
+
+        HypervisorReport report = this.createReport("report-1", "{\"hypervisors\": [{\"name\" : ");
+        JobExecutionContext ctx = this.createReportJobContext(report);
+
+        HypervisorUpdateJob job = new HypervisorUpdateJob(ownerCurator, reportCurator,
+            hypervisorUpdateAction, objectMapper);
+
+        assertThrows(JobExecutionException.class, () -> job.execute(ctx));
+        verify(reportCurator, never()).deleteById(anyString());
+    }
+
     @Test
     public void testGetExistingConsumerByHypervisorId() {
         Consumer hypervisor = new Consumer();
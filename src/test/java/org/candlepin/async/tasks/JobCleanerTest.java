@@ -32,6 +32,7 @@ import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
 import org.candlepin.model.AsyncJobStatus.JobState;
 import org.candlepin.model.AsyncJobStatusCurator.AsyncJobStatusQueryArguments;
+import org.candlepin.model.HypervisorReportCurator;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -55,15 +56,17 @@ public class JobCleanerTest {
 
     private DevConfig config;
     private JobManager jobManager;
+    private HypervisorReportCurator reportCurator;
 
     @BeforeEach
     public void init() {
         this.jobManager = mock(JobManager.class);
+        this.reportCurator = mock(HypervisorReportCurator.class);
         this.config = TestConfig.defaults();
     }
 
     private JobCleaner createJobInstance() {
-        return new JobCleaner(this.config, this.jobManager);
+        return new JobCleaner(this.config, this.jobManager, this.reportCurator);
     }
 
     private void setMaxAgeConfig(String cfgName, int maxAgeInMinutes) {
@@ -115,6 +118,8 @@ public class JobCleanerTest {
         ArgumentCaptor<AsyncJobStatusQueryArguments> nontermCaptor =
             ArgumentCaptor.forClass(AsyncJobStatusQueryArguments.class);
 
+        ArgumentCaptor<Date> reportCaptor = ArgumentCaptor.forClass(Date.class);
+
         long minTime = this.subtractMinutes(System.currentTimeMillis(), maxAge);
 
         JobExecutionContext context = mock(JobExecutionContext.class);
@@ -139,6 +144,10 @@ public class JobCleanerTest {
         this.verifyQueryArguments(termArgs, this.getExpectedTerminalJobStates(), minTime, maxTime);
         this.verifyQueryArguments(nontermArgs, this.getExpectedNonTerminalJobStates(), minTime, maxTime);
         this.verifyQueryArguments(runningArgs, this.getExpectedRunningJobStates(), minTime, maxTime);
+
+        // Stored hypervisor reports share the terminal job cutoff
+        verify(this.reportCurator, times(1)).deleteExpired(reportCaptor.capture());
+        assertEquals(termArgs.getEndDate(), reportCaptor.getValue());
     }
 
     private void verifyQueryArguments(AsyncJobStatusQueryArguments args, Set<JobState> expectedStates,
@@ -26,6 +26,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import org.candlepin.async.AsyncJob;
+import org.candlepin.async.JobArguments;
 import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobConfigValidationException;
 import org.candlepin.async.JobExecutionContext;
@@ -88,6 +89,45 @@ public class RefreshPoolsForProductJobTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    public void shouldRefreshAllProductsOfCoalescedJobs() throws Exception {
+        final AsyncJob job = new RefreshPoolsForProductJob(productCurator, subAdapter,
+            prodAdapter, refresherFactory);
+
+        final Product product1 = new Product("p1", VALID_NAME);
+        product1.setUuid("uuid-1");
+        final Product product2 = new Product("p2", VALID_NAME);
+        product2.setUuid("uuid-2");
+
+        final JobConfig config1 = RefreshPoolsForProductJob.createJobConfig()
+            .setProduct(product1)
+            .setLazy(false);
+        final JobConfig config2 = RefreshPoolsForProductJob.createJobConfig()
+            .setProduct(product2)
+            .setLazy(false);
+
+        final JobArguments merged = config1.getCoalescer()
+            .coalesce(config1.getJobArguments(), config2.getJobArguments());
+
+        final JobExecutionContext context = mock(JobExecutionContext.class);
+        doReturn(merged).when(context).getJobArguments();
+        doReturn(product1).when(productCurator).get(eq("uuid-1"));
+        doReturn(product2).when(productCurator).get(eq("uuid-2"));
+
+        Refresher mockRefresher = mock(Refresher.class);
+        doReturn(mockRefresher).when(this.refresherFactory).getRefresher(any(), any());
+        doReturn(mockRefresher).when(mockRefresher).add(any(Product.class));
+        doReturn(mockRefresher).when(mockRefresher).setLazyCertificateRegeneration(anyBoolean());
+
+        job.execute(context);
+
+        // Both products are refreshed in a single pass
+        verify(this.refresherFactory, times(1)).getRefresher(any(), any());
+        verify(mockRefresher).add(product1);
+        verify(mockRefresher).add(product2);
+        verify(mockRefresher, times(1)).run();
+    }
+
     @Test
     public void productAndLazyFlagMustBePresent() {
         final Product product = new Product(INVALID_ID, VALID_NAME);
@@ -149,6 +149,38 @@ public class RegenProductEntitlementCertsJobTest {
             .regenerateCertificatesOf(owner3, productId, lazyRegen);
     }
 
+    @Test
+    public void testExecutionOfCoalescedJobs() throws JobExecutionException {
+        Owner owner1 = new Owner()
+            .setKey("test_owner_key-1")
+            .setDisplayName("test_owner_name-1");
+        Owner owner2 = new Owner()
+            .setKey("test_owner_key-2")
+            .setDisplayName("test_owner_name-2");
+
+        doReturn(Util.asSet(owner1)).when(this.ownerCurator).getOwnersWithProducts(Set.of("prod-1"));
+        doReturn(Util.asSet(owner2)).when(this.ownerCurator).getOwnersWithProducts(Set.of("prod-2"));
+
+        JobConfig config1 = RegenProductEntitlementCertsJob.createJobConfig()
+            .setProductId("prod-1")
+            .setLazyRegeneration(true);
+        JobConfig config2 = RegenProductEntitlementCertsJob.createJobConfig()
+            .setProductId("prod-2")
+            .setLazyRegeneration(true);
+
+        JobArguments merged = config1.getCoalescer()
+            .coalesce(config1.getJobArguments(), config2.getJobArguments());
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        doReturn(merged).when(context).getJobArguments();
+
+        RegenProductEntitlementCertsJob testJob = this.buildTestJob();
+        testJob.execute(context);
+
+        verify(this.ecService, times(1)).regenerateCertificatesOf(owner1, "prod-1", true);
+        verify(this.ecService, times(1)).regenerateCertificatesOf(owner2, "prod-2", true);
+    }
+
     @Test
     public void testExecutionWithNoMatchingOwners() throws JobExecutionException {
         String productId = "test_prod_id";
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.async.JobArguments;
+import org.candlepin.async.JobConfig;
+import org.candlepin.async.JobConfigValidationException;
+import org.candlepin.async.JobExecutionContext;
+import org.candlepin.async.JobExecutionException;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.controller.ContentAccessMode;
+import org.candlepin.model.CertificateSerial;
+import org.candlepin.model.CertificateSerialCurator;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.ContentAccessCertificateCurator;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.SCACertificate;
+import org.candlepin.pki.certs.CertificateCreationException;
+import org.candlepin.pki.certs.SCACertificateGenerator;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.persistence.EntityManager;
+
+
+public class SCACertificateGenerationJobTest {
+
+    private DevConfig config;
+    private OwnerCurator ownerCurator;
+    private ConsumerCurator consumerCurator;
+    private ContentAccessCertificateCurator contentAccessCertificateCurator;
+    private CertificateSerialCurator serialCurator;
+    private SCACertificateGenerator generator;
+
+    @BeforeEach
+    public void init() {
+        this.config = TestConfig.defaults();
+        this.ownerCurator = mock(OwnerCurator.class);
+        this.consumerCurator = mock(ConsumerCurator.class);
+        this.contentAccessCertificateCurator = mock(ContentAccessCertificateCurator.class);
+        this.serialCurator = mock(CertificateSerialCurator.class);
+        this.generator = mock(SCACertificateGenerator.class);
+
+        TestUtil.mockTransactionalFunctionality(mock(EntityManager.class), this.consumerCurator);
+    }
+
+    private SCACertificateGenerationJob createJob() {
+        return new SCACertificateGenerationJob(this.config, this.ownerCurator, this.consumerCurator,
+            this.contentAccessCertificateCurator, this.serialCurator, this.generator);
+    }
+
+    private Owner createOwner(ContentAccessMode mode) {
+        Owner owner = TestUtil.createOwner();
+        owner.setContentAccessModeList(ContentAccessMode.ENTITLEMENT.toDatabaseValue() + "," +
+            ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue());
+        owner.setContentAccessMode(mode.toDatabaseValue());
+
+        doReturn(owner).when(this.ownerCurator).getByKey(owner.getKey());
+        return owner;
+    }
+
+    private JobExecutionContext createContext(Owner owner) {
+        JobConfig jobConfig = SCACertificateGenerationJob.createJobConfig()
+            .setOwner(owner);
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        when(context.getJobArguments()).thenReturn(jobConfig.getJobArguments());
+
+        return context;
+    }
+
+    private List<Consumer> mockConsumers(Owner owner, int count) {
+        List<Consumer> consumers = new ArrayList<>();
+        List<String> uuids = new ArrayList<>();
+
+        for (int i = 0; i < count; ++i) {
+            Consumer consumer = TestUtil.createConsumer(owner);
+            consumers.add(consumer);
+            uuids.add(consumer.getUuid());
+        }
+
+        doReturn(uuids).when(this.consumerCurator).getSystemConsumerUuidsByOwner(owner.getKey());
+        when(this.consumerCurator.findByUuids(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> batch = invocation.getArgument(0);
+            return consumers.stream()
+                .filter(consumer -> batch.contains(consumer.getUuid()))
+                .toList();
+        });
+
+        return consumers;
+    }
+
+    @Test
+    public void testJobConfigSetOwner() {
+        Owner owner = TestUtil.createOwner();
+
+        JobConfig jobConfig = SCACertificateGenerationJob.createJobConfig()
+            .setOwner(owner);
+
+        JobArguments args = jobConfig.getJobArguments();
+
+        assertThat(jobConfig.getContextOwner()).isEqualTo(owner);
+        assertThat(args.getAsString(SCACertificateGenerationJob.OWNER_KEY)).isEqualTo(owner.getKey());
+    }
+
+    @Test
+    public void testValidationRequiresOwner() {
+        JobConfig jobConfig = SCACertificateGenerationJob.createJobConfig();
+
+        assertThrows(JobConfigValidationException.class, jobConfig::validate);
+    }
+
+    @Test
+    public void testGeneratesCertificatesInBatches() throws Exception {
+        this.config.setProperty(ConfigProperties.jobConfig(SCACertificateGenerationJob.JOB_KEY,
+            SCACertificateGenerationJob.CFG_BATCH_SIZE), "2");
+
+        Owner owner = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        List<Consumer> consumers = this.mockConsumers(owner, 5);
+
+        when(this.generator.generate(eq(owner), anyCollection(), any(Executor.class)))
+            .thenAnswer(invocation -> {
+                Collection<Consumer> batch = invocation.getArgument(1);
+                return batch.stream()
+                    .map(consumer -> new SCACertificate())
+                    .toList();
+            });
+
+        JobExecutionContext context = this.createContext(owner);
+        this.createJob().execute(context);
+
+        ArgumentCaptor<Collection<Consumer>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(this.generator, times(3)).generate(eq(owner), captor.capture(), any(Executor.class));
+
+        List<Consumer> processed = new ArrayList<>();
+        captor.getAllValues().forEach(processed::addAll);
+        assertThat(processed).containsExactlyElementsOf(consumers);
+        assertThat(captor.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+
+        ArgumentCaptor<Object> result = ArgumentCaptor.forClass(Object.class);
+        verify(context).setJobResult(result.capture());
+        assertThat(result.getValue().toString()).contains("Generated 5 SCA certificate(s)");
+    }
+
+    @Test
+    public void testDetachesEachBatchAfterItIsCommitted() throws Exception {
+        this.config.setProperty(ConfigProperties.jobConfig(SCACertificateGenerationJob.JOB_KEY,
+            SCACertificateGenerationJob.CFG_BATCH_SIZE), "2");
+
+        Owner owner = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        List<Consumer> consumers = this.mockConsumers(owner, 3);
+        List<SCACertificate> certs = new ArrayList<>();
+
+        when(this.generator.generate(eq(owner), anyCollection(), any(Executor.class)))
+            .thenAnswer(invocation -> {
+                Collection<Consumer> batch = invocation.getArgument(1);
+                List<SCACertificate> generated = batch.stream()
+                    .map(consumer -> {
+                        SCACertificate cert = new SCACertificate();
+                        cert.setId(consumer.getUuid());
+                        cert.setConsumer(consumer);
+                        cert.setSerial(new CertificateSerial());
+                        return cert;
+                    })
+                    .toList();
+
+                certs.addAll(generated);
+                return generated;
+            });
+
+        this.createJob().execute(this.createContext(owner));
+
+        assertThat(certs).hasSize(3);
+        for (SCACertificate cert : certs) {
+            verify(this.contentAccessCertificateCurator).detach(cert);
+            verify(this.serialCurator).detach(cert.getSerial());
+        }
+
+        ArgumentCaptor<Collection<Consumer>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(this.consumerCurator, times(2)).batchDetach(captor.capture());
+
+        List<Consumer> detached = new ArrayList<>();
+        captor.getAllValues().forEach(detached::addAll);
+        assertThat(detached).containsExactlyElementsOf(consumers);
+
+        // The first batch must be released before the second batch is generated
+        InOrder order = inOrder(this.generator, this.consumerCurator);
+        order.verify(this.generator).generate(eq(owner), anyCollection(), any(Executor.class));
+        order.verify(this.consumerCurator).batchDetach(anyCollection());
+        order.verify(this.generator).generate(eq(owner), anyCollection(), any(Executor.class));
+        order.verify(this.consumerCurator).batchDetach(anyCollection());
+    }
+
+    @Test
+    public void testSkipsOwnersNotUsingSimpleContentAccess() throws Exception {
+        Owner owner = this.createOwner(ContentAccessMode.ENTITLEMENT);
+
+        this.createJob().execute(this.createContext(owner));
+
+        verify(this.generator, never()).generate(any(Owner.class), anyCollection(), any(Executor.class));
+        verify(this.consumerCurator, never()).getSystemConsumerUuidsByOwner(owner.getKey());
+    }
+
+    @Test
+    public void testFailsForNonexistentOwner() {
+        Owner owner = TestUtil.createOwner();
+
+        JobExecutionException exception = assertThrows(JobExecutionException.class,
+            () -> this.createJob().execute(this.createContext(owner)));
+
+        assertThat(exception.isTerminal()).isTrue();
+    }
+
+    @Test
+    public void testGenerationFailureIsRetryable() {
+        Owner owner = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        this.mockConsumers(owner, 3);
+
+        doThrow(new CertificateCreationException("failed"))
+            .when(this.generator).generate(eq(owner), anyCollection(), any(Executor.class));
+
+        JobExecutionException exception = assertThrows(JobExecutionException.class,
+            () -> this.createJob().execute(this.createContext(owner)));
+
+        assertThat(exception.isTerminal()).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        SCACertificateGenerationJob.CFG_BATCH_SIZE,
+        SCACertificateGenerationJob.CFG_THREADS
+    })
+    public void testInvalidConfigurationFailsJob(String cfgName) {
+        String configKey = ConfigProperties.jobConfig(SCACertificateGenerationJob.JOB_KEY, cfgName);
+        this.config.setProperty(configKey, "-1");
+        Owner owner = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+
+        JobExecutionException exception = assertThrows(JobExecutionException.class,
+            () -> this.createJob().execute(this.createContext(owner)));
+
+        assertThat(exception.isTerminal()).isTrue();
+    }
+
+}
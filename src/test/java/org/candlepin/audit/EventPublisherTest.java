@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyByte;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.auth.PrincipalData;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.util.ObjectMapperFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+/**
+ * Test suite for the EventPublisher class
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class EventPublisherTest {
+    private static final String EVENT_ADDRESS = MessageAddress.DEFAULT_EVENT_MESSAGE_ADDRESS;
+
+    @Mock
+    private ClientSessionFactory mockSessionFactory;
+    @Mock
+    private ClientSession mockClientSession;
+    @Mock
+    private ClientProducer mockClientProducer;
+    @Mock
+    private ClientMessage mockClientMessage;
+
+    @TempDir
+    public Path tempDir;
+
+    private DevConfig config;
+    private ObjectMapper mapper;
+    private Path spoolFile;
+
+    @BeforeEach
+    public void init() throws Exception {
+        this.spoolFile = this.tempDir.resolve("event-spool.log");
+
+        this.config = TestConfig.defaults();
+        this.config.setProperty(ConfigProperties.AUDIT_PUBLISHER_THREADS, "1");
+        this.config.setProperty(ConfigProperties.AUDIT_PUBLISHER_BATCH_SIZE, "10");
+        this.config.setProperty(ConfigProperties.AUDIT_PUBLISHER_RETRY_INTERVAL, "3600000");
+        this.config.setProperty(ConfigProperties.AUDIT_PUBLISHER_SPOOL_FILE, this.spoolFile.toString());
+
+        this.mapper = ObjectMapperFactory.getObjectMapper();
+
+        when(mockSessionFactory.createSession()).thenReturn(mockClientSession);
+        when(mockClientSession.createProducer()).thenReturn(mockClientProducer);
+        when(mockClientSession.createMessage(anyByte(), anyBoolean())).thenReturn(mockClientMessage);
+        when(mockClientMessage.getBodyBuffer()).thenAnswer(inv -> ActiveMQBuffers.fixedBuffer(2000));
+    }
+
+    private EventPublisher buildPublisher() throws ConfigurationException {
+        return new EventPublisher(this.config, new TestingActiveMQSessionFactory(null, mockSessionFactory),
+            this.mapper);
+    }
+
+    private static List<Event> events(int count) {
+        List<Event> events = new ArrayList<>();
+        PrincipalData principal = new PrincipalData("user", "admin");
+
+        for (int i = 0; i < count; ++i) {
+            events.add(new Event(Event.Type.CREATED, Event.Target.CONSUMER, principal)
+                .setEntityId("entity-" + i));
+        }
+
+        return events;
+    }
+
+    @Test
+    public void testBatchSizeMustBePositive() {
+        this.config.setProperty(ConfigProperties.AUDIT_PUBLISHER_BATCH_SIZE, "0");
+
+        assertThatThrownBy(this::buildPublisher).isInstanceOf(ConfigurationException.class);
+    }
+
+    @Test
+    public void testPublisherIsDisabledWithoutThreads() throws Exception {
+        this.config.setProperty(ConfigProperties.AUDIT_PUBLISHER_THREADS, "0");
+
+        EventPublisher publisher = this.buildPublisher();
+        publisher.start();
+
+        assertThat(publisher.isRunning()).isFalse();
+        assertThat(publisher.publish(events(1))).isFalse();
+    }
+
+    @Test
+    public void testPublishesEventsInBackground() throws Exception {
+        EventPublisher publisher = this.buildPublisher();
+        publisher.start();
+
+        assertThat(publisher.publish(events(3))).isTrue();
+
+        // Shutting down waits for the queued events to be published
+        publisher.shutdown();
+
+        verify(mockClientProducer, times(3)).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
+        verify(mockClientSession, atLeastOnce()).commit();
+
+        assertThat(publisher.getQueuedCount()).isEqualTo(3);
+        assertThat(publisher.getPublishedCount()).isEqualTo(3);
+        assertThat(publisher.getSpooledCount()).isZero();
+        assertThat(this.spoolFile).doesNotExist();
+    }
+
+    @Test
+    public void testSpoolsEventsWhileBrokerIsUnavailable() throws Exception {
+        doThrow(new ActiveMQException("broker unavailable")).when(mockClientSession).commit();
+
+        EventPublisher publisher = this.buildPublisher();
+        publisher.start();
+        publisher.publish(events(3));
+        publisher.shutdown();
+
+        assertThat(publisher.getPublishedCount()).isZero();
+        assertThat(publisher.getSpooledCount()).isEqualTo(3);
+        assertThat(this.readSpooledLines()).hasSize(3);
+    }
+
+    @Test
+    public void testReplaysSpooledEventsOnRecovery() throws Exception {
+        doThrow(new ActiveMQException("broker unavailable")).when(mockClientSession).commit();
+
+        EventPublisher publisher = this.buildPublisher();
+        publisher.start();
+        publisher.publish(events(3));
+        publisher.shutdown();
+
+        // Broker is back
+        doNothing().when(mockClientSession).commit();
+
+        EventPublisher restarted = this.buildPublisher();
+        restarted.replaySpool();
+
+        assertThat(restarted.getReplayedCount()).isEqualTo(3);
+        assertThat(restarted.getBatchCount()).isEqualTo(1);
+        assertThat(this.spoolFile).doesNotExist();
+        assertThat(EventSpool.getReplayFile(this.spoolFile)).doesNotExist();
+    }
+
+    @Test
+    public void testEventsWaitBehindSpooledEvents() throws Exception {
+        doThrow(new ActiveMQException("broker unavailable")).when(mockClientSession).commit();
+
+        EventPublisher publisher = this.buildPublisher();
+        publisher.start();
+        publisher.publish(events(2));
+        publisher.shutdown();
+
+        // Events published while the spool holds events are spooled behind them, rather than sent
+        EventPublisher restarted = this.buildPublisher();
+        restarted.start();
+        restarted.publish(events(1));
+        restarted.shutdown();
+
+        assertThat(restarted.getPublishedCount()).isZero();
+        assertThat(restarted.getSpooledCount()).isEqualTo(1);
+        assertThat(this.readSpooledLines()).hasSize(3);
+    }
+
+    /**
+     * Reads the spooled lines, including any moved aside by a replay attempt, oldest first
+     */
+    private List<String> readSpooledLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        for (Path file : List.of(EventSpool.getReplayFile(this.spoolFile), this.spoolFile)) {
+            if (Files.isRegularFile(file)) {
+                lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+        }
+
+        return lines;
+    }
+
+}
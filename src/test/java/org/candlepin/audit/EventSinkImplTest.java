@@ -14,6 +14,7 @@
  */
 package org.candlepin.audit;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.any;
@@ -22,9 +23,11 @@ import static org.mockito.Mockito.anyByte;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -52,6 +55,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.client.ClientMessage;
 import org.apache.activemq.artemis.api.core.client.ClientProducer;
@@ -67,6 +71,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.util.Collection;
 import java.util.List;
 
 
@@ -77,6 +82,8 @@ import java.util.List;
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class EventSinkImplTest {
+    private static final String EVENT_ADDRESS = MessageAddress.DEFAULT_EVENT_MESSAGE_ADDRESS;
+
     @Mock
     private ClientSessionFactory mockSessionFactory;
     @Mock
@@ -91,6 +98,8 @@ public class EventSinkImplTest {
     private ServerLocator mockLocator;
     @Mock
     private CandlepinModeManager mockModeManager;
+    @Mock
+    private EventPublisher mockPublisher;
 
     private ConsumerTypeCurator mockConsumerTypeCurator;
     private EnvironmentCurator mockEnvironmentCurator;
@@ -111,7 +120,7 @@ public class EventSinkImplTest {
         this.principal = TestUtil.createOwnerPrincipal();
         when(mockPrincipalProvider.get()).thenReturn(this.principal);
         when(mockSessionFactory.createSession()).thenReturn(mockClientSession);
-        when(mockClientSession.createProducer(anyString())).thenReturn(mockClientProducer);
+        when(mockClientSession.createProducer()).thenReturn(mockClientProducer);
         when(mockClientSession.createMessage(anyByte(), anyBoolean())).thenReturn(mockClientMessage);
         when(mockClientMessage.getBodyBuffer()).thenReturn(ActiveMQBuffers.fixedBuffer(2000));
         when(mockSessionFactory.getServerLocator()).thenReturn(mockLocator);
@@ -143,7 +152,7 @@ public class EventSinkImplTest {
      */
     private EventSinkImpl createEventSink(final ClientSessionFactory sessionFactory) throws Exception {
         EventSinkImpl sink = new EventSinkImpl(eventFilter, factory, mapper,
-            TestConfig.defaults(), this.amqSessionFactory, mockModeManager);
+            TestConfig.defaults(), this.amqSessionFactory, mockModeManager, mockPublisher);
         return sink;
     }
 
@@ -155,7 +164,7 @@ public class EventSinkImplTest {
         ArgumentCaptor<ClientMessage> argumentCaptor = ArgumentCaptor.forClass(ClientMessage.class);
         eventSinkImpl.queueEvent(mock(Event.class));
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(argumentCaptor.capture());
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), argumentCaptor.capture());
 
         ClientMessage message = argumentCaptor.getValue();
         assertNotNull(message);
@@ -175,7 +184,7 @@ public class EventSinkImplTest {
         Event event = mock(Event.class);
 
         eventSinkImpl.queueEvent(event);
-        verify(mockClientProducer, never()).send(any(ClientMessage.class));
+        verify(mockClientProducer, never()).send(anyString(), any(ClientMessage.class));
     }
 
     @Test
@@ -183,14 +192,14 @@ public class EventSinkImplTest {
         Consumer consumer = TestUtil.createConsumer();
         eventSinkImpl.emitConsumerCreated(consumer);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
     }
 
     @Test
     public void ownerCreatedShouldEmitSuccessfully() throws Exception {
         eventSinkImpl.emitOwnerCreated(o);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
     }
 
     @Test
@@ -199,7 +208,7 @@ public class EventSinkImplTest {
 
         eventSinkImpl.emitPoolCreated(pool);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
     }
 
     @Test
@@ -207,7 +216,7 @@ public class EventSinkImplTest {
         Consumer consumer = TestUtil.createConsumer();
         eventSinkImpl.emitExportCreated(consumer);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
     }
 
     @Test
@@ -218,7 +227,7 @@ public class EventSinkImplTest {
 
         eventSinkImpl.emitImportCreated(owner);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
     }
 
     @Test
@@ -226,7 +235,7 @@ public class EventSinkImplTest {
         ActivationKey key = TestUtil.createActivationKey(this.o, null);
         eventSinkImpl.emitActivationKeyCreated(key);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
     }
 
     @Test
@@ -237,7 +246,7 @@ public class EventSinkImplTest {
         ActivationKey key = TestUtil.createActivationKey(this.o, List.of(pool1, pool2));
         eventSinkImpl.emitActivationKeyCreated(key);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
     }
 
     @Test
@@ -246,7 +255,7 @@ public class EventSinkImplTest {
         Rules newRules = new Rules(TestUtil.createRulesBlob(2));
         eventSinkImpl.emitRulesModified(oldRules, newRules);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
     }
 
     @Test
@@ -254,7 +263,124 @@ public class EventSinkImplTest {
         Rules oldRules = new Rules(TestUtil.createRulesBlob(1));
         eventSinkImpl.emitRulesDeleted(oldRules);
         eventSinkImpl.sendEvents();
-        verify(mockClientProducer).send(any(ClientMessage.class));
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
+    }
+
+    @Test
+    public void sessionsAreReusedAcrossEventSinks() throws Exception {
+        eventSinkImpl.emitOwnerCreated(o);
+        eventSinkImpl.sendEvents();
+
+        EventSinkImpl other = createEventSink(mockSessionFactory);
+        other.emitOwnerCreated(o);
+        other.rollback();
+
+        verify(mockSessionFactory, times(1)).createSession();
+        verify(mockClientSession, times(1)).createProducer();
+        verify(mockClientSession, times(1)).commit();
+        verify(mockClientSession, never()).close();
+
+        assertThat(this.amqSessionFactory.getEgressProducerPool().getIdleCount()).isEqualTo(1);
+        assertThat(this.amqSessionFactory.getEgressProducerPool().getLeasedCount()).isZero();
+    }
+
+    @Test
+    public void sessionIsOnlyLeasedWhileSending() throws Exception {
+        eventSinkImpl.emitOwnerCreated(o);
+        eventSinkImpl.emitOwnerMigrated(o);
+
+        // Queued events are held by the sink until they're committed
+        verify(mockSessionFactory, never()).createSession();
+        assertThat(this.amqSessionFactory.getEgressProducerPool().getLeasedCount()).isZero();
+
+        eventSinkImpl.sendEvents();
+
+        verify(mockClientProducer, times(2)).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
+        verify(mockClientSession, times(1)).commit();
+        assertThat(this.amqSessionFactory.getEgressProducerPool().getLeasedCount()).isZero();
+    }
+
+    @Test
+    public void rolledBackEventsAreNeverSent() throws Exception {
+        eventSinkImpl.emitOwnerCreated(o);
+        eventSinkImpl.rollback();
+        eventSinkImpl.sendEvents();
+
+        verify(mockSessionFactory, never()).createSession();
+        verify(mockClientProducer, never()).send(anyString(), any(ClientMessage.class));
+    }
+
+    @Test
+    public void sessionIsDiscardedWhenSendFails() throws Exception {
+        doThrow(new ActiveMQException("Send failed")).when(mockClientProducer)
+            .send(anyString(), any(ClientMessage.class));
+
+        eventSinkImpl.emitOwnerCreated(o);
+        eventSinkImpl.sendEvents();
+
+        verify(mockClientSession, never()).commit();
+        verify(mockClientSession, times(1)).close();
+
+        assertThat(this.amqSessionFactory.getEgressProducerPool().getIdleCount()).isZero();
+        assertThat(this.amqSessionFactory.getEgressProducerPool().getLeasedCount()).isZero();
+    }
+
+    @Test
+    public void sessionIsDiscardedWhenCommitFails() throws Exception {
+        doThrow(new RuntimeException("Commit failed")).when(mockClientSession).commit();
+
+        eventSinkImpl.emitOwnerCreated(o);
+        eventSinkImpl.sendEvents();
+
+        verify(mockClientSession, times(1)).close();
+
+        assertThat(this.amqSessionFactory.getEgressProducerPool().getIdleCount()).isZero();
+        assertThat(this.amqSessionFactory.getEgressProducerPool().getLeasedCount()).isZero();
+    }
+
+    @Test
+    public void committedEventsAreHandedToRunningPublisher() throws Exception {
+        doReturn(true).when(mockPublisher).isRunning();
+        doReturn(true).when(mockPublisher).publish(any());
+
+        eventSinkImpl.emitOwnerCreated(o);
+        eventSinkImpl.emitOwnerMigrated(o);
+
+        verify(mockPublisher, never()).publish(any());
+
+        eventSinkImpl.sendEvents();
+
+        ArgumentCaptor<Collection<Event>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(mockPublisher).publish(captor.capture());
+
+        assertThat(captor.getValue())
+            .extracting(Event::getType)
+            .containsExactly(Event.Type.CREATED, Event.Type.MODIFIED);
+
+        verify(mockSessionFactory, never()).createSession();
+    }
+
+    @Test
+    public void rolledBackEventsAreNotHandedToPublisher() throws Exception {
+        doReturn(true).when(mockPublisher).isRunning();
+
+        eventSinkImpl.emitOwnerCreated(o);
+        eventSinkImpl.rollback();
+        eventSinkImpl.sendEvents();
+
+        verify(mockPublisher, never()).publish(any());
+    }
+
+    @Test
+    public void eventsAreSentDirectlyWhenPublisherStops() throws Exception {
+        doReturn(true).when(mockPublisher).isRunning();
+        doReturn(false).when(mockPublisher).publish(any());
+
+        eventSinkImpl.emitOwnerCreated(o);
+        eventSinkImpl.sendEvents();
+
+        verify(mockClientProducer).send(eq(EVENT_ADDRESS), any(ClientMessage.class));
+        verify(mockClientSession).commit();
     }
 
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.candlepin.util.ObjectMapperFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+/**
+ * Test suite for the EventSpool class
+ */
+public class EventSpoolTest {
+
+    @TempDir
+    public Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    public void init() {
+        this.file = this.tempDir.resolve("spool").resolve("events.log");
+    }
+
+    private EventSpool buildSpool() {
+        return new EventSpool(this.file, ObjectMapperFactory.getObjectMapper());
+    }
+
+    private static List<EventMessage> messages(int first, int count) {
+        List<EventMessage> messages = new ArrayList<>();
+        for (int i = first; i < first + count; ++i) {
+            messages.add(new EventMessage("{\"event\": " + i + ",\n\"text\": \"line\\nbreak\"}",
+                Event.Type.CREATED, i % 2 == 0 ? Event.Target.CONSUMER : null));
+        }
+
+        return messages;
+    }
+
+    @Test
+    public void testReplaysEventsInOrder() throws Exception {
+        EventSpool spool = this.buildSpool();
+        assertThat(spool.hasPending()).isFalse();
+
+        spool.append(messages(0, 3));
+        spool.append(messages(3, 2));
+
+        assertThat(spool.hasPending()).isTrue();
+        assertThat(Files.readAllLines(this.file, StandardCharsets.UTF_8)).hasSize(5);
+
+        List<List<EventMessage>> batches = new ArrayList<>();
+        int count = spool.replay(2, batches::add);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(batches).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(batches.stream().flatMap(List::stream).map(EventMessage::getBody))
+            .containsExactlyElementsOf(messages(0, 5).stream().map(EventMessage::getBody).toList());
+        assertThat(batches.get(0).get(0).getTarget()).isEqualTo(Event.Target.CONSUMER);
+        assertThat(batches.get(0).get(1).getTarget()).isNull();
+
+        assertThat(spool.hasPending()).isFalse();
+        assertThat(this.file).doesNotExist();
+    }
+
+    @Test
+    public void testFailedReplayKeepsRemainingEvents() throws Exception {
+        EventSpool spool = this.buildSpool();
+        spool.append(messages(0, 5));
+
+        List<EventMessage> sent = new ArrayList<>();
+        int count = spool.replay(2, batch -> {
+            if (!sent.isEmpty()) {
+                throw new IllegalStateException("broker unavailable");
+            }
+
+            sent.addAll(batch);
+        });
+
+        assertThat(count).isEqualTo(2);
+        assertThat(spool.hasPending()).isTrue();
+        assertThat(Files.readAllLines(EventSpool.getReplayFile(this.file), StandardCharsets.UTF_8))
+            .hasSize(3);
+
+        List<EventMessage> replayed = new ArrayList<>();
+        assertThat(spool.replay(10, replayed::addAll)).isEqualTo(3);
+        assertThat(replayed).extracting(EventMessage::getBody)
+            .containsExactlyElementsOf(messages(2, 3).stream().map(EventMessage::getBody).toList());
+    }
+
+    @Test
+    public void testEventsSpooledDuringReplayAreReplayedAfterIt() throws Exception {
+        EventSpool spool = this.buildSpool();
+        spool.append(messages(0, 3));
+
+        List<EventMessage> replayed = new ArrayList<>();
+        int count = spool.replay(2, batch -> {
+            // Spooling is not blocked while the batch is being sent
+            if (replayed.isEmpty()) {
+                spool.append(messages(3, 2));
+            }
+
+            replayed.addAll(batch);
+        });
+
+        assertThat(count).isEqualTo(5);
+        assertThat(replayed).extracting(EventMessage::getBody)
+            .containsExactlyElementsOf(messages(0, 5).stream().map(EventMessage::getBody).toList());
+        assertThat(spool.hasPending()).isFalse();
+        assertThat(this.file).doesNotExist();
+        assertThat(EventSpool.getReplayFile(this.file)).doesNotExist();
+    }
+
+    @Test
+    public void testFailedReplayIsResumedBeforeNewerEvents() throws Exception {
+        EventSpool spool = this.buildSpool();
+        spool.append(messages(0, 2));
+
+        spool.replay(1, batch -> {
+            throw new IllegalStateException("broker unavailable");
+        });
+
+        spool.append(messages(2, 1));
+
+        List<EventMessage> replayed = new ArrayList<>();
+        assertThat(this.buildSpool().hasPending()).isTrue();
+        assertThat(spool.replay(10, replayed::addAll)).isEqualTo(3);
+        assertThat(replayed).extracting(EventMessage::getBody)
+            .containsExactlyElementsOf(messages(0, 3).stream().map(EventMessage::getBody).toList());
+    }
+
+    @Test
+    public void testAppendIfPending() throws Exception {
+        EventSpool spool = this.buildSpool();
+
+        assertThat(spool.appendIfPending(messages(0, 1))).isFalse();
+        assertThat(this.file).doesNotExist();
+
+        spool.append(messages(0, 1));
+        assertThat(spool.appendIfPending(messages(1, 1))).isTrue();
+        assertThat(Files.readAllLines(this.file, StandardCharsets.UTF_8)).hasSize(2);
+    }
+
+    @Test
+    public void testExistingSpoolIsPendingOnStartup() throws Exception {
+        this.buildSpool().append(messages(0, 1));
+
+        EventSpool spool = this.buildSpool();
+        assertThat(spool.hasPending()).isTrue();
+
+        List<EventMessage> replayed = new ArrayList<>();
+        assertThat(spool.replay(10, replayed::addAll)).isEqualTo(1);
+    }
+
+    @Test
+    public void testUnreadableLinesAreSkipped() throws Exception {
+        EventSpool spool = this.buildSpool();
+        spool.append(messages(0, 1));
+        Files.writeString(this.file, "{\"type\": \"CREA", StandardOpenOption.APPEND);
+        spool.append(messages(1, 1));
+
+        List<EventMessage> replayed = new ArrayList<>();
+        spool.replay(10, replayed::addAll);
+
+        assertThat(replayed).extracting(EventMessage::getBody)
+            .containsExactly(messages(0, 1).get(0).getBody(), messages(1, 1).get(0).getBody());
+    }
+
+}
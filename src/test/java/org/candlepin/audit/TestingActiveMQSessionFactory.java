@@ -14,10 +14,8 @@
  */
 package org.candlepin.audit;
 
-import static org.mockito.Mockito.mock;
-
 import org.candlepin.async.impl.ActiveMQSessionFactory;
-import org.candlepin.config.Configuration;
+import org.candlepin.config.TestConfig;
 
 import org.apache.activemq.artemis.api.core.client.ClientSession;
 import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
@@ -34,7 +32,7 @@ public class TestingActiveMQSessionFactory extends ActiveMQSessionFactory {
 
     public TestingActiveMQSessionFactory(ClientSessionFactory ingressFactoryMock,
         ClientSessionFactory egressFactoryMock) {
-        super(mock(Configuration.class));
+        super(TestConfig.defaults());
         this.ingressSessionFactory = ingressFactoryMock;
         this.egressSessionFactory = egressFactoryMock;
     }
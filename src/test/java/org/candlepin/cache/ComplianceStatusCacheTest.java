@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+
+public class ComplianceStatusCacheTest {
+
+    private DevConfig config;
+
+    @BeforeEach
+    public void beforeEach() {
+        this.config = TestConfig.defaults();
+    }
+
+    private ComplianceStatusCache.Key createKey(String consumerUuid) {
+        return new ComplianceStatusCache.Key(consumerUuid, TestUtil.randomString());
+    }
+
+    @ParameterizedTest(name = "{displayName} {index}: {0}")
+    @ValueSource(longs = { 0L, -1000L })
+    public void testCacheCreationWithInvalidDuration(long duration) {
+        this.config.setProperty(ConfigProperties.CACHE_COMPLIANCE_STATUS_TTL, String.valueOf(duration));
+
+        assertThrows(ConfigurationException.class, () -> new ComplianceStatusCache(this.config));
+    }
+
+    @Test
+    public void testCacheCreationWithInvalidMaxEntriesConfig() {
+        this.config.setProperty(ConfigProperties.CACHE_COMPLIANCE_STATUS_MAX_ENTRIES, "-100");
+
+        assertThrows(ConfigurationException.class, () -> new ComplianceStatusCache(this.config));
+    }
+
+    @Test
+    public void testKeyRequiresConsumerUuidAndHash() {
+        assertThrows(NullPointerException.class, () -> new ComplianceStatusCache.Key(null, "hash"));
+        assertThrows(NullPointerException.class, () -> new ComplianceStatusCache.Key("uuid", null));
+    }
+
+    @Test
+    public void testGetWithInvalidKey() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(null));
+    }
+
+    @Test
+    public void testGetWithStatusInCache() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config);
+        ComplianceStatusCache.Key key = this.createKey("uuid");
+        ComplianceStatusDTO expected = new ComplianceStatusDTO();
+
+        cache.put(key, expected);
+
+        assertSame(expected, cache.get(key));
+        assertSame(expected, cache.get(new ComplianceStatusCache.Key(key.consumerUuid(), key.inputHash())));
+    }
+
+    @Test
+    public void testGetWithStatusNotInCache() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config);
+        cache.put(this.createKey("uuid"), new ComplianceStatusDTO());
+
+        assertNull(cache.get(this.createKey("uuid")));
+    }
+
+    @Test
+    public void testPutWithInvalidStatus() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.put(this.createKey("uuid"), null));
+    }
+
+    @Test
+    public void testCacheDisabledWithZeroMaxEntries() throws Exception {
+        this.config.setProperty(ConfigProperties.CACHE_COMPLIANCE_STATUS_MAX_ENTRIES, "0");
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config);
+        ComplianceStatusCache.Key key = this.createKey("uuid");
+
+        cache.put(key, new ComplianceStatusDTO());
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testRemoveConsumer() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config);
+        ComplianceStatusCache.Key key1 = this.createKey("uuid-1");
+        ComplianceStatusCache.Key key2 = this.createKey("uuid-1");
+        ComplianceStatusCache.Key key3 = this.createKey("uuid-2");
+
+        cache.put(key1, new ComplianceStatusDTO());
+        cache.put(key2, new ComplianceStatusDTO());
+        cache.put(key3, new ComplianceStatusDTO());
+
+        cache.removeConsumer("uuid-1");
+
+        assertNull(cache.get(key1));
+        assertNull(cache.get(key2));
+        assertThat(cache.get(key3)).isNotNull();
+    }
+
+    @Test
+    public void testRemoveAll() throws Exception {
+        ComplianceStatusCache cache = new ComplianceStatusCache(this.config);
+        ComplianceStatusCache.Key key1 = this.createKey("uuid-1");
+        ComplianceStatusCache.Key key2 = this.createKey("uuid-2");
+
+        cache.put(key1, new ComplianceStatusDTO());
+        cache.put(key2, new ComplianceStatusDTO());
+
+        cache.removeAll();
+
+        assertNull(cache.get(key1));
+        assertNull(cache.get(key2));
+    }
+
+}
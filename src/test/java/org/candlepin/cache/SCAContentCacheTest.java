@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.model.Environment;
+import org.candlepin.model.Owner;
+import org.candlepin.model.dto.Product;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class SCAContentCacheTest {
+
+    private DevConfig config;
+
+    @BeforeEach
+    public void beforeEach() {
+        this.config = TestConfig.defaults();
+    }
+
+    private Owner createOwner() {
+        return new Owner()
+            .setId(TestUtil.randomString())
+            .setKey(TestUtil.randomString())
+            .setLastContentUpdate(new Date());
+    }
+
+    private Environment createEnvironment(Owner owner) {
+        String id = TestUtil.randomString();
+
+        return new Environment()
+            .setId(id)
+            .setName("env-" + id)
+            .setOwner(owner);
+    }
+
+    private Product createProduct() {
+        Product product = new Product();
+        product.setId(TestUtil.randomString());
+
+        return product;
+    }
+
+    @ParameterizedTest(name = "{displayName} {index}: {0}")
+    @ValueSource(longs = { 0L, -1000L })
+    public void testCacheCreationWithInvalidDuration(long duration) {
+        this.config.setProperty(ConfigProperties.CACHE_SCA_CONTENT_TTL, String.valueOf(duration));
+
+        assertThrows(ConfigurationException.class, () -> new SCAContentCache(this.config));
+    }
+
+    @Test
+    public void testCacheCreationWithInvalidMaxEntriesConfig() {
+        this.config.setProperty(ConfigProperties.CACHE_SCA_CONTENT_MAX_ENTRIES, "-100");
+
+        assertThrows(ConfigurationException.class, () -> new SCAContentCache(this.config));
+    }
+
+    @Test
+    public void testKeyRequiresOwner() {
+        assertThrows(IllegalArgumentException.class,
+            () -> SCAContentCache.Key.of(null, List.of(), List.of()));
+    }
+
+    @Test
+    public void testKeysMatchForEquivalentInputs() {
+        Owner owner = this.createOwner();
+        Environment env = this.createEnvironment(owner);
+
+        SCAContentCache.Key key1 = SCAContentCache.Key.of(owner, List.of(env), List.of("x86_64", "i386"));
+        SCAContentCache.Key key2 = SCAContentCache.Key.of(owner, List.of(env), List.of("i386", "x86_64"));
+
+        assertThat(key1).isEqualTo(key2);
+    }
+
+    @Test
+    public void testKeysDifferByEnvironmentOrder() {
+        Owner owner = this.createOwner();
+        Environment env1 = this.createEnvironment(owner);
+        Environment env2 = this.createEnvironment(owner);
+
+        SCAContentCache.Key key1 = SCAContentCache.Key.of(owner, List.of(env1, env2), List.of());
+        SCAContentCache.Key key2 = SCAContentCache.Key.of(owner, List.of(env2, env1), List.of());
+
+        assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void testKeysDifferByLastContentUpdate() {
+        Owner owner = this.createOwner()
+            .setLastContentUpdate(new Date(System.currentTimeMillis() - 10000L));
+
+        SCAContentCache.Key key1 = SCAContentCache.Key.of(owner, List.of(), List.of());
+        owner.syncLastContentUpdate();
+        SCAContentCache.Key key2 = SCAContentCache.Key.of(owner, List.of(), List.of());
+
+        assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void testGetWithInvalidKey() throws Exception {
+        SCAContentCache cache = new SCAContentCache(this.config);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(null));
+    }
+
+    @Test
+    public void testGetWithContentInCache() throws Exception {
+        SCAContentCache cache = new SCAContentCache(this.config);
+        SCAContentCache.Key key = SCAContentCache.Key.of(this.createOwner(), List.of(), List.of());
+        Product expected = this.createProduct();
+
+        cache.put(key, expected);
+
+        assertSame(expected, cache.get(key));
+    }
+
+    @Test
+    public void testGetWithContentNotInCache() throws Exception {
+        SCAContentCache cache = new SCAContentCache(this.config);
+        cache.put(SCAContentCache.Key.of(this.createOwner(), List.of(), List.of()), this.createProduct());
+
+        assertNull(cache.get(SCAContentCache.Key.of(this.createOwner(), List.of(), List.of())));
+    }
+
+    @Test
+    public void testGetWithSupplierOnlyBuildsOnce() throws Exception {
+        SCAContentCache cache = new SCAContentCache(this.config);
+        SCAContentCache.Key key = SCAContentCache.Key.of(this.createOwner(), List.of(), List.of());
+        AtomicInteger builds = new AtomicInteger();
+
+        Product first = cache.get(key, () -> {
+            builds.incrementAndGet();
+            return this.createProduct();
+        });
+
+        Product second = cache.get(key, () -> {
+            builds.incrementAndGet();
+            return this.createProduct();
+        });
+
+        assertSame(first, second);
+        assertThat(builds.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPutWithInvalidContent() throws Exception {
+        SCAContentCache cache = new SCAContentCache(this.config);
+        SCAContentCache.Key key = SCAContentCache.Key.of(this.createOwner(), List.of(), List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> cache.put(key, null));
+    }
+
+    @Test
+    public void testRemoveOwner() throws Exception {
+        SCAContentCache cache = new SCAContentCache(this.config);
+        Owner owner1 = this.createOwner();
+        Owner owner2 = this.createOwner();
+
+        SCAContentCache.Key key1 = SCAContentCache.Key.of(owner1, List.of(), List.of());
+        SCAContentCache.Key key2 = SCAContentCache.Key.of(owner1, List.of(this.createEnvironment(owner1)),
+            List.of());
+        SCAContentCache.Key key3 = SCAContentCache.Key.of(owner2, List.of(), List.of());
+
+        cache.put(key1, this.createProduct());
+        cache.put(key2, this.createProduct());
+        cache.put(key3, this.createProduct());
+
+        cache.removeOwner(owner1.getId());
+
+        assertNull(cache.get(key1));
+        assertNull(cache.get(key2));
+        assertThat(cache.get(key3)).isNotNull();
+    }
+
+    @Test
+    public void testRemoveAll() throws Exception {
+        SCAContentCache cache = new SCAContentCache(this.config);
+        SCAContentCache.Key key1 = SCAContentCache.Key.of(this.createOwner(), List.of(), List.of());
+        SCAContentCache.Key key2 = SCAContentCache.Key.of(this.createOwner(), List.of(), List.of());
+
+        cache.put(key1, this.createProduct());
+        cache.put(key2, this.createProduct());
+
+        cache.removeAll();
+
+        assertNull(cache.get(key1));
+        assertNull(cache.get(key2));
+    }
+
+}
@@ -51,6 +51,8 @@ public final class TestConfig {
         }
 
         defaults.put(ConfigProperties.CA_KEY_PASSWORD, "password");
+        defaults.put(ConfigProperties.KEYPAIR_POOL_SIZE, "0");
+        defaults.put(ConfigProperties.RULES_BYTECODE_CACHE_DIR, "");
         defaults.put(ConfigProperties.SYNC_WORK_DIR, "/tmp");
         defaults.put(ConfigProperties.ACTIVEMQ_LARGE_MSG_SIZE, "0");
         defaults.put(ConfigProperties.HIDDEN_RESOURCES, "");
@@ -60,6 +62,11 @@ public final class TestConfig {
         defaults.put(DatabaseConfigFactory.QUERY_PARAMETER_LIMIT, "32000");
         defaults.put(ConfigProperties.CACHE_ANON_CERT_CONTENT_TTL, "120000");
         defaults.put(ConfigProperties.CACHE_ANON_CERT_CONTENT_MAX_ENTRIES, "10000");
+        defaults.put(ConfigProperties.CACHE_SCA_CONTENT_TTL, "3600000");
+        defaults.put(ConfigProperties.CACHE_SCA_CONTENT_MAX_ENTRIES, "1000");
+        defaults.put(ConfigProperties.CACHE_COMPLIANCE_STATUS_TTL, "600000");
+        defaults.put(ConfigProperties.CACHE_COMPLIANCE_STATUS_MAX_ENTRIES, "10000");
+        defaults.put(ConfigProperties.CACHE_CONTENT_PAYLOAD_MAX_ENTRIES, "256");
         defaults.put(ConfigProperties.PAGING_DEFAULT_PAGE_SIZE, "100");
         defaults.put(ConfigProperties.PAGING_MAX_PAGE_SIZE, "10000");
 
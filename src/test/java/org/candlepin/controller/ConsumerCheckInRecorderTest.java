@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+public class ConsumerCheckInRecorderTest {
+
+    private DevConfig config;
+    private ConsumerCurator consumerCurator;
+    private UnitOfWork unitOfWork;
+    private ConsumerCheckInRecorder recorder;
+
+    // Copies of the check-ins passed to each batch write
+    private List<Map<String, Date>> writes;
+
+    @BeforeEach
+    public void init() {
+        this.config = TestConfig.defaults();
+        this.config.setProperty(ConfigProperties.CHECKIN_FLUSH_INTERVAL, "60000");
+        this.config.setProperty(ConfigProperties.CHECKIN_MAX_PENDING, "100");
+        this.config.setProperty(ConfigProperties.CHECKIN_BATCH_SIZE, "2");
+
+        this.consumerCurator = mock(ConsumerCurator.class);
+        this.unitOfWork = mock(UnitOfWork.class);
+
+        this.writes = new ArrayList<>();
+        doAnswer(invocation -> {
+            Map<String, Date> checkins = invocation.getArgument(0);
+            this.writes.add(new HashMap<>(checkins));
+            return checkins.size();
+        }).when(this.consumerCurator).updateLastCheckins(anyMap());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        if (this.recorder != null) {
+            this.recorder.shutdown();
+        }
+    }
+
+    private ConsumerCheckInRecorder buildRecorder() {
+        this.recorder = new ConsumerCheckInRecorder(this.config, this.consumerCurator, this.unitOfWork);
+        return this.recorder;
+    }
+
+    private Consumer createConsumer(String id) {
+        Consumer consumer = new Consumer();
+        consumer.setId(id);
+
+        return consumer;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        ConfigProperties.CHECKIN_FLUSH_INTERVAL,
+        ConfigProperties.CHECKIN_MAX_PENDING,
+        ConfigProperties.CHECKIN_BATCH_SIZE })
+    public void testInvalidConfig(String key) {
+        this.config.setProperty(key, "-1");
+
+        assertThrows(ConfigurationException.class, this::buildRecorder);
+    }
+
+    @Test
+    public void testCheckInsWrittenImmediatelyWhenNotStarted() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        Consumer consumer = this.createConsumer("c1");
+        Date checkin = new Date();
+
+        recorder.record(consumer, checkin);
+
+        assertThat(recorder.isRunning()).isFalse();
+        verify(this.consumerCurator).updateLastCheckin(consumer, checkin);
+        assertThat(recorder.getPendingCount()).isZero();
+        assertThat(recorder.getWrittenCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDisabledRecorderDoesNotStart() {
+        this.config.setProperty(ConfigProperties.CHECKIN_FLUSH_INTERVAL, "0");
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+
+        recorder.start();
+        recorder.record(this.createConsumer("c1"));
+
+        assertThat(recorder.isRunning()).isFalse();
+        verify(this.consumerCurator).updateLastCheckin(any(Consumer.class), any(Date.class));
+    }
+
+    @Test
+    public void testCheckInsAreCoalescedPerConsumer() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        Date early = new Date(1000);
+        Date late = new Date(2000);
+
+        recorder.record(this.createConsumer("c1"), early);
+        recorder.record(this.createConsumer("c1"), late);
+        recorder.record(this.createConsumer("c1"), early);
+        recorder.record(this.createConsumer("c2"), early);
+
+        verify(this.consumerCurator, never()).updateLastCheckin(any(Consumer.class), any(Date.class));
+        assertThat(recorder.getPendingCount()).isEqualTo(2);
+        assertThat(recorder.getRecordedCount()).isEqualTo(4);
+        assertThat(recorder.getCoalescedCount()).isEqualTo(2);
+
+        recorder.flush();
+
+        assertThat(this.writes).containsExactly(Map.of("c1", late, "c2", early));
+        assertThat(recorder.getPendingCount()).isZero();
+        assertThat(recorder.getWrittenCount()).isEqualTo(2);
+        assertThat(recorder.getFlushCount()).isEqualTo(1);
+        verify(this.unitOfWork).begin();
+        verify(this.unitOfWork).end();
+    }
+
+    @Test
+    public void testWrittenCountOnlyIncludesUpdatedRows() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        // Only one of the two consumers has an older check-in than the one being written
+        doReturn(1).when(this.consumerCurator).updateLastCheckins(anyMap());
+
+        recorder.record(this.createConsumer("c1"));
+        recorder.record(this.createConsumer("c2"));
+        recorder.flush();
+
+        assertThat(recorder.getPendingCount()).isZero();
+        assertThat(recorder.getWrittenCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFlushWritesInBatches() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        for (int i = 0; i < 5; ++i) {
+            recorder.record(this.createConsumer("c" + i));
+        }
+
+        recorder.flush();
+
+        assertThat(this.writes).hasSize(3);
+        assertThat(this.writes.stream().mapToInt(Map::size).sum()).isEqualTo(5);
+        assertThat(this.writes).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void testFailedBatchesAreRetried() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        Date checkin = new Date(1000);
+        recorder.record(this.createConsumer("c1"), checkin);
+
+        doThrow(new RuntimeException("database unavailable"))
+            .when(this.consumerCurator).updateLastCheckins(anyMap());
+
+        recorder.flush();
+
+        assertThat(recorder.getFailureCount()).isEqualTo(1);
+        assertThat(recorder.getPendingCount()).isEqualTo(1);
+        verify(this.unitOfWork).end();
+
+        // A later check-in recorded before the retry wins over the failed one
+        Date later = new Date(2000);
+        recorder.record(this.createConsumer("c1"), later);
+
+        doAnswer(invocation -> {
+            this.writes.add(new HashMap<>(invocation.getArgument(0)));
+            return 1;
+        }).when(this.consumerCurator).updateLastCheckins(anyMap());
+
+        recorder.flush();
+
+        assertThat(this.writes).containsExactly(Map.of("c1", later));
+        assertThat(recorder.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void testReachingMaxPendingTriggersFlush() {
+        this.config.setProperty(ConfigProperties.CHECKIN_MAX_PENDING, "3");
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        for (int i = 0; i < 3; ++i) {
+            recorder.record(this.createConsumer("c" + i));
+        }
+
+        verify(this.consumerCurator, timeout(5000).times(2)).updateLastCheckins(anyMap());
+    }
+
+    @Test
+    public void testShutdownDrainsPendingCheckIns() {
+        ConsumerCheckInRecorder recorder = this.buildRecorder();
+        recorder.start();
+
+        Date checkin = new Date();
+        recorder.record(this.createConsumer("c1"), checkin);
+
+        recorder.shutdown();
+
+        assertThat(this.writes).containsExactly(Map.of("c1", checkin));
+        assertThat(recorder.isRunning()).isFalse();
+        assertThat(recorder.getPendingCount()).isZero();
+
+        // Once shut down, check-ins are written immediately again
+        Consumer consumer = this.createConsumer("c2");
+        recorder.record(consumer, checkin);
+        verify(this.consumerCurator).updateLastCheckin(consumer, checkin);
+    }
+
+}
@@ -34,6 +34,7 @@ import org.candlepin.async.JobException;
 import org.candlepin.async.JobManager;
 import org.candlepin.async.tasks.RevokeEntitlementsJob.RevokeEntitlementsJobConfig;
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.SCAContentCache;
 import org.candlepin.exceptions.IseException;
 import org.candlepin.model.AbstractHibernateObject;
 import org.candlepin.model.AnonymousCloudConsumerCurator;
@@ -106,6 +107,8 @@ public class ContentAccessManagerTest {
     private JobManager jobManager;
     @Mock
     private I18n i18n;
+    @Mock
+    private SCAContentCache scaContentCache;
 
     private final String entitlementMode = ContentAccessMode.ENTITLEMENT.toDatabaseValue();
     private final String orgEnvironmentMode = ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue();
@@ -172,7 +175,7 @@ public class ContentAccessManagerTest {
 
     private ContentAccessManager createManager() {
         return new ContentAccessManager(this.mockContentAccessCertCurator, this.mockOwnerCurator,
-            this.mockConsumerCurator, this.mockEventSink, this.jobManager, this.i18n);
+            this.mockConsumerCurator, this.mockEventSink, this.jobManager, this.i18n, this.scaContentCache);
     }
 
     private Owner mockOwner() {
@@ -699,4 +702,14 @@ public class ContentAccessManagerTest {
 
         assertThrows(IllegalArgumentException.class, () -> manager.syncOwnerLastContentUpdate(null));
     }
+
+    @Test
+    public void testSyncOwnerLastContentUpdateEvictsCachedSCAContent() {
+        ContentAccessManager manager = this.createManager();
+        Owner owner = this.mockOwner();
+
+        manager.syncOwnerLastContentUpdate(owner);
+
+        verify(this.scaContentCache).removeOwner(owner.getId());
+    }
 }
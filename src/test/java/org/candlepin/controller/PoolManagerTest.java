@@ -1930,11 +1930,8 @@ public class PoolManagerTest {
             .setOffset(1)
             .setLimit(10);
 
-        Page<List<Pool>> page = new Page<>();
-        page.setPageData(List.of(pool1, pool2));
-
-        doReturn(page).when(poolCurator).listAvailableEntitlementPools(qualifier);
-        doReturn(List.of(pool1)).when(poolCurator).takeSubList(qualifier, List.of(pool1));
+        doReturn(List.of(pool1, pool2)).when(poolCurator)
+            .listAvailableEntitlementPools(eq(qualifier), eq(0), anyInt());
 
         ValidationResult errorResult = new ValidationResult();
         errorResult.addError(TestUtil.randomString());
@@ -1951,6 +1948,112 @@ public class PoolManagerTest {
         assertThat(actual.getPageData())
             .singleElement()
             .isEqualTo(pool1);
+        assertThat(actual.getMaxRecords()).isEqualTo(1);
+    }
+
+    private List<Pool> createPools(int count) {
+        List<Pool> pools = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            pools.add(TestUtil.createPool(product).setId(String.format("pool-%03d", i)));
+        }
+
+        return pools;
+    }
+
+    /**
+     * Mocks the pool curator to serve chunks of the given pools, and the enforcer to reject every
+     * other pool.
+     */
+    private List<Pool> mockFilteredPoolListing(Consumer consumer, List<Pool> pools) {
+        doAnswer(iom -> {
+            int first = iom.getArgument(1);
+            int count = iom.getArgument(2);
+
+            return pools.subList(Math.min(first, pools.size()), Math.min(first + count, pools.size()));
+        }).when(poolCurator).listAvailableEntitlementPools(any(PoolQualifier.class), anyInt(), anyInt());
+
+        doReturn(pools.size()).when(poolCurator).countAvailableEntitlementPools(any(PoolQualifier.class));
+
+        doAnswer(iom -> {
+            List<Pool> chunk = iom.getArgument(1);
+            return chunk.stream()
+                .filter(pool -> Integer.parseInt(pool.getId().substring(5)) % 2 == 0)
+                .collect(Collectors.toList());
+        }).when(enforcer).filterPools(eq(consumer), anyList(), anyBoolean());
+
+        return pools.stream()
+            .filter(pool -> Integer.parseInt(pool.getId().substring(5)) % 2 == 0)
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testListAvailableEntitlementPoolsStopsFilteringOnceThePageIsFull() {
+        doReturn(20).when(config).getInt(ConfigProperties.POOL_LISTING_CHUNK_SIZE);
+        this.manager = new PoolManager(poolCurator, mockEventSink, eventFactory, config, enforcer, poolRules,
+            entitlementCurator, consumerCuratorMock, consumerTypeCurator, mockecService, complianceRules,
+            autobindRules, activationKeyRules, mockOwnerCurator, i18n, poolService, mockBindChainFactory,
+            refreshWorkerProvider, poolOpProcessor, poolConverter);
+
+        Consumer consumer = TestUtil.createConsumer(owner);
+        List<Pool> expected = this.mockFilteredPoolListing(consumer, this.createPools(200));
+
+        PoolQualifier qualifier = new PoolQualifier()
+            .setConsumer(consumer)
+            .setOffset(2)
+            .setLimit(10)
+            .setExactCount(false);
+
+        Page<List<Pool>> actual = manager.listAvailableEntitlementPools(qualifier);
+
+        assertThat(actual.getPageData()).containsExactlyElementsOf(expected.subList(10, 20));
+
+        // The second page ends at the 40th pool, so only two chunks are needed; the total is the
+        // number of matching pools, less the 20 rejected so far
+        verify(poolCurator).listAvailableEntitlementPools(qualifier, 0, 20);
+        verify(poolCurator).listAvailableEntitlementPools(qualifier, 20, 20);
+        verify(poolCurator, never()).listAvailableEntitlementPools(qualifier, 40, 20);
+        verify(enforcer, times(2)).filterPools(eq(consumer), anyList(), anyBoolean());
+        assertThat(actual.getMaxRecords()).isEqualTo(180);
+    }
+
+    @Test
+    public void testListAvailableEntitlementPoolsCountsExactlyByDefault() {
+        doReturn(20).when(config).getInt(ConfigProperties.POOL_LISTING_CHUNK_SIZE);
+        this.manager = new PoolManager(poolCurator, mockEventSink, eventFactory, config, enforcer, poolRules,
+            entitlementCurator, consumerCuratorMock, consumerTypeCurator, mockecService, complianceRules,
+            autobindRules, activationKeyRules, mockOwnerCurator, i18n, poolService, mockBindChainFactory,
+            refreshWorkerProvider, poolOpProcessor, poolConverter);
+
+        Consumer consumer = TestUtil.createConsumer(owner);
+        List<Pool> expected = this.mockFilteredPoolListing(consumer, this.createPools(95));
+
+        PoolQualifier qualifier = new PoolQualifier()
+            .setConsumer(consumer)
+            .setOffset(1)
+            .setLimit(10);
+
+        Page<List<Pool>> actual = manager.listAvailableEntitlementPools(qualifier);
+
+        assertThat(actual.getPageData()).containsExactlyElementsOf(expected.subList(0, 10));
+        assertThat(actual.getMaxRecords()).isEqualTo(48);
+        verify(enforcer, times(5)).filterPools(eq(consumer), anyList(), anyBoolean());
+        verify(poolCurator, never()).countAvailableEntitlementPools(any(PoolQualifier.class));
+    }
+
+    @Test
+    public void testListAvailableEntitlementPoolsLastPartialPage() {
+        Consumer consumer = TestUtil.createConsumer(owner);
+        List<Pool> expected = this.mockFilteredPoolListing(consumer, this.createPools(25));
+
+        PoolQualifier qualifier = new PoolQualifier()
+            .setConsumer(consumer)
+            .setOffset(2)
+            .setLimit(10);
+
+        Page<List<Pool>> actual = manager.listAvailableEntitlementPools(qualifier);
+
+        assertThat(actual.getPageData()).containsExactlyElementsOf(expected.subList(10, 13));
+        assertThat(actual.getMaxRecords()).isEqualTo(13);
     }
 
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+
+/**
+ * Test suite for the SessionPool class
+ */
+public class SessionPoolTest {
+
+    /** A minimal session which tracks whether it has been closed */
+    private static class TestSession {
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private boolean usable = true;
+    }
+
+    private static class TestSessionHandler implements SessionPool.SessionHandler<TestSession> {
+        private final List<TestSession> opened = new ArrayList<>();
+
+        @Override
+        public TestSession open() {
+            TestSession session = new TestSession();
+            this.opened.add(session);
+
+            return session;
+        }
+
+        @Override
+        public boolean isUsable(TestSession session) {
+            return session.usable && !session.closed.get();
+        }
+
+        @Override
+        public void close(TestSession session) {
+            session.closed.set(true);
+        }
+    }
+
+    private TestSessionHandler handler;
+
+    @BeforeEach
+    public void init() {
+        this.handler = new TestSessionHandler();
+    }
+
+    private SessionPool<TestSession> buildPool(int maxSize, long maxWait) {
+        return new SessionPool<>("test", this.handler, maxSize, maxWait);
+    }
+
+    @Test
+    public void testReleasedSessionsAreReused() throws Exception {
+        SessionPool<TestSession> pool = this.buildPool(2, 0);
+
+        TestSession session = pool.borrow();
+        pool.release(session);
+
+        assertThat(pool.borrow()).isSameAs(session);
+        assertThat(this.handler.opened).hasSize(1);
+        assertThat(pool.getBorrowCount()).isEqualTo(2);
+        assertThat(pool.getLeasedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUnusableSessionsAreReplaced() throws Exception {
+        SessionPool<TestSession> pool = this.buildPool(2, 0);
+
+        TestSession session = pool.borrow();
+        pool.release(session);
+        session.usable = false;
+
+        TestSession replacement = pool.borrow();
+
+        assertThat(replacement).isNotSameAs(session);
+        assertThat(session.closed).isTrue();
+        assertThat(pool.getDiscardedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidatedSessionsAreClosed() throws Exception {
+        SessionPool<TestSession> pool = this.buildPool(1, 0);
+
+        TestSession session = pool.borrow();
+        pool.invalidate(session);
+
+        assertThat(session.closed).isTrue();
+        assertThat(pool.getIdleCount()).isZero();
+
+        // The lease should have been returned
+        assertThat(pool.borrow()).isNotSameAs(session);
+    }
+
+    @Test
+    public void testBorrowTimesOutWhenPoolIsExhausted() throws Exception {
+        SessionPool<TestSession> pool = this.buildPool(1, 10);
+
+        pool.borrow();
+
+        assertThatThrownBy(pool::borrow).isInstanceOf(CPMException.class);
+        assertThat(pool.getWaitCount()).isEqualTo(1);
+        assertThat(pool.getTimeoutCount()).isEqualTo(1);
+        assertThat(pool.getTotalWaitTime()).isGreaterThanOrEqualTo(pool.getMaxWaitTime());
+    }
+
+    @Test
+    public void testBorrowWaitsForReleasedSession() throws Exception {
+        SessionPool<TestSession> pool = this.buildPool(1, 10000);
+        TestSession session = pool.borrow();
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            }
+            catch (InterruptedException e) {
+                // Release early
+            }
+
+            pool.release(session);
+        });
+
+        releaser.start();
+
+        assertThat(pool.borrow()).isSameAs(session);
+        assertThat(pool.getWaitCount()).isEqualTo(1);
+        assertThat(pool.getTimeoutCount()).isZero();
+        assertThat(pool.getMaxWaitTime()).isPositive();
+
+        releaser.join();
+    }
+
+    @Test
+    public void testResetClosesIdleAndStaleSessions() throws Exception {
+        SessionPool<TestSession> pool = this.buildPool(2, 0);
+
+        TestSession idle = pool.borrow();
+        TestSession leased = pool.borrow();
+        pool.release(idle);
+
+        pool.reset();
+
+        assertThat(idle.closed).isTrue();
+        assertThat(leased.closed).isFalse();
+
+        // Sessions leased before the reset are closed rather than reused on release
+        pool.release(leased);
+
+        assertThat(leased.closed).isTrue();
+        assertThat(pool.getIdleCount()).isZero();
+        assertThat(pool.borrow()).isNotIn(idle, leased);
+    }
+
+    @Test
+    public void testClosedPoolRejectsBorrows() throws Exception {
+        SessionPool<TestSession> pool = this.buildPool(2, 0);
+
+        TestSession session = pool.borrow();
+        pool.close();
+        pool.release(session);
+
+        assertThat(session.closed).isTrue();
+        assertThatThrownBy(pool::borrow).isInstanceOf(IllegalStateException.class);
+    }
+
+}
@@ -65,6 +65,7 @@ import java.util.Set;
 import java.util.UUID;
 
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
 
 public class ConsumerCuratorTest extends DatabaseTestFixture {
 
@@ -700,6 +701,54 @@ public class ConsumerCuratorTest extends DatabaseTestFixture {
         assertEquals(2, guests.size());
     }
 
+    @Test
+    public void testFindByUuidsWithComplianceData() {
+        Product product = this.createProduct();
+        Pool pool = this.createPool(this.owner, product);
+
+        Consumer consumer1 = this.createConsumer(this.owner);
+        consumer1.addGuestId(new GuestId("test-guest-1"));
+        consumer1.setFact(Consumer.Facts.CPU_SOCKETS, "4");
+        this.consumerCurator.merge(consumer1);
+        this.createEntitlement(this.owner, consumer1, pool);
+
+        Consumer consumer2 = this.createConsumer(this.owner);
+        this.createConsumer(this.owner);
+
+        this.consumerCurator.flush();
+        this.consumerCurator.clear();
+
+        Collection<Consumer> consumers = this.consumerCurator.findByUuidsWithComplianceData(
+            List.of(consumer1.getUuid(), consumer2.getUuid(), "unknown-uuid"));
+
+        assertThat(consumers)
+            .extracting(Consumer::getUuid)
+            .containsExactlyInAnyOrder(consumer1.getUuid(), consumer2.getUuid());
+
+        PersistenceUnitUtil util = this.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+        for (Consumer consumer : consumers) {
+            for (String attribute : List.of("entitlements", "guestIds", "installedProducts", "facts")) {
+                assertTrue(util.isLoaded(consumer, attribute), attribute + " not loaded");
+            }
+        }
+
+        Consumer fetched = consumers.stream()
+            .filter(consumer -> consumer1.getUuid().equals(consumer.getUuid()))
+            .findFirst()
+            .orElseThrow();
+
+        assertThat(fetched.getEntitlements())
+            .singleElement()
+            .satisfies(ent -> assertEquals(pool.getId(), ent.getPool().getId()));
+        assertEquals(1, fetched.getGuestIds().size());
+        assertEquals("4", fetched.getFact(Consumer.Facts.CPU_SOCKETS));
+    }
+
+    @Test
+    public void testFindByUuidsWithComplianceDataWithNoUuids() {
+        assertThat(this.consumerCurator.findByUuidsWithComplianceData(List.of())).isEmpty();
+    }
+
     @Test
     public void addGuestConsumersReversedEndianGuestId() {
         Consumer consumer = new Consumer()
@@ -1155,6 +1204,38 @@ public class ConsumerCuratorTest extends DatabaseTestFixture {
         assertTrue(consumer.getLastCheckin().getTime() > date.getTime());
     }
 
+    @Test
+    public void updateLastCheckinsInBatch() {
+        Date now = new Date();
+        Date yesterday = Util.yesterday();
+        Date tomorrow = Util.tomorrow();
+
+        Consumer consumer1 = this.createConsumer(owner);
+        Consumer consumer2 = this.createConsumer(owner);
+        Consumer consumer3 = this.createConsumer(owner);
+        consumerCurator.updateLastCheckin(consumer3, tomorrow);
+
+        Map<String, Date> checkins = Map.of(
+            consumer1.getId(), yesterday,
+            consumer2.getId(), now,
+            consumer3.getId(), now,
+            "unknown_consumer", now);
+
+        int updated = consumerCurator.updateLastCheckins(checkins);
+
+        assertEquals(2, updated);
+
+        consumerCurator.clear();
+        assertEquals(yesterday.getTime(), consumerCurator.get(consumer1.getId()).getLastCheckin().getTime());
+        assertEquals(now.getTime(), consumerCurator.get(consumer2.getId()).getLastCheckin().getTime());
+
+        // A late check-in doesn't move a consumer's updated time backward either
+        assertTrue(consumerCurator.get(consumer1.getId()).getUpdated().after(yesterday));
+
+        // Check-ins never move a consumer's check-in time backward
+        assertEquals(tomorrow.getTime(), consumerCurator.get(consumer3.getId()).getLastCheckin().getTime());
+    }
+
     @Test
     public void delete() {
         Consumer consumer = new Consumer()
@@ -2325,6 +2406,28 @@ public class ConsumerCuratorTest extends DatabaseTestFixture {
         assertNull(foundConsumer);
     }
 
+    @Test
+    public void testGetConsumersBySystemUuids() {
+        String uuid1 = UUID.randomUUID().toString();
+        String uuid2 = UUID.randomUUID().toString();
+        Consumer consumer1 = createConsumer(owner).setFact(Consumer.Facts.DMI_SYSTEM_UUID, uuid1);
+        Consumer consumer2 = createConsumer(owner).setFact(Consumer.Facts.DMI_SYSTEM_UUID, uuid2);
+        createConsumer(createOwner()).setFact(Consumer.Facts.DMI_SYSTEM_UUID, uuid2);
+        consumerCurator.flush();
+
+        Map<String, Consumer> found = consumerCurator.getConsumersBySystemUuids(owner.getId(),
+            List.of(uuid1.toUpperCase(), uuid2, UUID.randomUUID().toString()));
+
+        assertEquals(2, found.size());
+        assertEquals(consumer1.getId(), found.get(uuid1.toLowerCase()).getId());
+        assertEquals(consumer2.getId(), found.get(uuid2.toLowerCase()).getId());
+    }
+
+    @Test
+    public void testGetConsumersBySystemUuidsWithNoUuids() {
+        assertThat(consumerCurator.getConsumersBySystemUuids(owner.getId(), List.of())).isEmpty();
+    }
+
     private IdentityCertificate createIdCert() {
         IdentityCertificate idCert = TestUtil.createIdCert(TestUtil.createDateOffset(2, 0, 0));
         return saveCert(idCert);
@@ -176,6 +176,25 @@ public class EntitlementCuratorTest extends DatabaseTestFixture {
         }
     }
 
+    @Test
+    public void testBulkUpdateCreatesOnlyNewEntitlements() {
+        Pool pool = createPool(owner, testProduct, 10L, dateSource.currentDate(), createFutureDate(1));
+
+        Entitlement entitlement = new Entitlement();
+        entitlement.setId(Util.generateDbUUID());
+        entitlement.setOwner(owner);
+        entitlement.setPool(pool);
+        entitlement.setConsumer(consumer);
+
+        Set<Entitlement> result = entitlementCurator.bulkUpdate(Set.of(firstEntitlement, entitlement));
+
+        assertThat(result).containsExactlyInAnyOrder(firstEntitlement, entitlement);
+
+        this.getEntityManager().clear();
+        assertNotNull(entitlementCurator.get(entitlement.getId()));
+        assertNotNull(entitlementCurator.get(firstEntitlement.getId()));
+    }
+
     @Test
     public void testCompareTo() {
         Entitlement e1 = TestUtil.createEntitlement();
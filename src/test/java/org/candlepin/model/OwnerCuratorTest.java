@@ -44,7 +44,9 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import javax.persistence.PersistenceException;
 import javax.persistence.RollbackException;
@@ -213,6 +215,26 @@ public class OwnerCuratorTest extends DatabaseTestFixture {
         assertFalse(result.contains(c3.getUuid()));
     }
 
+    @Test
+    public void getConsumerUuidsByPage() {
+        Owner owner = this.createOwner();
+        Owner otherOwner = this.createOwner();
+
+        List<String> expected = Stream.of(owner, owner, owner, otherOwner)
+            .map(this::createConsumer)
+            .filter(consumer -> consumer.getOwnerId().equals(owner.getId()))
+            .map(Consumer::getUuid)
+            .sorted()
+            .collect(Collectors.toList());
+
+        assertEquals(expected.subList(0, 2), ownerCurator.getConsumerUuids(owner.getId(), null, null, 2));
+        assertEquals(expected.subList(2, 3),
+            ownerCurator.getConsumerUuids(owner.getId(), expected.get(1), null, 2));
+        assertEquals(expected.subList(1, 2),
+            ownerCurator.getConsumerUuids(owner.getId(), expected.get(0), expected.get(1), 10));
+        assertEquals(List.of(), ownerCurator.getConsumerUuids(owner.getId(), expected.get(2), null, 10));
+    }
+
     private List<Owner> setupDBForLookupOwnersForProductTests() {
         Owner owner1 = this.createOwner("owner1");
         Owner owner2 = this.createOwner("owner2");
@@ -1348,6 +1348,41 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         }
     }
 
+    @Test
+    public void testListAvailableEntitlementPoolsInChunks() {
+        for (int i = 0; i < 25; i++) {
+            Pool pool = TestUtil.createPool(owner, product);
+            pool.setStartDate(TestUtil.createDate(2011, 1, 2));
+            pool.setEndDate(TestUtil.createDate(2011, 3, 2));
+            poolCurator.create(pool);
+        }
+
+        PoolQualifier qualifier = new PoolQualifier()
+            .setOwnerId(owner.getId())
+            .addProductId(product.getId())
+            .setActiveOn(TestUtil.createDate(2011, 2, 2))
+            .setOffset(3)
+            .setLimit(1);
+
+        // The offset and limit of the qualifier don't apply to chunks or counts
+        assertEquals(25, poolCurator.countAvailableEntitlementPools(qualifier));
+
+        List<String> chunked = new ArrayList<>();
+        for (int first = 0; first < 25; first += 10) {
+            List<Pool> chunk = poolCurator.listAvailableEntitlementPools(qualifier, first, 10);
+            assertEquals(Math.min(10, 25 - first), chunk.size());
+
+            chunk.forEach(pool -> chunked.add(pool.getId()));
+        }
+
+        assertThat(chunked)
+            .doesNotHaveDuplicates()
+            .isSorted()
+            .hasSize(25);
+
+        assertThat(poolCurator.listAvailableEntitlementPools(qualifier, 25, 10)).isEmpty();
+    }
+
     @Test
     public void testCorrectPagingWhenResultsLessThanPageSize() {
         for (int i = 0; i < 5; i++) {
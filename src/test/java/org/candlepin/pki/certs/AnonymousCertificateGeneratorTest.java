@@ -31,6 +31,7 @@ import static org.mockito.Mockito.when;
 import org.candlepin.cache.AnonymousCertContent;
 import org.candlepin.cache.AnonymousCertContentCache;
 import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
 import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
 import org.candlepin.model.AnonymousCloudConsumer;
@@ -42,11 +43,12 @@ import org.candlepin.model.CertificateSerialCurator;
 import org.candlepin.model.EntitlementCurator;
 import org.candlepin.model.KeyPairDataCurator;
 import org.candlepin.model.dto.Content;
-import org.candlepin.pki.huffman.Huffman;
+import org.candlepin.pki.huffman.ContentPathEncoder;
 import org.candlepin.pki.impl.BouncyCastleKeyPairGenerator;
 import org.candlepin.pki.impl.BouncyCastlePemEncoder;
 import org.candlepin.pki.impl.BouncyCastleSecurityProvider;
 import org.candlepin.pki.impl.BouncyCastleSubjectKeyIdentifierWriter;
+import org.candlepin.pki.impl.KeyPairPool;
 import org.candlepin.pki.impl.Signer;
 import org.candlepin.service.ProductServiceAdapter;
 import org.candlepin.service.model.ContentInfo;
@@ -89,14 +91,14 @@ class AnonymousCertificateGeneratorTest {
     private AnonymousCertificateGenerator generator;
 
     @BeforeEach
-    void setUp() throws CertificateException, IOException {
+    void setUp() throws CertificateException, ConfigurationException, IOException {
         this.config = TestConfig.defaults();
         this.config.setProperty(ConfigProperties.STANDALONE, "false");
         X509V3ExtensionUtil extensionUtil = spy(new X509V3ExtensionUtil(
-            config, this.entitlementCurator, new Huffman()));
+            config, this.entitlementCurator, new ContentPathEncoder(config)));
         BouncyCastleSecurityProvider securityProvider = new BouncyCastleSecurityProvider();
         BouncyCastleKeyPairGenerator keyPairGenerator = new BouncyCastleKeyPairGenerator(
-            securityProvider, mock(KeyPairDataCurator.class));
+            securityProvider, mock(KeyPairDataCurator.class), mock(KeyPairPool.class));
         CertificateReaderForTesting certificateReader = new CertificateReaderForTesting();
         this.generator = new AnonymousCertificateGenerator(
             config,
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.certs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.pki.certs.CertificateSigningPool.Stage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+public class CertificateSigningPoolTest {
+
+    private DevConfig config;
+    private CertificateSigningPool pool;
+
+    @BeforeEach
+    public void init() {
+        this.config = TestConfig.defaults();
+        this.config.setProperty(ConfigProperties.CERT_SIGNING_THREADS, "2");
+        this.config.setProperty(ConfigProperties.CERT_SIGNING_QUEUE_SIZE, "2");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidThreadsConfig() {
+        this.config.setProperty(ConfigProperties.CERT_SIGNING_THREADS, "-1");
+
+        assertThrows(ConfigurationException.class, () -> new CertificateSigningPool(this.config));
+    }
+
+    @Test
+    public void testInvalidQueueSizeConfig() {
+        this.config.setProperty(ConfigProperties.CERT_SIGNING_QUEUE_SIZE, "0");
+
+        assertThrows(ConfigurationException.class, () -> new CertificateSigningPool(this.config));
+    }
+
+    @Test
+    public void testTasksRunInlineWhenNotStarted() throws Exception {
+        this.pool = new CertificateSigningPool(this.config);
+        Thread caller = Thread.currentThread();
+
+        CompletableFuture<Thread> future = this.pool.submit(Thread::currentThread);
+
+        assertFalse(this.pool.isRunning());
+        assertTrue(future.isDone());
+        assertSame(caller, future.get());
+    }
+
+    @Test
+    public void testDisabledPoolDoesNotStart() throws Exception {
+        this.config.setProperty(ConfigProperties.CERT_SIGNING_THREADS, "0");
+        this.pool = new CertificateSigningPool(this.config);
+
+        this.pool.start();
+
+        assertFalse(this.pool.isRunning());
+        assertSame(Thread.currentThread(), this.pool.submit(Thread::currentThread).get());
+    }
+
+    @Test
+    public void testTasksRunOnWorkerThreads() throws Exception {
+        this.pool = new CertificateSigningPool(this.config);
+        this.pool.start();
+
+        Thread worker = this.pool.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+
+        assertTrue(this.pool.isRunning());
+        assertThat(worker.getName()).startsWith("cert-signing-");
+        assertTrue(worker.isDaemon());
+    }
+
+    @Test
+    public void testFullQueueRunsTasksOnCaller() throws Exception {
+        this.pool = new CertificateSigningPool(this.config);
+        this.pool.start();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        List<CompletableFuture<Thread>> futures = new ArrayList<>();
+
+        // Two tasks to occupy the workers, two to fill the queue, and one more to overflow it
+        for (int i = 0; i < 4; ++i) {
+            futures.add(this.pool.submit(() -> {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return Thread.currentThread();
+            }));
+        }
+
+        // Give the workers a chance to pick up the first two tasks
+        Thread.sleep(100);
+
+        CompletableFuture<Thread> overflow = this.pool.submit(Thread::currentThread);
+
+        assertTrue(overflow.isDone());
+        assertSame(Thread.currentThread(), overflow.get());
+        assertEquals(1, this.pool.getCallerRunsCount());
+
+        latch.countDown();
+        for (CompletableFuture<Thread> future : futures) {
+            assertThat(future.get(10, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+        }
+    }
+
+    @Test
+    public void testAwaitRethrowsUncheckedExceptions() throws Exception {
+        this.pool = new CertificateSigningPool(this.config);
+        this.pool.start();
+
+        CertificateCreationException expected = new CertificateCreationException("failed");
+        CompletableFuture<String> future = this.pool.submit(() -> {
+            throw expected;
+        });
+
+        CertificateCreationException thrown = assertThrows(CertificateCreationException.class,
+            () -> CertificateSigningPool.await(future));
+
+        assertSame(expected, thrown);
+    }
+
+    @Test
+    public void testAwaitWrapsCheckedExceptions() throws Exception {
+        CompletableFuture<String> future = CompletableFuture.failedFuture(new IOException("failed"));
+
+        CertificateCreationException thrown = assertThrows(CertificateCreationException.class,
+            () -> CertificateSigningPool.await(future));
+
+        assertThat(thrown).hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testStageTimesAreRecorded() throws Exception {
+        this.pool = new CertificateSigningPool(this.config);
+
+        String result = this.pool.time(Stage.SIGN, () -> "signed");
+        this.pool.record(Stage.PREPARE, 1000L);
+        this.pool.record(Stage.PREPARE, 500L);
+
+        assertEquals("signed", result);
+        assertEquals(1, this.pool.getStageCount(Stage.SIGN));
+        assertThat(this.pool.getStageTime(Stage.SIGN)).isGreaterThanOrEqualTo(0L);
+        assertEquals(2, this.pool.getStageCount(Stage.PREPARE));
+        assertEquals(1500L, this.pool.getStageTime(Stage.PREPARE));
+        assertEquals(0, this.pool.getStageCount(Stage.BUILD));
+    }
+
+}
@@ -25,6 +25,7 @@ import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import org.candlepin.config.ConfigurationException;
 import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
 import org.candlepin.model.AbstractCertificate;
@@ -54,11 +55,13 @@ import org.candlepin.pki.OID;
 import org.candlepin.pki.PemEncoder;
 import org.candlepin.pki.RepoType;
 import org.candlepin.pki.SubjectKeyIdentifierWriter;
+import org.candlepin.pki.huffman.ContentPathEncoder;
 import org.candlepin.pki.huffman.Huffman;
 import org.candlepin.pki.impl.BouncyCastleKeyPairGenerator;
 import org.candlepin.pki.impl.BouncyCastlePemEncoder;
 import org.candlepin.pki.impl.BouncyCastleSecurityProvider;
 import org.candlepin.pki.impl.BouncyCastleSubjectKeyIdentifierWriter;
+import org.candlepin.pki.impl.KeyPairPool;
 import org.candlepin.pki.impl.Signer;
 import org.candlepin.test.CertificateReaderForTesting;
 import org.candlepin.test.TestUtil;
@@ -152,12 +155,12 @@ public class EntitlementCertificateGeneratorTest {
     private EntitlementCertificateGenerator generator;
 
     @BeforeEach
-    public void setUp() throws CertificateException, IOException {
+    public void setUp() throws CertificateException, ConfigurationException, IOException {
         this.owner = createOwner();
         when(this.ownerCurator.findOwnerById(owner.getOwnerId())).thenReturn(this.owner);
         BouncyCastleSecurityProvider securityProvider = new BouncyCastleSecurityProvider();
         this.keyPairGenerator = new BouncyCastleKeyPairGenerator(
-            securityProvider, mock(KeyPairDataCurator.class));
+            securityProvider, mock(KeyPairDataCurator.class), mock(KeyPairPool.class));
         this.i18n = I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK);
 
         when(this.serialCurator.saveOrUpdateAll(anyIterable(), anyBoolean(), anyBoolean()))
@@ -173,7 +176,7 @@ public class EntitlementCertificateGeneratorTest {
         X509ExtensionUtil x509ExtensionUtil = new X509ExtensionUtil(config);
         ObjectMapper mapper = new ObjectMapper();
         X509V3ExtensionUtil x509V3ExtensionUtil = new X509V3ExtensionUtil(
-            config, entitlementCurator, new Huffman());
+            config, entitlementCurator, new ContentPathEncoder(config));
         PemEncoder pemEncoder = new BouncyCastlePemEncoder();
         CertificateReaderForTesting certificateReader = new CertificateReaderForTesting();
         Signer signer = new Signer(certificateReader);
@@ -195,7 +198,8 @@ public class EntitlementCertificateGeneratorTest {
             keyPairGenerator,
             pemEncoder,
             signer,
-            () -> certificateBuilder
+            () -> certificateBuilder,
+            new CertificateSigningPool(config)
         );
     }
 
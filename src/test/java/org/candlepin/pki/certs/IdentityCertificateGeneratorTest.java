@@ -36,6 +36,7 @@ import org.candlepin.pki.impl.BouncyCastleKeyPairGenerator;
 import org.candlepin.pki.impl.BouncyCastlePemEncoder;
 import org.candlepin.pki.impl.BouncyCastleSecurityProvider;
 import org.candlepin.pki.impl.BouncyCastleSubjectKeyIdentifierWriter;
+import org.candlepin.pki.impl.KeyPairPool;
 import org.candlepin.test.CertificateReaderForTesting;
 import org.candlepin.test.TestUtil;
 
@@ -55,7 +56,7 @@ class IdentityCertificateGeneratorTest {
     public void setUp() throws CertificateException, IOException {
         BouncyCastleSecurityProvider securityProvider = new BouncyCastleSecurityProvider();
         KeyPairGenerator keyPairGenerator = new BouncyCastleKeyPairGenerator(
-            securityProvider, mock(KeyPairDataCurator.class));
+            securityProvider, mock(KeyPairDataCurator.class), mock(KeyPairPool.class));
         PemEncoder pemEncoder = new BouncyCastlePemEncoder();
         this.identityCertificateCurator = mock(IdentityCertificateCurator.class);
         this.serialCurator = mock(CertificateSerialCurator.class);
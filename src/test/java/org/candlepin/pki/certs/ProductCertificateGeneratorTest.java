@@ -33,6 +33,7 @@ import org.candlepin.pki.impl.BouncyCastleKeyPairGenerator;
 import org.candlepin.pki.impl.BouncyCastlePemEncoder;
 import org.candlepin.pki.impl.BouncyCastleSecurityProvider;
 import org.candlepin.pki.impl.BouncyCastleSubjectKeyIdentifierWriter;
+import org.candlepin.pki.impl.KeyPairPool;
 import org.candlepin.test.CertificateReaderForTesting;
 import org.candlepin.util.X509ExtensionUtil;
 
@@ -52,7 +53,7 @@ class ProductCertificateGeneratorTest {
         BouncyCastleSecurityProvider securityProvider = new BouncyCastleSecurityProvider();
         X509ExtensionUtil extensionUtil = mock(X509ExtensionUtil.class);
         KeyPairGenerator keyPairGenerator = new BouncyCastleKeyPairGenerator(
-            securityProvider, mock(KeyPairDataCurator.class));
+            securityProvider, mock(KeyPairDataCurator.class), mock(KeyPairPool.class));
         PemEncoder pemEncoder = new BouncyCastlePemEncoder();
         this.productCertificateCurator = mock(ProductCertificateCurator.class);
         this.certificateBuilder = new X509CertificateBuilder(new CertificateReaderForTesting(),
@@ -18,13 +18,24 @@ package org.candlepin.pki.certs;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.candlepin.cache.SCAContentCache;
 import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
 import org.candlepin.config.TestConfig;
 import org.candlepin.controller.ContentAccessMode;
 import org.candlepin.model.CertificateSerial;
@@ -45,11 +56,12 @@ import org.candlepin.model.Owner;
 import org.candlepin.model.SCACertificate;
 import org.candlepin.pki.OID;
 import org.candlepin.pki.SubjectKeyIdentifierWriter;
-import org.candlepin.pki.huffman.Huffman;
+import org.candlepin.pki.huffman.ContentPathEncoder;
 import org.candlepin.pki.impl.BouncyCastleKeyPairGenerator;
 import org.candlepin.pki.impl.BouncyCastlePemEncoder;
 import org.candlepin.pki.impl.BouncyCastleSecurityProvider;
 import org.candlepin.pki.impl.BouncyCastleSubjectKeyIdentifierWriter;
+import org.candlepin.pki.impl.KeyPairPool;
 import org.candlepin.pki.impl.Signer;
 import org.candlepin.test.CertificateReaderForTesting;
 import org.candlepin.test.TestUtil;
@@ -74,8 +86,14 @@ import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 @ExtendWith(MockitoExtension.class)
@@ -99,25 +117,36 @@ class SCACertificateGeneratorTest {
     private SCACertificateGenerator generator;
 
     @BeforeEach
-    void setUp() throws CertificateException, IOException {
+    void setUp() throws CertificateException, ConfigurationException, IOException {
         this.config = TestConfig.defaults();
         this.extensionUtil = spy(new X509V3ExtensionUtil(
-            this.config, this.entitlementCurator, new Huffman()));
+            this.config, this.entitlementCurator, new ContentPathEncoder(this.config)));
         BouncyCastleSecurityProvider securityProvider = new BouncyCastleSecurityProvider();
         BouncyCastleKeyPairGenerator keyPairGenerator = new BouncyCastleKeyPairGenerator(
-            securityProvider, mock(KeyPairDataCurator.class));
+            securityProvider, mock(KeyPairDataCurator.class), mock(KeyPairPool.class));
         CertificateReaderForTesting certificateReader = new CertificateReaderForTesting();
         this.extensionUtil = spy(new X509V3ExtensionUtil(
-            config, this.entitlementCurator, new Huffman()));
+            config, this.entitlementCurator, new ContentPathEncoder(config)));
         SubjectKeyIdentifierWriter subjectKeyIdentifierWriter = new BouncyCastleSubjectKeyIdentifierWriter();
 
-        when(this.contentAccessCertificateCurator.create(any(SCACertificate.class)))
+        lenient().when(this.contentAccessCertificateCurator.create(any(SCACertificate.class)))
             .thenAnswer(returnsFirstArg());
-        when(this.serialCurator.create(any(CertificateSerial.class))).thenAnswer(invocation -> {
+        lenient().when(this.serialCurator.create(any(CertificateSerial.class))).thenAnswer(invocation -> {
             CertificateSerial argument = invocation.getArgument(0);
             argument.setSerial(123L);
             return argument;
         });
+        lenient().when(this.serialCurator.saveAll(anyCollection(), anyBoolean(), anyBoolean()))
+            .thenAnswer(invocation -> {
+                Collection<CertificateSerial> serials = invocation.getArgument(0);
+                long serial = 1000L;
+                for (CertificateSerial argument : serials) {
+                    argument.setId(serial);
+                    argument.setSerial(serial++);
+                }
+
+                return serials;
+            });
 
         this.generator = new SCACertificateGenerator(
             this.extensionUtil,
@@ -131,7 +160,8 @@ class SCACertificateGeneratorTest {
             new BouncyCastlePemEncoder(),
             keyPairGenerator,
             new Signer(certificateReader),
-            () -> new X509CertificateBuilder(certificateReader, securityProvider, subjectKeyIdentifierWriter)
+            () -> new X509CertificateBuilder(certificateReader, securityProvider, subjectKeyIdentifierWriter),
+            new SCAContentCache(this.config)
         );
     }
 
@@ -365,6 +395,246 @@ class SCACertificateGeneratorTest {
             .containsExactlyInAnyOrderElementsOf(expected);
     }
 
+    @Test
+    public void testContentIsSharedBetweenConsumersOfTheSameOwner() {
+        Owner owner = this.createOwner();
+        Consumer consumer1 = this.createConsumer(owner);
+        Consumer consumer2 = this.createConsumer(owner)
+            .setUuid("test-consumer-uuid-2")
+            .setId("test-consumer-id-2");
+
+        this.mockTransactional();
+        when(this.v3CapabilityCheck.isCertV3Capable(any(Consumer.class)))
+            .thenReturn(true);
+
+        assertNotNull(this.generator.generate(consumer1));
+        assertNotNull(this.generator.generate(consumer2));
+
+        verify(this.contentCurator, times(1)).getActiveContentByOwner(owner.getId());
+    }
+
+    @Test
+    public void testContentIsNotSharedAfterOwnerContentUpdate() {
+        Owner owner = this.createOwner();
+        owner.setLastContentUpdate(new Date(System.currentTimeMillis() - 10000L));
+        Consumer consumer1 = this.createConsumer(owner);
+        Consumer consumer2 = this.createConsumer(owner)
+            .setUuid("test-consumer-uuid-2")
+            .setId("test-consumer-id-2");
+
+        this.mockTransactional();
+        when(this.v3CapabilityCheck.isCertV3Capable(any(Consumer.class)))
+            .thenReturn(true);
+
+        assertNotNull(this.generator.generate(consumer1));
+        owner.syncLastContentUpdate();
+        assertNotNull(this.generator.generate(consumer2));
+
+        verify(this.contentCurator, times(2)).getActiveContentByOwner(owner.getId());
+    }
+
+    @Test
+    public void testBatchGenerationCreatesCertificates() throws Exception {
+        Owner owner = this.createOwner();
+        Consumer consumer1 = this.createConsumer(owner);
+        Consumer consumer2 = this.createConsumer(owner)
+            .setUuid("test-consumer-uuid-2")
+            .setId("test-consumer-id-2");
+
+        when(this.v3CapabilityCheck.isCertV3Capable(any(Consumer.class)))
+            .thenReturn(true);
+        when(this.environmentCurator.findEnvironmentsOf(anyList()))
+            .thenReturn(Map.of());
+
+        List<SCACertificate> result = this.generator.generate(owner, List.of(consumer1, consumer2),
+            Runnable::run);
+
+        assertThat(result)
+            .hasSize(2)
+            .allSatisfy(cert -> {
+                assertThat(cert.getCert()).isNotNull();
+                assertThat(cert.getContent()).isNotNull();
+                assertThat(cert.getKey()).isNotNull();
+                assertThat(cert.getConsumer().getContentAccessCert()).isSameAs(cert);
+                assertNotNull(this.getX509Certificate(cert));
+            });
+
+        verify(this.contentCurator, times(1)).getActiveContentByOwner(owner.getId());
+        verify(this.serialCurator, times(1)).saveAll(anyCollection(), eq(true), eq(false));
+        verify(this.contentAccessCertificateCurator, times(1)).saveAll(eq(result), eq(true), eq(false));
+        verify(this.consumerCurator, times(1))
+            .updateAll(eq(List.of(consumer1, consumer2)), eq(true), eq(false));
+    }
+
+    @Test
+    public void testBatchGenerationSignsInParallel() throws Exception {
+        Owner owner = this.createOwner();
+        List<Consumer> consumers = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            consumers.add(this.createConsumer(owner)
+                .setUuid("test-consumer-uuid-" + i)
+                .setId("test-consumer-id-" + i));
+        }
+
+        when(this.v3CapabilityCheck.isCertV3Capable(any(Consumer.class)))
+            .thenReturn(true);
+        when(this.environmentCurator.findEnvironmentsOf(anyList()))
+            .thenReturn(Map.of());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<SCACertificate> result = this.generator.generate(owner, consumers, executor);
+
+            assertThat(result).hasSize(consumers.size());
+            for (SCACertificate cert : result) {
+                X509Certificate x509 = this.getX509Certificate(cert);
+                assertThat(x509.getSerialNumber()).isEqualTo(cert.getSerial().getSerial());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBatchGenerationIncludesConsumerEnvironments() throws Exception {
+        Owner owner = this.createOwner();
+        Consumer consumer = this.createConsumer(owner);
+        Environment env = this.createEnvironment(owner, consumer, this.createContent());
+
+        when(this.v3CapabilityCheck.isCertV3Capable(any(Consumer.class)))
+            .thenReturn(true);
+        when(this.environmentCurator.findEnvironmentsOf(List.of(consumer.getId())))
+            .thenReturn(Map.of(consumer.getId(), List.of(env.getId())));
+        when(this.environmentCurator.listAllByIds(Set.of(env.getId())))
+            .thenReturn(List.of(env));
+
+        List<SCACertificate> result = this.generator.generate(owner, List.of(consumer), Runnable::run);
+        assertThat(result).hasSize(1);
+
+        byte[] payload = this.extractEntitlementDataPayload(this.getX509Certificate(result.get(0)));
+        List<String> contentPaths = new X509HuffmanDecodeUtil().extractContentPaths(payload);
+
+        assertThat(contentPaths)
+            .containsExactly("/" + owner.getKey() + "/" + env.getName());
+        verify(this.environmentCurator, never()).getConsumerEnvironments(any(Consumer.class));
+    }
+
+    @Test
+    public void testBatchGenerationSkipsUpToDateCertificates() {
+        Owner owner = this.createOwner();
+        owner.setLastContentUpdate(new Date(System.currentTimeMillis() - 10000L));
+        Consumer consumer = this.createConsumer(owner);
+        SCACertificate existing = this.createExistingCertificate(consumer, new Date(), this.futureDate());
+
+        when(this.v3CapabilityCheck.isCertV3Capable(any(Consumer.class)))
+            .thenReturn(true);
+        when(this.environmentCurator.findEnvironmentsOf(anyList()))
+            .thenReturn(Map.of());
+
+        List<SCACertificate> result = this.generator.generate(owner, List.of(consumer), Runnable::run);
+
+        assertThat(result).isEmpty();
+        assertThat(consumer.getContentAccessCert()).isSameAs(existing);
+        verify(this.serialCurator, never()).saveAll(anyCollection(), anyBoolean(), anyBoolean());
+        verify(this.contentAccessCertificateCurator, never()).saveAll(anyCollection(), anyBoolean(),
+            anyBoolean());
+    }
+
+    @Test
+    public void testBatchGenerationRefreshesStaleContent() {
+        Owner owner = this.createOwner();
+        Consumer consumer = this.createConsumer(owner);
+        Date updated = new Date(owner.getLastContentUpdate().getTime() - 10000L);
+        SCACertificate existing = this.createExistingCertificate(consumer, updated, this.futureDate());
+        CertificateSerial serial = existing.getSerial();
+
+        when(this.v3CapabilityCheck.isCertV3Capable(any(Consumer.class)))
+            .thenReturn(true);
+        when(this.environmentCurator.findEnvironmentsOf(anyList()))
+            .thenReturn(Map.of());
+
+        List<SCACertificate> result = this.generator.generate(owner, List.of(consumer), Runnable::run);
+
+        assertThat(result).containsExactly(existing);
+        assertThat(existing.getSerial()).isSameAs(serial);
+        assertThat(existing.getCert()).isEqualTo("cert");
+        assertThat(existing.getContent()).isNotEqualTo("content");
+
+        verify(this.serialCurator, never()).saveAll(anyCollection(), anyBoolean(), anyBoolean());
+        verify(this.contentAccessCertificateCurator, times(1))
+            .updateAll(eq(List.of(existing)), eq(true), eq(false));
+    }
+
+    @Test
+    public void testBatchGenerationReissuesExpiredCertificates() throws Exception {
+        Owner owner = this.createOwner();
+        Consumer consumer = this.createConsumer(owner);
+        Date expiration = new Date(System.currentTimeMillis() - 10000L);
+        SCACertificate existing = this.createExistingCertificate(consumer, new Date(), expiration);
+        Long expiredSerialId = existing.getSerial().getId();
+
+        when(this.v3CapabilityCheck.isCertV3Capable(any(Consumer.class)))
+            .thenReturn(true);
+        when(this.environmentCurator.findEnvironmentsOf(anyList()))
+            .thenReturn(Map.of());
+
+        List<SCACertificate> result = this.generator.generate(owner, List.of(consumer), Runnable::run);
+
+        assertThat(result).containsExactly(existing);
+        assertThat(existing.getSerial().getId()).isNotEqualTo(expiredSerialId);
+        assertNotNull(this.getX509Certificate(existing));
+
+        verify(this.serialCurator, times(1)).revokeByIds(List.of(expiredSerialId));
+    }
+
+    @Test
+    public void testBatchGenerationSkipsConsumersWithoutV3Capability() {
+        Owner owner = this.createOwner();
+        Consumer consumer = this.createConsumer(owner);
+
+        when(this.v3CapabilityCheck.isCertV3Capable(consumer))
+            .thenReturn(false);
+
+        List<SCACertificate> result = this.generator.generate(owner, List.of(consumer), Runnable::run);
+
+        assertThat(result).isEmpty();
+        verify(this.environmentCurator, never()).findEnvironmentsOf(anyList());
+    }
+
+    @Test
+    public void testBatchGenerationRejectsConsumersOfOtherOwners() {
+        Owner owner = this.createOwner();
+        Owner other = this.createOwner()
+            .setId("other_owner")
+            .setKey("other_owner");
+        Consumer consumer = this.createConsumer(other);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> this.generator.generate(owner, List.of(consumer), Runnable::run));
+    }
+
+    private Date futureDate() {
+        return new Date(System.currentTimeMillis() + 86400000L);
+    }
+
+    private SCACertificate createExistingCertificate(Consumer consumer, Date updated, Date expiration) {
+        CertificateSerial serial = new CertificateSerial(42L, expiration);
+        serial.setSerial(42L);
+
+        SCACertificate existing = new SCACertificate();
+        existing.setId("test-cert-id");
+        existing.setSerial(serial);
+        existing.setConsumer(consumer);
+        existing.setCert("cert");
+        existing.setContent("content");
+        existing.setKey("key");
+        existing.setUpdated(updated);
+
+        consumer.setContentAccessCert(existing);
+        return existing;
+    }
+
     private Owner createOwner() {
         String entitlementMode = ContentAccessMode.ENTITLEMENT.toDatabaseValue();
         String orgEnvironmentMode = ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue();
@@ -39,6 +39,7 @@ import org.candlepin.pki.impl.BouncyCastleKeyPairGenerator;
 import org.candlepin.pki.impl.BouncyCastlePemEncoder;
 import org.candlepin.pki.impl.BouncyCastleSecurityProvider;
 import org.candlepin.pki.impl.BouncyCastleSubjectKeyIdentifierWriter;
+import org.candlepin.pki.impl.KeyPairPool;
 import org.candlepin.service.impl.DefaultUniqueIdGenerator;
 import org.candlepin.test.CertificateReaderForTesting;
 import org.candlepin.test.TestUtil;
@@ -85,7 +86,8 @@ class UeberCertificateGeneratorTest {
             this.ownerCurator,
             this.ueberCertificateCurator,
             this.consumerTypeCurator,
-            new BouncyCastleKeyPairGenerator(securityProvider, mock(KeyPairDataCurator.class)),
+            new BouncyCastleKeyPairGenerator(securityProvider, mock(KeyPairDataCurator.class),
+                mock(KeyPairPool.class)),
             new BouncyCastlePemEncoder(),
             i18n,
             () -> certificateBuilder
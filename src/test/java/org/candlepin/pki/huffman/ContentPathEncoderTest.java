@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.huffman;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.model.dto.Content;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+
+public class ContentPathEncoderTest {
+
+    private List<Content> createContent(List<String> paths) {
+        List<Content> contents = new ArrayList<>();
+        for (String path : paths) {
+            Content content = new Content();
+            content.setPath(path);
+            contents.add(content);
+        }
+
+        return contents;
+    }
+
+    private List<String> generatePaths(int count) {
+        Random random = new Random(count);
+        List<String> paths = new ArrayList<>();
+
+        for (int i = 0; i < count; ++i) {
+            paths.add(String.format("/content/%s/rhel%d/%s/repo-%d/%s",
+                random.nextBoolean() ? "dist" : "beta",
+                random.nextInt(4),
+                random.nextBoolean() ? "x86_64" : "aarch64",
+                random.nextInt(count),
+                random.nextBoolean() ? "os" : "source/SRPMS"));
+        }
+
+        return paths;
+    }
+
+    private List<String> generatePathsWithPrefixes(int count) {
+        List<String> paths = new ArrayList<>();
+
+        // Every third path is preceded by its parent path, which the Huffman encoder requires to
+        // retain both paths
+        for (String path : this.generatePaths(count)) {
+            if (paths.size() % 3 == 0) {
+                paths.add(path.substring(0, path.lastIndexOf('/')));
+            }
+
+            paths.add(path);
+        }
+
+        return paths;
+    }
+
+    private List<String> decode(byte[] payload) throws Exception {
+        return new Huffman().hydrateContentPackage(payload);
+    }
+
+    @Test
+    public void testEncoderCreationWithInvalidMaxEntries() {
+        DevConfig config = TestConfig.defaults();
+        config.setProperty(ConfigProperties.CACHE_CONTENT_PAYLOAD_MAX_ENTRIES, "-1");
+
+        assertThrows(ConfigurationException.class, () -> new ContentPathEncoder(config));
+    }
+
+    @Test
+    public void testEncodeEmptyContent() throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+
+        assertEquals(0, encoder.encode(List.of()).length);
+        assertEquals(0, encoder.encode(this.createContent(List.of("/", "//"))).length);
+    }
+
+    @Test
+    public void testEncodeSinglePathMatchesHuffman() throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+        List<Content> contents = this.createContent(List.of("/content"));
+
+        byte[] expected = new Huffman().retrieveContentValue(contents);
+
+        assertArrayEquals(expected, encoder.encode(contents));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 10, 100, 1000 })
+    public void testEncodedPathsRoundTrip(int count) throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+        List<String> paths = this.generatePaths(count);
+
+        List<String> decoded = this.decode(encoder.encode(this.createContent(paths)));
+
+        assertThat(decoded).containsExactlyInAnyOrderElementsOf(paths.stream().distinct().toList());
+    }
+
+    @Test
+    public void testEncodingPreservesPathsPrefixingOtherPaths() throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+        List<String> paths = List.of("/content/dist/rhel/os/extras", "/content/dist/rhel/os",
+            "/content/beta/rhel/os/extras");
+
+        List<String> decoded = this.decode(encoder.encode(this.createContent(paths)));
+
+        assertThat(decoded).containsExactlyInAnyOrderElementsOf(paths);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 10, 100, 1000 })
+    public void testEncodedPathsWithPrefixesRoundTrip(int count) throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+        List<String> paths = this.generatePathsWithPrefixes(count);
+
+        List<String> decoded = this.decode(encoder.encode(this.createContent(paths)));
+
+        assertThat(decoded).containsExactlyInAnyOrderElementsOf(paths.stream().distinct().toList());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 10, 100 })
+    public void testEncodedPathsDecodeLikeHuffmanPayload(int count) throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+        List<Content> contents = this.createContent(this.generatePaths(count));
+
+        List<String> expected = this.decode(new Huffman().retrieveContentValue(contents));
+
+        assertThat(this.decode(encoder.encode(contents))).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    public void testPrefixPathsDecodeLikeHuffmanPayload() throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+
+        // Listed shorter path first, for which the Huffman encoder keeps both paths by giving the
+        // shared segment a second edge to the terminal node
+        List<Content> contents = this.createContent(List.of("/content/dist/rhel/os",
+            "/content/dist/rhel/os/extras", "/content/beta/rhel/os", "/content/beta/rhel/os/extras"));
+
+        List<String> expected = this.decode(new Huffman().retrieveContentValue(contents));
+
+        assertThat(expected).hasSize(4);
+        assertThat(this.decode(encoder.encode(contents))).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    public void testEncodingIsIndependentOfPathOrder() throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+        List<String> paths = this.generatePaths(200);
+        List<String> shuffled = new ArrayList<>(paths);
+        Collections.shuffle(shuffled, new Random(1));
+
+        byte[] expected = encoder.encode(this.createContent(paths));
+
+        assertArrayEquals(expected, encoder.encode(this.createContent(shuffled)));
+    }
+
+    @Test
+    public void testEncodingIsNoLargerThanHuffman() throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(0);
+        List<Content> contents = this.createContent(this.generatePaths(500));
+
+        byte[] legacy = new Huffman().retrieveContentValue(contents);
+
+        assertThat(encoder.encode(contents).length).isLessThanOrEqualTo(legacy.length);
+    }
+
+    @Test
+    public void testCachedPayloadsAreCopied() throws Exception {
+        ContentPathEncoder encoder = new ContentPathEncoder(10);
+        List<Content> contents = this.createContent(this.generatePaths(20));
+
+        byte[] first = encoder.encode(contents);
+        first[0] = (byte) ~first[0];
+        byte[] second = encoder.encode(contents);
+
+        assertNotSame(first, second);
+        assertArrayEquals(new ContentPathEncoder(0).encode(contents), second);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 2, 3, 5, 10, 57, 128, 1000 })
+    public void testComputedCodesMatchHuffmanTrie(int count) {
+        long[] codes = new long[count];
+        int[] lengths = new int[count];
+        ContentPathEncoder.computeCodes(count, codes, lengths);
+
+        Huffman huffman = new Huffman();
+        List<HuffNode> nodes = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            Object value = new Object();
+            nodes.add(new HuffNode(i, value, i + 1));
+            values.add(value);
+        }
+
+        HuffNode trie = huffman.makeTrie(nodes);
+
+        for (int i = 0; i < count; ++i) {
+            StringBuilder code = new StringBuilder(Long.toBinaryString(codes[i]));
+            while (code.length() < lengths[i]) {
+                code.insert(0, '0');
+            }
+
+            assertEquals(huffman.findHuffPath(trie, values.get(i)), code.toString());
+        }
+    }
+
+}
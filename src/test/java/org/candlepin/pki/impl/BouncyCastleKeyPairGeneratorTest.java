@@ -20,10 +20,12 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 
 import org.candlepin.model.Consumer;
 import org.candlepin.model.KeyPairData;
@@ -44,11 +46,13 @@ import java.util.Arrays;
 class BouncyCastleKeyPairGeneratorTest {
     private KeyPairDataCurator keypairCurator;
     private BouncyCastleSecurityProvider securityProvider;
+    private KeyPairPool keypairPool;
 
     @BeforeEach
     void setUp() {
         this.keypairCurator = Mockito.mock(KeyPairDataCurator.class);
         this.securityProvider = new BouncyCastleSecurityProvider();
+        this.keypairPool = Mockito.mock(KeyPairPool.class);
         doAnswer(returnsFirstArg()).when(this.keypairCurator).merge(any());
         doAnswer(returnsFirstArg()).when(this.keypairCurator).create(any());
         doAnswer(returnsFirstArg()).when(this.keypairCurator).create(any(), anyBoolean());
@@ -57,7 +61,7 @@ class BouncyCastleKeyPairGeneratorTest {
     @Test
     public void testGenerateKeyPair() {
         KeyPairGenerator generator = new BouncyCastleKeyPairGenerator(
-            this.securityProvider, this.keypairCurator);
+            this.securityProvider, this.keypairCurator, this.keypairPool);
         KeyPair keypair = generator.generateKeyPair();
         assertNotNull(keypair);
 
@@ -73,10 +77,21 @@ class BouncyCastleKeyPairGeneratorTest {
         assertNotNull(privateKey.getEncoded());
     }
 
+    @Test
+    public void testGenerateKeyPairDrawsFromPool() {
+        KeyPair pooled = new KeyPair(null, null);
+        doReturn(pooled).when(this.keypairPool).poll();
+
+        KeyPairGenerator generator = new BouncyCastleKeyPairGenerator(
+            this.securityProvider, this.keypairCurator, this.keypairPool);
+
+        assertSame(pooled, generator.generateKeyPair());
+    }
+
     @Test
     public void testGetConsumerKeyPair() {
         KeyPairGenerator generator = new BouncyCastleKeyPairGenerator(
-            this.securityProvider, this.keypairCurator);
+            this.securityProvider, this.keypairCurator, this.keypairPool);
         Consumer consumer = new Consumer();
         assertNull(consumer.getKeyPairData());
 
@@ -103,7 +118,7 @@ class BouncyCastleKeyPairGeneratorTest {
     @Test
     public void testGetConsumerKeyPairRepeatsOutputForConsumer() {
         KeyPairGenerator generator = new BouncyCastleKeyPairGenerator(
-            this.securityProvider, this.keypairCurator);
+            this.securityProvider, this.keypairCurator, this.keypairPool);
         Consumer consumer = new Consumer();
         assertNull(consumer.getKeyPairData());
 
@@ -134,7 +149,7 @@ class BouncyCastleKeyPairGeneratorTest {
     @Test
     public void testGetConsumerKeyPairConvertsLegacySerializedKeyPairs() throws Exception {
         KeyPairGenerator generator = new BouncyCastleKeyPairGenerator(
-            this.securityProvider, this.keypairCurator);
+            this.securityProvider, this.keypairCurator, this.keypairPool);
         KeyPair keypair = generator.generateKeyPair();
         byte[] serializedPublicKey = this.serializeObject(keypair.getPublic());
         byte[] serializedPrivateKey = this.serializeObject(keypair.getPrivate());
@@ -166,7 +181,7 @@ class BouncyCastleKeyPairGeneratorTest {
     @Test
     public void testGetConsumerKeyPairRegeneratesMalformedKeyPairs() {
         KeyPairGenerator generator = new BouncyCastleKeyPairGenerator(
-            this.securityProvider, this.keypairCurator);
+            this.securityProvider, this.keypairCurator, this.keypairPool);
         byte[] publicKeyBytes = "bad_public_key".getBytes();
         byte[] privateKeyBytes = "bad_private_key".getBytes();
 
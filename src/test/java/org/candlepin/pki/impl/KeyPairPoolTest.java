@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+
+public class KeyPairPoolTest {
+
+    private DevConfig config;
+    private KeyPairPool pool;
+    private AtomicInteger generated;
+    private Supplier<KeyPair> factory;
+
+    @BeforeEach
+    public void init() {
+        this.config = TestConfig.defaults();
+        this.config.setProperty(ConfigProperties.KEYPAIR_POOL_SIZE, "5");
+        this.config.setProperty(ConfigProperties.KEYPAIR_POOL_REFILL_THREADS, "2");
+        this.config.setProperty(ConfigProperties.KEYPAIR_POOL_LOW_WATER_MARK, "2");
+
+        this.generated = new AtomicInteger();
+        this.factory = () -> {
+            this.generated.incrementAndGet();
+            return new KeyPair(null, null);
+        };
+    }
+
+    @AfterEach
+    public void cleanup() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    private void waitForAvailable(int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && this.pool.getAvailable() < expected; ++i) {
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testInvalidSizeConfig() {
+        this.config.setProperty(ConfigProperties.KEYPAIR_POOL_SIZE, "-1");
+
+        assertThrows(ConfigurationException.class, () -> new KeyPairPool(this.config, this.factory));
+    }
+
+    @Test
+    public void testInvalidRefillThreadsConfig() {
+        this.config.setProperty(ConfigProperties.KEYPAIR_POOL_REFILL_THREADS, "0");
+
+        assertThrows(ConfigurationException.class, () -> new KeyPairPool(this.config, this.factory));
+    }
+
+    @Test
+    public void testInvalidLowWaterMarkConfig() {
+        this.config.setProperty(ConfigProperties.KEYPAIR_POOL_LOW_WATER_MARK, "-1");
+
+        assertThrows(ConfigurationException.class, () -> new KeyPairPool(this.config, this.factory));
+    }
+
+    @Test
+    public void testDisabledPoolNeverGenerates() throws Exception {
+        this.config.setProperty(ConfigProperties.KEYPAIR_POOL_SIZE, "0");
+        this.pool = new KeyPairPool(this.config, this.factory);
+
+        this.pool.start();
+
+        assertFalse(this.pool.isEnabled());
+        assertNull(this.pool.poll());
+        assertEquals(0, this.generated.get());
+        assertEquals(0, this.pool.getMissCount());
+    }
+
+    @Test
+    public void testPollBeforeStartMisses() throws Exception {
+        this.pool = new KeyPairPool(this.config, this.factory);
+
+        assertTrue(this.pool.isEnabled());
+        assertNull(this.pool.poll());
+        assertEquals(1, this.pool.getMissCount());
+        assertEquals(0, this.pool.getHitCount());
+        assertEquals(1, this.pool.getLowWaterCount());
+    }
+
+    @Test
+    public void testPoolFillsToCapacity() throws Exception {
+        this.pool = new KeyPairPool(this.config, this.factory);
+        this.pool.start();
+
+        this.waitForAvailable(5);
+
+        assertEquals(5, this.pool.getAvailable());
+        assertEquals(5, this.pool.getCapacity());
+    }
+
+    @Test
+    public void testPollDrawsFromPool() throws Exception {
+        this.pool = new KeyPairPool(this.config, this.factory);
+        this.pool.start();
+        this.waitForAvailable(5);
+
+        for (int i = 0; i < 4; ++i) {
+            assertNotNull(this.pool.poll());
+        }
+
+        assertEquals(4, this.pool.getHitCount());
+        assertEquals(0, this.pool.getMissCount());
+        assertThat(this.generated.get()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    public void testRefillContinuesAfterGenerationFailures() throws Exception {
+        this.config.setProperty(ConfigProperties.KEYPAIR_POOL_REFILL_THREADS, "1");
+
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<KeyPair> failing = () -> {
+            if (attempts.incrementAndGet() <= 3) {
+                throw new IllegalStateException("entropy unavailable");
+            }
+
+            return this.factory.get();
+        };
+
+        this.pool = new KeyPairPool(this.config, failing, 10);
+        this.pool.start();
+        this.waitForAvailable(5);
+
+        assertEquals(5, this.pool.getAvailable());
+        assertEquals(3, this.pool.getFailureCount());
+    }
+
+    @Test
+    public void testShutdownClearsPool() throws Exception {
+        this.pool = new KeyPairPool(this.config, this.factory);
+        this.pool.start();
+        this.waitForAvailable(5);
+
+        this.pool.shutdown();
+
+        assertEquals(0, this.pool.getAvailable());
+    }
+
+}
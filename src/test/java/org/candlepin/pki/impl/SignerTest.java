@@ -17,6 +17,7 @@ package org.candlepin.pki.impl;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.candlepin.pki.CertificateReader;
@@ -75,4 +76,25 @@ class SignerTest {
 
         assertTrue(this.signer.verifySignature(tempFile.toFile(), this.expectedSignature));
     }
+
+    @Test
+    void shouldVerifySignatureIncrementally() {
+        byte[] data = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+
+        Signer.Verifier verifier = this.signer.createVerifier();
+        verifier.update(data, 0, 5);
+        verifier.update(data, 5, data.length - 5);
+
+        assertTrue(verifier.verify(this.expectedSignature));
+    }
+
+    @Test
+    void shouldNotVerifySignatureOfDifferentData() {
+        byte[] data = "Goodbye, World!".getBytes(StandardCharsets.UTF_8);
+
+        Signer.Verifier verifier = this.signer.createVerifier();
+        verifier.update(data, 0, data.length);
+
+        assertFalse(verifier.verify(this.expectedSignature));
+    }
 }
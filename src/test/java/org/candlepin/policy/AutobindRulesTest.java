@@ -54,6 +54,7 @@ import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
 import org.candlepin.policy.js.JsonJsContext;
+import org.candlepin.policy.js.PoolJsonCache;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.autobind.AutobindRules;
 import org.candlepin.policy.js.compliance.ComplianceStatus;
@@ -120,7 +121,7 @@ public class AutobindRulesTest {
     private Map<String, String> activeGuestAttrs;
 
     @BeforeEach
-    public void init() {
+    public void init() throws Exception {
         this.config = TestConfig.defaults();
         this.config.setProperty(ConfigProperties.PRODUCT_CACHE_MAX, "100");
 
@@ -136,7 +137,7 @@ public class AutobindRulesTest {
 
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, mockOwnerCurator);
         autobindRules = new AutobindRules(jsRules, mockOwnerCurator,
-            mapper, translator, v3CapabilityCheck);
+            mapper, translator, v3CapabilityCheck, new PoolJsonCache(config, mapper, translator));
 
         owner = new Owner();
         owner.setId(TestUtil.randomString());
@@ -22,6 +22,7 @@ import static org.mockito.Mockito.when;
 
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
+import org.candlepin.config.TestConfig;
 import org.candlepin.controller.PoolService;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.model.Consumer;
@@ -36,6 +37,7 @@ import org.candlepin.model.RulesCurator;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.PoolJsonCache;
 import org.candlepin.policy.js.RuleExecutionException;
 import org.candlepin.policy.js.entitlement.Enforcer;
 import org.candlepin.policy.js.entitlement.EntitlementRules;
@@ -122,7 +124,8 @@ public class EnforcerTest extends DatabaseTestFixture {
         enforcer = new EntitlementRules(
             new DateSourceForTesting(2010, 1, 1), jsRules, i18n, config, consumerCurator,
             consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(),
-            modelTranslator, poolService);
+            modelTranslator, poolService, new PoolJsonCache(TestConfig.defaults(),
+            ObjectMapperFactory.getRulesObjectMapper(), modelTranslator));
     }
 
     @Test
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.model.Rules;
+import org.candlepin.model.Rules.RulesSourceEnum;
+
+import org.junit.jupiter.api.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import java.util.Date;
+
+
+public class CompiledRulesTest {
+
+    private static final String RULES = String.join("\n",
+        "function test_name_space() { return Test; }",
+        "var Test = {",
+        "    leak: function() { leaked = json_context; return leaked; },",
+        "    read: function() { return typeof leaked; }",
+        "};");
+
+    private CompiledRules compile(int scopePoolSize) {
+        Rules rules = mock(Rules.class);
+        when(rules.getRules()).thenReturn(RULES);
+        when(rules.getVersion()).thenReturn("1.0");
+        when(rules.getRulesSource()).thenReturn(RulesSourceEnum.DEFAULT);
+
+        Context context = Context.enter();
+        try {
+            return new CompiledRules(context, rules, new Date(), scopePoolSize);
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
+    private Scriptable getNamespace(CompiledRules rules) {
+        Context context = Context.enter();
+        try {
+            return rules.getNamespace(context, "test_name_space");
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
+    @Test
+    public void testScopesArePrebuilt() {
+        CompiledRules rules = this.compile(4);
+
+        assertThat(rules.getPooledScopeCount()).isEqualTo(4);
+        assertThat(rules.getVersion()).isEqualTo("1.0");
+        assertThat(rules.getSource()).isEqualTo(RulesSourceEnum.DEFAULT);
+        assertThat(rules.isNativeContextSupported()).isFalse();
+    }
+
+    @Test
+    public void testReleasedScopesAreRecycledAndCleared() {
+        CompiledRules rules = this.compile(1);
+
+        Scriptable scope = rules.acquireScope();
+        assertThat(rules.getPooledScopeCount()).isZero();
+
+        scope.put("json_context", scope, "value");
+        rules.releaseScope(scope);
+
+        Scriptable recycled = rules.acquireScope();
+        assertThat(recycled).isSameAs(scope);
+        assertThat(ScriptableObject.getProperty(recycled, "json_context")).isEqualTo(Scriptable.NOT_FOUND);
+    }
+
+    @Test
+    public void testScopesBuiltWhenPoolExhausted() {
+        CompiledRules rules = this.compile(1);
+
+        Scriptable scope1 = rules.acquireScope();
+        Scriptable scope2 = rules.acquireScope();
+
+        assertThat(scope2).isNotNull().isNotSameAs(scope1);
+
+        rules.releaseScope(scope1);
+        rules.releaseScope(scope2);
+
+        // Scopes beyond the pool size are discarded
+        assertThat(rules.getPooledScopeCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testScopesNotRetainedWithPoolingDisabled() {
+        CompiledRules rules = this.compile(0);
+
+        Scriptable scope = rules.acquireScope();
+        rules.releaseScope(scope);
+
+        assertThat(rules.getPooledScopeCount()).isZero();
+        assertThat(rules.acquireScope()).isNotSameAs(scope);
+    }
+
+    @Test
+    public void testNamespaceAndFunctionHandlesAreCached() {
+        CompiledRules rules = this.compile(1);
+
+        Scriptable namespace = this.getNamespace(rules);
+        assertThat(this.getNamespace(rules)).isSameAs(namespace);
+
+        Function function = rules.getFunction("test_name_space", namespace, "read");
+        assertThat(function).isNotNull();
+        assertThat(rules.getFunction("test_name_space", namespace, "read")).isSameAs(function);
+        assertThat(rules.getFunction("test_name_space", namespace, "missing")).isNull();
+    }
+
+}
@@ -14,6 +14,7 @@
  */
 package org.candlepin.policy.js;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.times;
@@ -100,4 +101,50 @@ public class JsRunnerProviderTest {
         verify(rulesCurator, times(3)).getUpdated();
     }
 
+    @Test
+    public void globalsDoNotLeakBetweenInvocations() throws Exception {
+        when(rules.getRules()).thenReturn(String.join("\n",
+            "function test_name_space() { return Test; }",
+            "var Test = {",
+            "    leak: function() { leaked = json_context; return leaked; },",
+            "    read: function() { return typeof leaked; }",
+            "};"));
+        when(cacheProvider.get()).thenReturn(new JsRunnerRequestCache());
+        provider.compileRules(true);
+
+        JsRunner runner = provider.get();
+        runner.init("test_name_space");
+
+        ArgumentJsContext context = new ArgumentJsContext();
+        context.put("json_context", "value");
+
+        assertThat((String) runner.invokeMethod("leak", context)).isEqualTo("value");
+        assertThat((String) runner.invokeMethod("read")).isEqualTo("undefined");
+    }
+
+    @Test
+    public void runnersUseRecompiledRules() throws Exception {
+        when(rules.getRules()).thenReturn(
+            "function test_name_space() { return { version: function() { return 'v1'; } }; }");
+        when(cacheProvider.get()).thenReturn(new JsRunnerRequestCache());
+        provider.compileRules(true);
+
+        JsRunner runner1 = provider.get();
+        runner1.init("test_name_space");
+
+        Date time2 = new Date(time1.getTime() + 1000);
+        when(rulesCurator.getUpdated()).thenReturn(time2);
+        when(rules.getRules()).thenReturn(
+            "function test_name_space() { return { version: function() { return 'v2'; } }; }");
+        when(cacheProvider.get()).thenReturn(new JsRunnerRequestCache());
+
+        JsRunner runner2 = provider.get();
+        runner2.init("test_name_space");
+
+        assertThat((String) runner2.invokeMethod("version")).isEqualTo("v2");
+
+        // Runners created before the recompile continue to use the rules they were created with
+        assertThat((String) runner1.invokeMethod("version")).isEqualTo("v1");
+    }
+
 }
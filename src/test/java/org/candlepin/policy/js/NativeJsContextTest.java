@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.jackson.ObjectMapperFactory;
+import org.candlepin.model.Rules;
+import org.candlepin.model.Rules.RulesSourceEnum;
+import org.candlepin.model.RulesCurator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+public class NativeJsContextTest {
+
+    private static final String NAMESPACE = "test_name_space";
+
+    private static final String RULES = String.join("\n",
+        "var NATIVE_CONTEXT_SUPPORTED = true;",
+        "function test_name_space() { return Test; }",
+        "var Test = {",
+        "    run: function() {",
+        "        var isString = typeof json_context === 'string';",
+        "        var context = isString ? JSON.parse(json_context) : json_context;",
+        "        context.total = 0;",
+        "        for (var i = 0; i < context.items.length; i++) {",
+        "            context.total += context.items[i].quantity;",
+        "        }",
+        "        var keys = [];",
+        "        for (var key in context.nested) {",
+        "            keys.push(key);",
+        "        }",
+        "        context.keys = keys.sort();",
+        "        context.hasMissing = 'missing' in context;",
+        "        context.hasNested = 'nested' in context;",
+        "        delete context.removed;",
+        "        context.items[0].fn = function() {};",
+        "        context.special = { nan: NaN, date: new Date(0), undef: undefined, list: [1, undefined] };",
+        "        return isString ? JSON.stringify(context) : context;",
+        "    },",
+        "    isNative: function() {",
+        "        return typeof json_context !== 'string';",
+        "    }",
+        "};");
+
+    private RulesObjectMapper mapper;
+
+    @BeforeEach
+    public void setUp() {
+        this.mapper = ObjectMapperFactory.getRulesObjectMapper();
+    }
+
+    private JsRunner createRunner(String rulesSource, Set<String> nativeNamespaces) {
+        Date updated = new Date();
+        Rules rules = mock(Rules.class);
+        when(rules.getRules()).thenReturn(rulesSource);
+        when(rules.getRulesSource()).thenReturn(RulesSourceEnum.DEFAULT);
+
+        RulesCurator rulesCurator = mock(RulesCurator.class);
+        when(rulesCurator.getUpdated()).thenReturn(updated);
+        when(rulesCurator.getRules()).thenReturn(rules);
+
+        JsRunnerProvider provider = new JsRunnerProvider(rulesCurator, JsRunnerRequestCache::new,
+            nativeNamespaces);
+
+        JsRunner runner = provider.get();
+        runner.init(NAMESPACE);
+
+        return runner;
+    }
+
+    private JsonNode run(JsRunner runner) {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("b", "value");
+        nested.put("a", List.of(1, 2, 3));
+
+        JsonJsContext context = JsonJsContext.forRunner(runner, this.mapper);
+        context.put("items", List.of(Map.of("quantity", 3, "name", "first"), Map.of("quantity", 4)));
+        context.put("nested", nested);
+        context.put("removed", true);
+        context.put("unused", Map.of("flag", false, "count", 12));
+
+        Object result = runner.runJsFunction(Object.class, "run", context);
+        return context.readResult(result, JsonNode.class);
+    }
+
+    @Test
+    public void testNativeContextDisabledByDefault() {
+        JsRunner runner = this.createRunner(RULES, Set.of());
+
+        assertThat(runner.isNativeContextEnabled()).isFalse();
+        assertThat(JsonJsContext.forRunner(runner, this.mapper)).isNotInstanceOf(NativeJsContext.class);
+    }
+
+    @Test
+    public void testNativeContextRequiresRulesSupport() {
+        JsRunner runner = this.createRunner(RULES.replace("= true;", "= false;"), Set.of(NAMESPACE));
+
+        assertThat(runner.isNativeContextEnabled()).isFalse();
+    }
+
+    @Test
+    public void testNativeContextEnabledForNamespace() {
+        JsRunner runner = this.createRunner(RULES, Set.of(NAMESPACE));
+
+        assertThat(runner.isNativeContextEnabled()).isTrue();
+
+        JsonJsContext context = JsonJsContext.forRunner(runner, this.mapper);
+        assertThat(context).isInstanceOf(NativeJsContext.class);
+        assertThat((Boolean) runner.runJsFunction(Boolean.class, "isNative", context)).isTrue();
+    }
+
+    @Test
+    public void testNativeContextMatchesJsonContext() {
+        JsonNode expected = this.run(this.createRunner(RULES, Set.of()));
+        JsonNode actual = this.run(this.createRunner(RULES, Set.of(NAMESPACE)));
+
+        assertThat(actual).isEqualTo(expected);
+
+        assertThat(actual.get("total").asInt()).isEqualTo(7);
+        assertThat(actual.get("hasMissing").asBoolean()).isFalse();
+        assertThat(actual.get("hasNested").asBoolean()).isTrue();
+        assertThat(actual.has("removed")).isFalse();
+        assertThat(actual.get("items").get(0).has("fn")).isFalse();
+        assertThat(actual.get("special").get("nan").isNull()).isTrue();
+        assertThat(actual.get("special").get("date").asText()).isEqualTo("1970-01-01T00:00:00.000Z");
+        assertThat(actual.get("special").has("undef")).isFalse();
+        assertThat(actual.get("special").get("list").get(1).isNull()).isTrue();
+        assertThat(actual.get("unused").get("count").asInt()).isEqualTo(12);
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.StandardTranslator;
+import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.EnvironmentCurator;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolQuantity;
+import org.candlepin.model.Product;
+import org.candlepin.test.TestUtil;
+import org.candlepin.util.ObjectMapperFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+
+
+public class PoolJsonCacheTest {
+
+    private DevConfig config;
+    private RulesObjectMapper mapper;
+    private ModelTranslator translator;
+
+    @BeforeEach
+    public void beforeEach() {
+        this.config = TestConfig.defaults();
+        this.mapper = ObjectMapperFactory.getRulesObjectMapper();
+        this.translator = new StandardTranslator(mock(ConsumerTypeCurator.class),
+            mock(EnvironmentCurator.class), mock(OwnerCurator.class));
+    }
+
+    private PoolJsonCache buildCache() throws ConfigurationException {
+        return new PoolJsonCache(this.config, this.mapper, this.translator);
+    }
+
+    private Pool buildPool() {
+        Product product = TestUtil.createProduct()
+            .setUuid(TestUtil.randomString());
+
+        return TestUtil.createPool(TestUtil.createOwner(), product)
+            .setId(TestUtil.randomString());
+    }
+
+    @ParameterizedTest(name = "{displayName} {index}: {0}")
+    @ValueSource(longs = { 0L, -1000L })
+    public void testCacheCreationWithInvalidDuration(long duration) {
+        this.config.setProperty(ConfigProperties.CACHE_POOL_JSON_TTL, String.valueOf(duration));
+
+        assertThrows(ConfigurationException.class, this::buildCache);
+    }
+
+    @Test
+    public void testCacheCreationWithInvalidMaxEntriesConfig() {
+        this.config.setProperty(ConfigProperties.CACHE_POOL_JSON_MAX_ENTRIES, "-100");
+
+        assertThrows(ConfigurationException.class, this::buildCache);
+    }
+
+    @Test
+    public void testGetReusesJsonForUnchangedPool() throws Exception {
+        PoolJsonCache cache = this.buildCache();
+        Pool pool = this.buildPool();
+
+        JsonNode first = cache.get(pool);
+        JsonNode second = cache.get(pool);
+
+        assertSame(first, second);
+        assertThat(first.get("id").asText()).isEqualTo(pool.getId());
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetMatchesRulesSerialization() throws Exception {
+        PoolJsonCache cache = this.buildCache();
+        Pool pool = this.buildPool()
+            .setAttribute("virt_only", "true");
+
+        JsonNode expected = this.mapper.valueToTree(this.translator.translate(pool, PoolDTO.class));
+
+        assertThat(cache.get(pool)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testGetRebuildsJsonForChangedConsumedQuantity() throws Exception {
+        PoolJsonCache cache = this.buildCache();
+        Pool pool = this.buildPool();
+
+        JsonNode first = cache.get(pool);
+        pool.setConsumed(3L);
+        JsonNode second = cache.get(pool);
+
+        assertNotSame(first, second);
+        assertThat(first.get("consumed").asLong()).isZero();
+        assertThat(second.get("consumed").asLong()).isEqualTo(3L);
+    }
+
+    @Test
+    public void testGetRebuildsJsonForChangedAttributes() throws Exception {
+        PoolJsonCache cache = this.buildCache();
+        Pool pool = this.buildPool();
+
+        JsonNode first = cache.get(pool);
+        pool.setAttribute("requires_host", "abc");
+        JsonNode second = cache.get(pool);
+
+        pool.getProduct().setAttribute("sockets", "4");
+        JsonNode third = cache.get(pool);
+
+        assertNotSame(first, second);
+        assertNotSame(second, third);
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testUnsavedPoolsAreNotCached() throws Exception {
+        PoolJsonCache cache = this.buildCache();
+        Pool pool = this.buildPool()
+            .setId(null);
+
+        assertNotSame(cache.get(pool), cache.get(pool));
+        assertThat(cache.getMissCount()).isZero();
+    }
+
+    @Test
+    public void testCacheDisabledWithZeroMaxEntries() throws Exception {
+        this.config.setProperty(ConfigProperties.CACHE_POOL_JSON_MAX_ENTRIES, "0");
+
+        PoolJsonCache cache = this.buildCache();
+        Pool pool = this.buildPool();
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertNotSame(cache.get(pool), cache.get(pool));
+        assertThat(cache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void testGetPoolQuantities() throws Exception {
+        PoolJsonCache cache = this.buildCache();
+        Pool pool1 = this.buildPool();
+        Pool pool2 = this.buildPool();
+
+        ArrayNode quantities = cache.getPoolQuantities(List.of(
+            new PoolQuantity(pool1, 2), new PoolQuantity(pool2, 5)));
+
+        assertThat(quantities).hasSize(2);
+        assertThat(quantities.get(0).get("quantity").asInt()).isEqualTo(2);
+        assertSame(cache.get(pool1), quantities.get(0).get("pool"));
+        assertThat(quantities.get(1).get("quantity").asInt()).isEqualTo(5);
+        assertSame(cache.get(pool2), quantities.get(1).get("pool"));
+    }
+
+    @Test
+    public void testGetPoolsWithNullCollection() throws Exception {
+        assertThat(this.buildCache().getPools(null)).isEmpty();
+    }
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.jackson.ObjectMapperFactory;
+import org.candlepin.model.Rules;
+import org.candlepin.model.Rules.RulesSourceEnum;
+import org.candlepin.model.RulesCurator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+public class RulesBytecodeCacheTest {
+
+    private static final String RULES = String.join("\n",
+        "function test_name_space() { return Test; }",
+        "var Test = {",
+        "    add: function() { var ctx = JSON.parse(json_context); return (ctx.a + ctx.b).toString(); }",
+        "};",
+        "var ANSWER = 6 * 7;");
+
+    @TempDir
+    private Path directory;
+
+    private Rules mockRules(String source, String version) {
+        Rules rules = mock(Rules.class);
+        when(rules.getRules()).thenReturn(source);
+        when(rules.getVersion()).thenReturn(version);
+        when(rules.getRulesSource()).thenReturn(RulesSourceEnum.DEFAULT);
+
+        return rules;
+    }
+
+    private String evaluate(RulesBytecodeCache cache, Rules rules, String variable) {
+        Context context = Context.enter();
+        context.setOptimizationLevel(9);
+        try {
+            Scriptable scope = context.initStandardObjects();
+            cache.getScript(context, rules).exec(context, scope);
+
+            return Context.toString(ScriptableObject.getProperty(scope, variable));
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
+    private List<Path> listEntries() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".bin"))
+                .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testCompiledRulesAreStoredAndLoaded() throws Exception {
+        Rules rules = this.mockRules(RULES, "1.0");
+
+        RulesBytecodeCache first = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(first, rules, "ANSWER")).isEqualTo("42");
+        assertThat(first.getMissCount()).isEqualTo(1);
+        assertThat(first.getHitCount()).isZero();
+        assertThat(this.listEntries()).hasSize(1);
+
+        // A new cache on the same directory, as after a restart, loads the stored classes
+        RulesBytecodeCache second = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(second, rules, "ANSWER")).isEqualTo("42");
+        assertThat(second.getMissCount()).isZero();
+        assertThat(second.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testChangedRulesAreRecompiled() throws Exception {
+        RulesBytecodeCache cache = new RulesBytecodeCache(this.directory);
+
+        this.evaluate(cache, this.mockRules(RULES, "1.0"), "ANSWER");
+        List<Path> original = this.listEntries();
+
+        Rules changed = this.mockRules(RULES.replace("6 * 7", "6 * 8"), "1.0");
+        String result = this.evaluate(cache, changed, "ANSWER");
+        assertThat(result).isEqualTo("48");
+        assertThat(cache.getMissCount()).isEqualTo(2);
+
+        // Only the entry for the latest rules is retained
+        List<Path> entries = this.listEntries();
+        assertThat(entries).hasSize(1);
+        assertThat(entries).doesNotContainAnyElementsOf(original);
+    }
+
+    @Test
+    public void testChangedRulesVersionIsRecompiled() {
+        RulesBytecodeCache cache = new RulesBytecodeCache(this.directory);
+
+        this.evaluate(cache, this.mockRules(RULES, "1.0"), "ANSWER");
+        assertThat(this.evaluate(cache, this.mockRules(RULES, "2.0"), "ANSWER")).isEqualTo("42");
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isZero();
+
+        assertThat(this.evaluate(cache, this.mockRules(RULES, "2.0"), "ANSWER")).isEqualTo("42");
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCorruptEntryIsRecompiled() throws Exception {
+        Rules rules = this.mockRules(RULES, "1.0");
+
+        this.evaluate(new RulesBytecodeCache(this.directory), rules, "ANSWER");
+        for (Path entry : this.listEntries()) {
+            Files.write(entry, new byte[] { 0x43, 0x50, 0x52, 0x31, 0x00, 0x7F });
+        }
+
+        RulesBytecodeCache cache = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(cache, rules, "ANSWER")).isEqualTo("42");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+
+        // The corrupt entry is replaced, so the next load succeeds
+        RulesBytecodeCache restarted = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(restarted, rules, "ANSWER")).isEqualTo("42");
+        assertThat(restarted.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTamperedEntryIsRecompiled() throws Exception {
+        Rules rules = this.mockRules(RULES, "1.0");
+
+        this.evaluate(new RulesBytecodeCache(this.directory), rules, "ANSWER");
+        for (Path entry : this.listEntries()) {
+            // Flip a byte inside the class data, leaving the entry structurally intact
+            byte[] data = Files.readAllBytes(entry);
+            data[data.length / 2] ^= 0x01;
+            Files.write(entry, data);
+        }
+
+        RulesBytecodeCache cache = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(cache, rules, "ANSWER")).isEqualTo("42");
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEntryWithReplacedKeyIsRecompiled() throws Exception {
+        Rules rules = this.mockRules(RULES, "1.0");
+
+        this.evaluate(new RulesBytecodeCache(this.directory), rules, "ANSWER");
+        Files.delete(this.directory.resolve("rules.key"));
+
+        RulesBytecodeCache cache = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(cache, rules, "ANSWER")).isEqualTo("42");
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEntryWritableByOtherUsersIsRecompiled() throws Exception {
+        Rules rules = this.mockRules(RULES, "1.0");
+
+        this.evaluate(new RulesBytecodeCache(this.directory), rules, "ANSWER");
+        for (Path entry : this.listEntries()) {
+            Files.setPosixFilePermissions(entry, PosixFilePermissions.fromString("rw-rw-rw-"));
+        }
+
+        RulesBytecodeCache cache = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(cache, rules, "ANSWER")).isEqualTo("42");
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDirectoryWritableByOtherUsersIsNotUsed() throws Exception {
+        Files.setPosixFilePermissions(this.directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        RulesBytecodeCache cache = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(cache, this.mockRules(RULES, "1.0"), "ANSWER")).isEqualTo("42");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+
+        try (Stream<Path> files = Files.list(this.directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    public void testKeyReadableByOtherUsersIsNotUsed() throws Exception {
+        Rules rules = this.mockRules(RULES, "1.0");
+
+        this.evaluate(new RulesBytecodeCache(this.directory), rules, "ANSWER");
+        Files.setPosixFilePermissions(this.directory.resolve("rules.key"),
+            PosixFilePermissions.fromString("rw-r--r--"));
+
+        RulesBytecodeCache cache = new RulesBytecodeCache(this.directory);
+        assertThat(this.evaluate(cache, rules, "ANSWER")).isEqualTo("42");
+        assertThat(cache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void testCreatedDirectoryIsOnlyAccessibleByOwner() throws Exception {
+        Path subdirectory = this.directory.resolve("rules");
+
+        this.evaluate(new RulesBytecodeCache(subdirectory), this.mockRules(RULES, "1.0"), "ANSWER");
+
+        assertThat(Files.getPosixFilePermissions(subdirectory))
+            .isEqualTo(PosixFilePermissions.fromString("rwx------"));
+        assertThat(Files.getPosixFilePermissions(subdirectory.resolve("rules.key")))
+            .isEqualTo(PosixFilePermissions.fromString("rw-------"));
+    }
+
+    @Test
+    public void testUnwritableDirectoryFallsBackToCompilation() throws Exception {
+        Path file = this.directory.resolve("not-a-directory");
+        Files.write(file, new byte[0]);
+
+        RulesBytecodeCache cache = new RulesBytecodeCache(file);
+        assertThat(this.evaluate(cache, this.mockRules(RULES, "1.0"), "ANSWER")).isEqualTo("42");
+    }
+
+    @Test
+    public void testProviderRunsCachedRules() {
+        Rules rules = this.mockRules(RULES, "1.0");
+
+        RulesCurator rulesCurator = mock(RulesCurator.class);
+        when(rulesCurator.getUpdated()).thenReturn(new Date());
+        when(rulesCurator.getRules()).thenReturn(rules);
+
+        for (int i = 0; i < 2; ++i) {
+            JsRunnerProvider provider = new JsRunnerProvider(rulesCurator, JsRunnerRequestCache::new,
+                Set.of(), 1, this.directory.toString());
+
+            JsRunner runner = provider.get();
+            runner.init("test_name_space");
+
+            JsContext context = new JsonJsContext(ObjectMapperFactory.getRulesObjectMapper());
+            context.put("a", 3);
+            context.put("b", 4);
+
+            assertThat(runner.runJsFunction(String.class, "add", context)).isEqualTo("7");
+        }
+    }
+
+}
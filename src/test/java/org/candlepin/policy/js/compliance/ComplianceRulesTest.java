@@ -19,16 +19,26 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
+import org.candlepin.dto.rules.v1.ComplianceReasonDTO;
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.dto.rules.v1.EntitlementDTO;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ConsumerInstalledProduct;
@@ -112,12 +122,29 @@ public class ComplianceRulesTest {
     private EnvironmentCurator environmentCurator;
 
     private ModelTranslator translator;
+    private DevConfig config;
+    private ComplianceStatusCache statusCache;
+    private ComplianceWorkerPool workerPool;
     private I18n i18n;
     private JsRunnerProvider provider;
     private Map<String, String> activeGuestAttrs;
 
+    /**
+     * Creates the configuration used by the compliance rules under test. Subclasses may override
+     * this to run the tests against a different compliance engine.
+     *
+     * @return
+     *  the configuration to use for the compliance rules
+     */
+    protected DevConfig createConfig() {
+        return TestConfig.defaults();
+    }
+
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws Exception {
+        config = this.createConfig();
+        statusCache = new ComplianceStatusCache(config);
+        workerPool = new ComplianceWorkerPool(config);
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, mockOwnerCurator);
 
         Locale locale = new Locale("en_US");
@@ -131,7 +158,7 @@ public class ComplianceRulesTest {
         provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider);
         compliance = new ComplianceRules(provider.get(), entCurator, new StatusReasonMessageGenerator(i18n),
             eventSink, consumerCurator, consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(),
-            translator);
+            translator, new ComplianceCalculator(), statusCache, workerPool, config);
 
         this.owner = new Owner()
             .setId(TestUtil.randomString())
@@ -156,7 +183,7 @@ public class ComplianceRulesTest {
         JsRunner mockRunner = mock(JsRunner.class);
         compliance = new ComplianceRules(mockRunner, entCurator, new StatusReasonMessageGenerator(i18n),
             eventSink, consumerCurator, consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(),
-            translator);
+            translator, new ComplianceCalculator(), statusCache, workerPool, config);
 
         when(mockRunner.runJsFunction(any(Class.class), eq("get_status"),
             any(JsContext.class))).thenReturn("{\"unknown\": \"thing\"}");
@@ -166,6 +193,135 @@ public class ComplianceRulesTest {
         compliance.getStatus(c, TestUtil.createDate(2011, 8, 30));
     }
 
+    @Test
+    public void testUnknownComplianceEngine() {
+        config.setProperty(ConfigProperties.COMPLIANCE_ENGINE, "BOGUS");
+
+        assertThrows(IllegalArgumentException.class, () -> new ComplianceRules(provider.get(), entCurator,
+            new StatusReasonMessageGenerator(i18n), eventSink, consumerCurator, consumerTypeCurator,
+            ObjectMapperFactory.getRulesObjectMapper(), translator, new ComplianceCalculator(), statusCache,
+            workerPool, config));
+    }
+
+    @Test
+    public void testDifferentialEngineUsesRulesResult() {
+        ComplianceCalculator calculator = mock(ComplianceCalculator.class);
+        when(calculator.getStatus(any(), any(), any(), any(), eq(true), eq(false)))
+            .thenReturn(new ComplianceStatusDTO().setNonCompliantProducts(List.of("bogus")));
+
+        config.setProperty(ConfigProperties.COMPLIANCE_ENGINE, "DIFFERENTIAL");
+        compliance = new ComplianceRules(provider.get(), entCurator, new StatusReasonMessageGenerator(i18n),
+            eventSink, consumerCurator, consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(),
+            translator, calculator, statusCache, workerPool, config);
+
+        Consumer c = mockConsumer(PRODUCT_1, PRODUCT_2);
+        c.addEntitlement(mockEntitlement(c, PRODUCT_1));
+
+        ComplianceStatus status = compliance.getStatus(c, TestUtil.createDate(2011, 8, 30));
+
+        verify(calculator).getStatus(any(), any(), any(), any(), eq(true), eq(false));
+        assertEquals(ComplianceStatus.RED, status.getStatus());
+        assertEquals(Set.of(PRODUCT_2.getId()), status.getNonCompliantProducts());
+    }
+
+    @Test
+    public void testStatusCachedUntilInputsChange() {
+        ComplianceCalculator calculator = spy(new ComplianceCalculator());
+
+        config.setProperty(ConfigProperties.COMPLIANCE_ENGINE, "JAVA");
+        compliance = new ComplianceRules(provider.get(), entCurator, new StatusReasonMessageGenerator(i18n),
+            eventSink, consumerCurator, consumerTypeCurator, ObjectMapperFactory.getRulesObjectMapper(),
+            translator, calculator, statusCache, workerPool, config);
+
+        Consumer c = mockConsumer(PRODUCT_1, PRODUCT_2);
+        c.setUuid("cached-consumer");
+        c.addEntitlement(mockEntitlement(c, PRODUCT_1));
+
+        ComplianceStatus first = compliance.getStatus(c, TestUtil.createDate(2011, 8, 30));
+        ComplianceStatus second = compliance.getStatus(c, TestUtil.createDate(2011, 8, 30));
+
+        verify(calculator, times(1)).getStatus(any(), any(), any(), any(), eq(true), eq(false));
+        assertEquals(first.getStatus(), second.getStatus());
+        assertEquals(first.getNonCompliantProducts(), second.getNonCompliantProducts());
+
+        c.addEntitlement(mockEntitlement(c, PRODUCT_2));
+        ComplianceStatus third = compliance.getStatus(c, TestUtil.createDate(2011, 8, 30));
+
+        verify(calculator, times(2)).getStatus(any(), any(), any(), any(), eq(true), eq(false));
+        assertEquals(ComplianceStatus.GREEN, third.getStatus());
+    }
+
+    @Test
+    public void testGetStatusesMatchesIndividualStatuses() {
+        workerPool.start();
+
+        try {
+            Consumer partial = mockConsumer(PRODUCT_1, PRODUCT_2);
+            partial.setUuid("partial-consumer");
+            partial.addEntitlement(mockEntitlement(partial, PRODUCT_1));
+
+            Consumer valid = mockConsumer(PRODUCT_1);
+            valid.setUuid("valid-consumer");
+            valid.addEntitlement(mockEntitlement(valid, PRODUCT_1));
+
+            Consumer invalid = mockConsumer(PRODUCT_2);
+            invalid.setUuid("invalid-consumer");
+
+            Date date = TestUtil.createDate(2011, 8, 30);
+            Map<String, ComplianceStatus> statuses = compliance.getStatuses(
+                List.of(partial, valid, invalid), date, true, 3);
+
+            assertEquals(3, statuses.size());
+            for (Consumer consumer : List.of(partial, valid, invalid)) {
+                ComplianceStatus expected = compliance.getStatus(consumer, date);
+                ComplianceStatus actual = statuses.get(consumer.getUuid());
+
+                assertEquals(expected.getStatus(), actual.getStatus());
+                assertEquals(expected.getNonCompliantProducts(), actual.getNonCompliantProducts());
+                assertEquals(expected.getCompliantProducts().keySet(),
+                    actual.getCompliantProducts().keySet());
+            }
+        }
+        finally {
+            workerPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetStatusesWithNoConsumers() {
+        assertTrue(compliance.getStatuses(List.of(), null, true).isEmpty());
+    }
+
+    @Test
+    public void testFindDifferencesWithEquivalentStatuses() {
+        EntitlementDTO ent = new EntitlementDTO().setId("ent1");
+
+        ComplianceStatusDTO expected = new ComplianceStatusDTO()
+            .setCompliantProducts(Map.of("p1", Set.of(ent)))
+            .setNonCompliantProducts(List.of("p2", "p3"))
+            .setReasons(List.of(new ComplianceReasonDTO().setKey("NOTCOVERED").setMessage("NOTCOVERED")));
+
+        ComplianceStatusDTO actual = new ComplianceStatusDTO()
+            .setCompliantProducts(Map.of("p1", Set.of(new EntitlementDTO(ent).setQuantity(3))))
+            .setNonCompliantProducts(List.of("p3", "p2"))
+            .setReasons(List.of(new ComplianceReasonDTO().setKey("NOTCOVERED").setMessage("NOTCOVERED")));
+
+        assertTrue(ComplianceRules.findDifferences(expected, actual).isEmpty());
+    }
+
+    @Test
+    public void testFindDifferencesWithDifferentStatuses() {
+        ComplianceStatusDTO expected = new ComplianceStatusDTO()
+            .setCompliantUntil(new Date(1000L))
+            .setPartialStacks(Map.of("stack", Set.of(new EntitlementDTO().setId("ent1"))));
+
+        ComplianceStatusDTO actual = new ComplianceStatusDTO()
+            .setCompliantUntil(new Date(2000L))
+            .setPartialStacks(Map.of("stack", Set.of(new EntitlementDTO().setId("ent2"))));
+
+        assertEquals(2, ComplianceRules.findDifferences(expected, actual).size());
+    }
+
     private Consumer mockConsumer(Product... installedProducts) {
         ConsumerType ctype = new ConsumerType(ConsumerType.ConsumerTypeEnum.SYSTEM);
         ctype.setId("test-ctype-" + TestUtil.randomInt());
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+public class ComplianceWorkerPoolTest {
+
+    private DevConfig config;
+    private ComplianceWorkerPool pool;
+
+    @BeforeEach
+    public void init() {
+        this.config = TestConfig.defaults();
+        this.config.setProperty(ConfigProperties.COMPLIANCE_BULK_THREADS, "2");
+        this.config.setProperty(ConfigProperties.COMPLIANCE_BULK_MAX_CONCURRENCY, "2");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    private static List<Integer> items(int count) {
+        return IntStream.range(0, count)
+            .boxed()
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testInvalidThreadsConfig() {
+        this.config.setProperty(ConfigProperties.COMPLIANCE_BULK_THREADS, "-1");
+
+        assertThrows(ConfigurationException.class, () -> new ComplianceWorkerPool(this.config));
+    }
+
+    @Test
+    public void testInvalidMaxConcurrencyConfig() {
+        this.config.setProperty(ConfigProperties.COMPLIANCE_BULK_MAX_CONCURRENCY, "0");
+
+        assertThrows(ConfigurationException.class, () -> new ComplianceWorkerPool(this.config));
+    }
+
+    @Test
+    public void testInvalidConcurrency() throws Exception {
+        this.pool = new ComplianceWorkerPool(this.config);
+
+        assertThrows(IllegalArgumentException.class, () -> this.pool.forEach(items(1), 0, item -> {}));
+        assertThrows(IllegalArgumentException.class, () -> this.pool.forEach(items(1), 1, null));
+    }
+
+    @Test
+    public void testItemsProcessedOnCallerWhenNotStarted() throws Exception {
+        this.pool = new ComplianceWorkerPool(this.config);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Set<Integer> processed = ConcurrentHashMap.newKeySet();
+
+        this.pool.forEach(items(10), 2, item -> {
+            threads.add(Thread.currentThread());
+            processed.add(item);
+        });
+
+        assertFalse(this.pool.isRunning());
+        assertEquals(Set.of(Thread.currentThread()), threads);
+        assertEquals(Set.copyOf(items(10)), processed);
+        assertEquals(10, this.pool.getEvaluatedCount());
+    }
+
+    @Test
+    public void testItemsProcessedConcurrently() throws Exception {
+        this.pool = new ComplianceWorkerPool(this.config);
+        this.pool.start();
+
+        // Each of the first two items waits for the other, so they must be processed concurrently
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Set<Integer> processed = ConcurrentHashMap.newKeySet();
+
+        this.pool.forEach(items(10), 2, item -> {
+            if (item < 2) {
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                }
+                catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            threads.add(Thread.currentThread());
+            processed.add(item);
+        });
+
+        assertTrue(this.pool.isRunning());
+        assertEquals(Set.copyOf(items(10)), processed);
+        assertThat(threads)
+            .hasSize(2)
+            .contains(Thread.currentThread())
+            .anyMatch(thread -> thread.getName().startsWith("compliance-worker-") && thread.isDaemon());
+        assertEquals(1, this.pool.getRecruitedCount());
+    }
+
+    @Test
+    public void testConcurrencyLimitedToConfiguredMaximum() throws Exception {
+        this.config.setProperty(ConfigProperties.COMPLIANCE_BULK_THREADS, "4");
+        this.pool = new ComplianceWorkerPool(this.config);
+        this.pool.start();
+
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        this.pool.forEach(items(50), 8, item -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+            try {
+                Thread.sleep(1);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            active.decrementAndGet();
+        });
+
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+        assertThat(this.pool.getRecruitedCount()).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    public void testFailureIsRethrown() throws Exception {
+        this.pool = new ComplianceWorkerPool(this.config);
+        this.pool.start();
+
+        IllegalStateException failure = new IllegalStateException("bad consumer");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+            this.pool.forEach(items(10), 2, item -> {
+                if (item == 5) {
+                    throw failure;
+                }
+            }));
+
+        assertSame(failure, thrown);
+    }
+
+}
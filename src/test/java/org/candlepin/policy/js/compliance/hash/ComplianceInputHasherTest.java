@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.compliance.hash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.EntitlementDTO;
+import org.candlepin.dto.rules.v1.GuestIdDTO;
+import org.candlepin.dto.rules.v1.PoolDTO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ComplianceInputHasherTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private Date now;
+    private String initialHash;
+
+    @BeforeEach
+    public void setUp() {
+        // Midday, so small shifts in time stay within the same day
+        this.now = new Date((System.currentTimeMillis() / DAY) * DAY + DAY / 2);
+        this.initialHash = this.hash(this.createConsumer(), this.createEntitlements(), this.createGuests(),
+            this.now);
+    }
+
+    private ConsumerDTO createConsumer() {
+        return new ConsumerDTO()
+            .setUuid("consumer-uuid")
+            .setFact("cpu.cpu_socket(s)", "2")
+            .setFact("unrelated", "value")
+            .setInstalledProducts(Set.of("p1", "p2"));
+    }
+
+    private List<EntitlementDTO> createEntitlements() {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("sockets", "2");
+
+        PoolDTO pool = new PoolDTO()
+            .setId("pool-1")
+            .setProductId("product-1")
+            .setProductAttributes(attributes);
+
+        List<EntitlementDTO> entitlements = new ArrayList<>();
+        entitlements.add(new EntitlementDTO()
+            .setId("ent-1")
+            .setQuantity(1)
+            .setPool(pool)
+            .setStartDate(new Date(this.now.getTime() - DAY))
+            .setEndDate(new Date(this.now.getTime() + DAY)));
+
+        return entitlements;
+    }
+
+    private List<GuestIdDTO> createGuests() {
+        List<GuestIdDTO> guests = new ArrayList<>();
+        guests.add(new GuestIdDTO().setGuestId("guest-1"));
+
+        return guests;
+    }
+
+    private String hash(ConsumerDTO consumer, List<EntitlementDTO> entitlements, List<GuestIdDTO> guests,
+        Date date) {
+
+        return new ComplianceInputHasher(consumer, entitlements, guests, date, true).hash();
+    }
+
+    @Test
+    public void ensureSameHashWithNoChanges() {
+        assertEquals(this.initialHash, this.hash(this.createConsumer(), this.createEntitlements(),
+            this.createGuests(), this.now));
+    }
+
+    @Test
+    public void ensureSameHashLaterInTheDay() {
+        Date later = new Date(this.now.getTime() + 60000);
+
+        assertEquals(this.initialHash, this.hash(this.createConsumer(), this.createEntitlements(),
+            this.createGuests(), later));
+    }
+
+    @Test
+    public void ensureSameHashWhenUnrelatedFactChanges() {
+        ConsumerDTO consumer = this.createConsumer().setFact("unrelated", "changed");
+
+        assertEquals(this.initialHash, this.hash(consumer, this.createEntitlements(), this.createGuests(),
+            this.now));
+    }
+
+    @Test
+    public void ensureDifferentHashWhenRelatedFactChanges() {
+        ConsumerDTO consumer = this.createConsumer().setFact("cpu.cpu_socket(s)", "4");
+
+        assertNotEquals(this.initialHash, this.hash(consumer, this.createEntitlements(), this.createGuests(),
+            this.now));
+    }
+
+    @Test
+    public void ensureDifferentHashWhenInstalledProductsChange() {
+        ConsumerDTO consumer = this.createConsumer().setInstalledProducts(Set.of("p1"));
+
+        assertNotEquals(this.initialHash, this.hash(consumer, this.createEntitlements(), this.createGuests(),
+            this.now));
+    }
+
+    @Test
+    public void ensureDifferentHashWhenEntitlementQuantityChanges() {
+        List<EntitlementDTO> entitlements = this.createEntitlements();
+        entitlements.get(0).setQuantity(2);
+
+        assertNotEquals(this.initialHash, this.hash(this.createConsumer(), entitlements, this.createGuests(),
+            this.now));
+    }
+
+    @Test
+    public void ensureDifferentHashWhenPoolAttributesChange() {
+        List<EntitlementDTO> entitlements = this.createEntitlements();
+        entitlements.get(0).getPool().setProductAttributes(Map.of("sockets", "4"));
+
+        assertNotEquals(this.initialHash, this.hash(this.createConsumer(), entitlements, this.createGuests(),
+            this.now));
+    }
+
+    @Test
+    public void ensureDifferentHashWhenGuestsChange() {
+        List<GuestIdDTO> guests = this.createGuests();
+        guests.add(new GuestIdDTO().setGuestId("guest-2"));
+
+        assertNotEquals(this.initialHash, this.hash(this.createConsumer(), this.createEntitlements(), guests,
+            this.now));
+    }
+
+    @Test
+    public void ensureDifferentHashOnAnotherDay() {
+        Date tomorrow = new Date(this.now.getTime() + DAY);
+
+        assertNotEquals(this.initialHash, this.hash(this.createConsumer(), this.createEntitlements(),
+            this.createGuests(), tomorrow));
+    }
+
+    @Test
+    public void ensureDifferentHashWhenEntitlementExpiresWithinTheDay() {
+        List<EntitlementDTO> entitlements = this.createEntitlements();
+        entitlements.get(0).setEndDate(new Date(this.now.getTime() + 1000));
+        String before = this.hash(this.createConsumer(), entitlements, this.createGuests(), this.now);
+        String after = this.hash(this.createConsumer(), entitlements, this.createGuests(),
+            new Date(this.now.getTime() + 2000));
+
+        assertNotEquals(before, after);
+    }
+
+}
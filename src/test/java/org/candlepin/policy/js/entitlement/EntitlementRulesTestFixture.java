@@ -44,6 +44,7 @@ import org.candlepin.model.RulesCurator;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.PoolJsonCache;
 import org.candlepin.policy.js.compliance.ComplianceStatus;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.DateSourceImpl;
@@ -103,7 +104,7 @@ public class EntitlementRulesTestFixture {
     protected ModelTranslator translator;
 
     @BeforeEach
-    public void createEnforcer() {
+    public void createEnforcer() throws Exception {
         this.config = TestConfig.defaults();
         this.config.setProperty(ConfigProperties.PRODUCT_CACHE_MAX, "100");
 
@@ -129,7 +130,8 @@ public class EntitlementRulesTestFixture {
             consumerTypeCurator,
             ObjectMapperFactory.getRulesObjectMapper(),
             translator,
-            poolService);
+            poolService,
+            new PoolJsonCache(config, ObjectMapperFactory.getRulesObjectMapper(), translator));
 
         owner = TestUtil.createOwner();
 
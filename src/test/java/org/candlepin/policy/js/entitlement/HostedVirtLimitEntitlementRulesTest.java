@@ -64,6 +64,7 @@ import org.candlepin.policy.SystemPurposeComplianceRules;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.PoolJsonCache;
 import org.candlepin.policy.js.compliance.ComplianceRules;
 import org.candlepin.policy.js.pool.PoolRules;
 import org.candlepin.test.TestUtil;
@@ -149,7 +150,7 @@ public class HostedVirtLimitEntitlementRulesTest {
     private Consumer consumer;
 
     @BeforeEach
-    public void createEnforcer() {
+    public void createEnforcer() throws Exception {
         this.config = TestConfig.defaults();
         this.config.setProperty(ConfigProperties.PRODUCT_CACHE_MAX, "100");
         InputStream is = this.getClass().getResourceAsStream(
@@ -176,7 +177,8 @@ public class HostedVirtLimitEntitlementRulesTest {
             consumerTypeCurator,
             ObjectMapperFactory.getRulesObjectMapper(),
             translator,
-            poolService);
+            poolService,
+            new PoolJsonCache(config, ObjectMapperFactory.getRulesObjectMapper(), translator));
 
         owner = TestUtil.createOwner();
 
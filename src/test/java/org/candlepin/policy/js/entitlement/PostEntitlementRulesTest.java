@@ -46,6 +46,7 @@ import org.candlepin.model.RulesCurator;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.PoolJsonCache;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.DateSourceImpl;
 import org.candlepin.util.ObjectMapperFactory;
@@ -104,7 +105,7 @@ public class PostEntitlementRulesTest {
     private Consumer consumer;
 
     @BeforeEach
-    public void createEnforcer() {
+    public void createEnforcer() throws Exception {
         this.config = TestConfig.defaults();
         this.config.setProperty(ConfigProperties.PRODUCT_CACHE_MAX, "100");
 
@@ -128,7 +129,8 @@ public class PostEntitlementRulesTest {
             consumerTypeCurator,
             ObjectMapperFactory.getRulesObjectMapper(),
             translator,
-            poolService);
+            poolService,
+            new PoolJsonCache(config, ObjectMapperFactory.getRulesObjectMapper(), translator));
 
         owner = TestUtil.createOwner();
 
@@ -19,7 +19,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.CandlepinCache;
+import org.candlepin.controller.ConsumerCheckInRecorder;
+import org.candlepin.dto.api.server.v1.CacheRegionStatisticsDTO;
+import org.candlepin.dto.api.server.v1.CheckInStatisticsDTO;
+import org.candlepin.dto.api.server.v1.KeyPairPoolStatisticsDTO;
 import org.candlepin.dto.api.server.v1.QueueStatus;
+import org.candlepin.pki.impl.KeyPairPool;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,11 +42,17 @@ public class AdminResourceTest {
 
     private AdminResource ar;
     private EventSink sink;
+    private CandlepinCache candlepinCache;
+    private ConsumerCheckInRecorder checkInRecorder;
+    private KeyPairPool keyPairPool;
 
     @BeforeEach
     public void init() {
         sink = mock(EventSink.class);
-        ar = new AdminResource(sink);
+        candlepinCache = mock(CandlepinCache.class);
+        checkInRecorder = mock(ConsumerCheckInRecorder.class);
+        keyPairPool = mock(KeyPairPool.class);
+        ar = new AdminResource(sink, candlepinCache, checkInRecorder, keyPairPool);
     }
 
     @Test
@@ -61,4 +73,58 @@ public class AdminResourceTest {
         when(sink.getQueueInfo()).thenReturn(mockQueueStats);
         assertEquals(2, ar.getQueueStats().size());
     }
+
+    @Test
+    public void testCacheStatistics() {
+        CacheRegionStatisticsDTO stats = new CacheRegionStatisticsDTO()
+            .region("org.candlepin.model.Product")
+            .hitCount(10L)
+            .missCount(2L)
+            .putCount(2L)
+            .elementCount(2L);
+
+        when(candlepinCache.getEntityCacheStatistics()).thenReturn(List.of(stats));
+
+        assertEquals(List.of(stats), ar.getCacheStatistics());
+    }
+
+    @Test
+    public void testCheckInStatistics() {
+        when(checkInRecorder.getPendingCount()).thenReturn(3);
+        when(checkInRecorder.getRecordedCount()).thenReturn(10L);
+        when(checkInRecorder.getCoalescedCount()).thenReturn(4L);
+        when(checkInRecorder.getWrittenCount()).thenReturn(5L);
+        when(checkInRecorder.getFlushCount()).thenReturn(2L);
+        when(checkInRecorder.getFailureCount()).thenReturn(1L);
+
+        CheckInStatisticsDTO expected = new CheckInStatisticsDTO()
+            .pendingCount(3L)
+            .recordedCount(10L)
+            .coalescedCount(4L)
+            .writtenCount(5L)
+            .flushCount(2L)
+            .failureCount(1L);
+
+        assertEquals(expected, ar.getCheckInStatistics());
+    }
+
+    @Test
+    public void testKeyPairPoolStatistics() {
+        when(keyPairPool.getCapacity()).thenReturn(100);
+        when(keyPairPool.getAvailable()).thenReturn(40);
+        when(keyPairPool.getHitCount()).thenReturn(60L);
+        when(keyPairPool.getMissCount()).thenReturn(5L);
+        when(keyPairPool.getLowWaterCount()).thenReturn(2L);
+        when(keyPairPool.getFailureCount()).thenReturn(1L);
+
+        KeyPairPoolStatisticsDTO expected = new KeyPairPoolStatisticsDTO()
+            .capacity(100)
+            .available(40)
+            .hitCount(60L)
+            .missCount(5L)
+            .lowWaterCount(2L)
+            .failureCount(1L);
+
+        assertEquals(expected, ar.getKeyPairPoolStatistics());
+    }
 }
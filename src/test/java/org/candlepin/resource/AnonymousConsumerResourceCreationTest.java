@@ -36,6 +36,7 @@ import org.candlepin.auth.permissions.PermissionFactory;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.EntitlementCertificateService;
 import org.candlepin.controller.Entitler;
@@ -198,6 +199,8 @@ public class AnonymousConsumerResourceCreationTest {
     private SCACertificateGenerator scaCertificateGenerator;
     @Mock
     private AnonymousCertificateGenerator anonymousCertificateGenerator;
+    @Mock
+    private ConsumerCheckInRecorder checkInRecorder;
 
     protected ModelTranslator modelTranslator;
 
@@ -232,7 +235,8 @@ public class AnonymousConsumerResourceCreationTest {
             this.dtoValidator, this.principalProvider, this.contentOverrideValidator,
             this.consumerContentOverrideCurator, this.entCertService, this.poolService,
             this.environmentContentCurator, this.anonymousConsumerCurator, this.anonymousCertCurator,
-            this.ownerService, this.scaCertificateGenerator, this.anonymousCertificateGenerator
+            this.ownerService, this.scaCertificateGenerator, this.anonymousCertificateGenerator,
+            this.checkInRecorder
         );
 
         this.system = this.initConsumerType();
@@ -27,6 +27,7 @@ import org.candlepin.audit.EventSink;
 import org.candlepin.auth.Access;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.SubResource;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.EntitlementCertificateService;
 import org.candlepin.controller.Entitler;
@@ -140,6 +141,8 @@ public class ConsumerContentOverrideResourceTest extends DatabaseTestFixture {
     private SCACertificateGenerator scaCertificateGenerator;
     @Mock
     private AnonymousCertificateGenerator anonymousCertificateGenerator;
+    @Mock
+    private ConsumerCheckInRecorder checkInRecorder;
 
     private ConsumerResource resource;
 
@@ -195,7 +198,8 @@ public class ConsumerContentOverrideResourceTest extends DatabaseTestFixture {
             this.anonymousContentAccessCertCurator,
             this.ownerService,
             this.scaCertificateGenerator,
-            this.anonymousCertificateGenerator
+            this.anonymousCertificateGenerator,
+            this.checkInRecorder
         );
     }
 
@@ -43,6 +43,7 @@ import org.candlepin.auth.permissions.PermissionFactory.PermissionType;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.EntitlementCertificateService;
 import org.candlepin.controller.Entitler;
@@ -213,6 +214,8 @@ public class ConsumerResourceCreationTest {
     @Mock
     private AnonymousCertificateGenerator anonymousCertificateGenerator;
     @Mock
+    private ConsumerCheckInRecorder checkInRecorder;
+    @Mock
     private AnonymousCloudConsumerCurator anonymousConsumerCurator;
     @Mock
     private AnonymousContentAccessCertificateCurator anonymousCertCurator;
@@ -283,7 +286,8 @@ public class ConsumerResourceCreationTest {
             this.anonymousCertCurator,
             this.ownerService,
             this.scaCertificateGenerator,
-            this.anonymousCertificateGenerator
+            this.anonymousCertificateGenerator,
+            this.checkInRecorder
         );
 
         this.system = this.initConsumerType();
@@ -32,6 +32,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -53,6 +54,7 @@ import org.candlepin.config.Configuration;
 import org.candlepin.config.TestConfig;
 import org.candlepin.controller.AutobindDisabledForOwnerException;
 import org.candlepin.controller.AutobindHypervisorDisabledException;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.controller.ContentAccessManager;
 import org.candlepin.controller.ContentAccessMode;
 import org.candlepin.controller.EntitlementCertificateService;
@@ -279,6 +281,8 @@ public class ConsumerResourceTest {
     private SCACertificateGenerator scaCertificateGenerator;
     @Mock
     private AnonymousCertificateGenerator anonymousCertificateGenerator;
+    @Mock
+    private ConsumerCheckInRecorder checkInRecorder;
 
     private ModelTranslator translator;
     private ConsumerResource consumerResource;
@@ -356,7 +360,8 @@ public class ConsumerResourceTest {
             this.anonymousCertCurator,
             this.ownerService,
             this.scaCertificateGenerator,
-            this.anonymousCertificateGenerator
+            this.anonymousCertificateGenerator,
+            this.checkInRecorder
         );
     }
 
@@ -564,7 +569,8 @@ public class ConsumerResourceTest {
             this.anonymousCertCurator,
             this.ownerService,
             this.scaCertificateGenerator,
-            this.anonymousCertificateGenerator
+            this.anonymousCertificateGenerator,
+            this.checkInRecorder
         );
 
         // Fixme throw custom exception from generator instead of generic RuntimeException
@@ -1138,16 +1144,17 @@ public class ConsumerResourceTest {
         List<String> uuids = new ArrayList<>();
         uuids.add(c.getUuid());
         uuids.add(c2.getUuid());
-        when(consumerCurator.findByUuids(uuids)).thenReturn(consumers);
+        when(consumerCurator.findByUuidsWithComplianceData(uuids)).thenReturn(consumers);
 
         ComplianceStatus status = new ComplianceStatus();
-        when(complianceRules.getStatus(any(Consumer.class), any(Date.class)))
-            .thenReturn(status);
+        when(complianceRules.getStatuses(consumers, null, true))
+            .thenReturn(Map.of(c.getUuid(), status, c2.getUuid(), status));
 
         Map<String, ComplianceStatusDTO> results = consumerResource.getComplianceStatusList(uuids);
         assertEquals(2, results.size());
         assertTrue(results.containsKey(c.getUuid()));
         assertTrue(results.containsKey(c2.getUuid()));
+        verify(complianceRules, never()).getStatus(any(Consumer.class), any());
     }
 
     @Test
@@ -42,6 +42,7 @@ import org.candlepin.async.JobConfig;
 import org.candlepin.async.JobException;
 import org.candlepin.async.JobManager;
 import org.candlepin.async.tasks.ImportJob;
+import org.candlepin.async.tasks.SCACertificateGenerationJob;
 import org.candlepin.audit.EventFactory;
 import org.candlepin.audit.EventSink;
 import org.candlepin.auth.Access;
@@ -101,6 +102,7 @@ import org.candlepin.model.OwnerNotFoundException;
 import org.candlepin.model.PermissionBlueprint;
 import org.candlepin.model.Pool;
 import org.candlepin.model.PoolCurator;
+import org.candlepin.model.PoolQualifier;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductCurator;
 import org.candlepin.model.Role;
@@ -362,7 +364,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
         securityInterceptor.enable();
 
         ownerResource.listOwnerPools(owner.getKey(), null, null, null, null, false, null,
-            null, new ArrayList<>(), false, false, null, null, null, null, null, null);
+            null, new ArrayList<>(), false, false, null, null, null, null, null, null, null);
     }
 
     @Test
@@ -397,7 +399,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
         when(this.principalProvider.get()).thenReturn(principal);
         Stream<PoolDTO> result = ownerResource.listOwnerPools(owner.getKey(), c.getUuid(), null, null, null,
             false, Util.toDateTime(new Date()), null, new ArrayList<>(),
-            false, false, null, null, null, null, null, null);
+            false, false, null, null, null, null, null, null, null);
 
         assertNotNull(result);
         List<PoolDTO> nowList = result.collect(Collectors.toList());
@@ -408,7 +410,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
         Date activeOn = new Date(pool2.getStartDate().getTime() + 1000L * 60 * 60 * 24);
         result = ownerResource.listOwnerPools(owner.getKey(), c.getUuid(), null, null, null, false,
             Util.toDateTime(activeOn), null, new ArrayList<>(),
-            false, false, null, null, null, null, null, null);
+            false, false, null, null, null, null, null, null, null);
 
         assertNotNull(result);
         List<PoolDTO> futureList = result.collect(Collectors.toList());
@@ -430,7 +432,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
         when(this.principalProvider.get()).thenReturn(principal);
 
         Stream<PoolDTO> result = ownerResource.listOwnerPools(owner.getKey(), null, null, null, null, true,
-            null, null, new ArrayList<>(), false, false, null, null, null, null, null, null);
+            null, null, new ArrayList<>(), false, false, null, null, null, null, null, null, null);
 
         assertNotNull(result);
         List<PoolDTO> pools = result.collect(Collectors.toList());
@@ -456,7 +458,8 @@ public class OwnerResourceTest extends DatabaseTestFixture {
 
         when(this.principalProvider.get()).thenReturn(principal);
         Stream<PoolDTO> result = ownerResource.listOwnerPools(owner.getKey(), null,
-            null, null, null, true, null, null, params, false, false, null, null, null, null, null, null);
+            null, null, null, true, null, null, params, false, false, null, null, null, null, null, null,
+            null);
 
         assertNotNull(result);
         List<PoolDTO> pools = result.collect(Collectors.toList());
@@ -467,7 +470,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
         params = List.of("virt_only:true");
 
         result = ownerResource.listOwnerPools(owner.getKey(), null, null,
-            null, null, true, null, null, params, false, false, null, null, null, null, null, null);
+            null, null, true, null, null, params, false, false, null, null, null, null, null, null, null);
 
         assertNotNull(result);
         pools = result.collect(Collectors.toList());
@@ -494,7 +497,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
 
         when(this.principalProvider.get()).thenReturn(principal);
         Stream<PoolDTO> result = ownerResource.listOwnerPools(owner.getKey(), null, null, null, null, true,
-            null, null, params, false, false, null, null, null, null, null, null);
+            null, null, params, false, false, null, null, null, null, null, null, null);
 
         assertNotNull(result);
         List<PoolDTO> pools = result.collect(Collectors.toList());
@@ -504,7 +507,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
         params = List.of(String.format("%s:!true", Pool.Attributes.DEVELOPMENT_POOL));
 
         result = ownerResource.listOwnerPools(owner.getKey(), null, null, null, null,
-            true, null, null, params, false, false, null, null, null, null, null, null);
+            true, null, null, params, false, false, null, null, null, null, null, null, null);
 
         assertNotNull(result);
         pools = result.collect(Collectors.toList());
@@ -542,7 +545,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
         // Filtering should just cause this to return no results:
         assertThrows(NotFoundException.class,
             () -> ownerResource.listOwnerPools(owner.getKey(), null, null, null, null, true, null,
-                null, new ArrayList<>(), false, false, null, null, null, null, null, null));
+                null, new ArrayList<>(), false, false, null, null, null, null, null, null, null));
     }
 
     @Test
@@ -1098,7 +1101,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
 
         Stream<PoolDTO> poolStream = ownerResource.listOwnerPools(owner.getKey(), c.getUuid(), null,
             p.getId(), null, true, null, null, new ArrayList<>(),
-            false, false, null, null, null, null, null, null);
+            false, false, null, null, null, null, null, null, null);
 
         assertNotNull(poolStream);
         List<PoolDTO> pools = poolStream.collect(Collectors.toList());
@@ -1126,7 +1129,7 @@ public class OwnerResourceTest extends DatabaseTestFixture {
 
         assertThrows(NotFoundException.class, () -> ownerResource.listOwnerPools(
             owner.getKey(), c.getUuid(), null, p.getUuid(), null, true, null, null,
-            new ArrayList<>(), false, false, null, null, null, null, null, null));
+            new ArrayList<>(), false, false, null, null, null, null, null, null, null));
     }
 
     @Test
@@ -1771,6 +1774,79 @@ public class OwnerResourceTest extends DatabaseTestFixture {
             any(String.class), any(ConflictOverrides.class));
     }
 
+    private PoolQualifier listOwnerPoolsWithExactCount(Boolean exactCount) {
+        Owner owner = new Owner().setKey("pool-owner");
+        when(this.mockOwnerCurator.getByKey(owner.getKey())).thenReturn(owner);
+
+        Page<List<Pool>> page = new Page<>();
+        page.setPageData(new ArrayList<>());
+        when(this.mockPoolManager.listAvailableEntitlementPools(any(PoolQualifier.class))).thenReturn(page);
+
+        this.buildOwnerResource().listOwnerPools(owner.getKey(), null, null, null, null, false, null,
+            null, new ArrayList<>(), false, false, null, null, exactCount, null, null, null, null);
+
+        ArgumentCaptor<PoolQualifier> captor = ArgumentCaptor.forClass(PoolQualifier.class);
+        verify(this.mockPoolManager).listAvailableEntitlementPools(captor.capture());
+
+        return captor.getValue();
+    }
+
+    @Test
+    public void testListOwnerPoolsCountsExactlyByDefault() {
+        assertTrue(this.listOwnerPoolsWithExactCount(null).isExactCount());
+    }
+
+    @Test
+    public void testListOwnerPoolsCountsExactlyWhenRequested() {
+        assertTrue(this.listOwnerPoolsWithExactCount(true).isExactCount());
+    }
+
+    @Test
+    public void testListOwnerPoolsMayEstimateCount() {
+        assertFalse(this.listOwnerPoolsWithExactCount(false).isExactCount());
+    }
+
+    @Test
+    public void testGenerateSCACertificatesQueuesJobForOwner() throws JobException {
+        Owner owner = new Owner()
+            .setKey("sca-owner")
+            .setContentAccessMode(ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue());
+
+        AsyncJobStatus status = new AsyncJobStatus()
+            .setName(SCACertificateGenerationJob.JOB_NAME);
+
+        when(this.mockOwnerCurator.getByKey(owner.getKey())).thenReturn(owner);
+        when(this.mockJobManager.queueJob(any(JobConfig.class))).thenReturn(status);
+
+        AsyncJobStatusDTO dto = this.buildOwnerResource().generateSCACertificates(owner.getKey());
+
+        assertNotNull(dto);
+        assertEquals(SCACertificateGenerationJob.JOB_NAME, dto.getName());
+
+        ArgumentCaptor<JobConfig> captor = ArgumentCaptor.forClass(JobConfig.class);
+        verify(this.mockJobManager).queueJob(captor.capture());
+
+        JobConfig config = captor.getValue();
+        assertEquals(SCACertificateGenerationJob.JOB_KEY, config.getJobKey());
+        assertEquals(owner, config.getContextOwner());
+        assertEquals(owner.getKey(),
+            config.getJobArguments().getAsString(SCACertificateGenerationJob.OWNER_KEY));
+    }
+
+    @Test
+    public void testGenerateSCACertificatesRequiresSimpleContentAccess() throws JobException {
+        Owner owner = new Owner()
+            .setKey("entitlement-owner")
+            .setContentAccessMode(ContentAccessMode.ENTITLEMENT.toDatabaseValue());
+
+        when(this.mockOwnerCurator.getByKey(owner.getKey())).thenReturn(owner);
+
+        OwnerResource resource = this.buildOwnerResource();
+
+        assertThrows(BadRequestException.class, () -> resource.generateSCACertificates(owner.getKey()));
+        verify(this.mockJobManager, never()).queueJob(any(JobConfig.class));
+    }
+
     @Test
     public void upstreamConsumers() {
         Owner owner = mock(Owner.class);
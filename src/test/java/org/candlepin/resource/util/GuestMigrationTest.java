@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resource.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.candlepin.model.Consumer;
+import org.candlepin.model.GuestId;
+import org.candlepin.model.HypervisorId;
+import org.candlepin.resource.util.GuestMigration.MigrationManifest;
+
+import org.junit.jupiter.api.Test;
+
+
+public class GuestMigrationTest {
+
+    private Consumer createHost(String hypervisorId) {
+        Consumer host = new Consumer();
+        host.ensureUUID();
+        host.setHypervisorId(new HypervisorId()
+            .setHypervisorId(hypervisorId)
+            .setReportHash("hash-" + hypervisorId));
+
+        return host;
+    }
+
+    @Test
+    public void testWriteMigrationChangesClearsReportHashes() {
+        Consumer oldHost = this.createHost("old_host");
+        Consumer newHost = this.createHost("new_host");
+        Consumer otherHost = this.createHost("other_host");
+
+        GuestId guest = new GuestId("guest_1");
+        oldHost.addGuestId(guest);
+
+        MigrationManifest manifest = new MigrationManifest(newHost);
+        manifest.addGuestId(new GuestId("guest_1"));
+        manifest.addOldMapping(oldHost, guest);
+
+        manifest.writeMigrationChanges();
+
+        assertThat(newHost.getGuestIds()).extracting(GuestId::getGuestId).containsExactly("guest_1");
+        assertThat(oldHost.getGuestIds()).isEmpty();
+
+        assertThat(newHost.getHypervisorId().getReportHash()).isNull();
+        assertThat(oldHost.getHypervisorId().getReportHash()).isNull();
+        assertThat(otherHost.getHypervisorId().getReportHash()).isEqualTo("hash-other_host");
+    }
+
+}
@@ -24,6 +24,9 @@ import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
+import org.candlepin.cache.ComplianceStatusCache;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.dto.api.server.v1.DateRange;
@@ -45,8 +48,10 @@ import org.candlepin.model.Rules;
 import org.candlepin.model.RulesCurator;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.compliance.ComplianceCalculator;
 import org.candlepin.policy.js.compliance.ComplianceRules;
 import org.candlepin.policy.js.compliance.ComplianceStatus;
+import org.candlepin.policy.js.compliance.ComplianceWorkerPool;
 import org.candlepin.policy.js.compliance.StatusReasonMessageGenerator;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.ObjectMapperFactory;
@@ -117,7 +122,8 @@ public class InstalledProductStatusCalculatorTest {
     private ConsumerEnricher consumerEnricher;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws Exception {
+        DevConfig config = TestConfig.defaults();
         translator = new StandardTranslator(this.consumerTypeCurator,
             this.environmentCurator,
             this.ownerCurator);
@@ -136,7 +142,8 @@ public class InstalledProductStatusCalculatorTest {
 
         this.complianceRules = new ComplianceRules(provider.get(), this.entCurator,
             new StatusReasonMessageGenerator(i18n), eventSink, this.consumerCurator, this.consumerTypeCurator,
-            ObjectMapperFactory.getRulesObjectMapper(), translator);
+            ObjectMapperFactory.getRulesObjectMapper(), translator, new ComplianceCalculator(),
+            new ComplianceStatusCache(config), new ComplianceWorkerPool(config), config);
 
         this.consumerEnricher = new ConsumerEnricher(this.complianceRules, this.productCurator);
     }
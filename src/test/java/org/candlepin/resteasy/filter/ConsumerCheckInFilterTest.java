@@ -21,6 +21,7 @@ import static org.mockito.Mockito.when;
 import org.candlepin.auth.ConsumerPrincipal;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.UpdateConsumerCheckIn;
+import org.candlepin.controller.ConsumerCheckInRecorder;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.Owner;
 import org.candlepin.resteasy.AnnotationLocator;
@@ -88,7 +89,9 @@ public class ConsumerCheckInFilterTest extends DatabaseTestFixture {
         MethodLocator methodLocator = new MethodLocator(injector);
         methodLocator.init();
         AnnotationLocator annotationLocator = new AnnotationLocator(methodLocator);
-        interceptor = new ConsumerCheckInFilter(consumerCurator, annotationLocator);
+        // The recorder is never started here, so check-ins are written immediately
+        ConsumerCheckInRecorder checkInRecorder = injector.getInstance(ConsumerCheckInRecorder.class);
+        interceptor = new ConsumerCheckInFilter(checkInRecorder, annotationLocator);
     }
 
     private void mockResourceMethod(Method method) {
@@ -33,12 +33,14 @@ import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
 import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.ConfigurationException;
 import org.candlepin.config.DevConfig;
 import org.candlepin.config.TestConfig;
 import org.candlepin.controller.Refresher;
 import org.candlepin.controller.RefresherFactory;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
+import org.candlepin.dto.manifest.v1.CertificateDTO;
 import org.candlepin.dto.manifest.v1.ConsumerDTO;
 import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
 import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
@@ -120,7 +122,6 @@ public class ImporterTest {
     private DevConfig config;
     private I18n i18n;
     private ModelTranslator modelTranslator;
-    private SyncUtils syncUtils;
 
     @Mock
     private CdnCurator mockCdnCurator;
@@ -145,6 +146,8 @@ public class ImporterTest {
     @Mock
     private Signer signer;
     @Mock
+    private Signer.Verifier verifier;
+    @Mock
     private EventSink mockEventSink;
     @Mock
     private DistributorVersionCurator mockDistributorVersionCurator;
@@ -165,9 +168,10 @@ public class ImporterTest {
             this.mockEnvironmentCurator, this.mockOwnerCurator);
 
         this.mapper = ObjectMapperFactory.getSyncObjectMapper(config);
-        this.syncUtils = new SyncUtils(this.config);
         this.mockJsPath = new File(this.tmpFolder, "empty.js").getPath();
 
+        doReturn(this.verifier).when(this.signer).createVerifier();
+
         this.updateReleaseVersion("0.0.3", "1");
     }
 
@@ -189,12 +193,17 @@ public class ImporterTest {
     }
 
     private Importer buildImporter() {
-        return new Importer(this.mockConsumerTypeCurator, this.mockRulesImporter,
-            this.mockOwnerCurator, this.mockIdentityCertCurator, this.refresherFactory,
-            this.signer, this.mockExporterMetadataCurator,
-            this.mockCertSerialCurator, this.mockEventSink, this.i18n, this.mockDistributorVersionCurator,
-            this.mockCdnCurator, this.syncUtils, this.mapper, this.mockImportRecordCurator,
-            this.mockSubscriptionReconciler, this.modelTranslator);
+        try {
+            return new Importer(this.mockConsumerTypeCurator, this.mockRulesImporter,
+                this.mockOwnerCurator, this.mockIdentityCertCurator, this.refresherFactory,
+                this.signer, this.mockExporterMetadataCurator,
+                this.mockCertSerialCurator, this.mockEventSink, this.i18n, this.mockDistributorVersionCurator,
+                this.mockCdnCurator, this.mapper, this.mockImportRecordCurator,
+                this.mockSubscriptionReconciler, this.modelTranslator, this.config);
+        }
+        catch (ConfigurationException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private File createTempDirectory(String prefix) throws IOException {
@@ -217,6 +226,10 @@ public class ImporterTest {
         return file;
     }
 
+    private Meta readMeta(File file) throws IOException {
+        return this.mapper.readValue(file, Meta.class);
+    }
+
     private File[] createMockJsFile(String filename)
         throws IOException {
 
@@ -306,7 +319,8 @@ public class ImporterTest {
             .getByType(ExporterMetadata.TYPE_SYSTEM);
 
         Importer importer = this.buildImporter();
-        importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, actual, new ConflictOverrides());
+        importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, this.readMeta(actual),
+            new ConflictOverrides());
 
         Meta fileMeta = mapper.readValue(file, Meta.class);
         Meta actualMeta = mapper.readValue(actual, Meta.class);
@@ -327,8 +341,8 @@ public class ImporterTest {
         File actualmeta = createFile("meta.json", "0.0.3", now, "test_user", "prefix");
 
         Importer importer = this.buildImporter();
-        ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, actualmeta,
-            new ConflictOverrides());
+        ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null,
+            this.readMeta(actualmeta), new ConflictOverrides());
 
         assertNotNull(metadata);
         assertEquals(ExporterMetadata.TYPE_SYSTEM, metadata.getType());
@@ -357,7 +371,7 @@ public class ImporterTest {
 
         try {
             ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null,
-                actualmeta, new ConflictOverrides());
+                this.readMeta(actualmeta), new ConflictOverrides());
 
             fail("Expected an ImportConflictException, but no exception was thrown");
         }
@@ -386,7 +400,7 @@ public class ImporterTest {
         Importer importer = this.buildImporter();
 
         try {
-            importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, actualmeta,
+            importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, this.readMeta(actualmeta),
                 new ConflictOverrides());
 
             fail("Expected an ImportConflictException, but no exception was thrown");
@@ -434,8 +448,8 @@ public class ImporterTest {
             .getByType(ExporterMetadata.TYPE_SYSTEM);
 
         Importer importer = this.buildImporter();
-        ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null, actualmeta,
-            new ConflictOverrides());
+        ExporterMetadata metadata = importer.validateMetadata(ExporterMetadata.TYPE_SYSTEM, null,
+            this.readMeta(actualmeta), new ConflictOverrides());
 
         assertNotNull(metadata);
         assertEquals(ExporterMetadata.TYPE_SYSTEM, metadata.getType());
@@ -448,12 +462,13 @@ public class ImporterTest {
     @Test
     public void nullType() throws IOException {
         File actualmeta = createFile("meta.json", "0.0.3", new Date(), "test_user", "prefix");
+        Meta meta = this.readMeta(actualmeta);
 
         Importer importer = this.buildImporter();
 
         // null Type should cause exception
         assertThrows(ImporterException.class,
-            () -> importer.validateMetadata(null, null, actualmeta, new ConflictOverrides()));
+            () -> importer.validateMetadata(null, null, meta, new ConflictOverrides()));
 
         assertTrue(actualmeta.delete());
     }
@@ -462,12 +477,13 @@ public class ImporterTest {
     public void expectOwner() throws IOException {
         ConflictOverrides overrides = new ConflictOverrides();
         File actualmeta = createFile("meta.json", "0.0.3", new Date(), "test_user", "prefix");
+        Meta meta = this.readMeta(actualmeta);
 
         Importer importer = this.buildImporter();
 
         // null Type should cause exception
         assertThrows(ImporterException.class,
-            () -> importer.validateMetadata(ExporterMetadata.TYPE_PER_USER, null, actualmeta, overrides));
+            () -> importer.validateMetadata(ExporterMetadata.TYPE_PER_USER, null, meta, overrides));
 
         verify(this.mockExporterMetadataCurator, never()).create(any(ExporterMetadata.class));
     }
@@ -537,7 +553,7 @@ public class ImporterTest {
     @Test
     public void testImportBadConsumerZip() throws Exception {
         // Mock a passed signature check:
-        when(this.signer.verifySignature(any(File.class), any(byte[].class))).thenReturn(true);
+        when(this.verifier.verify(any(byte[].class))).thenReturn(true);
 
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
@@ -566,7 +582,7 @@ public class ImporterTest {
     @Test
     public void testImportZipSigAndEmptyConsumerZip() throws Exception {
         // Mock a passed signature check:
-        when(this.signer.verifySignature(any(File.class), any(byte[].class))).thenReturn(true);
+        when(this.verifier.verify(any(byte[].class))).thenReturn(true);
 
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
@@ -783,7 +799,7 @@ public class ImporterTest {
         type.setId("test-ctype");
         this.mockConsumerType(type);
 
-        File[] upstream = createUpstreamFiles();
+        List<CertificateDTO> upstream = this.createUpstreamCertificates();
         Owner owner = new Owner()
             .setKey("admin")
             .setDisplayName("Admin Owner");
@@ -803,26 +819,20 @@ public class ImporterTest {
         ownerDTO.setDisplayName("Admin Owner");
         consumerDTO.setOwner(ownerDTO);
 
-        File consumerfile = new File(this.tmpFolder, "consumer.json");
-        this.mapper.writeValue(consumerfile, consumerDTO);
         ConflictOverrides forcedConflicts = mock(ConflictOverrides.class);
         when(forcedConflicts.isForced(any(Importer.Conflict.class))).thenReturn(false);
 
         Meta meta = new Meta("1.0", new Date(), "admin", "/candlepin/owners", null);
 
         Importer importer = this.buildImporter();
-        importer.importConsumer(owner, consumerfile, upstream, forcedConflicts, meta);
+        importer.importConsumer(owner, consumerDTO, upstream, forcedConflicts, meta);
 
         verify(this.mockOwnerCurator).merge(owner);
     }
 
-    private File[] createUpstreamFiles() throws URISyntaxException {
-        File[] upstream = new File[2];
+    private List<CertificateDTO> createUpstreamCertificates() throws URISyntaxException, IOException {
         File idcertfile = new File(classLoader.getResource("upstream/testidcert.json").toURI());
-        File kpfile = new File(classLoader.getResource("upstream/keypair.pem").toURI());
-        upstream[0] = idcertfile;
-        upstream[1] = kpfile;
-        return upstream;
+        return List.of(this.mapper.readValue(idcertfile, CertificateDTO.class));
     }
 
     private DistributorVersionDTO createDistributorVersionDTO() {
@@ -838,12 +848,8 @@ public class ImporterTest {
 
     @Test
     public void importDistributorVersionCreate() throws Exception {
-        File[] distVer = new File[1];
-        distVer[0] = new File(this.tmpFolder, "dist-ver.json");
-        mapper.writeValue(distVer[0], this.createDistributorVersionDTO());
-
         Importer importer = this.buildImporter();
-        importer.importDistributorVersions(distVer);
+        importer.importDistributorVersions(List.of(this.createDistributorVersionDTO()));
 
         verify(this.mockDistributorVersionCurator).create(any(DistributorVersion.class));
         verify(this.mockDistributorVersionCurator, never()).merge(any(DistributorVersion.class));
@@ -855,12 +861,8 @@ public class ImporterTest {
             .when(this.mockDistributorVersionCurator)
             .findByName("test-dist-ver");
 
-        File[] distVer = new File[1];
-        distVer[0] = new File(this.tmpFolder, "dist-ver.json");
-        mapper.writeValue(distVer[0], createDistributorVersionDTO());
-
         Importer importer = this.buildImporter();
-        importer.importDistributorVersions(distVer);
+        importer.importDistributorVersions(List.of(this.createDistributorVersionDTO()));
 
         verify(this.mockDistributorVersionCurator, never()).create(any(DistributorVersion.class));
         verify(this.mockDistributorVersionCurator).merge(any(DistributorVersion.class));
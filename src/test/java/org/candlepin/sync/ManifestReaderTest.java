@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2009 - 2024 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.DevConfig;
+import org.candlepin.config.TestConfig;
+import org.candlepin.dto.manifest.v1.CertificateDTO;
+import org.candlepin.dto.manifest.v1.ConsumerDTO;
+import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
+import org.candlepin.pki.impl.Signer;
+import org.candlepin.sync.Importer.ImportFile;
+import org.candlepin.test.CertificateReaderForTesting;
+import org.candlepin.util.ObjectMapperFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+
+public class ManifestReaderTest {
+
+    private I18n i18n;
+    private ObjectMapper mapper;
+    private Signer signer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void init() throws Exception {
+        DevConfig config = TestConfig.defaults();
+        config.setProperty(ConfigProperties.FAIL_ON_UNKNOWN_IMPORT_PROPERTIES, "false");
+
+        this.i18n = I18nFactory.getI18n(this.getClass(), Locale.US, I18nFactory.FALLBACK);
+        this.mapper = ObjectMapperFactory.getSyncObjectMapper(config);
+        this.signer = new Signer(new CertificateReaderForTesting());
+        this.executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    private ManifestReader buildReader(boolean concurrent) {
+        return new ManifestReader(this.signer, this.mapper, this.i18n, concurrent ? this.executor : null);
+    }
+
+    private byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ZipOutputStream zip = new ZipOutputStream(output)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+
+        return output.toByteArray();
+    }
+
+    private byte[] buildManifest(byte[] consumerExport, byte[] signature, boolean signatureFirst)
+        throws IOException {
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+
+        if (signatureFirst) {
+            entries.put(ManifestReader.SIGNATURE_FILE, signature);
+        }
+
+        entries.put(ManifestReader.CONSUMER_EXPORT_FILE, consumerExport);
+
+        if (!signatureFirst) {
+            entries.put(ManifestReader.SIGNATURE_FILE, signature);
+        }
+
+        return this.zip(entries);
+    }
+
+    private byte[] buildConsumerExport() throws IOException {
+        ConsumerDTO consumer = new ConsumerDTO();
+        consumer.setUuid("consumer-uuid");
+        consumer.setName("consumer");
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("export/meta.json", this.mapper.writeValueAsBytes(
+            new Meta("1.0", new Date(), "test_user", "prefix", null)));
+        entries.put("export/consumer.json", this.mapper.writeValueAsBytes(consumer));
+        entries.put("export/rules2/rules.js", "// rules".getBytes(StandardCharsets.UTF_8));
+        entries.put("export/consumer_types/system.json", this.mapper.writeValueAsBytes(
+            new ConsumerTypeDTO().setLabel("system")));
+        entries.put("export/consumer_types/candlepin.json", this.mapper.writeValueAsBytes(
+            new ConsumerTypeDTO().setLabel("candlepin")));
+        entries.put("export/upstream_consumer/cert.json", this.mapper.writeValueAsBytes(
+            new CertificateDTO().setId("cert-id")));
+        entries.put("export/upstream_consumer/keypair.pem", "key".getBytes(StandardCharsets.UTF_8));
+        entries.put("export/products/prod-1.json", this.mapper.writeValueAsBytes(
+            new ProductDTO().setId("prod-1").setName("product")));
+        entries.put("export/entitlement_certificates/1.pem", "cert".getBytes(StandardCharsets.UTF_8));
+
+        return this.zip(entries);
+    }
+
+    private byte[] sign(byte[] data) {
+        return this.signer.sign(new ByteArrayInputStream(data));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void testReadsManifestSections(boolean concurrent) throws Exception {
+        byte[] export = this.buildConsumerExport();
+        byte[] manifest = this.buildManifest(export, this.sign(export), false);
+
+        ManifestContents contents = this.buildReader(concurrent)
+            .read("manifest.zip", new ByteArrayInputStream(manifest), new ConflictOverrides());
+
+        assertThat(contents.getMeta().getPrincipalName()).isEqualTo("test_user");
+        assertThat(contents.getConsumer().getUuid()).isEqualTo("consumer-uuid");
+        assertThat(contents.getRules()).isEqualTo("// rules");
+        assertThat(contents.getConsumerTypes())
+            .extracting(ConsumerTypeDTO::getLabel)
+            .containsExactlyInAnyOrder("system", "candlepin");
+        assertThat(contents.getUpstreamConsumerCertificates())
+            .extracting(CertificateDTO::getId)
+            .containsExactly("cert-id");
+        assertThat(contents.getProducts()).containsOnlyKeys("prod-1");
+        assertThat(contents.getProducts().get("prod-1").getName()).isEqualTo("product");
+
+        assertThat(contents.contains(ImportFile.ENTITLEMENT_CERTIFICATES)).isTrue();
+        assertThat(contents.contains(ImportFile.ENTITLEMENTS)).isFalse();
+        assertThat(contents.getEntitlements()).isNull();
+        assertThat(contents.getDistributorVersions()).isNull();
+    }
+
+    @Test
+    public void testVerifiesSignatureReadBeforeConsumerExport() throws Exception {
+        byte[] export = this.buildConsumerExport();
+        byte[] manifest = this.buildManifest(export, this.sign(export), true);
+
+        ManifestContents contents = this.buildReader(true)
+            .read("manifest.zip", new ByteArrayInputStream(manifest), new ConflictOverrides());
+
+        assertThat(contents.getMeta().getPrincipalName()).isEqualTo("test_user");
+    }
+
+    @Test
+    public void testRejectsInvalidSignature() throws Exception {
+        byte[] export = this.buildConsumerExport();
+        byte[] signature = this.sign("other".getBytes(StandardCharsets.UTF_8));
+        byte[] manifest = this.buildManifest(export, signature, false);
+
+        ImportConflictException exception = assertThrows(ImportConflictException.class,
+            () -> this.buildReader(true)
+                .read("manifest.zip", new ByteArrayInputStream(manifest), new ConflictOverrides()));
+
+        assertThat(exception.message().getConflicts()).containsExactly(Importer.Conflict.SIGNATURE_CONFLICT);
+    }
+
+    @Test
+    public void testAcceptsInvalidSignatureWhenForced() throws Exception {
+        byte[] export = this.buildConsumerExport();
+        byte[] signature = this.sign("other".getBytes(StandardCharsets.UTF_8));
+        byte[] manifest = this.buildManifest(export, signature, false);
+
+        ConflictOverrides overrides = new ConflictOverrides(Importer.Conflict.SIGNATURE_CONFLICT);
+        ManifestContents contents = this.buildReader(true)
+            .read("manifest.zip", new ByteArrayInputStream(manifest), overrides);
+
+        assertThat(contents.getMeta().getPrincipalName()).isEqualTo("test_user");
+    }
+
+    @Test
+    public void testReportsConsumerExportErrorsAfterSignatureCheck() throws Exception {
+        byte[] export = "not an archive".getBytes(StandardCharsets.UTF_8);
+        byte[] manifest = this.buildManifest(export, this.sign(export), false);
+
+        ImportExtractionException exception = assertThrows(ImportExtractionException.class,
+            () -> this.buildReader(true)
+                .read("manifest.zip", new ByteArrayInputStream(manifest), new ConflictOverrides()));
+
+        assertThat(exception.getMessage()).contains("not a properly compressed file or is empty");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void testReportsDecodeErrorsWhenSectionIsFetched(boolean concurrent) throws Exception {
+        byte[] export = this.zip(Map.of("export/meta.json", "{ invalid".getBytes(StandardCharsets.UTF_8)));
+        byte[] manifest = this.buildManifest(export, this.sign(export), false);
+
+        ManifestContents contents = this.buildReader(concurrent)
+            .read("manifest.zip", new ByteArrayInputStream(manifest), new ConflictOverrides());
+
+        assertThrows(IOException.class, contents::getMeta);
+    }
+
+}
@@ -301,7 +301,7 @@ public class ProductImporterTest {
         }
     }
 
-    private ProductImporter buildProductImporter() {
+    private ProductImporter buildProductImporter() throws IOException {
         return new ProductImporter(this.tmpdir, this.mapper, this.i18n);
     }
 
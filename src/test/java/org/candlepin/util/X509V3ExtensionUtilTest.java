@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import org.candlepin.config.Configuration;
+import org.candlepin.config.ConfigurationException;
 import org.candlepin.controller.util.ContentPathBuilder;
 import org.candlepin.controller.util.PromotedContent;
 import org.candlepin.model.Branding;
@@ -30,7 +31,7 @@ import org.candlepin.model.Owner;
 import org.candlepin.model.Pool;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductContent;
-import org.candlepin.pki.huffman.Huffman;
+import org.candlepin.pki.huffman.ContentPathEncoder;
 import org.candlepin.test.TestUtil;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -50,12 +51,12 @@ public class X509V3ExtensionUtilTest {
     private ObjectMapper mapper;
 
     @BeforeEach
-    public void init() {
+    public void init() throws ConfigurationException {
         this.mapper = ObjectMapperFactory.getX509V3ExtensionUtilObjectMapper();
 
         Configuration config = mock(Configuration.class);
         EntitlementCurator ec = mock(EntitlementCurator.class);
-        util = new X509V3ExtensionUtil(config, ec, new Huffman());
+        util = new X509V3ExtensionUtil(config, ec, new ContentPathEncoder(config));
     }
 
     @Test